@@ -17,9 +17,13 @@
  ******************************************************************************/
 package io.github.dsheirer.alias;
 
+import java.util.Collections;
+import java.util.List;
+
 public class AliasEvent
 {
 	private Alias mAlias;
+	private List<Alias> mAliases;
 	private Event mEvent;
 
 	/**
@@ -32,11 +36,38 @@ public class AliasEvent
 		mAlias = alias;
 		mEvent = event;
 	}
+
+	/**
+	 * AliasEvent - bulk add event describing a set of aliases that were added to the model in a single update
+	 * @param aliases - aliases that were added
+	 */
+	public AliasEvent( List<Alias> aliases )
+	{
+		mAliases = aliases;
+		mEvent = Event.ADD_ALL;
+	}
 	
+	/**
+	 * Alias for this event, or null for an ADD_ALL event
+	 */
 	public Alias getAlias()
 	{
 		return mAlias;
 	}
+
+	/**
+	 * Aliases for this event.  For an ADD_ALL event, this is the set of added aliases, otherwise it is a list
+	 * containing the single alias for this event.
+	 */
+	public List<Alias> getAliases()
+	{
+		if(mAliases != null)
+		{
+			return mAliases;
+		}
+
+		return mAlias != null ? Collections.singletonList(mAlias) : Collections.emptyList();
+	}
 	
 	public Event getEvent()
 	{
@@ -49,6 +80,7 @@ public class AliasEvent
 	public enum Event
 	{
 		ADD,
+		ADD_ALL,
 		CHANGE,
 		DELETE;
 	}
@@ -0,0 +1,634 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.alias;
+
+import io.github.dsheirer.alias.id.AliasID;
+import io.github.dsheirer.alias.id.esn.Esn;
+import io.github.dsheirer.alias.id.radio.Radio;
+import io.github.dsheirer.alias.id.radio.RadioRange;
+import io.github.dsheirer.alias.id.status.StatusID;
+import io.github.dsheirer.alias.id.talkgroup.Talkgroup;
+import io.github.dsheirer.alias.id.talkgroup.TalkgroupRange;
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.protocol.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk alias importer for large alias sets, such as the talkgroups of a trunked radio system from RadioReference.
+ *
+ * Adding aliases one at a time broadcasts an alias event per alias, which causes every alias list to update its
+ * lookup maps and queues a playlist change per alias.  The importer instead:
+ *
+ * 1. Consumes the alias stream off of the Swing event thread, grouping aliases by alias list name.
+ * 2. Builds each affected alias list (existing plus imported aliases) in parallel, checking each imported alias
+ *    for duplicate identifiers and overlapping ranges against the existing and previously imported aliases in a
+ *    single ordered pass.
+ * 3. Publishes the accepted aliases and the rebuilt alias lists to the alias model in a single update on the Swing
+ *    event thread, which produces a single ADD_ALL alias event and a single playlist save.
+ *
+ * Imported aliases that duplicate an existing talkgroup, radio, ESN, status or identical range in the same alias
+ * list are skipped.  Ranges that overlap other ranges or individual identifiers are imported and reported.
+ */
+public class AliasImporter
+{
+    private final static Logger mLog = LoggerFactory.getLogger(AliasImporter.class);
+
+    //Number of times the alias lists are rebuilt when the alias model changes during an import
+    private static final int MAX_PUBLISH_ATTEMPTS = 3;
+
+    //Imports run on their own thread so that a long import doesn't occupy a thread of the shared scheduled thread
+    //pool.  The thread is released when there are no imports to run.
+    private static final ExecutorService IMPORT_EXECUTOR = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), new NamingThreadFactory("sdrtrunk alias import"));
+
+    private AliasModel mAliasModel;
+
+    /**
+     * Constructs an instance
+     * @param aliasModel to receive imported aliases
+     */
+    public AliasImporter(AliasModel aliasModel)
+    {
+        mAliasModel = aliasModel;
+    }
+
+    /**
+     * Imports the stream of aliases.  The stream is consumed on the import thread.
+     *
+     * @param aliases to import
+     * @return future that completes with the import result once the aliases are published to the alias model
+     */
+    public CompletableFuture<ImportResult> importAliases(Stream<Alias> aliases)
+    {
+        CompletableFuture<ImportResult> future = new CompletableFuture<>();
+
+        IMPORT_EXECUTOR.execute(() -> {
+            try
+            {
+                long start = System.nanoTime();
+                Map<String,List<Alias>> imported = new LinkedHashMap<>();
+                List<Alias> ordered = new ArrayList<>();
+
+                aliases.forEachOrdered(alias -> {
+                    if(alias != null)
+                    {
+                        alias.validate();
+                        ordered.add(alias);
+                        imported.computeIfAbsent(getKey(alias), key -> new ArrayList<>()).add(alias);
+                    }
+                });
+
+                build(imported, ordered, start, 1, future);
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Error while importing aliases", t);
+                future.completeExceptionally(t);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Builds the alias lists affected by the import in parallel and publishes the result on the Swing event thread.
+     * If the alias model changes before the result is published, the alias lists are rebuilt.
+     */
+    private void build(Map<String,List<Alias>> imported, List<Alias> ordered, long start, int attempt,
+                       CompletableFuture<ImportResult> future)
+    {
+        int aliasVersion = mAliasModel.getAliasVersion();
+
+        Map<String,List<Alias>> existing = new HashMap<>();
+
+        for(Alias alias : mAliasModel.getAliases())
+        {
+            existing.computeIfAbsent(getKey(alias), key -> new ArrayList<>()).add(alias);
+        }
+
+        List<ListBuilder> builders = imported.entrySet().parallelStream()
+            .map(entry -> new ListBuilder(entry.getKey(), existing.get(entry.getKey()), entry.getValue()))
+            .collect(Collectors.toList());
+
+        Map<String,AliasList> aliasLists = new HashMap<>();
+        Map<Alias,Boolean> rejected = new IdentityHashMap<>();
+        ImportResult result = new ImportResult();
+
+        for(ListBuilder builder : builders)
+        {
+            aliasLists.put(builder.getKey(), builder.getAliasList());
+            result.mDuplicates.addAll(builder.getDuplicates());
+            result.mRangeConflicts.addAll(builder.getRangeConflicts());
+
+            for(Alias alias : builder.getRejected())
+            {
+                rejected.put(alias, Boolean.TRUE);
+            }
+        }
+
+        List<Alias> accepted = ordered.stream().filter(alias -> !rejected.containsKey(alias))
+            .collect(Collectors.toList());
+        result.mImported = accepted.size();
+
+        EventQueue.invokeLater(() -> {
+            try
+            {
+                if(attempt >= MAX_PUBLISH_ATTEMPTS)
+                {
+                    //Last attempt - add the aliases to the model and let it update the cached alias lists
+                    mAliasModel.addAliases(accepted);
+                }
+                else if(!mAliasModel.publish(accepted, aliasLists, aliasVersion))
+                {
+                    IMPORT_EXECUTOR.execute(() -> {
+                        try
+                        {
+                            build(imported, ordered, start, attempt + 1, future);
+                        }
+                        catch(Throwable t)
+                        {
+                            mLog.error("Error while importing aliases", t);
+                            future.completeExceptionally(t);
+                        }
+                    });
+
+                    return;
+                }
+
+                result.mElapsedMilliseconds = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                mLog.info("Alias import complete - " + result);
+                future.complete(result);
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Error while publishing imported aliases", t);
+                future.completeExceptionally(t);
+            }
+        });
+    }
+
+    /**
+     * Alias list grouping key (alias list membership is case-insensitive)
+     */
+    private static String getKey(Alias alias)
+    {
+        return alias.hasList() ? alias.getList().toLowerCase() : "";
+    }
+
+    /**
+     * Creates aliases from RadioReference talkgroups for a trunked radio system.
+     *
+     * @param talkgroups for the system
+     * @param categories map of talkgroup category ID to category name, used as the alias group
+     * @param aliasListName to assign to each alias
+     * @param protocol of the radio system
+     * @return stream of aliases
+     */
+    public static Stream<Alias> fromRadioReference(Collection<io.github.dsheirer.rrapi.type.Talkgroup> talkgroups,
+                                                   Map<Integer,String> categories, String aliasListName,
+                                                   Protocol protocol)
+    {
+        return talkgroups.stream().map(talkgroup -> {
+            String name = talkgroup.getAlphaTag();
+
+            if(name == null || name.isEmpty())
+            {
+                name = talkgroup.getDescription();
+            }
+
+            if(name == null || name.isEmpty())
+            {
+                name = String.valueOf(talkgroup.getDecimalValue());
+            }
+
+            Alias alias = new Alias(name);
+            alias.setList(aliasListName);
+            alias.setGroup(categories.get(talkgroup.getTalkgroupCategoryId()));
+            alias.addAliasID(new Talkgroup(protocol, talkgroup.getDecimalValue()));
+            return alias;
+        });
+    }
+
+    /**
+     * Result of an alias import
+     */
+    public static class ImportResult
+    {
+        private int mImported;
+        private List<String> mDuplicates = new ArrayList<>();
+        private List<String> mRangeConflicts = new ArrayList<>();
+        private long mElapsedMilliseconds;
+
+        /**
+         * Number of aliases added to the alias model
+         */
+        public int getImported()
+        {
+            return mImported;
+        }
+
+        /**
+         * Descriptions of aliases that were skipped because they duplicate an existing identifier
+         */
+        public List<String> getDuplicates()
+        {
+            return Collections.unmodifiableList(mDuplicates);
+        }
+
+        /**
+         * Descriptions of imported ranges that overlap other ranges or identifiers
+         */
+        public List<String> getRangeConflicts()
+        {
+            return Collections.unmodifiableList(mRangeConflicts);
+        }
+
+        /**
+         * Elapsed time from the start of the import until the aliases were published
+         */
+        public long getElapsedMilliseconds()
+        {
+            return mElapsedMilliseconds;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "imported [" + mImported + "] duplicates skipped [" + mDuplicates.size() +
+                "] range conflicts [" + mRangeConflicts.size() + "] in [" + mElapsedMilliseconds + " ms]";
+        }
+    }
+
+    /**
+     * Checks imported aliases for one alias list and builds the alias list from the existing and accepted aliases.
+     */
+    private static class ListBuilder
+    {
+        private String mKey;
+        private AliasList mAliasList;
+        private Map<String,ValueIndex> mIndexes = new HashMap<>();
+        private Map<String,Alias> mESNs = new HashMap<>();
+        private Map<Integer,Alias> mStatuses = new HashMap<>();
+        private List<Alias> mRejected = new ArrayList<>();
+        private List<String> mDuplicates = new ArrayList<>();
+        private List<String> mRangeConflicts = new ArrayList<>();
+
+        public ListBuilder(String key, List<Alias> existing, List<Alias> imported)
+        {
+            mKey = key;
+
+            List<Alias> aliases = new ArrayList<>();
+
+            if(existing != null)
+            {
+                aliases.addAll(existing);
+
+                for(Alias alias : existing)
+                {
+                    index(alias);
+                }
+            }
+
+            for(Alias alias : imported)
+            {
+                if(check(alias))
+                {
+                    index(alias);
+                    aliases.add(alias);
+                }
+                else
+                {
+                    mRejected.add(alias);
+                }
+            }
+
+            if(!key.isEmpty())
+            {
+                mAliasList = new AliasList(imported.get(0).getList());
+
+                for(Alias alias : aliases)
+                {
+                    mAliasList.addAlias(alias);
+                }
+            }
+        }
+
+        public String getKey()
+        {
+            return mKey;
+        }
+
+        /**
+         * Rebuilt alias list or null for aliases that don't have an alias list name
+         */
+        public AliasList getAliasList()
+        {
+            return mAliasList;
+        }
+
+        public List<Alias> getRejected()
+        {
+            return mRejected;
+        }
+
+        public List<String> getDuplicates()
+        {
+            return mDuplicates;
+        }
+
+        public List<String> getRangeConflicts()
+        {
+            return mRangeConflicts;
+        }
+
+        /**
+         * Checks the alias identifiers against the identifiers already indexed for this alias list
+         * @return true if the alias should be imported
+         */
+        private boolean check(Alias alias)
+        {
+            for(AliasID id : alias.getId())
+            {
+                if(!id.isValid())
+                {
+                    continue;
+                }
+
+                Alias duplicate = null;
+
+                switch(id.getType())
+                {
+                    case TALKGROUP:
+                        Talkgroup talkgroup = (Talkgroup)id;
+                        duplicate = checkValue(alias, getIndex("T", talkgroup.getProtocol()), talkgroup.getValue(), id);
+                        break;
+                    case RADIO_ID:
+                        Radio radio = (Radio)id;
+                        duplicate = checkValue(alias, getIndex("R", radio.getProtocol()), radio.getValue(), id);
+                        break;
+                    case TALKGROUP_RANGE:
+                        TalkgroupRange talkgroupRange = (TalkgroupRange)id;
+                        duplicate = checkRange(alias, getIndex("T", talkgroupRange.getProtocol()),
+                            talkgroupRange.getMinTalkgroup(), talkgroupRange.getMaxTalkgroup(), id);
+                        break;
+                    case RADIO_ID_RANGE:
+                        RadioRange radioRange = (RadioRange)id;
+                        duplicate = checkRange(alias, getIndex("R", radioRange.getProtocol()),
+                            radioRange.getMinRadio(), radioRange.getMaxRadio(), id);
+                        break;
+                    case ESN:
+                        String esn = ((Esn)id).getEsn();
+                        duplicate = esn != null ? mESNs.get(esn.toLowerCase()) : null;
+                        break;
+                    case STATUS:
+                        duplicate = mStatuses.get(((StatusID)id).getStatus());
+                        break;
+                }
+
+                if(duplicate != null)
+                {
+                    mDuplicates.add("Alias [" + alias.getName() + "] " + id + " duplicates alias [" +
+                        duplicate.getName() + "] in alias list [" + alias.getList() + "]");
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Adds the alias identifiers to the indexes for this alias list
+         */
+        private void index(Alias alias)
+        {
+            for(AliasID id : alias.getId())
+            {
+                if(!id.isValid())
+                {
+                    continue;
+                }
+
+                switch(id.getType())
+                {
+                    case TALKGROUP:
+                        Talkgroup talkgroup = (Talkgroup)id;
+                        getIndex("T", talkgroup.getProtocol()).addValue(talkgroup.getValue(), alias);
+                        break;
+                    case RADIO_ID:
+                        Radio radio = (Radio)id;
+                        getIndex("R", radio.getProtocol()).addValue(radio.getValue(), alias);
+                        break;
+                    case TALKGROUP_RANGE:
+                        TalkgroupRange talkgroupRange = (TalkgroupRange)id;
+                        getIndex("T", talkgroupRange.getProtocol()).addRange(talkgroupRange.getMinTalkgroup(),
+                            talkgroupRange.getMaxTalkgroup(), alias);
+                        break;
+                    case RADIO_ID_RANGE:
+                        RadioRange radioRange = (RadioRange)id;
+                        getIndex("R", radioRange.getProtocol()).addRange(radioRange.getMinRadio(),
+                            radioRange.getMaxRadio(), alias);
+                        break;
+                    case ESN:
+                        String esn = ((Esn)id).getEsn();
+
+                        if(esn != null && !esn.isEmpty())
+                        {
+                            mESNs.put(esn.toLowerCase(), alias);
+                        }
+                        break;
+                    case STATUS:
+                        mStatuses.put(((StatusID)id).getStatus(), alias);
+                        break;
+                }
+            }
+        }
+
+        private ValueIndex getIndex(String type, Protocol protocol)
+        {
+            return mIndexes.computeIfAbsent(type + protocol, key -> new ValueIndex());
+        }
+
+        /**
+         * Checks a single identifier value
+         * @return alias with the same value, or null
+         */
+        private Alias checkValue(Alias alias, ValueIndex index, int value, AliasID id)
+        {
+            Alias duplicate = index.getValue(value);
+
+            if(duplicate == null)
+            {
+                Alias range = index.getRange(value, value);
+
+                if(range != null)
+                {
+                    mRangeConflicts.add("Alias [" + alias.getName() + "] " + id + " is within a range of alias [" +
+                        range.getName() + "] in alias list [" + alias.getList() + "]");
+                }
+            }
+
+            return duplicate;
+        }
+
+        /**
+         * Checks an identifier range
+         * @return alias with an identical range, or null
+         */
+        private Alias checkRange(Alias alias, ValueIndex index, int min, int max, AliasID id)
+        {
+            Alias duplicate = index.getIdenticalRange(min, max);
+
+            if(duplicate == null)
+            {
+                Alias overlap = index.getRange(min, max);
+
+                if(overlap == null)
+                {
+                    overlap = index.getValue(min, max);
+                }
+
+                if(overlap != null)
+                {
+                    mRangeConflicts.add("Alias [" + alias.getName() + "] " + id + " overlaps alias [" +
+                        overlap.getName() + "] in alias list [" + alias.getList() + "]");
+                }
+            }
+
+            return duplicate;
+        }
+    }
+
+    /**
+     * Sorted index of identifier values and ranges for a single identifier type and protocol.
+     */
+    private static class ValueIndex
+    {
+        private TreeMap<Integer,Alias> mValues = new TreeMap<>();
+        private TreeMap<Integer,List<Range>> mRanges = new TreeMap<>();
+        private long mMaxSpan;
+
+        public void addValue(int value, Alias alias)
+        {
+            mValues.put(value, alias);
+        }
+
+        public void addRange(int min, int max, Alias alias)
+        {
+            mRanges.computeIfAbsent(min, key -> new ArrayList<>()).add(new Range(min, max, alias));
+            mMaxSpan = Math.max(mMaxSpan, (long)max - min);
+        }
+
+        /**
+         * Alias with the value, or null
+         */
+        public Alias getValue(int value)
+        {
+            return mValues.get(value);
+        }
+
+        /**
+         * First alias with a value in the range, or null
+         */
+        public Alias getValue(int min, int max)
+        {
+            Map.Entry<Integer,Alias> entry = mValues.ceilingEntry(min);
+            return entry != null && entry.getKey() <= max ? entry.getValue() : null;
+        }
+
+        /**
+         * Alias with a range that overlaps the min-max range, or null
+         */
+        public Alias getRange(int min, int max)
+        {
+            int from = (int)Math.max(Integer.MIN_VALUE, min - mMaxSpan);
+            NavigableMap<Integer,List<Range>> candidates = mRanges.subMap(from, true, max, true);
+
+            for(List<Range> ranges : candidates.values())
+            {
+                for(Range range : ranges)
+                {
+                    if(range.mMax >= min)
+                    {
+                        return range.mAlias;
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Alias with the same min-max range, or null
+         */
+        public Alias getIdenticalRange(int min, int max)
+        {
+            List<Range> ranges = mRanges.get(min);
+
+            if(ranges != null)
+            {
+                for(Range range : ranges)
+                {
+                    if(range.mMax == max)
+                    {
+                        return range.mAlias;
+                    }
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private static class Range
+    {
+        private int mMin;
+        private int mMax;
+        private Alias mAlias;
+
+        public Range(int min, int max, Alias alias)
+        {
+            mMin = min;
+            mMax = max;
+            mAlias = alias;
+        }
+    }
+}
@@ -60,11 +60,11 @@ import java.util.TreeMap;
 public class AliasList implements Listener<AliasEvent>
 {
     private final static Logger mLog = LoggerFactory.getLogger(AliasList.class);
-    private Map<Protocol,TalkgroupAliasList> mTalkgroupProtocolMap = new HashMap<>();
-    private Map<Protocol,RadioAliasList> mRadioProtocolMap = new HashMap<>();
-    private Map<String,Alias> mESNMap = new HashMap<>();
-    private Map<Integer,Alias> mStatusMap = new HashMap<>();
-    private boolean mHasAliasActions = false;
+    private volatile Map<Protocol,TalkgroupAliasList> mTalkgroupProtocolMap = new HashMap<>();
+    private volatile Map<Protocol,RadioAliasList> mRadioProtocolMap = new HashMap<>();
+    private volatile Map<String,Alias> mESNMap = new HashMap<>();
+    private volatile Map<Integer,Alias> mStatusMap = new HashMap<>();
+    private volatile boolean mHasAliasActions = false;
     private String mName;
 
     /**
@@ -97,6 +97,22 @@ public class AliasList implements Listener<AliasEvent>
         }
     }
 
+    /**
+     * Replaces the contents of this list with the lookup maps of the source list.  Used to publish an alias list
+     * that was built off-thread (see AliasImporter) without disturbing decoders that hold a reference to this list.
+     * The source list must not be modified after this call.
+     *
+     * @param source alias list with the same name
+     */
+    public void update(AliasList source)
+    {
+        mTalkgroupProtocolMap = source.mTalkgroupProtocolMap;
+        mRadioProtocolMap = source.mRadioProtocolMap;
+        mESNMap = source.mESNMap;
+        mStatusMap = source.mStatusMap;
+        mHasAliasActions = source.mHasAliasActions;
+    }
+
     /**
      * Adds the alias and alias identifier to the internal type mapping.
      */
@@ -514,10 +530,11 @@ public class AliasList implements Listener<AliasEvent>
         public Alias getAlias(TalkgroupIdentifier identifier)
         {
             int value = identifier.getValue();
+            Alias alias = mTalkgroupAliasMap.get(value);
 
-            if(mTalkgroupAliasMap.containsKey(value))
+            if(alias != null)
             {
-                return mTalkgroupAliasMap.get(value);
+                return alias;
             }
 
             for(TalkgroupRange talkgroupRange: mTalkgroupRangeAliasMap.keySet())
@@ -597,10 +614,11 @@ public class AliasList implements Listener<AliasEvent>
         public Alias getAlias(RadioIdentifier identifier)
         {
             int value = identifier.getValue();
+            Alias alias = mRadioAliasMap.get(value);
 
-            if(mRadioAliasMap.containsKey(value))
+            if(alias != null)
             {
-                return mRadioAliasMap.get(value);
+                return alias;
             }
 
             for(RadioRange radioRange: mRadioRangeAliasMap.keySet())
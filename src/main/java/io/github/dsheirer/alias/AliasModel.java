@@ -51,6 +51,7 @@ public class AliasModel extends AbstractTableModel
     private List<Alias> mAliases = new CopyOnWriteArrayList<>();
     private Broadcaster<AliasEvent> mAliasEventBroadcaster = new Broadcaster<>();
     private Map<String,AliasList> mAliasListMap = new HashMap<>();
+    private volatile int mAliasVersion;
 
     public AliasModel()
     {
@@ -208,14 +209,90 @@ public class AliasModel extends AbstractTableModel
     }
 
     /**
-     * Bulk loading of aliases
+     * Bulk loading of aliases.  Aliases are added to the model in a single update and a single ADD_ALL alias event
+     * is broadcast for the set of aliases.
      */
     public void addAliases(List<Alias> aliases)
     {
+        List<Alias> added = new ArrayList<>();
+
         for(Alias alias : aliases)
         {
-            addAlias(alias);
+            if(alias != null)
+            {
+                alias.validate();
+                added.add(alias);
+            }
+        }
+
+        for(AliasList aliasList : mAliasListMap.values())
+        {
+            for(Alias alias : added)
+            {
+                if(alias.hasList() && alias.getList().equalsIgnoreCase(aliasList.getName()))
+                {
+                    aliasList.addAlias(alias);
+                }
+            }
+        }
+
+        addAll(added);
+    }
+
+    /**
+     * Publishes a set of imported aliases and the rebuilt alias lists that contain them.  Cached alias lists are
+     * updated in place from the rebuilt lists so that decoders holding an alias list see the imported aliases.
+     *
+     * @param aliases that were imported
+     * @param aliasLists rebuilt alias lists, keyed by lower-case alias list name
+     * @param aliasVersion of the model that the alias lists were built from
+     * @return false if the model changed after the alias lists were built and the import must be rebuilt
+     */
+    boolean publish(List<Alias> aliases, Map<String,AliasList> aliasLists, int aliasVersion)
+    {
+        if(aliasVersion != mAliasVersion)
+        {
+            return false;
+        }
+
+        for(AliasList existing : mAliasListMap.values())
+        {
+            if(existing.getName() != null)
+            {
+                AliasList rebuilt = aliasLists.get(existing.getName().toLowerCase());
+
+                if(rebuilt != null)
+                {
+                    existing.update(rebuilt);
+                }
+            }
         }
+
+        addAll(aliases);
+
+        return true;
+    }
+
+    /**
+     * Adds the aliases to the model as a single update and broadcasts an ADD_ALL event.
+     */
+    private void addAll(List<Alias> aliases)
+    {
+        if(!aliases.isEmpty())
+        {
+            int first = mAliases.size();
+            mAliases.addAll(aliases);
+            fireTableRowsInserted(first, mAliases.size() - 1);
+            broadcast(new AliasEvent(aliases));
+        }
+    }
+
+    /**
+     * Modification counter for the set of aliases, incremented on each alias event.
+     */
+    int getAliasVersion()
+    {
+        return mAliasVersion;
     }
 
     /**
@@ -257,7 +334,8 @@ public class AliasModel extends AbstractTableModel
     }
 
     /**
-     * Renames any broadcast channels that have the previous name.
+     * Renames any broadcast channels that have the previous name and broadcasts a change event for each updated
+     * alias.
      *
      * @param previousName to rename
      * @param newName to assign to the broadcast channel
@@ -280,6 +358,8 @@ public class AliasModel extends AbstractTableModel
                         broadcastChannel.setChannelName(newName);
                     }
                 }
+
+                broadcast(new AliasEvent(alias, AliasEvent.Event.CHANGE));
             }
         }
     }
@@ -378,6 +458,7 @@ public class AliasModel extends AbstractTableModel
             fireTableRowsUpdated(index, index);
         }
 
+        mAliasVersion++;
         mAliasEventBroadcaster.broadcast(event);
     }
 
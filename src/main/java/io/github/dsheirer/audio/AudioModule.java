@@ -126,6 +126,7 @@ public class AudioModule extends AbstractAudioModule implements IReusableBufferL
             ReusableAudioPacket endAudioPacket = mAudioPacketQueue.getEndAudioBuffer();
             endAudioPacket.resetAttributes();
             endAudioPacket.setAudioChannelId(getAudioChannelId());
+            endAudioPacket.setChannelStopped(true);
             endAudioPacket.setIdentifierCollection(getIdentifierCollection().copyOf());
 
             if(mRecordAudioOverride)
@@ -24,12 +24,13 @@ package io.github.dsheirer.audio.broadcast;
 import io.github.dsheirer.alias.AliasList;
 import io.github.dsheirer.alias.AliasModel;
 import io.github.dsheirer.alias.id.broadcast.BroadcastChannel;
+import io.github.dsheirer.audio.segment.AudioSegment;
+import io.github.dsheirer.audio.segment.IAudioSegmentListener;
 import io.github.dsheirer.icon.IconManager;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
-import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
 import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,7 +52,7 @@ import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class BroadcastModel extends AbstractTableModel implements Listener<ReusableAudioPacket>
+public class BroadcastModel extends AbstractTableModel implements IAudioSegmentListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(BroadcastModel.class);
 
@@ -281,22 +282,31 @@ public class BroadcastModel extends AbstractTableModel implements Listener<Reusa
     }
 
     @Override
-    public void receive(ReusableAudioPacket audioPacket)
+    public void segmentStarted(AudioSegment segment)
     {
-        if(audioPacket.isStreamable())
+        segmentUpdated(segment);
+    }
+
+    @Override
+    public void segmentUpdated(AudioSegment segment)
+    {
+        if(segment.isStreamable())
         {
-            for(BroadcastChannel channel: audioPacket.getBroadcastChannels())
+            for(BroadcastChannel channel: segment.getBroadcastChannels())
             {
                 if(mBroadcasterMap.containsKey(channel.getChannelName()))
                 {
-                    audioPacket.incrementUserCount();
-                    mStreamManager.receive(audioPacket);
+                    mStreamManager.segmentUpdated(segment);
                     return;
                 }
             }
         }
+    }
 
-        audioPacket.decrementUserCount();
+    @Override
+    public void segmentCompleted(AudioSegment segment)
+    {
+        mStreamManager.segmentCompleted(segment);
     }
 
     /**
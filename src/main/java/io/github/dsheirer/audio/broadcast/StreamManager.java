@@ -21,26 +21,32 @@
  */
 package io.github.dsheirer.audio.broadcast;
 
+import io.github.dsheirer.audio.segment.AudioSegment;
+import io.github.dsheirer.audio.segment.AudioSegmentStream;
+import io.github.dsheirer.audio.segment.IAudioSegmentListener;
+import io.github.dsheirer.audio.segment.SegmentFormat;
+import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.preference.UserPreferences;
-import io.github.dsheirer.record.AudioRecorder;
+import io.github.dsheirer.record.io.RecordingCategory;
+import io.github.dsheirer.record.io.RecordingFile;
+import io.github.dsheirer.record.io.RecordingIOService;
 import io.github.dsheirer.sample.Listener;
-import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
-import io.github.dsheirer.util.ThreadPool;
 import io.github.dsheirer.util.TimeStamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class StreamManager implements Listener<ReusableAudioPacket>
+public class StreamManager implements IAudioSegmentListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(StreamManager.class);
     private static final long MAXIMUM_RECORDER_LIFESPAN_MILLIS = 30000; //30 seconds
@@ -49,17 +55,15 @@ public class StreamManager implements Listener<ReusableAudioPacket>
 
     private Listener<AudioRecording> mAudioRecordingListener;
     private BroadcastFormat mBroadcastFormat;
+    private SegmentFormat mSegmentFormat;
     private UserPreferences mUserPreferences;
-    private Map<Integer,AudioRecorder> mStreamRecorders = new HashMap<>();
-    private Runnable mRecorderMonitor;
-    private ScheduledFuture<?> mRecorderMonitorFuture;
+    private Map<AudioSegment,SegmentStreamer> mStreamers = new HashMap<>();
     private AtomicBoolean mRunning = new AtomicBoolean();
 
     /**
-     * Stream manager processes all incoming audio packets and reassembles individual audio streams, converts audio
-     * to desired output format and persists each stream to disc.  Each recording is capped at a maximum length to
-     * ensure that recordings don't run too long before they are streamed out and to ensure that inactive recordings
-     * are closed in a timely fashion.
+     * Stream manager processes streamable call audio segments and persists the encoded audio for each call to disc.
+     * The encoded audio is shared with any other consumers of the call audio segment.  Each recording is capped at a
+     * maximum length to ensure that recordings don't run too long before they are streamed out.
      *
      * Completed streamable audio recordings are nominated to the output listener (for broadcast) upon completion
      *
@@ -71,127 +75,111 @@ public class StreamManager implements Listener<ReusableAudioPacket>
     {
         mAudioRecordingListener = listener;
         mBroadcastFormat = broadcastFormat;
+        mSegmentFormat = SegmentFormat.fromBroadcastFormat(broadcastFormat);
         mUserPreferences = userPreferences;
     }
 
     /**
-     * Starts the stream manager.  Schedules a processor to monitor for inactive temporary stream recorders
-     * every 2 seconds.
+     * Starts the stream manager.
      */
     public void start()
     {
-        if(mRunning.compareAndSet(false, true))
-        {
-            if(mRecorderMonitor == null)
-            {
-                mRecorderMonitor = new RecorderMonitor();
-            }
-
-            mRecorderMonitorFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(mRecorderMonitor,
-                0,2, TimeUnit.SECONDS);
-        }
+        mRunning.set(true);
     }
 
     /**
-     * Stops the stream manager.  Stops the inactive temporary stream recorder monitoring thread.
+     * Stops the stream manager and closes any active stream recordings.
      */
     public void stop()
     {
         if(mRunning.compareAndSet(true, false))
         {
-            if(mRecorderMonitorFuture != null)
-            {
-                mRecorderMonitorFuture.cancel(true);
-            }
-
-            synchronized(mStreamRecorders)
+            synchronized(mStreamers)
             {
-                List<Integer> streamKeys = new ArrayList<>(mStreamRecorders.keySet());
+                List<AudioSegment> segments = new ArrayList<>(mStreamers.keySet());
 
-                for(Integer streamKey : streamKeys)
+                for(AudioSegment segment : segments)
                 {
-                    removeRecorder(streamKey);
+                    removeStreamer(segment);
                 }
             }
         }
     }
 
     @Override
-    public void receive(ReusableAudioPacket audioPacket)
+    public void segmentStarted(AudioSegment segment)
     {
-        if(mRunning.get() && audioPacket.hasIdentifierCollection())
+        segmentUpdated(segment);
+    }
+
+    /**
+     * Writes any available encoded audio for the segment to the temporary stream recording and cycles the recording
+     * once it reaches the maximum recording lifespan.  Recordings are only cycled after all available audio is
+     * written so that each recording ends on an encoded audio frame boundary.
+     */
+    @Override
+    public void segmentUpdated(AudioSegment segment)
+    {
+        if(mRunning.get() && segment.getIdentifierCollection() != null)
         {
-            synchronized(mStreamRecorders)
+            synchronized(mStreamers)
             {
-                int channelMetadataID = audioPacket.getAudioChannelId();
-
-                ReusableAudioPacket.Type type = audioPacket.getType();
+                SegmentStreamer streamer = mStreamers.get(segment);
 
-                if(type == ReusableAudioPacket.Type.AUDIO)
+                if(streamer == null)
                 {
-                    if(mStreamRecorders.containsKey(channelMetadataID))
-                    {
-                        AudioRecorder recorder = mStreamRecorders.get(channelMetadataID);
-
-                        if(recorder != null)
-                        {
-                            audioPacket.incrementUserCount();
-                            recorder.receive(audioPacket);
-                        }
-                    }
-                    else
-                    {
-                        AudioRecorder recorder = BroadcastFactory.getAudioRecorder(getTemporaryRecordingPath(), mBroadcastFormat);
-                        recorder.start();
-                        audioPacket.incrementUserCount();
-                        recorder.receive(audioPacket);
-                        mStreamRecorders.put(channelMetadataID, recorder);
-                    }
+                    streamer = new SegmentStreamer(segment);
+                    mStreamers.put(segment, streamer);
                 }
-                else if(type == ReusableAudioPacket.Type.END)
-                {
-                    removeRecorder(channelMetadataID);
-                }
-                else
+
+                streamer.write();
+
+                if(streamer.getTimeRecordingStart() + MAXIMUM_RECORDER_LIFESPAN_MILLIS < System.currentTimeMillis())
                 {
-                    mLog.info("Unrecognized Audio Packet Type: " + type);
+                    mLog.info("cycling recorder - max temporary streaming recording time limit reached [" +
+                        streamer.getPath() + "]");
+                    streamer.cycle();
                 }
             }
         }
+    }
 
-        audioPacket.decrementUserCount();
+    @Override
+    public void segmentCompleted(AudioSegment segment)
+    {
+        synchronized(mStreamers)
+        {
+            removeStreamer(segment);
+        }
     }
 
     /**
-     * Removes the recorder associated with the source channel ID.
+     * Removes the streamer associated with the segment, writes any remaining audio and closes the recording.
      *
      * Note: this method invocation is not thread safe and must be invoked by a thread safe mechanism that protects the
-     * mStreamRecorders map.
+     * mStreamers map.
      *
-     * @param sourceChannelID identifying the recorder
+     * @param segment identifying the streamer
      */
-    private void removeRecorder(Integer sourceChannelID)
+    private void removeStreamer(AudioSegment segment)
     {
-        if(mStreamRecorders.containsKey(sourceChannelID))
-        {
-            AudioRecorder recorder = mStreamRecorders.remove(sourceChannelID);
-
-            recorder.close(new Listener<AudioRecorder>()
-            {
-                @Override
-                public void receive(AudioRecorder audioRecorder)
-                {
-                    AudioRecording audioRecording =
-                        new AudioRecording(audioRecorder.getPath(), audioRecorder.getIdentifierCollection(),
-                            audioRecorder.getTimeRecordingStart(), audioRecorder.getRecordingLength());
+        SegmentStreamer streamer = mStreamers.remove(segment);
 
-                    if(mAudioRecordingListener != null)
-                    {
-                        mAudioRecordingListener.receive(audioRecording);
-                    }
-                }
-            });
+        if(streamer != null)
+        {
+            streamer.write();
+            streamer.close();
+        }
+    }
 
+    /**
+     * Nominates the completed recording to the recording listener
+     */
+    private void dispatch(AudioRecording audioRecording)
+    {
+        if(mAudioRecordingListener != null)
+        {
+            mAudioRecordingListener.receive(audioRecording);
         }
     }
 
@@ -221,26 +209,130 @@ public class StreamManager implements Listener<ReusableAudioPacket>
     }
 
     /**
-     * Monitors recorders to ensure they don't exceed the maximum life-span allowed for a recording.
+     * Writes the encoded audio from a call audio segment to a sequence of temporary stream recordings.
      */
-    public class RecorderMonitor implements Runnable
+    private class SegmentStreamer
     {
-        @Override
-        public void run()
+        private AudioSegment mSegment;
+        private AudioSegmentStream.Reader mReader;
+        private RecordingFile mRecordingFile;
+        private Path mPath;
+        private long mTimeRecordingStart;
+        private long mSampleCountStart;
+
+        public SegmentStreamer(AudioSegment segment)
         {
-            synchronized(mStreamRecorders)
+            mSegment = segment;
+            mReader = segment.openReader(mSegmentFormat);
+            open();
+        }
+
+        public Path getPath()
+        {
+            return mPath;
+        }
+
+        public long getTimeRecordingStart()
+        {
+            return mTimeRecordingStart;
+        }
+
+        /**
+         * Opens a new temporary recording file
+         */
+        private void open()
+        {
+            mPath = getTemporaryRecordingPath();
+            mTimeRecordingStart = System.currentTimeMillis();
+            mSampleCountStart = mSegment.getSampleCount();
+
+            try
+            {
+                mRecordingFile = RecordingIOService.getInstance().open(mPath, RecordingCategory.STREAMING,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            catch(IOException ioe)
             {
-                long now = System.currentTimeMillis();
+                mLog.error("Error creating temporary stream recording file [" + mPath + "]", ioe);
+                mRecordingFile = null;
+            }
+        }
 
-                mStreamRecorders.entrySet().stream()
-                    .filter(entry -> entry.getValue().getTimeRecordingStart() + MAXIMUM_RECORDER_LIFESPAN_MILLIS < now)
-                    .forEach(entry ->
-                    {
-                        mLog.info("cycling recorder - max temporary streaming recording time limit reached [" +
-                            entry.getValue().getPath().toString() + "]");
+        /**
+         * Writes all available encoded audio to the recording
+         */
+        public void write()
+        {
+            try
+            {
+                if(mRecordingFile != null)
+                {
+                    mReader.read(mRecordingFile::write);
+                }
+                else
+                {
+                    //Discard the audio when the recording file can't be written
+                    mReader.read((bytes, offset, length) -> {});
+                }
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error writing to temporary stream recording file [" + mPath + "]", ioe);
+                closeRecording(false);
+            }
+        }
+
+        /**
+         * Closes the current recording and starts a new recording for the remainder of the call
+         */
+        public void cycle()
+        {
+            closeRecording(true);
+            open();
+        }
+
+        /**
+         * Closes the current recording and the segment reader
+         */
+        public void close()
+        {
+            closeRecording(true);
+            mReader.close();
+        }
+
+        /**
+         * Closes the current recording file and optionally nominates it to the recording listener.
+         */
+        private void closeRecording(boolean dispatch)
+        {
+            if(mRecordingFile != null)
+            {
+                CompletableFuture<Path> closed = mRecordingFile.close();
+                mRecordingFile = null;
+
+                if(dispatch)
+                {
+                    IdentifierCollection identifierCollection = mSegment.getIdentifierCollection();
 
-                        removeRecorder(entry.getKey());
+                    //Assumes audio sample rate of 8000 samples/second or 8 samples/milli-second
+                    long length = (mSegment.getSampleCount() - mSampleCountStart) / 8;
+
+                    AudioRecording audioRecording = new AudioRecording(mPath, identifierCollection,
+                        mTimeRecordingStart, length);
+
+                    //Nominate the recording once the recording I/O service has closed the file
+                    closed.whenComplete((path, throwable) ->
+                    {
+                        if(throwable == null)
+                        {
+                            dispatch(audioRecording);
+                        }
+                        else
+                        {
+                            mLog.error("Error closing temporary stream recording file [" + mPath + "]", throwable);
+                        }
                     });
+                }
             }
         }
     }
@@ -28,20 +28,24 @@ import io.github.dsheirer.message.IMessageListener;
 import io.github.dsheirer.module.Module;
 import io.github.dsheirer.preference.TimestampFormat;
 import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.record.io.RecordingCategory;
+import io.github.dsheirer.record.io.RecordingFile;
+import io.github.dsheirer.record.io.RecordingIOService;
+import io.github.dsheirer.sample.INonCriticalListener;
 import io.github.dsheirer.sample.Listener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
 
 /**
  * Records MBE audio frame call sequences and metadata to a JSON format recording file
  */
-public abstract class MBECallSequenceRecorder extends Module implements IMessageListener, Listener<IMessage>
+public abstract class MBECallSequenceRecorder extends Module implements IMessageListener, Listener<IMessage>,
+    INonCriticalListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(MBECallSequenceRecorder.class);
 
@@ -140,10 +144,12 @@ public abstract class MBECallSequenceRecorder extends Module implements IMessage
 
             try
             {
-                OutputStream outputStream = Files.newOutputStream(filePath);
                 ObjectMapper mapper = new ObjectMapper();
-                mapper.writerWithDefaultPrettyPrinter().writeValue(outputStream, sequence);
-                outputStream.close();
+                byte[] json = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(sequence);
+                RecordingFile recordingFile = RecordingIOService.getInstance().open(filePath,
+                    RecordingCategory.MBE_CALL_SEQUENCE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                recordingFile.write(json, 0, json.length);
+                recordingFile.close();
             }
             catch(IOException ioe)
             {
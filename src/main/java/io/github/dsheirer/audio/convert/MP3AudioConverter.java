@@ -56,9 +56,18 @@ public class MP3AudioConverter implements IAudioConverter
     @Override
     public byte[] convert(List<ReusableAudioPacket> audioPackets)
     {
-        mMP3Stream.reset();
+        return convert(AudioUtils.convertTo16BitSamples(audioPackets));
+    }
 
-        byte[] pcmBytes = AudioUtils.convertTo16BitSamples(audioPackets);
+    /**
+     * Converts PCM 8kHz 16-bit little endian audio to MP3 audio.
+     *
+     * @param pcmBytes to convert
+     * @return MP3 audio frame bytes, or an empty array if the PCM audio did not complete an MP3 frame
+     */
+    public byte[] convert(byte[] pcmBytes)
+    {
+        mMP3Stream.reset();
 
         int pcmBufferSize = Math.min(mMP3Buffer.length, pcmBytes.length);
 
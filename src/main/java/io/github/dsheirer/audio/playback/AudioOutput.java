@@ -27,7 +27,6 @@ import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
 import io.github.dsheirer.source.mixer.MixerChannel;
-import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,21 +40,27 @@ import javax.sound.sampled.LineListener;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
 import javax.sound.sampled.SourceDataLine;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.ArrayDeque;
+import java.util.Queue;
 
 public abstract class AudioOutput implements Listener<ReusableAudioPacket>, LineListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(AudioOutput.class);
 
-    private LinkedTransferQueue<ReusableAudioPacket> mBuffer = new LinkedTransferQueue<>();
+    //Ducked audio buffer capacity: 1 second of 8 kHz audio
+    private static final int DUCKED_BUFFER_SIZE = 8000;
+
+    private Queue<QueuedPacket> mBuffer = new ArrayDeque<>();
     private int mBufferStartThreshold;
-    private int mBufferStopThreshold;
+    private AudioPlaybackStatistics mStatistics;
+    private byte[] mPCM;
+    private int mPCMOffset;
+    private int mPCMLength;
+    private float[] mMixBuffer = new float[0];
+    private float[] mDuckedBuffer = new float[DUCKED_BUFFER_SIZE];
+    private int mDuckedReadPointer;
+    private int mDuckedCount;
+    private float mDuckedGain;
     private static IdentifierCollection EMPTY_IDENTIFIER_COLLECTION = new IdentifierCollection(0);
     static
     {
@@ -65,8 +70,6 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
     private Listener<IdentifierCollection> mIdentifierCollectionListener;
     private Broadcaster<AudioEvent> mAudioEventBroadcaster = new Broadcaster<>();
 
-    private ScheduledFuture<?> mProcessorTask;
-
     private SourceDataLine mOutput;
     private Mixer mMixer;
     private MixerChannel mMixerChannel;
@@ -84,20 +87,23 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
      * underlying sourcedataline specified by the mixer and mixer channel
      * arguments.
      *
-     * Maintains an internal non-blocking audio packet queue and processes this
-     * queue 25 times a second (every 40 ms).
+     * Maintains an internal audio packet queue that is processed by the audio playback manager's mixing thread
+     * via process(), using non-blocking writes into a pre-sized source data line buffer.
      *
      * @param mixer to obtain source data line
      * @param mixerChannel either mono or left/right stereo
      * @param audioFormat to use during playback
      * @param lineInfo to use when obtaining the source data line
      * @param requestedBufferSize of approximately 1 second of audio
+     * @param statistics to receive playback metrics
      */
     public AudioOutput(Mixer mixer, MixerChannel mixerChannel, AudioFormat audioFormat, Line.Info lineInfo,
-                       int requestedBufferSize)
+                       int requestedBufferSize, AudioPlaybackStatistics statistics)
     {
         mMixer = mixer;
         mMixerChannel = mixerChannel;
+        mStatistics = statistics;
+        mPCM = new byte[requestedBufferSize];
 
         try
         {
@@ -110,9 +116,6 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
                 //Start threshold: buffer is full with 10% or less of capacity remaining
                 mBufferStartThreshold = (int) (mOutput.getBufferSize() * 0.10);
 
-                //Stop threshold: buffer is empty with 90% or more capacity available
-                mBufferStopThreshold = (int) (mOutput.getBufferSize() * 0.90);
-
                 mOutput.addLineListener(this);
 
                 if(mOutput != null)
@@ -138,10 +141,6 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
                         mLog.warn("Couldn't obtain MUTE control for stereo line [" +
                             mixer.getMixerInfo().getName() + " | " + getChannelName() + "]");
                     }
-
-					/* Run the queue processor task every 40 milliseconds or 25 times a second */
-                    mProcessorTask = ThreadPool.SCHEDULED.scheduleAtFixedRate(new BufferProcessor(),
-                        0, 40, TimeUnit.MILLISECONDS);
                 }
 
                 mAudioStartEvent = new AudioEvent(AudioEvent.Type.AUDIO_STARTED,
@@ -168,14 +167,15 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
     {
         mCanProcessAudio = false;
 
-        if(mProcessorTask != null)
+        synchronized(mBuffer)
         {
-            mProcessorTask.cancel(true);
-        }
-
-        mProcessorTask = null;
+            for(QueuedPacket queuedPacket: mBuffer)
+            {
+                queuedPacket.getPacket().decrementUserCount();
+            }
 
-        mBuffer.clear();
+            mBuffer.clear();
+        }
 
         mAudioEventBroadcaster.dispose();
         mAudioEventBroadcaster = null;
@@ -192,10 +192,18 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
     }
 
     /**
-     * Converts the audio packet data into a byte buffer format appropriate for
-     * the underlying source data line.
+     * Number of PCM bytes produced for each audio sample
+     */
+    protected abstract int getBytesPerSample();
+
+    /**
+     * Converts the audio samples into the PCM format appropriate for the underlying source data line.
+     *
+     * @param samples to convert
+     * @param length number of samples to convert
+     * @param pcm array to receive the converted samples, sized for at least length * getBytesPerSample() bytes
      */
-    protected abstract ByteBuffer convert(ReusableAudioPacket packet);
+    protected abstract void convert(float[] samples, int length, byte[] pcm);
 
     /**
      * Audio output channel name
@@ -277,6 +285,17 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
 
     @Override
     public void receive(ReusableAudioPacket packet)
+    {
+        receive(packet, System.nanoTime());
+    }
+
+    /**
+     * Queues the audio packet for playback.
+     *
+     * @param packet to play
+     * @param receivedNanos timestamp when the packet was received by the playback manager, for latency metrics
+     */
+    public void receive(ReusableAudioPacket packet, long receivedNanos)
     {
         if(mCanProcessAudio)
         {
@@ -284,7 +303,10 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
             //get disconnected before it starts processing the audio stream
             updateTimestamp();
 
-            mBuffer.add(packet);
+            synchronized(mBuffer)
+            {
+                mBuffer.add(new QueuedPacket(packet, receivedNanos));
+            }
         }
         else
         {
@@ -292,110 +314,244 @@ public abstract class AudioOutput implements Listener<ReusableAudioPacket>, Line
         }
     }
 
-    public class BufferProcessor implements Runnable
+    /**
+     * Sets the gain applied to lower priority audio that is mixed beneath the connected channel's audio.
+     */
+    public void setDuckedGain(float gain)
     {
-        private AtomicBoolean mProcessing = new AtomicBoolean();
-        private List<ReusableAudioPacket> mAudioPackets = new ArrayList<ReusableAudioPacket>();
+        mDuckedGain = gain;
+    }
 
+    /**
+     * Mixes the audio from a lower priority channel beneath the audio of the channel connected to this output, using
+     * the ducked audio gain.  Ducked audio is only played while the connected channel is producing audio.
+     *
+     * @param packet from a lower priority channel.  The packet user count is decremented.
+     */
+    public void duck(ReusableAudioPacket packet)
+    {
+        if(mCanProcessAudio && mDuckedGain > 0.0f && packet.hasAudioSamples())
+        {
+            float[] samples = packet.getAudioSamples();
 
-        public BufferProcessor()
+            for(float sample: samples)
+            {
+                if(mDuckedCount < mDuckedBuffer.length)
+                {
+                    mDuckedBuffer[(mDuckedReadPointer + mDuckedCount) % mDuckedBuffer.length] = sample;
+                    mDuckedCount++;
+                }
+                else
+                {
+                    mStatistics.overrun();
+                    break;
+                }
+            }
+        }
+
+        packet.decrementUserCount();
+    }
+
+    /**
+     * Processes queued audio packets using non-blocking writes to the source data line.  Invoked by the playback
+     * manager's mixing thread.
+     */
+    public void process()
+    {
+        if(!mCanProcessAudio)
         {
+            return;
         }
 
-        @Override
-        public void run()
+        try
         {
-            try
+            while(true)
             {
-				/* The processing flag ensures that only one instance of the
-				 * processor can run at any given time */
-                if(mProcessing.compareAndSet(false, true))
+                if(mPCMOffset >= mPCMLength && !loadNextPacket())
                 {
-                    mBuffer.drainTo(mAudioPackets);
+                    break;
+                }
 
-                    for(ReusableAudioPacket packet : mAudioPackets)
-                    {
-                        if(packet.getType() == ReusableAudioPacket.Type.AUDIO)
-                        {
-                            broadcast(packet.getIdentifierCollection());
-
-                            ByteBuffer buffer = convert(packet);
-
-                            int wrote = 0;
-
-                            if(!mOutput.isRunning())
-                            {
-                                int toWrite = mOutput.available();
-
-                                if(toWrite > buffer.array().length)
-                                {
-                                    toWrite = buffer.array().length;
-                                }
-
-                                //Top off the buffer and check if we can start it
-                                wrote += mOutput.write(buffer.array(), 0, toWrite);
-
-                                checkStart();
-                            }
-
-                            if(mOutput.isRunning() && wrote < buffer.array().length)
-                            {
-                                //Blocking write
-                                wrote += mOutput.write(buffer.array(), wrote,
-                                    buffer.array().length - wrote);
-                            }
-
-                            updateTimestamp();
-                        }
-                        else
-                        {
-                            packet.decrementUserCount();
-                        }
-                    }
+                int available = mOutput.available();
 
-                    mAudioPackets.clear();
+                if(available <= 0)
+                {
+                    break;
+                }
+
+                //The line played out all buffered audio while we still have audio to deliver
+                if(mOutput.isRunning() && available >= mOutput.getBufferSize())
+                {
+                    mStatistics.underrun();
+                }
+
+                int toWrite = Math.min(available, mPCMLength - mPCMOffset);
 
-                    checkStop();
+                //Whole frames only
+                toWrite -= toWrite % mOutput.getFormat().getFrameSize();
 
-                    mProcessing.set(false);
+                if(toWrite <= 0)
+                {
+                    break;
                 }
+
+                mPCMOffset += mOutput.write(mPCM, mPCMOffset, toWrite);
+
+                checkStart();
+            }
+
+            checkStop();
+        }
+        catch(Exception e)
+        {
+            mLog.error("Error while processing audio buffers", e);
+        }
+    }
+
+    /**
+     * Loads the next queued audio packet into the PCM buffer, mixing any ducked audio beneath it.
+     *
+     * @return true if a packet was loaded
+     */
+    private boolean loadNextPacket()
+    {
+        while(true)
+        {
+            QueuedPacket queuedPacket;
+
+            synchronized(mBuffer)
+            {
+                queuedPacket = mBuffer.poll();
             }
-            catch(Exception e)
+
+            if(queuedPacket == null)
             {
-                mLog.error("Error while processing audio buffers", e);
+                return false;
             }
+
+            ReusableAudioPacket packet = queuedPacket.getPacket();
+
+            if(packet.getType() == ReusableAudioPacket.Type.AUDIO && packet.hasAudioSamples())
+            {
+                broadcast(packet.getIdentifierCollection());
+
+                float[] samples = packet.getAudioSamples();
+                int length = samples.length;
+
+                if(mMixBuffer.length < length)
+                {
+                    mMixBuffer = new float[length];
+                }
+
+                System.arraycopy(samples, 0, mMixBuffer, 0, length);
+                packet.decrementUserCount();
+
+                mixDucked(length);
+
+                int byteCount = length * getBytesPerSample();
+
+                if(mPCM.length < byteCount)
+                {
+                    mPCM = new byte[byteCount];
+                }
+
+                convert(mMixBuffer, length, mPCM);
+                mPCMOffset = 0;
+                mPCMLength = byteCount;
+                mStatistics.getMixingLatency().record(System.nanoTime() - queuedPacket.getReceivedNanos());
+                updateTimestamp();
+                return true;
+            }
+
+            packet.decrementUserCount();
         }
+    }
 
-        /**
-         * Starts audio playback once audio buffer is almost full and remaining
-         * capacity falls below the start threshold.
-         */
-        private void checkStart()
+    /**
+     * Mixes buffered ducked audio beneath the samples in the mix buffer.
+     */
+    private void mixDucked(int length)
+    {
+        if(mDuckedCount > 0)
         {
-            if(mCanProcessAudio &&
-                !mOutput.isRunning() &&
-                mOutput.available() <= mBufferStartThreshold)
+            float gain = mDuckedGain;
+            int count = Math.min(length, mDuckedCount);
+
+            for(int x = 0; x < count; x++)
             {
-                mOutput.start();
+                float mixed = mMixBuffer[x] + (mDuckedBuffer[mDuckedReadPointer] * gain);
+                mMixBuffer[x] = mixed > 1.0f ? 1.0f : (mixed < -1.0f ? -1.0f : mixed);
+                mDuckedReadPointer = (mDuckedReadPointer + 1) % mDuckedBuffer.length;
             }
+
+            mDuckedCount -= count;
         }
+    }
 
-        /**
-         * Stops audio playback and drains the audio buffer to empty when the
-         * audio buffer is mostly empty and the available buffer capacity
-         * exceeds the stop threshold
-         */
-        private void checkStop()
+    /**
+     * Starts audio playback once audio buffer is almost full and remaining
+     * capacity falls below the start threshold.
+     */
+    private void checkStart()
+    {
+        if(mCanProcessAudio &&
+            !mOutput.isRunning() &&
+            mOutput.available() <= mBufferStartThreshold)
         {
-            if(mCanProcessAudio && mOutput.isRunning() && mOutput.available() >= mBufferStopThreshold)
+            mOutput.start();
+        }
+    }
+
+    /**
+     * Stops audio playback once all queued audio has been delivered and the line has played out all buffered audio.
+     * Stopping only after the line is empty avoids a blocking drain on the mixing thread.
+     */
+    private void checkStop()
+    {
+        if(mCanProcessAudio && mOutput.isRunning() && mOutput.available() >= mOutput.getBufferSize() &&
+            mPCMOffset >= mPCMLength)
+        {
+            boolean empty;
+
+            synchronized(mBuffer)
+            {
+                empty = mBuffer.isEmpty();
+            }
+
+            if(empty)
             {
-                mOutput.drain();
                 mOutput.stop();
+                mDuckedCount = 0;
                 broadcast(EMPTY_IDENTIFIER_COLLECTION);
             }
         }
     }
 
+    /**
+     * Audio packet and the timestamp when it was received by the playback manager
+     */
+    private static class QueuedPacket
+    {
+        private ReusableAudioPacket mPacket;
+        private long mReceivedNanos;
+
+        public QueuedPacket(ReusableAudioPacket packet, long receivedNanos)
+        {
+            mPacket = packet;
+            mReceivedNanos = receivedNanos;
+        }
+
+        public ReusableAudioPacket getPacket()
+        {
+            return mPacket;
+        }
+
+        public long getReceivedNanos()
+        {
+            return mReceivedNanos;
+        }
+    }
+
     /**
      * Sets the mute state for this audio output channel
      */
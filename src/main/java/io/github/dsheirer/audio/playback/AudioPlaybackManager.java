@@ -22,6 +22,7 @@ package io.github.dsheirer.audio.playback;
 import io.github.dsheirer.audio.AudioEvent;
 import io.github.dsheirer.audio.AudioException;
 import io.github.dsheirer.audio.IAudioController;
+import io.github.dsheirer.controller.NamingThreadFactory;
 import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
@@ -29,7 +30,6 @@ import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
 import io.github.dsheirer.source.mixer.MixerChannel;
 import io.github.dsheirer.source.mixer.MixerChannelConfiguration;
 import io.github.dsheirer.source.mixer.MixerManager;
-import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,12 +39,25 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Audio playback manager.  Routes audio packets from decoding channels to the audio outputs for the current mixer
+ * channel configuration.
+ *
+ * Incoming audio packets are placed on a lock-free single-producer/single-consumer queue for each audio channel, so
+ * the producer is never blocked by playback.  A dedicated mixing thread services the channel queues in audio playback
+ * priority order (alias list audio playback priority), assigns channels to audio outputs, preempting lower priority
+ * channels when all outputs are in use, optionally mixes lower priority audio beneath the connected channel at a
+ * ducked gain, and writes audio to the pre-sized source data line buffers using non-blocking writes.
+ */
 public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAudioController
 {
     private static final Logger mLog = LoggerFactory.getLogger(AudioPlaybackManager.class);
@@ -53,6 +66,9 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
 
     public static final String AUDIO_CHANNELS_PROPERTY = "audio.manager.channels";
     public static final String AUDIO_MIXER_PROPERTY = "audio.manager.mixer";
+    //Gain percentage (0 - 100) for lower priority audio mixed beneath a higher priority channel.  Zero disables ducking
+    public static final String AUDIO_DUCKING_GAIN_PROPERTY = "audio.manager.ducking.gain";
+    private static final long MIXING_INTERVAL_NANOSECONDS = TimeUnit.MILLISECONDS.toNanos(10);
 
     public static final AudioEvent CONFIGURATION_CHANGE_STARTED =
         new AudioEvent(AudioEvent.Type.AUDIO_CONFIGURATION_CHANGE_STARTED, null);
@@ -60,7 +76,10 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
     public static final AudioEvent CONFIGURATION_CHANGE_COMPLETE =
         new AudioEvent(AudioEvent.Type.AUDIO_CONFIGURATION_CHANGE_COMPLETE, null);
 
-    private LinkedTransferQueue<ReusableAudioPacket> mAudioPacketQueue = new LinkedTransferQueue<>();
+    private Map<Integer,AudioChannelQueue> mChannelQueues = new ConcurrentHashMap<>();
+    private List<AudioChannelQueue> mPendingQueues = new ArrayList<>();
+    private AudioPlaybackStatistics mStatistics = new AudioPlaybackStatistics();
+    private float mDuckingGain;
     private Map<Integer,AudioOutputConnection> mChannelConnectionMap = new HashMap<>();
     private List<AudioOutputConnection> mAudioOutputConnections = new ArrayList<>();
     private AudioOutputConnection mLowestPriorityConnection;
@@ -70,7 +89,8 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
 
     private Broadcaster<AudioEvent> mControllerBroadcaster = new Broadcaster<>();
 
-    private ScheduledFuture<?> mProcessingTask;
+    private Thread mMixingThread;
+    private volatile boolean mMixing;
     private MixerManager mMixerManager;
     private MixerChannelConfiguration mMixerChannelConfiguration;
 
@@ -96,6 +116,9 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
 
         SystemProperties properties = SystemProperties.getInstance();
 
+        int duckingGain = properties.get(AUDIO_DUCKING_GAIN_PROPERTY, 0);
+        mDuckingGain = Math.max(0, Math.min(100, duckingGain)) / 100.0f;
+
         Mixer defaultMixer = AudioSystem.getMixer(null);
 
         String mixer = properties.get(AUDIO_MIXER_PROPERTY, defaultMixer.getMixerInfo().getName());
@@ -149,14 +172,14 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
 
     public void dispose()
     {
-        if(mProcessingTask != null)
+        stopMixing();
+
+        for(AudioChannelQueue queue: mChannelQueues.values())
         {
-            mProcessingTask.cancel(true);
+            queue.clear();
         }
 
-        mAudioPacketQueue.clear();
-
-        mProcessingTask = null;
+        logStatistics();
 
         mChannelConnectionMap.clear();
 
@@ -172,9 +195,102 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
      * Primary ingest point for audio produced by all decoding channels, for distribution to audio playback devices.
      */
     @Override
-    public synchronized void receive(ReusableAudioPacket packet)
+    public void receive(ReusableAudioPacket packet)
+    {
+        //Close the queue of a stopped channel so that the mixing thread can remove it once it is drained
+        if(packet.getType() == ReusableAudioPacket.Type.END && packet.isChannelStopped())
+        {
+            AudioChannelQueue queue = mChannelQueues.get(packet.getAudioChannelId());
+
+            if(queue != null)
+            {
+                queue.close();
+            }
+        }
+
+        /* Don't queue any packets marked as do not monitor */
+        if(packet.isDoNotMonitor() || packet.getType() != ReusableAudioPacket.Type.AUDIO)
+        {
+            packet.decrementUserCount();
+            return;
+        }
+
+        AudioChannelQueue queue = mChannelQueues.computeIfAbsent(packet.getAudioChannelId(),
+            audioChannelId -> new AudioChannelQueue());
+
+        //A restarted channel reopens its closed queue, or replaces it when the mixing thread has already removed it
+        while(!queue.open())
+        {
+            mChannelQueues.remove(packet.getAudioChannelId(), queue);
+            queue = mChannelQueues.computeIfAbsent(packet.getAudioChannelId(), audioChannelId -> new AudioChannelQueue());
+        }
+
+        if(queue.offer(packet, System.nanoTime()))
+        {
+            Thread mixingThread = mMixingThread;
+
+            if(mixingThread != null)
+            {
+                LockSupport.unpark(mixingThread);
+            }
+        }
+        else
+        {
+            mStatistics.overrun();
+            packet.decrementUserCount();
+        }
+    }
+
+    /**
+     * Audio playback metrics
+     */
+    public AudioPlaybackStatistics getStatistics()
+    {
+        return mStatistics;
+    }
+
+    /**
+     * Logs the audio playback metrics
+     */
+    public void logStatistics()
     {
-        mAudioPacketQueue.add(packet);
+        mLog.info(mStatistics.toString());
+    }
+
+    /**
+     * Starts the dedicated mixing thread
+     */
+    private void startMixing()
+    {
+        mMixing = true;
+        mMixingThread = new NamingThreadFactory("sdrtrunk audio mixer").newThread(new AudioMixer());
+        mMixingThread.setDaemon(true);
+        mMixingThread.setPriority(Thread.MAX_PRIORITY);
+        mMixingThread.start();
+    }
+
+    /**
+     * Stops the dedicated mixing thread and waits for it to terminate
+     */
+    private void stopMixing()
+    {
+        Thread mixingThread = mMixingThread;
+        mMixing = false;
+        mMixingThread = null;
+
+        if(mixingThread != null)
+        {
+            LockSupport.unpark(mixingThread);
+
+            try
+            {
+                mixingThread.join(1000);
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     /**
@@ -243,28 +359,25 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
         {
             mControllerBroadcaster.broadcast(CONFIGURATION_CHANGE_STARTED);
 
-            if(mProcessingTask != null)
-            {
-                mProcessingTask.cancel(true);
-            }
+            stopMixing();
 
             disposeCurrentConfiguration();
 
             switch(entry.getMixerChannel())
             {
                 case MONO:
-                    AudioOutput mono = new MonoAudioOutput(entry.getMixer());
+                    AudioOutput mono = new MonoAudioOutput(entry.getMixer(), mStatistics);
                     mAudioOutputConnections.add(new AudioOutputConnection(mono));
                     mAvailableConnectionCount++;
                     mAudioOutputMap.put(mono.getChannelName(), mono);
                     break;
                 case STEREO:
-                    AudioOutput left = new StereoAudioOutput(entry.getMixer(), MixerChannel.LEFT);
+                    AudioOutput left = new StereoAudioOutput(entry.getMixer(), MixerChannel.LEFT, mStatistics);
                     mAudioOutputConnections.add(new AudioOutputConnection(left));
                     mAvailableConnectionCount++;
                     mAudioOutputMap.put(left.getChannelName(), left);
 
-                    AudioOutput right = new StereoAudioOutput(entry.getMixer(), MixerChannel.RIGHT);
+                    AudioOutput right = new StereoAudioOutput(entry.getMixer(), MixerChannel.RIGHT, mStatistics);
                     mAudioOutputConnections.add(new AudioOutputConnection(right));
                     mAvailableConnectionCount++;
                     mAudioOutputMap.put(right.getChannelName(), right);
@@ -274,8 +387,12 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
                         + "configuration: " + entry.getMixerChannel());
             }
 
-            mProcessingTask = ThreadPool.SCHEDULED.scheduleAtFixedRate(new AudioPacketProcessor(),
-                0, 15, TimeUnit.MILLISECONDS);
+            for(AudioOutputConnection connection: mAudioOutputConnections)
+            {
+                connection.setDuckedGain(mDuckingGain);
+            }
+
+            startMixing();
 
             mControllerBroadcaster.broadcast(CONFIGURATION_CHANGE_COMPLETE);
 
@@ -410,56 +527,230 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
         return null;
     }
 
-    public class AudioPacketProcessor implements Runnable
+    /**
+     * Mixing thread.  Routes queued audio packets to the audio outputs in audio playback priority order and writes
+     * audio to each audio output.
+     */
+    public class AudioMixer implements Runnable
     {
-        private List<ReusableAudioPacket> mPackets = new ArrayList<>();
-
         @Override
         public void run()
         {
-            try
+            while(mMixing)
             {
-                disconnectInactiveChannelAssignments();
-
-                if(mAudioPacketQueue != null)
+                try
                 {
-                    mAudioPacketQueue.drainTo(mPackets);
+                    disconnectInactiveChannelAssignments();
+                    routePackets();
 
-                    for(ReusableAudioPacket packet : mPackets)
+                    for(AudioOutputConnection connection: mAudioOutputConnections)
                     {
-                        /* Don't process any packet's marked as do not monitor */
-                        if(!packet.isDoNotMonitor() && packet.getType() == ReusableAudioPacket.Type.AUDIO)
-                        {
-                            AudioOutputConnection connection = getConnection(packet);
-
-                            if(connection != null)
-                            {
-                                connection.receive(packet);
-                            }
-                            else
-                            {
-                                packet.decrementUserCount();
-                            }
-                        }
-                        else
-                        {
-                            packet.decrementUserCount();
-                        }
+                        connection.process();
                     }
+                }
+                catch(Exception e)
+                {
+                    mLog.error("Encountered error while processing audio packets", e);
+                }
+
+                LockSupport.parkNanos(MIXING_INTERVAL_NANOSECONDS);
+            }
+        }
+
+        /**
+         * Routes queued packets from each audio channel queue, servicing the highest priority channels first so that
+         * they have first access to available audio outputs.
+         */
+        private void routePackets()
+        {
+            Iterator<Map.Entry<Integer,AudioChannelQueue>> it = mChannelQueues.entrySet().iterator();
 
-                    mPackets.clear();
+            while(it.hasNext())
+            {
+                AudioChannelQueue queue = it.next().getValue();
+
+                if(!queue.isEmpty())
+                {
+                    mPendingQueues.add(queue);
                 }
+                else if(queue.retire())
+                {
+                    //The channel stopped and its queue is drained
+                    it.remove();
+                }
+            }
+
+            if(mPendingQueues.isEmpty())
+            {
+                return;
             }
-            catch(Exception e)
+
+            //Lower monitoring priority values indicate higher priority
+            mPendingQueues.sort(Comparator.comparingInt(AudioChannelQueue::getPriority));
+
+            for(AudioChannelQueue queue: mPendingQueues)
             {
-                mLog.error("Encountered error while processing audio packets", e);
+                ReusableAudioPacket packet = queue.peek();
 
-                while(mPackets.size() > 0)
+                while(packet != null)
                 {
-                    ReusableAudioPacket audioPacket = mPackets.remove(0);
-                    audioPacket.decrementUserCount();
+                    long receivedNanos = queue.peekReceivedNanos();
+                    queue.advance();
+
+                    AudioOutputConnection connection = getConnection(packet);
+
+                    if(connection != null)
+                    {
+                        connection.receive(packet, receivedNanos);
+                    }
+                    else if(mDuckingGain > 0.0f && mLowestPriorityConnection != null)
+                    {
+                        mLowestPriorityConnection.duck(packet);
+                    }
+                    else
+                    {
+                        packet.decrementUserCount();
+                    }
+
+                    packet = queue.peek();
                 }
             }
+
+            mPendingQueues.clear();
+        }
+    }
+
+    /**
+     * Lock-free single-producer/single-consumer audio packet queue for an audio channel.  The producer is the thread
+     * that delivers audio packets to the playback manager and the consumer is the mixing thread.
+     *
+     * The producer closes the queue when the channel stops and the consumer retires a closed queue once it is
+     * drained.  A retired queue can't be reopened, so a restarted channel replaces it with a new queue.
+     */
+    private static class AudioChannelQueue
+    {
+        private static final int CAPACITY = 64;
+        private static final int MASK = CAPACITY - 1;
+        private static final int OPEN = 0;
+        private static final int CLOSED = 1;
+        private static final int RETIRED = 2;
+
+        private final AtomicInteger mState = new AtomicInteger(OPEN);
+
+        private final ReusableAudioPacket[] mPackets = new ReusableAudioPacket[CAPACITY];
+        private final long[] mReceivedNanos = new long[CAPACITY];
+        private final AtomicLong mHead = new AtomicLong();
+        private final AtomicLong mTail = new AtomicLong();
+
+        /**
+         * Producer: adds the packet to the queue
+         * @return false if the queue is full
+         */
+        public boolean offer(ReusableAudioPacket packet, long receivedNanos)
+        {
+            long tail = mTail.get();
+
+            if(tail - mHead.get() >= CAPACITY)
+            {
+                return false;
+            }
+
+            int index = (int)(tail & MASK);
+            mPackets[index] = packet;
+            mReceivedNanos[index] = receivedNanos;
+
+            //Ordered store publishes the packet to the consumer
+            mTail.lazySet(tail + 1);
+            return true;
+        }
+
+        /**
+         * Consumer: packet at the head of the queue, or null if the queue is empty
+         */
+        public ReusableAudioPacket peek()
+        {
+            long head = mHead.get();
+
+            if(head == mTail.get())
+            {
+                return null;
+            }
+
+            return mPackets[(int)(head & MASK)];
+        }
+
+        /**
+         * Consumer: received timestamp for the packet at the head of the queue
+         */
+        public long peekReceivedNanos()
+        {
+            return mReceivedNanos[(int)(mHead.get() & MASK)];
+        }
+
+        /**
+         * Consumer: removes the packet at the head of the queue
+         */
+        public void advance()
+        {
+            long head = mHead.get();
+            mPackets[(int)(head & MASK)] = null;
+            mHead.lazySet(head + 1);
+        }
+
+        /**
+         * Consumer: monitoring priority of the packet at the head of the queue
+         */
+        public int getPriority()
+        {
+            ReusableAudioPacket packet = peek();
+            return packet != null ? packet.getMonitoringPriority() : Integer.MAX_VALUE;
+        }
+
+        public boolean isEmpty()
+        {
+            return mHead.get() == mTail.get();
+        }
+
+        /**
+         * Producer: ensures the queue is open before offering packets
+         * @return false if the queue was retired and can no longer be used
+         */
+        public boolean open()
+        {
+            return mState.compareAndSet(CLOSED, OPEN) || mState.get() == OPEN;
+        }
+
+        /**
+         * Producer: closes the queue after the last packet from a stopped channel
+         */
+        public void close()
+        {
+            mState.compareAndSet(OPEN, CLOSED);
+        }
+
+        /**
+         * Consumer: retires the queue when it is closed and drained.  The closed state is read before the queue is
+         * checked so that every packet offered before the queue was closed is visible.
+         * @return true if the queue was retired and should be removed
+         */
+        public boolean retire()
+        {
+            return mState.get() == CLOSED && isEmpty() && mState.compareAndSet(CLOSED, RETIRED);
+        }
+
+        /**
+         * Consumer: releases all queued packets
+         */
+        public void clear()
+        {
+            ReusableAudioPacket packet = peek();
+
+            while(packet != null)
+            {
+                advance();
+                packet.decrementUserCount();
+                packet = peek();
+            }
         }
     }
 
@@ -481,7 +772,7 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
             mAudioOutput = audioOutput;
         }
 
-        public void receive(ReusableAudioPacket packet)
+        public void receive(ReusableAudioPacket packet, long receivedNanos)
         {
             if(packet.hasIdentifierCollection() && packet.getAudioChannelId() == mAudioChannelId)
             {
@@ -495,7 +786,11 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
 
                 if(mAudioOutput != null)
                 {
-                    mAudioOutput.receive(packet);
+                    mAudioOutput.receive(packet, receivedNanos);
+                }
+                else
+                {
+                    packet.decrementUserCount();
                 }
             }
             else
@@ -509,6 +804,45 @@ public class AudioPlaybackManager implements Listener<ReusableAudioPacket>, IAud
                 {
                     mLog.error("Received audio packet with no metadata - cannot route audio packet");
                 }
+
+                packet.decrementUserCount();
+            }
+        }
+
+        /**
+         * Mixes the lower priority audio packet beneath this connection's audio
+         */
+        public void duck(ReusableAudioPacket packet)
+        {
+            if(mAudioOutput != null)
+            {
+                mAudioOutput.duck(packet);
+            }
+            else
+            {
+                packet.decrementUserCount();
+            }
+        }
+
+        /**
+         * Sets the gain for ducked audio mixed beneath this connection's audio
+         */
+        public void setDuckedGain(float gain)
+        {
+            if(mAudioOutput != null)
+            {
+                mAudioOutput.setDuckedGain(gain);
+            }
+        }
+
+        /**
+         * Writes queued audio to the audio output
+         */
+        public void process()
+        {
+            if(mAudioOutput != null)
+            {
+                mAudioOutput.process();
             }
         }
 
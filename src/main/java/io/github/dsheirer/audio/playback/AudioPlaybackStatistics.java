@@ -0,0 +1,76 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.audio.playback;
+
+import io.github.dsheirer.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Audio playback metrics shared by the audio playback manager and its audio outputs.
+ *
+ * - Underruns: an audio output line played out all of its buffered audio while audio was still being delivered
+ * - Overruns: audio was discarded because a channel queue or ducked audio buffer was full
+ * - Mixing latency: time from when the playback manager receives an audio packet until the packet's audio is
+ *   written to an audio output line
+ */
+public class AudioPlaybackStatistics
+{
+    private final AtomicLong mUnderruns = new AtomicLong();
+    private final AtomicLong mOverruns = new AtomicLong();
+    private final LatencyHistogram mMixingLatency = new LatencyHistogram();
+
+    public void underrun()
+    {
+        mUnderruns.incrementAndGet();
+    }
+
+    public void overrun()
+    {
+        mOverruns.incrementAndGet();
+    }
+
+    public long getUnderrunCount()
+    {
+        return mUnderruns.get();
+    }
+
+    public long getOverrunCount()
+    {
+        return mOverruns.get();
+    }
+
+    /**
+     * Mixing latency histogram
+     */
+    public LatencyHistogram getMixingLatency()
+    {
+        return mMixingLatency;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Audio Playback - underruns [" + getUnderrunCount() + "] overruns [" + getOverrunCount() +
+            "] mixing latency " + mMixingLatency;
+    }
+}
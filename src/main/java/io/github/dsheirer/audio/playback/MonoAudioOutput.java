@@ -23,9 +23,6 @@ import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
 import io.github.dsheirer.source.mixer.MixerChannel;
 
 import javax.sound.sampled.Mixer;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.ShortBuffer;
 
 /**
  * Mono Audio output implementation
@@ -34,36 +31,31 @@ public class MonoAudioOutput extends AudioOutput
 {
     private final static int BUFFER_SIZE = 8000;
 
-    public MonoAudioOutput(Mixer mixer)
+    public MonoAudioOutput(Mixer mixer, AudioPlaybackStatistics statistics)
     {
         super(mixer, MixerChannel.MONO, AudioFormats.PCM_SIGNED_8KHZ_16BITS_MONO,
-            AudioFormats.MONO_SOURCE_DATALINE_INFO, BUFFER_SIZE);
+            AudioFormats.MONO_SOURCE_DATALINE_INFO, BUFFER_SIZE, statistics);
+    }
+
+    @Override
+    protected int getBytesPerSample()
+    {
+        return 2;
     }
 
     /**
-     * Converts the audio packet data into mono audio frames.
+     * Converts the audio samples into little-endian 16-bit mono audio frames.
      */
-    protected ByteBuffer convert(ReusableAudioPacket packet)
+    @Override
+    protected void convert(float[] samples, int length, byte[] pcm)
     {
-        ByteBuffer buffer = null;
+        int pointer = 0;
 
-        if(packet.hasAudioSamples())
+        for(int x = 0; x < length; x++)
         {
-            float[] samples = packet.getAudioSamples();
-
-			/* Little-endian byte buffer */
-            buffer = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
-
-            ShortBuffer shortBuffer = buffer.asShortBuffer();
-
-            for(float sample : samples)
-            {
-                shortBuffer.put((short) (sample * Short.MAX_VALUE));
-            }
+            short sample = (short)(samples[x] * Short.MAX_VALUE);
+            pcm[pointer++] = (byte)sample;
+            pcm[pointer++] = (byte)(sample >> 8);
         }
-
-        packet.decrementUserCount();
-
-        return buffer;
     }
 }
@@ -23,9 +23,6 @@ import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
 import io.github.dsheirer.source.mixer.MixerChannel;
 
 import javax.sound.sampled.Mixer;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.ShortBuffer;
 
 /**
  * Stereo audio output implementation.
@@ -34,50 +31,37 @@ public class StereoAudioOutput extends AudioOutput
 {
     private final static int BUFFER_SIZE = 16000;
 
-    public StereoAudioOutput(Mixer mixer, MixerChannel channel)
+    public StereoAudioOutput(Mixer mixer, MixerChannel channel, AudioPlaybackStatistics statistics)
     {
         super(mixer, channel, AudioFormats.PCM_SIGNED_8KHZ_16BITS_STEREO, AudioFormats.STEREO_SOURCE_DATALINE_INFO,
-            BUFFER_SIZE);
+            BUFFER_SIZE, statistics);
+    }
+
+    @Override
+    protected int getBytesPerSample()
+    {
+        return 4;
     }
 
     /**
-     * Converts the audio packet data into stereo audio frames with the mixer
-     * channel containing the audio and the other channel containing zero
-     * valued (silent) samples.
+     * Converts the audio samples into little-endian 16-bit stereo audio frames with the mixer channel containing the
+     * audio and the other channel containing zero valued (silent) samples.
      */
-    protected ByteBuffer convert(ReusableAudioPacket packet)
+    @Override
+    protected void convert(float[] samples, int length, byte[] pcm)
     {
-        ByteBuffer buffer = null;
+        //Byte offset of the audio sample within each 4-byte stereo frame
+        int offset = getMixerChannel() == MixerChannel.LEFT ? 0 : 2;
+        int silent = offset == 0 ? 2 : 0;
 
-        if(packet.hasAudioSamples())
+        for(int x = 0; x < length; x++)
         {
-            float[] samples = packet.getAudioSamples();
-
-			/* Little-endian byte buffer */
-            buffer = ByteBuffer.allocate(samples.length * 4).order(ByteOrder.LITTLE_ENDIAN);
-
-            ShortBuffer shortBuffer = buffer.asShortBuffer();
-
-            if(getMixerChannel() == MixerChannel.LEFT)
-            {
-                for(float sample : samples)
-                {
-                    shortBuffer.put((short) (sample * Short.MAX_VALUE));
-                    shortBuffer.put((short) 0);
-                }
-            }
-            else
-            {
-                for(float sample : samples)
-                {
-                    shortBuffer.put((short) 0);
-                    shortBuffer.put((short) (sample * Short.MAX_VALUE));
-                }
-            }
+            short sample = (short)(samples[x] * Short.MAX_VALUE);
+            int frame = x * 4;
+            pcm[frame + offset] = (byte)sample;
+            pcm[frame + offset + 1] = (byte)(sample >> 8);
+            pcm[frame + silent] = 0;
+            pcm[frame + silent + 1] = 0;
         }
-
-        packet.decrementUserCount();
-
-        return buffer;
     }
 }
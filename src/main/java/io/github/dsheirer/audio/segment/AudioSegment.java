@@ -0,0 +1,403 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.audio.segment;
+
+import io.github.dsheirer.alias.id.broadcast.BroadcastChannel;
+import io.github.dsheirer.audio.convert.MP3AudioConverter;
+import io.github.dsheirer.identifier.IdentifierCollection;
+import io.github.dsheirer.record.mp3.MP3Recorder;
+import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Audio for a single call on an audio channel.  Call audio is converted to 16-bit PCM once and stored in a shared
+ * stream and each additional audio format is encoded at most once, on demand, when the first reader for that format
+ * is opened.  Recorders and streamers consume the call audio through readers instead of processing the audio packets.
+ */
+public class AudioSegment
+{
+    private static final int PCM_BYTES_PER_SAMPLE = 2;
+
+    private int mAudioChannelId;
+    private long mSegmentId;
+    private long mStartTimestamp;
+    private long mLastUpdateTimestamp;
+    private IdentifierCollection mIdentifierCollection;
+    private boolean mRecordable;
+    private List<BroadcastChannel> mBroadcastChannels = new ArrayList<>();
+    private AudioSegmentStream mPCMStream = new AudioSegmentStream(SegmentFormat.PCM);
+    private Map<SegmentFormat,AudioSegmentStream> mEncodedStreams = new EnumMap<>(SegmentFormat.class);
+    private Map<SegmentFormat,MP3AudioConverter> mEncoders = new EnumMap<>(SegmentFormat.class);
+    private byte[] mPCMScratch = new byte[0];
+    private boolean mComplete;
+
+    private long mSampleCount;
+    private long mPacketCount;
+    private long mPCMConversionCount;
+    private long mBytesCopied;
+    private Map<SegmentFormat,Long> mEncodeCounts = new EnumMap<>(SegmentFormat.class);
+    private int mReaderCount;
+
+    /**
+     * Constructs an instance
+     *
+     * @param audioChannelId of the channel producing the call audio
+     * @param segmentId unique sequence number for the segment
+     * @param timestamp for the start of the segment
+     */
+    public AudioSegment(int audioChannelId, long segmentId, long timestamp)
+    {
+        mAudioChannelId = audioChannelId;
+        mSegmentId = segmentId;
+        mStartTimestamp = timestamp;
+        mLastUpdateTimestamp = timestamp;
+    }
+
+    /**
+     * Audio channel identifier for the channel producing the call audio
+     */
+    public int getAudioChannelId()
+    {
+        return mAudioChannelId;
+    }
+
+    /**
+     * Unique sequence number for this segment
+     */
+    public long getSegmentId()
+    {
+        return mSegmentId;
+    }
+
+    /**
+     * Timestamp for the start of the call
+     */
+    public long getStartTimestamp()
+    {
+        return mStartTimestamp;
+    }
+
+    /**
+     * Timestamp of the most recent audio packet
+     */
+    public synchronized long getLastUpdateTimestamp()
+    {
+        return mLastUpdateTimestamp;
+    }
+
+    /**
+     * Most recent identifier collection for the call, or null
+     */
+    public synchronized IdentifierCollection getIdentifierCollection()
+    {
+        return mIdentifierCollection;
+    }
+
+    /**
+     * Indicates if any of the audio packets for the call were flagged as recordable
+     */
+    public synchronized boolean isRecordable()
+    {
+        return mRecordable;
+    }
+
+    /**
+     * Broadcast channels designated for the call audio
+     */
+    public synchronized List<BroadcastChannel> getBroadcastChannels()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(mBroadcastChannels));
+    }
+
+    /**
+     * Indicates if the call audio is designated for one or more broadcast channels
+     */
+    public synchronized boolean isStreamable()
+    {
+        return !mBroadcastChannels.isEmpty();
+    }
+
+    /**
+     * Number of PCM audio samples in the segment
+     */
+    public synchronized long getSampleCount()
+    {
+        return mSampleCount;
+    }
+
+    /**
+     * Indicates if the call is complete and no further audio will be added to the segment
+     */
+    public synchronized boolean isComplete()
+    {
+        return mComplete;
+    }
+
+    /**
+     * Opens a reader for the call audio in the requested format.  The reader starts at the current end of the audio
+     * and must be closed by the consumer once it is no longer needed.
+     *
+     * @param format of audio
+     * @return reader
+     */
+    public synchronized AudioSegmentStream.Reader openReader(SegmentFormat format)
+    {
+        mReaderCount++;
+
+        if(format == SegmentFormat.PCM)
+        {
+            return mPCMStream.openReader();
+        }
+
+        AudioSegmentStream stream = mEncodedStreams.get(format);
+
+        if(stream == null)
+        {
+            stream = new AudioSegmentStream(format);
+            mEncodedStreams.put(format, stream);
+            mEncoders.put(format, createEncoder(format));
+
+            if(mComplete)
+            {
+                stream.close();
+            }
+        }
+
+        return stream.openReader();
+    }
+
+    /**
+     * Creates an encoder for the format
+     */
+    private static MP3AudioConverter createEncoder(SegmentFormat format)
+    {
+        switch(format)
+        {
+            case MP3:
+                return new MP3AudioConverter(MP3Recorder.MP3_BIT_RATE, MP3Recorder.CONSTANT_BIT_RATE);
+            default:
+                throw new IllegalArgumentException("Unsupported audio segment encoding format [" + format + "]");
+        }
+    }
+
+    /**
+     * Adds the audio and metadata from the audio packet to this segment.  The audio samples are converted to 16-bit
+     * PCM once and then encoded once for each of the encoded formats that have been requested.  The caller retains
+     * ownership of the audio packet.
+     *
+     * @param audioPacket to add
+     */
+    public synchronized void process(ReusableAudioPacket audioPacket)
+    {
+        if(mComplete)
+        {
+            return;
+        }
+
+        mPacketCount++;
+        updateMetadata(audioPacket);
+
+        if(audioPacket.getType() != ReusableAudioPacket.Type.AUDIO || !audioPacket.hasAudioSamples())
+        {
+            return;
+        }
+
+        appendAudio(audioPacket.getAudioSamples());
+    }
+
+    /**
+     * Updates the segment's identifiers, recordable flag and broadcast channels from the audio packet.
+     */
+    synchronized void updateMetadata(ReusableAudioPacket audioPacket)
+    {
+        mLastUpdateTimestamp = System.currentTimeMillis();
+
+        if(audioPacket.hasIdentifierCollection())
+        {
+            mIdentifierCollection = audioPacket.getIdentifierCollection();
+        }
+
+        mRecordable |= audioPacket.isRecordable();
+
+        for(BroadcastChannel broadcastChannel : audioPacket.getBroadcastChannels())
+        {
+            if(!mBroadcastChannels.contains(broadcastChannel))
+            {
+                mBroadcastChannels.add(broadcastChannel);
+            }
+        }
+
+    }
+
+    /**
+     * Converts the audio samples to 16-bit PCM, appends them to the PCM stream and encodes them for each of the
+     * requested encoded formats.
+     */
+    private void appendAudio(float[] samples)
+    {
+        int length = samples.length * PCM_BYTES_PER_SAMPLE;
+
+        if(mPCMScratch.length != length)
+        {
+            mPCMScratch = new byte[length];
+        }
+
+        int offset = 0;
+
+        for(float sample : samples)
+        {
+            int value = (int)(sample * Short.MAX_VALUE);
+
+            if(value > Short.MAX_VALUE)
+            {
+                value = Short.MAX_VALUE;
+            }
+            else if(value < Short.MIN_VALUE)
+            {
+                value = Short.MIN_VALUE;
+            }
+
+            mPCMScratch[offset++] = (byte)value;
+            mPCMScratch[offset++] = (byte)(value >> 8);
+        }
+
+        mPCMConversionCount++;
+        mSampleCount += samples.length;
+        mPCMStream.append(mPCMScratch, 0, length);
+        mBytesCopied += length;
+
+        for(Map.Entry<SegmentFormat,AudioSegmentStream> entry : mEncodedStreams.entrySet())
+        {
+            byte[] encoded = mEncoders.get(entry.getKey()).convert(mPCMScratch);
+            mEncodeCounts.merge(entry.getKey(), 1l, Long::sum);
+
+            if(encoded.length > 0)
+            {
+                entry.getValue().append(encoded, 0, encoded.length);
+                mBytesCopied += encoded.length;
+            }
+        }
+    }
+
+    /**
+     * Flags the call as complete, flushes any partial encoded audio frames and closes the audio streams.  Open
+     * readers can continue to read any remaining audio.
+     */
+    public synchronized void complete()
+    {
+        if(!mComplete)
+        {
+            mComplete = true;
+
+            for(Map.Entry<SegmentFormat,AudioSegmentStream> entry : mEncodedStreams.entrySet())
+            {
+                byte[] flushed = mEncoders.get(entry.getKey()).flush();
+
+                if(flushed != null && flushed.length > 0)
+                {
+                    entry.getValue().append(flushed, 0, flushed.length);
+                    mBytesCopied += flushed.length;
+                }
+
+                entry.getValue().close();
+            }
+
+            mEncoders.clear();
+            mPCMStream.close();
+        }
+    }
+
+    /**
+     * Number of audio packets processed for the call
+     */
+    public synchronized long getPacketCount()
+    {
+        return mPacketCount;
+    }
+
+    /**
+     * Number of float to PCM conversions performed for the call.  Each audio packet is converted once, regardless
+     * of the number of consumers.
+     */
+    public synchronized long getPCMConversionCount()
+    {
+        return mPCMConversionCount;
+    }
+
+    /**
+     * Number of bytes copied into the segment's audio streams
+     */
+    public synchronized long getBytesCopied()
+    {
+        return mBytesCopied;
+    }
+
+    /**
+     * Number of encoder invocations for the format
+     */
+    public synchronized long getEncodeCount(SegmentFormat format)
+    {
+        return mEncodeCounts.getOrDefault(format, 0l);
+    }
+
+    /**
+     * Total encoder invocations across all encoded formats
+     */
+    public synchronized long getEncodeCount()
+    {
+        long count = 0;
+
+        for(Long formatCount : mEncodeCounts.values())
+        {
+            count += formatCount;
+        }
+
+        return count;
+    }
+
+    /**
+     * Number of readers that were opened on this segment
+     */
+    public synchronized int getReaderCount()
+    {
+        return mReaderCount;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Audio Segment [").append(mSegmentId).append("] Channel [").append(mAudioChannelId).append("]");
+        sb.append(" Duration [").append(mSampleCount / 8).append(" ms]");
+        sb.append(" Packets [").append(mPacketCount).append("]");
+        sb.append(" PCM Conversions [").append(mPCMConversionCount).append("]");
+        sb.append(" Encodes ").append(mEncodeCounts);
+        sb.append(" Bytes Copied [").append(mBytesCopied).append("]");
+        sb.append(" Readers [").append(mReaderCount).append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.audio.segment;
+
+import io.github.dsheirer.sample.IOverflowListener;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.buffer.OverflowableReusableBufferTransferQueue;
+import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
+import io.github.dsheirer.util.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assembles the audio packets produced by the decoding channels into per-call audio segments and distributes the
+ * segments to registered listeners (recorders and streamers).  Each call's audio is converted to PCM once and each
+ * encoded format is produced at most once per call, regardless of the number of consumers.
+ *
+ * Audio packets for calls that are neither recordable nor streamable are discarded without conversion.  A segment
+ * is completed when the channel sends an end-call audio packet or when no audio has been received for the idle
+ * threshold period.
+ */
+public class AudioSegmentManager implements Listener<ReusableAudioPacket>
+{
+    private static final Logger mLog = LoggerFactory.getLogger(AudioSegmentManager.class);
+
+    public static final long IDLE_SEGMENT_COMPLETION_THRESHOLD = 6000; //6 seconds
+
+    private OverflowableReusableBufferTransferQueue<ReusableAudioPacket> mAudioPacketQueue =
+        new OverflowableReusableBufferTransferQueue<>(1000, 100);
+    private List<ReusableAudioPacket> mAudioPackets = new ArrayList<>();
+    private Map<Integer,AudioSegment> mSegments = new HashMap<>();
+    private Set<AudioSegment> mUpdatedSegments = new LinkedHashSet<>();
+    private List<IAudioSegmentListener> mListeners = new CopyOnWriteArrayList<>();
+    private ScheduledFuture<?> mProcessorFuture;
+    private long mNextSegmentId = 1;
+
+    private AtomicLong mSegmentCount = new AtomicLong();
+    private AtomicLong mPacketCount = new AtomicLong();
+    private AtomicLong mPCMConversionCount = new AtomicLong();
+    private AtomicLong mEncodeCount = new AtomicLong();
+    private AtomicLong mBytesCopied = new AtomicLong();
+    private AtomicLong mReaderCount = new AtomicLong();
+
+    /**
+     * Constructs an instance and starts the segment processor.
+     */
+    public AudioSegmentManager()
+    {
+        mAudioPacketQueue.setOverflowListener(new IOverflowListener()
+        {
+            @Override
+            public void sourceOverflow(boolean overflow)
+            {
+                if(overflow)
+                {
+                    mLog.warn("overflow - audio packets will be dropped until audio segment processing catches up");
+                }
+                else
+                {
+                    mLog.info("audio segment packet processing has returned to normal");
+                }
+            }
+        });
+
+        mProcessorFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(new SegmentProcessor(), 0,
+            100, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers the listener to receive audio segment events
+     */
+    public void addListener(IAudioSegmentListener listener)
+    {
+        mListeners.add(listener);
+    }
+
+    /**
+     * Removes the listener from receiving audio segment events
+     */
+    public void removeListener(IAudioSegmentListener listener)
+    {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Stops the segment processor and completes any active segments
+     */
+    public void dispose()
+    {
+        if(mProcessorFuture != null)
+        {
+            mProcessorFuture.cancel(false);
+            mProcessorFuture = null;
+        }
+
+        synchronized(mSegments)
+        {
+            processPackets();
+
+            for(AudioSegment segment : new ArrayList<>(mSegments.values()))
+            {
+                completeSegment(segment);
+            }
+
+            mSegments.clear();
+        }
+
+        mAudioPacketQueue.clear();
+    }
+
+    /**
+     * Primary ingest point for audio packets from all decoding channels
+     *
+     * @param audioPacket to process
+     */
+    @Override
+    public void receive(ReusableAudioPacket audioPacket)
+    {
+        if(audioPacket.isRecordable() || audioPacket.isStreamable() ||
+           audioPacket.getType() == ReusableAudioPacket.Type.END)
+        {
+            mAudioPacketQueue.offer(audioPacket);
+        }
+        else
+        {
+            audioPacket.decrementUserCount();
+        }
+    }
+
+    /**
+     * Processes queued audio packets into segments and notifies listeners once per updated segment
+     */
+    private void processPackets()
+    {
+        mAudioPacketQueue.drainTo(mAudioPackets, 50);
+
+        while(!mAudioPackets.isEmpty())
+        {
+            for(ReusableAudioPacket audioPacket : mAudioPackets)
+            {
+                try
+                {
+                    process(audioPacket);
+                }
+                finally
+                {
+                    audioPacket.decrementUserCount();
+                }
+            }
+
+            mAudioPackets.clear();
+            mAudioPacketQueue.drainTo(mAudioPackets, 50);
+        }
+
+        for(AudioSegment segment : mUpdatedSegments)
+        {
+            for(IAudioSegmentListener listener : mListeners)
+            {
+                listener.segmentUpdated(segment);
+            }
+        }
+
+        mUpdatedSegments.clear();
+    }
+
+    /**
+     * Adds the audio packet to the segment for the packet's audio channel, creating or completing the segment as
+     * indicated by the packet type.
+     */
+    private void process(ReusableAudioPacket audioPacket)
+    {
+        int audioChannelId = audioPacket.getAudioChannelId();
+        AudioSegment segment = mSegments.get(audioChannelId);
+
+        if(audioPacket.getType() == ReusableAudioPacket.Type.END)
+        {
+            if(segment != null)
+            {
+                segment.process(audioPacket);
+                mSegments.remove(audioChannelId);
+                completeSegment(segment);
+            }
+
+            return;
+        }
+
+        if(audioPacket.getType() != ReusableAudioPacket.Type.AUDIO)
+        {
+            return;
+        }
+
+        if(segment == null)
+        {
+            segment = new AudioSegment(audioChannelId, mNextSegmentId++, System.currentTimeMillis());
+            segment.updateMetadata(audioPacket);
+            mSegments.put(audioChannelId, segment);
+            mSegmentCount.incrementAndGet();
+
+            //Notify before adding audio so that readers opened by listeners receive all of the call audio
+            for(IAudioSegmentListener listener : mListeners)
+            {
+                listener.segmentStarted(segment);
+            }
+        }
+
+        segment.process(audioPacket);
+        mUpdatedSegments.add(segment);
+    }
+
+    /**
+     * Completes the segment, notifies listeners and updates the statistics.
+     */
+    private void completeSegment(AudioSegment segment)
+    {
+        segment.complete();
+        mUpdatedSegments.remove(segment);
+
+        for(IAudioSegmentListener listener : mListeners)
+        {
+            listener.segmentCompleted(segment);
+        }
+
+        mPacketCount.addAndGet(segment.getPacketCount());
+        mPCMConversionCount.addAndGet(segment.getPCMConversionCount());
+        mEncodeCount.addAndGet(segment.getEncodeCount());
+        mBytesCopied.addAndGet(segment.getBytesCopied());
+        mReaderCount.addAndGet(segment.getReaderCount());
+
+        if(mLog.isDebugEnabled())
+        {
+            mLog.debug("Completed " + segment);
+        }
+    }
+
+    /**
+     * Completes segments that have not received any new audio in the last 6 seconds.
+     */
+    private void completeIdleSegments()
+    {
+        long threshold = System.currentTimeMillis() - IDLE_SEGMENT_COMPLETION_THRESHOLD;
+
+        Iterator<Map.Entry<Integer,AudioSegment>> it = mSegments.entrySet().iterator();
+
+        while(it.hasNext())
+        {
+            AudioSegment segment = it.next().getValue();
+
+            if(segment.getLastUpdateTimestamp() < threshold)
+            {
+                it.remove();
+                completeSegment(segment);
+            }
+        }
+    }
+
+    /**
+     * Summary of the audio segment processing counters for completed segments
+     */
+    public String getStatistics()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Audio Segments [").append(mSegmentCount.get()).append("]");
+        sb.append(" Packets [").append(mPacketCount.get()).append("]");
+        sb.append(" PCM Conversions [").append(mPCMConversionCount.get()).append("]");
+        sb.append(" Encodes [").append(mEncodeCount.get()).append("]");
+        sb.append(" Bytes Copied [").append(mBytesCopied.get()).append("]");
+        sb.append(" Readers [").append(mReaderCount.get()).append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Logs the audio segment processing counters
+     */
+    public void logStatistics()
+    {
+        mLog.info(getStatistics());
+    }
+
+    /**
+     * Processes queued audio packets and completes idle segments
+     */
+    public class SegmentProcessor implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            try
+            {
+                synchronized(mSegments)
+                {
+                    processPackets();
+                    completeIdleSegments();
+                }
+            }
+            catch(Throwable t)
+            {
+                mLog.error("Error while processing audio segments", t);
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.audio.segment;
+
+import io.github.dsheirer.sample.buffer.ReusableByteBuffer;
+import io.github.dsheirer.sample.buffer.ReusableByteBufferQueue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only byte stream for one audio format of an audio segment, stored in pooled, reference counted chunks.
+ *
+ * The stream is written once and read by any number of readers without copying.  Each chunk carries one user count
+ * for the writer while it is being filled and one for each reader that has not yet finished reading it, so a chunk
+ * is returned to the pool as soon as every reader has consumed it.  Readers start reading from the current end of
+ * the stream at the time they are opened.
+ *
+ * Appends are performed by a single writer thread.  Readers can be serviced from any thread.
+ */
+public class AudioSegmentStream
+{
+    public static final int CHUNK_SIZE = 4096;
+
+    private static final ReusableByteBufferQueue sChunkQueue = new ReusableByteBufferQueue("AudioSegmentStream");
+
+    private SegmentFormat mFormat;
+    private List<Chunk> mChunks = new ArrayList<>();
+    private int mBaseIndex;
+    private List<Reader> mReaders = new ArrayList<>();
+    private boolean mClosed;
+    private long mBytesWritten;
+
+    /**
+     * Constructs an instance
+     * @param format of the stream contents
+     */
+    public AudioSegmentStream(SegmentFormat format)
+    {
+        mFormat = format;
+    }
+
+    /**
+     * Format of the stream contents
+     */
+    public SegmentFormat getFormat()
+    {
+        return mFormat;
+    }
+
+    /**
+     * Total number of bytes written to the stream
+     */
+    public synchronized long getBytesWritten()
+    {
+        return mBytesWritten;
+    }
+
+    /**
+     * Number of readers currently open on this stream
+     */
+    public synchronized int getReaderCount()
+    {
+        return mReaders.size();
+    }
+
+    /**
+     * Indicates if the stream is closed to further writes
+     */
+    public synchronized boolean isClosed()
+    {
+        return mClosed;
+    }
+
+    /**
+     * Appends the bytes to the stream
+     *
+     * @param bytes to append
+     * @param offset of the first byte
+     * @param length of bytes to append
+     */
+    public synchronized void append(byte[] bytes, int offset, int length)
+    {
+        if(mClosed)
+        {
+            throw new IllegalStateException("Can't append to a closed audio segment stream");
+        }
+
+        while(length > 0)
+        {
+            Chunk chunk = getWritableChunk();
+            int count = Math.min(CHUNK_SIZE - chunk.mLength, length);
+            System.arraycopy(bytes, offset, chunk.mBuffer.getBytes(), chunk.mLength, count);
+            chunk.mLength += count;
+            offset += count;
+            length -= count;
+            mBytesWritten += count;
+
+            if(chunk.mLength == CHUNK_SIZE)
+            {
+                seal(chunk);
+            }
+        }
+    }
+
+    /**
+     * Closes the stream to further writes.  Open readers can continue to read the remaining stream contents.
+     */
+    public synchronized void close()
+    {
+        if(!mClosed)
+        {
+            mClosed = true;
+
+            if(!mChunks.isEmpty())
+            {
+                Chunk last = mChunks.get(mChunks.size() - 1);
+
+                if(!last.mSealed)
+                {
+                    seal(last);
+                }
+            }
+
+            prune();
+        }
+    }
+
+    /**
+     * Opens a reader positioned at the current end of the stream
+     */
+    public synchronized Reader openReader()
+    {
+        Reader reader = new Reader();
+        reader.mIndex = mBaseIndex + mChunks.size();
+
+        if(!mChunks.isEmpty())
+        {
+            Chunk last = mChunks.get(mChunks.size() - 1);
+
+            if(!last.mSealed)
+            {
+                //Start within the partially filled chunk
+                last.mBuffer.incrementUserCount();
+                reader.mIndex--;
+                reader.mOffset = last.mLength;
+            }
+        }
+
+        mReaders.add(reader);
+        return reader;
+    }
+
+    /**
+     * Current chunk that is being filled, or a new chunk from the pool
+     */
+    private Chunk getWritableChunk()
+    {
+        if(!mChunks.isEmpty())
+        {
+            Chunk last = mChunks.get(mChunks.size() - 1);
+
+            if(!last.mSealed)
+            {
+                return last;
+            }
+        }
+
+        Chunk chunk = new Chunk(sChunkQueue.getBuffer(CHUNK_SIZE));
+        chunk.mBuffer.incrementUserCount(mReaders.size());
+        mChunks.add(chunk);
+        return chunk;
+    }
+
+    /**
+     * Flags the chunk as full and releases the writer's user count
+     */
+    private void seal(Chunk chunk)
+    {
+        chunk.mSealed = true;
+        chunk.mBuffer.decrementUserCount();
+    }
+
+    /**
+     * Removes leading chunks that have been sealed and consumed by all readers
+     */
+    private void prune()
+    {
+        int minimum = mBaseIndex + mChunks.size();
+
+        if(!mChunks.isEmpty() && !mChunks.get(mChunks.size() - 1).mSealed)
+        {
+            minimum--;
+        }
+
+        for(Reader reader : mReaders)
+        {
+            minimum = Math.min(minimum, reader.mIndex);
+        }
+
+        int count = minimum - mBaseIndex;
+
+        if(count > 0)
+        {
+            mChunks.subList(0, count).clear();
+            mBaseIndex = minimum;
+        }
+    }
+
+    /**
+     * Receives slices of stream chunks from a reader
+     */
+    public interface ChunkConsumer
+    {
+        /**
+         * Consumes a slice of the stream.  The byte array must not be modified or retained after this call returns.
+         */
+        void accept(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Stream reader.  A reader is intended to be serviced by a single thread.
+     */
+    public class Reader
+    {
+        private int mIndex;
+        private int mOffset;
+        private boolean mReaderClosed;
+
+        private Reader()
+        {
+        }
+
+        /**
+         * Format of the stream contents
+         */
+        public SegmentFormat getFormat()
+        {
+            return mFormat;
+        }
+
+        /**
+         * Reads all of the stream contents that are currently available and delivers them to the consumer.  The
+         * chunks are not copied and are released back to the pool once consumed by all readers.
+         *
+         * @param consumer to receive the stream contents
+         * @return number of bytes read
+         * @throws IOException if thrown by the consumer
+         */
+        public long read(ChunkConsumer consumer) throws IOException
+        {
+            List<Chunk> chunks = new ArrayList<>();
+            int startOffset;
+            int endLength;
+            boolean lastSealed;
+
+            //Capture the readable slices under lock.  Chunk contents below the captured length never change and the
+            //chunks can't be recycled while this reader holds a user count on them.
+            synchronized(AudioSegmentStream.this)
+            {
+                if(mReaderClosed)
+                {
+                    return 0;
+                }
+
+                for(int x = mIndex - mBaseIndex; x < mChunks.size(); x++)
+                {
+                    chunks.add(mChunks.get(x));
+                }
+
+                if(chunks.isEmpty())
+                {
+                    return 0;
+                }
+
+                startOffset = mOffset;
+                Chunk last = chunks.get(chunks.size() - 1);
+                endLength = last.mLength;
+                lastSealed = last.mSealed;
+            }
+
+            long count = 0;
+
+            for(int x = 0; x < chunks.size(); x++)
+            {
+                Chunk chunk = chunks.get(x);
+                int from = (x == 0) ? startOffset : 0;
+                int to = (x == chunks.size() - 1) ? endLength : chunk.mLength;
+
+                if(to > from)
+                {
+                    consumer.accept(chunk.mBuffer.getBytes(), from, to - from);
+                    count += to - from;
+                }
+            }
+
+            synchronized(AudioSegmentStream.this)
+            {
+                //Release each fully consumed chunk.  The last chunk is retained if the writer is still filling it.
+                int consumed = lastSealed ? chunks.size() : chunks.size() - 1;
+
+                for(int x = 0; x < consumed; x++)
+                {
+                    chunks.get(x).mBuffer.decrementUserCount();
+                }
+
+                mIndex += consumed;
+                mOffset = lastSealed ? 0 : endLength;
+                prune();
+            }
+
+            return count;
+        }
+
+        /**
+         * Indicates if the stream is closed and this reader has consumed all of the stream contents
+         */
+        public boolean isComplete()
+        {
+            synchronized(AudioSegmentStream.this)
+            {
+                return mReaderClosed || (mClosed && mIndex >= mBaseIndex + mChunks.size());
+            }
+        }
+
+        /**
+         * Closes this reader and releases any unread chunks
+         */
+        public void close()
+        {
+            synchronized(AudioSegmentStream.this)
+            {
+                if(!mReaderClosed)
+                {
+                    mReaderClosed = true;
+
+                    for(int x = mIndex - mBaseIndex; x < mChunks.size(); x++)
+                    {
+                        mChunks.get(x).mBuffer.decrementUserCount();
+                    }
+
+                    mReaders.remove(this);
+                    prune();
+                }
+            }
+        }
+    }
+
+    /**
+     * Pooled chunk with the number of bytes written
+     */
+    private static class Chunk
+    {
+        private ReusableByteBuffer mBuffer;
+        private int mLength;
+        private boolean mSealed;
+
+        public Chunk(ReusableByteBuffer buffer)
+        {
+            mBuffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.audio.segment;
+
+/**
+ * Listener interface for call audio segment lifecycle events.  Events are dispatched on the audio segment manager's
+ * processing thread and implementations should not block.
+ */
+public interface IAudioSegmentListener
+{
+    /**
+     * A new call audio segment has started.  Readers opened during this callback receive all of the call audio.
+     */
+    void segmentStarted(AudioSegment segment);
+
+    /**
+     * Audio and/or metadata were added to the call audio segment.
+     */
+    void segmentUpdated(AudioSegment segment);
+
+    /**
+     * The call is complete and no further audio will be added to the segment.  Open readers can continue to read the
+     * remaining audio before closing.
+     */
+    void segmentCompleted(AudioSegment segment);
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.audio.segment;
+
+import io.github.dsheirer.audio.broadcast.BroadcastFormat;
+
+/**
+ * Audio formats available from an audio segment
+ */
+public enum SegmentFormat
+{
+    /**
+     * 8 kHz, 16-bit signed, little endian, mono PCM
+     */
+    PCM("PCM"),
+
+    /**
+     * MP3 encoded audio (see MP3Recorder for bit rate settings)
+     */
+    MP3("MP3");
+
+    private String mLabel;
+
+    SegmentFormat(String label)
+    {
+        mLabel = label;
+    }
+
+    /**
+     * Segment format that corresponds to the broadcast format
+     */
+    public static SegmentFormat fromBroadcastFormat(BroadcastFormat broadcastFormat)
+    {
+        switch(broadcastFormat)
+        {
+            case MP3:
+                return MP3;
+            default:
+                throw new IllegalArgumentException("Unrecognized broadcast format [" + broadcastFormat + "]");
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return mLabel;
+    }
+}
@@ -107,6 +107,24 @@ public class MessageFramer implements IBinarySymbolProcessor, Listener<Boolean>,
         }
     }
 
+    /**
+     * Starts assembling a message at the current bit position when an external (e.g. soft-decision) sync detector
+     * identifies the sync pattern ending at the most recently processed bit.  This is ignored when the internal
+     * sync pattern matcher has already matched on the most recent bit.
+     */
+    public void syncDetected()
+    {
+        if(!mMatcher.matches())
+        {
+            addMessageAssembler(new MessageAssembler(mMessageLength, mSyncPattern));
+
+            if(mSyncDetectListener != null)
+            {
+                mSyncDetectListener.syncDetected(0);
+            }
+        }
+    }
+
     @Deprecated //Legacy support ... remove once all producers are converted to use receive(boolean bit) method
     @Override
     public void receive(Boolean bit)
@@ -79,7 +79,7 @@ public class ControllerPanel extends JPanel
         mNowPlayingPanel = new NowPlayingPanel(channelModel, channelProcessingManager, iconManager,
             aliasModel, userPreferences);
 
-        mMapPanel = new MapPanel(mapService, aliasModel, iconManager, settingsManager);
+        mMapPanel = new MapPanel(mapService, aliasModel, iconManager, settingsManager, userPreferences);
 
         mBroadcastPanel = new BroadcastPanel(broadcastModel, aliasModel, iconManager, userPreferences);
 
@@ -93,6 +93,14 @@ public class ControllerPanel extends JPanel
         init();
     }
 
+    /**
+     * Map panel
+     */
+    public MapPanel getMapPanel()
+    {
+        return mMapPanel;
+    }
+
     private void init()
     {
         setLayout(new MigLayout("insets 0 0 0 0 ", "[grow,fill]", "[]0[grow,fill]0[]"));
@@ -26,6 +26,7 @@ import io.github.dsheirer.channel.IChannelDescriptor;
 import io.github.dsheirer.channel.metadata.ChannelMetadata;
 import io.github.dsheirer.channel.metadata.ChannelMetadataModel;
 import io.github.dsheirer.controller.channel.map.ChannelMapModel;
+import io.github.dsheirer.dsp.filter.design.FilterDesignCache;
 import io.github.dsheirer.filter.FilterSet;
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
@@ -224,6 +225,12 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
             return;
         }
 
+        //Snapshot the filter design cache counters to measure the filter design work for this channel start
+        FilterDesignCache filterDesignCache = FilterDesignCache.getInstance();
+        long filterHits = filterDesignCache.getHitCount();
+        long filterMisses = filterDesignCache.getMissCount();
+        long filterSavedNanos = filterDesignCache.getSavedNanos();
+
         //Ensure that we can get a source before we construct a new processing chain
         Source source = null;
 
@@ -375,6 +382,14 @@ public class ChannelProcessingManager implements Listener<ChannelEvent>
 
         mProcessingChains.put(channel, processingChain);
 
+        if(mLog.isDebugEnabled())
+        {
+            mLog.debug("Channel [" + channel.getName() + "] start filter designs - " +
+                FilterDesignCache.format(filterDesignCache.getHitCount() - filterHits,
+                    filterDesignCache.getMissCount() - filterMisses,
+                    filterDesignCache.getSavedNanos() - filterSavedNanos));
+        }
+
         mChannelEventBroadcaster.broadcast(new ChannelEvent(channel, ChannelEvent.Event.NOTIFICATION_PROCESSING_START));
     }
 
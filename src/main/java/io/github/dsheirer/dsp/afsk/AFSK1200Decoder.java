@@ -24,6 +24,7 @@ import io.github.dsheirer.buffer.FloatAveragingBuffer;
 import io.github.dsheirer.dsp.filter.resample.RealResampler;
 import io.github.dsheirer.dsp.mixer.IOscillator;
 import io.github.dsheirer.dsp.mixer.Oscillator;
+import io.github.dsheirer.dsp.symbol.ISoftSyncDetectListener;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.ReusableFloatBuffer;
 import org.slf4j.Logger;
@@ -68,6 +69,8 @@ public class AFSK1200Decoder implements Listener<ReusableFloatBuffer>
     protected AFSKTimingErrorDetector mTimingErrorDetector = new AFSKTimingErrorDetector(SAMPLES_PER_SYMBOL);
     protected IBinarySymbolProcessor mBinarySymbolProcessor;
     private boolean mSampleDecision;
+    private AFSKSyncCorrelator mSyncCorrelator;
+    private ISoftSyncDetectListener mSoftSyncDetectListener;
 
     //Resample to an integral of the baud rate 1200 baud * 6 samples per symbol = 7200.0 Hertz
     private RealResampler mResampler = new RealResampler(8000.0, SAMPLE_RATE, 2000, 1);
@@ -145,6 +148,36 @@ public class AFSK1200Decoder implements Listener<ReusableFloatBuffer>
         mBinarySymbolProcessor = null;
     }
 
+    /**
+     * Registers a multi-hypothesis sync correlator and a listener to be notified when the correlator detects a sync
+     * pattern.  On detection, the decoder commits to the detected symbol timing hypothesis.  Sync patterns should be
+     * provided to the correlator in normal (non-inverted) form.
+     *
+     * @param syncCorrelator to evaluate symbol timing hypotheses, or null to disable
+     * @param listener to receive sync detections
+     */
+    public void setSyncCorrelator(AFSKSyncCorrelator syncCorrelator, ISoftSyncDetectListener listener)
+    {
+        mSyncCorrelator = syncCorrelator;
+        mSoftSyncDetectListener = listener;
+    }
+
+    /**
+     * Commits to the sync correlator's detected timing hypothesis and notifies the listener
+     */
+    private void commitSyncHypothesis()
+    {
+        mSampleBuffer.increaseSampleCounter(mSyncCorrelator.getTimingOffset());
+
+        if(mSoftSyncDetectListener != null)
+        {
+            mSoftSyncDetectListener.softSyncDetected(mSyncCorrelator.getDetectedPattern(),
+                mSyncCorrelator.getBitErrors());
+        }
+
+        mSyncCorrelator.reset();
+    }
+
 
     public class Decoder implements Listener<ReusableFloatBuffer>
     {
@@ -164,10 +197,21 @@ public class AFSK1200Decoder implements Listener<ReusableFloatBuffer>
                 mSampleBuffer.receive(mSampleDecision);
                 mTimingErrorDetector.receive(mSampleDecision);
 
+                if(mSyncCorrelator != null)
+                {
+                    float softSample = mCorrelationValuesMark[x] - mCorrelationValuesSpace[x];
+                    mSyncCorrelator.receive(mNormalOutput ? softSample : -softSample);
+                }
+
                 if(mSampleBuffer.hasSymbol())
                 {
                     dispatch(mSampleBuffer.getSymbol());
                     mSampleBuffer.resetAndAdjust(mTimingErrorDetector.getError());
+
+                    if(mSyncCorrelator != null && mSyncCorrelator.process())
+                    {
+                        commitSyncHypothesis();
+                    }
                 }
             }
         }
@@ -81,6 +81,15 @@ public class AFSKSampleBuffer
         mSymbolSamplingPoint += (mSamplesPerSymbol + (symbolTimingError * mSymbolTimingGain));
     }
 
+    /**
+     * Updates the symbol sampling point counter with additional samples, delaying the next symbol decision.
+     * @param samplesToAdd to the sampling point counter
+     */
+    public void increaseSampleCounter(float samplesToAdd)
+    {
+        mSymbolSamplingPoint += samplesToAdd;
+    }
+
     public void setTimingGain(float gain)
     {
         mSymbolTimingGain = gain;
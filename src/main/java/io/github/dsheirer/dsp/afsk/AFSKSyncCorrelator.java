@@ -0,0 +1,156 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.dsp.afsk;
+
+import io.github.dsheirer.dsp.symbol.SoftSyncCorrelator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * AFSK soft-decision sync correlator that evaluates each of the integral sample timing offsets across one symbol
+ * period in parallel.
+ *
+ * Each incoming sample is a soft decision value where positive values favor a one (mark) and negative values favor a
+ * zero (space).  For each timing hypothesis, the soft symbol is the sum of the soft sample values across one symbol
+ * period, starting at the hypothesis offset from the sample buffer's symbol decision window.  Hypothesis 0 aligns
+ * with the sample buffer's current symbol decision window.
+ */
+public class AFSKSyncCorrelator
+{
+    private SoftSyncCorrelator mCorrelator;
+    private int mSamplesPerSymbol;
+    private int mTwiceSamplesPerSymbol;
+    private float[] mDelayLine;
+    private int mDelayLinePointer;
+    private float[] mSymbols;
+
+    /**
+     * Constructs an instance
+     *
+     * @param samplesPerSymbol integral samples per symbol
+     * @param threshold normalized correlation score required for sync detection
+     * @param maximumBitErrors allowed in the hard decisions of the winning hypothesis
+     * @param syncPatterns to detect, all of equal length
+     */
+    public AFSKSyncCorrelator(int samplesPerSymbol, float threshold, int maximumBitErrors, boolean[]... syncPatterns)
+    {
+        Validate.isTrue(syncPatterns.length > 0, "At least one sync pattern is required");
+
+        mSamplesPerSymbol = samplesPerSymbol;
+        mTwiceSamplesPerSymbol = 2 * samplesPerSymbol;
+        mDelayLine = new float[2 * mTwiceSamplesPerSymbol];
+        mSymbols = new float[samplesPerSymbol];
+        mCorrelator = new SoftSyncCorrelator(samplesPerSymbol, 1, syncPatterns[0].length, threshold, maximumBitErrors);
+
+        for(boolean[] syncPattern : syncPatterns)
+        {
+            Validate.isTrue(syncPattern.length == syncPatterns[0].length, "Sync patterns must be equal length");
+
+            float[] reference = new float[syncPattern.length];
+
+            for(int x = 0; x < syncPattern.length; x++)
+            {
+                reference[x] = syncPattern[x] ? 1.0f : -1.0f;
+            }
+
+            mCorrelator.addPattern(reference);
+        }
+    }
+
+    /**
+     * Stores the soft sample value.  Invoke for each sample, in step with the AFSK sample buffer.
+     *
+     * @param sample soft decision where positive is a one and negative is a zero
+     */
+    public void receive(float sample)
+    {
+        mDelayLine[mDelayLinePointer] = sample;
+        mDelayLine[mDelayLinePointer + mTwiceSamplesPerSymbol] = sample;
+
+        mDelayLinePointer++;
+        mDelayLinePointer = mDelayLinePointer % mTwiceSamplesPerSymbol;
+    }
+
+    /**
+     * Calculates the soft symbol for each timing hypothesis and checks for a sync pattern.  Invoke once per symbol
+     * period when the AFSK sample buffer produces a symbol.
+     *
+     * @return true if a sync pattern was detected
+     */
+    public boolean process()
+    {
+        for(int hypothesis = 0; hypothesis < mSamplesPerSymbol; hypothesis++)
+        {
+            float accumulator = 0.0f;
+            int start = mDelayLinePointer + hypothesis;
+
+            for(int x = start; x < start + mSamplesPerSymbol; x++)
+            {
+                accumulator += mDelayLine[x];
+            }
+
+            mSymbols[hypothesis] = accumulator;
+        }
+
+        return mCorrelator.receive(mSymbols);
+    }
+
+    /**
+     * Symbol timing offset (in samples) of the detected hypothesis relative to the sample buffer's symbol decision
+     * window.  The sample buffer should delay its sampling point by this amount to commit to the hypothesis.
+     */
+    public int getTimingOffset()
+    {
+        return mCorrelator.getDetectedHypothesis();
+    }
+
+    /**
+     * Index of the detected sync pattern in the order provided to the constructor
+     */
+    public int getDetectedPattern()
+    {
+        return mCorrelator.getDetectedPattern();
+    }
+
+    /**
+     * Hard decision bit errors of the detected hypothesis
+     */
+    public int getBitErrors()
+    {
+        return mCorrelator.getDetectedBitErrors();
+    }
+
+    /**
+     * Total number of sync detections
+     */
+    public long getDetectionCount()
+    {
+        return mCorrelator.getDetectionCount();
+    }
+
+    /**
+     * Discards the symbol history after committing to a detected hypothesis.
+     */
+    public void reset()
+    {
+        mCorrelator.reset();
+    }
+}
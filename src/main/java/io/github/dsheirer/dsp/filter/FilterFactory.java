@@ -22,6 +22,7 @@
  ******************************************************************************/
 package io.github.dsheirer.dsp.filter;
 
+import io.github.dsheirer.dsp.filter.design.FilterDesignCache;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
 import io.github.dsheirer.dsp.filter.fir.FIRFilterSpecification;
 import io.github.dsheirer.dsp.filter.fir.remez.RemezFIRFilterDesigner;
@@ -257,17 +258,29 @@ public class FilterFactory
                 (int)(sampleRate / 2) + "] of the sample rate [" + sampleRate + "]");
         }
 
-        int tapCount = getTapCount(sampleRate, passFrequency, stopFrequency, attenuation);
+        String key = "lowPass," + sampleRate + "," + passFrequency + "," + stopFrequency + "," + attenuation + "," +
+            windowType.name() + "," + forceOddLength;
 
-        if(forceOddLength)
+        try
         {
-            if(tapCount % 2 == 0)
-            {
-                tapCount--;
-            }
-        }
+            return FilterDesignCache.getInstance().getTaps(key, () -> {
+                int tapCount = getTapCount(sampleRate, passFrequency, stopFrequency, attenuation);
+
+                if(forceOddLength)
+                {
+                    if(tapCount % 2 == 0)
+                    {
+                        tapCount--;
+                    }
+                }
 
-        return getLowPass(sampleRate, passFrequency, tapCount, windowType);
+                return getLowPass(sampleRate, passFrequency, tapCount, windowType);
+            });
+        }
+        catch(FilterDesignException fde)
+        {
+            throw new IllegalStateException("Couldn't design low pass filter [" + key + "]", fde);
+        }
     }
 
     /**
@@ -675,14 +688,16 @@ public class FilterFactory
      */
     public static float[] getTaps(FIRFilterSpecification specification) throws FilterDesignException
     {
-        RemezFIRFilterDesigner designer = new RemezFIRFilterDesigner(specification);
+        return FilterDesignCache.getInstance().getTaps("remez," + specification.getDesignKey(), () -> {
+            RemezFIRFilterDesigner designer = new RemezFIRFilterDesigner(specification);
 
-        if(designer.isValid())
-        {
-            return designer.getImpulseResponse();
-        }
+            if(designer.isValid())
+            {
+                return designer.getImpulseResponse();
+            }
 
-        return null;
+            return null;
+        });
     }
 
     /**
@@ -721,6 +736,16 @@ public class FilterFactory
 
     public static float[] getRemezChannelizer(int channelBandwidth, int channels, int tapsPerChannel, double alpha,
                                               double passRipple, double stopRipple) throws FilterDesignException
+    {
+        String key = "remezChannelizer," + channelBandwidth + "," + channels + "," + tapsPerChannel + "," + alpha +
+            "," + passRipple + "," + stopRipple;
+
+        return FilterDesignCache.getInstance().getTaps(key, () -> designRemezChannelizer(channelBandwidth, channels,
+            tapsPerChannel, alpha, passRipple, stopRipple));
+    }
+
+    private static float[] designRemezChannelizer(int channelBandwidth, int channels, int tapsPerChannel, double alpha,
+                                                  double passRipple, double stopRipple) throws FilterDesignException
     {
         FIRFilterSpecification specification = FIRFilterSpecification.channelizerBuilder()
             .sampleRate(channels * channelBandwidth * 4)
@@ -759,6 +784,16 @@ public class FilterFactory
      */
     public static float[] getSincM2Synthesizer(double channelSampleRate, double channelBandwidth, int channels,
                                                int tapsPerChannel) throws FilterDesignException
+    {
+        String key = "sincM2Synthesizer," + channelSampleRate + "," + channelBandwidth + "," + channels + "," +
+            tapsPerChannel;
+
+        return FilterDesignCache.getInstance().getTaps(key, () -> designSincM2Synthesizer(channelSampleRate,
+            channelBandwidth, channels, tapsPerChannel));
+    }
+
+    private static float[] designSincM2Synthesizer(double channelSampleRate, double channelBandwidth, int channels,
+                                                   int tapsPerChannel) throws FilterDesignException
     {
         int filterLength = (channels * tapsPerChannel) - 1;
 
@@ -806,12 +841,21 @@ public class FilterFactory
      * @param channelBandwidth per channel
      * @param channels count
      * @param tapsPerChannel minimum.  This may be increased to meet the band edge -6.02dB requirement
-     * @param logResults to log the results of the design
+     * @param logResults to log the results of the design (only logged when the filter is not already cached)
      * @return filter
      * @throws FilterDesignException if the filter cannot be designed with a band edge of -6.02dB
      */
     public static float[] getSincM2Channelizer(double channelBandwidth, int channels, int tapsPerChannel,
                                                boolean logResults) throws FilterDesignException
+    {
+        String key = "sincM2Channelizer," + channelBandwidth + "," + channels + "," + tapsPerChannel;
+
+        return FilterDesignCache.getInstance().getTaps(key, () -> designSincM2Channelizer(channelBandwidth, channels,
+            tapsPerChannel, logResults));
+    }
+
+    private static float[] designSincM2Channelizer(double channelBandwidth, int channels, int tapsPerChannel,
+                                                   boolean logResults) throws FilterDesignException
     {
         int currentTapsPerChannel = tapsPerChannel;
         int filterLength = (channels * currentTapsPerChannel) - 1;
@@ -464,6 +464,16 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
         return tunerChannels;
     }
 
+    /**
+     * Cumulative time spent processing incoming sample buffers through the polyphase channelizer
+     *
+     * @return processing time in nanoseconds
+     */
+    public long getProcessingNanoseconds()
+    {
+        return mBufferSourceEventMonitor.getProcessingNanoseconds();
+    }
+
     /**
      * Count of currently sourced tuner channels
      */
@@ -576,6 +586,15 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
     public class BufferSourceEventMonitor implements Listener<List<ReusableComplexBuffer>>
     {
         private Queue<SourceEvent> mQueuedSourceEvents = new ConcurrentLinkedQueue<>();
+        private volatile long mProcessingNanoseconds;
+
+        /**
+         * Cumulative buffer processing time in nanoseconds
+         */
+        public long getProcessingNanoseconds()
+        {
+            return mProcessingNanoseconds;
+        }
 
         /**
          * Queues the source event for deferred execution on the buffer processing thread.
@@ -589,6 +608,8 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
         @Override
         public void receive(List<ReusableComplexBuffer> reusableComplexBuffers)
         {
+            long start = System.nanoTime();
+
             try
             {
                 //Process any queued source events before processing the buffers
@@ -628,6 +649,9 @@ public class PolyphaseChannelManager implements ISourceEventProcessor
                     buffer.decrementUserCount();
                 }
             }
+
+            //Single writer - only updated on the buffer processing thread
+            mProcessingNanoseconds += System.nanoTime() - start;
         }
     }
 }
\ No newline at end of file
@@ -20,10 +20,10 @@
 package io.github.dsheirer.dsp.filter.channelizer;
 
 import io.github.dsheirer.dsp.filter.channelizer.output.IPolyphaseChannelOutputProcessor;
+import io.github.dsheirer.dsp.filter.FilterFactory;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
 import io.github.dsheirer.dsp.filter.fir.FIRFilterSpecification;
 import io.github.dsheirer.dsp.filter.fir.complex.ComplexFIRFilter2;
-import io.github.dsheirer.dsp.filter.fir.remez.RemezFIRFilterDesigner;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.ReusableChannelResultsBuffer;
 import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
@@ -33,8 +33,6 @@ import io.github.dsheirer.source.tuner.channel.ChannelSpecification;
 import io.github.dsheirer.source.tuner.channel.TunerChannel;
 import io.github.dsheirer.source.tuner.channel.TunerChannelSource;
 
-import java.util.HashMap;
-import java.util.Map;
 
 public class PolyphaseChannelSource extends TunerChannelSource
 {
@@ -45,7 +43,6 @@ public class PolyphaseChannelSource extends TunerChannelSource
     private IPolyphaseChannelOutputProcessor mReplacementPolyphaseChannelOutputProcessor;
     private long mReplacementFrequency;
     private ComplexFIRFilter2 mLowPassFilter;
-    private static Map<Integer,float[]> sLowPassFilters = new HashMap();
 
     private double mChannelSampleRate;
     private long mIndexCenterFrequency;
@@ -172,6 +169,7 @@ public class PolyphaseChannelSource extends TunerChannelSource
 
         mReusableComplexBufferAssembler.updateTimestamp(channelResultsBuffer.getTimestamp());
         mPolyphaseChannelOutputProcessor.receiveChannelResults(channelResultsBuffer);
+        signalSamplesAvailable();
     }
 
     /**
@@ -285,12 +283,7 @@ public class PolyphaseChannelSource extends TunerChannelSource
      */
     private float[] getLowPassFilter(double sampleRate, double passFrequency, double stopFrequency) throws FilterDesignException
     {
-        //Use existing filter if we've already designed one
-        if(sLowPassFilters.containsKey((int)sampleRate))
-        {
-            return sLowPassFilters.get((int)sampleRate);
-        }
-
+        //Designs are cached process-wide by the filter factory
         FIRFilterSpecification specification = FIRFilterSpecification.lowPassBuilder()
             .sampleRate(sampleRate)
             .gridDensity(16)
@@ -302,12 +295,12 @@ public class PolyphaseChannelSource extends TunerChannelSource
             .stopBandRipple(0.01)
             .build();
 
-        RemezFIRFilterDesigner designer = new RemezFIRFilterDesigner(specification);
+        float[] taps = FilterFactory.getTaps(specification);
 
-        //This will throw an exception if the filter cannot be designed
-        float[] taps = designer.getImpulseResponse();
-
-        sLowPassFilters.put((int)sampleRate, taps);
+        if(taps == null)
+        {
+            throw new FilterDesignException("Couldn't design low pass filter for sample rate: " + sampleRate);
+        }
 
         return taps;
     }
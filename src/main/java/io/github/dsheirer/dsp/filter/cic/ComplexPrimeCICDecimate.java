@@ -19,10 +19,10 @@
  */
 package io.github.dsheirer.dsp.filter.cic;
 
+import io.github.dsheirer.dsp.filter.FilterFactory;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
 import io.github.dsheirer.dsp.filter.fir.FIRFilterSpecification;
 import io.github.dsheirer.dsp.filter.fir.complex.ComplexFIRFilter2;
-import io.github.dsheirer.dsp.filter.fir.remez.RemezFIRFilterDesigner;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
 import io.github.dsheirer.sample.buffer.ReusableComplexBufferAssembler;
@@ -81,7 +81,6 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
         2767, 2777, 2789, 2791, 2797, 2801
     };
 
-    private static Map<Integer,float[]> sLowPassFilters = new HashMap();
     private static Map<Integer,List<Integer>> sPrimeFactors = new HashMap();
 
     private List<DecimatingStage> mDecimatingStages = new ArrayList<DecimatingStage>();
@@ -178,7 +177,7 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
      * @param decimation - integral decimation rate
      * @return - ordered list (smallest to largest) of prime factors
      */
-    public static List<Integer> getPrimeFactors(int decimation)
+    public static synchronized List<Integer> getPrimeFactors(int decimation)
     {
         if(decimation > PRIMES[PRIMES.length - 1])
         {
@@ -192,7 +191,7 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
         }
 
         List<Integer> primeFactors = new ArrayList<Integer>();
-
+        int key = decimation;
         int pointer = 0;
 
         while(decimation > 0 && pointer < PRIMES.length)
@@ -210,11 +209,44 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
             }
         }
 
-        sPrimeFactors.put(decimation, primeFactors);
+        sPrimeFactors.put(key, primeFactors);
 
         return primeFactors;
     }
 
+    /**
+     * Creates a low-pass filter to use as the final cleanup filter for the decimated output stream
+     *
+     * @param sampleRate for the final output channel rate
+     * @param passFrequency for half of the desired channel rate
+     * @param stopFrequency for the attenuated band
+     * @return a newly designed filter or a previously designed (cached) filter
+     * @throws FilterDesignException
+     */
+    public static float[] getLowPassFilter(double sampleRate, double passFrequency, double stopFrequency) throws FilterDesignException
+    {
+        //Designs are cached process-wide by the filter factory
+        FIRFilterSpecification specification = FIRFilterSpecification.lowPassBuilder()
+            .sampleRate(sampleRate)
+            .gridDensity(16)
+            .passBandCutoff(passFrequency)
+            .passBandAmplitude(1.0)
+            .passBandRipple(0.01)
+            .stopBandStart(stopFrequency)
+            .stopBandAmplitude(0.0)
+            .stopBandRipple(0.01)
+            .build();
+
+        float[] taps = FilterFactory.getTaps(specification);
+
+        if(taps == null)
+        {
+            throw new FilterDesignException("Couldn't design low pass filter for sample rate: " + sampleRate);
+        }
+
+        return taps;
+    }
+
     /**
      * Primary input method for receiving sample arrays composed as I,Q,I,Q, etc.
      */
@@ -468,43 +500,5 @@ public class ComplexPrimeCICDecimate implements Listener<ReusableComplexBuffer>
                 }
             };
         }
-
-        /**
-         * Creates a low-pass filter to use as the final cleanup filter for the decimated output stream
-         *
-         * @param sampleRate for the final output channel rate
-         * @param passFrequency for half of the desired channel rate
-         * @param stopFrequency for the attenuated band
-         * @return a newly designed filter or a previously designed (cached) filter
-         * @throws FilterDesignException
-         */
-        private float[] getLowPassFilter(double sampleRate, double passFrequency, double stopFrequency) throws FilterDesignException
-        {
-            //Use existing filter if we've already designed one
-            if(sLowPassFilters.containsKey((int)sampleRate))
-            {
-                return sLowPassFilters.get((int)sampleRate);
-            }
-
-            FIRFilterSpecification specification = FIRFilterSpecification.lowPassBuilder()
-                .sampleRate(sampleRate)
-                .gridDensity(16)
-                .passBandCutoff(passFrequency)
-                .passBandAmplitude(1.0)
-                .passBandRipple(0.01)
-                .stopBandStart(stopFrequency)
-                .stopBandAmplitude(0.0)
-                .stopBandRipple(0.01)
-                .build();
-
-            RemezFIRFilterDesigner designer = new RemezFIRFilterDesigner(specification);
-
-            //This will throw an exception if the filter cannot be designed
-            float[] taps = designer.getImpulseResponse();
-
-            sLowPassFilters.put((int)sampleRate, taps);
-
-            return taps;
-        }
     }
 }
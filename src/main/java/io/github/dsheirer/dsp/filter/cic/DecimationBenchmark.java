@@ -0,0 +1,315 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.dsp.filter.cic;
+
+import io.github.dsheirer.dsp.filter.design.FilterDesignException;
+import io.github.dsheirer.dsp.filter.fir.complex.ComplexFIRFilter2;
+import io.github.dsheirer.dsp.mixer.NumericallyControlledOscillator;
+import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
+import io.github.dsheirer.sample.buffer.ReusableComplexBufferQueue;
+import io.github.dsheirer.source.tuner.manager.SharedDecimationEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks heterodyne channel decimation CPU cost per channel versus channel count for:
+ *
+ * - Legacy: per-channel oscillator mixing followed by the per-sample prime-factor CIC decimation chain
+ * - Fused: per-channel fused mixer and CIC decimation at the full tuner sample rate
+ * - Shared: shared fused decimation stages for clusters of nearby channels, followed by per-channel fused mixing and
+ *   decimation at the reduced stage sample rate
+ *
+ * Each approach includes the channel rate cleanup filter.  Channels are spaced 12.5 kHz apart.  CPU cost is reported
+ * as the percentage of one CPU core required per channel to process the sample stream in real time.
+ */
+public class DecimationBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(DecimationBenchmark.class);
+
+    private static final double SAMPLE_RATE = 2_400_000.0;
+    private static final int DECIMATION = 96;
+    private static final double PASS_FREQUENCY = 6_250.0;
+    private static final double STOP_FREQUENCY = 7_250.0;
+    private static final int CHANNEL_BANDWIDTH = 12_500;
+    private static final double CHANNEL_SPACING = 12_500.0;
+    private static final int BUFFER_SAMPLES = 65536;
+    private static final int BUFFER_COUNT = 100;
+    private static final int[] CHANNEL_COUNTS = {1, 2, 4, 8, 16};
+
+    private interface Approach
+    {
+        void process(ReusableComplexBuffer buffer);
+    }
+
+    private static double[] getChannelOffsets(int channelCount)
+    {
+        double[] offsets = new double[channelCount];
+
+        for(int x = 0; x < channelCount; x++)
+        {
+            offsets[x] = 100_000.0 + (x * CHANNEL_SPACING);
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Legacy per-channel mixer and prime-factor CIC decimation chain
+     */
+    private static Approach legacy(double[] offsets) throws FilterDesignException
+    {
+        List<NumericallyControlledOscillator> mixers = new ArrayList<>();
+        List<ComplexPrimeCICDecimate> decimators = new ArrayList<>();
+        ReusableComplexBufferQueue queue = new ReusableComplexBufferQueue("DecimationBenchmark");
+
+        for(double offset: offsets)
+        {
+            mixers.add(new NumericallyControlledOscillator(-offset, SAMPLE_RATE));
+            ComplexPrimeCICDecimate decimator = new ComplexPrimeCICDecimate(SAMPLE_RATE, DECIMATION, PASS_FREQUENCY,
+                STOP_FREQUENCY);
+            decimator.setListener(ReusableComplexBuffer::decrementUserCount);
+            decimators.add(decimator);
+        }
+
+        return buffer -> {
+            for(int x = 0; x < mixers.size(); x++)
+            {
+                ReusableComplexBuffer translated = queue.getBuffer(buffer.getSamples().length);
+                mixers.get(x).mixComplex(buffer.getSamples(), translated.getSamples());
+                decimators.get(x).receive(translated);
+            }
+        };
+    }
+
+    /**
+     * Per-channel fused mixer and CIC decimation at the full sample rate
+     */
+    private static Approach fused(double[] offsets, List<ReusableComplexBuffer> outputs) throws FilterDesignException
+    {
+        List<FusedMixerCICDecimator> decimators = new ArrayList<>();
+        List<ComplexFIRFilter2> filters = new ArrayList<>();
+
+        for(double offset: offsets)
+        {
+            decimators.add(new FusedMixerCICDecimator(SAMPLE_RATE, DECIMATION, -offset, "DecimationBenchmark"));
+            filters.add(new ComplexFIRFilter2(ComplexPrimeCICDecimate.getLowPassFilter(SAMPLE_RATE / DECIMATION,
+                PASS_FREQUENCY, STOP_FREQUENCY), 1.0f));
+        }
+
+        return buffer -> {
+            for(int x = 0; x < decimators.size(); x++)
+            {
+                output(filters.get(x).filter(decimators.get(x).decimate(buffer)), x, outputs);
+            }
+        };
+    }
+
+    /**
+     * Shared decimation stages for nearby channels, followed by per-channel fused decimation at the stage rate.
+     * Channels are clustered using the same stage sizing rules as the shared decimation engine.
+     */
+    private static Approach shared(double[] offsets, List<ReusableComplexBuffer> outputs) throws FilterDesignException
+    {
+        int stageDecimation = SharedDecimationEngine.getStageDecimation(SAMPLE_RATE, DECIMATION, CHANNEL_BANDWIDTH);
+        double stageRate = SAMPLE_RATE / stageDecimation;
+        double halfSpan = stageRate / 16.0;
+
+        List<FusedMixerCICDecimator> stages = new ArrayList<>();
+        List<Double> stageCenters = new ArrayList<>();
+        List<List<Integer>> stageChannels = new ArrayList<>();
+        List<FusedMixerCICDecimator> decimators = new ArrayList<>();
+        List<ComplexFIRFilter2> filters = new ArrayList<>();
+
+        for(int x = 0; x < offsets.length; x++)
+        {
+            int stageIndex = -1;
+
+            for(int y = 0; y < stageCenters.size(); y++)
+            {
+                if(Math.abs(offsets[x] - stageCenters.get(y)) + (CHANNEL_BANDWIDTH / 2.0) <= halfSpan)
+                {
+                    stageIndex = y;
+                    break;
+                }
+            }
+
+            if(stageIndex < 0)
+            {
+                stageIndex = stages.size();
+                stages.add(new FusedMixerCICDecimator(SAMPLE_RATE, stageDecimation, -offsets[x],
+                    "DecimationBenchmark"));
+                stageCenters.add(offsets[x]);
+                stageChannels.add(new ArrayList<>());
+            }
+
+            stageChannels.get(stageIndex).add(x);
+            decimators.add(new FusedMixerCICDecimator(stageRate, DECIMATION / stageDecimation,
+                stageCenters.get(stageIndex) - offsets[x], "DecimationBenchmark"));
+            filters.add(new ComplexFIRFilter2(ComplexPrimeCICDecimate.getLowPassFilter(SAMPLE_RATE / DECIMATION,
+                PASS_FREQUENCY, STOP_FREQUENCY), 1.0f));
+        }
+
+        return buffer -> {
+            for(int x = 0; x < stages.size(); x++)
+            {
+                ReusableComplexBuffer stageBuffer = stages.get(x).decimate(buffer);
+
+                for(int channel: stageChannels.get(x))
+                {
+                    output(filters.get(channel).filter(decimators.get(channel).decimate(stageBuffer)), channel,
+                        outputs);
+                }
+
+                stageBuffer.decrementUserCount();
+            }
+        };
+    }
+
+    /**
+     * Retains the most recent output buffer for each channel for comparison, or releases the buffer
+     */
+    private static void output(ReusableComplexBuffer buffer, int channel, List<ReusableComplexBuffer> outputs)
+    {
+        if(outputs != null && channel < outputs.size())
+        {
+            if(outputs.get(channel) != null)
+            {
+                outputs.get(channel).decrementUserCount();
+            }
+
+            outputs.set(channel, buffer);
+        }
+        else
+        {
+            buffer.decrementUserCount();
+        }
+    }
+
+    /**
+     * Processes the test buffers through the approach
+     * @return CPU percentage of one core per channel to process in real time
+     */
+    private static double run(Approach approach, List<ReusableComplexBuffer> buffers, int channelCount)
+    {
+        long start = System.nanoTime();
+
+        for(ReusableComplexBuffer buffer: buffers)
+        {
+            buffer.incrementUserCount();
+            approach.process(buffer);
+            buffer.decrementUserCount();
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1E9;
+        double signalDuration = (double)buffers.size() * BUFFER_SAMPLES / SAMPLE_RATE;
+
+        return elapsed / signalDuration * 100.0 / channelCount;
+    }
+
+    /**
+     * Mean power of the complex samples in the buffer
+     */
+    private static double power(ReusableComplexBuffer buffer)
+    {
+        float[] samples = buffer.getSamples();
+        double power = 0.0;
+
+        for(float sample: samples)
+        {
+            power += sample * sample;
+        }
+
+        return power / Math.max(1, buffer.getSampleCount());
+    }
+
+    public static void main(String[] args) throws FilterDesignException
+    {
+        DecimalFormat format = new DecimalFormat("0.000");
+        Random random = new Random(1);
+        ReusableComplexBufferQueue queue = new ReusableComplexBufferQueue("DecimationBenchmark");
+        List<ReusableComplexBuffer> buffers = new ArrayList<>();
+
+        //Noise plus a tone centered in the third channel
+        NumericallyControlledOscillator tone = new NumericallyControlledOscillator(100_000.0 + 2 * CHANNEL_SPACING,
+            SAMPLE_RATE);
+
+        for(int x = 0; x < BUFFER_COUNT; x++)
+        {
+            ReusableComplexBuffer buffer = queue.getBuffer(BUFFER_SAMPLES * 2);
+            float[] samples = buffer.getSamples();
+
+            for(int y = 0; y < samples.length; y += 2)
+            {
+                samples[y] = tone.inphase() * 0.5f + (random.nextFloat() - 0.5f) * 0.01f;
+                samples[y + 1] = tone.quadrature() * 0.5f + (random.nextFloat() - 0.5f) * 0.01f;
+                tone.rotate();
+            }
+
+            buffers.add(buffer);
+        }
+
+        mLog.info("Stage decimation: " +
+            SharedDecimationEngine.getStageDecimation(SAMPLE_RATE, DECIMATION, CHANNEL_BANDWIDTH));
+
+        //Compare the tone channel output power for the fused and shared approaches
+        List<ReusableComplexBuffer> fusedOutputs = new ArrayList<>();
+        List<ReusableComplexBuffer> sharedOutputs = new ArrayList<>();
+
+        for(int x = 0; x < 4; x++)
+        {
+            fusedOutputs.add(null);
+            sharedOutputs.add(null);
+        }
+
+        run(fused(getChannelOffsets(4), fusedOutputs), buffers, 4);
+        run(shared(getChannelOffsets(4), sharedOutputs), buffers, 4);
+
+        for(int x = 0; x < 4; x++)
+        {
+            mLog.info("Channel " + x + " output power - fused: " + format.format(power(fusedOutputs.get(x))) +
+                " shared: " + format.format(power(sharedOutputs.get(x))));
+        }
+
+        //Warm up
+        for(int x = 0; x < 3; x++)
+        {
+            run(legacy(getChannelOffsets(4)), buffers, 4);
+            run(fused(getChannelOffsets(4), null), buffers, 4);
+            run(shared(getChannelOffsets(4), null), buffers, 4);
+        }
+
+        for(int channelCount: CHANNEL_COUNTS)
+        {
+            double[] offsets = getChannelOffsets(channelCount);
+
+            mLog.info("Channels: " + channelCount +
+                " CPU%/channel - legacy: " + format.format(run(legacy(offsets), buffers, channelCount)) +
+                " fused: " + format.format(run(fused(offsets, null), buffers, channelCount)) +
+                " shared: " + format.format(run(shared(offsets, null), buffers, channelCount)));
+        }
+    }
+}
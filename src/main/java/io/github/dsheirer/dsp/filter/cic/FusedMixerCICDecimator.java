@@ -0,0 +1,206 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.dsp.filter.cic;
+
+import io.github.dsheirer.dsp.mixer.NumericallyControlledOscillator;
+import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
+import io.github.dsheirer.sample.buffer.ReusableComplexBufferQueue;
+
+/**
+ * Fused frequency translation and CIC decimation kernel.
+ *
+ * The prime-factor CIC filter (ComplexPrimeCICDecimate) cascades first-order moving average stages where each stage
+ * decimates by its own length.  A cascade of decimate-by-length moving sums is equivalent to a single integrate-and-dump
+ * over the overall decimation length, so this kernel mixes each sample with a table-driven NCO and accumulates it in a
+ * single pass over the sample buffer, emitting one output sample per decimation interval with unity DC gain, the same
+ * as the prime-factor stages.
+ *
+ * Accumulator and oscillator phase state is carried across buffers, so the output buffer for each input buffer
+ * contains however many decimation intervals completed in that buffer.
+ */
+public class FusedMixerCICDecimator
+{
+    private NumericallyControlledOscillator mMixer;
+    private ReusableComplexBufferQueue mReusableComplexBufferQueue;
+    private double mSampleRate;
+    private int mDecimation;
+    private float mGain;
+    private float mAccumulatorInphase;
+    private float mAccumulatorQuadrature;
+    private int mAccumulatorCount;
+
+    /**
+     * Constructs an instance
+     *
+     * @param sampleRate of the incoming sample stream
+     * @param decimation rate
+     * @param mixerFrequency of the frequency translation oscillator in hertz, or zero for no frequency translation
+     * @param debugName for the output buffer queue
+     */
+    public FusedMixerCICDecimator(double sampleRate, int decimation, double mixerFrequency, String debugName)
+    {
+        if(decimation < 1)
+        {
+            throw new IllegalArgumentException("Decimation must be a positive integer");
+        }
+
+        mSampleRate = sampleRate;
+        mDecimation = decimation;
+        mGain = 1.0f / decimation;
+        mMixer = new NumericallyControlledOscillator(mixerFrequency, sampleRate);
+        mReusableComplexBufferQueue = new ReusableComplexBufferQueue(debugName);
+    }
+
+    /**
+     * Decimation rate
+     */
+    public int getDecimation()
+    {
+        return mDecimation;
+    }
+
+    /**
+     * Output sample rate
+     */
+    public double getOutputSampleRate()
+    {
+        return mSampleRate / mDecimation;
+    }
+
+    /**
+     * Sets the frequency translation oscillator frequency.  Phase is continuous across frequency changes.
+     *
+     * @param frequency in hertz
+     */
+    public void setMixerFrequency(double frequency)
+    {
+        mMixer.setFrequency(frequency);
+    }
+
+    /**
+     * Clears the partially integrated output sample
+     */
+    public void reset()
+    {
+        mAccumulatorInphase = 0.0f;
+        mAccumulatorQuadrature = 0.0f;
+        mAccumulatorCount = 0;
+    }
+
+    /**
+     * Frequency translates and decimates the buffer.  The input buffer user count is not modified.
+     *
+     * @param buffer to decimate
+     * @return decimated buffer with the timestamp of the input buffer.  The buffer may be empty if no decimation
+     * interval completed within the input buffer.
+     */
+    public ReusableComplexBuffer decimate(ReusableComplexBuffer buffer)
+    {
+        float[] samples = buffer.getSamples();
+        int outputCount = (mAccumulatorCount + (samples.length / 2)) / mDecimation;
+
+        ReusableComplexBuffer decimatedBuffer = mReusableComplexBufferQueue.getBuffer(outputCount * 2);
+        decimatedBuffer.setTimestamp(buffer.getTimestamp());
+
+        decimate(samples, decimatedBuffer.getSamples());
+
+        return decimatedBuffer;
+    }
+
+    /**
+     * Frequency translates and decimates the complex samples into the decimated array.
+     *
+     * @param samples to decimate, arranged as i0,q0,i1,q1 ...
+     * @param decimated array to receive the output samples, sized for at least
+     * (partial count + input sample count) / decimation complex samples
+     * @return number of complex output samples
+     */
+    public int decimate(float[] samples, float[] decimated)
+    {
+        float accumulatorInphase = mAccumulatorInphase;
+        float accumulatorQuadrature = mAccumulatorQuadrature;
+        int count = mAccumulatorCount;
+        int decimation = mDecimation;
+        float gain = mGain;
+        int outputPointer = 0;
+
+        if(mMixer.isEnabled())
+        {
+            int phase = mMixer.getPhase();
+            int increment = mMixer.getPhaseIncrement();
+            float inphase, quadrature, i, q;
+
+            for(int x = 0; x < samples.length; x += 2)
+            {
+                inphase = NumericallyControlledOscillator.cosine(phase);
+                quadrature = NumericallyControlledOscillator.sine(phase);
+                phase += increment;
+                i = samples[x];
+                q = samples[x + 1];
+                accumulatorInphase += (i * inphase) - (q * quadrature);
+                accumulatorQuadrature += (q * inphase) + (i * quadrature);
+
+                if(++count == decimation)
+                {
+                    decimated[outputPointer++] = accumulatorInphase * gain;
+                    decimated[outputPointer++] = accumulatorQuadrature * gain;
+                    accumulatorInphase = 0.0f;
+                    accumulatorQuadrature = 0.0f;
+                    count = 0;
+                }
+            }
+
+            mMixer.setPhase(phase);
+        }
+        else
+        {
+            for(int x = 0; x < samples.length; x += 2)
+            {
+                accumulatorInphase += samples[x];
+                accumulatorQuadrature += samples[x + 1];
+
+                if(++count == decimation)
+                {
+                    decimated[outputPointer++] = accumulatorInphase * gain;
+                    decimated[outputPointer++] = accumulatorQuadrature * gain;
+                    accumulatorInphase = 0.0f;
+                    accumulatorQuadrature = 0.0f;
+                    count = 0;
+                }
+            }
+        }
+
+        mAccumulatorInphase = accumulatorInphase;
+        mAccumulatorQuadrature = accumulatorQuadrature;
+        mAccumulatorCount = count;
+
+        return outputPointer / 2;
+    }
+
+    /**
+     * Releases buffer queue resources
+     */
+    public void dispose()
+    {
+        mReusableComplexBufferQueue.dispose();
+    }
+}
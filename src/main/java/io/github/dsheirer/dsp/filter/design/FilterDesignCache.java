@@ -0,0 +1,435 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+
+package io.github.dsheirer.dsp.filter.design;
+
+import io.github.dsheirer.util.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of designed filter coefficients (taps), keyed by the full filter specification.
+ *
+ * Filter designs (Remez exchange, iterative windowed-sinc channelizer designs, etc.) are deterministic for a given
+ * specification, but can be expensive to compute and are otherwise repeated on every channel start and sample rate
+ * change.  This cache designs each unique specification exactly once, even when multiple threads request the same
+ * design concurrently, and hands each caller a private copy of the taps so that the cached coefficients can never
+ * be modified.
+ *
+ * When a cache file is loaded, newly designed filters are periodically saved back to the file so that designs
+ * survive application restarts.  Increment CACHE_VERSION whenever a change to a design algorithm would produce
+ * different taps for the same specification, so that stale designs are discarded.
+ */
+public class FilterDesignCache
+{
+    private final static Logger mLog = LoggerFactory.getLogger(FilterDesignCache.class);
+    private static final int CACHE_MAGIC = 0x46444331; //FDC1
+    private static final int CACHE_VERSION = 1;
+    private static final long SAVE_DELAY_SECONDS = 5;
+    private static final DecimalFormat PERCENT_FORMAT = new DecimalFormat("0.0");
+    private static final DecimalFormat MILLIS_FORMAT = new DecimalFormat("0.0");
+    private static FilterDesignCache sInstance;
+
+    private Map<String,FutureTask<Design>> mDesigns = new ConcurrentHashMap<>();
+    private AtomicBoolean mSaveScheduled = new AtomicBoolean();
+    private AtomicLong mHitCount = new AtomicLong();
+    private AtomicLong mMissCount = new AtomicLong();
+    private AtomicLong mDesignNanos = new AtomicLong();
+    private AtomicLong mSavedNanos = new AtomicLong();
+    private Path mCachePath;
+    private int mLoadedCount;
+
+    /**
+     * Singleton constructor.  Use getInstance().
+     */
+    private FilterDesignCache()
+    {
+    }
+
+    /**
+     * Process-wide filter design cache
+     */
+    public static synchronized FilterDesignCache getInstance()
+    {
+        if(sInstance == null)
+        {
+            sInstance = new FilterDesignCache();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Returns a copy of the filter taps for the specification identified by the key, designing the filter with the
+     * designer when the specification has not previously been designed.  Concurrent requests for the same key wait
+     * for a single design.
+     *
+     * Designs that produce null (ie invalid specification) or that throw an exception are not cached.
+     *
+     * @param key that uniquely identifies the design method and every parameter that affects the resulting taps
+     * @param designer to design the filter on a cache miss
+     * @return copy of the filter taps, or null if the designer could not produce a filter
+     * @throws FilterDesignException if the designer throws an exception
+     */
+    public float[] getTaps(String key, FilterDesigner designer) throws FilterDesignException
+    {
+        FutureTask<Design> task = mDesigns.get(key);
+
+        if(task != null)
+        {
+            Design design = getDesign(key, task);
+
+            if(design != null)
+            {
+                mHitCount.incrementAndGet();
+                mSavedNanos.addAndGet(design.getDesignNanos());
+                return design.getTaps();
+            }
+
+            return null;
+        }
+
+        FutureTask<Design> designTask = new FutureTask<>(() -> {
+            long start = System.nanoTime();
+            float[] taps = designer.design();
+            long elapsed = System.nanoTime() - start;
+            return taps != null ? new Design(taps, elapsed) : null;
+        });
+
+        task = mDesigns.putIfAbsent(key, designTask);
+
+        //Another thread is already designing this filter - wait for it.  This counts as a hit, but doesn't count
+        //toward time saved since this thread waited for the design.
+        if(task != null)
+        {
+            Design design = getDesign(key, task);
+
+            if(design != null)
+            {
+                mHitCount.incrementAndGet();
+                return design.getTaps();
+            }
+
+            return null;
+        }
+
+        designTask.run();
+
+        Design design = getDesign(key, designTask);
+
+        if(design == null)
+        {
+            return null;
+        }
+
+        mMissCount.incrementAndGet();
+        mDesignNanos.addAndGet(design.getDesignNanos());
+        scheduleSave();
+        return design.getTaps();
+    }
+
+    /**
+     * Waits for the design task to complete and returns the design.  Failed and null designs are removed from the
+     * cache so that they don't get persisted and can be retried.
+     */
+    private Design getDesign(String key, FutureTask<Design> task) throws FilterDesignException
+    {
+        try
+        {
+            Design design = task.get();
+
+            if(design == null)
+            {
+                mDesigns.remove(key, task);
+            }
+
+            return design;
+        }
+        catch(ExecutionException ee)
+        {
+            mDesigns.remove(key, task);
+
+            if(ee.getCause() instanceof FilterDesignException)
+            {
+                throw (FilterDesignException)ee.getCause();
+            }
+
+            throw new FilterDesignException("Error designing filter [" + key + "]", ee.getCause());
+        }
+        catch(InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new FilterDesignException("Interrupted while waiting for filter design [" + key + "]");
+        }
+    }
+
+    /**
+     * Loads previously designed filters from the cache file and enables saving newly designed filters to the same
+     * file.  A missing, corrupt or out of date cache file is ignored and will be replaced on the next save.
+     *
+     * @param cachePath for the cache file
+     */
+    public void load(Path cachePath)
+    {
+        mCachePath = cachePath;
+
+        if(!Files.exists(cachePath))
+        {
+            return;
+        }
+
+        int count = 0;
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cachePath))))
+        {
+            if(in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION)
+            {
+                mLog.info("Ignoring out of date filter design cache [" + cachePath + "]");
+                return;
+            }
+
+            int entries = in.readInt();
+
+            for(int x = 0; x < entries; x++)
+            {
+                String key = in.readUTF();
+                long designNanos = in.readLong();
+                float[] taps = new float[in.readInt()];
+
+                for(int y = 0; y < taps.length; y++)
+                {
+                    taps[y] = in.readFloat();
+                }
+
+                FutureTask<Design> task = new FutureTask<>(() -> {}, new Design(taps, designNanos));
+                task.run();
+
+                if(mDesigns.putIfAbsent(key, task) == null)
+                {
+                    count++;
+                }
+            }
+        }
+        catch(IOException | RuntimeException e)
+        {
+            mLog.warn("Error reading filter design cache [" + cachePath + "] - designs will be recalculated - " +
+                e.getMessage());
+        }
+
+        mLoadedCount = count;
+        mLog.info("Loaded [" + count + "] filter designs from cache [" + cachePath + "]");
+    }
+
+    /**
+     * Schedules a deferred save of the cache so that a burst of new designs (ie tuner sample rate change) is
+     * written to disk once.
+     */
+    private void scheduleSave()
+    {
+        if(mCachePath != null && mSaveScheduled.compareAndSet(false, true))
+        {
+            ThreadPool.SCHEDULED.schedule(() -> {
+                mSaveScheduled.set(false);
+                save();
+            }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Saves the completed filter designs to the cache file, if a cache file was loaded.  The file is written to a
+     * temporary file and then moved into place so that an interrupted save doesn't corrupt the cache.
+     */
+    public synchronized void save()
+    {
+        if(mCachePath == null)
+        {
+            return;
+        }
+
+        List<Map.Entry<String,Design>> designs = new ArrayList<>();
+
+        for(Map.Entry<String,FutureTask<Design>> entry : mDesigns.entrySet())
+        {
+            FutureTask<Design> task = entry.getValue();
+
+            if(task.isDone())
+            {
+                try
+                {
+                    Design design = task.get();
+
+                    if(design != null)
+                    {
+                        designs.add(Map.entry(entry.getKey(), design));
+                    }
+                }
+                catch(Exception e)
+                {
+                    //Failed designs are not persisted
+                }
+            }
+        }
+
+        Path temp = mCachePath.resolveSibling(mCachePath.getFileName().toString() + ".tmp");
+
+        try
+        {
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))
+            {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(designs.size());
+
+                for(Map.Entry<String,Design> entry : designs)
+                {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().getDesignNanos());
+                    float[] taps = entry.getValue().mTaps;
+                    out.writeInt(taps.length);
+
+                    for(float tap : taps)
+                    {
+                        out.writeFloat(tap);
+                    }
+                }
+            }
+
+            Files.move(temp, mCachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error saving filter design cache [" + mCachePath + "]", ioe);
+        }
+    }
+
+    /**
+     * Number of requests satisfied by a previously designed filter
+     */
+    public long getHitCount()
+    {
+        return mHitCount.get();
+    }
+
+    /**
+     * Number of requests that required a new filter design
+     */
+    public long getMissCount()
+    {
+        return mMissCount.get();
+    }
+
+    /**
+     * Accumulated design time avoided by cache hits, in nanoseconds.  For designs loaded from the cache file, this
+     * is the design time measured when the filter was originally designed.
+     */
+    public long getSavedNanos()
+    {
+        return mSavedNanos.get();
+    }
+
+    /**
+     * Formats a summary of the hit, miss and time saved deltas between two sets of counter values.
+     */
+    public static String format(long hits, long misses, long savedNanos)
+    {
+        long total = hits + misses;
+        double hitRate = total > 0 ? (100.0 * hits / total) : 0.0;
+
+        return "hits [" + hits + "] misses [" + misses + "] hit rate [" + PERCENT_FORMAT.format(hitRate) +
+            "%] design time saved [" + MILLIS_FORMAT.format(savedNanos / 1E6) + " ms]";
+    }
+
+    /**
+     * Summary statistics for the cache
+     */
+    public String getStatistics()
+    {
+        return "Filter Design Cache - designs [" + mDesigns.size() + "] loaded [" + mLoadedCount + "] " +
+            format(getHitCount(), getMissCount(), getSavedNanos()) + " design time spent [" +
+            MILLIS_FORMAT.format(mDesignNanos.get() / 1E6) + " ms]";
+    }
+
+    /**
+     * Logs the summary statistics
+     */
+    public void logStatistics()
+    {
+        mLog.info(getStatistics());
+    }
+
+    /**
+     * Designs a filter on a cache miss
+     */
+    public interface FilterDesigner
+    {
+        /**
+         * Designs the filter
+         * @return filter taps or null if the filter cannot be designed
+         * @throws FilterDesignException if the filter cannot be designed
+         */
+        float[] design() throws FilterDesignException;
+    }
+
+    /**
+     * Immutable filter design.  Taps are only handed out as copies.
+     */
+    private static class Design
+    {
+        private final float[] mTaps;
+        private final long mDesignNanos;
+
+        public Design(float[] taps, long designNanos)
+        {
+            mTaps = taps.clone();
+            mDesignNanos = designNanos;
+        }
+
+        public float[] getTaps()
+        {
+            return mTaps.clone();
+        }
+
+        public long getDesignNanos()
+        {
+            return mDesignNanos;
+        }
+    }
+}
@@ -60,6 +60,31 @@ public class FIRFilterSpecification
         return sb.toString();
     }
 
+    /**
+     * Canonical key that uniquely identifies the filter produced from this specification, used to look up
+     * previously designed filters in the filter design cache.  Double values are rendered in full precision so
+     * that specifications that differ only slightly produce different keys.
+     */
+    public String getDesignKey()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mRemezFilterType.name());
+        sb.append(",").append(mOrder);
+        sb.append(",").append(mGridDensity);
+
+        for(FrequencyBand band : mFrequencyBands)
+        {
+            sb.append(",[").append(band.getStart());
+            sb.append(",").append(band.getEnd());
+            sb.append(",").append(band.getAmplitude());
+            sb.append(",").append(band.getRippleDB());
+            sb.append(",").append(band.mWeight != null ? band.mWeight.toString() : "-");
+            sb.append("]");
+        }
+
+        return sb.toString();
+    }
+
     public void addFrequencyBand(FrequencyBand band)
     {
         mFrequencyBands.add(band);
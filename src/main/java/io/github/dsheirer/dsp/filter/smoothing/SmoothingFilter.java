@@ -62,6 +62,18 @@ public abstract class SmoothingFilter
 	}
 	
 	public float[] filter( float[] data )
+	{
+		return filter( data, new float[ data.length ] );
+	}
+
+	/**
+	 * Filters the data into the output array, avoiding per-call allocation.
+	 *
+	 * @param data to filter
+	 * @param output array, same length as data and not the same array as data
+	 * @return output array containing the filtered data
+	 */
+	public float[] filter( float[] data, float[] output )
 	{
 		if( mNewCoefficientsAvailable )
 		{
@@ -71,7 +83,7 @@ public abstract class SmoothingFilter
 
 		int middle = mCoefficients.length / 2;
 		
-		float[] filtered = new float[ data.length ];
+		float[] filtered = output;
 
 		int toCopy = middle;
 		
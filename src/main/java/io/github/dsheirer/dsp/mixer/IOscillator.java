@@ -112,4 +112,12 @@ public interface IOscillator
      * @return mixed/heterdyned samples
      */
     float[] mixComplex(float[] complexSamples);
+
+    /**
+     * Mixes (heterodynes) the complex sample array into the translated sample array as one block using the current
+     * settings of this oscillator, leaving the oscillator rotated one sample beyond the last mixed sample.
+     * @param complexSamples to mix to a new frequency
+     * @param translatedSamples to receive the mixed samples.  May be the same array as complexSamples.
+     */
+    void mixComplex(float[] complexSamples, float[] translatedSamples);
 }
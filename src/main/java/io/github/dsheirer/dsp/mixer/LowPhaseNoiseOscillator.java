@@ -87,6 +87,43 @@ public class LowPhaseNoiseOscillator extends AbstractOscillator
         mGain = THREE_HALVES - ((mPreviousInphase * mPreviousInphase) + (mPreviousQuadrature * mPreviousQuadrature));
     }
 
+    /**
+     * Mixes (heterodynes) the complex samples into the translated array as one block, with the recurrent rotation
+     * state held in local variables for the duration of the block.
+     */
+    @Override
+    public void mixComplex(float[] samples, float[] translated)
+    {
+        double inphase = mInphase;
+        double quadrature = mQuadrature;
+        double cosine = mCosineAngle;
+        double sine = mSineAngle;
+        double gain = mGain;
+        double rotatedInphase;
+        float i, q, oi, oq;
+
+        for(int x = 0; x < samples.length; x += 2)
+        {
+            i = samples[x];
+            q = samples[x + 1];
+            oi = (float)inphase;
+            oq = (float)quadrature;
+            translated[x] = (i * oi) - (q * oq);
+            translated[x + 1] = (q * oi) + (i * oq);
+
+            rotatedInphase = ((inphase * cosine) - (quadrature * sine)) * gain;
+            quadrature = ((inphase * sine) + (quadrature * cosine)) * gain;
+            inphase = rotatedInphase;
+            gain = THREE_HALVES - ((inphase * inphase) + (quadrature * quadrature));
+        }
+
+        mInphase = inphase;
+        mQuadrature = quadrature;
+        mPreviousInphase = inphase;
+        mPreviousQuadrature = quadrature;
+        mGain = gain;
+    }
+
     public static long process(AbstractOscillator oscillator, int iterations, int sampleCount)
     {
         long start = System.nanoTime();
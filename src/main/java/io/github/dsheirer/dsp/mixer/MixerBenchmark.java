@@ -0,0 +1,178 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.dsp.mixer;
+
+import io.github.dsheirer.sample.complex.Complex;
+import org.jtransforms.fft.DoubleFFT_1D;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+import java.util.Random;
+
+/**
+ * Benchmarks frequency translation (mixing) throughput and spurious-free dynamic range (SFDR) of the low phase noise
+ * oscillator and the table-driven numerically controlled oscillator.
+ *
+ * Throughput compares the per-sample rotate()/inphase()/quadrature() mixing pattern used by the tuner channel sources
+ * against the block mixComplex() API.  SFDR is measured from the spectrum of a generated bin-centered tone as the
+ * ratio of the tone power to the strongest spur.
+ */
+public class MixerBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(MixerBenchmark.class);
+
+    private static final double SAMPLE_RATE = 2_500_000.0;
+    private static final int BLOCK_SAMPLES = 8192;
+    private static final int ITERATIONS = 5000;
+    private static final int SFDR_FFT_SIZE = 65536;
+
+    /**
+     * Mixes the samples one sample at a time via the oscillator interface methods
+     */
+    private static void mixPerSample(IOscillator oscillator, float[] samples, float[] translated)
+    {
+        for(int x = 0; x < samples.length; x += 2)
+        {
+            oscillator.rotate();
+
+            translated[x] = Complex.multiplyInphase(samples[x], samples[x + 1],
+                oscillator.inphase(), oscillator.quadrature());
+
+            translated[x + 1] = Complex.multiplyQuadrature(samples[x], samples[x + 1],
+                oscillator.inphase(), oscillator.quadrature());
+        }
+    }
+
+    /**
+     * Measures mixing throughput
+     * @return samples per second
+     */
+    private static double throughput(IOscillator oscillator, boolean block, float[] samples, float[] translated)
+    {
+        long start = System.nanoTime();
+
+        for(int x = 0; x < ITERATIONS; x++)
+        {
+            if(block)
+            {
+                oscillator.mixComplex(samples, translated);
+            }
+            else
+            {
+                mixPerSample(oscillator, samples, translated);
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        return (double)ITERATIONS * BLOCK_SAMPLES / (elapsed / 1E9);
+    }
+
+    /**
+     * Measures spurious-free dynamic range of a bin-centered tone generated by the oscillator
+     * @return SFDR in dB
+     */
+    private static double sfdr(IOscillator oscillator)
+    {
+        float[] tone = oscillator.generateComplex(SFDR_FFT_SIZE);
+        double[] spectrum = new double[SFDR_FFT_SIZE * 2];
+
+        for(int x = 0; x < tone.length; x++)
+        {
+            spectrum[x] = tone[x];
+        }
+
+        new DoubleFFT_1D(SFDR_FFT_SIZE).complexForward(spectrum);
+
+        double peak = 0.0;
+        double spur = 0.0;
+        int peakBin = 0;
+
+        for(int x = 0; x < SFDR_FFT_SIZE; x++)
+        {
+            double power = (spectrum[2 * x] * spectrum[2 * x]) + (spectrum[2 * x + 1] * spectrum[2 * x + 1]);
+
+            if(power > peak)
+            {
+                peak = power;
+                peakBin = x;
+            }
+        }
+
+        for(int x = 0; x < SFDR_FFT_SIZE; x++)
+        {
+            if(x != peakBin)
+            {
+                double power = (spectrum[2 * x] * spectrum[2 * x]) + (spectrum[2 * x + 1] * spectrum[2 * x + 1]);
+                spur = Math.max(spur, power);
+            }
+        }
+
+        return 10.0 * Math.log10(peak / Math.max(spur, Double.MIN_VALUE));
+    }
+
+    public static void main(String[] args)
+    {
+        DecimalFormat rateFormat = new DecimalFormat("0.0");
+        DecimalFormat dbFormat = new DecimalFormat("0.0");
+
+        //Bin-centered tone so that the SFDR measurement has no window leakage
+        double frequency = SAMPLE_RATE * 4099 / SFDR_FFT_SIZE;
+
+        Random random = new Random(1);
+        float[] samples = new float[BLOCK_SAMPLES * 2];
+        float[] translated = new float[BLOCK_SAMPLES * 2];
+
+        for(int x = 0; x < samples.length; x++)
+        {
+            samples[x] = random.nextFloat() * 2.0f - 1.0f;
+        }
+
+        String[] labels = {"Low Phase Noise - per sample", "Low Phase Noise - block     ", "NCO Table       - per sample",
+            "NCO Table       - block     "};
+        IOscillator[] oscillators = {new LowPhaseNoiseOscillator(frequency, SAMPLE_RATE),
+            new LowPhaseNoiseOscillator(frequency, SAMPLE_RATE), new NumericallyControlledOscillator(frequency, SAMPLE_RATE),
+            new NumericallyControlledOscillator(frequency, SAMPLE_RATE)};
+        boolean[] block = {false, true, false, true};
+
+        mLog.info("Warm up ...");
+
+        for(int x = 0; x < oscillators.length; x++)
+        {
+            throughput(oscillators[x], block[x], samples, translated);
+            throughput(oscillators[x], block[x], samples, translated);
+        }
+
+        for(int x = 0; x < oscillators.length; x++)
+        {
+            double rate = throughput(oscillators[x], block[x], samples, translated);
+            mLog.info(labels[x] + " Throughput: " + rateFormat.format(rate / 1E6) + " MSamples/s");
+        }
+
+        mLog.info("Low Phase Noise SFDR: " +
+            dbFormat.format(sfdr(new LowPhaseNoiseOscillator(frequency, SAMPLE_RATE))) + " dB");
+        mLog.info("NCO Table       SFDR: " +
+            dbFormat.format(sfdr(new NumericallyControlledOscillator(frequency, SAMPLE_RATE))) + " dB");
+        mLog.info("Oscillator      SFDR: " + dbFormat.format(sfdr(new Oscillator(frequency, SAMPLE_RATE))) + " dB");
+    }
+}
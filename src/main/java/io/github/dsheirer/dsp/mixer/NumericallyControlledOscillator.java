@@ -0,0 +1,190 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.dsp.mixer;
+
+/**
+ * Table-driven numerically controlled oscillator (NCO).
+ *
+ * Uses a 32-bit phase accumulator that wraps naturally at one full cycle, so the phase never accumulates rounding
+ * error or requires gain renormalization.  Sine and cosine values are looked up from a shared quarter-wave sine table
+ * using quadrant symmetry, with linear interpolation across the fractional phase bits between table entries.
+ *
+ * Frequency resolution is sample rate / 2^32 (e.g. 0.0002 Hz at 1 MHz).  Linear interpolation with a 4096 entry
+ * quarter-wave table provides a spurious-free dynamic range that exceeds the precision of the float sample values.
+ *
+ * The mixComplex() block method translates an entire buffer in one call with all oscillator state held in local
+ * variables for the duration of the block.
+ */
+public class NumericallyControlledOscillator extends AbstractOscillator
+{
+    private static final int QUARTER_WAVE_BITS = 12;
+    private static final int QUARTER_WAVE_SIZE = 1 << QUARTER_WAVE_BITS;
+    private static final int FRACTION_BITS = 30 - QUARTER_WAVE_BITS;
+    private static final int FRACTION_MASK = (1 << FRACTION_BITS) - 1;
+    private static final int QUARTER_PHASE_MASK = (1 << 30) - 1;
+    private static final int QUARTER_CYCLE = 1 << 30;
+    private static final float FRACTION_SCALE = 1.0f / (1 << FRACTION_BITS);
+    private static final double PHASE_PER_CYCLE = 4294967296.0; //2^32
+    private static final float[] SINE_TABLE = new float[QUARTER_WAVE_SIZE + 2];
+    private static final float[] SLOPE_TABLE = new float[QUARTER_WAVE_SIZE + 1];
+
+    static
+    {
+        for(int x = 0; x <= QUARTER_WAVE_SIZE; x++)
+        {
+            SINE_TABLE[x] = (float)Math.sin(Math.PI / 2.0 * x / QUARTER_WAVE_SIZE);
+        }
+
+        //Guard entry for interpolating at exactly the end of the quarter wave where the fraction is always zero
+        SINE_TABLE[QUARTER_WAVE_SIZE + 1] = 1.0f;
+
+        for(int x = 0; x <= QUARTER_WAVE_SIZE; x++)
+        {
+            SLOPE_TABLE[x] = SINE_TABLE[x + 1] - SINE_TABLE[x];
+        }
+    }
+
+    private int mPhase;
+    private int mPhaseIncrement;
+
+    /**
+     * Constructs an instance
+     *
+     * @param frequency - positive or negative frequency in hertz
+     * @param sampleRate - in hertz
+     */
+    public NumericallyControlledOscillator(double frequency, double sampleRate)
+    {
+        super(frequency, sampleRate);
+    }
+
+    /**
+     * Updates the phase increment after a frequency or sample rate change.  The current phase is retained so that
+     * frequency changes are phase continuous.
+     */
+    @Override
+    protected void update()
+    {
+        double cycles = getFrequency() / getSampleRate();
+        cycles -= Math.floor(cycles);
+        mPhaseIncrement = (int)(long)Math.rint(cycles * PHASE_PER_CYCLE);
+    }
+
+    @Override
+    public void rotate()
+    {
+        mPhase += mPhaseIncrement;
+    }
+
+    @Override
+    public float inphase()
+    {
+        return cosine(mPhase);
+    }
+
+    @Override
+    public float quadrature()
+    {
+        return sine(mPhase);
+    }
+
+    /**
+     * Current 32-bit phase accumulator value, where the full range of the value represents one cycle.  Fused block
+     * kernels can load the phase and phase increment, use the sine() and cosine() lookups, and store the phase back.
+     */
+    public int getPhase()
+    {
+        return mPhase;
+    }
+
+    /**
+     * Sets the 32-bit phase accumulator value
+     */
+    public void setPhase(int phase)
+    {
+        mPhase = phase;
+    }
+
+    /**
+     * Phase accumulator increment per sample for the current frequency and sample rate
+     */
+    public int getPhaseIncrement()
+    {
+        return mPhaseIncrement;
+    }
+
+    /**
+     * Cosine of the phase value, where the full range of the 32-bit phase value represents one cycle.
+     */
+    public static float cosine(int phase)
+    {
+        return sine(phase + QUARTER_CYCLE);
+    }
+
+    /**
+     * Sine of the phase value, where the full range of the 32-bit phase value represents one cycle.
+     */
+    public static float sine(int phase)
+    {
+        int position = phase & QUARTER_PHASE_MASK;
+
+        //Quadrants 1 and 3 traverse the quarter wave table in reverse
+        if((phase & QUARTER_CYCLE) != 0)
+        {
+            position = QUARTER_CYCLE - position;
+        }
+
+        int index = position >>> FRACTION_BITS;
+        float value = SINE_TABLE[index] + SLOPE_TABLE[index] * ((position & FRACTION_MASK) * FRACTION_SCALE);
+
+        //Quadrants 2 and 3 are negative
+        return phase < 0 ? -value : value;
+    }
+
+    /**
+     * Mixes (heterodynes) the complex samples into the translated array as one block.
+     *
+     * @param samples to mix, arranged as i0,q0,i1,q1 ...
+     * @param translated array to receive the mixed samples, at least as long as the samples array.  This can be the
+     * same array as samples for in-place translation.
+     */
+    @Override
+    public void mixComplex(float[] samples, float[] translated)
+    {
+        int phase = mPhase;
+        int increment = mPhaseIncrement;
+        float inphase, quadrature, i, q;
+
+        for(int x = 0; x < samples.length; x += 2)
+        {
+            inphase = cosine(phase);
+            quadrature = sine(phase);
+            i = samples[x];
+            q = samples[x + 1];
+            translated[x] = (i * inphase) - (q * quadrature);
+            translated[x + 1] = (q * inphase) + (i * quadrature);
+            phase += increment;
+        }
+
+        mPhase = phase;
+    }
+}
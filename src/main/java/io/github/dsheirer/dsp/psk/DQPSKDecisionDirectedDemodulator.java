@@ -16,10 +16,9 @@
 package io.github.dsheirer.dsp.psk;
 
 import io.github.dsheirer.dsp.psk.pll.IPhaseLockedLoop;
-import io.github.dsheirer.dsp.symbol.Dibit;
 import io.github.dsheirer.sample.complex.Complex;
 
-public class DQPSKDecisionDirectedDemodulator extends PSKDemodulator<Dibit>
+public class DQPSKDecisionDirectedDemodulator extends DQPSKDemodulator
 {
     protected DQPSKDecisionDirectedSymbolEvaluator mSymbolEvaluator = new DQPSKDecisionDirectedSymbolEvaluator();
     private Complex mPreviousPrecedingSample = new Complex(0, 0);
@@ -34,7 +33,8 @@ public class DQPSKDecisionDirectedDemodulator extends PSKDemodulator<Dibit>
      * a decision-directed DQPSK symbol timing and phase error detector to automatically align to the incoming carrier
      * frequency and to adjust for any changes in symbol timing.
      *
-     * This detector is optimized for constant amplitude DQPSK symbols like C4FM.
+     * This detector is optimized for constant amplitude DQPSK symbols like C4FM.  It is used without a sync
+     * correlator since committing to early timing hypotheses lowers C4FM frame recovery.
      *
      * @param phaseLockedLoop for tracking carrier frequency error
      * @param interpolatingSampleBuffer to hold samples for interpolating a symbol
@@ -53,6 +53,9 @@ public class DQPSKDecisionDirectedDemodulator extends PSKDemodulator<Dibit>
         mPrecedingSample = getInterpolatingSampleBuffer().getPrecedingSample();
         mCurrentSample = getInterpolatingSampleBuffer().getCurrentSample();
 
+        //Evaluate the sync timing/phase hypotheses relative to the current symbol sampling point
+        correlate(getInterpolatingSampleBuffer().getSamplingPoint());
+
         //Differential decode preceding and current symbols by calculating the angular rotation between the previous and
         //current samples (current sample x complex conjugate of previous sample).
 
@@ -85,6 +88,12 @@ public class DQPSKDecisionDirectedDemodulator extends PSKDemodulator<Dibit>
         mPreviousPrecedingSample.setValues(mPrecedingSample);
         mPreviousCurrentSample.setValues(mCurrentSample);
 
-        broadcast(mSymbolEvaluator.getSymbolDecision());
+        dispatch(mSymbolEvaluator.getSymbolDecision(), mCurrentSymbol);
+    }
+
+    @Override
+    protected void setDifferentialReference(Complex sample)
+    {
+        mPreviousCurrentSample.setValues(sample);
     }
 }
@@ -0,0 +1,188 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+
+package io.github.dsheirer.dsp.psk;
+
+import io.github.dsheirer.dsp.psk.pll.IPhaseLockedLoop;
+import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.DibitBlock;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
+import io.github.dsheirer.sample.complex.Complex;
+
+/**
+ * Base Differential QPSK demodulator that collects the symbol decisions from each incoming sample buffer into a
+ * single dibit block with soft metrics and dispatches the block once the sample buffer is processed.
+ *
+ * Individual Dibit symbols are still broadcast to a registered symbol listener, when one is registered.
+ *
+ * An optional sync correlator evaluates multiple symbol timing and carrier phase hypotheses each symbol period.  When
+ * the correlator detects a sync pattern, the demodulator commits to the winning hypothesis and marks the sync
+ * position in the dibit block.
+ */
+public abstract class DQPSKDemodulator extends PSKDemodulator<Dibit>
+{
+    private static final int DEFAULT_BLOCK_CAPACITY = 1024;
+    private DibitBlock mDibitBlock = new DibitBlock(DEFAULT_BLOCK_CAPACITY);
+    private Listener<DibitBlock> mDibitBlockListener;
+    private DQPSKSyncCorrelator mSyncCorrelator;
+    private boolean mSyncDetected;
+
+    /**
+     * Constructs an instance
+     * @param interpolatingSampleBuffer to store complex samples and provide access to interpolated samples
+     * @param phaseLockedLoop to track and remove frequency offset in the incoming samples
+     */
+    public DQPSKDemodulator(InterpolatingSampleBuffer interpolatingSampleBuffer, IPhaseLockedLoop phaseLockedLoop)
+    {
+        super(interpolatingSampleBuffer, phaseLockedLoop);
+    }
+
+    /**
+     * Registers the listener to receive a block of dibits for each processed sample buffer
+     */
+    public void setDibitBlockListener(Listener<DibitBlock> listener)
+    {
+        mDibitBlockListener = listener;
+    }
+
+    /**
+     * Sets or clears (null) the multi-hypothesis sync correlator
+     */
+    public void setSyncCorrelator(DQPSKSyncCorrelator syncCorrelator)
+    {
+        mSyncCorrelator = syncCorrelator;
+        mSyncDetected = false;
+    }
+
+    /**
+     * Multi-hypothesis sync correlator or null
+     */
+    public DQPSKSyncCorrelator getSyncCorrelator()
+    {
+        return mSyncCorrelator;
+    }
+
+    /**
+     * Feeds the sync correlator with the timing hypotheses for the current symbol period.  Subclasses should invoke
+     * this method once per symbol, before adjusting the symbol timing for the next symbol.
+     *
+     * @param symbolInterpolation offset into the interpolating sample buffer of the current symbol sampling point
+     */
+    protected void correlate(float symbolInterpolation)
+    {
+        if(mSyncCorrelator != null && mSyncCorrelator.process(getInterpolatingSampleBuffer(), symbolInterpolation))
+        {
+            mSyncDetected = true;
+        }
+    }
+
+    /**
+     * Sets the sample to use as the differential reference for the next symbol after the demodulator commits to a
+     * sync correlator hypothesis that shifts the symbol timing.
+     *
+     * @param sample interpolated at the committed symbol timing for the current symbol
+     */
+    protected abstract void setDifferentialReference(Complex sample);
+
+    /**
+     * Processes the buffer and dispatches the demodulated dibits as a single block
+     */
+    @Override
+    public void receive(ReusableComplexBuffer reusableComplexBuffer)
+    {
+        long timestamp = reusableComplexBuffer.getTimestamp();
+
+        super.receive(reusableComplexBuffer);
+
+        if(mDibitBlock.size() > 0)
+        {
+            if(mDibitBlockListener != null)
+            {
+                mDibitBlock.setTimestamp(timestamp);
+                mDibitBlockListener.receive(mDibitBlock);
+            }
+
+            mDibitBlock.clear();
+        }
+    }
+
+    /**
+     * Adds the symbol decision to the current dibit block and broadcasts it to the symbol listener, if registered.
+     *
+     * @param symbol decision
+     * @param differentialSymbol normalized (unit magnitude) differential symbol that produced the decision
+     */
+    protected void dispatch(Dibit symbol, Complex differentialSymbol)
+    {
+        mDibitBlock.add(symbol.getValue(), getSoftMetric(differentialSymbol));
+
+        if(mSyncDetected)
+        {
+            mSyncDetected = false;
+            commitSyncHypothesis();
+        }
+
+        broadcast(symbol);
+    }
+
+    /**
+     * Commits to the sync correlator's detected hypothesis by shifting the symbol timing by the hypothesis timing
+     * offset, correcting the PLL for any detected phase lock rotation, and marking the sync position in the dibit
+     * block so that the framer can test for a message even when the hard sync decisions contain errors.
+     */
+    private void commitSyncHypothesis()
+    {
+        mDibitBlock.markSync(mSyncCorrelator.getBitErrors());
+
+        float timingOffset = mSyncCorrelator.getTimingOffset();
+
+        if(timingOffset != 0.0f)
+        {
+            getInterpolatingSampleBuffer().increaseSampleCounter(timingOffset);
+            setDifferentialReference(mSyncCorrelator.getCommittedSample());
+        }
+
+        double phaseCorrection = mSyncCorrelator.getPhaseCorrection(
+            getInterpolatingSampleBuffer().getDetectedSamplesPerSymbol());
+
+        if(phaseCorrection != 0.0)
+        {
+            getPLL().correctInversion(phaseCorrection);
+        }
+
+        mSyncCorrelator.reset();
+    }
+
+    /**
+     * Soft decision metric for a normalized DQPSK symbol.  Ideal symbols are located on the diagonals (+/-45 and
+     * +/-135 degrees) where the inphase and quadrature magnitudes are equal, and the decision boundaries are the
+     * axes where one of the magnitudes is zero.
+     *
+     * @return confidence in the range 0.0 (decision boundary) to 1.0 (ideal symbol)
+     */
+    public static float getSoftMetric(Complex normalizedSymbol)
+    {
+        float metric = 1.0f - Math.abs(Math.abs(normalizedSymbol.inphase()) - Math.abs(normalizedSymbol.quadrature()));
+        return metric < 0.0f ? 0.0f : metric;
+    }
+}
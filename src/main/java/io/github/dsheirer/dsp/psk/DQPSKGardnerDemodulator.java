@@ -16,10 +16,9 @@
 package io.github.dsheirer.dsp.psk;
 
 import io.github.dsheirer.dsp.psk.pll.IPhaseLockedLoop;
-import io.github.dsheirer.dsp.symbol.Dibit;
 import io.github.dsheirer.sample.complex.Complex;
 
-public class DQPSKGardnerDemodulator extends PSKDemodulator<Dibit>
+public class DQPSKGardnerDemodulator extends DQPSKDemodulator
 {
     protected DQPSKGardnerSymbolEvaluator mSymbolEvaluator = new DQPSKGardnerSymbolEvaluator();
     private Complex mPreviousCurrentSample = new Complex(0, 0);
@@ -56,6 +55,9 @@ public class DQPSKGardnerDemodulator extends PSKDemodulator<Dibit>
         Complex middleSample = getInterpolatingSampleBuffer().getCurrentSample();
         Complex currentSample = getInterpolatingSampleBuffer().getMiddleSample();
 
+        //Evaluate the sync timing/phase hypotheses relative to the current symbol sampling point
+        correlate(getInterpolatingSampleBuffer().getDetectedSamplesPerSymbol() / 2.0f);
+
         //Differential decode middle and current symbols by calculating the angular rotation between the previous and
         //current samples (current sample x complex conjugate of previous sample).
         mMiddleSymbol.setInphase(Complex.multiplyInphase(middleSample.inphase(), middleSample.quadrature(),
@@ -85,6 +87,12 @@ public class DQPSKGardnerDemodulator extends PSKDemodulator<Dibit>
         mPreviousMiddleSample.setValues(middleSample);
         mPreviousCurrentSample.setValues(currentSample);
 
-        broadcast(mSymbolEvaluator.getSymbolDecision());
+        dispatch(mSymbolEvaluator.getSymbolDecision(), mCurrentSymbol);
+    }
+
+    @Override
+    protected void setDifferentialReference(Complex sample)
+    {
+        mPreviousCurrentSample.setValues(sample);
     }
 }
@@ -0,0 +1,331 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.dsp.psk;
+
+import io.github.dsheirer.dsp.symbol.FrameSync;
+import io.github.dsheirer.dsp.symbol.SoftSyncCorrelator;
+import io.github.dsheirer.sample.complex.Complex;
+
+/**
+ * Differential QPSK soft-decision sync correlator that evaluates several symbol timing hypotheses and carrier phase
+ * lock hypotheses in parallel.
+ *
+ * Timing hypotheses are spaced evenly across one symbol period, centered on the demodulator's current symbol
+ * sampling point (-1/2 to +1/2 symbol), and are interpolated from the same interpolating sample buffer that the
+ * demodulator uses.  Since the hypotheses span a full symbol period, any symbol timing error is covered by one of the
+ * hypotheses.  Each hypothesis is differentially decoded into a normalized soft symbol.
+ *
+ * Demodulators that sample mid-buffer (e.g. Gardner, sampling point 1/2 symbol into the buffer) have room on both
+ * sides of the sampling point, so each hypothesis samples the same symbol as the demodulator.  Demodulators that sample
+ * at the start of the buffer (e.g. decision-directed C4FM, sampling point 0 - 1 sample) have no samples before the
+ * sampling point, so the early hypotheses instead sample the next symbol at the same timing offset, which is already
+ * in the buffer.  The soft symbols of these leading hypotheses are delayed by one symbol period so that every
+ * hypothesis scores the same symbols as the demodulator.  Hypotheses that still fall outside of the interpolating
+ * buffer are clamped to the buffer limits.
+ *
+ * Only the Gardner timing (P25 Phase 1 LSM) and HDQPSK (P25 Phase 2) decoders enable the correlator.  The
+ * decision-directed C4FM demodulator tracks timing from its own symbol decisions and loses more frames than it gains
+ * when it commits to an early hypothesis, so the C4FM decoder leaves the correlator disabled (see
+ * P25P1FrameRecoveryBenchmark).
+ *
+ * Carrier phase hypotheses cover a PLL that has locked +/-90 or 180 degrees out of phase, which causes the
+ * differentially decoded symbols to be rotated by the same amount.  Each sync pattern is registered in its normal
+ * orientation and in each of the three rotated orientations.  A false rotated detection knocks a correctly locked PLL
+ * out of lock, so the rotated orientations require a stronger match than the normal orientation.
+ *
+ * When a sync pattern is detected, the demodulator commits to the winning hypothesis by shifting the symbol timing
+ * by the hypothesis timing offset and by correcting the PLL for any rotation.
+ */
+public class DQPSKSyncCorrelator
+{
+    public static final int DEFAULT_HYPOTHESIS_COUNT = 4;
+    public static final float P25_PHASE1_THRESHOLD = 0.7f;
+    public static final int P25_PHASE1_MAXIMUM_BIT_ERRORS = 9;
+    public static final float P25_PHASE2_THRESHOLD = 0.75f;
+    public static final int P25_PHASE2_MAXIMUM_BIT_ERRORS = 6;
+    public static final float ROTATED_THRESHOLD = 0.85f;
+    public static final int ROTATED_MAXIMUM_BIT_ERRORS = 4;
+
+    //Pattern rotations: normal, 90 degrees clockwise, 90 degrees counter-clockwise and 180 degrees
+    private static final double[] ROTATIONS = {0.0, -Math.PI / 2.0, Math.PI / 2.0, Math.PI};
+    private static final float CONSTELLATION_POINT = (float)(1.0 / Math.sqrt(2.0));
+
+    private SoftSyncCorrelator mCorrelator;
+    private float[] mSymbols;
+    private float[] mPreviousInphase;
+    private float[] mPreviousQuadrature;
+    private float[] mPriorInphase;
+    private float[] mPriorQuadrature;
+    private float[] mDelayedSymbols;
+    private float[] mTimingOffsets;
+    private boolean[] mLeading;
+    private float mDetectedTimingOffset;
+    private Complex mCommittedSample = new Complex(0, 0);
+
+    /**
+     * Constructs an instance
+     *
+     * @param syncPatterns to detect, with dibits packed into the long value, first dibit most significant
+     * @param syncDibitLength number of dibits in each sync pattern
+     * @param hypothesisCount number of timing hypotheses spaced across one symbol period
+     * @param threshold normalized correlation score required for sync detection
+     * @param maximumBitErrors allowed in the hard decisions of the winning hypothesis
+     */
+    public DQPSKSyncCorrelator(long[] syncPatterns, int syncDibitLength, int hypothesisCount, float threshold,
+                               int maximumBitErrors)
+    {
+        mCorrelator = new SoftSyncCorrelator(hypothesisCount, 2, syncDibitLength, threshold, maximumBitErrors);
+
+        for(long syncPattern : syncPatterns)
+        {
+            mCorrelator.addPattern(getReference(syncPattern, syncDibitLength, ROTATIONS[0]));
+
+            for(int x = 1; x < ROTATIONS.length; x++)
+            {
+                mCorrelator.addPattern(getReference(syncPattern, syncDibitLength, ROTATIONS[x]),
+                    Math.max(threshold, ROTATED_THRESHOLD), Math.min(maximumBitErrors, ROTATED_MAXIMUM_BIT_ERRORS));
+            }
+        }
+
+        mSymbols = new float[hypothesisCount * 2];
+        mPreviousInphase = new float[hypothesisCount];
+        mPreviousQuadrature = new float[hypothesisCount];
+        mPriorInphase = new float[hypothesisCount];
+        mPriorQuadrature = new float[hypothesisCount];
+        mDelayedSymbols = new float[hypothesisCount * 2];
+        mTimingOffsets = new float[hypothesisCount];
+        mLeading = new boolean[hypothesisCount];
+    }
+
+    /**
+     * Creates a sync correlator for APCO25 Phase 1 (CQPSK/LSM decoded as DQPSK)
+     */
+    public static DQPSKSyncCorrelator createP25Phase1()
+    {
+        return new DQPSKSyncCorrelator(new long[]{FrameSync.P25_PHASE1_NORMAL.getSync()}, 24,
+            DEFAULT_HYPOTHESIS_COUNT, P25_PHASE1_THRESHOLD, P25_PHASE1_MAXIMUM_BIT_ERRORS);
+    }
+
+    /**
+     * Creates a sync correlator for APCO25 Phase 2 (H-DQPSK)
+     */
+    public static DQPSKSyncCorrelator createP25Phase2()
+    {
+        return new DQPSKSyncCorrelator(new long[]{FrameSync.P25_PHASE2_NORMAL.getSync()}, 20,
+            DEFAULT_HYPOTHESIS_COUNT, P25_PHASE2_THRESHOLD, P25_PHASE2_MAXIMUM_BIT_ERRORS);
+    }
+
+    /**
+     * Creates the soft reference values for the sync pattern rotated by the specified amount.  The reference
+     * constellation matches the DQPSK symbol evaluators: dibit bit 1 selects the sign of the quadrature value and
+     * dibit bit 2 selects the sign of the inphase value.
+     */
+    private static float[] getReference(long syncPattern, int syncDibitLength, double rotation)
+    {
+        float[] reference = new float[syncDibitLength * 2];
+        float cos = (float)Math.cos(rotation);
+        float sin = (float)Math.sin(rotation);
+
+        for(int x = 0; x < syncDibitLength; x++)
+        {
+            int dibit = (int)((syncPattern >> (2 * (syncDibitLength - 1 - x))) & 0x3);
+            float inphase = (dibit & 0x1) == 0 ? CONSTELLATION_POINT : -CONSTELLATION_POINT;
+            float quadrature = (dibit & 0x2) == 0 ? CONSTELLATION_POINT : -CONSTELLATION_POINT;
+
+            reference[2 * x] = (inphase * cos) - (quadrature * sin);
+            reference[2 * x + 1] = (inphase * sin) + (quadrature * cos);
+        }
+
+        return reference;
+    }
+
+    /**
+     * Interpolates and differentially decodes a soft symbol for each timing hypothesis and checks for a sync pattern.
+     *
+     * Note: invoke this method once per symbol period, before the symbol timing is adjusted for the next symbol.
+     *
+     * @param buffer containing the samples for the current symbol period
+     * @param symbolInterpolation offset into the buffer of the demodulator's current symbol sampling point
+     * @return true if a sync pattern was detected
+     */
+    public boolean process(InterpolatingSampleBuffer buffer, float symbolInterpolation)
+    {
+        float samplesPerSymbol = buffer.getDetectedSamplesPerSymbol();
+        float spacing = samplesPerSymbol / mPreviousInphase.length;
+        float maximumInterpolation = buffer.getMaximumInterpolation();
+
+        for(int hypothesis = 0; hypothesis < mPreviousInphase.length; hypothesis++)
+        {
+            //Hypothesis 0 is the current sampling point, followed by later offsets and then wrapping to earlier offsets
+            float offset = hypothesis * spacing;
+
+            if(offset >= samplesPerSymbol / 2.0f)
+            {
+                offset -= samplesPerSymbol;
+            }
+
+            float interpolation = symbolInterpolation + offset;
+            boolean leading = interpolation < 0.0f;
+
+            //No samples before the sampling point - sample the next symbol at the same timing offset
+            if(leading)
+            {
+                interpolation += samplesPerSymbol;
+            }
+
+            interpolation = Math.max(0.0f, Math.min(interpolation, maximumInterpolation));
+            mTimingOffsets[hypothesis] = interpolation - symbolInterpolation - (leading ? samplesPerSymbol : 0.0f);
+            mLeading[hypothesis] = leading;
+
+            float inphase = buffer.getInphase(interpolation);
+            float quadrature = buffer.getQuadrature(interpolation);
+
+            //Differential decode: current sample x complex conjugate of previous sample
+            float differentialInphase = Complex.multiplyInphase(inphase, quadrature,
+                mPreviousInphase[hypothesis], -mPreviousQuadrature[hypothesis]);
+            float differentialQuadrature = Complex.multiplyQuadrature(inphase, quadrature,
+                mPreviousInphase[hypothesis], -mPreviousQuadrature[hypothesis]);
+
+            float magnitude = (float)Math.sqrt((differentialInphase * differentialInphase) +
+                (differentialQuadrature * differentialQuadrature));
+
+            if(magnitude > 0.0f)
+            {
+                differentialInphase /= magnitude;
+                differentialQuadrature /= magnitude;
+            }
+
+            if(leading)
+            {
+                //Leading hypotheses sampled the next symbol - score the symbol from the previous period
+                mSymbols[2 * hypothesis] = mDelayedSymbols[2 * hypothesis];
+                mSymbols[2 * hypothesis + 1] = mDelayedSymbols[2 * hypothesis + 1];
+                mDelayedSymbols[2 * hypothesis] = differentialInphase;
+                mDelayedSymbols[2 * hypothesis + 1] = differentialQuadrature;
+            }
+            else
+            {
+                mSymbols[2 * hypothesis] = differentialInphase;
+                mSymbols[2 * hypothesis + 1] = differentialQuadrature;
+            }
+
+            mPriorInphase[hypothesis] = mPreviousInphase[hypothesis];
+            mPriorQuadrature[hypothesis] = mPreviousQuadrature[hypothesis];
+            mPreviousInphase[hypothesis] = inphase;
+            mPreviousQuadrature[hypothesis] = quadrature;
+        }
+
+        if(mCorrelator.receive(mSymbols))
+        {
+            int hypothesis = mCorrelator.getDetectedHypothesis();
+            mDetectedTimingOffset = mTimingOffsets[hypothesis];
+
+            //A leading hypothesis' current sample is the demodulator's next symbol, so the final sync symbol is the
+            //sample before it
+            if(mLeading[hypothesis])
+            {
+                mCommittedSample.setValues(mPriorInphase[hypothesis], mPriorQuadrature[hypothesis]);
+            }
+            else
+            {
+                mCommittedSample.setValues(mPreviousInphase[hypothesis], mPreviousQuadrature[hypothesis]);
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Symbol timing offset (in samples) of the detected hypothesis relative to the demodulator's sampling point, in
+     * the range of -1/2 to +1/2 symbol.  The demodulator should shift its sampling point by this amount (positive is
+     * later) to commit to the hypothesis.
+     */
+    public float getTimingOffset()
+    {
+        return mDetectedTimingOffset;
+    }
+
+    /**
+     * Rotation (radians) of the detected sync pattern relative to the normal sync pattern orientation.
+     */
+    public double getRotation()
+    {
+        return ROTATIONS[mCorrelator.getDetectedPattern() % ROTATIONS.length];
+    }
+
+    /**
+     * PLL phase increment correction to remove the rotation of the detected sync pattern.  A PLL that is locked 90
+     * degrees out of phase rotates each differentially decoded symbol by 90 degrees, which equates to a frequency
+     * error of one quarter of the symbol rate, or (PI / 2) radians per symbol period.
+     *
+     * @param samplesPerSymbol for the sample stream
+     * @return correction value for IPhaseLockedLoop.correctInversion() or 0.0 if no correction is required
+     */
+    public double getPhaseCorrection(float samplesPerSymbol)
+    {
+        return -getRotation() / samplesPerSymbol;
+    }
+
+    /**
+     * Hard decision bit errors of the detected hypothesis.
+     */
+    public int getBitErrors()
+    {
+        return mCorrelator.getDetectedBitErrors();
+    }
+
+    /**
+     * Normalized correlation score of the detected hypothesis.
+     */
+    public float getScore()
+    {
+        return mCorrelator.getDetectedScore();
+    }
+
+    /**
+     * Interpolated (not differentially decoded) sample of the detected hypothesis at the final sync symbol.  The
+     * demodulator should use this sample as the differential reference for the next symbol after committing to the
+     * hypothesis.
+     */
+    public Complex getCommittedSample()
+    {
+        return mCommittedSample;
+    }
+
+    /**
+     * Total number of sync detections
+     */
+    public long getDetectionCount()
+    {
+        return mCorrelator.getDetectionCount();
+    }
+
+    /**
+     * Discards the symbol history after committing to a detected hypothesis.
+     */
+    public void reset()
+    {
+        mCorrelator.reset();
+    }
+}
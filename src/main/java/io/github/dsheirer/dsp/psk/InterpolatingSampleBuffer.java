@@ -130,6 +130,23 @@ public class InterpolatingSampleBuffer
         return mSamplingPoint;
     }
 
+    /**
+     * Current value of the detected (tracked) samples per symbol
+     */
+    public float getDetectedSamplesPerSymbol()
+    {
+        return mDetectedSamplesPerSymbol;
+    }
+
+    /**
+     * Largest interpolation offset that can be requested via getInphase()/getQuadrature() while keeping all of the
+     * interpolator's filter taps within the delay line.
+     */
+    public float getMaximumInterpolation()
+    {
+        return mTwiceSamplesPerSymbol - 7;
+    }
+
     /**
      * Indicates if this buffer has accumulated a enough samples to represent a full symbol
      */
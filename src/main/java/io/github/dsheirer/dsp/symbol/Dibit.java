@@ -7,6 +7,8 @@ public enum Dibit
     D10_MINUS_1(true, false, 2, 8),
     D11_MINUS_3(true, true, 3, 12);
 
+    private static final Dibit[] VALUES = {D00_PLUS_1, D01_PLUS_3, D10_MINUS_1, D11_MINUS_3};
+
     private boolean mBit1;
     private boolean mBit2;
     private int mLowValue;
@@ -94,6 +96,24 @@ public enum Dibit
         return mHighValue;
     }
 
+    /**
+     * Two-bit value of this dibit (0 - 3) with bit 1 as the most significant bit.
+     */
+    public int getValue()
+    {
+        return mLowValue;
+    }
+
+    /**
+     * Dibit for the two-bit value where bit 1 is the most significant bit
+     * @param value 0 - 3
+     * @return dibit
+     */
+    public static Dibit fromValue(int value)
+    {
+        return VALUES[value & 0x3];
+    }
+
     public static Dibit inverted(Dibit symbol)
     {
         switch(symbol)
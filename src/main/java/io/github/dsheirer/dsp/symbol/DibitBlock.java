@@ -0,0 +1,205 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+
+package io.github.dsheirer.dsp.symbol;
+
+import java.util.Arrays;
+
+/**
+ * Block of demodulated dibit symbols with a soft decision metric for each symbol.
+ *
+ * Dibits are stored as primitive two-bit values (0 - 3, bit 1 as the most significant bit, see Dibit.getValue())
+ * so that symbol consumers can process a whole block with simple array access instead of receiving one Dibit per
+ * listener call.  The soft metric is the demodulator's confidence in the symbol decision in the range 0.0 (symbol
+ * fell on a decision boundary) to 1.0 (symbol fell on the ideal constellation point).
+ *
+ * The producer can mark the final dibit of a sync pattern that was detected upstream of the hard symbol decisions
+ * (e.g. by a soft-decision sync correlator) so that framers can test for a message at that position even when the
+ * hard decisions for the sync pattern contain too many errors to match.
+ *
+ * Blocks are reused by the producer once all listeners have been notified, so listeners must consume the block
+ * contents before returning and must not retain a reference to the block.
+ */
+public class DibitBlock
+{
+    private byte[] mDibits;
+    private float[] mSoftMetrics;
+    private int mSize;
+    private long mTimestamp;
+    private int[] mSyncIndices = new int[4];
+    private int[] mSyncBitErrors = new int[4];
+    private int mSyncCount;
+
+    /**
+     * Constructs a block with the specified initial capacity.  The block grows as needed.
+     */
+    public DibitBlock(int capacity)
+    {
+        mDibits = new byte[capacity];
+        mSoftMetrics = new float[capacity];
+    }
+
+    /**
+     * Appends a dibit symbol value and soft metric to this block
+     * @param dibit value 0 - 3
+     * @param softMetric decision confidence 0.0 - 1.0
+     */
+    public void add(int dibit, float softMetric)
+    {
+        if(mSize == mDibits.length)
+        {
+            mDibits = Arrays.copyOf(mDibits, mSize * 2);
+            mSoftMetrics = Arrays.copyOf(mSoftMetrics, mSize * 2);
+        }
+
+        mDibits[mSize] = (byte)dibit;
+        mSoftMetrics[mSize++] = softMetric;
+    }
+
+    /**
+     * Marks the most recently added dibit as the final dibit of a detected sync pattern
+     * @param bitErrors detected in the sync pattern
+     */
+    public void markSync(int bitErrors)
+    {
+        if(mSize > 0)
+        {
+            if(mSyncCount == mSyncIndices.length)
+            {
+                mSyncIndices = Arrays.copyOf(mSyncIndices, mSyncCount * 2);
+                mSyncBitErrors = Arrays.copyOf(mSyncBitErrors, mSyncCount * 2);
+            }
+
+            mSyncIndices[mSyncCount] = mSize - 1;
+            mSyncBitErrors[mSyncCount++] = bitErrors;
+        }
+    }
+
+    /**
+     * Number of sync markers in this block
+     */
+    public int getSyncCount()
+    {
+        return mSyncCount;
+    }
+
+    /**
+     * Dibit index of the final dibit of the sync pattern for the sync marker, in ascending index order.
+     * @param marker index 0 to getSyncCount() - 1
+     */
+    public int getSyncIndex(int marker)
+    {
+        return mSyncIndices[marker];
+    }
+
+    /**
+     * Bit errors for the sync marker
+     * @param marker index 0 to getSyncCount() - 1
+     */
+    public int getSyncBitErrors(int marker)
+    {
+        return mSyncBitErrors[marker];
+    }
+
+    /**
+     * Replaces the contents of this block with the dibits packed (4 per byte, most significant dibit first) in the
+     * byte array, such as a recorded bitstream buffer.  Soft metrics are set to 1.0 since the decisions are hard.
+     */
+    public void load(byte[] packedDibits, long timestamp)
+    {
+        clear();
+        mTimestamp = timestamp;
+
+        for(byte value : packedDibits)
+        {
+            add((value >> 6) & 0x3, 1.0f);
+            add((value >> 4) & 0x3, 1.0f);
+            add((value >> 2) & 0x3, 1.0f);
+            add(value & 0x3, 1.0f);
+        }
+    }
+
+    /**
+     * Removes all symbols from this block so that it can be reused
+     */
+    public void clear()
+    {
+        mSize = 0;
+        mSyncCount = 0;
+    }
+
+    /**
+     * Number of dibits in this block
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /**
+     * Dibit value (0 - 3) at the index
+     */
+    public int get(int index)
+    {
+        return mDibits[index];
+    }
+
+    /**
+     * Soft metric (0.0 - 1.0) for the dibit at the index
+     */
+    public float getSoftMetric(int index)
+    {
+        return mSoftMetrics[index];
+    }
+
+    /**
+     * Backing array of dibit values.  Only indices 0 to size() - 1 are valid.
+     */
+    public byte[] getDibits()
+    {
+        return mDibits;
+    }
+
+    /**
+     * Backing array of soft metrics.  Only indices 0 to size() - 1 are valid.
+     */
+    public float[] getSoftMetrics()
+    {
+        return mSoftMetrics;
+    }
+
+    /**
+     * Timestamp of the sample buffer that produced this block
+     */
+    public long getTimestamp()
+    {
+        return mTimestamp;
+    }
+
+    /**
+     * Sets the timestamp of the sample buffer that produced this block
+     */
+    public void setTimestamp(long timestamp)
+    {
+        mTimestamp = timestamp;
+    }
+}
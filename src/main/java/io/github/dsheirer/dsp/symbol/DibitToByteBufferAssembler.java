@@ -66,24 +66,30 @@ public class DibitToByteBufferAssembler implements Listener<Dibit>, IReusableByt
     @Override
     public void receive(Dibit dibit)
     {
-        mCurrentByte <<= 2;
+        add(dibit.getValue());
+    }
+
+    /**
+     * Packs each of the dibits in the block into the current buffer
+     */
+    public void receive(DibitBlock block)
+    {
+        byte[] dibits = block.getDibits();
 
-        switch(dibit)
+        for(int x = 0; x < block.size(); x++)
         {
-            case D01_PLUS_3:
-                mCurrentByte |= 0x01;
-                break;
-            case D00_PLUS_1:
-                //no-op - value is already 00
-                break;
-            case D10_MINUS_1:
-                mCurrentByte |= 0x02;
-                break;
-            case D11_MINUS_3:
-                mCurrentByte |= 0x03;
-                break;
+            add(dibits[x]);
         }
+    }
 
+    /**
+     * Packs the dibit value into the current byte and dispatches the buffer once full.
+     * @param dibit value 0 - 3
+     */
+    private void add(int dibit)
+    {
+        mCurrentByte <<= 2;
+        mCurrentByte |= dibit;
         mDibitCount++;
 
         if(mDibitCount >= 4)
@@ -0,0 +1,38 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.dsp.symbol;
+
+/**
+ * Listener interface to be notified when a soft-decision sync correlator detects one of several registered sync
+ * patterns.
+ */
+public interface ISoftSyncDetectListener
+{
+    /**
+     * Indicates that a sync pattern has been detected and that the final bit of the sync pattern is the most
+     * recently dispatched symbol.
+     *
+     * @param pattern index of the detected sync pattern in the order the patterns were registered
+     * @param bitErrors in the hard decisions of the detected sync pattern
+     */
+    void softSyncDetected(int pattern, int bitErrors);
+}
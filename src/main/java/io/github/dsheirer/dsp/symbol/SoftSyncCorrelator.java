@@ -0,0 +1,329 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.dsp.symbol;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multi-hypothesis soft-decision sync pattern correlator.
+ *
+ * Each symbol period, the correlator receives one soft symbol for each of several hypotheses, where a hypothesis is
+ * typically a different symbol timing (sampling) offset produced by the demodulator.  Each hypothesis keeps a window
+ * of the most recent soft symbols the length of the sync pattern and every window is correlated against all of the
+ * registered sync patterns.  Correlation scores are normalized to the range -1.0 to 1.0 so that the detection
+ * threshold is independent of signal amplitude.
+ *
+ * When the best score across all hypotheses and patterns meets the detection threshold and the hard decisions for
+ * that hypothesis have no more than the maximum allowable bit errors, the correlator reports the winning hypothesis
+ * and pattern so that the caller can commit to that hypothesis (e.g. adjust symbol timing or carrier phase).  Patterns
+ * can be registered with a stricter threshold and bit error limit than the default, for patterns where a false
+ * detection is costly.
+ *
+ * Soft symbols can have one dimension (e.g. soft bits) or two dimensions (e.g. inphase/quadrature).  Sync pattern
+ * reference values for each dimension are signed, where the sign of the reference value indicates the expected
+ * hard decision for that dimension.
+ */
+public class SoftSyncCorrelator
+{
+    private int mHypothesisCount;
+    private int mDimensions;
+    private int mSyncLength;
+    private int mWindowLength;
+    private float mThreshold;
+    private int mMaximumBitErrors;
+    private List<float[]> mPatterns = new ArrayList<>();
+    private List<Float> mPatternThresholds = new ArrayList<>();
+    private List<Integer> mPatternMaximumBitErrors = new ArrayList<>();
+
+    //Each window is doubled in length so that the correlation window is always contiguous in memory
+    private float[][] mWindows;
+    private int mWindowPointer;
+    private int mSymbolCount;
+    private int mHoldoff;
+
+    private int mDetectedHypothesis;
+    private int mDetectedPattern;
+    private int mDetectedBitErrors;
+    private float mDetectedScore;
+    private long mDetectionCount;
+
+    /**
+     * Constructs an instance
+     *
+     * @param hypothesisCount number of soft symbol hypotheses received each symbol period
+     * @param dimensions of each soft symbol (1 or 2)
+     * @param syncLength in symbols
+     * @param threshold normalized correlation score (0.0 - 1.0) required for a sync detection
+     * @param maximumBitErrors in the hard decisions of the detected hypothesis for a sync detection
+     */
+    public SoftSyncCorrelator(int hypothesisCount, int dimensions, int syncLength, float threshold, int maximumBitErrors)
+    {
+        Validate.isTrue(hypothesisCount > 0, "Hypothesis count must be positive");
+        Validate.isTrue(dimensions == 1 || dimensions == 2, "Dimensions must be 1 or 2");
+        Validate.isTrue(syncLength > 0, "Sync length must be positive");
+
+        mHypothesisCount = hypothesisCount;
+        mDimensions = dimensions;
+        mSyncLength = syncLength;
+        mWindowLength = syncLength * dimensions;
+        mThreshold = threshold;
+        mMaximumBitErrors = maximumBitErrors;
+        mWindows = new float[hypothesisCount][2 * mWindowLength];
+    }
+
+    /**
+     * Registers a sync pattern using the default detection threshold and maximum bit errors.
+     *
+     * @param reference values for the sync pattern, ordered oldest symbol first, with one value per dimension for each
+     * symbol.  Values are normalized to unit energy for scoring.
+     * @return index of the pattern for identifying the detected pattern
+     */
+    public int addPattern(float[] reference)
+    {
+        return addPattern(reference, mThreshold, mMaximumBitErrors);
+    }
+
+    /**
+     * Registers a sync pattern with a pattern-specific detection threshold and maximum bit errors.
+     *
+     * @param reference values for the sync pattern, ordered oldest symbol first, with one value per dimension for each
+     * symbol.  Values are normalized to unit energy for scoring.
+     * @param threshold normalized correlation score (0.0 - 1.0) required for a detection of this pattern
+     * @param maximumBitErrors in the hard decisions of the detected hypothesis for a detection of this pattern
+     * @return index of the pattern for identifying the detected pattern
+     */
+    public int addPattern(float[] reference, float threshold, int maximumBitErrors)
+    {
+        Validate.isTrue(reference.length == mWindowLength, "Reference length must be sync length x dimensions");
+
+        float energy = 0.0f;
+
+        for(float value : reference)
+        {
+            energy += value * value;
+        }
+
+        Validate.isTrue(energy > 0.0f, "Reference pattern cannot be all zeros");
+
+        float scale = (float)(1.0 / Math.sqrt(energy));
+        float[] normalized = new float[reference.length];
+
+        for(int x = 0; x < reference.length; x++)
+        {
+            normalized[x] = reference[x] * scale;
+        }
+
+        mPatterns.add(normalized);
+        mPatternThresholds.add(threshold);
+        mPatternMaximumBitErrors.add(maximumBitErrors);
+
+        return mPatterns.size() - 1;
+    }
+
+    /**
+     * Number of hypotheses expected with each call to receive()
+     */
+    public int getHypothesisCount()
+    {
+        return mHypothesisCount;
+    }
+
+    /**
+     * Receives the soft symbols for each hypothesis for the current symbol period and checks all hypotheses for a
+     * sync pattern match.
+     *
+     * @param symbols with one soft symbol per hypothesis, arranged as symbols[hypothesis * dimensions + dimension]
+     * @return true if a sync pattern was detected.  Access the detection details via the getDetected...() methods.
+     */
+    public boolean receive(float[] symbols)
+    {
+        int offset = mWindowPointer * mDimensions;
+
+        for(int hypothesis = 0; hypothesis < mHypothesisCount; hypothesis++)
+        {
+            float[] window = mWindows[hypothesis];
+
+            for(int dimension = 0; dimension < mDimensions; dimension++)
+            {
+                float value = symbols[hypothesis * mDimensions + dimension];
+                window[offset + dimension] = value;
+                window[offset + dimension + mWindowLength] = value;
+            }
+        }
+
+        mWindowPointer++;
+
+        if(mWindowPointer >= mSyncLength)
+        {
+            mWindowPointer = 0;
+        }
+
+        //Evaluate starting with the symbol that completes the first full window
+        if(mSymbolCount < mSyncLength)
+        {
+            mSymbolCount++;
+
+            if(mSymbolCount < mSyncLength)
+            {
+                return false;
+            }
+        }
+
+        if(mHoldoff > 0)
+        {
+            mHoldoff--;
+            return false;
+        }
+
+        //The window pointer now points to the oldest symbol in each window
+        int start = mWindowPointer * mDimensions;
+
+        float bestScore = -1.0f;
+        int bestHypothesis = 0;
+        int bestPattern = 0;
+
+        for(int hypothesis = 0; hypothesis < mHypothesisCount; hypothesis++)
+        {
+            float[] window = mWindows[hypothesis];
+            float energy = 0.0f;
+
+            for(int x = start; x < start + mWindowLength; x++)
+            {
+                energy += window[x] * window[x];
+            }
+
+            if(energy > 0.0f)
+            {
+                float scale = (float)(1.0 / Math.sqrt(energy));
+
+                for(int pattern = 0; pattern < mPatterns.size(); pattern++)
+                {
+                    float[] reference = mPatterns.get(pattern);
+                    float accumulator = 0.0f;
+
+                    for(int x = 0; x < mWindowLength; x++)
+                    {
+                        accumulator += window[start + x] * reference[x];
+                    }
+
+                    float score = accumulator * scale;
+
+                    if(score > bestScore)
+                    {
+                        bestScore = score;
+                        bestHypothesis = hypothesis;
+                        bestPattern = pattern;
+                    }
+                }
+            }
+        }
+
+        if(bestScore >= mPatternThresholds.get(bestPattern))
+        {
+            int bitErrors = getBitErrors(mWindows[bestHypothesis], start, mPatterns.get(bestPattern));
+
+            if(bitErrors <= mPatternMaximumBitErrors.get(bestPattern))
+            {
+                mDetectedHypothesis = bestHypothesis;
+                mDetectedPattern = bestPattern;
+                mDetectedScore = bestScore;
+                mDetectedBitErrors = bitErrors;
+                mDetectionCount++;
+                mHoldoff = mSyncLength;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Counts the hard decision errors in the window where the sign of the soft value disagrees with the reference.
+     */
+    private int getBitErrors(float[] window, int start, float[] reference)
+    {
+        int bitErrors = 0;
+
+        for(int x = 0; x < mWindowLength; x++)
+        {
+            if(window[start + x] * reference[x] <= 0.0f)
+            {
+                bitErrors++;
+            }
+        }
+
+        return bitErrors;
+    }
+
+    /**
+     * Discards the symbol history for all hypotheses.  Invoke this after committing to a detected hypothesis since
+     * the existing symbol history no longer aligns with the adjusted hypotheses.
+     */
+    public void reset()
+    {
+        mSymbolCount = 0;
+        mHoldoff = 0;
+    }
+
+    /**
+     * Hypothesis index of the most recent sync detection
+     */
+    public int getDetectedHypothesis()
+    {
+        return mDetectedHypothesis;
+    }
+
+    /**
+     * Pattern index of the most recent sync detection
+     */
+    public int getDetectedPattern()
+    {
+        return mDetectedPattern;
+    }
+
+    /**
+     * Normalized correlation score of the most recent sync detection
+     */
+    public float getDetectedScore()
+    {
+        return mDetectedScore;
+    }
+
+    /**
+     * Hard decision bit errors of the most recent sync detection
+     */
+    public int getDetectedBitErrors()
+    {
+        return mDetectedBitErrors;
+    }
+
+    /**
+     * Total number of sync detections
+     */
+    public long getDetectionCount()
+    {
+        return mDetectionCount;
+    }
+}
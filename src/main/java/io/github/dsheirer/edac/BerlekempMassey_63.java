@@ -25,6 +25,8 @@ package io.github.dsheirer.edac;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
  * Berlekemp Massey decoder for 63-bit primitive RS/BCH block codes
  */
@@ -32,11 +34,8 @@ public class BerlekempMassey_63
 {
 	public final static Logger mLog = LoggerFactory.getLogger( BerlekempMassey_63.class );
 
-	/* Golay field size GF( 2 ** MM ) */
-	private static final int MM = 6;
-
 	/* Codeword Length: NN = 2 ** MM - 1 */
-	private static final int NN = 63;
+	private static final int NN = GaloisField64.NN;
 	
 	/* Hamming distance between codewords: NN - KK + 1 = 2 * TT + 1 */
 	private int KK;
@@ -44,84 +43,25 @@ public class BerlekempMassey_63
 	/* Maximum number of errors that can be corrected */
 	int TT;
 
-	int[] alpha_to;
-	int[] index_of;
+	/* Shared GF(2**6) anti-log and log lookup tables (read-only) */
+	final int[] alpha_to = GaloisField64.ALPHA_TO;
+	final int[] index_of = GaloisField64.INDEX_OF;
 	int[] gg;
+
+	/* Per-thread decoder working arrays sized for the maximum TT so that decoder instances are thread-safe and can
+	   be shared, and decoding doesn't allocate */
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial( Scratch::new );
 	
 	public BerlekempMassey_63( int tt )
     {
 		TT = tt;
 		KK = NN - 2 * TT;
 		
-        alpha_to = new int[ NN + 1 ];
-        index_of = new int[ NN + 1 ];
         gg       = new int[ NN - KK + 1 ];
 
-        /* P25 generator polynomial */
-        int generator_polinomial[] = { 1, 1, 0, 0, 0, 0, 1 };
-
-        generate_gf( generator_polinomial );
-
         gen_poly();
     }
 
-	/**
-	 * Generates the Golay Field.
-	 * 
-	 * Generates a GF( 2**mm ) from the irreducible polynomial 
-	 * p(X) in pp[0]..pp[mm]
-	 * 
-	 * Lookup tables:  
-	 * 		index_of[] = polynomial form   
-	 * 		alpha_to[] = contains j=alpha**i;
-	 * 
-	 * Polynomial form -> Index form  index_of[j=alpha**i] = i
-	 * 
-	 * alpha_to = 2 is the primitive element of GF( 2**mm )
-	 * 
-	 * @param generator_polynomial
-	 */
-	private void generate_gf( int[] generator_polynomial )
-	{
-		int i;
-		int mask = 1;
-
-        alpha_to[ MM ] = 0;
-        
-        for( i = 0; i < MM; i++ ) 
-        {
-            alpha_to[ i ] = mask;
-            index_of[ alpha_to[ i ] ] = i;
-            
-            if( generator_polynomial[ i ] != 0 )
-            {
-                alpha_to[ MM ] ^= mask;
-            }
-            
-            mask <<= 1;
-        }
-        
-        index_of[ alpha_to[ MM ] ] = MM;
-        
-        mask >>= 1;
-            
-        for ( i = MM + 1; i < NN; i++ ) 
-        {
-            if( alpha_to[ i - 1 ] >= mask )
-            {
-                alpha_to[ i ] = alpha_to[ MM ] ^ ( ( alpha_to[ i - 1 ] ^ mask ) << 1 );
-            }
-            else
-            {
-                alpha_to[ i ] = alpha_to[ i - 1 ] << 1;
-            }
-            
-            index_of[ alpha_to[ i ] ] = i;
-        }
-        
-        index_of[ 0 ] = -1;
-    }
-
     /**
      * Generates the polynomial for a TT-error correction code.
      * 
@@ -161,11 +101,76 @@ public class BerlekempMassey_63
         }
     }
 
+    /**
+     * Systematically encodes the data symbols into a codeword using the generator polynomial.  Parity symbols are
+     * placed in codeword indexes 0 to ( 2 * TT - 1 ) and data symbols in the remaining indexes, matching the symbol
+     * order expected by the decoder.
+     *
+     * @param data symbols (polynomial form) with length NN - 2 * TT.  Truncated codes supply zeros in the upper
+     * (shortened) symbol positions.
+     * @param codeword array with length NN to receive the encoded codeword
+     */
+    public void encode( int[] data, int[] codeword )
+    {
+        int parityLength = NN - KK;
+
+        Arrays.fill( codeword, 0, parityLength, 0 );
+
+        for( int i = KK - 1; i >= 0; i-- )
+        {
+            int feedback = index_of[ data[ i ] ^ codeword[ parityLength - 1 ] ];
+
+            for( int j = parityLength - 1; j > 0; j-- )
+            {
+                if( feedback != -1 && gg[ j ] != -1 )
+                {
+                    codeword[ j ] = codeword[ j - 1 ] ^ alpha_to[ ( gg[ j ] + feedback ) % NN ];
+                }
+                else
+                {
+                    codeword[ j ] = codeword[ j - 1 ];
+                }
+            }
+
+            codeword[ 0 ] = feedback != -1 ? alpha_to[ ( gg[ 0 ] + feedback ) % NN ] : 0;
+        }
+
+        System.arraycopy( data, 0, codeword, parityLength, KK );
+    }
+
+    /**
+     * Decodes a batch of codewords using the same per-thread working arrays.
+     *
+     * @param inputs received codewords, each with length NN
+     * @param outputs to receive the decoded codewords, each with length NN
+     * @param irrecoverable to receive the irrecoverable errors flag for each codeword
+     * @param count of codewords to decode from the arrays
+     * @return number of codewords with irrecoverable errors
+     */
+    public int decode( int[][] inputs, int[][] outputs, boolean[] irrecoverable, int count )
+    {
+        int failed = 0;
+
+        for( int x = 0; x < count; x++ )
+        {
+            irrecoverable[ x ] = decode( inputs[ x ], outputs[ x ] );
+
+            if( irrecoverable[ x ] )
+            {
+                failed++;
+            }
+        }
+
+        return failed;
+    }
+
 	/**
-	 * Decodes 
-	 * @param input
-	 * @param output
-	 * @return
+	 * Decodes the received codeword.  This method is thread-safe.  Codewords without errors (all syndromes zero) are
+	 * copied to the output without running the Berlekamp-Massey algorithm.
+	 *
+	 * @param input received codeword symbols (polynomial form, 0 - 63) with length NN
+	 * @param output to receive the decoded codeword with length NN
+	 * @return true if the codeword has irrecoverable errors
 	 */
     /* assume we have received bits grouped into mm-bit symbols in recd[i],
     i=0..(nn-1),  and recd[i] is polynomial form.
@@ -188,326 +193,332 @@ public class BerlekempMassey_63
     public boolean decode( final int[] input, int[] output ) //input, output
     {
     	int u, q;
-        int[][] elp = new int[ NN - KK + 2 ][ NN - KK ];
-        int[] d = new int[ NN - KK + 2 ]; 
-        int[] l = new int[ NN - KK + 2 ]; 
-        int[] u_lu = new int[ NN - KK + 2 ];
-        int[] s = new int[ NN - KK + 1 ];
+        Scratch scratch = SCRATCH.get();
+        int[] s = scratch.s;
         int count = 0; 
         boolean syn_error = false;
-        int[] root = new int[ TT ];
-        int[] loc = new int[ TT ];
-        int[] z = new int[ TT + 1 ];
-        int[] err = new int[ NN ];
-        int[] reg = new int[ TT + 1 ];
 
         boolean irrecoverable_error = false;
 
-    	/* put recd[i] into index form (ie as powers of alpha) */
-        for( int i = 0; i < NN; i++ )
+        /* first form the syndromes in polynomial form by Horner's rule, s[i] = recd(alpha**i).  Truncated codes
+           carry zeros in the upper symbols, so evaluation starts at the highest non-zero received symbol */
+        int highest = NN - 1;
+
+        while( highest >= 0 && input[ highest ] == 0 )
         {
-            output[ i ] = index_of[ input[ i ] ];
+            highest--;
         }
-        
-        /* first form the syndromes */
+
         for( int i = 1; i <= NN - KK; i++ ) 
         {
-            s[ i ] = 0;
+            int alpha_i = alpha_to[ i % NN ];
+            int syndrome = 0;
             
-            for( int j = 0; j < NN; j++ )
+            for( int j = highest; j >= 0; j-- )
             {
-                if( output[ j ] != -1 )
-                {
-                	/* recd[j] in index form */
-                	s[ i ] ^= alpha_to[ ( output[ j ] + i * j ) % NN ];
-                }
+                syndrome = GaloisField64.multiply( syndrome, alpha_i ) ^ input[ j ];
             }
             
-            /* convert syndrome from polynomial form to index form  */
-            if( s[ i ] != 0 )
+            if( syndrome != 0 )
             {
             	/* set flag if non-zero syndrome => error */            	
                 syn_error = true; 
             }
             
+            s[ i ] = syndrome;
+        }
+
+        if( !syn_error )
+        {
+            /* no non-zero syndromes => no errors: output received codeword without running Berlekamp-Massey */
+            System.arraycopy( input, 0, output, 0, NN );
+            return false;
+        }
+
+        /* convert syndromes from polynomial form to index form  */
+        for( int i = 1; i <= NN - KK; i++ )
+        {
             s[ i ] = index_of[ s[ i ] ];
         }
+
+    	/* put recd[i] into index form (ie as powers of alpha) */
+        for( int i = 0; i < NN; i++ )
+        {
+            output[ i ] = index_of[ input[ i ] ];
+        }
+
+        int[][] elp = scratch.elp;
+        int[] d = scratch.d;
+        int[] l = scratch.l;
+        int[] u_lu = scratch.u_lu;
+        int[] root = scratch.root;
+        int[] loc = scratch.loc;
+        int[] z = scratch.z;
+        int[] err = scratch.err;
+        int[] reg = scratch.reg;
+
+        for( int i = 0; i < NN - KK + 2; i++ )
+        {
+            Arrays.fill( elp[ i ], 0 );
+        }
+
+        /* compute the error location polynomial via the Berlekamp iterative algorithm,
+         following the terminology of Lin and Costello :   d[u] is the 'mu'th
+         discrepancy, where u='mu'+1 and 'mu' (the Greek letter!) is the step number
+         ranging from -1 to 2*tt (see L&C),  l[u] is the
+         degree of the elp at that step, and u_l[u] is the difference between the
+         step number and the degree of the elp.
+         */
+    	
+        /* initialise table entries */
+        d[ 0 ] = 0; /* index form */
+        d[ 1 ] = s[ 1 ]; /* index form */
+        elp[ 0 ][ 0 ] = 0; /* index form */
+        elp[ 1 ][ 0 ] = 1; /* polynomial form */
         
-        if( syn_error ) /* if errors, try and correct */
+        for( int i = 1; i < NN - KK; i++ ) 
         {
-            /* compute the error location polynomial via the Berlekamp iterative algorithm,
-             following the terminology of Lin and Costello :   d[u] is the 'mu'th
-             discrepancy, where u='mu'+1 and 'mu' (the Greek letter!) is the step number
-             ranging from -1 to 2*tt (see L&C),  l[u] is the
-             degree of the elp at that step, and u_l[u] is the difference between the
-             step number and the degree of the elp.
-             */
-        	
-            /* initialise table entries */
-            d[ 0 ] = 0; /* index form */
-            d[ 1 ] = s[ 1 ]; /* index form */
-            elp[ 0 ][ 0 ] = 0; /* index form */
-            elp[ 1 ][ 0 ] = 1; /* polynomial form */
+            elp[ 0 ][ i ] = -1; /* index form */
+            elp[ 1 ][ i ] = 0; /* polynomial form */
+        }
+        
+        l[ 0 ] = 0;
+        l[ 1 ] = 0;
+        u_lu[ 0 ] = -1;
+        u_lu[ 1 ] = 0;
+        u = 0;
+
+        do 
+        {
+            u++;
             
-            for( int i = 1; i < NN - KK; i++ ) 
+            if( d[ u ] == -1 ) 
             {
-                elp[ 0 ][ i ] = -1; /* index form */
-                elp[ 1 ][ i ] = 0; /* polynomial form */
-            }
-            
-            l[ 0 ] = 0;
-            l[ 1 ] = 0;
-            u_lu[ 0 ] = -1;
-            u_lu[ 1 ] = 0;
-            u = 0;
-
-            do 
+                l[ u + 1 ] = l[ u ];
+                
+                for( int i = 0; i <= l[ u ]; i++ ) 
+                {
+                    elp[ u + 1 ][ i ] = elp[ u ][ i ];
+                    elp[ u ][ i ] = index_of[ elp[ u ][ i ] ];
+                }
+            } 
+            else
+            /* search for words with greatest u_lu[q] for which d[q]!=0 */
             {
-                u++;
+                q = u - 1;
                 
-                if( d[ u ] == -1 ) 
+                while( ( d[ q ] == -1 ) && ( q > 0 ) )
                 {
-                    l[ u + 1 ] = l[ u ];
-                    
-                    for( int i = 0; i <= l[ u ]; i++ ) 
-                    {
-                        elp[ u + 1 ][ i ] = elp[ u ][ i ];
-                        elp[ u ][ i ] = index_of[ elp[ u ][ i ] ];
-                    }
-                } 
-                else
-                /* search for words with greatest u_lu[q] for which d[q]!=0 */
+                    q--;
+                }
+                
+                /* have found first non-zero d[q]  */
+                if( q > 0 ) 
                 {
-                    q = u - 1;
-                    
-                    while( ( d[ q ] == -1 ) && ( q > 0 ) )
-                    {
-                        q--;
-                    }
-                    
-                    /* have found first non-zero d[q]  */
-                    if( q > 0 ) 
+                	int j = q;
+                	
+                    do 
                     {
-                    	int j = q;
-                    	
-                        do 
+                        j--;
+                        
+                        if( ( d[ j ] != -1 ) && ( u_lu[ q ] < u_lu[ j ] ) )
                         {
-                            j--;
-                            
-                            if( ( d[ j ] != -1 ) && ( u_lu[ q ] < u_lu[ j ] ) )
-                            {
-                                q = j;
-                            }
-                        } 
-                        while( j > 0 );
-                    };
+                            q = j;
+                        }
+                    } 
+                    while( j > 0 );
+                };
 
-                    /* have now found q such that d[u]!=0 and u_lu[q] is maximum */
-                    /* store degree of new elp polynomial */
-                    if( l[ u ] > l[ q ] + u - q )
-                    {
-                        l[ u + 1 ] = l[ u ];
-                    }
-                    else
+                /* have now found q such that d[u]!=0 and u_lu[q] is maximum */
+                /* store degree of new elp polynomial */
+                if( l[ u ] > l[ q ] + u - q )
+                {
+                    l[ u + 1 ] = l[ u ];
+                }
+                else
+                {
+                    l[ u + 1 ] = l[ q ] + u - q;
+                }
+
+                /* form new elp(x) */
+                for( int i = 0; i < NN - KK; i++ )
+                {
+                    elp[ u + 1 ][ i ] = 0;
+                }                    	
+                
+                for( int i = 0; i <= l[q]; i++ )
+                {
+                    if( elp[ q ][ i ] != -1 )
                     {
-                        l[ u + 1 ] = l[ q ] + u - q;
+                        elp[ u + 1 ][ i + u - q ] = 
+                    		alpha_to[ ( d[ u ] + NN - d[ q ]
+                                + elp[ q ][ i ]) % NN ];
                     }
+                }
+                for( int i = 0; i <= l[u]; i++ ) 
+                {
+                    elp[ u + 1 ][ i ] ^= elp[ u ][ i ];
+                    elp[ u ][ i ] = index_of[ elp[ u ][ i ] ]; /*convert old elp value to index*/
+                }
+            }
+            
+            u_lu[ u + 1 ] = u - l[ u + 1 ];
 
-                    /* form new elp(x) */
-                    for( int i = 0; i < NN - KK; i++ )
-                    {
-                        elp[ u + 1 ][ i ] = 0;
-                    }                    	
-                    
-                    for( int i = 0; i <= l[q]; i++ )
+            /* form (u+1)th discrepancy */
+            if( u < NN - KK ) /* no discrepancy computed on last iteration */
+            {
+                if ( s[ u + 1 ] != -1 )
+                {
+                    d[ u + 1 ] = alpha_to[ s[ u + 1 ] ];
+                }
+                else
+                {
+                    d[ u + 1 ] = 0;
+                }
+                for( int i = 1; i <= l[ u + 1 ]; i++ )
+                {
+                    if( ( s[ u + 1 - i ] != -1 ) && ( elp[ u + 1 ][ i]  != 0 ) )
                     {
-                        if( elp[ q ][ i ] != -1 )
-                        {
-                            elp[ u + 1 ][ i + u - q ] = 
-                        		alpha_to[ ( d[ u ] + NN - d[ q ]
-                                    + elp[ q ][ i ]) % NN ];
-                        }
+                        d[ u + 1 ] ^= alpha_to[ ( s[ u + 1 - i ]
+                                + index_of[ elp[ u + 1 ][ i ] ] ) % NN ];
                     }
-                    for( int i = 0; i <= l[u]; i++ ) 
+                }
+                
+                d[ u + 1 ] = index_of[ d[ u + 1 ] ]; /* put d[u+1] into index form */
+            }
+        } 
+        while( ( u < NN - KK ) && ( l[ u + 1 ] <= TT) );
+
+        u++;
+        
+        if( l[ u ] <= TT ) /* can correct error */
+        {
+            /* put elp into index form */
+        	for( int i = 0; i <= l[u]; i++ )
+        	{
+            	elp[ u ][ i ] = index_of[ elp[ u ][ i ] ];
+        	}
+
+            /* find roots of the error location polynomial */
+        	for( int i = 1; i <= l[u]; i++ )
+        	{
+                reg[ i ] = elp[ u ][ i ];
+        	}
+        	
+            count = 0;
+            
+            for( int i = 1; i <= NN; i++ ) 
+            {
+                q = 1;
+                
+                for( int j = 1; j <= l[u]; j++ )
+                {
+                    if( reg[ j ] != -1 ) 
                     {
-                        elp[ u + 1 ][ i ] ^= elp[ u ][ i ];
-                        elp[ u ][ i ] = index_of[ elp[ u ][ i ] ]; /*convert old elp value to index*/
-                    }
+                        reg[ j ] = ( reg[ j ] + j ) % NN;
+                        q ^= alpha_to[ reg[ j ] ];
+                    };
                 }
                 
-                u_lu[ u + 1 ] = u - l[ u + 1 ];
+                if( q == 0 ) /* store root and error location number indices */
+                {
+                    root[ count ] = i;
+                    loc[ count ] = NN - i;
+                    count++;
+                };
+            };
 
-                /* form (u+1)th discrepancy */
-                if( u < NN - KK ) /* no discrepancy computed on last iteration */
+            if( count == l[ u ] ) /* no. roots = degree of elp hence <= tt errors */
+            {
+                /* form polynomial z(x) */
+            	for( int i = 1; i <= l[ u ]; i++ ) /* Z[0] = 1 always - do not need */
                 {
-                    if ( s[ u + 1 ] != -1 )
+                    if( ( s[ i ] != -1 ) && ( elp[ u ][ i ] != -1 ) )
                     {
-                        d[ u + 1 ] = alpha_to[ s[ u + 1 ] ];
+                        z[ i ] = alpha_to[ s[ i ] ] ^ alpha_to[ elp[ u ][ i ] ];
+                    }
+                    else if( ( s[ i ] != -1 ) && ( elp[ u ][ i ] == -1 ) )
+                    {
+                        z[ i ] = alpha_to[ s[ i ] ];
+                    }
+                    else if( ( s[ i ] == -1 ) && ( elp[ u ][ i ] != -1 ) )
+                    {
+                        z[ i ] = alpha_to[ elp[ u ][ i ] ];
                     }
                     else
                     {
-                        d[ u + 1 ] = 0;
+                        z[ i ] = 0;
                     }
-                    for( int i = 1; i <= l[ u + 1 ]; i++ )
+                    
+                    for( int j = 1; j < i; j++ )
                     {
-                        if( ( s[ u + 1 - i ] != -1 ) && ( elp[ u + 1 ][ i]  != 0 ) )
+                        if( ( s[ j ] != -1 ) && ( elp[ u ][ i - j ] != -1 ) )
                         {
-                            d[ u + 1 ] ^= alpha_to[ ( s[ u + 1 - i ]
-                                    + index_of[ elp[ u + 1 ][ i ] ] ) % NN ];
+                            z[ i ] ^= alpha_to[ ( elp[ u ][ i - j ] + s[ j ] ) % NN ];
                         }
                     }
                     
-                    d[ u + 1 ] = index_of[ d[ u + 1 ] ]; /* put d[u+1] into index form */
-                }
-            } 
-            while( ( u < NN - KK ) && ( l[ u + 1 ] <= TT) );
+                    z[ i ] = index_of[ z[ i ] ]; /* put into index form */
+                };
 
-            u++;
-            
-            if( l[ u ] <= TT ) /* can correct error */
-            {
-                /* put elp into index form */
-            	for( int i = 0; i <= l[u]; i++ )
-            	{
-                	elp[ u ][ i ] = index_of[ elp[ u ][ i ] ];
-            	}
-
-                /* find roots of the error location polynomial */
-            	for( int i = 1; i <= l[u]; i++ )
-            	{
-                    reg[ i ] = elp[ u ][ i ];
-            	}
-            	
-                count = 0;
-                
-                for( int i = 1; i <= NN; i++ ) 
+                /* evaluate errors at locations given by error location numbers loc[i] */
+                for( int i = 0; i < NN; i++ ) 
                 {
-                    q = 1;
+                    err[ i ] = 0;
                     
-                    for( int j = 1; j <= l[u]; j++ )
+                    if( output[ i ] != -1 ) /* convert recd[] to polynomial form */
                     {
-                        if( reg[ j ] != -1 ) 
-                        {
-                            reg[ j ] = ( reg[ j ] + j ) % NN;
-                            q ^= alpha_to[ reg[ j ] ];
-                        };
+                        output[ i ] = alpha_to[ output[ i ] ];
                     }
-                    
-                    if( q == 0 ) /* store root and error location number indices */
+                    else
                     {
-                        root[ count ] = i;
-                        loc[ count ] = NN - i;
-                        count++;
-                    };
-                };
-
-                if( count == l[ u ] ) /* no. roots = degree of elp hence <= tt errors */
+                        output[ i ] = 0;
+                    }
+                }
+                
+                for( int i = 0; i < l[ u ]; i++ ) /* compute numerator of error term first */
                 {
-                    /* form polynomial z(x) */
-                	for( int i = 1; i <= l[ u ]; i++ ) /* Z[0] = 1 always - do not need */
-                    {
-                        if( ( s[ i ] != -1 ) && ( elp[ u ][ i ] != -1 ) )
-                        {
-                            z[ i ] = alpha_to[ s[ i ] ] ^ alpha_to[ elp[ u ][ i ] ];
-                        }
-                        else if( ( s[ i ] != -1 ) && ( elp[ u ][ i ] == -1 ) )
-                        {
-                            z[ i ] = alpha_to[ s[ i ] ];
-                        }
-                        else if( ( s[ i ] == -1 ) && ( elp[ u ][ i ] != -1 ) )
-                        {
-                            z[ i ] = alpha_to[ elp[ u ][ i ] ];
-                        }
-                        else
-                        {
-                            z[ i ] = 0;
-                        }
-                        
-                        for( int j = 1; j < i; j++ )
-                        {
-                            if( ( s[ j ] != -1 ) && ( elp[ u ][ i - j ] != -1 ) )
-                            {
-                                z[ i ] ^= alpha_to[ ( elp[ u ][ i - j ] + s[ j ] ) % NN ];
-                            }
-                        }
-                        
-                        z[ i ] = index_of[ z[ i ] ]; /* put into index form */
-                    };
-
-                    /* evaluate errors at locations given by error location numbers loc[i] */
-                    for( int i = 0; i < NN; i++ ) 
+                    err[ loc[ i ] ] = 1; /* accounts for z[0] */
+                    
+                    for( int j = 1; j <= l[ u ]; j++ )
                     {
-                        err[ i ] = 0;
-                        
-                        if( output[ i ] != -1 ) /* convert recd[] to polynomial form */
+                        if( z[ j ] != -1 )
                         {
-                            output[ i ] = alpha_to[ output[ i ] ];
-                        }
-                        else
-                        {
-                            output[ i ] = 0;
+                            err[ loc[ i ] ] ^= alpha_to[ ( z[ j ] + j * root[ i ] ) % NN ];
                         }
                     }
                     
-                    for( int i = 0; i < l[ u ]; i++ ) /* compute numerator of error term first */
+                    if( err[ loc[ i ] ] != 0 ) 
                     {
-                        err[ loc[ i ] ] = 1; /* accounts for z[0] */
+                        err[ loc[ i ] ] = index_of[ err[ loc[ i ] ] ];
                         
-                        for( int j = 1; j <= l[ u ]; j++ )
-                        {
-                            if( z[ j ] != -1 )
-                            {
-                                err[ loc[ i ] ] ^= alpha_to[ ( z[ j ] + j * root[ i ] ) % NN ];
-                            }
-                        }
+                        q = 0; /* form denominator of error term */
                         
-                        if( err[ loc[ i ] ] != 0 ) 
+                        for (int j = 0; j < l[u]; j++)
                         {
-                            err[ loc[ i ] ] = index_of[ err[ loc[ i ] ] ];
-                            
-                            q = 0; /* form denominator of error term */
-                            
-                            for (int j = 0; j < l[u]; j++)
+                            if (j != i)
                             {
-                                if (j != i)
-                                {
-                                    q += index_of[1 ^ alpha_to[(loc[j] + root[i]) % NN]];
-                                }
+                                q += index_of[1 ^ alpha_to[(loc[j] + root[i]) % NN]];
                             }
-                            
-                            q = q % NN;
-                            err[loc[i]] = alpha_to[(err[loc[i]] - q + NN) % NN];
-                            output[loc[i]] ^= err[loc[i]]; /*recd[i] must be in polynomial form */
                         }
+                        
+                        q = q % NN;
+                        err[loc[i]] = alpha_to[(err[loc[i]] - q + NN) % NN];
+                        output[loc[i]] ^= err[loc[i]]; /*recd[i] must be in polynomial form */
                     }
-                } 
-                else 
-                {
-                    /* no. roots != degree of elp => >tt errors and cannot solve */
-                    irrecoverable_error = true;
                 }
-
             } 
             else 
             {
-                /* elp has degree >tt hence cannot solve */
+                /* no. roots != degree of elp => >tt errors and cannot solve */
                 irrecoverable_error = true;
             }
+
         } 
         else 
         {
-            /* no non-zero syndromes => no errors: output received codeword */
-        	for (int i = 0; i < NN; i++)
-        	{
-                if (output[i] != -1) /* convert recd[] to polynomial form */
-                {
-                    output[i] = alpha_to[output[i]];
-                }
-                else
-                {
-                    output[i] = 0;
-                }
-        	}
+            /* elp has degree >tt hence cannot solve */
+            irrecoverable_error = true;
         }
 
         if( irrecoverable_error ) 
@@ -527,4 +538,21 @@ public class BerlekempMassey_63
 
         return irrecoverable_error;
     }
+
+    /**
+     * Decoder working arrays sized for the largest error correction capacity (TT = 31) of a 63-symbol code
+     */
+    private static class Scratch
+    {
+        private int[][] elp = new int[ NN + 2 ][ NN ];
+        private int[] d = new int[ NN + 2 ];
+        private int[] l = new int[ NN + 2 ];
+        private int[] u_lu = new int[ NN + 2 ];
+        private int[] s = new int[ NN + 1 ];
+        private int[] root = new int[ NN ];
+        private int[] loc = new int[ NN ];
+        private int[] z = new int[ NN + 1 ];
+        private int[] err = new int[ NN ];
+        private int[] reg = new int[ NN + 1 ];
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.edac;
+
+/**
+ * Galois Field GF(2^6) arithmetic using pre-computed log (index) and anti-log (alpha) lookup tables.  The field is
+ * generated from the P25 primitive polynomial p(x) = x^6 + x + 1 with primitive element alpha = 2.
+ *
+ * The tables are generated once and shared by all of the 63-symbol BCH and Reed-Solomon decoders so that decoder
+ * instances, which are created per message, don't have to regenerate the field.
+ */
+public class GaloisField64
+{
+    /* Field size GF( 2 ** MM ) */
+    public static final int MM = 6;
+
+    /* Number of non-zero field elements: NN = 2 ** MM - 1 */
+    public static final int NN = 63;
+
+    /* Index (log) form value for the zero element which doesn't have a logarithm */
+    public static final int ZERO_INDEX = -1;
+
+    /* P25 primitive polynomial coefficients p0 .. p5 (x^6 + x + 1) */
+    private static final int[] PRIMITIVE_POLYNOMIAL = {1, 1, 0, 0, 0, 0, 1};
+
+    /**
+     * Anti-log table: polynomial form of alpha^i for i = 0 .. 62.  Index 63 (alpha^63 == alpha^0 == 1) is included
+     * so that the table can be used directly as the alpha_to table of the Lin & Costello decoder.
+     */
+    static final int[] ALPHA_TO = new int[NN + 1];
+
+    /**
+     * Extended anti-log table covering exponents 0 .. (2 * NN) so that the sum of two logs can be looked up without
+     * a modulo operation.
+     */
+    private static final int[] ALPHA_TO_EXTENDED = new int[2 * NN + 1];
+
+    /**
+     * Log table: index form i for polynomial form value alpha^i.  The zero element is mapped to -1.
+     *
+     * Note: this table and the ALPHA_TO table are shared with package classes and must be treated as read-only.
+     */
+    static final int[] INDEX_OF = new int[NN + 1];
+
+    /**
+     * Full multiplication table for polynomial form values indexed by (a << 6) | b
+     */
+    private static final int[] MULTIPLY_TABLE = new int[(NN + 1) * (NN + 1)];
+
+    static
+    {
+        int mask = 1;
+
+        ALPHA_TO[MM] = 0;
+
+        for(int i = 0; i < MM; i++)
+        {
+            ALPHA_TO[i] = mask;
+            INDEX_OF[ALPHA_TO[i]] = i;
+
+            if(PRIMITIVE_POLYNOMIAL[i] != 0)
+            {
+                ALPHA_TO[MM] ^= mask;
+            }
+
+            mask <<= 1;
+        }
+
+        INDEX_OF[ALPHA_TO[MM]] = MM;
+
+        mask >>= 1;
+
+        for(int i = MM + 1; i < NN; i++)
+        {
+            if(ALPHA_TO[i - 1] >= mask)
+            {
+                ALPHA_TO[i] = ALPHA_TO[MM] ^ ((ALPHA_TO[i - 1] ^ mask) << 1);
+            }
+            else
+            {
+                ALPHA_TO[i] = ALPHA_TO[i - 1] << 1;
+            }
+
+            INDEX_OF[ALPHA_TO[i]] = i;
+        }
+
+        INDEX_OF[0] = ZERO_INDEX;
+
+        for(int i = 0; i < ALPHA_TO_EXTENDED.length; i++)
+        {
+            ALPHA_TO_EXTENDED[i] = ALPHA_TO[i % NN];
+        }
+
+        for(int x = 1; x <= NN; x++)
+        {
+            for(int y = 1; y <= NN; y++)
+            {
+                MULTIPLY_TABLE[(x << MM) | y] = ALPHA_TO_EXTENDED[INDEX_OF[x] + INDEX_OF[y]];
+            }
+        }
+    }
+
+    /**
+     * Utility class - no instances
+     */
+    private GaloisField64()
+    {
+    }
+
+    /**
+     * Polynomial form of alpha raised to the power
+     * @param power of alpha, any non-negative value
+     * @return alpha^power
+     */
+    public static int alpha(int power)
+    {
+        return ALPHA_TO[power % NN];
+    }
+
+    /**
+     * Index (log) form of the value
+     * @param value in polynomial form (0 - 63)
+     * @return log of the value or -1 for zero
+     */
+    public static int log(int value)
+    {
+        return INDEX_OF[value];
+    }
+
+    /**
+     * Multiplies two field elements in polynomial form.
+     */
+    public static int multiply(int a, int b)
+    {
+        return MULTIPLY_TABLE[(a << MM) | b];
+    }
+
+    /**
+     * Divides field element a by non-zero field element b, both in polynomial form.
+     *
+     * @throws ArithmeticException if b is zero
+     */
+    public static int divide(int a, int b)
+    {
+        if(b == 0)
+        {
+            throw new ArithmeticException("Division by zero in GF(64)");
+        }
+
+        if(a == 0)
+        {
+            return 0;
+        }
+
+        return ALPHA_TO_EXTENDED[INDEX_OF[a] - INDEX_OF[b] + NN];
+    }
+
+    /**
+     * Multiplicative inverse of the non-zero field element
+     *
+     * @throws ArithmeticException if value is zero
+     */
+    public static int inverse(int value)
+    {
+        return divide(1, value);
+    }
+
+    /**
+     * Multiplies a polynomial form value by alpha^power where power is in index form.
+     * @param value in polynomial form
+     * @param power in index form (0 - 62) or -1 to indicate the zero element
+     */
+    public static int multiplyByAlpha(int value, int power)
+    {
+        if(value == 0 || power == ZERO_INDEX)
+        {
+            return 0;
+        }
+
+        return ALPHA_TO_EXTENDED[INDEX_OF[value] + power];
+    }
+}
@@ -34,8 +34,60 @@ public class Golay18
 {
     private final static Logger mLog = LoggerFactory.getLogger(Golay18.class);
 
+    /**
+     * Table-driven decode of a packed 18-bit shortened golay codeword.  The codeword is decoded as a Golay(24,12,8)
+     * codeword with the 6 left-most (shortened) bits set to zero.
+     *
+     * @param codeword packed 18-bit codeword
+     * @return corrected codeword or SyndromeTable.UNCORRECTABLE
+     */
+    public static int decode(int codeword)
+    {
+        int corrected = Golay24.decode(codeword);
+
+        //A correction in the shortened bits indicates that the nearest codeword is not a valid Golay18 codeword
+        if(corrected == SyndromeTable.UNCORRECTABLE || (corrected & ~0x3FFFF) != 0)
+        {
+            return SyndromeTable.UNCORRECTABLE;
+        }
+
+        return corrected;
+    }
+
+    /**
+     * Table-driven error detection and correction of the 18-bit codeword that starts at the start index.  Updates
+     * the corrected bit count on the message.
+     *
+     * @param message containing the codeword
+     * @param startIndex of the codeword
+     * @return number of corrected bit errors (0 - 3) or SyndromeTable.UNCORRECTABLE
+     */
+    public static int correct(CorrectedBinaryMessage message, int startIndex)
+    {
+        int codeword = message.getInt(startIndex, startIndex + 17);
+        int corrected = decode(codeword);
+
+        if(corrected == SyndromeTable.UNCORRECTABLE)
+        {
+            return SyndromeTable.UNCORRECTABLE;
+        }
+
+        int errors = Integer.bitCount(codeword ^ corrected);
+
+        if(errors > 0)
+        {
+            message.load(startIndex, 18, corrected);
+            message.incrementCorrectedBitCount(errors);
+        }
+
+        return errors;
+    }
+
     /**
      * Performs error detection and correction.
+     *
+     * Note: this is the original decoder that uses the bit-serial Golay24 decoder.  It is retained as the reference
+     * implementation for the SyndromeTableTest verification.  Use the table-driven correct() method.
      */
     public static void checkAndCorrect(CorrectedBinaryMessage message, int startIndex)
     {
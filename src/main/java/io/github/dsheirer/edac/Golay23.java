@@ -2,6 +2,8 @@ package io.github.dsheirer.edac;
 
 import io.github.dsheirer.bits.BinaryMessage;
 
+import java.util.Arrays;
+
 public class Golay23
 {
 	public static final int MAX_CORRECTABLE_ERRORS = 3;
@@ -13,12 +15,54 @@ public class Golay23
 	    0x040, 0x020, 0x010, 0x008, 0x004, 0x002, 0x001 
 	};
 
+	/**
+	 * Syndrome to error pattern lookup table.  Golay(23,12,7) is a perfect code, so each of the 2048 syndromes maps
+	 * to exactly one error pattern with 3 or fewer bit errors.
+	 */
+	static final SyndromeTable SYNDROME_TABLE = new SyndromeTable( Arrays.copyOf( CHECKSUMS, 12 ), 11,
+		MAX_CORRECTABLE_ERRORS );
+
+	/**
+	 * Table-driven decode of a packed 23-bit codeword, with the first data bit in bit position 22.
+	 *
+	 * @param codeword - packed 23-bit golay codeword
+	 * @return - corrected codeword
+	 */
+	public static int decode( int codeword )
+	{
+		return SYNDROME_TABLE.decode( codeword );
+	}
+
+	/**
+	 * Table-driven error detection and correction of the 23-bit golay codeword starting at the start index.
+	 *
+	 * @param frame - message frame bitset
+	 * @param startIndex - first bit index of the golay protected bit sequence
+	 *
+	 * @return - number of corrected bit errors (0 - 3)
+	 */
+	public static int correct( BinaryMessage frame, int startIndex )
+	{
+		int codeword = frame.getInt( startIndex, startIndex + 22 );
+		int errorPattern = SYNDROME_TABLE.getErrorPattern( SYNDROME_TABLE.getSyndrome( codeword ) );
+
+		if( errorPattern != 0 )
+		{
+			frame.load( startIndex, 23, codeword ^ errorPattern );
+		}
+
+		return Integer.bitCount( errorPattern );
+	}
+
 	/**
 	 * Implements Golay(23,12,7) error detection and correction.  Returns the
 	 * number of detected errors.  If the error count is less than or equal to
 	 * the max correctable errors (3), then the error bits are corrected.
 	 * Otherwise the message is left intact and an error count greater than 3
 	 * is returned.
+	 *
+	 * Note: this is the original bit-serial decoder.  It is retained as the reference implementation for the
+	 * SyndromeTableTest verification.  Use the table-driven correct() method instead.
 	 * 
 	 * @param frame - message frame bitset
 	 * @param startIndex - first bit index of the golay protected bit sequence
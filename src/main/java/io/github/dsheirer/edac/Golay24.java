@@ -45,6 +45,67 @@ public class Golay24
                     0x040, 0x020, 0x010, 0x008, 0x004, 0x002, 0x001
             };
 
+    /**
+     * Syndrome to error pattern lookup table for the first 23 bits of the codeword
+     */
+    private static final SyndromeTable SYNDROME_TABLE = Golay23.SYNDROME_TABLE;
+
+    /**
+     * Table-driven decode of a packed 24-bit codeword with the first data bit in bit position 23 and the overall
+     * parity bit in bit position 0.  Corrects up to 3 bit errors and detects 4 bit errors.
+     *
+     * @param codeword packed 24-bit golay codeword
+     * @return corrected codeword or SyndromeTable.UNCORRECTABLE
+     */
+    public static int decode(int codeword)
+    {
+        int golay23 = codeword >>> 1;
+        int corrected = ((golay23 ^ SYNDROME_TABLE.getErrorPattern(SYNDROME_TABLE.getSyndrome(golay23))) << 1) |
+            (codeword & 1);
+
+        //Restore even overall parity
+        if((Integer.bitCount(corrected) & 1) != 0)
+        {
+            corrected ^= 1;
+        }
+
+        if(Integer.bitCount(codeword ^ corrected) > 3)
+        {
+            return SyndromeTable.UNCORRECTABLE;
+        }
+
+        return corrected;
+    }
+
+    /**
+     * Table-driven error detection and correction of the 24-bit golay codeword that starts at the start index.
+     * Updates the corrected bit count on the message.
+     *
+     * @param message containing the codeword
+     * @param startIndex of the codeword
+     * @return number of corrected bit errors (0 - 3) or SyndromeTable.UNCORRECTABLE
+     */
+    public static int correct(CorrectedBinaryMessage message, int startIndex)
+    {
+        int codeword = message.getInt(startIndex, startIndex + 23);
+        int corrected = decode(codeword);
+
+        if(corrected == SyndromeTable.UNCORRECTABLE)
+        {
+            return SyndromeTable.UNCORRECTABLE;
+        }
+
+        int errors = Integer.bitCount(codeword ^ corrected);
+
+        if(errors > 0)
+        {
+            message.load(startIndex, 24, corrected);
+            message.incrementCorrectedBitCount(errors);
+        }
+
+        return errors;
+    }
+
     private static int calculateChecksum(BinaryMessage message, int startIndex)
     {
         int calculated = 0; //Starting value
@@ -64,6 +125,9 @@ public class Golay24
      * Performs error detection and returns a corrected copy of the 24-bit
      * message that starts at the start index.
      *
+     * Note: this is the original bit-serial decoder.  It is retained as the reference implementation for the
+     * SyndromeTableTest verification and it only supports a start index of 0.  Use the table-driven correct() method.
+     *
      * @param message - source message containing startIndex + 24 bits length
      * @param startIndex - start of the 24-bit galois 24 protected bit set
      * @return - corrected 24-bit galois value
@@ -14,9 +14,58 @@ public class Hamming10
 
     private static int[] CHECKSUMS = new int[]{0xE, 0xD, 0xB, 0X7, 0x3, 0xC};
 
+    /**
+     * Syndrome to single-bit error pattern lookup table.  Syndromes 5, 6, 9, 10 and 15 are uncorrectable.
+     */
+    private static final SyndromeTable SYNDROME_TABLE = new SyndromeTable(CHECKSUMS, 4, 1);
+
+    /**
+     * Table-driven decode of a packed 10-bit codeword with the first data bit in bit position 9.
+     *
+     * @param codeword packed 10-bit codeword
+     * @return corrected codeword or SyndromeTable.UNCORRECTABLE
+     */
+    public static int decode(int codeword)
+    {
+        return SYNDROME_TABLE.decode(codeword);
+    }
+
+    /**
+     * Table-driven error detection and correction of any single-bit errors.  Updates the corrected bit count on
+     * the message.
+     *
+     * @param frame - binary frame containing a Hamming(10,6,3) protected field
+     * @param startIndex - offset to the first bit of the field
+     * @return - 0 = no errors
+     * 1 = a single-bit error was corrected
+     * 2 = more than 1 bit error detected - unable to correct word
+     */
+    public static int correct(CorrectedBinaryMessage frame, int startIndex)
+    {
+        int errorPattern = SYNDROME_TABLE.getErrorPattern(SYNDROME_TABLE.getSyndrome(frame.getInt(startIndex,
+            startIndex + 9)));
+
+        if(errorPattern == SyndromeTable.UNCORRECTABLE)
+        {
+            return 2;
+        }
+
+        if(errorPattern != 0)
+        {
+            frame.flip(startIndex + 9 - Integer.numberOfTrailingZeros(errorPattern));
+            frame.incrementCorrectedBitCount(1);
+            return 1;
+        }
+
+        return 0;
+    }
+
     /**
      * Performs error detection and correction of any single-bit errors.
      *
+     * Note: this is the original bit-serial decoder.  It is retained as the reference implementation for the
+     * SyndromeTableTest verification.  Use the table-driven correct() method.
+     *
      * @param frame - binary frame containing a Hamming(10,6,3) protected field
      * @param startIndex - offset to the first bit of the field
      * @return - 0 = no errors
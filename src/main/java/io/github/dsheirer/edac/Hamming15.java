@@ -7,8 +7,50 @@ public class Hamming15
 	private static int[] CHECKSUMS = new int[] { 0xF,0xE,0xD,0xC,0xB,0XA,0x9,
 		0x7,0x6,0x5,0x3 };
 
+	/**
+	 * Syndrome to single-bit error pattern lookup table.  Hamming(15,11,3) is a perfect code, so every non-zero
+	 * syndrome maps to a single-bit error.
+	 */
+	private static final SyndromeTable SYNDROME_TABLE = new SyndromeTable( CHECKSUMS, 4, 1 );
+
+	/**
+	 * Table-driven decode of a packed 15-bit codeword with the first data bit in bit position 14.
+	 *
+	 * @param codeword - packed 15-bit codeword
+	 * @return - corrected codeword
+	 */
+	public static int decode( int codeword )
+	{
+		return SYNDROME_TABLE.decode( codeword );
+	}
+
+	/**
+	 * Table-driven error detection and correction of any single-bit errors.
+	 *
+	 * @param frame - binary frame containing a hamming(15,11,4) protected field
+	 * @param startIndex - offset to the first bit of the field
+	 * @return - 0 = no errors
+	 * 			 1 = a single-bit error was corrected
+	 */
+	public static int correct( BinaryMessage frame, int startIndex )
+	{
+		int errorPattern = SYNDROME_TABLE.getErrorPattern( SYNDROME_TABLE.getSyndrome( frame.getInt( startIndex,
+			startIndex + 14 ) ) );
+
+		if( errorPattern != 0 )
+		{
+			frame.flip( startIndex + 14 - Integer.numberOfTrailingZeros( errorPattern ) );
+			return 1;
+		}
+
+		return 0;
+	}
+
 	/**
 	 * Performs error detection and correction of any single-bit errors.
+	 *
+	 * Note: this is the original bit-serial decoder.  It is retained as the reference implementation for the
+	 * SyndromeTableTest verification.  Use the table-driven correct() method.
 	 * 
 	 * @param frame - binary frame containing a hamming(15,11,4) protected field
 	 * 
@@ -0,0 +1,150 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.edac;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Decoding throughput for the RS(63,k) decoders used by P25 Phase 1 and Phase 2, measured with codewords that
+ * contain 0 errors, 1 symbol error and the maximum correctable number of symbol errors.  Each run also verifies
+ * that the decoded codewords match the encoded codewords.
+ *
+ * Run as a standalone application.
+ */
+public class ReedSolomonBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(ReedSolomonBenchmark.class);
+
+    private static final int CODEWORD_COUNT = 1000;
+    private static final int ITERATIONS = 200;
+
+    /**
+     * Creates encoded codewords for a truncated code, using data symbols only in the lower (un-truncated) positions
+     *
+     * @param decoder to encode with
+     * @param dataSymbols number of non-zero data symbol positions for the truncated code
+     * @param random generator
+     * @return codewords
+     */
+    private static int[][] encode(BerlekempMassey_63 decoder, int dataSymbols, Random random)
+    {
+        int[][] codewords = new int[CODEWORD_COUNT][63];
+        int[] data = new int[63 - 2 * decoder.TT];
+
+        for(int x = 0; x < CODEWORD_COUNT; x++)
+        {
+            for(int y = 0; y < dataSymbols; y++)
+            {
+                data[y] = random.nextInt(64);
+            }
+
+            decoder.encode(data, codewords[x]);
+        }
+
+        return codewords;
+    }
+
+    /**
+     * Creates a copy of the codewords with the specified number of symbol errors at random positions within the
+     * (truncated) codeword length
+     */
+    private static int[][] corrupt(int[][] codewords, int errors, int length, Random random)
+    {
+        int[][] received = new int[codewords.length][];
+
+        for(int x = 0; x < codewords.length; x++)
+        {
+            received[x] = codewords[x].clone();
+
+            int applied = 0;
+
+            while(applied < errors)
+            {
+                int position = random.nextInt(length);
+
+                if(received[x][position] == codewords[x][position])
+                {
+                    received[x][position] ^= 1 + random.nextInt(63);
+                    applied++;
+                }
+            }
+        }
+
+        return received;
+    }
+
+    private static void benchmark(String label, BerlekempMassey_63 decoder, int dataSymbols, Random random)
+    {
+        int length = dataSymbols + 2 * decoder.TT;
+        int[][] codewords = encode(decoder, dataSymbols, random);
+
+        for(int errors : new int[]{0, 1, decoder.TT})
+        {
+            int[][] received = corrupt(codewords, errors, length, random);
+            int[][] outputs = new int[CODEWORD_COUNT][63];
+            boolean[] irrecoverable = new boolean[CODEWORD_COUNT];
+
+            //Warm up
+            for(int x = 0; x < ITERATIONS; x++)
+            {
+                decoder.decode(received, outputs, irrecoverable, CODEWORD_COUNT);
+            }
+
+            long start = System.nanoTime();
+
+            for(int x = 0; x < ITERATIONS; x++)
+            {
+                decoder.decode(received, outputs, irrecoverable, CODEWORD_COUNT);
+            }
+
+            long duration = System.nanoTime() - start;
+
+            int failures = 0;
+
+            for(int x = 0; x < CODEWORD_COUNT; x++)
+            {
+                if(irrecoverable[x] || !Arrays.equals(outputs[x], codewords[x]))
+                {
+                    failures++;
+                }
+            }
+
+            mLog.info(String.format("%-14s errors: %2d  %8.1f ns/codeword  failures: %d", label, errors,
+                duration / ((double)CODEWORD_COUNT * ITERATIONS), failures));
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(1);
+
+        benchmark("RS(24,12,13)", new ReedSolomon_63_47_17(6), 12, random);
+        benchmark("RS(24,16,9)", new ReedSolomon_63_47_17(4), 16, random);
+        benchmark("RS(36,20,17)", new ReedSolomon_63_47_17(8), 20, random);
+        benchmark("RS(52,30,23)", new ReedSolomon_63_35_29(13), 26, random);
+        benchmark("RS(44,16,29)", new ReedSolomon_44_16_29(), 16, random);
+    }
+}
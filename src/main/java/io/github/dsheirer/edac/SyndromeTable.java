@@ -0,0 +1,183 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.edac;
+
+import java.util.Arrays;
+
+/**
+ * Pre-computed syndrome decoding tables for short systematic binary block codes (Golay, Hamming) that operate on
+ * codewords packed into an integer.
+ *
+ * Packed codeword bit ordering matches BinaryMessage.getInt(start, end): the first (left-most) data bit of the
+ * codeword is the most significant bit of the packed value and the last parity bit is the least significant bit.
+ *
+ * Two tables are generated at construction:
+ * <ul>
+ *     <li>Checksum table: data value to parity value, replacing the bit-by-bit XOR of per-bit checksums</li>
+ *     <li>Error pattern table: syndrome to minimum weight correctable error pattern, or UNCORRECTABLE</li>
+ * </ul>
+ *
+ * Instances are immutable and thread-safe.
+ */
+public class SyndromeTable
+{
+    /**
+     * Indicates that the syndrome does not map to a correctable error pattern
+     */
+    public static final int UNCORRECTABLE = -1;
+
+    private final int mDataBits;
+    private final int mParityBits;
+    private final int mParityMask;
+    private final int mMaxCorrectableErrors;
+    private final int[] mChecksums;
+    private final int[] mErrorPatterns;
+
+    /**
+     * Constructs the checksum and error pattern tables.
+     *
+     * @param dataBitChecksums parity value for each data bit, ordered from the first (most significant) data bit
+     * @param parityBits number of parity bits in the codeword
+     * @param maxCorrectableErrors maximum weight of error patterns to load into the error pattern table
+     */
+    public SyndromeTable(int[] dataBitChecksums, int parityBits, int maxCorrectableErrors)
+    {
+        mDataBits = dataBitChecksums.length;
+        mParityBits = parityBits;
+        mParityMask = (1 << parityBits) - 1;
+        mMaxCorrectableErrors = maxCorrectableErrors;
+
+        mChecksums = new int[1 << mDataBits];
+
+        for(int data = 1; data < mChecksums.length; data++)
+        {
+            //Reuse the checksum of the value with the lowest set bit removed, so each entry is a single XOR
+            int lowestBit = Integer.numberOfTrailingZeros(data);
+            mChecksums[data] = mChecksums[data & (data - 1)] ^ dataBitChecksums[mDataBits - 1 - lowestBit];
+        }
+
+        mErrorPatterns = new int[1 << mParityBits];
+        Arrays.fill(mErrorPatterns, UNCORRECTABLE);
+        mErrorPatterns[0] = 0;
+
+        //Weight of the error pattern(s) that claimed each syndrome, used to detect ambiguous syndromes
+        int[] claimedWeights = new int[mErrorPatterns.length];
+
+        for(int weight = 1; weight <= maxCorrectableErrors; weight++)
+        {
+            loadErrorPatterns(0, 0, weight, weight, claimedWeights);
+        }
+    }
+
+    /**
+     * Recursively enumerates all error patterns of the specified weight and loads each pattern into the error table
+     * when the pattern's syndrome is not already claimed by a lower weight pattern.  Syndromes that are shared by
+     * two or more patterns of the same (lowest) weight are ambiguous and remain UNCORRECTABLE.
+     */
+    private void loadErrorPatterns(int pattern, int firstBit, int remaining, int weight, int[] claimedWeights)
+    {
+        if(remaining == 0)
+        {
+            int syndrome = getSyndrome(pattern);
+
+            if(syndrome != 0 && claimedWeights[syndrome] == 0)
+            {
+                claimedWeights[syndrome] = weight;
+                mErrorPatterns[syndrome] = pattern;
+            }
+            else if(claimedWeights[syndrome] == weight)
+            {
+                mErrorPatterns[syndrome] = UNCORRECTABLE;
+            }
+
+            return;
+        }
+
+        for(int bit = firstBit; bit < getCodewordLength(); bit++)
+        {
+            loadErrorPatterns(pattern | (1 << bit), bit + 1, remaining - 1, weight, claimedWeights);
+        }
+    }
+
+    /**
+     * Codeword length in bits
+     */
+    public int getCodewordLength()
+    {
+        return mDataBits + mParityBits;
+    }
+
+    /**
+     * Maximum number of bit errors that can be corrected by this table
+     */
+    public int getMaxCorrectableErrors()
+    {
+        return mMaxCorrectableErrors;
+    }
+
+    /**
+     * Calculates the parity (checksum) for the packed data value
+     * @param data value with the first data bit in the most significant position
+     * @return parity bits
+     */
+    public int getChecksum(int data)
+    {
+        return mChecksums[data];
+    }
+
+    /**
+     * Calculates the syndrome for a packed codeword
+     * @param codeword containing data and parity bits
+     * @return syndrome where zero indicates a valid codeword
+     */
+    public int getSyndrome(int codeword)
+    {
+        return mChecksums[codeword >>> mParityBits] ^ (codeword & mParityMask);
+    }
+
+    /**
+     * Error pattern for the syndrome
+     * @param syndrome value
+     * @return error pattern aligned to the packed codeword or UNCORRECTABLE
+     */
+    public int getErrorPattern(int syndrome)
+    {
+        return mErrorPatterns[syndrome];
+    }
+
+    /**
+     * Decodes the packed codeword
+     * @param codeword to decode
+     * @return corrected codeword or UNCORRECTABLE
+     */
+    public int decode(int codeword)
+    {
+        int errorPattern = mErrorPatterns[getSyndrome(codeword)];
+
+        if(errorPattern == UNCORRECTABLE)
+        {
+            return UNCORRECTABLE;
+        }
+
+        return codeword ^ errorPattern;
+    }
+}
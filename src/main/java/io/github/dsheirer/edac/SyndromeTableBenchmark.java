@@ -0,0 +1,189 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.edac;
+
+import io.github.dsheirer.bits.BinaryMessage;
+import io.github.dsheirer.bits.CorrectedBinaryMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Throughput comparison of the original bit-serial Golay/Hamming decoders against the table-driven syndrome decoders
+ * using the same pre-generated set of received codewords containing 0 - 3 random bit errors.
+ *
+ * Run as a standalone application.
+ */
+public class SyndromeTableBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(SyndromeTableBenchmark.class);
+
+    private static final int CODEWORD_COUNT = 4096;
+    private static final int ITERATIONS = 200;
+
+    private interface Decoder
+    {
+        void decode(CorrectedBinaryMessage message);
+    }
+
+    /**
+     * Creates messages that each contain the codeword (all zeros is a valid codeword for each code) with random
+     * bit errors up to the max error count.
+     */
+    private static CorrectedBinaryMessage[] generate(int length, int maxErrors, Random random)
+    {
+        CorrectedBinaryMessage[] messages = new CorrectedBinaryMessage[CODEWORD_COUNT];
+
+        for(int x = 0; x < CODEWORD_COUNT; x++)
+        {
+            messages[x] = new CorrectedBinaryMessage(length);
+
+            int errors = random.nextInt(maxErrors + 1);
+
+            for(int y = 0; y < errors; y++)
+            {
+                messages[x].set(random.nextInt(length));
+            }
+        }
+
+        return messages;
+    }
+
+    /**
+     * Decodes a copy of each of the messages for the specified iterations and returns the elapsed time in nanos,
+     * excluding the time to create the message copies.
+     */
+    private static long process(CorrectedBinaryMessage[] messages, Decoder decoder)
+    {
+        CorrectedBinaryMessage[] copies = new CorrectedBinaryMessage[messages.length];
+        long duration = 0;
+
+        for(int iteration = 0; iteration < ITERATIONS; iteration++)
+        {
+            for(int x = 0; x < messages.length; x++)
+            {
+                copies[x] = new CorrectedBinaryMessage(messages[x]);
+            }
+
+            long start = System.nanoTime();
+
+            for(CorrectedBinaryMessage copy : copies)
+            {
+                decoder.decode(copy);
+            }
+
+            duration += System.nanoTime() - start;
+        }
+
+        return duration;
+    }
+
+    private static void compare(String label, CorrectedBinaryMessage[] messages, Decoder original, Decoder table)
+    {
+        //Warm up
+        process(messages, original);
+        process(messages, table);
+        process(messages, original);
+        process(messages, table);
+
+        long originalDuration = process(messages, original);
+        long tableDuration = process(messages, table);
+        double count = (double)messages.length * ITERATIONS;
+
+        mLog.info(String.format("%-10s original: %8.1f ns/codeword  table: %6.1f ns/codeword  speedup: %5.1fx",
+            label, originalDuration / count, tableDuration / count, (double)originalDuration / tableDuration));
+    }
+
+    /**
+     * Packed int decode throughput, without any BinaryMessage bit extraction overhead
+     */
+    private static void packed(String label, int length, int maxErrors, Random random, PackedDecoder decoder)
+    {
+        int[] codewords = new int[CODEWORD_COUNT];
+
+        for(int x = 0; x < CODEWORD_COUNT; x++)
+        {
+            int errors = random.nextInt(maxErrors + 1);
+
+            for(int y = 0; y < errors; y++)
+            {
+                codewords[x] |= 1 << random.nextInt(length);
+            }
+        }
+
+        long accumulator = 0;
+        long duration = 0;
+
+        for(int pass = 0; pass < 5; pass++)
+        {
+            long start = System.nanoTime();
+
+            for(int iteration = 0; iteration < ITERATIONS * 10; iteration++)
+            {
+                for(int codeword : codewords)
+                {
+                    accumulator += decoder.decode(codeword);
+                }
+            }
+
+            duration = System.nanoTime() - start;
+        }
+
+        mLog.info(String.format("%-10s packed:   %8.1f ns/codeword  (checksum %d)", label,
+            duration / ((double)CODEWORD_COUNT * ITERATIONS * 10), accumulator));
+    }
+
+    private interface PackedDecoder
+    {
+        int decode(int codeword);
+    }
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(1);
+
+        CorrectedBinaryMessage[] golay23 = generate(23, 3, random);
+        compare("Golay23", golay23, message -> Golay23.checkAndCorrect(message, 0),
+            message -> Golay23.correct(message, 0));
+
+        CorrectedBinaryMessage[] golay24 = generate(24, 3, random);
+        compare("Golay24", golay24, message -> Golay24.checkAndCorrect(message, 0),
+            message -> Golay24.correct(message, 0));
+
+        CorrectedBinaryMessage[] golay18 = generate(18, 3, random);
+        compare("Golay18", golay18, message -> Golay18.checkAndCorrect(message, 0),
+            message -> Golay18.correct(message, 0));
+
+        CorrectedBinaryMessage[] hamming10 = generate(10, 1, random);
+        compare("Hamming10", hamming10, message -> Hamming10.checkAndCorrect(message, 0),
+            message -> Hamming10.correct(message, 0));
+
+        CorrectedBinaryMessage[] hamming15 = generate(15, 1, random);
+        compare("Hamming15", hamming15, message -> Hamming15.checkAndCorrect((BinaryMessage)message, 0),
+            message -> Hamming15.correct((BinaryMessage)message, 0));
+
+        packed("Golay23", 23, 3, random, Golay23::decode);
+        packed("Golay24", 24, 3, random, Golay24::decode);
+        packed("Hamming10", 10, 1, random, Hamming10::decode);
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.edac;
+
+import io.github.dsheirer.bits.BinaryMessage;
+import io.github.dsheirer.bits.CorrectedBinaryMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Exhaustive verification of the table-driven Golay/Hamming syndrome decoders and the shared GF(64) tables against
+ * the original bit-serial decoders.  Every correctable error pattern is applied to a set of valid codewords and the
+ * table-driven result is compared to both the original codeword and the original decoder.
+ *
+ * Run as a standalone application.  Exits with a non-zero status if any mismatch is detected.
+ */
+public class SyndromeTableTest
+{
+    private final static Logger mLog = LoggerFactory.getLogger(SyndromeTableTest.class);
+
+    private int mChecked;
+    private int mFailed;
+
+    /**
+     * Creates a valid packed codeword from the data value using the golay/hamming data bit checksums
+     */
+    private static int encode(int data, int[] checksums, int parityBits)
+    {
+        int parity = 0;
+
+        for(int x = 0; x < checksums.length; x++)
+        {
+            if((data & (1 << (checksums.length - 1 - x))) != 0)
+            {
+                parity ^= checksums[x];
+            }
+        }
+
+        return (data << parityBits) | parity;
+    }
+
+    private void check(String label, boolean passed, int codeword, int errorPattern)
+    {
+        mChecked++;
+
+        if(!passed)
+        {
+            mFailed++;
+
+            if(mFailed <= 20)
+            {
+                mLog.error(label + " FAILED - codeword [" + Integer.toHexString(codeword) + "] error pattern [" +
+                    Integer.toHexString(errorPattern) + "]");
+            }
+        }
+    }
+
+    /**
+     * Invokes the consumer with every error pattern of weight 1 to max weight across the codeword length
+     */
+    private static void forEachErrorPattern(int length, int maxWeight, PatternConsumer consumer)
+    {
+        forEachErrorPattern(0, 0, length, maxWeight, consumer);
+    }
+
+    private static void forEachErrorPattern(int pattern, int firstBit, int length, int remaining,
+                                            PatternConsumer consumer)
+    {
+        if(pattern != 0)
+        {
+            consumer.accept(pattern);
+        }
+
+        if(remaining == 0)
+        {
+            return;
+        }
+
+        for(int bit = firstBit; bit < length; bit++)
+        {
+            forEachErrorPattern(pattern | (1 << bit), bit + 1, length, remaining - 1, consumer);
+        }
+    }
+
+    private interface PatternConsumer
+    {
+        void accept(int errorPattern);
+    }
+
+    public void testGolay23()
+    {
+        int[] checksums = new int[12];
+        System.arraycopy(Golay23.CHECKSUMS, 0, checksums, 0, 12);
+
+        for(int data = 0; data < 4096; data += 37)
+        {
+            int codeword = encode(data, checksums, 11);
+
+            check("Golay23 encode", Golay23.decode(codeword) == codeword, codeword, 0);
+
+            forEachErrorPattern(23, 3, errorPattern -> {
+                int received = codeword ^ errorPattern;
+                check("Golay23 table", Golay23.decode(received) == codeword, codeword, errorPattern);
+
+                BinaryMessage message = new BinaryMessage(23);
+                message.load(0, 23, received);
+                Golay23.checkAndCorrect(message, 0);
+                check("Golay23 original", message.getInt(0, 22) == codeword, codeword, errorPattern);
+
+                BinaryMessage table = new BinaryMessage(30);
+                table.load(5, 23, received);
+                int corrected = Golay23.correct(table, 5);
+                check("Golay23 correct()", table.getInt(5, 27) == codeword &&
+                    corrected == Integer.bitCount(errorPattern), codeword, errorPattern);
+            });
+        }
+    }
+
+    public void testGolay24()
+    {
+        int[] checksums = new int[12];
+        System.arraycopy(Golay23.CHECKSUMS, 0, checksums, 0, 12);
+
+        for(int data = 0; data < 4096; data += 37)
+        {
+            int golay23 = encode(data, checksums, 11);
+            int codeword = (golay23 << 1) | (Integer.bitCount(golay23) & 1);
+
+            check("Golay24 encode", Golay24.decode(codeword) == codeword, codeword, 0);
+
+            forEachErrorPattern(24, 3, errorPattern -> {
+                int received = codeword ^ errorPattern;
+                check("Golay24 table", Golay24.decode(received) == codeword, codeword, errorPattern);
+
+                CorrectedBinaryMessage message = new CorrectedBinaryMessage(24);
+                message.load(0, 24, received);
+                Golay24.checkAndCorrect(message, 0);
+                //The original decoder doesn't repair the parity bit when the other 23 bits also contain errors
+                check("Golay24 original", message.getInt(0, 22) == (codeword >>> 1), codeword, errorPattern);
+
+                CorrectedBinaryMessage table = new CorrectedBinaryMessage(72);
+                table.load(24, 24, received);
+                int corrected = Golay24.correct(table, 24);
+                check("Golay24 correct()", table.getInt(24, 47) == codeword &&
+                    corrected == Integer.bitCount(errorPattern) &&
+                    table.getCorrectedBitCount() == corrected, codeword, errorPattern);
+            });
+
+            //All 4-bit error patterns must be detected
+            forEachErrorPattern(24, 4, errorPattern -> {
+                if(Integer.bitCount(errorPattern) == 4)
+                {
+                    check("Golay24 detect", Golay24.decode(codeword ^ errorPattern) == SyndromeTable.UNCORRECTABLE,
+                        codeword, errorPattern);
+                }
+            });
+        }
+    }
+
+    public void testGolay18()
+    {
+        int[] checksums = new int[12];
+        System.arraycopy(Golay23.CHECKSUMS, 0, checksums, 0, 12);
+
+        for(int data = 0; data < 64; data++)
+        {
+            int golay23 = encode(data, checksums, 11);
+            int codeword = (golay23 << 1) | (Integer.bitCount(golay23) & 1);
+
+            forEachErrorPattern(18, 3, errorPattern -> {
+                int received = codeword ^ errorPattern;
+                check("Golay18 table", Golay18.decode(received) == codeword, codeword, errorPattern);
+
+                CorrectedBinaryMessage message = new CorrectedBinaryMessage(18);
+                message.load(0, 18, received);
+                Golay18.checkAndCorrect(message, 0);
+                //The original decoder doesn't repair the parity bit when the other 17 bits also contain errors
+                check("Golay18 original", message.getInt(0, 16) == (codeword >>> 1), codeword, errorPattern);
+
+                CorrectedBinaryMessage table = new CorrectedBinaryMessage(40);
+                table.load(11, 18, received);
+                Golay18.correct(table, 11);
+                check("Golay18 correct()", table.getInt(11, 28) == codeword &&
+                    table.getCorrectedBitCount() == Integer.bitCount(errorPattern), codeword, errorPattern);
+            });
+        }
+    }
+
+    public void testHamming10()
+    {
+        int[] checksums = {0xE, 0xD, 0xB, 0x7, 0x3, 0xC};
+
+        for(int data = 0; data < 64; data++)
+        {
+            int codeword = encode(data, checksums, 4);
+
+            check("Hamming10 encode", Hamming10.decode(codeword) == codeword, codeword, 0);
+
+            forEachErrorPattern(10, 2, errorPattern -> {
+                int received = codeword ^ errorPattern;
+
+                CorrectedBinaryMessage original = new CorrectedBinaryMessage(10);
+                original.load(0, 10, received);
+                int originalResult = Hamming10.checkAndCorrect(original, 0);
+
+                CorrectedBinaryMessage table = new CorrectedBinaryMessage(10);
+                table.load(0, 10, received);
+                int tableResult = Hamming10.correct(table, 0);
+
+                if(Integer.bitCount(errorPattern) == 1)
+                {
+                    check("Hamming10 table", Hamming10.decode(received) == codeword, codeword, errorPattern);
+                }
+
+                //Double-bit errors may be miscorrected by both decoders, but they must agree
+                check("Hamming10 correct()", originalResult == tableResult &&
+                    original.getInt(0, 9) == table.getInt(0, 9) &&
+                    original.getCorrectedBitCount() == table.getCorrectedBitCount(), codeword, errorPattern);
+            });
+        }
+    }
+
+    public void testHamming15()
+    {
+        int[] checksums = {0xF, 0xE, 0xD, 0xC, 0xB, 0xA, 0x9, 0x7, 0x6, 0x5, 0x3};
+
+        for(int data = 0; data < 2048; data++)
+        {
+            int codeword = encode(data, checksums, 4);
+
+            check("Hamming15 encode", Hamming15.decode(codeword) == codeword, codeword, 0);
+
+            forEachErrorPattern(15, 1, errorPattern -> {
+                int received = codeword ^ errorPattern;
+                check("Hamming15 table", Hamming15.decode(received) == codeword, codeword, errorPattern);
+
+                BinaryMessage original = new BinaryMessage(15);
+                original.load(0, 15, received);
+                int originalResult = Hamming15.checkAndCorrect(original, 0);
+
+                BinaryMessage table = new BinaryMessage(15);
+                table.load(0, 15, received);
+                int tableResult = Hamming15.correct(table, 0);
+
+                check("Hamming15 correct()", originalResult == tableResult && table.getInt(0, 14) == codeword &&
+                    original.getInt(0, 14) == codeword, codeword, errorPattern);
+            });
+        }
+    }
+
+    /**
+     * Verifies the shared log/anti-log tables against bit-serial polynomial multiplication modulo x^6 + x + 1
+     */
+    public void testGaloisField()
+    {
+        for(int a = 0; a < 64; a++)
+        {
+            for(int b = 0; b < 64; b++)
+            {
+                int product = 0;
+                int multiplicand = a;
+
+                for(int bit = 0; bit < 6; bit++)
+                {
+                    if((b & (1 << bit)) != 0)
+                    {
+                        product ^= multiplicand;
+                    }
+
+                    multiplicand <<= 1;
+
+                    if((multiplicand & 0x40) != 0)
+                    {
+                        multiplicand ^= 0x43;
+                    }
+                }
+
+                check("GF64 multiply", GaloisField64.multiply(a, b) == product, a, b);
+
+                if(b != 0)
+                {
+                    check("GF64 divide", GaloisField64.divide(product, b) == a, a, b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies BCH(63,16,11) NID decoding with the shared GF tables using random error patterns of each correctable
+     * weight.  The search space is too large for an exhaustive test.
+     */
+    public void testBCH()
+    {
+        String nid = "0010011000000011010010100000000110000111110011101010001010110000";
+        BinaryMessage codeword = BinaryMessage.load(nid);
+        BCH_63_16_11 bch = new BCH_63_16_11();
+        Random random = new Random(63);
+
+        for(int weight = 0; weight <= 11; weight++)
+        {
+            for(int trial = 0; trial < 2000; trial++)
+            {
+                BinaryMessage received = codeword.copy();
+                int applied = 0;
+
+                while(applied < weight)
+                {
+                    int bit = random.nextInt(63);
+
+                    if(received.get(bit) == codeword.get(bit))
+                    {
+                        received.flip(bit);
+                        applied++;
+                    }
+                }
+
+                bch.correctNID(received);
+
+                check("BCH(63,16,11) weight " + weight, received.getCRC() != CRC.FAILED_CRC &&
+                    received.getInt(0, 15) == codeword.getInt(0, 15), codeword.getInt(0, 15), weight);
+            }
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        SyndromeTableTest test = new SyndromeTableTest();
+
+        test.testGaloisField();
+        test.testGolay23();
+        test.testGolay24();
+        test.testGolay18();
+        test.testHamming10();
+        test.testHamming15();
+        test.testBCH();
+
+        mLog.info("Checked [" + test.mChecked + "] failed [" + test.mFailed + "]");
+
+        if(test.mFailed > 0)
+        {
+            System.exit(1);
+        }
+    }
+}
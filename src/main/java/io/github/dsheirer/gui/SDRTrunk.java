@@ -28,6 +28,7 @@ import io.github.dsheirer.audio.AudioPacketManager;
 import io.github.dsheirer.audio.broadcast.BroadcastModel;
 import io.github.dsheirer.audio.broadcast.BroadcastStatusPanel;
 import io.github.dsheirer.audio.playback.AudioPlaybackManager;
+import io.github.dsheirer.audio.segment.AudioSegmentManager;
 import io.github.dsheirer.controller.ControllerPanel;
 import io.github.dsheirer.controller.channel.Channel;
 import io.github.dsheirer.controller.channel.ChannelAutoStartFrame;
@@ -35,10 +36,12 @@ import io.github.dsheirer.controller.channel.ChannelModel;
 import io.github.dsheirer.controller.channel.ChannelProcessingManager;
 import io.github.dsheirer.controller.channel.ChannelSelectionManager;
 import io.github.dsheirer.controller.channel.map.ChannelMapModel;
+import io.github.dsheirer.dsp.filter.design.FilterDesignCache;
 import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.gui.preference.PreferenceEditorType;
 import io.github.dsheirer.gui.preference.PreferenceEditorViewRequest;
 import io.github.dsheirer.icon.IconManager;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.log.ApplicationLog;
 import io.github.dsheirer.map.MapService;
 import io.github.dsheirer.module.log.EventLogManager;
@@ -46,6 +49,8 @@ import io.github.dsheirer.playlist.PlaylistManager;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.record.RecorderManager;
+import io.github.dsheirer.record.io.RecordingIOService;
+import io.github.dsheirer.sample.Broadcaster;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.settings.SettingsManager;
 import io.github.dsheirer.source.SourceManager;
@@ -57,6 +62,7 @@ import io.github.dsheirer.source.tuner.configuration.TunerConfigurationModel;
 import io.github.dsheirer.spectrum.ClearTunerMenuItem;
 import io.github.dsheirer.spectrum.ShowTunerMenuItem;
 import io.github.dsheirer.spectrum.SpectralDisplayPanel;
+import io.github.dsheirer.util.DSPTask;
 import io.github.dsheirer.util.ThreadPool;
 import io.github.dsheirer.util.TimeStamp;
 import jiconfont.icons.font_awesome.FontAwesome;
@@ -106,9 +112,13 @@ public class SDRTrunk implements Listener<TunerEvent>
     private static final String CONTROLLER_PANEL_IDENTIFIER = BASE_WINDOW_NAME + ".control.panel";
     private static final String SPECTRAL_PANEL_IDENTIFIER = BASE_WINDOW_NAME + ".spectral.panel";
     private static final String WINDOW_FRAME_IDENTIFIER = BASE_WINDOW_NAME + ".frame";
+    private static final String FILTER_DESIGN_CACHE_FILE = "filter_design.cache";
 
     private boolean mBroadcastStatusVisible;
     private AudioPacketManager mAudioPacketManager;
+    private AudioPlaybackManager mAudioPlaybackManager;
+    private AudioSegmentManager mAudioSegmentManager;
+    private PlaylistManager mPlaylistManager;
     private IconManager mIconManager;
     private BroadcastStatusPanel mBroadcastStatusPanel;
     private BroadcastModel mBroadcastModel;
@@ -162,6 +172,10 @@ public class SDRTrunk implements Listener<TunerEvent>
         //Log current properties setting
         SystemProperties.getInstance().logCurrentSettings();
 
+        //Load previously designed filters before any tuners or channels are started
+        FilterDesignCache.getInstance().load(mUserPreferences.getDirectoryPreference().getDirectoryApplicationRoot()
+            .resolve(FILTER_DESIGN_CACHE_FILE));
+
         //Register FontAwesome so we can use the fonts in Swing windows
         IconFontSwing.register(FontAwesome.getIconFont());
 
@@ -195,23 +209,27 @@ public class SDRTrunk implements Listener<TunerEvent>
         ChannelSelectionManager channelSelectionManager = new ChannelSelectionManager(mChannelModel);
         mChannelModel.addListener(channelSelectionManager);
 
-        AudioPlaybackManager audioPlaybackManager = new AudioPlaybackManager(mSourceManager.getMixerManager());
+        mAudioPlaybackManager = new AudioPlaybackManager(mSourceManager.getMixerManager());
 
         mBroadcastModel = new BroadcastModel(aliasModel, mIconManager, mUserPreferences);
 
+        //Recording and streaming consume shared per-call audio segments instead of raw audio packets
+        mAudioSegmentManager = new AudioSegmentManager();
+        mAudioSegmentManager.addListener(recorderManager);
+        mAudioSegmentManager.addListener(mBroadcastModel);
+
         //Audio packets are routed through the audio packet manager for metadata enrichment and then
-        //distributed to the audio packet processors (ie playback, recording, streaming, etc.)
+        //distributed to the audio packet processors (ie playback and the audio segment manager)
         mAudioPacketManager = new AudioPacketManager(aliasModel);
-        mAudioPacketManager.addListener(recorderManager);
-        mAudioPacketManager.addListener(audioPlaybackManager);
-        mAudioPacketManager.addListener(mBroadcastModel);
+        mAudioPacketManager.addListener(mAudioPlaybackManager);
+        mAudioPacketManager.addListener(mAudioSegmentManager);
         mAudioPacketManager.start();
         mChannelProcessingManager.addAudioPacketListener(mAudioPacketManager);
 
         MapService mapService = new MapService(mIconManager);
         mChannelProcessingManager.addDecodeEventListener(mapService);
 
-        mControllerPanel = new ControllerPanel(audioPlaybackManager, aliasModel, mBroadcastModel,
+        mControllerPanel = new ControllerPanel(mAudioPlaybackManager, aliasModel, mBroadcastModel,
             mChannelModel, channelMapModel, mChannelProcessingManager, mIconManager,
             mapService, mSettingsManager, mSourceManager, tunerModel, mUserPreferences, recorderManager);
 
@@ -223,10 +241,10 @@ public class SDRTrunk implements Listener<TunerEvent>
         tunerModel.addListener(tunerSpectralDisplayManager);
         tunerModel.addListener(this);
 
-        PlaylistManager playlistManager = new PlaylistManager(aliasModel, mBroadcastModel, mChannelModel,
+        mPlaylistManager = new PlaylistManager(aliasModel, mBroadcastModel, mChannelModel,
             channelMapModel, mUserPreferences);
 
-        playlistManager.init();
+        mPlaylistManager.init();
 
         mLog.info("starting main application gui");
 
@@ -469,12 +487,25 @@ public class SDRTrunk implements Listener<TunerEvent>
         mUserPreferences.getSwingPreference().setDimension(SPECTRAL_PANEL_IDENTIFIER, mSpectralPanel.getSize());
         mUserPreferences.getSwingPreference().setDimension(CONTROLLER_PANEL_IDENTIFIER, mControllerPanel.getSize());
         mJavaFxWindowManager.shutdown();
+        mLog.info("Saving playlist ...");
+        mPlaylistManager.shutdown();
+        Broadcaster.logStatistics();
         mLog.info("Stopping channels ...");
         mChannelProcessingManager.shutdown();
         mAudioPacketManager.stop();
+        mAudioSegmentManager.dispose();
         mLog.info("Stopping spectral display ...");
         mSpectralPanel.clearTuner();
         mSourceManager.shutdown();
+        RecordingIOService.getInstance().flush();
+        DSPTask.logStatistics();
+        mAudioPlaybackManager.logStatistics();
+        mAudioSegmentManager.logStatistics();
+        RecordingIOService.getInstance().logStatistics();
+        FilterDesignCache.getInstance().save();
+        FilterDesignCache.getInstance().logStatistics();
+        mControllerPanel.getMapPanel().logStatistics();
+        IntegerIdentifierCache.logStatistics();
         mLog.info("Shutdown complete.");
         mApplicationLog.stop();
     }
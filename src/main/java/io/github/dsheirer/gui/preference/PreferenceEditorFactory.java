@@ -22,6 +22,7 @@ package io.github.dsheirer.gui.preference;
 
 import io.github.dsheirer.gui.preference.decoder.JmbeLibraryPreferenceEditor;
 import io.github.dsheirer.gui.preference.directory.DirectoryPreferenceEditor;
+import io.github.dsheirer.gui.preference.map.MapPreferenceEditor;
 import io.github.dsheirer.gui.preference.tuner.ChannelMultipleFrequencyPreferenceEditor;
 import io.github.dsheirer.gui.preference.tuner.TunerPreferenceEditor;
 import io.github.dsheirer.preference.UserPreferences;
@@ -42,6 +43,8 @@ public class PreferenceEditorFactory
                 return new JmbeLibraryPreferenceEditor(userPreferences);
             case DIRECTORY:
                 return new DirectoryPreferenceEditor(userPreferences);
+            case MAP_TILES:
+                return new MapPreferenceEditor(userPreferences);
             case SOURCE_CHANNEL_MULTIPLE_FREQUENCY:
                 return new ChannelMultipleFrequencyPreferenceEditor(userPreferences);
             case TALKGROUP_FORMAT:
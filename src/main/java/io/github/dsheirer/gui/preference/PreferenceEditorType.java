@@ -30,6 +30,7 @@ public enum PreferenceEditorType
     CHANNEL_EVENT("Channel Events"),
     JMBE_LIBRARY("JMBE Audio Library"),
     DIRECTORY("Directories"),
+    MAP_TILES("Map Tiles"),
     SOURCE_CHANNEL_MULTIPLE_FREQUENCY("Channel - Multiple Frequency"),
     SOURCE_TUNER_CHANNELIZER("Tuner Channelizer"),
     TALKGROUP_FORMAT("Talkgroup & Radio ID");
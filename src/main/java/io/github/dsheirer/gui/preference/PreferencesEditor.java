@@ -202,6 +202,7 @@ public class PreferencesEditor extends Application
 
             TreeItem<String> storageItem = new TreeItem<>("File Storage");
             storageItem.getChildren().add(new TreeItem(PreferenceEditorType.DIRECTORY));
+            storageItem.getChildren().add(new TreeItem(PreferenceEditorType.MAP_TILES));
             treeRoot.getChildren().add(storageItem);
             storageItem.setExpanded(true);
 
@@ -0,0 +1,157 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+
+package io.github.dsheirer.gui.preference.map;
+
+import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.preference.map.MapPreference;
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+
+/**
+ * Preference settings for map tiles stored on disk
+ */
+public class MapPreferenceEditor extends HBox
+{
+    private static final String HELP_TEXT = "Map tiles fetched from the tile server are stored in the fetched folder " +
+        "of the map tiles directory.  When the fetched tiles exceed the maximum size, the least recently used tiles " +
+        "are removed.  Fetched tiles that have not been used within the maximum age are removed.  Use 0 for no " +
+        "limit.  Map tiles copied into the map tiles directory for offline use are never removed.";
+
+    private static final Insets MARGINS = new Insets(5,5,5,5);
+    private MapPreference mMapPreference;
+    private GridPane mEditorPane;
+    private Label mMaximumSizeLabel;
+    private Spinner<Integer> mMaximumSizeSpinner;
+    private Label mMaximumAgeLabel;
+    private Spinner<Integer> mMaximumAgeSpinner;
+    private Button mResetButton;
+    private Label mHelpText;
+
+    public MapPreferenceEditor(UserPreferences userPreferences)
+    {
+        mMapPreference = userPreferences.getMapPreference();
+        getChildren().add(getEditorPane());
+    }
+
+    private GridPane getEditorPane()
+    {
+        if(mEditorPane == null)
+        {
+            mEditorPane = new GridPane();
+            GridPane.setMargin(getMaximumSizeSpinner(), MARGINS);
+            mEditorPane.add(getMaximumSizeSpinner(), 0, 0);
+            GridPane.setMargin(getMaximumSizeLabel(), MARGINS);
+            mEditorPane.add(getMaximumSizeLabel(), 1, 0);
+            GridPane.setMargin(getResetButton(), MARGINS);
+            mEditorPane.add(getResetButton(), 2, 0);
+            GridPane.setMargin(getMaximumAgeSpinner(), MARGINS);
+            mEditorPane.add(getMaximumAgeSpinner(), 0, 1);
+            GridPane.setMargin(getMaximumAgeLabel(), MARGINS);
+            mEditorPane.add(getMaximumAgeLabel(), 1, 1);
+            GridPane.setMargin(getHelpText(), MARGINS);
+            mEditorPane.add(getHelpText(), 0, 2, 3, 1);
+        }
+
+        return mEditorPane;
+    }
+
+    public Spinner<Integer> getMaximumSizeSpinner()
+    {
+        if(mMaximumSizeSpinner == null)
+        {
+            mMaximumSizeSpinner = new Spinner<>(0, MapPreference.MAXIMUM_TILE_STORE_SIZE_MB,
+                mMapPreference.getTileStoreMaximumSize(), 64);
+            mMaximumSizeSpinner.setEditable(true);
+            mMaximumSizeSpinner.valueProperty().addListener((observable, oldValue, newValue) -> {
+                mMapPreference.setTileStoreMaximumSize(newValue);
+            });
+        }
+
+        return mMaximumSizeSpinner;
+    }
+
+    public Label getMaximumSizeLabel()
+    {
+        if(mMaximumSizeLabel == null)
+        {
+            mMaximumSizeLabel = new Label("Fetched Tiles Maximum Size (MB)");
+        }
+
+        return mMaximumSizeLabel;
+    }
+
+    public Spinner<Integer> getMaximumAgeSpinner()
+    {
+        if(mMaximumAgeSpinner == null)
+        {
+            mMaximumAgeSpinner = new Spinner<>(0, MapPreference.MAXIMUM_TILE_STORE_AGE_DAYS,
+                mMapPreference.getTileStoreMaximumAge(), 1);
+            mMaximumAgeSpinner.setEditable(true);
+            mMaximumAgeSpinner.valueProperty().addListener((observable, oldValue, newValue) -> {
+                mMapPreference.setTileStoreMaximumAge(newValue);
+            });
+        }
+
+        return mMaximumAgeSpinner;
+    }
+
+    public Label getMaximumAgeLabel()
+    {
+        if(mMaximumAgeLabel == null)
+        {
+            mMaximumAgeLabel = new Label("Fetched Tiles Maximum Age (days)");
+        }
+
+        return mMaximumAgeLabel;
+    }
+
+    public Button getResetButton()
+    {
+        if(mResetButton == null)
+        {
+            mResetButton = new Button("Reset");
+            mResetButton.setOnAction(event -> {
+                mMapPreference.resetTileStoreLimits();
+                getMaximumSizeSpinner().getValueFactory().setValue(mMapPreference.getTileStoreMaximumSize());
+                getMaximumAgeSpinner().getValueFactory().setValue(mMapPreference.getTileStoreMaximumAge());
+            });
+        }
+
+        return mResetButton;
+    }
+
+    public Label getHelpText()
+    {
+        if(mHelpText == null)
+        {
+            mHelpText = new Label(HELP_TEXT);
+            mHelpText.setWrapText(true);
+        }
+
+        return mHelpText;
+    }
+}
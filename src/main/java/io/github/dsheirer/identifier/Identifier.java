@@ -26,10 +26,10 @@ import java.util.Objects;
  */
 public abstract class Identifier<T>
 {
-    private T mValue;
-    private IdentifierClass mIdentifierClass;
-    private Form mForm;
-    private Role mRole;
+    private final T mValue;
+    private final IdentifierClass mIdentifierClass;
+    private final Form mForm;
+    private final Role mRole;
 
     public Identifier(T value, IdentifierClass identifierClass, Form form, Role role)
     {
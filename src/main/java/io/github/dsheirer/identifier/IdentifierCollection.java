@@ -23,23 +23,22 @@
 package io.github.dsheirer.identifier;
 
 import io.github.dsheirer.identifier.configuration.AliasListConfigurationIdentifier;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * (Immutable) Collection of identifiers with convenient accessor methods
  *
+ * Identifiers are held in an immutable, indexed snapshot.  Accessor methods return immutable lists that are cached
+ * by the snapshot, so repeated lookups don't allocate, and copies of a collection share the snapshot.
+ *
  * @see MutableIdentifierCollection for the mutable version of this class
  */
 public class IdentifierCollection
 {
-    private final static Logger mLog = LoggerFactory.getLogger(IdentifierCollection.class);
-    protected List<Identifier> mIdentifiers = new ArrayList<>();
+    protected IdentifierIndex mIdentifierIndex = IdentifierIndex.EMPTY;
     protected AliasListConfigurationIdentifier mAliasListConfigurationIdentifier;
     private boolean mUpdated = false;
     private int mTimeslot = 0;
@@ -68,6 +67,8 @@ public class IdentifierCollection
 
     public IdentifierCollection(Collection<Identifier> identifiers, int timeslot)
     {
+        List<Identifier> list = new ArrayList<>(identifiers.size());
+
         for(Identifier identifier: identifiers)
         {
             if(identifier == null)
@@ -75,8 +76,27 @@ public class IdentifierCollection
                 throw new IllegalArgumentException("Identifier cannot be null");
             }
 
-            mIdentifiers.add(identifier);
+            list.add(identifier);
+
+            if(identifier instanceof AliasListConfigurationIdentifier)
+            {
+                mAliasListConfigurationIdentifier = (AliasListConfigurationIdentifier)identifier;
+            }
+        }
 
+        mIdentifierIndex = IdentifierIndex.of(list);
+    }
+
+    /**
+     * Constructs an identifier collection that shares the identifier snapshot of the source collection
+     */
+    protected IdentifierCollection(IdentifierCollection source)
+    {
+        mIdentifierIndex = source.mIdentifierIndex;
+        mTimeslot = source.mTimeslot;
+
+        for(Identifier identifier: mIdentifierIndex.getIdentifiers())
+        {
             if(identifier instanceof AliasListConfigurationIdentifier)
             {
                 mAliasListConfigurationIdentifier = (AliasListConfigurationIdentifier)identifier;
@@ -129,7 +149,7 @@ public class IdentifierCollection
      */
     public List<Identifier> getIdentifiers()
     {
-        return Collections.unmodifiableList(mIdentifiers);
+        return mIdentifierIndex.getIdentifiers();
     }
 
     /**
@@ -137,89 +157,40 @@ public class IdentifierCollection
      */
     public boolean isEmpty()
     {
-        return mIdentifiers.isEmpty();
+        return mIdentifierIndex.size() == 0;
     }
 
     /**
      * Get a list of identifiers by identifier class from this collection.
      *
      * @param identifierClass to match
-     * @return list of zero or more identifiers
+     * @return immutable list of zero or more identifiers
      */
     public List<Identifier> getIdentifiers(IdentifierClass identifierClass)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getIdentifierClass() == identifierClass)
-            {
-                identifiers.add(identifier);
-            }
-        }
-
-        return identifiers;
+        return mIdentifierIndex.get(identifierClass);
     }
 
     /**
      * Get a list of identifiers by form from this collection.
      *
      * @param form to match
-     * @return list of zero or more identifiers
+     * @return immutable list of zero or more identifiers
      */
     public List<Identifier> getIdentifiers(Form form)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getForm() == form)
-            {
-                identifiers.add(identifier);
-            }
-        }
-
-        return identifiers;
+        return mIdentifierIndex.get(form);
     }
 
     /**
      * Get a list of identifiers by role from this collection.
      *
      * @param role to match
-     * @return list of zero or more identifiers
+     * @return immutable list of zero or more identifiers
      */
     public List<Identifier> getIdentifiers(Role role)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            try
-            {
-                if(identifier.getRole() == role)
-                {
-                    identifiers.add(identifier);
-                }
-            }
-            catch(NullPointerException npe)
-            {
-                StringBuilder sb = new StringBuilder();
-                for(Identifier i : mIdentifiers)
-                {
-                    if(i == null)
-                    {
-                        sb.append("Identifier: (null)").append("\n");
-                    }
-                    else
-                    {
-                        sb.append("Identifier: ").append(i).append(" Class:").append(i.getClass()).append("\n");
-                    }
-                }
-                mLog.warn("An identifier in a collection is somehow null ...\n" + sb.toString());
-            }
-        }
-
-        return identifiers;
+        return mIdentifierIndex.get(role);
     }
 
     /**
@@ -227,21 +198,11 @@ public class IdentifierCollection
      *
      * @param identifierClass to match
      * @param role to match
-     * @return list of zero or more identifiers
+     * @return immutable list of zero or more identifiers
      */
     public List<Identifier> getIdentifiers(IdentifierClass identifierClass, Role role)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getIdentifierClass() == identifierClass && identifier.getRole() == role)
-            {
-                identifiers.add(identifier);
-            }
-        }
-
-        return identifiers;
+        return mIdentifierIndex.get(identifierClass, role);
     }
 
     /**
@@ -249,21 +210,11 @@ public class IdentifierCollection
      *
      * @param identifierClass to match
      * @param form to match
-     * @return list of zero or more identifiers
+     * @return immutable list of zero or more identifiers
      */
     public List<Identifier> getIdentifiers(IdentifierClass identifierClass, Form form)
     {
-        List<Identifier> identifiers = new ArrayList<>();
-
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getIdentifierClass() == identifierClass && identifier.getForm() == form)
-            {
-                identifiers.add(identifier);
-            }
-        }
-
-        return identifiers;
+        return mIdentifierIndex.get(identifierClass, form);
     }
 
     /**
@@ -276,17 +227,8 @@ public class IdentifierCollection
      */
     public Identifier getIdentifier(IdentifierClass identifierClass, Form form, Role role)
     {
-        for(Identifier identifier : mIdentifiers)
-        {
-            if(identifier.getIdentifierClass() == identifierClass &&
-                identifier.getForm() == form &&
-                identifier.getRole() == role)
-            {
-                return identifier;
-            }
-        }
-
-        return null;
+        int mask = IdentifierIndex.CLASS_MASK | IdentifierIndex.FORM_MASK | IdentifierIndex.ROLE_MASK;
+        return mIdentifierIndex.getFirst(mask, IdentifierIndex.key(identifierClass, form, role));
     }
 
     /**
@@ -294,14 +236,8 @@ public class IdentifierCollection
      */
     public Identifier getFromIdentifier()
     {
-        List<Identifier> fromIdentifiers = getIdentifiers(Role.FROM);
-
-        if(!fromIdentifiers.isEmpty())
-        {
-            return fromIdentifiers.get(0);
-        }
-
-        return null;
+        return mIdentifierIndex.getFirst(IdentifierIndex.ROLE_MASK,
+            IdentifierIndex.key(null, null, Role.FROM) & IdentifierIndex.ROLE_MASK);
     }
 
     /**
@@ -309,14 +245,8 @@ public class IdentifierCollection
      */
     public Identifier getToIdentifier()
     {
-        List<Identifier> toIdentifiers = getIdentifiers(Role.TO);
-
-        if(!toIdentifiers.isEmpty())
-        {
-            return toIdentifiers.get(0);
-        }
-
-        return null;
+        return mIdentifierIndex.getFirst(IdentifierIndex.ROLE_MASK,
+            IdentifierIndex.key(null, null, Role.TO) & IdentifierIndex.ROLE_MASK);
     }
 
 }
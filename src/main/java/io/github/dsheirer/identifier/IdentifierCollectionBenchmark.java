@@ -0,0 +1,265 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.identifier;
+
+import io.github.dsheirer.identifier.configuration.AliasListConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.DecoderTypeConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.FrequencyConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.SiteConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.SystemConfigurationIdentifier;
+import io.github.dsheirer.identifier.encryption.EncryptionKeyIdentifier;
+import io.github.dsheirer.module.decode.DecoderType;
+import io.github.dsheirer.module.decode.p25.identifier.channel.APCO25Channel;
+import io.github.dsheirer.module.decode.p25.identifier.encryption.APCO25EncryptionKey;
+import io.github.dsheirer.module.decode.p25.identifier.radio.APCO25Radio;
+import io.github.dsheirer.module.decode.p25.identifier.talkgroup.APCO25Talkgroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the indexed identifier collection against the original list-scanning implementation over a simulated
+ * P25 call lifecycle: call setup updates, a collection copy and the downstream alias, recording, playback and
+ * streaming lookups for each audio packet, and call teardown.
+ *
+ * Run as a standalone application.
+ */
+public class IdentifierCollectionBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(IdentifierCollectionBenchmark.class);
+
+    private static final int CALLS = 20000;
+    private static final int AUDIO_PACKETS_PER_CALL = 50;
+    private static final int ROUNDS = 10;
+
+    private static List<Identifier> sConfigurationIdentifiers = new ArrayList<>();
+    private static List<List<Identifier>> sCallIdentifiers = new ArrayList<>();
+
+    static
+    {
+        sConfigurationIdentifiers.add(AliasListConfigurationIdentifier.create("Alias List"));
+        sConfigurationIdentifiers.add(SystemConfigurationIdentifier.create("System"));
+        sConfigurationIdentifiers.add(SiteConfigurationIdentifier.create("Site"));
+        sConfigurationIdentifiers.add(DecoderTypeConfigurationIdentifier.create(DecoderType.P25_PHASE1));
+        sConfigurationIdentifiers.add(FrequencyConfigurationIdentifier.create(851012500L));
+
+        for(int x = 0; x < 64; x++)
+        {
+            List<Identifier> identifiers = new ArrayList<>();
+            identifiers.add(APCO25Channel.create(1, 100 + x));
+            identifiers.add(APCO25Talkgroup.create(1000 + x));
+            identifiers.add(APCO25Radio.createFrom(2000000 + x));
+            identifiers.add(EncryptionKeyIdentifier.create(APCO25EncryptionKey.create(0x80, 0)));
+            sCallIdentifiers.add(identifiers);
+        }
+    }
+
+    /**
+     * Runs the call lifecycle against the indexed identifier collection
+     * @return checksum of the lookup results to prevent dead code elimination
+     */
+    private static long indexed()
+    {
+        long checksum = 0;
+
+        MutableIdentifierCollection mutable = new MutableIdentifierCollection(sConfigurationIdentifiers);
+
+        for(int call = 0; call < CALLS; call++)
+        {
+            mutable.update(sCallIdentifiers.get(call % sCallIdentifiers.size()));
+
+            for(int packet = 0; packet < AUDIO_PACKETS_PER_CALL; packet++)
+            {
+                IdentifierCollection copy = mutable.copyOf();
+
+                //Alias lookup
+                for(Identifier identifier: copy.getIdentifiers())
+                {
+                    checksum += identifier.getForm().ordinal();
+                }
+
+                //Recorder, playback and streaming lookups
+                checksum += copy.getIdentifiers(Role.FROM).size();
+                checksum += copy.getIdentifiers(Role.TO).size();
+                checksum += copy.getIdentifiers(IdentifierClass.USER).size();
+                checksum += copy.getIdentifiers(IdentifierClass.USER, Role.TO).size();
+                checksum += copy.getIdentifier(IdentifierClass.USER, Form.TALKGROUP, Role.TO) != null ? 1 : 0;
+                checksum += copy.getAliasListConfiguration() != null ? 1 : 0;
+            }
+
+            mutable.remove(IdentifierClass.USER);
+        }
+
+        return checksum;
+    }
+
+    /**
+     * Runs the call lifecycle against the original list-scanning implementation
+     * @return checksum of the lookup results to prevent dead code elimination
+     */
+    private static long original()
+    {
+        long checksum = 0;
+
+        ListCollection mutable = new ListCollection(sConfigurationIdentifiers);
+
+        for(int call = 0; call < CALLS; call++)
+        {
+            for(Identifier identifier: sCallIdentifiers.get(call % sCallIdentifiers.size()))
+            {
+                mutable.update(identifier);
+            }
+
+            for(int packet = 0; packet < AUDIO_PACKETS_PER_CALL; packet++)
+            {
+                ListCollection copy = new ListCollection(mutable.mIdentifiers);
+
+                for(Identifier identifier: copy.mIdentifiers)
+                {
+                    checksum += identifier.getForm().ordinal();
+                }
+
+                checksum += copy.getIdentifiers(null, null, Role.FROM).size();
+                checksum += copy.getIdentifiers(null, null, Role.TO).size();
+                checksum += copy.getIdentifiers(IdentifierClass.USER, null, null).size();
+                checksum += copy.getIdentifiers(IdentifierClass.USER, null, Role.TO).size();
+                checksum += copy.getIdentifier(IdentifierClass.USER, Form.TALKGROUP, Role.TO) != null ? 1 : 0;
+                checksum += copy.mAliasListConfigurationIdentifier != null ? 1 : 0;
+            }
+
+            mutable.mIdentifiers.removeIf(identifier -> identifier.getIdentifierClass() == IdentifierClass.USER);
+        }
+
+        return checksum;
+    }
+
+    /**
+     * Original array list implementation of the identifier collection lookup, copy and update methods
+     */
+    private static class ListCollection
+    {
+        private List<Identifier> mIdentifiers = new ArrayList<>();
+        private AliasListConfigurationIdentifier mAliasListConfigurationIdentifier;
+
+        public ListCollection(List<Identifier> identifiers)
+        {
+            for(Identifier identifier: identifiers)
+            {
+                mIdentifiers.add(identifier);
+
+                if(identifier instanceof AliasListConfigurationIdentifier)
+                {
+                    mAliasListConfigurationIdentifier = (AliasListConfigurationIdentifier)identifier;
+                }
+            }
+        }
+
+        public List<Identifier> getIdentifiers(IdentifierClass identifierClass, Form form, Role role)
+        {
+            List<Identifier> identifiers = new ArrayList<>();
+
+            for(Identifier identifier: mIdentifiers)
+            {
+                if((identifierClass == null || identifier.getIdentifierClass() == identifierClass) &&
+                    (form == null || identifier.getForm() == form) &&
+                    (role == null || identifier.getRole() == role))
+                {
+                    identifiers.add(identifier);
+                }
+            }
+
+            return identifiers;
+        }
+
+        public Identifier getIdentifier(IdentifierClass identifierClass, Form form, Role role)
+        {
+            for(Identifier identifier: mIdentifiers)
+            {
+                if(identifier.getIdentifierClass() == identifierClass && identifier.getForm() == form &&
+                    identifier.getRole() == role)
+                {
+                    return identifier;
+                }
+            }
+
+            return null;
+        }
+
+        public void update(Identifier identifier)
+        {
+            Identifier existing = getIdentifier(identifier.getIdentifierClass(), identifier.getForm(),
+                identifier.getRole());
+
+            if(existing != null)
+            {
+                if(!existing.equals(identifier))
+                {
+                    mIdentifiers.remove(existing);
+                    mIdentifiers.add(identifier);
+                }
+            }
+            else if(!mIdentifiers.contains(identifier))
+            {
+                mIdentifiers.add(identifier);
+            }
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        mLog.info("Identifier collection benchmark - calls [" + CALLS + "] audio packets per call [" +
+            AUDIO_PACKETS_PER_CALL + "]");
+
+        long originalChecksum = 0;
+        long indexedChecksum = 0;
+
+        for(int round = 0; round < ROUNDS; round++)
+        {
+            long start = System.nanoTime();
+            originalChecksum = original();
+            long originalElapsed = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            indexedChecksum = indexed();
+            long indexedElapsed = System.nanoTime() - start;
+
+            double packets = CALLS * AUDIO_PACKETS_PER_CALL;
+
+            mLog.info("Round " + (round + 1) +
+                " Original [" + String.format("%.1f", originalElapsed / packets) + " ns/packet]" +
+                " Indexed [" + String.format("%.1f", indexedElapsed / packets) + " ns/packet]" +
+                " Speedup [" + String.format("%.2f", (double)originalElapsed / (double)indexedElapsed) + "x]");
+        }
+
+        if(originalChecksum != indexedChecksum)
+        {
+            mLog.error("Lookup results differ - original checksum [" + originalChecksum + "] indexed checksum [" +
+                indexedChecksum + "]");
+        }
+        else
+        {
+            mLog.info("Lookup results match");
+        }
+    }
+}
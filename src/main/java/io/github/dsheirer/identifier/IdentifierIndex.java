@@ -0,0 +1,418 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+
+package io.github.dsheirer.identifier;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, indexed snapshot of identifiers backing an identifier collection.
+ *
+ * Each identifier is assigned an integer key that packs the identifier class, form and role ordinals into bit slots
+ * so that lookups by any combination of class, form and role are a masked integer comparison.  Lookup result lists
+ * are created once per snapshot on first access and then reused, so repeated lookups don't allocate.  Changes
+ * produce a new snapshot (copy-on-write), which allows a snapshot to be shared between collections without copying.
+ */
+final class IdentifierIndex
+{
+    static final IdentifierIndex EMPTY = new IdentifierIndex(new Identifier[0]);
+
+    private static final IdentifierClass[] IDENTIFIER_CLASSES = IdentifierClass.values();
+    private static final Form[] FORMS = Form.values();
+    private static final Role[] ROLES = Role.values();
+
+    private static final int CLASS_SHIFT = 0;
+    private static final int CLASS_BITS = 3;
+    private static final int FORM_SHIFT = CLASS_SHIFT + CLASS_BITS;
+    private static final int FORM_BITS = 6;
+    private static final int ROLE_SHIFT = FORM_SHIFT + FORM_BITS;
+    private static final int ROLE_BITS = 3;
+
+    static final int CLASS_MASK = ((1 << CLASS_BITS) - 1) << CLASS_SHIFT;
+    static final int FORM_MASK = ((1 << FORM_BITS) - 1) << FORM_SHIFT;
+    static final int ROLE_MASK = ((1 << ROLE_BITS) - 1) << ROLE_SHIFT;
+
+    static
+    {
+        //Null values are assigned the ordinal following the last enum entry
+        if(IDENTIFIER_CLASSES.length >= (1 << CLASS_BITS) || FORMS.length >= (1 << FORM_BITS) ||
+            ROLES.length >= (1 << ROLE_BITS))
+        {
+            throw new IllegalStateException("Identifier class, form or role enumeration entry count exceeds the " +
+                "identifier index key bit allocation");
+        }
+    }
+
+    private final Identifier[] mIdentifiers;
+    private final int[] mKeys;
+    private final List<Identifier> mList;
+
+    //Lazily populated lookup result caches
+    private List<Identifier>[] mByClass;
+    private List<Identifier>[] mByForm;
+    private List<Identifier>[] mByRole;
+    private List<Identifier>[] mByClassAndForm;
+    private List<Identifier>[] mByClassAndRole;
+
+    private IdentifierIndex(Identifier[] identifiers)
+    {
+        mIdentifiers = identifiers;
+        mKeys = new int[identifiers.length];
+
+        for(int x = 0; x < identifiers.length; x++)
+        {
+            mKeys[x] = key(identifiers[x]);
+        }
+
+        mList = List.of(identifiers);
+    }
+
+    /**
+     * Creates an index from the identifiers, in order
+     */
+    static IdentifierIndex of(List<Identifier> identifiers)
+    {
+        if(identifiers.isEmpty())
+        {
+            return EMPTY;
+        }
+
+        return new IdentifierIndex(identifiers.toArray(new Identifier[identifiers.size()]));
+    }
+
+    /**
+     * Packed lookup key for the identifier
+     */
+    static int key(Identifier identifier)
+    {
+        return key(identifier.getIdentifierClass(), identifier.getForm(), identifier.getRole());
+    }
+
+    /**
+     * Packed lookup key for the identifier class, form and role.  Null arguments are assigned a slot value that
+     * doesn't match any enumeration entry.
+     */
+    static int key(IdentifierClass identifierClass, Form form, Role role)
+    {
+        int classOrdinal = identifierClass != null ? identifierClass.ordinal() : IDENTIFIER_CLASSES.length;
+        int formOrdinal = form != null ? form.ordinal() : FORMS.length;
+        int roleOrdinal = role != null ? role.ordinal() : ROLES.length;
+
+        return (classOrdinal << CLASS_SHIFT) | (formOrdinal << FORM_SHIFT) | (roleOrdinal << ROLE_SHIFT);
+    }
+
+    /**
+     * Number of identifiers in this index
+     */
+    int size()
+    {
+        return mIdentifiers.length;
+    }
+
+    /**
+     * Immutable list of all identifiers
+     */
+    List<Identifier> getIdentifiers()
+    {
+        return mList;
+    }
+
+    /**
+     * Indicates if this index contains an identifier that is equal to the argument
+     */
+    boolean contains(Identifier identifier)
+    {
+        return indexOf(identifier) >= 0;
+    }
+
+    private int indexOf(Identifier identifier)
+    {
+        int key = key(identifier);
+
+        for(int x = 0; x < mIdentifiers.length; x++)
+        {
+            if(mKeys[x] == key && mIdentifiers[x].equals(identifier))
+            {
+                return x;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * First identifier that matches the masked key value, or null
+     */
+    Identifier getFirst(int mask, int key)
+    {
+        for(int x = 0; x < mIdentifiers.length; x++)
+        {
+            if((mKeys[x] & mask) == key)
+            {
+                return mIdentifiers[x];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Indicates if any identifier matches the masked key value
+     */
+    boolean hasMatch(int mask, int key)
+    {
+        return getFirst(mask, key) != null;
+    }
+
+    /**
+     * Identifiers matching the identifier class
+     */
+    List<Identifier> get(IdentifierClass identifierClass)
+    {
+        if(mByClass == null)
+        {
+            mByClass = createCache(IDENTIFIER_CLASSES.length);
+        }
+
+        int slot = identifierClass.ordinal();
+        List<Identifier> identifiers = mByClass[slot];
+
+        if(identifiers == null)
+        {
+            identifiers = find(CLASS_MASK, key(identifierClass, null, null) & CLASS_MASK);
+            mByClass[slot] = identifiers;
+        }
+
+        return identifiers;
+    }
+
+    /**
+     * Identifiers matching the form
+     */
+    List<Identifier> get(Form form)
+    {
+        if(mByForm == null)
+        {
+            mByForm = createCache(FORMS.length);
+        }
+
+        int slot = form.ordinal();
+        List<Identifier> identifiers = mByForm[slot];
+
+        if(identifiers == null)
+        {
+            identifiers = find(FORM_MASK, key(null, form, null) & FORM_MASK);
+            mByForm[slot] = identifiers;
+        }
+
+        return identifiers;
+    }
+
+    /**
+     * Identifiers matching the role
+     */
+    List<Identifier> get(Role role)
+    {
+        if(mByRole == null)
+        {
+            mByRole = createCache(ROLES.length);
+        }
+
+        int slot = role.ordinal();
+        List<Identifier> identifiers = mByRole[slot];
+
+        if(identifiers == null)
+        {
+            identifiers = find(ROLE_MASK, key(null, null, role) & ROLE_MASK);
+            mByRole[slot] = identifiers;
+        }
+
+        return identifiers;
+    }
+
+    /**
+     * Identifiers matching the identifier class and form
+     */
+    List<Identifier> get(IdentifierClass identifierClass, Form form)
+    {
+        if(mByClassAndForm == null)
+        {
+            mByClassAndForm = createCache(IDENTIFIER_CLASSES.length * FORMS.length);
+        }
+
+        int slot = identifierClass.ordinal() * FORMS.length + form.ordinal();
+        List<Identifier> identifiers = mByClassAndForm[slot];
+
+        if(identifiers == null)
+        {
+            int mask = CLASS_MASK | FORM_MASK;
+            identifiers = find(mask, key(identifierClass, form, null) & mask);
+            mByClassAndForm[slot] = identifiers;
+        }
+
+        return identifiers;
+    }
+
+    /**
+     * Identifiers matching the identifier class and role
+     */
+    List<Identifier> get(IdentifierClass identifierClass, Role role)
+    {
+        if(mByClassAndRole == null)
+        {
+            mByClassAndRole = createCache(IDENTIFIER_CLASSES.length * ROLES.length);
+        }
+
+        int slot = identifierClass.ordinal() * ROLES.length + role.ordinal();
+        List<Identifier> identifiers = mByClassAndRole[slot];
+
+        if(identifiers == null)
+        {
+            int mask = CLASS_MASK | ROLE_MASK;
+            identifiers = find(mask, key(identifierClass, null, role) & mask);
+            mByClassAndRole[slot] = identifiers;
+        }
+
+        return identifiers;
+    }
+
+    /**
+     * Creates an immutable list of the identifiers that match the masked key value.
+     */
+    private List<Identifier> find(int mask, int key)
+    {
+        int count = 0;
+
+        for(int x = 0; x < mKeys.length; x++)
+        {
+            if((mKeys[x] & mask) == key)
+            {
+                count++;
+            }
+        }
+
+        if(count == 0)
+        {
+            return Collections.emptyList();
+        }
+
+        if(count == mKeys.length)
+        {
+            return mList;
+        }
+
+        Identifier[] matches = new Identifier[count];
+        int pointer = 0;
+
+        for(int x = 0; x < mKeys.length; x++)
+        {
+            if((mKeys[x] & mask) == key)
+            {
+                matches[pointer++] = mIdentifiers[x];
+            }
+        }
+
+        return List.of(matches);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Identifier>[] createCache(int size)
+    {
+        return (List<Identifier>[])new List[size];
+    }
+
+    /**
+     * Creates a new index with the identifier appended
+     */
+    IdentifierIndex add(Identifier identifier)
+    {
+        Identifier[] identifiers = new Identifier[mIdentifiers.length + 1];
+        System.arraycopy(mIdentifiers, 0, identifiers, 0, mIdentifiers.length);
+        identifiers[mIdentifiers.length] = identifier;
+        return new IdentifierIndex(identifiers);
+    }
+
+    /**
+     * Creates a new index with the first identifier that is equal to the argument removed, or returns this index
+     * if there is no matching identifier.
+     */
+    IdentifierIndex remove(Identifier identifier)
+    {
+        int index = indexOf(identifier);
+
+        if(index < 0)
+        {
+            return this;
+        }
+
+        if(mIdentifiers.length == 1)
+        {
+            return EMPTY;
+        }
+
+        Identifier[] identifiers = new Identifier[mIdentifiers.length - 1];
+        System.arraycopy(mIdentifiers, 0, identifiers, 0, index);
+        System.arraycopy(mIdentifiers, index + 1, identifiers, index, identifiers.length - index);
+        return new IdentifierIndex(identifiers);
+    }
+
+    /**
+     * Creates a new index with all identifiers that match the masked key value removed, or returns this index
+     * if there are no matching identifiers.
+     */
+    IdentifierIndex remove(int mask, int key)
+    {
+        int retained = 0;
+
+        for(int x = 0; x < mKeys.length; x++)
+        {
+            if((mKeys[x] & mask) != key)
+            {
+                retained++;
+            }
+        }
+
+        if(retained == mKeys.length)
+        {
+            return this;
+        }
+
+        if(retained == 0)
+        {
+            return EMPTY;
+        }
+
+        Identifier[] identifiers = new Identifier[retained];
+        int pointer = 0;
+
+        for(int x = 0; x < mKeys.length; x++)
+        {
+            if((mKeys[x] & mask) != key)
+            {
+                identifiers[pointer++] = mIdentifiers[x];
+            }
+        }
+
+        return new IdentifierIndex(identifiers);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.identifier;
+
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
+import io.github.dsheirer.module.decode.p25.identifier.APCO25Nac;
+import io.github.dsheirer.module.decode.p25.identifier.APCO25Site;
+import io.github.dsheirer.module.decode.p25.identifier.APCO25System;
+import io.github.dsheirer.module.decode.p25.identifier.APCO25Wacn;
+import io.github.dsheirer.module.decode.p25.identifier.radio.APCO25Radio;
+import io.github.dsheirer.module.decode.p25.identifier.talkgroup.APCO25Talkgroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares identifier allocation and garbage collection pressure for a simulated busy P25 control channel using
+ * freshly constructed identifiers versus the interned identifiers provided by the identifier create() methods.
+ *
+ * Each simulated message produces a talkgroup, a FROM radio and the site network identifiers.  The talkgroup and
+ * radio are looked up in a traffic-manager style call map and an alias style map, and the identifiers for the most
+ * recent messages are retained to model the decode event history.
+ *
+ * Run as a standalone application.
+ */
+public class IdentifierInterningBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(IdentifierInterningBenchmark.class);
+
+    private static final int MESSAGES = 5_000_000;
+    private static final int ROUNDS = 5;
+    private static final int TALKGROUPS = 400;
+    private static final int RADIOS = 3000;
+    private static final int HISTORY = 200_000;
+
+    private static int[] sTalkgroups = new int[MESSAGES];
+    private static int[] sRadios = new int[MESSAGES];
+
+    static
+    {
+        //Skewed activity: a few busy talkgroups and radios dominate the traffic
+        Random random = new Random(2020);
+
+        for(int x = 0; x < MESSAGES; x++)
+        {
+            sTalkgroups[x] = 1 + (int)(TALKGROUPS * Math.pow(random.nextDouble(), 3));
+            sRadios[x] = 1000000 + (int)(RADIOS * Math.pow(random.nextDouble(), 2));
+        }
+    }
+
+    /**
+     * Creates the identifiers for one message
+     */
+    private interface MessageIdentifiers
+    {
+        void create(int talkgroup, int radio, Identifier[] identifiers);
+    }
+
+    private static void constructed(int talkgroup, int radio, Identifier[] identifiers)
+    {
+        identifiers[0] = new APCO25Talkgroup(talkgroup, Role.TO);
+        identifiers[1] = new APCO25Radio(radio, Role.FROM);
+        identifiers[2] = new APCO25Site(1);
+        identifiers[3] = new APCO25System(0x3AB);
+        identifiers[4] = new APCO25Wacn(0xBEE00);
+        identifiers[5] = new APCO25Nac(0x293);
+    }
+
+    private static void interned(int talkgroup, int radio, Identifier[] identifiers)
+    {
+        identifiers[0] = APCO25Talkgroup.create(talkgroup);
+        identifiers[1] = APCO25Radio.createFrom(radio);
+        identifiers[2] = APCO25Site.create(1);
+        identifiers[3] = APCO25System.create(0x3AB);
+        identifiers[4] = APCO25Wacn.create(0xBEE00);
+        identifiers[5] = APCO25Nac.create(0x293);
+    }
+
+    /**
+     * Runs the simulated message stream
+     * @return checksum of the lookup results to prevent dead code elimination
+     */
+    private static long run(MessageIdentifiers messageIdentifiers)
+    {
+        Map<Identifier,Integer> activeCalls = new HashMap<>();
+        Map<Integer,Integer> aliases = new HashMap<>();
+
+        for(int x = 1; x <= TALKGROUPS; x += 3)
+        {
+            aliases.put(x, x);
+        }
+
+        Identifier[][] history = new Identifier[HISTORY][];
+        long checksum = 0;
+
+        for(int x = 0; x < MESSAGES; x++)
+        {
+            Identifier[] identifiers = new Identifier[6];
+            messageIdentifiers.create(sTalkgroups[x], sRadios[x], identifiers);
+
+            Integer count = activeCalls.get(identifiers[0]);
+            activeCalls.put(identifiers[0], count == null ? 1 : count + 1);
+
+            Integer alias = aliases.get(((APCO25Talkgroup)identifiers[0]).getValue());
+            checksum += alias != null ? alias : 0;
+            checksum += identifiers[1].hashCode() & 0xF;
+
+            history[x % HISTORY] = identifiers;
+        }
+
+        return checksum + activeCalls.size();
+    }
+
+    private static long getCollectionCount()
+    {
+        long count = 0;
+
+        for(GarbageCollectorMXBean bean: ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            count += bean.getCollectionCount();
+        }
+
+        return count;
+    }
+
+    private static long getCollectionMillis()
+    {
+        long millis = 0;
+
+        for(GarbageCollectorMXBean bean: ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            millis += bean.getCollectionTime();
+        }
+
+        return millis;
+    }
+
+    private static String measure(String label, MessageIdentifiers messageIdentifiers, long[] checksum)
+    {
+        com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        System.gc();
+        long startCollections = getCollectionCount();
+        long startCollectionMillis = getCollectionMillis();
+        long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        checksum[0] = run(messageIdentifiers);
+
+        long elapsed = System.nanoTime() - start;
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        return label + " [" + String.format("%.1f", (double)bytes / MESSAGES) + " bytes/message " +
+            String.format("%.1f", (double)elapsed / MESSAGES) + " ns/message GC count " +
+            (getCollectionCount() - startCollections) + " GC time " + (getCollectionMillis() - startCollectionMillis) +
+            " ms]";
+    }
+
+    public static void main(String[] args)
+    {
+        mLog.info("Identifier interning benchmark - messages [" + MESSAGES + "] talkgroups [" + TALKGROUPS +
+            "] radios [" + RADIOS + "] retained history [" + HISTORY + "]");
+
+        long[] constructedChecksum = new long[1];
+        long[] internedChecksum = new long[1];
+
+        for(int round = 0; round < ROUNDS; round++)
+        {
+            mLog.info("Round " + (round + 1) + " " +
+                measure("Constructed", IdentifierInterningBenchmark::constructed, constructedChecksum) + " " +
+                measure("Interned", IdentifierInterningBenchmark::interned, internedChecksum));
+        }
+
+        if(constructedChecksum[0] != internedChecksum[0])
+        {
+            mLog.error("Lookup results differ - constructed checksum [" + constructedChecksum[0] +
+                "] interned checksum [" + internedChecksum[0] + "]");
+        }
+        else
+        {
+            mLog.info("Lookup results match");
+        }
+
+        for(String statistics: IntegerIdentifierCache.getAllStatistics())
+        {
+            mLog.info(statistics);
+        }
+    }
+}
@@ -28,7 +28,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
-import java.util.Iterator;
 
 /**
  * Identifier collection with methods for changing or updating managed identifiers
@@ -125,9 +124,9 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     private void add(Identifier identifier)
     {
-        if(identifier.isValid() && !mIdentifiers.contains(identifier))
+        if(identifier.isValid() && !mIdentifierIndex.contains(identifier))
         {
-            mIdentifiers.add(identifier);
+            mIdentifierIndex = mIdentifierIndex.add(identifier);
             notifyAdd(identifier);
         }
 
@@ -146,9 +145,9 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     private void silentAdd(Identifier identifier)
     {
-        if(identifier.isValid() && !mIdentifiers.contains(identifier))
+        if(identifier.isValid() && !mIdentifierIndex.contains(identifier))
         {
-            mIdentifiers.add(identifier);
+            mIdentifierIndex = mIdentifierIndex.add(identifier);
         }
 
         //Retain a reference to the alias list identifier separately so that it can be accessed quickly.
@@ -163,7 +162,10 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(Identifier identifier)
     {
-        if(mIdentifiers.remove(identifier))
+        IdentifierIndex previous = mIdentifierIndex;
+        mIdentifierIndex = previous.remove(identifier);
+
+        if(mIdentifierIndex != previous)
         {
             notifyRemove(identifier);
         }
@@ -180,7 +182,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void silentRemove(Identifier identifier)
     {
-        mIdentifiers.remove(identifier);
+        mIdentifierIndex = mIdentifierIndex.remove(identifier);
 
         //Remove the reference to the alias list identifier.
         if(identifier instanceof AliasListConfigurationIdentifier)
@@ -262,13 +264,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void clear()
     {
-        Iterator<Identifier> it = mIdentifiers.iterator();
-
-        while(it.hasNext())
-        {
-            notifyRemove(it.next());
-            it.remove();
-        }
+        remove(0, 0);
     }
 
     /**
@@ -276,20 +272,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(IdentifierClass identifierClass)
     {
-        Iterator<Identifier> it = mIdentifiers.iterator();
-
-        Identifier next = null;
-
-        while(it.hasNext())
-        {
-            next = it.next();
-
-            if(next.getIdentifierClass() == identifierClass)
-            {
-                it.remove();
-                notifyRemove(next);
-            }
-        }
+        remove(IdentifierIndex.CLASS_MASK, IdentifierIndex.key(identifierClass, null, null) & IdentifierIndex.CLASS_MASK);
     }
 
     /**
@@ -297,20 +280,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(Form form)
     {
-        Iterator<Identifier> it = mIdentifiers.iterator();
-
-        Identifier next = null;
-
-        while(it.hasNext())
-        {
-            next = it.next();
-
-            if(next.getForm() == form)
-            {
-                it.remove();
-                notifyRemove(next);
-            }
-        }
+        remove(IdentifierIndex.FORM_MASK, IdentifierIndex.key(null, form, null) & IdentifierIndex.FORM_MASK);
     }
 
     /**
@@ -318,20 +288,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(Role role)
     {
-        Iterator<Identifier> it = mIdentifiers.iterator();
-
-        Identifier next = null;
-
-        while(it.hasNext())
-        {
-            next = it.next();
-
-            if(next.getRole() == role)
-            {
-                it.remove();
-                notifyRemove(next);
-            }
-        }
+        remove(IdentifierIndex.ROLE_MASK, IdentifierIndex.key(null, null, role) & IdentifierIndex.ROLE_MASK);
     }
 
     /**
@@ -339,20 +296,8 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(IdentifierClass identifierClass, Form form, Role role)
     {
-        Iterator<Identifier> it = mIdentifiers.iterator();
-
-        Identifier next = null;
-
-        while(it.hasNext())
-        {
-            next = it.next();
-
-            if(next.getIdentifierClass() == identifierClass && next.getForm() == form && next.getRole() == role)
-            {
-                it.remove();
-                notifyRemove(next);
-            }
-        }
+        int mask = IdentifierIndex.CLASS_MASK | IdentifierIndex.FORM_MASK | IdentifierIndex.ROLE_MASK;
+        remove(mask, IdentifierIndex.key(identifierClass, form, role));
     }
 
     /**
@@ -360,18 +305,27 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public void remove(IdentifierClass identifierClass, Role role)
     {
-        Iterator<Identifier> it = mIdentifiers.iterator();
+        int mask = IdentifierIndex.CLASS_MASK | IdentifierIndex.ROLE_MASK;
+        remove(mask, IdentifierIndex.key(identifierClass, null, role) & mask);
+    }
 
-        Identifier next = null;
+    /**
+     * Removes all identifiers that match the masked identifier index key and broadcasts a remove notification for
+     * each removed identifier.
+     */
+    private void remove(int mask, int key)
+    {
+        IdentifierIndex previous = mIdentifierIndex;
+        mIdentifierIndex = previous.remove(mask, key);
 
-        while(it.hasNext())
+        if(mIdentifierIndex != previous)
         {
-            next = it.next();
-
-            if(next.getIdentifierClass() == identifierClass && next.getRole() == role)
+            for(Identifier identifier: previous.getIdentifiers())
             {
-                it.remove();
-                notifyRemove(next);
+                if((IdentifierIndex.key(identifier) & mask) == key)
+                {
+                    notifyRemove(identifier);
+                }
             }
         }
     }
@@ -408,7 +362,7 @@ public class MutableIdentifierCollection extends IdentifierCollection implements
      */
     public IdentifierCollection copyOf()
     {
-        IdentifierCollection copy = new IdentifierCollection(getIdentifiers(), getTimeslot());
+        IdentifierCollection copy = new IdentifierCollection(this);
         copy.setUpdated(isUpdated());
         setUpdated(false);
         return copy;
@@ -32,6 +32,8 @@ import java.util.Objects;
  */
 public abstract class IntegerIdentifier extends Identifier<Integer>
 {
+    private int mHashCode;
+
     public IntegerIdentifier(int value, IdentifierClass identifierClass, Form form, Role role)
     {
         super(value, identifierClass, form, role);
@@ -61,6 +63,15 @@ public abstract class IntegerIdentifier extends Identifier<Integer>
     @Override
     public int hashCode()
     {
-        return Objects.hash(getValue(), getIdentifierClass(), getForm(), getRole());
+        //Identifiers are immutable, so the hash code is computed once.  A racing thread simply recomputes it.
+        int hashCode = mHashCode;
+
+        if(hashCode == 0)
+        {
+            hashCode = Objects.hash(getValue(), getIdentifierClass(), getForm(), getRole());
+            mHashCode = hashCode;
+        }
+
+        return hashCode;
     }
 }
@@ -0,0 +1,240 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.identifier.integer;
+
+import io.github.dsheirer.identifier.Role;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded interning cache for immutable integer identifiers (talkgroups, radios, sites, etc.) of a single protocol
+ * identifier class.
+ *
+ * Decoders produce the same few hundred identifier values over and over on a busy control channel.  The cache hands
+ * out a canonical instance for each value and role so that message parsing doesn't allocate a new identifier for each
+ * message, and so that downstream equality checks usually resolve on the identity test with a cached hash code.
+ *
+ * The cache is a fixed-size table where each value and role hashes to a primary and a secondary slot.  A new
+ * identifier takes whichever of the two slots is free, otherwise it replaces the primary slot occupant.  This keeps the cache bounded without any eviction bookkeeping and lookups are lock-free.
+ * Identifiers are immutable with final fields, so racing threads can at worst create a duplicate (equal) instance.
+ *
+ * @param <T> type of identifier
+ */
+public class IntegerIdentifierCache<T extends IntegerIdentifier>
+{
+    private final static Logger mLog = LoggerFactory.getLogger(IntegerIdentifierCache.class);
+    private static final DecimalFormat PERCENT_FORMAT = new DecimalFormat("0.0");
+    private static final List<IntegerIdentifierCache<?>> CACHES = new CopyOnWriteArrayList<>();
+    public static final int DEFAULT_CAPACITY = 4096;
+    /**
+     * Capacity for network identifiers (site, system, etc.) where a decoder only sees a handful of values
+     */
+    public static final int NETWORK_CAPACITY = 256;
+
+    private final String mName;
+    private final Factory<T> mFactory;
+    private final IntegerIdentifier[] mTable;
+    private final int mMask;
+    private final LongAdder mHitCount = new LongAdder();
+    private final LongAdder mMissCount = new LongAdder();
+
+    /**
+     * Constructs an instance and registers it for statistics logging.
+     *
+     * @param name of the identifier class for statistics
+     * @param capacity of the cache, rounded up to the next power of 2
+     * @param factory to create identifiers on a cache miss
+     */
+    public IntegerIdentifierCache(String name, int capacity, Factory<T> factory)
+    {
+        if(capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be a positive value");
+        }
+
+        mName = name;
+        mFactory = factory;
+        int size = Integer.highestOneBit(capacity);
+
+        if(size < capacity)
+        {
+            size <<= 1;
+        }
+
+        mTable = new IntegerIdentifier[size];
+        mMask = size - 1;
+        CACHES.add(this);
+    }
+
+    /**
+     * Constructs an instance with the default capacity
+     *
+     * @param name of the identifier class for statistics
+     * @param factory to create identifiers on a cache miss
+     */
+    public IntegerIdentifierCache(String name, Factory<T> factory)
+    {
+        this(name, DEFAULT_CAPACITY, factory);
+    }
+
+    /**
+     * Provides the canonical identifier for the value and role, creating it on a cache miss.
+     *
+     * @param value of the identifier
+     * @param role of the identifier
+     * @return identifier
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int value, Role role)
+    {
+        int hash = (value * 31 + role.ordinal()) * 0x9E3779B9;
+        int primary = (hash >>> 16) & mMask;
+        int secondary = hash & mMask;
+
+        IntegerIdentifier cached = mTable[primary];
+
+        if(matches(cached, value, role))
+        {
+            mHitCount.increment();
+            return (T)cached;
+        }
+
+        IntegerIdentifier alternate = mTable[secondary];
+
+        if(matches(alternate, value, role))
+        {
+            mHitCount.increment();
+            return (T)alternate;
+        }
+
+        mMissCount.increment();
+        T identifier = mFactory.create(value, role);
+
+        //Use a free slot when one is available, otherwise replace the primary slot occupant
+        if(cached != null && alternate == null)
+        {
+            mTable[secondary] = identifier;
+        }
+        else
+        {
+            mTable[primary] = identifier;
+        }
+
+        return identifier;
+    }
+
+    /**
+     * Indicates if the cached identifier matches the value and role
+     */
+    private static boolean matches(IntegerIdentifier cached, int value, Role role)
+    {
+        return cached != null && cached.getValue() == value && cached.getRole() == role;
+    }
+
+    /**
+     * Number of slots in the cache
+     */
+    public int getCapacity()
+    {
+        return mTable.length;
+    }
+
+    /**
+     * Removes all cached identifiers and resets the statistics
+     */
+    public void clear()
+    {
+        for(int x = 0; x < mTable.length; x++)
+        {
+            mTable[x] = null;
+        }
+
+        mHitCount.reset();
+        mMissCount.reset();
+    }
+
+    /**
+     * Summary statistics for this cache
+     */
+    public String getStatistics()
+    {
+        long hits = mHitCount.sum();
+        long misses = mMissCount.sum();
+        long total = hits + misses;
+        int occupied = 0;
+
+        for(IntegerIdentifier identifier: mTable)
+        {
+            if(identifier != null)
+            {
+                occupied++;
+            }
+        }
+
+        return "Identifier Cache [" + mName + "] hits [" + hits + "] misses [" + misses + "] hit rate [" +
+            (total > 0 ? PERCENT_FORMAT.format(100.0 * hits / total) : "0.0") + "%] occupied [" + occupied + "/" +
+            mTable.length + "]";
+    }
+
+    /**
+     * Statistics for all identifier caches
+     */
+    public static List<String> getAllStatistics()
+    {
+        List<String> statistics = new ArrayList<>();
+
+        for(IntegerIdentifierCache<?> cache: CACHES)
+        {
+            statistics.add(cache.getStatistics());
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Logs the statistics for all identifier caches that have been used
+     */
+    public static void logStatistics()
+    {
+        for(IntegerIdentifierCache<?> cache: CACHES)
+        {
+            if(cache.mHitCount.sum() + cache.mMissCount.sum() > 0)
+            {
+                mLog.info(cache.getStatistics());
+            }
+        }
+    }
+
+    /**
+     * Creates identifiers on a cache miss
+     */
+    public interface Factory<T extends IntegerIdentifier>
+    {
+        T create(int value, Role role);
+    }
+}
@@ -23,6 +23,7 @@
 package io.github.dsheirer.identifier.talkgroup;
 
 import io.github.dsheirer.identifier.Role;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.protocol.Protocol;
 
 /**
@@ -30,6 +31,9 @@ import io.github.dsheirer.protocol.Protocol;
  */
 public class LTRTalkgroup extends TalkgroupIdentifier implements Comparable<LTRTalkgroup>
 {
+    private static final IntegerIdentifierCache<LTRTalkgroup> CACHE = new IntegerIdentifierCache<>("LTR Talkgroup",
+        LTRTalkgroup::new);
+
     public LTRTalkgroup(Integer talkgroup, Role role)
     {
         super(talkgroup, role);
@@ -70,7 +74,7 @@ public class LTRTalkgroup extends TalkgroupIdentifier implements Comparable<LTRT
      */
     public static LTRTalkgroup create(int talkgroup)
     {
-        return new LTRTalkgroup(talkgroup, Role.TO);
+        return CACHE.get(talkgroup, Role.TO);
     }
 
     @Override
@@ -18,8 +18,13 @@
  ******************************************************************************/
 package io.github.dsheirer.map;
 
+import com.google.common.eventbus.Subscribe;
 import io.github.dsheirer.alias.AliasModel;
+import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.icon.IconManager;
+import io.github.dsheirer.preference.PreferenceType;
+import io.github.dsheirer.preference.UserPreferences;
+import io.github.dsheirer.preference.map.MapPreference;
 import io.github.dsheirer.settings.MapViewSetting;
 import io.github.dsheirer.settings.SettingsManager;
 import net.miginfocom.swing.MigLayout;
@@ -29,23 +34,37 @@ import org.jdesktop.swingx.input.PanKeyListener;
 import org.jdesktop.swingx.input.ZoomMouseWheelListenerCursor;
 import org.jdesktop.swingx.mapviewer.DefaultTileFactory;
 import org.jdesktop.swingx.mapviewer.GeoPosition;
+import org.jdesktop.swingx.mapviewer.TileCache;
 import org.jdesktop.swingx.mapviewer.TileFactoryInfo;
+import org.jdesktop.swingx.mapviewer.TileStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.swing.JPanel;
 import java.awt.EventQueue;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.TimeUnit;
 
 public class MapPanel extends JPanel implements IPlottableUpdateListener
 {
     private static final long serialVersionUID = 1L;
+    private final static Logger mLog = LoggerFactory.getLogger(MapPanel.class);
+    private static final String MAP_TILE_STORE_DIRECTORY = "map_tiles";
 
     private SettingsManager mSettingsManager;
     private MapService mMapService;
     private JXMapViewer mMapViewer = new JXMapViewer();
     private PlottableEntityPainter mMapPainter;
+    private UserPreferences mUserPreferences;
+    private DefaultTileFactory mTileFactory;
+    private TileStore mTileStore;
 
-    public MapPanel(MapService mapService, AliasModel aliasModel, IconManager iconManager, SettingsManager settingsManager)
+    public MapPanel(MapService mapService, AliasModel aliasModel, IconManager iconManager, SettingsManager settingsManager,
+                    UserPreferences userPreferences)
     {
         mSettingsManager = settingsManager;
+        mUserPreferences = userPreferences;
         mMapService = mapService;
         mMapPainter = new PlottableEntityPainter(aliasModel, iconManager);
 
@@ -67,14 +86,27 @@ public class MapPanel extends JPanel implements IPlottableUpdateListener
          * Map image source
          */
         TileFactoryInfo info = new OSMTileFactoryInfo();
-        DefaultTileFactory tileFactory = new DefaultTileFactory(info);
-        mMapViewer.setTileFactory(tileFactory);
+        mTileFactory = new DefaultTileFactory(info);
+
+        /**
+         * Decoded tiles are cached in memory and compressed tiles are persisted in the tile store so that the map is
+         * available across restarts and on restricted networks.  The store can be prepopulated offline.  The user
+         * preference limits only apply to the tiles that the store fetched.
+         */
+        MapPreference mapPreference = mUserPreferences.getMapPreference();
+        mTileStore = new TileStore(mUserPreferences.getDirectoryPreference().getDirectoryApplicationRoot()
+            .resolve(MAP_TILE_STORE_DIRECTORY), getTileStoreMaximumBytes(mapPreference),
+            getTileStoreMaximumAge(mapPreference));
+        mTileFactory.setTileCache(new TileCache(TileCache.DEFAULT_MAXIMUM_IMAGE_BYTES, mTileStore));
+        MyEventBus.getEventBus().register(this);
+        mTileFactory.setPrefetchNeighbouringZoomLevels(true);
+        mMapViewer.setTileFactory(mTileFactory);
 
         /**
          * Defines how many threads will be used to fetch the background map
          * tiles (graphics)
          */
-        tileFactory.setThreadPoolSize(8);
+        mTileFactory.setThreadPoolSize(8);
 
         /**
          * Set initial location and zoom for the map upon display
@@ -119,17 +151,75 @@ public class MapPanel extends JPanel implements IPlottableUpdateListener
         EventQueue.invokeLater(() -> mMapViewer.repaint());
     }
 
+    /**
+     * Applies changes to the fetched map tile limits
+     */
+    @Subscribe
+    public void preferenceUpdated(PreferenceType preferenceType)
+    {
+        if(preferenceType == PreferenceType.MAP && mTileStore != null)
+        {
+            MapPreference mapPreference = mUserPreferences.getMapPreference();
+            mTileStore.setMaximumBytes(getTileStoreMaximumBytes(mapPreference));
+            mTileStore.setMaximumAge(getTileStoreMaximumAge(mapPreference));
+        }
+    }
+
+    private static long getTileStoreMaximumBytes(MapPreference mapPreference)
+    {
+        return mapPreference.getTileStoreMaximumSize() * 1024L * 1024L;
+    }
+
+    private static long getTileStoreMaximumAge(MapPreference mapPreference)
+    {
+        return TimeUnit.DAYS.toMillis(mapPreference.getTileStoreMaximumAge());
+    }
+
+    /**
+     * Logs the map tile cache, tile loading and entity painting statistics
+     */
+    public void logStatistics()
+    {
+        mLog.info(mTileFactory.getStatistics());
+        mLog.info(mMapPainter.getStatistics());
+    }
+
     @Override
     public void addPlottableEntity(PlottableEntityHistory entity)
     {
-        mMapPainter.addEntity(entity);
-        entitiesUpdated();
+        Rectangle2D previous = mMapPainter.addEntity(entity);
+        repaint(previous, entity.getBounds());
     }
 
     @Override
     public void removePlottableEntity(PlottableEntityHistory entity)
     {
-        mMapPainter.removeEntity(entity);
-        entitiesUpdated();
+        Rectangle2D previous = mMapPainter.removeEntity(entity);
+        repaint(previous, null);
+    }
+
+    /**
+     * Repaints only the region of the map that covers the previous and current bounds of an updated entity.  Swing
+     * coalesces the regions from multiple updates and only the map tiles within the region are redrawn.
+     */
+    private void repaint(Rectangle2D previous, Rectangle2D current)
+    {
+        EventQueue.invokeLater(() -> {
+            Rectangle previousRegion = mMapPainter.getRepaintRegion(mMapViewer, previous);
+            Rectangle currentRegion = mMapPainter.getRepaintRegion(mMapViewer, current);
+
+            if(previousRegion != null && currentRegion != null)
+            {
+                mMapViewer.repaint(previousRegion.union(currentRegion));
+            }
+            else if(previousRegion != null)
+            {
+                mMapViewer.repaint(previousRegion);
+            }
+            else if(currentRegion != null)
+            {
+                mMapViewer.repaint(currentRegion);
+            }
+        });
     }
 }
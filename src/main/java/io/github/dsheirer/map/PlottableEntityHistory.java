@@ -25,16 +25,30 @@ import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.module.decode.event.PlottableDecodeEvent;
 import org.jdesktop.swingx.mapviewer.GeoPosition;
 
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
- * Plottable entity history with location history.
+ * Location history (trail) for a plottable entity.
+ *
+ * The trail is bounded and time-decimated so that an entity that reports its location frequently over a long period
+ * doesn't accumulate an unbounded history.  Consecutive locations reported within the minimum trail interval replace
+ * the most recent location, so that the trail always ends at the current location.  When the trail exceeds the maximum
+ * length, every other location in the older half of the trail is discarded, progressively reducing the resolution of
+ * the oldest parts of the trail.
+ *
+ * Access is synchronized since locations are added by the map service while the map is painting on the Swing thread.
  */
 public class PlottableEntityHistory
 {
+    public static final int MAXIMUM_TRAIL_LENGTH = 300;
+    public static final long MINIMUM_TRAIL_INTERVAL_MS = 15000;
+
     private List<GeoPosition> mLocationHistory = new ArrayList<>();
+    private List<Long> mLocationTimestamps = new ArrayList<>();
+    private Rectangle2D mBounds;
     private PlottableDecodeEvent mCurrentEvent;
     private Identifier mIdentifier;
 
@@ -48,11 +62,28 @@ public class PlottableEntityHistory
     }
 
     /**
-     * Location history for this entity
+     * Location history for this entity, oldest first.  Returns a copy of the history.
+     */
+    public synchronized List<GeoPosition> getLocationHistory()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(mLocationHistory));
+    }
+
+    /**
+     * Most recent location for this entity
      */
-    public List<GeoPosition> getLocationHistory()
+    public synchronized GeoPosition getCurrentLocation()
     {
-        return Collections.unmodifiableList(mLocationHistory);
+        return mLocationHistory.isEmpty() ? null : mLocationHistory.get(mLocationHistory.size() - 1);
+    }
+
+    /**
+     * Bounding box of the valid locations in the history, with longitude as x and latitude as y, or null if there are
+     * no valid locations.  Returns a copy of the bounds.
+     */
+    public synchronized Rectangle2D getBounds()
+    {
+        return mBounds != null ? (Rectangle2D)mBounds.clone() : null;
     }
 
     /**
@@ -66,7 +97,7 @@ public class PlottableEntityHistory
     /**
      * Identifier collection from the latest event for this plottable
      */
-    public IdentifierCollection getIdentifierCollection()
+    public synchronized IdentifierCollection getIdentifierCollection()
     {
         return mCurrentEvent.getIdentifierCollection();
     }
@@ -74,9 +105,76 @@ public class PlottableEntityHistory
     /**
      * Updates the entity history with a location from the latest decode event
      */
-    public void add(PlottableDecodeEvent event)
+    public synchronized void add(PlottableDecodeEvent event)
     {
         mCurrentEvent = event;
-        mLocationHistory.add(event.getLocation());
+
+        int size = mLocationHistory.size();
+
+        //Replace the most recent location when it is within the minimum interval of the previous retained location
+        if(size > 1 && (event.getTimeStart() - mLocationTimestamps.get(size - 2)) < MINIMUM_TRAIL_INTERVAL_MS)
+        {
+            mLocationHistory.set(size - 1, event.getLocation());
+            mLocationTimestamps.set(size - 1, event.getTimeStart());
+        }
+        else
+        {
+            mLocationHistory.add(event.getLocation());
+            mLocationTimestamps.add(event.getTimeStart());
+        }
+
+        if(mLocationHistory.size() > MAXIMUM_TRAIL_LENGTH)
+        {
+            decimate();
+        }
+
+        updateBounds();
+    }
+
+    /**
+     * Removes every other location from the older half of the trail
+     */
+    private void decimate()
+    {
+        int half = mLocationHistory.size() / 2;
+        List<GeoPosition> locations = new ArrayList<>(MAXIMUM_TRAIL_LENGTH);
+        List<Long> timestamps = new ArrayList<>(MAXIMUM_TRAIL_LENGTH);
+
+        for(int x = 0; x < mLocationHistory.size(); x++)
+        {
+            if(x >= half || (x % 2) == 0)
+            {
+                locations.add(mLocationHistory.get(x));
+                timestamps.add(mLocationTimestamps.get(x));
+            }
+        }
+
+        mLocationHistory = locations;
+        mLocationTimestamps = timestamps;
+    }
+
+    /**
+     * Recalculates the bounding box of the valid locations
+     */
+    private void updateBounds()
+    {
+        Rectangle2D bounds = null;
+
+        for(GeoPosition location : mLocationHistory)
+        {
+            if(location != null && location.isValid())
+            {
+                if(bounds == null)
+                {
+                    bounds = new Rectangle2D.Double(location.getLongitude(), location.getLatitude(), 0, 0);
+                }
+                else
+                {
+                    bounds.add(location.getLongitude(), location.getLatitude());
+                }
+            }
+        }
+
+        mBounds = bounds;
     }
 }
@@ -0,0 +1,267 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.map;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grid-bucketed spatial index of plottable entities.
+ *
+ * The map is divided into fixed size latitude/longitude grid cells and each entity is registered in every cell that
+ * is covered by the bounding box of its location history, so that an entity is found when either its current
+ * location or any part of its trail falls within a queried area.  Entities with very large bounding boxes are kept in
+ * an unbounded set that is included in every query, so that a single cross-country trail doesn't flood the grid.
+ *
+ * Access is synchronized since entities are updated by the map service while the map is painting on the Swing thread.
+ */
+public class PlottableEntityIndex
+{
+    public static final double CELL_SIZE_DEGREES = 0.25;
+    private static final int CELLS_PER_ROW = (int)Math.ceil(360.0 / CELL_SIZE_DEGREES);
+    private static final int MAXIMUM_CELLS_PER_ENTITY = 1024;
+
+    private Map<Integer,Set<PlottableEntityHistory>> mCells = new HashMap<>();
+    private Map<PlottableEntityHistory,Rectangle2D> mIndexedBounds = new HashMap<>();
+    private Set<PlottableEntityHistory> mUnbounded = new HashSet<>();
+
+    /**
+     * Adds or updates the entity in the index using the entity's current bounds
+     * @param entity to index
+     * @return bounds of the entity when it was previously indexed, or null if the entity was not indexed or it had no
+     * valid location
+     */
+    public synchronized Rectangle2D update(PlottableEntityHistory entity)
+    {
+        Rectangle2D bounds = entity.getBounds();
+        Rectangle2D previous = mIndexedBounds.get(entity);
+
+        if(previous != null && bounds != null && getCellRange(previous).equals(getCellRange(bounds)))
+        {
+            mIndexedBounds.put(entity, bounds);
+            return previous;
+        }
+
+        remove(entity);
+
+        if(bounds != null)
+        {
+            mIndexedBounds.put(entity, bounds);
+            CellRange range = getCellRange(bounds);
+
+            if(range.getCellCount() > MAXIMUM_CELLS_PER_ENTITY)
+            {
+                mUnbounded.add(entity);
+            }
+            else
+            {
+                for(int row = range.mMinimumRow; row <= range.mMaximumRow; row++)
+                {
+                    for(int column = range.mMinimumColumn; column <= range.mMaximumColumn; column++)
+                    {
+                        mCells.computeIfAbsent(getCell(row, column), cell -> new HashSet<>()).add(entity);
+                    }
+                }
+            }
+        }
+
+        return previous;
+    }
+
+    /**
+     * Removes the entity from the index
+     * @return bounds of the entity when it was indexed, or null if the entity was not indexed
+     */
+    public synchronized Rectangle2D remove(PlottableEntityHistory entity)
+    {
+        Rectangle2D previous = mIndexedBounds.remove(entity);
+
+        if(previous != null && !mUnbounded.remove(entity))
+        {
+            CellRange range = getCellRange(previous);
+
+            for(int row = range.mMinimumRow; row <= range.mMaximumRow; row++)
+            {
+                for(int column = range.mMinimumColumn; column <= range.mMaximumColumn; column++)
+                {
+                    int cell = getCell(row, column);
+                    Set<PlottableEntityHistory> entities = mCells.get(cell);
+
+                    if(entities != null)
+                    {
+                        entities.remove(entity);
+
+                        if(entities.isEmpty())
+                        {
+                            mCells.remove(cell);
+                        }
+                    }
+                }
+            }
+        }
+
+        return previous;
+    }
+
+    /**
+     * Removes all entities from the index
+     */
+    public synchronized void clear()
+    {
+        mCells.clear();
+        mIndexedBounds.clear();
+        mUnbounded.clear();
+    }
+
+    /**
+     * Number of indexed entities
+     */
+    public synchronized int size()
+    {
+        return mIndexedBounds.size();
+    }
+
+    /**
+     * Finds the entities with a location history bounding box that intersects the area.
+     * @param area with longitude as x and latitude as y
+     * @return entities within the area
+     */
+    public synchronized List<PlottableEntityHistory> query(Rectangle2D area)
+    {
+        Set<PlottableEntityHistory> candidates = new HashSet<>(mUnbounded);
+        CellRange range = getCellRange(area);
+
+        if(range.getCellCount() > mCells.size())
+        {
+            //The area covers more cells than are occupied, so scan the occupied cells instead
+            for(Set<PlottableEntityHistory> entities : mCells.values())
+            {
+                candidates.addAll(entities);
+            }
+        }
+        else
+        {
+            for(int row = range.mMinimumRow; row <= range.mMaximumRow; row++)
+            {
+                for(int column = range.mMinimumColumn; column <= range.mMaximumColumn; column++)
+                {
+                    Set<PlottableEntityHistory> entities = mCells.get(getCell(row, column));
+
+                    if(entities != null)
+                    {
+                        candidates.addAll(entities);
+                    }
+                }
+            }
+        }
+
+        List<PlottableEntityHistory> results = new ArrayList<>();
+
+        for(PlottableEntityHistory candidate : candidates)
+        {
+            Rectangle2D bounds = mIndexedBounds.get(candidate);
+
+            //Use an inclusive test since single location bounds have zero width and height
+            if(bounds != null && bounds.getMaxX() >= area.getMinX() && bounds.getMinX() <= area.getMaxX() &&
+                bounds.getMaxY() >= area.getMinY() && bounds.getMinY() <= area.getMaxY())
+            {
+                results.add(candidate);
+            }
+        }
+
+        return results;
+    }
+
+    private static int getCell(int row, int column)
+    {
+        return (row * CELLS_PER_ROW) + column;
+    }
+
+    private static int getRow(double latitude)
+    {
+        return (int)Math.floor((Math.max(-90.0, Math.min(90.0, latitude)) + 90.0) / CELL_SIZE_DEGREES);
+    }
+
+    private static int getColumn(double longitude)
+    {
+        return (int)Math.floor((Math.max(-180.0, Math.min(180.0, longitude)) + 180.0) / CELL_SIZE_DEGREES);
+    }
+
+    private static CellRange getCellRange(Rectangle2D bounds)
+    {
+        return new CellRange(getRow(bounds.getMinY()), getRow(bounds.getMaxY()), getColumn(bounds.getMinX()),
+            getColumn(bounds.getMaxX()));
+    }
+
+    /**
+     * Range of grid cells covered by a bounding box
+     */
+    private static class CellRange
+    {
+        private int mMinimumRow;
+        private int mMaximumRow;
+        private int mMinimumColumn;
+        private int mMaximumColumn;
+
+        public CellRange(int minimumRow, int maximumRow, int minimumColumn, int maximumColumn)
+        {
+            mMinimumRow = minimumRow;
+            mMaximumRow = maximumRow;
+            mMinimumColumn = minimumColumn;
+            mMaximumColumn = maximumColumn;
+        }
+
+        public long getCellCount()
+        {
+            return (long)(mMaximumRow - mMinimumRow + 1) * (mMaximumColumn - mMinimumColumn + 1);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o)
+            {
+                return true;
+            }
+
+            if(!(o instanceof CellRange))
+            {
+                return false;
+            }
+
+            CellRange other = (CellRange)o;
+            return mMinimumRow == other.mMinimumRow && mMaximumRow == other.mMaximumRow &&
+                mMinimumColumn == other.mMinimumColumn && mMaximumColumn == other.mMaximumColumn;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (31 * ((31 * ((31 * mMinimumRow) + mMaximumRow)) + mMinimumColumn)) + mMaximumColumn;
+        }
+    }
+}
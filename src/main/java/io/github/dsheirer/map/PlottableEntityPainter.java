@@ -23,18 +23,43 @@ package io.github.dsheirer.map;
 import io.github.dsheirer.alias.AliasModel;
 import io.github.dsheirer.icon.IconManager;
 import org.jdesktop.swingx.JXMapViewer;
+import org.jdesktop.swingx.mapviewer.GeoPosition;
+import org.jdesktop.swingx.mapviewer.TileFactory;
 import org.jdesktop.swingx.painter.AbstractPainter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.text.DecimalFormat;
+import java.util.List;
 
+/**
+ * Paints plottable entities (icon, label and location trail) on the map.
+ *
+ * Entities are held in a spatial index so that each paint only renders the entities that fall within the clip area
+ * of the graphics context.  Use getRepaintRegion() to repaint only the area affected by an entity update instead of the
+ * whole map.  Paint time is measured for each frame.
+ */
 public class PlottableEntityPainter extends AbstractPainter<JXMapViewer>
 {
+    private final static Logger mLog = LoggerFactory.getLogger(PlottableEntityPainter.class);
+    private static final DecimalFormat MILLIS_FORMAT = new DecimalFormat("0.000");
+
+    //Pixel margins around an entity's location bounds that cover the icon, the label to the right, and the trail stroke
+    private static final int ICON_MARGIN = IconManager.DEFAULT_ICON_SIZE;
+    private static final int LABEL_MARGIN = 250;
+
     private PlottableEntityRenderer mRenderer;
-    private Set<PlottableEntityHistory> mEntities = new HashSet<>();
+    private PlottableEntityIndex mIndex = new PlottableEntityIndex();
+
+    private long mFrameCount;
+    private long mTotalPaintNanos;
+    private long mMaximumPaintNanos;
+    private long mLastPaintNanos;
+    private int mLastPaintEntityCount;
 
     public PlottableEntityPainter(AliasModel aliasModel, IconManager iconManager)
     {
@@ -43,34 +68,82 @@ public class PlottableEntityPainter extends AbstractPainter<JXMapViewer>
         setCacheable(false);
     }
 
-    public void addEntity(PlottableEntityHistory entity)
+    /**
+     * Adds or updates the entity
+     * @return location bounds of the entity before the update, or null if the entity is new
+     */
+    public Rectangle2D addEntity(PlottableEntityHistory entity)
     {
-        mEntities.add(entity);
+        return mIndex.update(entity);
     }
 
-    public void removeEntity(PlottableEntityHistory entity)
+    /**
+     * Removes the entity
+     * @return location bounds of the entity before removal, or null if the entity was not painted
+     */
+    public Rectangle2D removeEntity(PlottableEntityHistory entity)
     {
-        mEntities.remove(entity);
+        return mIndex.remove(entity);
     }
 
     public void clearEntities()
     {
-        mEntities.clear();
+        mIndex.clear();
     }
 
-    private Set<PlottableEntityHistory> getEntities()
+    /**
+     * Calculates the region of the map component that must be repainted to cover the painted area of an entity with
+     * the location bounds.
+     * @param map component
+     * @param bounds of the entity locations (longitude as x and latitude as y)
+     * @return region in component coordinates, or null if the bounds are null
+     */
+    public Rectangle getRepaintRegion(JXMapViewer map, Rectangle2D bounds)
     {
-        return Collections.unmodifiableSet(mEntities);
+        if(bounds == null)
+        {
+            return null;
+        }
+
+        TileFactory tileFactory = map.getTileFactory();
+        Point2D northWest = tileFactory.geoToPixel(new GeoPosition(bounds.getMaxY(), bounds.getMinX()), map.getZoom());
+        Point2D southEast = tileFactory.geoToPixel(new GeoPosition(bounds.getMinY(), bounds.getMaxX()), map.getZoom());
+        Rectangle viewportBounds = map.getViewportBounds();
+
+        int x = (int)Math.floor(northWest.getX()) - viewportBounds.x - ICON_MARGIN;
+        int y = (int)Math.floor(northWest.getY()) - viewportBounds.y - ICON_MARGIN;
+        int width = (int)Math.ceil(southEast.getX() - northWest.getX()) + ICON_MARGIN + LABEL_MARGIN;
+        int height = (int)Math.ceil(southEast.getY() - northWest.getY()) + (2 * ICON_MARGIN);
+
+        return new Rectangle(x, y, width, height);
     }
 
     @Override
     protected void doPaint(Graphics2D g, JXMapViewer map, int width, int height)
     {
+        long start = System.nanoTime();
+
         Rectangle viewportBounds = map.getViewportBounds();
+        Rectangle clip = g.getClipBounds();
 
-        g.translate(-viewportBounds.getX(), -viewportBounds.getY());
+        if(clip == null)
+        {
+            clip = new Rectangle(0, 0, width, height);
+        }
+
+        //Expand the clip area to find entities with an icon or label that overlaps the clip but a location that doesn't
+        TileFactory tileFactory = map.getTileFactory();
+        GeoPosition northWest = tileFactory.pixelToGeo(new Point2D.Double(viewportBounds.x + clip.x - LABEL_MARGIN,
+            viewportBounds.y + clip.y - ICON_MARGIN), map.getZoom());
+        GeoPosition southEast = tileFactory.pixelToGeo(new Point2D.Double(viewportBounds.x + clip.getMaxX() +
+            ICON_MARGIN, viewportBounds.y + clip.getMaxY() + ICON_MARGIN), map.getZoom());
+
+        Rectangle2D area = new Rectangle2D.Double(northWest.getLongitude(), southEast.getLatitude(), 0, 0);
+        area.add(southEast.getLongitude(), northWest.getLatitude());
 
-        Set<PlottableEntityHistory> entities = getEntities();
+        List<PlottableEntityHistory> entities = mIndex.query(area);
+
+        g.translate(-viewportBounds.getX(), -viewportBounds.getY());
 
         for(PlottableEntityHistory entity : entities)
         {
@@ -78,5 +151,29 @@ public class PlottableEntityPainter extends AbstractPainter<JXMapViewer>
         }
 
         g.translate(viewportBounds.getX(), viewportBounds.getY());
+
+        long elapsed = System.nanoTime() - start;
+        mFrameCount++;
+        mTotalPaintNanos += elapsed;
+        mMaximumPaintNanos = Math.max(mMaximumPaintNanos, elapsed);
+        mLastPaintNanos = elapsed;
+        mLastPaintEntityCount = entities.size();
+
+        if(mLog.isDebugEnabled())
+        {
+            mLog.debug("Map frame painted [" + entities.size() + "/" + mIndex.size() + "] entities in [" +
+                MILLIS_FORMAT.format(elapsed / 1E6) + " ms] clip " + clip.width + "x" + clip.height);
+        }
+    }
+
+    /**
+     * Summary statistics for painting entities
+     */
+    public String getStatistics()
+    {
+        return "Map Entity Painter - entities [" + mIndex.size() + "] frames [" + mFrameCount + "] paint time average [" +
+            MILLIS_FORMAT.format(mFrameCount > 0 ? (mTotalPaintNanos / mFrameCount / 1E6) : 0) + " ms] maximum [" +
+            MILLIS_FORMAT.format(mMaximumPaintNanos / 1E6) + " ms] last [" + MILLIS_FORMAT.format(mLastPaintNanos / 1E6) +
+            " ms / " + mLastPaintEntityCount + " entities]";
     }
 }
@@ -52,9 +52,12 @@ import io.github.dsheirer.module.decode.event.IDecodeEventProvider;
 import io.github.dsheirer.module.decode.event.MessageActivityModel;
 import io.github.dsheirer.module.log.EventLogger;
 import io.github.dsheirer.record.binary.BinaryRecorder;
+import io.github.dsheirer.record.wave.BasebandRingRecorder;
 import io.github.dsheirer.record.wave.ComplexBufferWaveRecorder;
 import io.github.dsheirer.sample.Broadcaster;
+import io.github.dsheirer.sample.INonCriticalListener;
 import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.ListenerStatistics;
 import io.github.dsheirer.sample.buffer.IReusableBufferListener;
 import io.github.dsheirer.sample.buffer.IReusableBufferProvider;
 import io.github.dsheirer.sample.buffer.IReusableByteBufferListener;
@@ -104,9 +107,9 @@ public class ProcessingChain implements Listener<ChannelEvent>
     private final static Logger mLog = LoggerFactory.getLogger(ProcessingChain.class);
 
     private ReusableBufferBroadcaster<ReusableAudioPacket> mAudioPacketBroadcaster = new ReusableBufferBroadcaster<>();
-    private ReusableBufferBroadcaster<ReusableFloatBuffer> mDemodulatedAudioBufferBroadcaster = new ReusableBufferBroadcaster();
-    private ReusableBufferBroadcaster<ReusableComplexBuffer> mBasebandComplexBufferBroadcaster = new ReusableBufferBroadcaster();
-    private ReusableBufferBroadcaster<ReusableByteBuffer> mDemodulatedBitstreamBufferBroadcaster = new ReusableBufferBroadcaster();
+    private ReusableBufferBroadcaster<ReusableFloatBuffer> mDemodulatedAudioBufferBroadcaster = new ReusableBufferBroadcaster<>();
+    private ReusableBufferBroadcaster<ReusableComplexBuffer> mBasebandComplexBufferBroadcaster = new ReusableBufferBroadcaster<>();
+    private ReusableBufferBroadcaster<ReusableByteBuffer> mDemodulatedBitstreamBufferBroadcaster = new ReusableBufferBroadcaster<>();
     private Broadcaster<IDecodeEvent> mDecodeEventBroadcaster = new Broadcaster<>();
     private Broadcaster<ChannelEvent> mChannelEventBroadcaster = new Broadcaster<>();
     private Broadcaster<DecoderStateEvent> mDecoderStateEventBroadcaster = new Broadcaster<>();
@@ -121,6 +124,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
     private AbstractChannelState mChannelState;
     private MessageActivityModel mMessageActivityModel;
     protected Source mSource;
+    private String mChannelName;
 
     /**
      * Creates a processing chain for managing a set of modules
@@ -129,6 +133,8 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public ProcessingChain(Channel channel, AliasModel aliasModel)
     {
+        setStatisticsNames(channel.getName());
+
         if(channel.getDecodeConfiguration().getTimeslotCount() == 1)
         {
             mChannelState = new SingleChannelState(channel, aliasModel);
@@ -143,6 +149,62 @@ public class ProcessingChain implements Listener<ChannelEvent>
         addDecodeEventListener(mDecodeEventModel);
     }
 
+    /**
+     * Identifies each broadcaster by channel and stream for listener statistics
+     */
+    private void setStatisticsNames(String channel)
+    {
+        mChannelName = channel;
+        mAudioPacketBroadcaster.setStatisticsName(channel, "Audio Packets");
+        mDemodulatedAudioBufferBroadcaster.setStatisticsName(channel, "Demodulated Audio");
+        mBasebandComplexBufferBroadcaster.setStatisticsName(channel, "Baseband");
+        mDemodulatedBitstreamBufferBroadcaster.setStatisticsName(channel, "Bitstream");
+        mDecodeEventBroadcaster.setStatisticsName(channel, "Decode Events");
+        mChannelEventBroadcaster.setStatisticsName(channel, "Channel Events");
+        mDecoderStateEventBroadcaster.setStatisticsName(channel, "Decoder State Events");
+        mHeartbeatBroadcaster.setStatisticsName(channel, "Heartbeats");
+        mIdentifierUpdateNotificationBroadcaster.setStatisticsName(channel, "Identifier Updates");
+        mSourceEventBroadcaster.setStatisticsName(channel, "Source Events");
+        mMessageBroadcaster.setStatisticsName(channel, "Messages");
+        mSquelchStateEventBroadcaster.setStatisticsName(channel, "Squelch State");
+    }
+
+    /**
+     * Delivers any items that are queued for non-critical listeners on the calling thread
+     */
+    private void flushBroadcasters()
+    {
+        mBasebandComplexBufferBroadcaster.flush();
+        mDemodulatedAudioBufferBroadcaster.flush();
+        mDemodulatedBitstreamBufferBroadcaster.flush();
+        mMessageBroadcaster.flush();
+        mDecodeEventBroadcaster.flush();
+        mIdentifierUpdateNotificationBroadcaster.flush();
+        mAudioPacketBroadcaster.flush();
+        mChannelEventBroadcaster.flush();
+        mDecoderStateEventBroadcaster.flush();
+        mHeartbeatBroadcaster.flush();
+        mSquelchStateEventBroadcaster.flush();
+        mSourceEventBroadcaster.flush();
+    }
+
+    /**
+     * Registers the listener with the broadcaster, instrumented under the name of the owner.  Owners that are marked
+     * as non-critical receive items through a bounded asynchronous hand-off so that they can't stall the producer.
+     */
+    private static <T> void addListener(Broadcaster<T> broadcaster, Listener<T> listener, Object owner)
+    {
+        broadcaster.addListener(listener, Broadcaster.getListenerName(owner), !(owner instanceof INonCriticalListener));
+    }
+
+    /**
+     * Listener execution time and delivery statistics for the broadcasters in this processing chain
+     */
+    public List<ListenerStatistics> getListenerStatistics()
+    {
+        return Broadcaster.getStatistics(mChannelName);
+    }
+
     public AbstractChannelState getChannelState()
     {
         return mChannelState;
@@ -181,8 +243,13 @@ public class ProcessingChain implements Listener<ChannelEvent>
         mModules.clear();
 
         mAudioPacketBroadcaster.dispose();
+        mDemodulatedAudioBufferBroadcaster.dispose();
         mDecodeEventBroadcaster.dispose();
         mChannelEventBroadcaster.dispose();
+        mDecoderStateEventBroadcaster.dispose();
+        mHeartbeatBroadcaster.dispose();
+        mIdentifierUpdateNotificationBroadcaster.dispose();
+        mSourceEventBroadcaster.dispose();
         mBasebandComplexBufferBroadcaster.dispose();
         mDemodulatedBitstreamBufferBroadcaster.dispose();
         mMessageBroadcaster.dispose();
@@ -315,52 +382,52 @@ public class ProcessingChain implements Listener<ChannelEvent>
     {
         if(module instanceof IdentifierUpdateListener)
         {
-            mIdentifierUpdateNotificationBroadcaster.addListener(((IdentifierUpdateListener)module).getIdentifierUpdateListener());
+            addListener(mIdentifierUpdateNotificationBroadcaster, ((IdentifierUpdateListener)module).getIdentifierUpdateListener(), module);
         }
 
         if(module instanceof IAudioPacketListener)
         {
-            mAudioPacketBroadcaster.addListener(((IAudioPacketListener)module).getAudioPacketListener());
+            addListener(mAudioPacketBroadcaster, ((IAudioPacketListener)module).getAudioPacketListener(), module);
         }
 
         if(module instanceof IDecodeEventListener)
         {
-            mDecodeEventBroadcaster.addListener(((IDecodeEventListener)module).getDecodeEventListener());
+            addListener(mDecodeEventBroadcaster, ((IDecodeEventListener)module).getDecodeEventListener(), module);
         }
 
         if(module instanceof IChannelEventListener)
         {
-            mChannelEventBroadcaster.addListener(((IChannelEventListener)module).getChannelEventListener());
+            addListener(mChannelEventBroadcaster, ((IChannelEventListener)module).getChannelEventListener(), module);
         }
 
         if(module instanceof IDecoderStateEventListener)
         {
-            mDecoderStateEventBroadcaster.addListener(((IDecoderStateEventListener)module).getDecoderStateListener());
+            addListener(mDecoderStateEventBroadcaster, ((IDecoderStateEventListener)module).getDecoderStateListener(), module);
         }
 
         if(module instanceof IHeartbeatListener)
         {
-            mHeartbeatBroadcaster.addListener(((IHeartbeatListener)module).getHeartbeatListener());
+            addListener(mHeartbeatBroadcaster, ((IHeartbeatListener)module).getHeartbeatListener(), module);
         }
 
         if(module instanceof IMessageListener)
         {
-            mMessageBroadcaster.addListener(((IMessageListener)module).getMessageListener());
+            addListener(mMessageBroadcaster, ((IMessageListener)module).getMessageListener(), module);
         }
 
         if(module instanceof IReusableBufferListener)
         {
-            mDemodulatedAudioBufferBroadcaster.addListener(((IReusableBufferListener)module).getReusableBufferListener());
+            addListener(mDemodulatedAudioBufferBroadcaster, ((IReusableBufferListener)module).getReusableBufferListener(), module);
         }
 
         if(module instanceof IReusableByteBufferListener)
         {
-            mDemodulatedBitstreamBufferBroadcaster.addListener(((IReusableByteBufferListener)module).getReusableByteBufferListener());
+            addListener(mDemodulatedBitstreamBufferBroadcaster, ((IReusableByteBufferListener)module).getReusableByteBufferListener(), module);
         }
 
         if(module instanceof IReusableComplexBufferListener)
         {
-            mBasebandComplexBufferBroadcaster.addListener(((IReusableComplexBufferListener)module).getReusableComplexBufferListener());
+            addListener(mBasebandComplexBufferBroadcaster, ((IReusableComplexBufferListener)module).getReusableComplexBufferListener(), module);
         }
 
         if(module instanceof ISourceEventListener)
@@ -369,13 +436,14 @@ public class ProcessingChain implements Listener<ChannelEvent>
 
             if(listener != null)
             {
-                mSourceEventBroadcaster.addListener(listener);
+                //Source events configure the module and are always delivered on the producer thread
+                mSourceEventBroadcaster.addListener(listener, Broadcaster.getListenerName(module), true);
             }
         }
 
         if(module instanceof ISquelchStateListener)
         {
-            mSquelchStateEventBroadcaster.addListener(((ISquelchStateListener)module).getSquelchStateListener());
+            addListener(mSquelchStateEventBroadcaster, ((ISquelchStateListener)module).getSquelchStateListener(), module);
         }
     }
 
@@ -666,6 +734,9 @@ public class ProcessingChain implements Listener<ChannelEvent>
                 mSource = null;
             }
 
+            //Deliver items that are queued for non-critical listeners before the listening modules are stopped
+            flushBroadcasters();
+
             /* Stop each of the remaining modules */
             for(Module module : mModules)
             {
@@ -714,6 +785,10 @@ public class ProcessingChain implements Listener<ChannelEvent>
             {
                 recordingModules.add(module);
             }
+            else if(module instanceof BasebandRingRecorder)
+            {
+                recordingModules.add(module);
+            }
             else if(module instanceof MBECallSequenceRecorder)
             {
                 recordingModules.add(module);
@@ -735,7 +810,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addAudioPacketListener(Listener<ReusableAudioPacket> listener)
     {
-        mAudioPacketBroadcaster.addListener(listener);
+        addListener(mAudioPacketBroadcaster, listener, listener);
     }
 
     public void removeAudioPacketListener(Listener<ReusableAudioPacket> listener)
@@ -748,7 +823,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addDecodeEventListener(Listener<IDecodeEvent> listener)
     {
-        mDecodeEventBroadcaster.addListener(listener);
+        addListener(mDecodeEventBroadcaster, listener, listener);
     }
 
     public void removeDecodeEventListener(Listener<IDecodeEvent> listener)
@@ -761,7 +836,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addChannelEventListener(Listener<ChannelEvent> listener)
     {
-        mChannelEventBroadcaster.addListener(listener);
+        addListener(mChannelEventBroadcaster, listener, listener);
     }
 
     public void removeChannelEventListener(Listener<ChannelEvent> listener)
@@ -774,7 +849,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addDecoderStateEventListener(Listener<DecoderStateEvent> listener)
     {
-        mDecoderStateEventBroadcaster.addListener(listener);
+        addListener(mDecoderStateEventBroadcaster, listener, listener);
     }
 
     public void removeDecoderStateEventListener(Listener<DecoderStateEvent> listener)
@@ -792,7 +867,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addMessageListener(Listener<IMessage> listener)
     {
-        mMessageBroadcaster.addListener(listener);
+        addListener(mMessageBroadcaster, listener, listener);
     }
 
     /**
@@ -802,7 +877,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
     {
         for(Listener<IMessage> listener : listeners)
         {
-            mMessageBroadcaster.addListener(listener);
+            addListener(mMessageBroadcaster, listener, listener);
         }
     }
 
@@ -811,7 +886,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addSourceEventListener(Listener<SourceEvent> listener)
     {
-        mSourceEventBroadcaster.addListener(listener);
+        mSourceEventBroadcaster.addListener(listener, Broadcaster.getListenerName(listener), true);
     }
 
     /**
@@ -829,7 +904,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addFrequencyChangeListener(Listener<SourceEvent> listener)
     {
-        mSourceEventBroadcaster.addListener(listener);
+        mSourceEventBroadcaster.addListener(listener, Broadcaster.getListenerName(listener), true);
     }
 
     /**
@@ -847,7 +922,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addSquelchStateListener(Listener<SquelchStateEvent> listener)
     {
-        mSquelchStateEventBroadcaster.addListener(listener);
+        addListener(mSquelchStateEventBroadcaster, listener, listener);
     }
 
     public void removeSquelchStateListener(Listener<SquelchStateEvent> listener)
@@ -860,7 +935,7 @@ public class ProcessingChain implements Listener<ChannelEvent>
      */
     public void addDemodulatedAudioListener(Listener<ReusableFloatBuffer> listener)
     {
-        mDemodulatedAudioBufferBroadcaster.addListener(listener);
+        addListener(mDemodulatedAudioBufferBroadcaster, listener, listener);
     }
 
     /**
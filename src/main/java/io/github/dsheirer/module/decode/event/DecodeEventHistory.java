@@ -0,0 +1,607 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.module.decode.event;
+
+import io.github.dsheirer.channel.IChannelDescriptor;
+import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierCollection;
+import io.github.dsheirer.identifier.Role;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Compact, columnar history of decode events.
+ *
+ * Events are stored as rows in fixed-size segments of primitive column arrays.  Strings, channel descriptors and the
+ * identifiers other than FROM and TO (e.g. the alias list and channel configuration) are dictionary-encoded per
+ * segment, so repeated values (event descriptions, details, channels, configuration) are stored once per segment and
+ * the whole segment, dictionaries included, is released when it rolls off.  The FROM and TO identifier columns
+ * reference the interned identifier instances directly.  Together these columns retain the complete identifier set
+ * and timeslot of the event's identifier collection.  The decode event object graph is not retained: the identifier
+ * collection for a row is recreated on demand when the row is viewed and contains the same identifiers as the
+ * original, ordered FROM, TO and then the remaining identifiers.
+ *
+ * Producers can send the same event object repeatedly as a call progresses.  The history tracks the row for each
+ * event with a weak reference so that updates overwrite the event's row for as long as the producer holds the event.
+ *
+ * Rows are indexed newest first: row 0 is the most recently added event.  The oldest rows roll off when the history
+ * exceeds the maximum row count, the maximum age or the memory budget.
+ *
+ * This class is thread-safe.
+ */
+public class DecodeEventHistory
+{
+    public static final int SEGMENT_SIZE = 256;
+    public static final long DEFAULT_MAXIMUM_BYTES = 4 * 1024 * 1024;
+    private static final int NO_VALUE = -1;
+
+    //Approximate retained sizes used for the memory budget
+    private static final int BYTES_PER_ROW = 2 * Long.BYTES + 8 * Integer.BYTES;
+    private static final int BYTES_PER_LIST = 64;
+    private static final int BYTES_PER_SEGMENT = 256;
+    private static final int BYTES_PER_DICTIONARY_ENTRY = 64;
+    private static final int BYTES_PER_OBJECT = 48;
+    private static final int BYTES_PER_IDENTIFIER = 16;
+
+    private final List<Segment> mSegments = new ArrayList<>();
+    private final Map<IDecodeEvent,Long> mEventSequences = new WeakHashMap<>();
+    private long mFirstSequence = 0;
+    private long mNextSequence = 0;
+    private long mEstimatedBytes = 0;
+    private int mMaximumRows;
+    private long mMaximumAge = Long.MAX_VALUE;
+    private long mMaximumBytes = DEFAULT_MAXIMUM_BYTES;
+
+    /**
+     * Constructs an instance
+     * @param maximumRows to retain
+     */
+    public DecodeEventHistory(int maximumRows)
+    {
+        mMaximumRows = maximumRows;
+    }
+
+    /**
+     * Adds the event to the history or updates the event's row when the event was added previously and is still
+     * retained.
+     *
+     * @param event to add or update
+     * @return row index of an updated event, or -1 if the event was added as a new row (row 0)
+     */
+    public synchronized int put(IDecodeEvent event)
+    {
+        Long sequence = mEventSequences.get(event);
+
+        if(sequence != null && sequence >= mFirstSequence)
+        {
+            write(getSegment(sequence), sequence, event);
+            return toRow(sequence);
+        }
+
+        Segment segment = mSegments.isEmpty() ? null : mSegments.get(mSegments.size() - 1);
+
+        if(segment == null || segment.isFull())
+        {
+            segment = new Segment(mNextSequence);
+            mSegments.add(segment);
+            mEstimatedBytes += segment.getEstimatedBytes();
+        }
+
+        write(segment, mNextSequence, event);
+        mEventSequences.put(event, mNextSequence);
+        mNextSequence++;
+        return NO_VALUE;
+    }
+
+    /**
+     * Writes the event to the segment and updates the memory estimate
+     */
+    private void write(Segment segment, long sequence, IDecodeEvent event)
+    {
+        long before = segment.getEstimatedBytes();
+        segment.write(index(sequence), event);
+        mEstimatedBytes += segment.getEstimatedBytes() - before;
+    }
+
+    /**
+     * Removes the oldest rows that exceed the maximum row count, maximum age or memory budget.  The newest row is
+     * always retained.  The memory budget is enforced by releasing whole segments.
+     *
+     * @param now current time in milliseconds
+     * @return number of rows removed from the end (oldest rows) of the history
+     */
+    public synchronized int prune(long now)
+    {
+        long firstSequence = mFirstSequence;
+
+        //Memory is only released a segment at a time, so release whole segments while over budget
+        while(mEstimatedBytes > mMaximumBytes && mSegments.size() > 1)
+        {
+            Segment oldest = mSegments.remove(0);
+            mEstimatedBytes -= oldest.getEstimatedBytes();
+            mFirstSequence = oldest.getLastSequence() + 1;
+        }
+
+        while(size() > 1 && (size() > mMaximumRows || isAged(now)))
+        {
+            mFirstSequence++;
+            Segment oldest = mSegments.get(0);
+
+            if(mFirstSequence > oldest.getLastSequence())
+            {
+                mSegments.remove(0);
+                mEstimatedBytes -= oldest.getEstimatedBytes();
+            }
+        }
+
+        //Accessing the weak map expunges the entries for events that producers have released
+        mEventSequences.size();
+
+        return (int)(mFirstSequence - firstSequence);
+    }
+
+    /**
+     * Indicates if the oldest row is older than the maximum age
+     */
+    private boolean isAged(long now)
+    {
+        return mMaximumAge != Long.MAX_VALUE &&
+            getSegment(mFirstSequence).mTimeStart[index(mFirstSequence)] < now - mMaximumAge;
+    }
+
+    /**
+     * Removes all rows
+     */
+    public synchronized void clear()
+    {
+        mSegments.clear();
+        mEventSequences.clear();
+
+        //Segments start on a segment size boundary
+        mNextSequence = ((mNextSequence + SEGMENT_SIZE - 1) / SEGMENT_SIZE) * SEGMENT_SIZE;
+        mFirstSequence = mNextSequence;
+        mEstimatedBytes = 0;
+    }
+
+    /**
+     * Number of rows in the history
+     */
+    public synchronized int size()
+    {
+        return (int)(mNextSequence - mFirstSequence);
+    }
+
+    /**
+     * Approximate heap bytes retained by the history
+     */
+    public synchronized long getEstimatedBytes()
+    {
+        return mEstimatedBytes;
+    }
+
+    public synchronized int getMaximumRows()
+    {
+        return mMaximumRows;
+    }
+
+    /**
+     * Sets the maximum number of rows to retain
+     */
+    public synchronized void setMaximumRows(int maximumRows)
+    {
+        mMaximumRows = maximumRows;
+    }
+
+    public synchronized long getMaximumAge()
+    {
+        return mMaximumAge;
+    }
+
+    /**
+     * Sets the maximum age in milliseconds for event start times before rows roll off
+     */
+    public synchronized void setMaximumAge(long maximumAge)
+    {
+        mMaximumAge = maximumAge;
+    }
+
+    public synchronized long getMaximumBytes()
+    {
+        return mMaximumBytes;
+    }
+
+    /**
+     * Sets the memory budget in bytes for the history
+     */
+    public synchronized void setMaximumBytes(long maximumBytes)
+    {
+        mMaximumBytes = maximumBytes;
+    }
+
+    public synchronized long getTimeStart(int row)
+    {
+        long sequence = toSequence(row);
+        return getSegment(sequence).mTimeStart[index(sequence)];
+    }
+
+    public synchronized long getDuration(int row)
+    {
+        long sequence = toSequence(row);
+        return getSegment(sequence).mDuration[index(sequence)];
+    }
+
+    public synchronized String getEventDescription(int row)
+    {
+        long sequence = toSequence(row);
+        Segment segment = getSegment(sequence);
+        return segment.mStrings.decode(segment.mEventDescription[index(sequence)]);
+    }
+
+    public synchronized String getDetails(int row)
+    {
+        long sequence = toSequence(row);
+        Segment segment = getSegment(sequence);
+        return segment.mStrings.decode(segment.mDetails[index(sequence)]);
+    }
+
+    /**
+     * Creates an identifier collection for the row containing all of the identifiers and the timeslot of the original
+     * event's identifier collection.
+     *
+     * @return identifier collection or null if the original event didn't have an identifier collection
+     */
+    public synchronized IdentifierCollection getIdentifierCollection(int row)
+    {
+        long sequence = toSequence(row);
+        Segment segment = getSegment(sequence);
+        int index = index(sequence);
+        int timeslot = segment.mIdentifierTimeslot[index];
+
+        if(timeslot == NO_VALUE)
+        {
+            return null;
+        }
+
+        List<Identifier> identifiers = new ArrayList<>();
+        addIdentifiers(segment.mFrom[index], identifiers);
+        addIdentifiers(segment.mTo[index], identifiers);
+
+        List<Identifier> others = segment.mIdentifierLists.decode(segment.mOthers[index]);
+
+        if(others != null)
+        {
+            identifiers.addAll(others);
+        }
+
+        IdentifierCollection identifierCollection = new IdentifierCollection(identifiers);
+        identifierCollection.setTimeslot(timeslot);
+        return identifierCollection;
+    }
+
+    public synchronized IChannelDescriptor getChannelDescriptor(int row)
+    {
+        long sequence = toSequence(row);
+        Segment segment = getSegment(sequence);
+        return segment.mChannelDescriptors.decode(segment.mChannel[index(sequence)]);
+    }
+
+    public synchronized boolean hasTimeslot(int row)
+    {
+        long sequence = toSequence(row);
+        return getSegment(sequence).mTimeslot[index(sequence)] != NO_VALUE;
+    }
+
+    /**
+     * Timeslot for the row or -1 if the event doesn't have a timeslot
+     */
+    public synchronized int getTimeslot(int row)
+    {
+        long sequence = toSequence(row);
+        return getSegment(sequence).mTimeslot[index(sequence)];
+    }
+
+    /**
+     * Adds the identifier or list of identifiers from an identifier column value to the list
+     */
+    @SuppressWarnings("unchecked")
+    private static void addIdentifiers(Object value, List<Identifier> identifiers)
+    {
+        if(value instanceof Identifier)
+        {
+            identifiers.add((Identifier)value);
+        }
+        else if(value instanceof List)
+        {
+            identifiers.addAll((List<Identifier>)value);
+        }
+    }
+
+    private long toSequence(int row)
+    {
+        if(row < 0 || row >= size())
+        {
+            throw new IndexOutOfBoundsException("Row [" + row + "] size [" + size() + "]");
+        }
+
+        return mNextSequence - 1 - row;
+    }
+
+    private int toRow(long sequence)
+    {
+        return (int)(mNextSequence - 1 - sequence);
+    }
+
+    private static int index(long sequence)
+    {
+        return (int)(sequence % SEGMENT_SIZE);
+    }
+
+    /**
+     * Segment containing the sequence.  Segments are contiguous, so the segment position is the sequence offset from
+     * the first segment divided by the segment size.
+     */
+    private Segment getSegment(long sequence)
+    {
+        return mSegments.get((int)((sequence - mSegments.get(0).getFirstSequence()) / SEGMENT_SIZE));
+    }
+
+    /**
+     * Fixed-size block of event rows with per-segment value dictionaries
+     */
+    private static class Segment
+    {
+        private final long mFirstSequence;
+        private final long[] mTimeStart = new long[SEGMENT_SIZE];
+        private final long[] mDuration = new long[SEGMENT_SIZE];
+        private final int[] mEventDescription = new int[SEGMENT_SIZE];
+        private final int[] mDetails = new int[SEGMENT_SIZE];
+        //FROM and TO columns contain a single identifier, a list of identifiers or null
+        private final Object[] mFrom = new Object[SEGMENT_SIZE];
+        private final Object[] mTo = new Object[SEGMENT_SIZE];
+        //Identifiers with roles other than FROM and TO
+        private final int[] mOthers = new int[SEGMENT_SIZE];
+        //Identifier collection timeslot, or -1 when the event doesn't have an identifier collection
+        private final int[] mIdentifierTimeslot = new int[SEGMENT_SIZE];
+        private final int[] mChannel = new int[SEGMENT_SIZE];
+        private final int[] mTimeslot = new int[SEGMENT_SIZE];
+        private final Dictionary<String,String> mStrings = new Dictionary<>();
+        private final Dictionary<IChannelDescriptor,IChannelDescriptor> mChannelDescriptors = new Dictionary<>();
+        private final Dictionary<List<Identifier>,List<Identifier>> mIdentifierLists = new Dictionary<>();
+        private long mEstimatedBytes = BYTES_PER_SEGMENT + (long)SEGMENT_SIZE * BYTES_PER_ROW;
+        private int mCount;
+
+        private Segment(long firstSequence)
+        {
+            mFirstSequence = firstSequence;
+        }
+
+        private long getFirstSequence()
+        {
+            return mFirstSequence;
+        }
+
+        private long getLastSequence()
+        {
+            return mFirstSequence + SEGMENT_SIZE - 1;
+        }
+
+        private boolean isFull()
+        {
+            return mCount == SEGMENT_SIZE;
+        }
+
+        private long getEstimatedBytes()
+        {
+            return mEstimatedBytes;
+        }
+
+        /**
+         * Writes or overwrites the event values at the index
+         */
+        private void write(int index, IDecodeEvent event)
+        {
+            mTimeStart[index] = event.getTimeStart();
+            mDuration[index] = event.getDuration();
+            mEventDescription[index] = encode(event.getEventDescription());
+            mDetails[index] = encode(event.getDetails());
+            mTimeslot[index] = event.hasTimeslot() && event.getTimeslot() != null ? event.getTimeslot() : NO_VALUE;
+            mChannel[index] = encode(event.getChannelDescriptor());
+
+            IdentifierCollection identifierCollection = event.getIdentifierCollection();
+
+            if(identifierCollection != null)
+            {
+                mFrom[index] = toColumnValue(identifierCollection.getIdentifiers(Role.FROM));
+                mTo[index] = toColumnValue(identifierCollection.getIdentifiers(Role.TO));
+                mOthers[index] = encodeOthers(identifierCollection.getIdentifiers());
+                mIdentifierTimeslot[index] = identifierCollection.getTimeslot();
+            }
+            else
+            {
+                mFrom[index] = null;
+                mTo[index] = null;
+                mOthers[index] = NO_VALUE;
+                mIdentifierTimeslot[index] = NO_VALUE;
+            }
+
+            if(index >= mCount)
+            {
+                mCount = index + 1;
+            }
+        }
+
+        private int encode(String value)
+        {
+            if(value == null)
+            {
+                return NO_VALUE;
+            }
+
+            int size = mStrings.size();
+            int code = mStrings.encode(value, value);
+
+            if(mStrings.size() > size)
+            {
+                mEstimatedBytes += BYTES_PER_DICTIONARY_ENTRY + BYTES_PER_OBJECT + 2L * value.length();
+            }
+
+            return code;
+        }
+
+        /**
+         * Identifier column value for the identifiers: null, the single identifier or a compact copy of the list
+         */
+        private Object toColumnValue(List<Identifier> identifiers)
+        {
+            switch(identifiers.size())
+            {
+                case 0:
+                    return null;
+                case 1:
+                    return identifiers.get(0);
+                default:
+                    mEstimatedBytes += BYTES_PER_LIST + (long)identifiers.size() * BYTES_PER_IDENTIFIER;
+                    return List.copyOf(identifiers);
+            }
+        }
+
+        /**
+         * Encodes the identifiers that don't have a FROM or TO role as a list
+         */
+        private int encodeOthers(List<Identifier> identifiers)
+        {
+            List<Identifier> others = new ArrayList<>(identifiers.size());
+
+            for(Identifier identifier : identifiers)
+            {
+                if(identifier.getRole() != Role.FROM && identifier.getRole() != Role.TO)
+                {
+                    others.add(identifier);
+                }
+            }
+
+            if(others.isEmpty())
+            {
+                return NO_VALUE;
+            }
+
+            int size = mIdentifierLists.size();
+            int code = mIdentifierLists.encode(others, others);
+
+            if(mIdentifierLists.size() > size)
+            {
+                mEstimatedBytes += BYTES_PER_DICTIONARY_ENTRY + BYTES_PER_LIST +
+                    (long)others.size() * BYTES_PER_IDENTIFIER;
+            }
+
+            return code;
+        }
+
+        /**
+         * Channel descriptors are matched on equality and frequency since some descriptors (e.g. P25 channels) are
+         * equal by channel number alone and are updated with the frequency band after they are created.
+         */
+        private int encode(IChannelDescriptor channelDescriptor)
+        {
+            if(channelDescriptor == null)
+            {
+                return NO_VALUE;
+            }
+
+            int code = mChannelDescriptors.find(channelDescriptor);
+
+            if(code != NO_VALUE)
+            {
+                IChannelDescriptor existing = mChannelDescriptors.decode(code);
+
+                if(existing.getClass() == channelDescriptor.getClass() &&
+                    existing.getDownlinkFrequency() == channelDescriptor.getDownlinkFrequency())
+                {
+                    return code;
+                }
+            }
+
+            mEstimatedBytes += BYTES_PER_DICTIONARY_ENTRY + BYTES_PER_OBJECT;
+            return mChannelDescriptors.add(channelDescriptor, channelDescriptor);
+        }
+    }
+
+    /**
+     * Dictionary that assigns an integer code to each distinct key and stores a value for the code
+     */
+    private static class Dictionary<K,V>
+    {
+        private final Map<K,Integer> mCodes = new HashMap<>();
+        private final List<V> mValues = new ArrayList<>();
+
+        /**
+         * Code for the key or -1 if the key is not in the dictionary
+         */
+        private int find(K key)
+        {
+            Integer code = mCodes.get(key);
+            return code != null ? code : NO_VALUE;
+        }
+
+        /**
+         * Code for the key, adding the key and value when the key is not in the dictionary
+         */
+        private int encode(K key, V value)
+        {
+            Integer code = mCodes.get(key);
+
+            if(code == null)
+            {
+                code = mValues.size();
+                mCodes.put(key, code);
+                mValues.add(value);
+            }
+
+            return code;
+        }
+
+        /**
+         * Adds the value with a new code, replacing the code for an existing key
+         */
+        private int add(K key, V value)
+        {
+            int code = mValues.size();
+            mCodes.put(key, code);
+            mValues.add(value);
+            return code;
+        }
+
+        private V decode(int code)
+        {
+            return code == NO_VALUE ? null : mValues.get(code);
+        }
+
+        private int size()
+        {
+            return mValues.size();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.module.decode.event;
+
+import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.identifier.IdentifierCollection;
+import io.github.dsheirer.identifier.Role;
+import io.github.dsheirer.identifier.configuration.AliasListConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.ChannelNameConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.DecoderTypeConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.FrequencyConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.SiteConfigurationIdentifier;
+import io.github.dsheirer.identifier.configuration.SystemConfigurationIdentifier;
+import io.github.dsheirer.module.decode.DecoderType;
+import io.github.dsheirer.module.decode.p25.P25DecodeEvent;
+import io.github.dsheirer.module.decode.p25.identifier.channel.APCO25Channel;
+import io.github.dsheirer.module.decode.p25.identifier.radio.APCO25Radio;
+import io.github.dsheirer.module.decode.p25.identifier.talkgroup.APCO25Talkgroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the retained heap and the table cell access time of the columnar decode event history against retaining
+ * the decode event objects in a list, for a simulated P25 control channel event stream.
+ *
+ * Run as a standalone application with a fixed heap, for example -Xmx1g.
+ */
+public class DecodeEventHistoryBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(DecodeEventHistoryBenchmark.class);
+
+    private static final int EVENTS = 200_000;
+    private static final int TALKGROUPS = 400;
+    private static final int RADIOS = 3000;
+    private static final int CHANNELS = 20;
+    private static final String[] DESCRIPTIONS = {DecodeEventType.CALL_GROUP.toString(),
+        DecodeEventType.CALL_GROUP_ENCRYPTED.toString(), DecodeEventType.REGISTER.toString(),
+        DecodeEventType.DEREGISTER.toString(), DecodeEventType.QUERY.toString()};
+
+    /**
+     * Creates the event stream.  Each event has its own identifier collection and details string as produced by the
+     * decoder state, while the identifiers themselves are interned.
+     */
+    private static List<IDecodeEvent> createEvents()
+    {
+        Random random = new Random(2020);
+        List<Identifier> configuration = new ArrayList<>();
+        configuration.add(AliasListConfigurationIdentifier.create("Alias List"));
+        configuration.add(SystemConfigurationIdentifier.create("System"));
+        configuration.add(SiteConfigurationIdentifier.create("Site"));
+        configuration.add(ChannelNameConfigurationIdentifier.create("Control"));
+        configuration.add(DecoderTypeConfigurationIdentifier.create(DecoderType.P25_PHASE1));
+        configuration.add(FrequencyConfigurationIdentifier.create(851012500L));
+
+        List<IDecodeEvent> events = new ArrayList<>();
+        long timestamp = System.currentTimeMillis() - EVENTS * 500L;
+
+        for(int x = 0; x < EVENTS; x++)
+        {
+            List<Identifier> identifiers = new ArrayList<>(configuration);
+            int talkgroup = 1 + (int)(TALKGROUPS * Math.pow(random.nextDouble(), 3));
+            int radio = 1000000 + (int)(RADIOS * Math.pow(random.nextDouble(), 2));
+            identifiers.add(APCO25Talkgroup.create(talkgroup));
+            identifiers.add(APCO25Radio.createFrom(radio));
+
+            events.add(P25DecodeEvent.builder(timestamp + x * 500L)
+                .duration(random.nextInt(20000))
+                .channel(APCO25Channel.create(1, random.nextInt(CHANNELS)))
+                .eventDescription(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)])
+                .details("SERVICE OPTIONS [" + (random.nextBoolean() ? "EMERGENCY" : "NORMAL") + "] PRIORITY " +
+                    (1 + random.nextInt(4)))
+                .identifiers(new IdentifierCollection(identifiers))
+                .build());
+        }
+
+        return events;
+    }
+
+    private static long usedHeap()
+    {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        for(int x = 0; x < 5; x++)
+        {
+            System.gc();
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(String[] args)
+    {
+        long baseline = usedHeap();
+
+        //Event objects retained in a list, as the table model did previously
+        List<IDecodeEvent> events = createEvents();
+        long listBytes = usedHeap() - baseline;
+
+        long start = System.nanoTime();
+        long checksum = 0;
+
+        for(IDecodeEvent event: events)
+        {
+            checksum += event.getTimeStart() + event.getDuration() + event.getEventDescription().length() +
+                event.getIdentifierCollection().getIdentifiers(Role.FROM).size() +
+                event.getIdentifierCollection().getIdentifiers(Role.TO).size() + event.getChannelDescriptor().hashCode() +
+                event.getDetails().length();
+        }
+
+        long listNanos = System.nanoTime() - start;
+
+        //Columnar history - decode events are released once the history is loaded
+        DecodeEventHistory history = new DecodeEventHistory(EVENTS);
+        history.setMaximumBytes(Long.MAX_VALUE);
+
+        for(int x = 0; x < events.size(); x++)
+        {
+            history.put(events.get(x));
+        }
+
+        //Release the decode events and let the history expunge its weak references to them
+        events = null;
+        usedHeap();
+        history.prune(System.currentTimeMillis());
+        long historyBytes = usedHeap() - baseline;
+
+        start = System.nanoTime();
+        long historyChecksum = 0;
+
+        for(int row = history.size() - 1; row >= 0; row--)
+        {
+            historyChecksum += history.getTimeStart(row) + history.getDuration(row) +
+                history.getEventDescription(row).length() +
+                history.getIdentifierCollection(row).getIdentifiers(Role.FROM).size() +
+                history.getIdentifierCollection(row).getIdentifiers(Role.TO).size() +
+                history.getChannelDescriptor(row).hashCode() + history.getDetails(row).length();
+        }
+
+        long historyNanos = System.nanoTime() - start;
+
+        mLog.info("Events [" + EVENTS + "]");
+        mLog.info("Event list    - retained [" + (listBytes / EVENTS) + " bytes/event] read all columns [" +
+            String.format("%.1f", (double)listNanos / EVENTS) + " ns/row]");
+        mLog.info("Event history - retained [" + (historyBytes / EVENTS) + " bytes/event] estimated [" +
+            (history.getEstimatedBytes() / EVENTS) + " bytes/event] read all columns [" +
+            String.format("%.1f", (double)historyNanos / EVENTS) + " ns/row]");
+        mLog.info("Checksums " + (checksum == historyChecksum ? "match" : "differ - list [" + checksum +
+            "] history [" + historyChecksum + "]"));
+
+        //Roll-off by memory budget
+        history.setMaximumBytes(1024 * 1024);
+        int removed = history.prune(System.currentTimeMillis());
+        mLog.info("Memory budget [1 MB] removed [" + removed + "] rows retained [" + history.size() +
+            "] estimated [" + history.getEstimatedBytes() + " bytes] retained [" + (usedHeap() - baseline) + " bytes]");
+
+        //Roll-off by age
+        history.setMaximumAge(60 * 60 * 1000);
+        removed = history.prune(System.currentTimeMillis());
+        mLog.info("Maximum age [1 hour] removed [" + removed + "] rows retained [" + history.size() + "]");
+    }
+}
@@ -26,16 +26,18 @@ import io.github.dsheirer.channel.IChannelDescriptor;
 import io.github.dsheirer.eventbus.MyEventBus;
 import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.preference.PreferenceType;
+import io.github.dsheirer.sample.INonCriticalListener;
 import io.github.dsheirer.sample.Listener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.table.AbstractTableModel;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 
-public class DecodeEventModel extends AbstractTableModel implements Listener<IDecodeEvent>
+/**
+ * Decode event table model.  Events are stored in a compact columnar history and the table reads the column values
+ * from the history on demand.
+ */
+public class DecodeEventModel extends AbstractTableModel implements Listener<IDecodeEvent>, INonCriticalListener
 {
     private static final long serialVersionUID = 1L;
     private final static Logger mLog = LoggerFactory.getLogger(DecodeEventModel.class);
@@ -53,7 +55,7 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
 
     protected int mMaxMessages = 500;
 
-    protected List<IDecodeEvent> mEvents = new ArrayList<>();
+    protected DecodeEventHistory mEvents = new DecodeEventHistory(mMaxMessages);
 
     protected String[] mHeaders = new String[]{"Time", "Duration", "Event", "From", "Alias", "To", "Alias", "Channel", "Frequency", "Details"};
 
@@ -69,19 +71,13 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
     @Subscribe
     public void preferenceUpdated(PreferenceType preferenceType)
     {
-        if(preferenceType == PreferenceType.DECODE_EVENT)
-        {
-            for(int row = 0; row < mEvents.size(); row++)
-            {
-                fireTableCellUpdated(row, COLUMN_TIME);
-            }
-        }
-        else if(preferenceType == PreferenceType.IDENTIFIER)
+        if(preferenceType == PreferenceType.DECODE_EVENT || preferenceType == PreferenceType.IDENTIFIER)
         {
-            for(int row = 0; row < mEvents.size(); row++)
+            int size = mEvents.size();
+
+            if(size > 0)
             {
-                fireTableCellUpdated(row, COLUMN_FROM_ID);
-                fireTableCellUpdated(row, COLUMN_TO_ID);
+                fireTableRowsUpdated(0, size - 1);
             }
         }
     }
@@ -90,12 +86,7 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
     public void dispose()
     {
         MyEventBus.getEventBus().unregister(this);
-        Iterator<IDecodeEvent> it = mEvents.iterator();
-
-        while(it.hasNext())
-        {
-            it.remove();
-        }
+        mEvents.clear();
     }
 
     public void reset()
@@ -112,6 +103,39 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
     public void setMaxMessageCount(int count)
     {
         mMaxMessages = count;
+        mEvents.setMaximumRows(count);
+    }
+
+    /**
+     * Maximum age of retained events in milliseconds
+     */
+    public long getMaxEventAge()
+    {
+        return mEvents.getMaximumAge();
+    }
+
+    /**
+     * Sets the maximum age in milliseconds of retained events
+     */
+    public void setMaxEventAge(long maxAge)
+    {
+        mEvents.setMaximumAge(maxAge);
+    }
+
+    /**
+     * Memory budget in bytes for retained events
+     */
+    public long getMaxEventBytes()
+    {
+        return mEvents.getMaximumBytes();
+    }
+
+    /**
+     * Sets the memory budget in bytes for retained events
+     */
+    public void setMaxEventBytes(long maxBytes)
+    {
+        mEvents.setMaximumBytes(maxBytes);
     }
 
     /**
@@ -122,26 +146,27 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
      */
     public void receive(final IDecodeEvent event)
     {
-        if(!mEvents.contains(event))
+        int row = mEvents.put(event);
+
+        if(row < 0)
         {
-            mEvents.add(0, event);
             fireTableRowsInserted(0, 0);
             prune();
         }
         else
         {
-            int row = mEvents.indexOf(event);
             fireTableRowsUpdated(row, row);
         }
     }
 
     private void prune()
     {
-        while(mEvents.size() > mMaxMessages)
+        int removed = mEvents.prune(System.currentTimeMillis());
+
+        if(removed > 0)
         {
-            int index = mEvents.size() - 1;
-            mEvents.remove(index);
-            fireTableRowsDeleted(index, index);
+            int size = mEvents.size();
+            fireTableRowsDeleted(size, size + removed - 1);
         }
     }
 
@@ -167,56 +192,53 @@ public class DecodeEventModel extends AbstractTableModel implements Listener<IDe
     {
         synchronized(mEvents)
         {
-            IDecodeEvent event = mEvents.get(rowIndex);
+            if(rowIndex < 0 || rowIndex >= mEvents.size())
+            {
+                return null;
+            }
 
-            if(event != null)
+            switch(columnIndex)
             {
-                switch(columnIndex)
-                {
-                    case COLUMN_TIME:
-                        return event.getTimeStart();
-                    case COLUMN_DURATION:
-                        return event.getDuration();
-                    case COLUMN_EVENT:
-                        return event.getEventDescription();
-                    case COLUMN_FROM_ID:
-                        return event.getIdentifierCollection();
-                    case COLUMN_FROM_ALIAS:
-                        return event.getIdentifierCollection();
-                    case COLUMN_TO_ID:
-                        return event.getIdentifierCollection();
-                    case COLUMN_TO_ALIAS:
-                        return event.getIdentifierCollection();
-                    case COLUMN_CHANNEL:
-                        IChannelDescriptor channelDescriptor = event.getChannelDescriptor();
-
-                        if(channelDescriptor != null)
+                case COLUMN_TIME:
+                    return mEvents.getTimeStart(rowIndex);
+                case COLUMN_DURATION:
+                    return mEvents.getDuration(rowIndex);
+                case COLUMN_EVENT:
+                    return mEvents.getEventDescription(rowIndex);
+                case COLUMN_FROM_ID:
+                case COLUMN_FROM_ALIAS:
+                case COLUMN_TO_ID:
+                case COLUMN_TO_ALIAS:
+                    return mEvents.getIdentifierCollection(rowIndex);
+                case COLUMN_CHANNEL:
+                    IChannelDescriptor channelDescriptor = mEvents.getChannelDescriptor(rowIndex);
+
+                    if(channelDescriptor != null)
+                    {
+                        if(mEvents.hasTimeslot(rowIndex))
+                        {
+                            return channelDescriptor.toString() + " TS:" + mEvents.getTimeslot(rowIndex);
+                        }
+                        else
+                        {
+                            return channelDescriptor.toString();
+                        }
+                    }
+                    else
+                    {
+                        if(mEvents.hasTimeslot(rowIndex))
                         {
-                            if(event.hasTimeslot())
-                            {
-                                return channelDescriptor.toString() + " TS:" + event.getTimeslot();
-                            }
-                            else
-                            {
-                                return channelDescriptor.toString();
-                            }
+                            return "TS:" + mEvents.getTimeslot(rowIndex);
                         }
                         else
                         {
-                            if(event.hasTimeslot())
-                            {
-                                return "TS:" + event.getTimeslot();
-                            }
-                            else
-                            {
-                                return null;
-                            }
+                            return null;
                         }
-                    case COLUMN_FREQUENCY:
-                        return event.getChannelDescriptor();
-                    case COLUMN_DETAILS:
-                        return event.getDetails();
-                }
+                    }
+                case COLUMN_FREQUENCY:
+                    return mEvents.getChannelDescriptor(rowIndex);
+                case COLUMN_DETAILS:
+                    return mEvents.getDetails(rowIndex);
             }
         }
 
@@ -24,6 +24,7 @@ package io.github.dsheirer.module.decode.event;
 import io.github.dsheirer.filter.FilterSet;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.StuffBitsMessage;
+import io.github.dsheirer.sample.INonCriticalListener;
 import io.github.dsheirer.sample.Listener;
 
 import javax.swing.table.AbstractTableModel;
@@ -31,7 +32,7 @@ import java.awt.EventQueue;
 import java.text.SimpleDateFormat;
 import java.util.LinkedList;
 
-public class MessageActivityModel extends AbstractTableModel implements Listener<IMessage>
+public class MessageActivityModel extends AbstractTableModel implements Listener<IMessage>, INonCriticalListener
 {
     private static final long serialVersionUID = 1L;
     private static final int TIME = 0;
@@ -23,6 +23,7 @@
 package io.github.dsheirer.module.decode.ltrnet.identifier;
 
 import io.github.dsheirer.identifier.Role;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.identifier.talkgroup.TalkgroupIdentifier;
 import io.github.dsheirer.protocol.Protocol;
 
@@ -31,6 +32,9 @@ import io.github.dsheirer.protocol.Protocol;
  */
 public class LtrNetRadioIdentifier extends TalkgroupIdentifier implements Comparable<LtrNetRadioIdentifier>
 {
+    private static final IntegerIdentifierCache<LtrNetRadioIdentifier> CACHE = new IntegerIdentifierCache<>("LTR-Net Radio",
+        LtrNetRadioIdentifier::new);
+
     public LtrNetRadioIdentifier(int value, Role role)
     {
         super(value, role);
@@ -47,7 +51,7 @@ public class LtrNetRadioIdentifier extends TalkgroupIdentifier implements Compar
      */
     public static LtrNetRadioIdentifier createFrom(int value)
     {
-        return new LtrNetRadioIdentifier(value, Role.FROM);
+        return CACHE.get(value, Role.FROM);
     }
 
     /**
@@ -55,7 +59,7 @@ public class LtrNetRadioIdentifier extends TalkgroupIdentifier implements Compar
      */
     public static LtrNetRadioIdentifier createTo(int value)
     {
-        return new LtrNetRadioIdentifier(value, Role.TO);
+        return CACHE.get(value, Role.TO);
     }
 
     @Override
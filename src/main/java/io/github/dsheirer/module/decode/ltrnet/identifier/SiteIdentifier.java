@@ -24,10 +24,14 @@ import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.protocol.Protocol;
 
 public class SiteIdentifier extends IntegerIdentifier
 {
+    private static final IntegerIdentifierCache<SiteIdentifier> CACHE = new IntegerIdentifierCache<>("LTR-Net Site",
+        IntegerIdentifierCache.NETWORK_CAPACITY, (value, role) -> new SiteIdentifier(value));
+
     public SiteIdentifier(int site)
     {
         super(site, IdentifierClass.NETWORK, Form.SITE, Role.BROADCAST);
@@ -41,6 +45,6 @@ public class SiteIdentifier extends IntegerIdentifier
 
     public static SiteIdentifier create(int site)
     {
-        return new SiteIdentifier(site);
+        return CACHE.get(site, Role.BROADCAST);
     }
 }
@@ -22,6 +22,8 @@ package io.github.dsheirer.module.decode.mpt1327;
 import io.github.dsheirer.bits.IBinarySymbolProcessor;
 import io.github.dsheirer.bits.MessageFramer;
 import io.github.dsheirer.dsp.afsk.AFSK1200Decoder;
+import io.github.dsheirer.dsp.afsk.AFSKSyncCorrelator;
+import io.github.dsheirer.dsp.symbol.ISoftSyncDetectListener;
 import io.github.dsheirer.dsp.symbol.BinaryToByteBufferAssembler;
 import io.github.dsheirer.module.decode.DecoderType;
 import io.github.dsheirer.module.decode.afsk.AbstractAFSKDecoder;
@@ -34,7 +36,8 @@ import org.slf4j.LoggerFactory;
 /**
  * Instrumented version of the MPT1327 decoder.  Exposes properties for instrumented manual decoding of a signal.
  */
-public class MPT1327Decoder extends AbstractAFSKDecoder implements IBinarySymbolProcessor, IReusableByteBufferProvider
+public class MPT1327Decoder extends AbstractAFSKDecoder implements IBinarySymbolProcessor, IReusableByteBufferProvider,
+    ISoftSyncDetectListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(MPT1327Decoder.class);
 
@@ -42,6 +45,12 @@ public class MPT1327Decoder extends AbstractAFSKDecoder implements IBinarySymbol
      *   4xREVS + 16xSYNC + 64xADD1 + 64xDCW1 + 64xDCW2 + 64xDCW3 + 64xDCW4 */
     private static final int MESSAGE_LENGTH = 350;
 
+    /* Soft sync detection is limited to error-free hard decisions at one of the timing hypotheses since the 20-bit
+     * sync pattern is too short to tolerate bit errors without producing false message framing */
+    private static final float SYNC_CORRELATION_THRESHOLD = 0.8f;
+    private static final int SYNC_CORRELATION_MAXIMUM_BIT_ERRORS = 0;
+    private static final int SYNC_PATTERN_CONTROL = 0;
+
     private MessageFramer mControlMessageFramer;
     private MessageFramer mTrafficMessageFramer;
     private MPT1327MessageProcessor mMessageProcessor;
@@ -75,6 +84,28 @@ public class MPT1327Decoder extends AbstractAFSKDecoder implements IBinarySymbol
 
         mControlMessageFramer.addMessageListener(mMessageProcessor);
         mTrafficMessageFramer.addMessageListener(mMessageProcessor);
+
+        //Evaluate each of the symbol timing offsets for both sync patterns to recover messages that the current
+        //symbol timing would miss.  Control sync pattern is index 0 and traffic sync pattern is index 1.
+        getDecoder().setSyncCorrelator(new AFSKSyncCorrelator(AFSK1200Decoder.SAMPLES_PER_SYMBOL,
+            SYNC_CORRELATION_THRESHOLD, SYNC_CORRELATION_MAXIMUM_BIT_ERRORS,
+            sync.getControlSyncPattern().getPattern(), sync.getTrafficSyncPattern().getPattern()), this);
+    }
+
+    /**
+     * Soft sync detection from the AFSK decoder's sync correlator.  Starts a message with the corresponding framer.
+     */
+    @Override
+    public void softSyncDetected(int pattern, int bitErrors)
+    {
+        if(pattern == SYNC_PATTERN_CONTROL)
+        {
+            mControlMessageFramer.syncDetected();
+        }
+        else
+        {
+            mTrafficMessageFramer.syncDetected();
+        }
     }
 
     public void process(boolean symbol)
@@ -20,10 +20,14 @@ import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.protocol.Protocol;
 
 public class MPT1327SiteIdentifier extends IntegerIdentifier
 {
+    private static final IntegerIdentifierCache<MPT1327SiteIdentifier> CACHE = new IntegerIdentifierCache<>("MPT1327 Site",
+        IntegerIdentifierCache.NETWORK_CAPACITY, (value, role) -> new MPT1327SiteIdentifier(value));
+
     public MPT1327SiteIdentifier(int site)
     {
         super(site, IdentifierClass.NETWORK, Form.SITE, Role.BROADCAST);
@@ -37,6 +41,6 @@ public class MPT1327SiteIdentifier extends IntegerIdentifier
 
     public static MPT1327SiteIdentifier create(int site)
     {
-        return new MPT1327SiteIdentifier(site);
+        return CACHE.get(site, Role.BROADCAST);
     }
 }
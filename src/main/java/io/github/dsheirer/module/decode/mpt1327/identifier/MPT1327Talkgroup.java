@@ -23,6 +23,7 @@
 package io.github.dsheirer.module.decode.mpt1327.identifier;
 
 import io.github.dsheirer.identifier.Role;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.identifier.talkgroup.TalkgroupIdentifier;
 import io.github.dsheirer.preference.identifier.talkgroup.MPT1327TalkgroupFormatter;
 import io.github.dsheirer.protocol.Protocol;
@@ -35,6 +36,9 @@ import io.github.dsheirer.protocol.Protocol;
  */
 public class MPT1327Talkgroup extends TalkgroupIdentifier
 {
+    private static final IntegerIdentifierCache<MPT1327Talkgroup> CACHE = new IntegerIdentifierCache<>("MPT1327 Talkgroup",
+        MPT1327Talkgroup::new);
+
     public MPT1327Talkgroup(Integer value, Role role)
     {
         super(value, role);
@@ -69,12 +73,12 @@ public class MPT1327Talkgroup extends TalkgroupIdentifier
     {
         if(0 < ident && ident <= 8100)
         {
-            return new MPT1327Talkgroup(((prefix << 13) + ident), Role.FROM);
+            return CACHE.get(((prefix << 13) + ident), Role.FROM);
         }
         else
         {
             //Mask the prefix for ident values of 0, 8101-8192
-            return new MPT1327Talkgroup(ident, Role.FROM);
+            return CACHE.get(ident, Role.FROM);
         }
     }
 
@@ -85,12 +89,12 @@ public class MPT1327Talkgroup extends TalkgroupIdentifier
     {
         if(0 < ident && ident <= 8100)
         {
-            return new MPT1327Talkgroup(((prefix << 13) + ident), Role.TO);
+            return CACHE.get(((prefix << 13) + ident), Role.TO);
         }
         else
         {
             //Mask the prefix for ident values of 0, 8101-8192
-            return new MPT1327Talkgroup(ident, Role.TO);
+            return CACHE.get(ident, Role.TO);
         }
     }
 }
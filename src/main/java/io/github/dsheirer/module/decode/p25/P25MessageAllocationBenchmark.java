@@ -0,0 +1,321 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.module.decode.p25;
+
+import io.github.dsheirer.bits.BinaryMessage;
+import io.github.dsheirer.bits.CorrectedBinaryMessage;
+import io.github.dsheirer.edac.CRCP25;
+import io.github.dsheirer.filter.FilterSet;
+import io.github.dsheirer.identifier.Identifier;
+import io.github.dsheirer.message.IMessage;
+import io.github.dsheirer.module.decode.p25.phase1.P25P1DataUnitID;
+import io.github.dsheirer.module.decode.p25.phase1.message.filter.TSBKMessageFilterSet;
+import io.github.dsheirer.module.decode.p25.phase1.message.lc.LinkControlWord;
+import io.github.dsheirer.module.decode.p25.phase1.message.lc.LinkControlWordFactory;
+import io.github.dsheirer.module.decode.p25.phase1.message.tsbk.TSBKMessage;
+import io.github.dsheirer.module.decode.p25.phase1.message.tsbk.TSBKMessageFactory;
+import io.github.dsheirer.module.decode.p25.phase2.enumeration.DataUnitID;
+import io.github.dsheirer.module.decode.p25.phase2.message.mac.MacMessage;
+import io.github.dsheirer.module.decode.p25.phase2.message.mac.MacMessageFactory;
+import io.github.dsheirer.module.decode.p25.reference.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures heap allocation and processing time per message for the P25 Phase 1 TSBK and Link Control Word (LCW) and
+ * P25 Phase 2 MAC message parsers.
+ *
+ * Each message is processed the way the decoder pipeline consumes it: the message is created by the message factory,
+ * the decoder state checks the opcode and vendor, extracts the identifiers and the message activity filter tests the
+ * opcode.  The text pass additionally renders the message text twice (message event logger and message activity
+ * view), which only happens when a consumer needs the text.
+ *
+ * Messages are randomly generated with valid CRCs and standard vendor formats.  Allocation is measured with the
+ * per-thread allocated bytes counter of the HotSpot JVM.
+ */
+public class P25MessageAllocationBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(P25MessageAllocationBenchmark.class);
+    private static final int MESSAGE_COUNT = 20000;
+    private static final int ITERATIONS = 10;
+    private static final int TSBK_LENGTH = 96;
+    private static final int LCW_LENGTH = 72;
+    private static final int MAC_LENGTH = 312;
+    private static final int MAC_STRUCTURE_OFFSET = MacMessageFactory.DEFAULT_MAC_STRUCTURE_INDEX;
+
+    /**
+     * Consumes one raw message and returns a value derived from the message so that the work can't be optimized away
+     */
+    private interface Consumer
+    {
+        int consume(CorrectedBinaryMessage raw, boolean text);
+    }
+
+    private static FilterSet<IMessage> sTSBKFilter = new TSBKMessageFilterSet();
+
+    private static int consumeTSBK(CorrectedBinaryMessage raw, boolean text)
+    {
+        TSBKMessage tsbk = TSBKMessageFactory.createTSBK(Direction.OUTBOUND, P25P1DataUnitID.TRUNKING_SIGNALING_BLOCK_1,
+            raw, 0x293, 0L);
+
+        int value = tsbk.isValid() ? 1 : 0;
+        value += tsbk.getOpcode().ordinal() + tsbk.getVendor().ordinal() + tsbk.getOpcode().ordinal();
+
+        for(Identifier identifier : tsbk.getIdentifiers())
+        {
+            value += identifier.getRole().ordinal();
+        }
+
+        value += sTSBKFilter.passes(tsbk) ? 1 : 0;
+
+        if(text)
+        {
+            value += tsbk.toString().length() + tsbk.toString().length();
+        }
+
+        return value;
+    }
+
+    private static int consumeLCW(CorrectedBinaryMessage raw, boolean text)
+    {
+        LinkControlWord lcw = LinkControlWordFactory.create(raw);
+
+        int value = lcw.isValid() ? 1 : 0;
+        value += lcw.getOpcode().ordinal() + lcw.getVendor().ordinal() + lcw.getOpcode().ordinal();
+
+        for(Identifier identifier : lcw.getIdentifiers())
+        {
+            value += identifier.getRole().ordinal();
+        }
+
+        if(text)
+        {
+            value += lcw.toString().length() + lcw.toString().length();
+        }
+
+        return value;
+    }
+
+    private static int consumeMAC(CorrectedBinaryMessage raw, boolean text)
+    {
+        MacMessage mac = new MacMessage(0, DataUnitID.SCRAMBLED_FACCH, raw, 0L,
+            MacMessageFactory.createMacStructure(raw, MAC_STRUCTURE_OFFSET));
+
+        int value = mac.isValid() ? 1 : 0;
+        value += mac.getMacPduType().ordinal() + mac.getMacStructure().getOpcode().ordinal() +
+            mac.getMacStructure().getOpcode().ordinal();
+
+        for(Identifier identifier : mac.getIdentifiers())
+        {
+            value += identifier.getRole().ordinal();
+        }
+
+        if(text)
+        {
+            value += mac.toString().length() + mac.toString().length();
+        }
+
+        return value;
+    }
+
+    /**
+     * Creates a random TSBK with a standard vendor format, a random opcode and a valid CRC
+     */
+    private static CorrectedBinaryMessage createTSBK(Random random)
+    {
+        CorrectedBinaryMessage message = createRandom(random, TSBK_LENGTH);
+        message.set(0); //Last block
+        message.clear(1); //Unencrypted
+        message.load(8, 8, 0); //Standard vendor
+
+        int crc = 0xFFFF;
+
+        for(int x = 0; x < 80; x++)
+        {
+            if(message.get(x))
+            {
+                crc ^= CRCP25.CCITT_80_CHECKSUMS[x];
+            }
+        }
+
+        message.load(80, 16, crc);
+        return message;
+    }
+
+    /**
+     * Creates a random LCW with a standard vendor format and a random opcode
+     */
+    private static CorrectedBinaryMessage createLCW(Random random)
+    {
+        CorrectedBinaryMessage message = createRandom(random, LCW_LENGTH);
+        message.clear(0); //Unencrypted
+        message.set(1); //Standard vendor format
+        return message;
+    }
+
+    /**
+     * Creates a random MAC PDU with an active PDU type and a random MAC structure opcode
+     */
+    private static CorrectedBinaryMessage createMAC(Random random)
+    {
+        CorrectedBinaryMessage message = createRandom(random, MAC_LENGTH);
+        message.load(0, 3, 4); //MAC_4_ACTIVE
+        return message;
+    }
+
+    private static CorrectedBinaryMessage createRandom(Random random, int length)
+    {
+        CorrectedBinaryMessage message = new CorrectedBinaryMessage(length);
+
+        for(int x = 0; x < length; x++)
+        {
+            if(random.nextBoolean())
+            {
+                message.set(x);
+            }
+        }
+
+        return message;
+    }
+
+    /**
+     * Creates the raw messages, discarding any that the parsers can't process, for example where a random field value
+     * is out of range for a lookup table.
+     */
+    private static List<CorrectedBinaryMessage> createMessages(Random random, String type, Consumer consumer)
+    {
+        List<CorrectedBinaryMessage> messages = new ArrayList<>();
+        int discarded = 0;
+
+        while(messages.size() < MESSAGE_COUNT)
+        {
+            CorrectedBinaryMessage message;
+
+            switch(type)
+            {
+                case "TSBK":
+                    message = createTSBK(random);
+                    break;
+                case "LCW":
+                    message = createLCW(random);
+                    break;
+                default:
+                    message = createMAC(random);
+                    break;
+            }
+
+            try
+            {
+                consumer.consume(copy(message), true);
+                messages.add(message);
+            }
+            catch(Exception e)
+            {
+                discarded++;
+            }
+        }
+
+        if(discarded > 0)
+        {
+            mLog.info(type + " - discarded [" + discarded + "] random messages that the parsers couldn't process");
+        }
+
+        return messages;
+    }
+
+    private static CorrectedBinaryMessage copy(BinaryMessage message)
+    {
+        CorrectedBinaryMessage copy = new CorrectedBinaryMessage(message.size());
+        copy.load(0, message);
+        return copy;
+    }
+
+    /**
+     * Processes the messages and logs the allocated bytes and time per message
+     */
+    private static void run(String type, List<CorrectedBinaryMessage> messages, Consumer consumer, boolean text)
+    {
+        com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        DecimalFormat format = new DecimalFormat("0.0");
+
+        //Each iteration consumes copies of the raw messages since message parsers can correct bits in place
+        List<CorrectedBinaryMessage> copies = new ArrayList<>();
+
+        for(CorrectedBinaryMessage message : messages)
+        {
+            copies.add(copy(message));
+        }
+
+        long bestBytes = Long.MAX_VALUE;
+        long bestNanos = Long.MAX_VALUE;
+        int checksum = 0;
+
+        for(int iteration = 0; iteration < ITERATIONS; iteration++)
+        {
+            for(int x = 0; x < messages.size(); x++)
+            {
+                copies.get(x).load(0, messages.get(x));
+            }
+
+            long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+            long startNanos = System.nanoTime();
+
+            for(CorrectedBinaryMessage message : copies)
+            {
+                checksum += consumer.consume(message, text);
+            }
+
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startNanos);
+            bestBytes = Math.min(bestBytes, threadMXBean.getThreadAllocatedBytes(threadId) - startBytes);
+        }
+
+        mLog.info(type + (text ? " with text" : " no text  ") + " - allocated [" +
+            format.format((double)bestBytes / messages.size()) + " bytes/message] time [" +
+            format.format((double)bestNanos / messages.size()) + " ns/message] checksum [" + checksum + "]");
+    }
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(2020);
+
+        List<CorrectedBinaryMessage> tsbks = createMessages(random, "TSBK", P25MessageAllocationBenchmark::consumeTSBK);
+        List<CorrectedBinaryMessage> lcws = createMessages(random, "LCW", P25MessageAllocationBenchmark::consumeLCW);
+        List<CorrectedBinaryMessage> macs = createMessages(random, "MAC", P25MessageAllocationBenchmark::consumeMAC);
+
+        for(boolean text : new boolean[]{false, true})
+        {
+            run("TSBK", tsbks, P25MessageAllocationBenchmark::consumeTSBK, text);
+            run("LCW ", lcws, P25MessageAllocationBenchmark::consumeLCW, text);
+            run("MAC ", macs, P25MessageAllocationBenchmark::consumeMAC, text);
+        }
+
+        System.exit(0);
+    }
+}
@@ -74,6 +74,7 @@ public class P25P1AudioModule extends ImbeAudioModule
             ReusableAudioPacket endAudioPacket = getAudioPacketQueue().getEndAudioBuffer();
             endAudioPacket.resetAttributes();
             endAudioPacket.setAudioChannelId(getAudioChannelId());
+            endAudioPacket.setChannelStopped(true);
             endAudioPacket.setIdentifierCollection(getIdentifierCollection().copyOf());
             endAudioPacket.incrementUserCount();
             getAudioPacketListener().receive(endAudioPacket);
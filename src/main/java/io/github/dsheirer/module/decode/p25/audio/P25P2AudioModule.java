@@ -107,7 +107,17 @@ public class P25P2AudioModule extends AmbeAudioModule implements IdentifierUpdat
     @Override
     public void stop()
     {
-
+        /* Issue an end-audio packet in case a recorder is still rolling */
+        if(hasAudioPacketListener())
+        {
+            ReusableAudioPacket endAudioPacket = getAudioPacketQueue().getEndAudioBuffer();
+            endAudioPacket.resetAttributes();
+            endAudioPacket.setAudioChannelId(getAudioChannelId());
+            endAudioPacket.setChannelStopped(true);
+            endAudioPacket.setIdentifierCollection(getIdentifierCollection().copyOf());
+            endAudioPacket.incrementUserCount();
+            getAudioPacketListener().receive(endAudioPacket);
+        }
     }
 
     /**
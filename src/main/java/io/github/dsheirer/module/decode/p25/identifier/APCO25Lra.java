@@ -24,10 +24,14 @@ import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Lra extends IntegerIdentifier
 {
+    private static final IntegerIdentifierCache<APCO25Lra> CACHE = new IntegerIdentifierCache<>("APCO25 LRA",
+        IntegerIdentifierCache.NETWORK_CAPACITY, (value, role) -> new APCO25Lra(value));
+
     public APCO25Lra(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.LOCATION_REGISTRATION_AREA, Role.BROADCAST);
@@ -44,6 +48,6 @@ public class APCO25Lra extends IntegerIdentifier
      */
     public static Identifier create(int lra)
     {
-        return new APCO25Lra(lra);
+        return CACHE.get(lra, Role.BROADCAST);
     }
 }
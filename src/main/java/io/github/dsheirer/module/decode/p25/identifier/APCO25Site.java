@@ -24,10 +24,14 @@ import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Site extends IntegerIdentifier
 {
+    private static final IntegerIdentifierCache<APCO25Site> CACHE = new IntegerIdentifierCache<>("APCO25 Site",
+        IntegerIdentifierCache.NETWORK_CAPACITY, (value, role) -> new APCO25Site(value));
+
     public APCO25Site(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.SITE, Role.BROADCAST);
@@ -44,6 +48,6 @@ public class APCO25Site extends IntegerIdentifier
      */
     public static Identifier create(int site)
     {
-        return new APCO25Site(site);
+        return CACHE.get(site, Role.BROADCAST);
     }
 }
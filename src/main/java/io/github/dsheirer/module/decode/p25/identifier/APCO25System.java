@@ -24,10 +24,14 @@ import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25System extends IntegerIdentifier
 {
+    private static final IntegerIdentifierCache<APCO25System> CACHE = new IntegerIdentifierCache<>("APCO25 System",
+        IntegerIdentifierCache.NETWORK_CAPACITY, (value, role) -> new APCO25System(value));
+
     public APCO25System(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.SYSTEM, Role.BROADCAST);
@@ -43,6 +47,6 @@ public class APCO25System extends IntegerIdentifier
      */
     public static Identifier create(int system)
     {
-        return new APCO25System(system);
+        return CACHE.get(system, Role.BROADCAST);
     }
 }
@@ -24,10 +24,14 @@ import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.IdentifierClass;
 import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Wacn extends IntegerIdentifier
 {
+    private static final IntegerIdentifierCache<APCO25Wacn> CACHE = new IntegerIdentifierCache<>("APCO25 WACN",
+        IntegerIdentifierCache.NETWORK_CAPACITY, (value, role) -> new APCO25Wacn(value));
+
     public APCO25Wacn(int value)
     {
         super(value, IdentifierClass.NETWORK, Form.WACN, Role.BROADCAST);
@@ -44,6 +48,6 @@ public class APCO25Wacn extends IntegerIdentifier
      */
     public static Identifier create(int wacn)
     {
-        return new APCO25Wacn(wacn);
+        return CACHE.get(wacn, Role.BROADCAST);
     }
 }
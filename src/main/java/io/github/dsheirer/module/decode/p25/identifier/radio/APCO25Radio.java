@@ -23,6 +23,7 @@
 package io.github.dsheirer.module.decode.p25.identifier.radio;
 
 import io.github.dsheirer.identifier.Role;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.identifier.radio.RadioIdentifier;
 import io.github.dsheirer.protocol.Protocol;
 
@@ -31,6 +32,9 @@ import io.github.dsheirer.protocol.Protocol;
  */
 public class APCO25Radio extends RadioIdentifier
 {
+    private static final IntegerIdentifierCache<APCO25Radio> CACHE = new IntegerIdentifierCache<>("APCO25 Radio",
+        APCO25Radio::new);
+
     public APCO25Radio(Integer value, Role role)
     {
         super(value, role);
@@ -47,7 +51,7 @@ public class APCO25Radio extends RadioIdentifier
      */
     public static RadioIdentifier createTo(int radioId)
     {
-        return new APCO25Radio(radioId, Role.TO);
+        return CACHE.get(radioId, Role.TO);
     }
 
     /**
@@ -55,7 +59,7 @@ public class APCO25Radio extends RadioIdentifier
      */
     public static RadioIdentifier createFrom(int radioId)
     {
-        return new APCO25Radio(radioId, Role.FROM);
+        return CACHE.get(radioId, Role.FROM);
     }
 
     /**
@@ -63,6 +67,6 @@ public class APCO25Radio extends RadioIdentifier
      */
     public static RadioIdentifier createAny(int radioId)
     {
-        return new APCO25Radio(radioId, Role.ANY);
+        return CACHE.get(radioId, Role.ANY);
     }
 }
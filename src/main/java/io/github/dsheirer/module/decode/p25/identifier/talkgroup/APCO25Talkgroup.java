@@ -23,11 +23,15 @@
 package io.github.dsheirer.module.decode.p25.identifier.talkgroup;
 
 import io.github.dsheirer.identifier.Role;
+import io.github.dsheirer.identifier.integer.IntegerIdentifierCache;
 import io.github.dsheirer.identifier.talkgroup.TalkgroupIdentifier;
 import io.github.dsheirer.protocol.Protocol;
 
 public class APCO25Talkgroup extends TalkgroupIdentifier
 {
+    private static final IntegerIdentifierCache<APCO25Talkgroup> CACHE = new IntegerIdentifierCache<>("APCO25 Talkgroup",
+        APCO25Talkgroup::new);
+
     public APCO25Talkgroup(Integer value)
     {
         super(value, Role.TO);
@@ -49,7 +53,7 @@ public class APCO25Talkgroup extends TalkgroupIdentifier
      */
     public static TalkgroupIdentifier create(int talkgroup)
     {
-        return new APCO25Talkgroup(talkgroup);
+        return CACHE.get(talkgroup, Role.TO);
     }
 
     /**
@@ -57,6 +61,6 @@ public class APCO25Talkgroup extends TalkgroupIdentifier
      */
     public static TalkgroupIdentifier createAny(int talkgroup)
     {
-        return new APCO25Talkgroup(talkgroup, Role.ANY);
+        return CACHE.get(talkgroup, Role.ANY);
     }
 }
@@ -31,7 +31,8 @@ public interface IP25P1DataUnitDetectListener
      * @param nac or Network Access Code that was contained in the detected NID
      * @param discardedDibits prior to detecting the P25 sync pattern
      * @param bitErrors detected and corrected from both the sync pattern and the NID.
-     * @param correctedNid bits corrected by the BCH error correction code (temporary until message parsers are updated
+     * @param correctedNid bits corrected by the BCH error correction code (temporary until message parsers are updated.
+     * The array is reused by the detector and is only valid for the duration of this call)
      */
     void dataUnitDetected(P25P1DataUnitID dataUnitID, int nac, int bitErrors, int discardedDibits, int[] correctedNid);
 
@@ -20,29 +20,40 @@
 package io.github.dsheirer.module.decode.p25.phase1;
 
 import io.github.dsheirer.dsp.psk.pll.IPhaseLockedLoop;
-import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.DibitBlock;
 import io.github.dsheirer.dsp.symbol.ISyncDetectListener;
 import io.github.dsheirer.edac.BCH_63_16_11;
-import io.github.dsheirer.sample.Listener;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class P25P1DataUnitDetector implements Listener<Dibit>, ISyncDetectListener
+/**
+ * Detects P25 Phase 1 data units by feeding a delayed dibit stream to the sync detector and decoding the Network
+ * ID (NID) that follows a detected sync pattern.  Dibits are consumed from dibit blocks and the detector stops
+ * consuming at the dibit where a data unit is detected so that the message framer can take over the block.
+ */
+public class P25P1DataUnitDetector implements ISyncDetectListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(P25P1DataUnitDetector.class);
     private static final int DATA_UNIT_DIBIT_LENGTH = 57; //56 dibits plus 1 status symbol
     private static final int SYNC_DIBIT_LENGTH = 24;
+    private static final int NID_DIBIT_LENGTH = DATA_UNIT_DIBIT_LENGTH - SYNC_DIBIT_LENGTH;
     private static final int MAXIMUM_SYNC_MATCH_BIT_ERRORS = 9;
     private P25P1SyncDetector mSyncDetector;
-    private NIDDelayBuffer mDataUnitBuffer = new NIDDelayBuffer();
-    private DibitDelayBuffer mSyncDelayBuffer = new DibitDelayBuffer(DATA_UNIT_DIBIT_LENGTH - SYNC_DIBIT_LENGTH);
+    private byte[] mSyncDelayBuffer = new byte[NID_DIBIT_LENGTH];
+    private int mSyncDelayBufferPointer;
+    private int[] mNID = new int[63];
+    private int[] mCorrectedNID = new int[63];
+    private int[] mUncorrectableNID = new int[63];
     private IP25P1DataUnitDetectListener mDataUnitDetectListener;
     private boolean mInitialSyncTestProcessed = false;
+    private boolean mDataUnitDispatched = false;
     private int mDibitsProcessed = 0;
     private BCH_63_16_11 mNIDDecoder = new BCH_63_16_11();
     private P25P1DataUnitID mPreviousDataUnitId = P25P1DataUnitID.TERMINATOR_DATA_UNIT;
     private int mNIDDetectionCount;
+    private int mSoftSyncCountdown;
+    private int mSoftSyncBitErrors;
 
     public P25P1DataUnitDetector(IP25P1DataUnitDetectListener dataUnitDetectListener, IPhaseLockedLoop phaseLockedLoop)
     {
@@ -62,6 +73,7 @@ public class P25P1DataUnitDetector implements Listener<Dibit>, ISyncDetectListen
     {
         mDibitsProcessed = 0;
         mInitialSyncTestProcessed = false;
+        mSoftSyncCountdown = 0;
     }
 
     @Override
@@ -85,8 +97,55 @@ public class P25P1DataUnitDetector implements Listener<Dibit>, ISyncDetectListen
         }
     }
 
-    @Override
-    public void receive(Dibit dibit)
+    /**
+     * Processes dibits from the block starting at the offset until a data unit is detected or the end of the block
+     * is reached.
+     *
+     * @param block of dibits
+     * @param offset of the first dibit to process
+     * @return index of the next unprocessed dibit in the block, or the block size if all dibits were processed
+     */
+    public int receive(DibitBlock block, int offset)
+    {
+        byte[] dibits = block.getDibits();
+        int size = block.size();
+        mDataUnitDispatched = false;
+
+        //Sync markers identify sync patterns detected by the demodulator's soft sync correlator
+        int syncMarker = 0;
+        int syncCount = block.getSyncCount();
+
+        while(syncMarker < syncCount && block.getSyncIndex(syncMarker) < offset)
+        {
+            syncMarker++;
+        }
+
+        for(int x = offset; x < size; x++)
+        {
+            receive(dibits[x]);
+
+            if(syncMarker < syncCount && block.getSyncIndex(syncMarker) == x)
+            {
+                //Test for a NID once the marked sync pattern emerges from the sync delay buffer
+                mSoftSyncCountdown = NID_DIBIT_LENGTH;
+                mSoftSyncBitErrors = block.getSyncBitErrors(syncMarker);
+                syncMarker++;
+            }
+
+            if(mDataUnitDispatched)
+            {
+                return x + 1;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Processes a single dibit value
+     * @param dibit value 0 - 3
+     */
+    private void receive(int dibit)
     {
         mDibitsProcessed++;
 
@@ -97,12 +156,24 @@ public class P25P1DataUnitDetector implements Listener<Dibit>, ISyncDetectListen
             mDibitsProcessed -= 4800;
         }
 
-        mDataUnitBuffer.put(dibit);
+        //Feed the sync detect with a 33 dibit delay so that if/when a sync detect occurs, the delay buffer
+        //is already filled with the NID dibits and we can test for a valid NID
+        int delayed = mSyncDelayBuffer[mSyncDelayBufferPointer];
+        mSyncDelayBuffer[mSyncDelayBufferPointer++] = (byte)dibit;
+
+        if(mSyncDelayBufferPointer >= NID_DIBIT_LENGTH)
+        {
+            mSyncDelayBufferPointer = 0;
+        }
+
+        mSyncDetector.receive(delayed);
 
-        //Feed the sync detect with a 32 dibit delay from the data unit buffer so that if/when
-        //a sync detect occurs, the data unit buffer is already filled with both the sync dibits
-        //and the NID dibits and we can test for a valid NID
-        mSyncDetector.receive(mSyncDelayBuffer.getAndPut(dibit));
+        //Test for a NID following a sync marker when the hard-decision sync detector didn't produce a data unit
+        if(mSoftSyncCountdown > 0 && --mSoftSyncCountdown == 0 && !mDataUnitDispatched)
+        {
+            mInitialSyncTestProcessed = true;
+            checkForNid(mSoftSyncBitErrors, false);
+        }
 
         //If the sync detector doesn't fire and we've processed enough dibits for a sync/nid sequence
         //immediately following a valid message, then test for a NID anyway ... maybe the sync was corrupted
@@ -127,22 +198,22 @@ public class P25P1DataUnitDetector implements Listener<Dibit>, ISyncDetectListen
     {
         if(bitErrorCount <= MAXIMUM_SYNC_MATCH_BIT_ERRORS)
         {
-            int[] nid = mSyncDelayBuffer.getNID();
-            int[] correctedNid = new int[63];
+            loadNID();
 
             //If decoder indicates there are no unrecoverable errors ....
-            if(!mNIDDecoder.decode(nid, correctedNid))
+            if(!mNIDDecoder.decode(mNID, mCorrectedNID))
             {
                 mNIDDetectionCount++;
 
-                int nidBitErrorCount = getBitErrorCount(nid, correctedNid);
+                int nidBitErrorCount = getBitErrorCount(mNID, mCorrectedNID);
 
                 if(mDataUnitDetectListener != null)
                 {
-                    mPreviousDataUnitId = getDataUnitID(correctedNid);
+                    mPreviousDataUnitId = getDataUnitID(mCorrectedNID);
 
-                    mDataUnitDetectListener.dataUnitDetected(mPreviousDataUnitId, getNAC(correctedNid),
-                        (bitErrorCount + nidBitErrorCount), (mDibitsProcessed - DATA_UNIT_DIBIT_LENGTH), correctedNid);
+                    mDataUnitDispatched = true;
+                    mDataUnitDetectListener.dataUnitDetected(mPreviousDataUnitId, getNAC(mCorrectedNID),
+                        (bitErrorCount + nidBitErrorCount), (mDibitsProcessed - DATA_UNIT_DIBIT_LENGTH), mCorrectedNID);
                 }
             }
             else if(mPreviousDataUnitId == P25P1DataUnitID.LOGICAL_LINK_DATA_UNIT_1)
@@ -150,8 +221,9 @@ public class P25P1DataUnitDetector implements Listener<Dibit>, ISyncDetectListen
                 //We have a good sync match, but the NID didn't pass error control and we're in the middle
                 //of voice call, so treat this message as voice message, but set the previous duid to
                 //terminator so we can end if there isn't a subsequent voice message
+                mDataUnitDispatched = true;
                 mDataUnitDetectListener.dataUnitDetected(P25P1DataUnitID.LOGICAL_LINK_DATA_UNIT_2, -1,
-                    (bitErrorCount + 64), (mDibitsProcessed - DATA_UNIT_DIBIT_LENGTH), new int[63]);
+                    (bitErrorCount + 64), (mDibitsProcessed - DATA_UNIT_DIBIT_LENGTH), mUncorrectableNID);
 
                 mPreviousDataUnitId = P25P1DataUnitID.TERMINATOR_DATA_UNIT;
             }
@@ -160,14 +232,61 @@ public class P25P1DataUnitDetector implements Listener<Dibit>, ISyncDetectListen
                 //We have a good sync match, but the NID didn't pass error control and we're in the middle
                 //of voice call, so treat this message as voice message, but set the previous duid to
                 //terminator so we can end if there isn't a subsequent voice message
+                mDataUnitDispatched = true;
                 mDataUnitDetectListener.dataUnitDetected(P25P1DataUnitID.LOGICAL_LINK_DATA_UNIT_1, -1,
-                    (bitErrorCount + 64), (mDibitsProcessed - DATA_UNIT_DIBIT_LENGTH), new int[63]);
+                    (bitErrorCount + 64), (mDibitsProcessed - DATA_UNIT_DIBIT_LENGTH), mUncorrectableNID);
 
                 mPreviousDataUnitId = P25P1DataUnitID.TERMINATOR_DATA_UNIT;
             }
         }
     }
 
+    /**
+     * Loads the NID from the sync delay buffer into the reusable NID array in the reverse order format required
+     * for the ECC code.
+     */
+    private void loadNID()
+    {
+        int nidPointer = 0;
+        int bufferPointer = mSyncDelayBufferPointer - 1;
+
+        if(bufferPointer < 0)
+        {
+            bufferPointer += NID_DIBIT_LENGTH;
+        }
+
+        //Skip bit 2 of the starting (ie last) dibit ... we only want 63 of the 64 bits from the dibit buffer
+        mNID[nidPointer++] = (mSyncDelayBuffer[bufferPointer] >> 1) & 0x1;
+
+        bufferPointer--;
+
+        if(bufferPointer < 0)
+        {
+            bufferPointer += NID_DIBIT_LENGTH;
+        }
+
+        while(nidPointer < 63)
+        {
+            int dibit = mSyncDelayBuffer[bufferPointer];
+            mNID[nidPointer++] = dibit & 0x1;
+            mNID[nidPointer++] = (dibit >> 1) & 0x1;
+
+            bufferPointer--;
+
+            //Check for and skip the status symbol that gets inserted after 70 bits, meaning
+            //it will be located in the buffer after 22 NID bits
+            if(nidPointer == 41)
+            {
+                bufferPointer--;
+            }
+
+            if(bufferPointer < 0)
+            {
+                bufferPointer += NID_DIBIT_LENGTH;
+            }
+        }
+    }
+
     /**
      * Determines the data unit ID present in the nid value.
      * @param nid in reverse bit order
@@ -277,240 +396,6 @@ public class P25P1DataUnitDetector implements Listener<Dibit>, ISyncDetectListen
         return mNIDDetectionCount;
     }
 
-    public class NIDDelayBuffer extends DibitDelayBuffer
-    {
-        public NIDDelayBuffer()
-        {
-            super(DATA_UNIT_DIBIT_LENGTH);
-        }
-
-        public int[] getNID()
-        {
-            int[] nid = new int[64];
-
-            int nidPointer = 0;
-            int bufferPointer = mPointer;
-
-            while(nidPointer < 64)
-            {
-                if(mBuffer[bufferPointer].getBit2())
-                {
-                    nid[nidPointer] = 1;
-                }
-
-                nidPointer++;
-
-                if(mBuffer[bufferPointer].getBit1())
-                {
-                    nid[nidPointer] = 1;
-                }
-
-                nidPointer++;
-
-                bufferPointer--;
-
-                if(bufferPointer < 0)
-                {
-                    bufferPointer += mBuffer.length;
-                }
-
-                //Check for the status symbol
-                if(nidPointer == 70)
-                {
-                    nidPointer += 2;
-                }
-            }
-
-            return nid;
-        }
-    }
-
-
-    /**
-     * Circular buffer for storing and accessing dibits.
-     */
-    public class DibitDelayBuffer
-    {
-        protected Dibit[] mBuffer;
-        protected int mPointer;
-
-        /**
-         * Constructs a dibit delay buffer of the specified length
-         */
-        public DibitDelayBuffer(int length)
-        {
-            mBuffer = new Dibit[length];
-
-            //Preload the buffer to avoid null pointers
-            for(int x = 0; x < length; x++)
-            {
-                mBuffer[x] = Dibit.D00_PLUS_1;
-            }
-        }
-
-        /**
-         * Fetches the NID in reverse order format required for the ECC code
-         */
-        public int[] getNID()
-        {
-            int[] nid = new int[63];
-
-            int nidPointer = 0;
-            int bufferPointer = mPointer - 1;
-
-            if(bufferPointer < 0)
-            {
-                bufferPointer += mBuffer.length;
-            }
-
-            //Skip bit 2 of the starting (ie last) dibit ... we only want 63 of the 64 bits from the dibit buffer
-            if(mBuffer[bufferPointer].getBit1())
-            {
-                nid[nidPointer] = 1;
-            }
-
-            nidPointer++;
-
-            bufferPointer--;
-
-            if(bufferPointer < 0)
-            {
-                bufferPointer += mBuffer.length;
-            }
-
-            while(nidPointer < 63)
-            {
-                if(mBuffer[bufferPointer].getBit2())
-                {
-                    nid[nidPointer] = 1;
-                }
-
-                nidPointer++;
-
-                if(mBuffer[bufferPointer].getBit1())
-                {
-                    nid[nidPointer] = 1;
-                }
-
-                nidPointer++;
-
-                bufferPointer--;
-
-                //Check for and skip the status symbol that gets inserted after 70 bits, meaning
-                //it will be located in the buffer after 22 NID bits
-                if(nidPointer == 41)
-                {
-                    bufferPointer--;
-                }
-
-                if(bufferPointer < 0)
-                {
-                    bufferPointer += mBuffer.length;
-                }
-            }
-
-            return nid;
-        }
-
-        public void log()
-        {
-            StringBuilder sb = new StringBuilder();
-
-            int counter = 0;
-            int pointer = mPointer;
-
-            while(counter < mBuffer.length)
-            {
-                sb.append(mBuffer[pointer].getBit1() ? "1" : "0");
-                sb.append(mBuffer[pointer++].getBit2() ? "1" : "0");
-
-                if(pointer >= mBuffer.length)
-                {
-                    pointer = 0;
-                }
-
-                counter++;
-            }
-
-            if(this instanceof NIDDelayBuffer)
-            {
-                mLog.debug("NIDBUF: " + sb.toString() + " Length:" + mBuffer.length);
-            }
-            else
-            {
-                mLog.debug("SYNBUF: " + sb.toString() + " Length:" + mBuffer.length);
-            }
-        }
-
-        /**
-         * Returns an ordered buffer of the internal circular buffer contents.
-         */
-        public Dibit[] getBuffer()
-        {
-            Dibit[] transferBuffer = new Dibit[mBuffer.length];
-
-            int transferBufferPointer = 0;
-            int bufferPointer = mPointer;
-
-            while(transferBufferPointer < transferBuffer.length)
-            {
-                transferBuffer[transferBufferPointer++] = mBuffer[bufferPointer++];
-
-                if(bufferPointer >= mBuffer.length)
-                {
-                    bufferPointer = 0;
-                }
-            }
-
-            return transferBuffer;
-        }
-
-        public int[] getBufferAsArray()
-        {
-            Dibit[] dibits = getBuffer();
-
-            int[] bits = new int[dibits.length * 2];
-
-            for(int x = 0; x < dibits.length; x++)
-            {
-                if(dibits[x].getBit1())
-                {
-                    bits[x * 2] = 1;
-                }
-                if(dibits[x].getBit2())
-                {
-                    bits[x * 2 + 1] = 1;
-                }
-            }
-
-            return bits;
-        }
-
-        /**
-         * Places the dibit into the internal circular buffer, overwriting the oldest dibit.
-         */
-        public void put(Dibit dibit)
-        {
-            mBuffer[mPointer++] = dibit;
-
-            if(mPointer >= mBuffer.length)
-            {
-                mPointer = 0;
-            }
-        }
-
-        /**
-         * Places the dibit into the internal circular buffer, overwriting and returning the
-         * oldest dibit.
-         */
-        public Dibit getAndPut(Dibit dibit)
-        {
-            Dibit toReturn = mBuffer[mPointer];
-            put(dibit);
-            return toReturn;
-        }
-    }
-
     public static int[] reverse(int[] values)
     {
         int[] reversed = new int[values.length];
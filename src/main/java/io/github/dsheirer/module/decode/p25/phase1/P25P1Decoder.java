@@ -21,7 +21,7 @@
  */
 package io.github.dsheirer.module.decode.p25.phase1;
 
-import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.DibitBlock;
 import io.github.dsheirer.dsp.symbol.DibitToByteBufferAssembler;
 import io.github.dsheirer.module.decode.Decoder;
 import io.github.dsheirer.module.decode.DecoderType;
@@ -39,7 +39,7 @@ public abstract class P25P1Decoder extends Decoder implements ISourceEventListen
     IReusableComplexBufferListener, Listener<ReusableComplexBuffer>, IReusableByteBufferProvider
 {
     private double mSampleRate;
-    private Broadcaster<Dibit> mDibitBroadcaster = new Broadcaster<>();
+    private Broadcaster<DibitBlock> mDibitBroadcaster = new Broadcaster<>();
     private DibitToByteBufferAssembler mByteBufferAssembler = new DibitToByteBufferAssembler(300);
     private P25P1MessageProcessor mMessageProcessor;
     private Listener<SourceEvent> mSourceEventListener;
@@ -50,13 +50,13 @@ public abstract class P25P1Decoder extends Decoder implements ISourceEventListen
         mSymbolRate = symbolRate;
         mMessageProcessor = new P25P1MessageProcessor();
         mMessageProcessor.setMessageListener(getMessageListener());
-        getDibitBroadcaster().addListener(mByteBufferAssembler);
+        getDibitBroadcaster().addListener(mByteBufferAssembler::receive);
     }
 
     /**
      * Assembler for packaging Dibit stream into reusable byte buffers.
      */
-    protected Broadcaster<Dibit> getDibitBroadcaster()
+    protected Broadcaster<DibitBlock> getDibitBroadcaster()
     {
         return mDibitBroadcaster;
     }
@@ -26,6 +26,7 @@ import io.github.dsheirer.dsp.filter.Window.WindowType;
 import io.github.dsheirer.dsp.filter.fir.complex.ComplexFIRFilter2;
 import io.github.dsheirer.dsp.gain.ComplexFeedForwardGainControl;
 import io.github.dsheirer.dsp.psk.DQPSKGardnerDemodulator;
+import io.github.dsheirer.dsp.psk.DQPSKSyncCorrelator;
 import io.github.dsheirer.dsp.psk.InterpolatingSampleBuffer;
 import io.github.dsheirer.dsp.psk.pll.AdaptivePLLGainMonitor;
 import io.github.dsheirer.dsp.psk.pll.CostasLoop;
@@ -41,8 +42,6 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
 
 public class P25P1DecoderLSM extends P25P1Decoder
 {
@@ -50,7 +49,6 @@ public class P25P1DecoderLSM extends P25P1Decoder
 
     protected static final float SAMPLE_COUNTER_GAIN = 0.3f;
 
-    private Map<Double,float[]> mBasebandFilters = new HashMap<>();
     private ComplexFIRFilter2 mBasebandFilter;
     private ComplexFeedForwardGainControl mAGC = new ComplexFeedForwardGainControl(32);
     protected DQPSKGardnerDemodulator mQPSKDemodulator;
@@ -86,19 +84,20 @@ public class P25P1DecoderLSM extends P25P1Decoder
         mInterpolatingSampleBuffer = new InterpolatingSampleBuffer(getSamplesPerSymbol(), SAMPLE_COUNTER_GAIN);
 
         mQPSKDemodulator = new DQPSKGardnerDemodulator(mCostasLoop, mInterpolatingSampleBuffer);
+        mQPSKDemodulator.setSyncCorrelator(DQPSKSyncCorrelator.createP25Phase1());
 
-        //The Costas Loop receives symbol-inversion correction requests when detected.
+        //Symbol-inversion (PLL phase lock) corrections are applied by the demodulator's sync correlator.
         //The PLL gain monitor receives sync detect/loss signals from the message framer
         if(mMessageFramer != null)
         {
             getDibitBroadcaster().removeListener(mMessageFramer);
         }
 
-        mMessageFramer = new P25P1MessageFramer(mCostasLoop, DecoderType.P25_PHASE1.getProtocol().getBitRate());
+        mMessageFramer = new P25P1MessageFramer(null, DecoderType.P25_PHASE1.getProtocol().getBitRate());
         mMessageFramer.setSyncDetectListener(mPLLGainMonitor);
         mMessageFramer.setListener(getMessageProcessor());
         mMessageFramer.setSampleRate(sampleRate);
-        mQPSKDemodulator.setSymbolListener(getDibitBroadcaster());
+        mQPSKDemodulator.setDibitBlockListener(getDibitBroadcaster());
         getDibitBroadcaster().addListener(mMessageFramer);
     }
 
@@ -192,18 +191,8 @@ public class P25P1DecoderLSM extends P25P1Decoder
      */
     private float[] getBasebandFilter()
     {
-        //Attempt to reuse a cached (ie already-designed) filter if available
-        float[] filter = mBasebandFilters.get(getSampleRate());
-
-        if(filter == null)
-        {
-            filter = FilterFactory.getLowPass(getSampleRate(), 7250, 8000, 60,
-                WindowType.HANN, true);
-
-            mBasebandFilters.put(getSampleRate(), filter);
-        }
-
-        return filter;
+        //Designs are cached process-wide by the filter factory
+        return FilterFactory.getLowPass(getSampleRate(), 7250, 8000, 60, WindowType.HANN, true);
     }
 
     public static void main(String[] args)
@@ -20,6 +20,7 @@
 package io.github.dsheirer.module.decode.p25.phase1;
 
 import io.github.dsheirer.dsp.psk.DQPSKGardnerDemodulatorInstrumented;
+import io.github.dsheirer.dsp.psk.DQPSKSyncCorrelator;
 import io.github.dsheirer.dsp.psk.InterpolatingSampleBufferInstrumented;
 import io.github.dsheirer.dsp.psk.SymbolDecisionData;
 import io.github.dsheirer.sample.Listener;
@@ -73,13 +74,14 @@ public class P25P1DecoderLSMInstrumented extends P25P1DecoderLSM
 
         DQPSKGardnerDemodulatorInstrumented instrumented = new DQPSKGardnerDemodulatorInstrumented(mCostasLoop, instrumentedBuffer, getSampleRate());
         mQPSKDemodulator = instrumented;
+        instrumented.setSyncCorrelator(DQPSKSyncCorrelator.createP25Phase1());
 
         instrumented.setComplexSymbolListener(mComplexSymbolListener);
         instrumented.setPLLErrorListener(mPLLPhaseErrorListener);
         instrumented.setPLLFrequencyListener(mPLLFrequencyListener);
         instrumented.setSymbolDecisionDataListener(mSymbolDecisionDataListener);
         instrumented.setSamplesPerSymbolListener(mSamplesPerSymbolListener);
-        instrumented.setSymbolListener(getDibitBroadcaster());
+        instrumented.setDibitBlockListener(getDibitBroadcaster());
         getDibitBroadcaster().addListener(mMessageFramer);
     }
 
@@ -0,0 +1,430 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.module.decode.p25.phase1;
+
+import io.github.dsheirer.bits.MultiSyncPatternMatcher;
+import io.github.dsheirer.bits.SoftSyncDetector;
+import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.DibitBlock;
+import io.github.dsheirer.dsp.symbol.FrameSync;
+import io.github.dsheirer.dsp.symbol.ISyncDetectListener;
+import io.github.dsheirer.message.Message;
+import io.github.dsheirer.module.decode.DecoderType;
+import io.github.dsheirer.module.decode.p25.phase1.message.P25Message;
+import io.github.dsheirer.sample.Broadcaster;
+import io.github.dsheirer.sample.Listener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks P25 Phase 1 dibit processing throughput for the per-dibit listener dispatch pattern versus the dibit
+ * block pipeline.
+ *
+ * The test stream contains random dibits with an embedded sync pattern and valid Network ID (NID) at a fixed frame
+ * spacing.  Sync search throughput compares the bit-serial multi-sync pattern matcher fed from a Dibit listener
+ * against the word-wide P25P1SyncDetector.  Framing throughput is measured for the P25P1MessageFramer fed full-size
+ * dibit blocks.
+ *
+ * Framing parity is checked against a recorded fixture: a seeded dibit stream of frames with known NIDs (including
+ * correctable and uncorrectable NID bit errors, sync bit errors and a gap without sync) and the message sequence that
+ * the per-dibit framer produced for that stream before the block pipeline replaced it.  The block framer is fed the
+ * fixture in several block sizes so that frames straddle block boundaries.
+ */
+public class P25P1DibitPipelineBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(P25P1DibitPipelineBenchmark.class);
+
+    private static final int FRAME_COUNT = 2000;
+    private static final int FRAME_SPACING = 1200;
+    private static final int BLOCK_SIZE = 1024;
+    private static final int[] FIXTURE_BLOCK_SIZES = {1, 7, 100, BLOCK_SIZE};
+    private static final int ITERATIONS = 20;
+    private static final long START_TIMESTAMP = 0L;
+    private static final int BIT_RATE = DecoderType.P25_PHASE1.getProtocol().getBitRate();
+
+    //Valid BCH(63,16,11) NID codeword: NAC 0x260, DUID 0x3 (TDU), plus trailing parity bit
+    private static final String NID = "0010011000000011010010100000000110000111110011101010001010110000";
+
+    //Fixture frames: NID codeword (null for a frame without sync), NID bit errors and sync bit errors
+    private static final long FIXTURE_SEED = 25;
+    private static final String[] FIXTURE_NIDS = {
+        "0010100100110011001110010111011101110010100011001110110101101111", //NAC 0x293 TDU
+        "0010100100110000000011110011101101011101111110000000000111000010", //NAC 0x293 HDU
+        "0010100100110101010101011110111100101100011001010011010000110110", //NAC 0x293 LDU1
+        "0010100100111010101110101001001110111110110000100110101000101010", //NAC 0x293 LDU2
+        "0010100100110011001110010111011101110010100011001110110101101111", //NAC 0x293 TDU
+        "0010100100110111111110001000010100010100101010111010111011001100", //NAC 0x293 TSBK
+        "1010101111000011001010110101100101110101111011001000001000010110", //NAC 0xABC TDU
+        "0010100100110011001110010111011101110010100011001110110101101111", //NAC 0x293 TDU
+        "0000000000011111110111101111100100100101010011101011110000111000", //NAC 0x001 TDULC
+        "0010100100111100110101100000101111100000001010111011001101110011", //NAC 0x293 PDU
+        NID,                                                                 //NAC 0x260 TDU
+        null,
+        NID};                                                                //NAC 0x260 TDU
+    //The 11 bit error NID is at the BCH correction limit and the 14 bit error NID is uncorrectable and dropped
+    private static final int[] FIXTURE_NID_ERRORS = {0, 0, 0, 0, 4, 0, 11, 14, 0, 0, 0, 0, 0};
+    private static final int[] FIXTURE_SYNC_ERRORS = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3, 0, 0};
+
+    //Messages produced by the per-dibit framer for the fixture stream (timestamp, type, NAC and validity)
+    private static final String[] FIXTURE_MESSAGES = {
+        "0 TDUMessage NAC:659 VALID",
+        "237 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [2256]",
+        "237 HDUMessage NAC:659 VALID",
+        "472 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [1608]",
+        "472 LDU1Message NAC:659 VALID",
+        "705 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [672]",
+        "705 LDU2Message NAC:659 VALID",
+        "938 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [672]",
+        "938 TDUMessage NAC:659 VALID",
+        "1175 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [2256]",
+        "1175 UnknownVendorOSPMessage NAC:659 INVALID",
+        "1195 UnknownVendorOSPMessage NAC:659 INVALID",
+        "1410 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [1880]",
+        "1410 TDUMessage NAC:2748 VALID",
+        "1897 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [4656]",
+        "1897 TDULinkControlMessage NAC:1 VALID",
+        "2134 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [1968]",
+        "2134 PDUSequenceMessage NAC:659 VALID",
+        "2366 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [2040]",
+        "2366 TDUMessage NAC:608 VALID",
+        "2853 SyncLossMessage <-> SYNC LOSS - BITS PROCESSED [4656]",
+        "2853 TDUMessage NAC:608 VALID"};
+
+    /**
+     * Writes a sync pattern and NID with status symbol to the dibit array at the pointer and flips the specified
+     * number of sync and NID bits, spread across each field.
+     */
+    private static void writeFrame(byte[] dibits, int pointer, String nid, int syncBitErrors, int nidBitErrors)
+    {
+        long sync = FrameSync.P25_PHASE1_NORMAL.getSync();
+
+        for(int x = 0; x < syncBitErrors; x++)
+        {
+            sync ^= 1L << ((x * 7 + 2) % 48);
+        }
+
+        for(int x = 23; x >= 0; x--)
+        {
+            dibits[pointer++] = (byte)((sync >> (x * 2)) & 0x3);
+        }
+
+        char[] bits = nid.toCharArray();
+
+        for(int x = 0; x < nidBitErrors; x++)
+        {
+            int index = (x * 5 + 1) % 63;
+            bits[index] = bits[index] == '0' ? '1' : '0';
+        }
+
+        for(int x = 0; x < bits.length; x += 2)
+        {
+            //Status symbol is inserted after 70 bits: 48 sync bits plus 22 NID bits
+            if(x == 22)
+            {
+                pointer++;
+            }
+
+            dibits[pointer++] = (byte)(((bits[x] - '0') << 1) | (bits[x + 1] - '0'));
+        }
+    }
+
+    /**
+     * Creates a test stream of dibit values with a sync and NID at the start of each frame.
+     */
+    private static byte[] createStream(Random random)
+    {
+        byte[] dibits = new byte[FRAME_COUNT * FRAME_SPACING];
+
+        for(int x = 0; x < dibits.length; x++)
+        {
+            dibits[x] = (byte)random.nextInt(4);
+        }
+
+        for(int frame = 0; frame < FRAME_COUNT; frame++)
+        {
+            writeFrame(dibits, frame * FRAME_SPACING, NID, 0, 0);
+        }
+
+        return dibits;
+    }
+
+    /**
+     * Creates the fixture stream of dibit values from the fixture frame definitions
+     */
+    private static byte[] createFixture()
+    {
+        Random random = new Random(FIXTURE_SEED);
+        byte[] dibits = new byte[(FIXTURE_NIDS.length + 1) * FRAME_SPACING];
+
+        for(int x = 0; x < dibits.length; x++)
+        {
+            dibits[x] = (byte)random.nextInt(4);
+        }
+
+        for(int frame = 0; frame < FIXTURE_NIDS.length; frame++)
+        {
+            if(FIXTURE_NIDS[frame] != null)
+            {
+                writeFrame(dibits, frame * FRAME_SPACING, FIXTURE_NIDS[frame], FIXTURE_SYNC_ERRORS[frame],
+                    FIXTURE_NID_ERRORS[frame]);
+            }
+        }
+
+        return dibits;
+    }
+
+    /**
+     * Counts sync detections
+     */
+    private static class SyncCounter implements ISyncDetectListener
+    {
+        private int mCount;
+
+        @Override
+        public void syncDetected(int bitErrors)
+        {
+            mCount++;
+        }
+
+        @Override
+        public void syncLost()
+        {
+        }
+    }
+
+    /**
+     * Sync search with Dibit enumeration entries dispatched through a listener to a bit-serial pattern matcher
+     * @return sync detection count
+     */
+    private static int syncPerDibit(Dibit[] dibits)
+    {
+        SyncCounter counter = new SyncCounter();
+        MultiSyncPatternMatcher matcher = new MultiSyncPatternMatcher(counter, 1000, 48);
+        matcher.add(new SoftSyncDetector(FrameSync.P25_PHASE1_NORMAL.getSync(), 4, counter));
+        Broadcaster<Dibit> broadcaster = new Broadcaster<>();
+        broadcaster.addListener(dibit -> matcher.receive(dibit.getBit1(), dibit.getBit2()));
+
+        for(Dibit dibit : dibits)
+        {
+            broadcaster.broadcast(dibit);
+        }
+
+        return counter.mCount;
+    }
+
+    /**
+     * Sync search with dibit values processed in blocks by the word-wide sync detector
+     * @return sync detection count
+     */
+    private static int syncBlock(DibitBlock[] blocks)
+    {
+        SyncCounter counter = new SyncCounter();
+        P25P1SyncDetector detector = new P25P1SyncDetector(counter, null);
+
+        for(DibitBlock block : blocks)
+        {
+            byte[] dibits = block.getDibits();
+
+            for(int x = 0; x < block.size(); x++)
+            {
+                detector.receive(dibits[x]);
+            }
+        }
+
+        return counter.mCount;
+    }
+
+    /**
+     * Collects framed message summaries, or only counts the messages when no summary list is provided
+     */
+    private static class MessageCollector implements Listener<Message>
+    {
+        private int mCount;
+        private List<String> mMessages;
+
+        public MessageCollector(List<String> messages)
+        {
+            mMessages = messages;
+        }
+
+        @Override
+        public void receive(Message message)
+        {
+            mCount++;
+
+            if(mMessages != null)
+            {
+                mMessages.add(summarize(message));
+            }
+        }
+    }
+
+    /**
+     * Summarizes a framed message as timestamp and type, plus NAC and validity for P25 messages
+     */
+    private static String summarize(Message message)
+    {
+        if(message instanceof P25Message)
+        {
+            P25Message p25 = (P25Message)message;
+            return message.getTimestamp() + " " + message.getClass().getSimpleName() + " NAC:" + p25.getNAC() +
+                (p25.isValid() ? " VALID" : " INVALID");
+        }
+
+        return message.getTimestamp() + " " + message.getClass().getSimpleName() + " " + message;
+    }
+
+    /**
+     * Frames messages from the stream with the dibit block framer
+     * @param messages to collect the framed messages, or null to only count them
+     * @return framed message count
+     */
+    private static int frameBlock(DibitBlock[] blocks, List<String> messages)
+    {
+        MessageCollector collector = new MessageCollector(messages);
+        P25P1MessageFramer framer = new P25P1MessageFramer(null, BIT_RATE);
+        framer.setCurrentTime(START_TIMESTAMP);
+        framer.setListener(collector);
+
+        for(DibitBlock block : blocks)
+        {
+            framer.receive(block);
+        }
+
+        return collector.mCount;
+    }
+
+    /**
+     * Index of the first message that differs between the two message sequences, or -1 if they are identical
+     */
+    private static int firstDifference(List<String> a, List<String> b)
+    {
+        for(int x = 0; x < Math.min(a.size(), b.size()); x++)
+        {
+            if(!a.get(x).equals(b.get(x)))
+            {
+                return x;
+            }
+        }
+
+        return a.size() == b.size() ? -1 : Math.min(a.size(), b.size());
+    }
+
+    /**
+     * Splits the stream into dibit blocks of the specified size
+     */
+    private static DibitBlock[] createBlocks(byte[] stream, int blockSize)
+    {
+        DibitBlock[] blocks = new DibitBlock[(stream.length + blockSize - 1) / blockSize];
+
+        for(int x = 0; x < blocks.length; x++)
+        {
+            blocks[x] = new DibitBlock(blockSize);
+
+            for(int y = x * blockSize; y < Math.min(stream.length, (x + 1) * blockSize); y++)
+            {
+                blocks[x].add(stream[y], 1.0f);
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Executes the test the specified number of iterations
+     * @return dibits per second
+     */
+    private static double rate(Runnable test, int dibitCount)
+    {
+        long start = System.nanoTime();
+
+        for(int x = 0; x < ITERATIONS; x++)
+        {
+            test.run();
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        return (double)ITERATIONS * dibitCount / (elapsed / 1E9);
+    }
+
+    public static void main(String[] args)
+    {
+        DecimalFormat rateFormat = new DecimalFormat("0.0");
+
+        byte[] stream = createStream(new Random(1234));
+        Dibit[] dibits = new Dibit[stream.length];
+
+        for(int x = 0; x < stream.length; x++)
+        {
+            dibits[x] = Dibit.fromValue(stream[x]);
+        }
+
+        DibitBlock[] fullBlocks = createBlocks(stream, BLOCK_SIZE);
+
+        mLog.info("Sync Detections - Per Dibit:" + syncPerDibit(dibits) + " Block:" + syncBlock(fullBlocks) +
+            " Expected:" + FRAME_COUNT);
+
+        byte[] fixture = createFixture();
+        List<String> expected = Arrays.asList(FIXTURE_MESSAGES);
+
+        for(int blockSize : FIXTURE_BLOCK_SIZES)
+        {
+            List<String> messages = new ArrayList<>();
+            frameBlock(createBlocks(fixture, blockSize), messages);
+            int difference = firstDifference(expected, messages);
+
+            if(difference < 0)
+            {
+                mLog.info("Fixture Messages - Block Size:" + blockSize + " Expected:" + expected.size() +
+                    " Framed:" + messages.size() + " (match)");
+            }
+            else
+            {
+                mLog.error("Fixture Messages - Block Size:" + blockSize + " Expected:" + expected.size() +
+                    " Framed:" + messages.size() + " (MISMATCH at message " + difference + ")");
+                mLog.error("Expected: " + (difference < expected.size() ? expected.get(difference) : "-"));
+                mLog.error("Framed:   " + (difference < messages.size() ? messages.get(difference) : "-"));
+            }
+        }
+
+        //Warm-up
+        rate(() -> syncPerDibit(dibits), stream.length);
+        rate(() -> syncBlock(fullBlocks), stream.length);
+        rate(() -> frameBlock(fullBlocks, null), stream.length);
+
+        double syncPerDibitRate = rate(() -> syncPerDibit(dibits), stream.length);
+        double syncBlockRate = rate(() -> syncBlock(fullBlocks), stream.length);
+        double frameBlockRate = rate(() -> frameBlock(fullBlocks, null), stream.length);
+
+        mLog.info("Sync Search (Mdibits/s/core) - Per Dibit:" + rateFormat.format(syncPerDibitRate / 1E6) +
+            " Block:" + rateFormat.format(syncBlockRate / 1E6) +
+            " Speedup:" + rateFormat.format(syncBlockRate / syncPerDibitRate) + "x");
+        mLog.info("Message Framing (Mdibits/s/core) - Block:" + rateFormat.format(frameBlockRate / 1E6));
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.module.decode.p25.phase1;
+
+import io.github.dsheirer.dsp.filter.FilterFactory;
+import io.github.dsheirer.dsp.filter.Window.WindowType;
+import io.github.dsheirer.dsp.psk.DQPSKSyncCorrelator;
+import io.github.dsheirer.dsp.symbol.FrameSync;
+import io.github.dsheirer.message.IMessage;
+import io.github.dsheirer.message.StuffBitsMessage;
+import io.github.dsheirer.message.SyncLossMessage;
+import io.github.dsheirer.module.decode.DecoderType;
+import io.github.dsheirer.module.decode.p25.phase1.message.tdu.TDUMessage;
+import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
+import io.github.dsheirer.sample.buffer.ReusableComplexBufferQueue;
+import io.github.dsheirer.source.wave.ComplexWaveSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks P25 Phase 1 frame recovery for the LSM and C4FM decoders with and without the multi-hypothesis soft
+ * sync correlator. The LSM decoder enables the correlator by default and the C4FM decoder does not, so the C4FM case
+ * shows why the correlator stays off for decision-directed timing.
+ *
+ * With a recording argument, replays a complex baseband wave recording (e.g. a weak or simulcast control channel)
+ * through each decoder, with and without the correlator, and compares the number of valid messages.
+ *
+ * Without arguments, generates a weak simulcast signal: a stream of Terminator Data Units (TDU) with random dibits
+ * between them, pi/4 DQPSK modulated with raised cosine pulses, a delayed and phase-shifted second simulcast
+ * transmitter, transmitter clock and carrier frequency offsets, and white gaussian noise at several Es/No levels.
+ * Recovery is reported as the percentage of transmitted TDUs that were decoded.
+ *
+ * Usage: P25P1FrameRecoveryBenchmark [baseband.wav]
+ */
+public class P25P1FrameRecoveryBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(P25P1FrameRecoveryBenchmark.class);
+
+    private static final double SAMPLE_RATE = 50000.0;
+    private static final double SYMBOL_RATE = 4800.0;
+    private static final int FRAME_COUNT = 1000;
+    private static final int FRAME_DIBIT_LENGTH = 480;
+    private static final int BUFFER_SIZE = 2048;
+    private static final double ROLL_OFF = 0.2;
+    private static final int PULSE_SPAN_SYMBOLS = 6;
+    private static final double SIMULCAST_DELAY_SYMBOLS = 0.4;
+    private static final double SIMULCAST_GAIN = 0.6;
+    private static final double SIMULCAST_PHASE = 2.0;
+    private static final double CLOCK_OFFSET_PPM = 100.0;
+    private static final double CARRIER_OFFSET_HZ = 40.0;
+    private static final double[] ES_NO_DB = {8.0, 10.0, 12.0, 15.0, 20.0};
+
+    //Valid BCH(63,16,11) NID codeword: NAC 0x260, DUID 0x3 (TDU), plus trailing parity bit
+    private static final String NID = "0010011000000011010010100000000110000111110011101010001010110000";
+
+    //pi/4 DQPSK phase change for each dibit value, matching the DQPSK symbol evaluators
+    private static final double[] PHASE_CHANGE = {Math.PI / 4.0, 3.0 * Math.PI / 4.0, -Math.PI / 4.0,
+        -3.0 * Math.PI / 4.0};
+
+    /**
+     * Creates a dibit stream of TDUs separated by random dibits
+     */
+    private static byte[] createDibits(Random random)
+    {
+        byte[] dibits = new byte[FRAME_COUNT * FRAME_DIBIT_LENGTH];
+
+        for(int x = 0; x < dibits.length; x++)
+        {
+            dibits[x] = (byte)random.nextInt(4);
+        }
+
+        long sync = FrameSync.P25_PHASE1_NORMAL.getSync();
+
+        for(int frame = 0; frame < FRAME_COUNT; frame++)
+        {
+            //Offset the first frame so that the decoder has time to settle
+            int pointer = (frame * FRAME_DIBIT_LENGTH) + 100;
+
+            for(int x = 23; x >= 0; x--)
+            {
+                dibits[pointer++] = (byte)((sync >> (x * 2)) & 0x3);
+            }
+
+            for(int x = 0; x < NID.length(); x += 2)
+            {
+                //Status symbol is inserted after 70 bits: 48 sync bits plus 22 NID bits
+                if(x == 22)
+                {
+                    pointer++;
+                }
+
+                dibits[pointer++] = (byte)(((NID.charAt(x) - '0') << 1) | (NID.charAt(x + 1) - '0'));
+            }
+
+            //TDU has 28 zero bits and a trailing status symbol following the NID
+            for(int x = 0; x < 15; x++)
+            {
+                dibits[pointer++] = 0;
+            }
+        }
+
+        return dibits;
+    }
+
+    /**
+     * Raised cosine pulse value at the time offset (in symbol periods)
+     */
+    private static double pulse(double t)
+    {
+        double sinc = Math.abs(t) < 1E-9 ? 1.0 : Math.sin(Math.PI * t) / (Math.PI * t);
+        double denominator = 1.0 - Math.pow(2.0 * ROLL_OFF * t, 2.0);
+
+        if(Math.abs(denominator) < 1E-9)
+        {
+            return sinc * Math.PI / 4.0;
+        }
+
+        return sinc * Math.cos(Math.PI * ROLL_OFF * t) / denominator;
+    }
+
+    /**
+     * Modulates the dibits as a two-transmitter simulcast signal with clock and carrier offsets
+     * @return interleaved complex samples with unity average power
+     */
+    private static float[] modulate(byte[] dibits)
+    {
+        double symbolPeriod = (SAMPLE_RATE / SYMBOL_RATE) * (1.0 + CLOCK_OFFSET_PPM / 1E6);
+        int sampleCount = (int)((dibits.length + PULSE_SPAN_SYMBOLS) * symbolPeriod);
+        double[] inphase = new double[sampleCount];
+        double[] quadrature = new double[sampleCount];
+        double simulcastDelay = SIMULCAST_DELAY_SYMBOLS * symbolPeriod;
+        double phase = 0.0;
+
+        for(int k = 0; k < dibits.length; k++)
+        {
+            phase += PHASE_CHANGE[dibits[k]];
+            double symbolInphase = Math.cos(phase);
+            double symbolQuadrature = Math.sin(phase);
+            double simulcastInphase = SIMULCAST_GAIN * Math.cos(phase + SIMULCAST_PHASE);
+            double simulcastQuadrature = SIMULCAST_GAIN * Math.sin(phase + SIMULCAST_PHASE);
+            double center = (k + PULSE_SPAN_SYMBOLS / 2.0) * symbolPeriod;
+
+            int start = Math.max(0, (int)(center - PULSE_SPAN_SYMBOLS * symbolPeriod));
+            int end = Math.min(sampleCount - 1, (int)(center + simulcastDelay + PULSE_SPAN_SYMBOLS * symbolPeriod));
+
+            for(int n = start; n <= end; n++)
+            {
+                double primary = pulse((n - center) / symbolPeriod);
+                double secondary = pulse((n - center - simulcastDelay) / symbolPeriod);
+                inphase[n] += (symbolInphase * primary) + (simulcastInphase * secondary);
+                quadrature[n] += (symbolQuadrature * primary) + (simulcastQuadrature * secondary);
+            }
+        }
+
+        double power = 0.0;
+
+        for(int n = 0; n < sampleCount; n++)
+        {
+            power += (inphase[n] * inphase[n]) + (quadrature[n] * quadrature[n]);
+        }
+
+        double scale = 1.0 / Math.sqrt(power / sampleCount);
+        float[] samples = new float[sampleCount * 2];
+
+        for(int n = 0; n < sampleCount; n++)
+        {
+            double carrier = 2.0 * Math.PI * CARRIER_OFFSET_HZ * n / SAMPLE_RATE;
+            double cos = Math.cos(carrier);
+            double sin = Math.sin(carrier);
+            samples[2 * n] = (float)(scale * ((inphase[n] * cos) - (quadrature[n] * sin)));
+            samples[2 * n + 1] = (float)(scale * ((inphase[n] * sin) + (quadrature[n] * cos)));
+        }
+
+        return samples;
+    }
+
+    /**
+     * Adds white gaussian noise to a copy of the unity power signal for the specified Es/No and applies the channel
+     * filter, since the decoder relies on the polyphase channelizer for channel filtering.
+     */
+    private static float[] addNoise(float[] signal, double esNoDb, Random random)
+    {
+        double samplesPerSymbol = SAMPLE_RATE / SYMBOL_RATE;
+        double noiseVariance = samplesPerSymbol / Math.pow(10.0, esNoDb / 10.0);
+        float sigma = (float)Math.sqrt(noiseVariance / 2.0);
+        float[] noisy = new float[signal.length];
+
+        for(int x = 0; x < signal.length; x++)
+        {
+            noisy[x] = signal[x] + (sigma * (float)random.nextGaussian());
+        }
+
+        return channelFilter(noisy);
+    }
+
+    /**
+     * Low-pass filters the interleaved complex samples, emulating the polyphase channelizer's channel filter
+     */
+    private static float[] channelFilter(float[] samples)
+    {
+        float[] taps = FilterFactory.getLowPass(SAMPLE_RATE, 7250, 8000, 60, WindowType.HANN, true);
+        float[] filtered = new float[samples.length];
+        int sampleCount = samples.length / 2;
+
+        for(int n = 0; n < sampleCount; n++)
+        {
+            float inphase = 0.0f;
+            float quadrature = 0.0f;
+
+            for(int tap = 0; tap < taps.length && tap <= n; tap++)
+            {
+                inphase += taps[tap] * samples[2 * (n - tap)];
+                quadrature += taps[tap] * samples[2 * (n - tap) + 1];
+            }
+
+            filtered[2 * n] = inphase;
+            filtered[2 * n + 1] = quadrature;
+        }
+
+        return filtered;
+    }
+
+    /**
+     * Configures the LSM decoder to the legacy configuration without the sync correlator where the message framer's
+     * sync detector applies the PLL phase inversion corrections.
+     */
+    private static void disableSyncCorrelator(P25P1DecoderLSM decoder)
+    {
+        decoder.mQPSKDemodulator.setSyncCorrelator(null);
+        decoder.getDibitBroadcaster().removeListener(decoder.mMessageFramer);
+        decoder.mMessageFramer = new P25P1MessageFramer(decoder.mCostasLoop,
+            DecoderType.P25_PHASE1.getProtocol().getBitRate());
+        decoder.mMessageFramer.setSyncDetectListener(decoder.mPLLGainMonitor);
+        decoder.mMessageFramer.setListener(decoder.getMessageProcessor());
+        decoder.mMessageFramer.setSampleRate(SAMPLE_RATE);
+        decoder.getDibitBroadcaster().addListener(decoder.mMessageFramer);
+    }
+
+    /**
+     * Enables the sync correlator on the C4FM decoder for comparison. The production C4FM decoder runs without the
+     * correlator because its decision-directed timing samples at the start of the interpolation buffer, where the
+     * early timing hypotheses reach into the next symbol period and lower recovery. With the correlator enabled, the
+     * demodulator applies the PLL phase inversion corrections instead of the message framer's sync detector.
+     */
+    private static void enableSyncCorrelator(P25P1DecoderC4FM decoder)
+    {
+        decoder.mQPSKDemodulator.setSyncCorrelator(DQPSKSyncCorrelator.createP25Phase1());
+        decoder.getDibitBroadcaster().removeListener(decoder.mMessageFramer);
+        decoder.mMessageFramer = new P25P1MessageFramer(null, DecoderType.P25_PHASE1.getProtocol().getBitRate());
+        decoder.mMessageFramer.setSyncDetectListener(decoder.mPLLGainMonitor);
+        decoder.mMessageFramer.setListener(decoder.getMessageProcessor());
+        decoder.mMessageFramer.setSampleRate(SAMPLE_RATE);
+        decoder.getDibitBroadcaster().addListener(decoder.mMessageFramer);
+    }
+
+    /**
+     * Creates the LSM (Gardner timing) or C4FM (decision-directed timing) decoder
+     */
+    private static P25P1Decoder createDecoder(boolean c4fm, double sampleRate, boolean correlator)
+    {
+        if(c4fm)
+        {
+            P25P1DecoderC4FM decoder = new P25P1DecoderC4FM();
+            decoder.setSampleRate(sampleRate);
+
+            if(correlator)
+            {
+                enableSyncCorrelator(decoder);
+            }
+
+            return decoder;
+        }
+
+        P25P1DecoderLSM decoder = new P25P1DecoderLSM();
+        decoder.setSampleRate(sampleRate);
+
+        if(!correlator)
+        {
+            disableSyncCorrelator(decoder);
+        }
+
+        return decoder;
+    }
+
+    /**
+     * Decodes the samples and counts the valid messages
+     *
+     * @param samples interleaved complex samples
+     * @param sampleRate of the samples
+     * @param c4fm to use the C4FM decoder instead of the LSM decoder
+     * @param correlator to enable the soft sync correlator
+     * @param tduOnly to count only TDU messages
+     * @return count of valid messages
+     */
+    private static int decode(float[] samples, double sampleRate, boolean c4fm, boolean correlator, boolean tduOnly)
+    {
+        int[] count = new int[1];
+        P25P1Decoder decoder = createDecoder(c4fm, sampleRate, correlator);
+
+        decoder.setMessageListener(message -> {
+            if(isCounted(message, tduOnly))
+            {
+                count[0]++;
+            }
+        });
+
+        ReusableComplexBufferQueue queue = new ReusableComplexBufferQueue("P25P1FrameRecoveryBenchmark");
+
+        for(int offset = 0; offset < samples.length; offset += BUFFER_SIZE * 2)
+        {
+            int length = Math.min(BUFFER_SIZE * 2, samples.length - offset);
+            ReusableComplexBuffer buffer = queue.getBuffer(length);
+            System.arraycopy(samples, offset, buffer.getSamples(), 0, length);
+            decoder.receive(buffer);
+        }
+
+        return count[0];
+    }
+
+    private static boolean isCounted(IMessage message, boolean tduOnly)
+    {
+        if(message instanceof SyncLossMessage || message instanceof StuffBitsMessage || !message.isValid())
+        {
+            return false;
+        }
+
+        return !tduOnly || message instanceof TDUMessage;
+    }
+
+    /**
+     * Reads all of the samples from a complex baseband wave recording
+     */
+    private static float[] read(File file, double[] sampleRate) throws IOException
+    {
+        List<float[]> buffers = new ArrayList<>();
+        int sampleCount = 0;
+
+        try(ComplexWaveSource source = new ComplexWaveSource(file))
+        {
+            source.setListener(buffer -> {
+                buffers.add(buffer.getSamples().clone());
+                buffer.decrementUserCount();
+            });
+            source.start();
+            sampleRate[0] = source.getSampleRate();
+
+            while(true)
+            {
+                source.next(BUFFER_SIZE, true);
+            }
+        }
+        catch(IOException ioe)
+        {
+            //End of file
+        }
+
+        for(float[] buffer : buffers)
+        {
+            sampleCount += buffer.length;
+        }
+
+        float[] samples = new float[sampleCount];
+        int pointer = 0;
+
+        for(float[] buffer : buffers)
+        {
+            System.arraycopy(buffer, 0, samples, pointer, buffer.length);
+            pointer += buffer.length;
+        }
+
+        return samples;
+    }
+
+    public static void main(String[] args)
+    {
+        DecimalFormat percentFormat = new DecimalFormat("0.0");
+
+        if(args.length > 0)
+        {
+            try
+            {
+                double[] sampleRate = new double[1];
+                float[] samples = read(new File(args[0]), sampleRate);
+                mLog.info("Recording: " + args[0] + " Samples:" + (samples.length / 2) + " Rate:" + sampleRate[0]);
+
+                for(boolean c4fm : new boolean[]{false, true})
+                {
+                    int legacy = decode(samples, sampleRate[0], c4fm, false, false);
+                    int correlated = decode(samples, sampleRate[0], c4fm, true, false);
+
+                    mLog.info((c4fm ? "C4FM" : "LSM") + " Valid Messages - Without Correlator:" + legacy +
+                        " With Correlator:" + correlated + " Recovered:" + (correlated - legacy));
+                }
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error reading recording", ioe);
+            }
+
+            System.exit(0);
+        }
+
+        Random random = new Random(2020);
+        float[] signal = modulate(createDibits(random));
+
+        mLog.info("Simulcast: delay " + SIMULCAST_DELAY_SYMBOLS + " symbols, gain " + SIMULCAST_GAIN +
+            ", clock offset " + CLOCK_OFFSET_PPM + " ppm, carrier offset " + CARRIER_OFFSET_HZ + " Hz, TDUs sent:" +
+            FRAME_COUNT + ", correlator hypotheses:" + DQPSKSyncCorrelator.DEFAULT_HYPOTHESIS_COUNT);
+
+        for(double esNo : ES_NO_DB)
+        {
+            float[] samples = addNoise(signal, esNo, random);
+
+            for(boolean c4fm : new boolean[]{false, true})
+            {
+                int legacy = decode(samples, SAMPLE_RATE, c4fm, false, true);
+                int correlated = decode(samples, SAMPLE_RATE, c4fm, true, true);
+
+                mLog.info((c4fm ? "C4FM" : "LSM ") + " Es/No " + esNo + " dB - Without Correlator:" + legacy + " (" +
+                    percentFormat.format(100.0 * legacy / FRAME_COUNT) + "%) With Correlator:" + correlated + " (" +
+                    percentFormat.format(100.0 * correlated / FRAME_COUNT) + "%)");
+            }
+        }
+
+        System.exit(0);
+    }
+}
@@ -25,6 +25,7 @@ import io.github.dsheirer.bits.BitSetFullException;
 import io.github.dsheirer.bits.CorrectedBinaryMessage;
 import io.github.dsheirer.dsp.psk.pll.IPhaseLockedLoop;
 import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.DibitBlock;
 import io.github.dsheirer.dsp.symbol.ISyncDetectListener;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.Message;
@@ -58,7 +59,7 @@ import java.util.function.Consumer;
  * P25 Sync Detector and Message Framer.  Includes capability to detect PLL out-of-phase lock errors
  * and issue phase corrections.
  */
-public class P25P1MessageFramer implements Listener<Dibit>, IP25P1DataUnitDetectListener
+public class P25P1MessageFramer implements Listener<DibitBlock>, IP25P1DataUnitDetectListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(P25P1MessageFramer.class);
 
@@ -69,13 +70,13 @@ public class P25P1MessageFramer implements Listener<Dibit>, IP25P1DataUnitDetect
     private CorrectedBinaryMessage mBinaryMessage;
     private P25P1DataUnitID mDataUnitID;
     private PDUSequence mPDUSequence;
-    private int[] mCorrectedNID;
     private int mNAC;
     private int mStatusSymbolDibitCounter = 0;
     private int mTrailingDibitsToSuppress = 0;
     private double mBitRate;
     private long mCurrentTime = System.currentTimeMillis();
     private ISyncDetectListener mSyncDetectListener;
+    private DibitBlock mByteBufferBlock = new DibitBlock(1600);
 
     public P25P1MessageFramer(IPhaseLockedLoop phaseLockedLoop, int bitRate)
     {
@@ -139,6 +140,17 @@ public class P25P1MessageFramer implements Listener<Dibit>, IP25P1DataUnitDetect
         }
     }
 
+    /**
+     * Updates the current timestamp for dibits that are processed one at a time.  Each dibit updates the timestamp
+     * individually so that the timestamp does not depend on where the dibit block boundaries fall.
+     *
+     * @param dibitsProcessed count
+     */
+    private void updateDibitsProcessed(int dibitsProcessed)
+    {
+        mCurrentTime += dibitsProcessed * (long)(2.0 / mBitRate * 1000.0);
+    }
+
     /**
      * Registers the listener for messages produced by this message framer
      *
@@ -155,41 +167,77 @@ public class P25P1MessageFramer implements Listener<Dibit>, IP25P1DataUnitDetect
     }
 
     /**
-     * Primary method for streaming decoded symbol dibits for message framing.
+     * Primary method for streaming decoded symbol dibit blocks for message framing.  The block is consumed by
+     * either the data unit detector or the message assembler, switching between the two mid-block as data units
+     * are detected and messages are completed.
      *
-     * @param dibit to process
+     * @param block of dibits to process
      */
     @Override
-    public void receive(Dibit dibit)
+    public void receive(DibitBlock block)
     {
-        if(mAssemblingMessage)
+        int size = block.size();
+        int index = 0;
+
+        while(index < size)
         {
+            if(mAssemblingMessage)
+            {
+                index = assemble(block, index);
+            }
+            else if(mTrailingDibitsToSuppress > 0)
+            {
+                //Suppress any trailing nulls or status dibits that follow certain DUID sequences
+                int suppressed = Math.min(mTrailingDibitsToSuppress, size - index);
+                mTrailingDibitsToSuppress -= suppressed;
+                updateDibitsProcessed(suppressed);
+                index += suppressed;
+            }
+            else
+            {
+                index = mDataUnitDetector.receive(block, index);
+            }
+        }
+    }
+
+    /**
+     * Adds dibits from the block to the message being assembled, starting at the offset, until the message is
+     * complete and dispatched or the end of the block is reached.
+     *
+     * @param block of dibits
+     * @param offset of the first dibit to add
+     * @return index of the next unprocessed dibit in the block
+     */
+    private int assemble(DibitBlock block, int offset)
+    {
+        byte[] dibits = block.getDibits();
+        int size = block.size();
+
+        for(int x = offset; x < size; x++)
+        {
+            int dibit = dibits[x];
+
             //Strip out the status symbol dibit after every 70 bits or 35 dibits
             if(mStatusSymbolDibitCounter == 35)
             {
-                if(mAssemblingMessage)
-                {
-                    //Send status dibit to channel status processor to identify ISP or OSP channel
-                    mChannelStatusProcessor.receive(dibit);
-                }
+                //Send status dibit to channel status processor to identify ISP or OSP channel
+                mChannelStatusProcessor.receive(Dibit.fromValue(dibit));
                 mStatusSymbolDibitCounter = 0;
-
-                return;
+                continue;
             }
 
             mStatusSymbolDibitCounter++;
 
             try
             {
-                mBinaryMessage.add(dibit.getBit1());
-                mBinaryMessage.add(dibit.getBit2());
+                mBinaryMessage.add((dibit & 0x2) == 0x2);
+                mBinaryMessage.add((dibit & 0x1) == 0x1);
             }
             catch(BitSetFullException bsfe)
             {
-//                mLog.debug("Message full exception - unexpected");
-
                 //Reset so that we can start over again
                 reset(0);
+                return x + 1;
             }
 
             if(mBinaryMessage.isFull())
@@ -201,20 +249,16 @@ public class P25P1MessageFramer implements Listener<Dibit>, IP25P1DataUnitDetect
                 }
 
                 dispatchMessage();
+
+                //Dispatch either completes the message or sets up to assemble the next message block
+                if(!mAssemblingMessage)
+                {
+                    return x + 1;
+                }
             }
         }
-        else
-        {
-            //Suppress any trailing nulls or status dibits that follow certain DUID sequences
-            if(mTrailingDibitsToSuppress > 0)
-            {
-                mTrailingDibitsToSuppress--;
-                updateBitsProcessed(2);
-                return;
-            }
 
-            mDataUnitDetector.receive(dibit);
-        }
+        return size;
     }
 
     private void dispatchMessage()
@@ -369,15 +413,9 @@ public class P25P1MessageFramer implements Listener<Dibit>, IP25P1DataUnitDetect
         //Updates current timestamp to the timestamp from the incoming buffer
         setCurrentTime(buffer.getTimestamp());
 
-        for(byte value : buffer.getBytes())
-        {
-            for(int x = 0; x <= 3; x++)
-            {
-                receive(Dibit.parse(value, x));
-            }
-        }
-
+        mByteBufferBlock.load(buffer.getBytes(), buffer.getTimestamp());
         buffer.decrementUserCount();
+        receive(mByteBufferBlock);
     }
 
     @Override
@@ -401,7 +439,6 @@ public class P25P1MessageFramer implements Listener<Dibit>, IP25P1DataUnitDetect
 
         mDataUnitID = dataUnitID;
         mNAC = nac;
-        mCorrectedNID = correctedNid;
         mBinaryMessage = new CorrectedBinaryMessage(dataUnitID.getMessageLength());
         mBinaryMessage.incrementCorrectedBitCount(bitErrors);
 
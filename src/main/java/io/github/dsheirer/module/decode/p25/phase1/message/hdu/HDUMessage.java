@@ -37,6 +37,8 @@ public class HDUMessage extends P25Message
 {
     private final static Logger mLog = LoggerFactory.getLogger(HDUMessage.class);
 
+    private static final ReedSolomon_63_47_17 REED_SOLOMON_36_20_17 = new ReedSolomon_63_47_17(8);
+
     private static final int[] GOLAY_WORD_STARTS = {0, 18, 36, 54, 72, 90, 108, 126, 144, 162, 180, 198, 216, 234, 252,
         270, 288, 306, 324, 342, 360, 278, 396, 414, 432, 450, 468, 486, 504, 522, 540, 558, 576, 594, 612, 630};
 
@@ -107,7 +109,7 @@ public class HDUMessage extends P25Message
     {
         for(int index : GOLAY_WORD_STARTS)
         {
-            Golay18.checkAndCorrect(getMessage(), index);
+            Golay18.correct(getMessage(), index);
         }
 
         /* Reed-Solomon( 36,20,17 ) error detection and correction
@@ -158,13 +160,11 @@ public class HDUMessage extends P25Message
         /* indexes 36 - 62 are defaulted to zero */
 
         //Reed-Solomon(36,20,17) code protects the header word.  Maximum correctable errors are: 8
-        ReedSolomon_63_47_17 reedSolomon_63_47_17 = new ReedSolomon_63_47_17(8);
-
         boolean irrecoverableErrors;
 
         try
         {
-            irrecoverableErrors = reedSolomon_63_47_17.decode(input, output);
+            irrecoverableErrors = REED_SOLOMON_36_20_17.decode(input, output);
         }
         catch(Exception e)
         {
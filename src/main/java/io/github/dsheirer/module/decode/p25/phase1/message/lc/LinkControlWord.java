@@ -39,6 +39,7 @@ public abstract class LinkControlWord
 
     private BinaryMessage mMessage;
     private LinkControlOpcode mLinkControlOpcode;
+    private Vendor mVendor;
     private boolean mValid = true;
 
     /**
@@ -104,7 +105,12 @@ public abstract class LinkControlWord
      */
     public Vendor getVendor()
     {
-        return getVendor(getMessage());
+        if(mVendor == null)
+        {
+            mVendor = getVendor(getMessage());
+        }
+
+        return mVendor;
     }
 
     /**
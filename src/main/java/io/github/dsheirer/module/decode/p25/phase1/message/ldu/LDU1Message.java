@@ -62,6 +62,8 @@ public class LDU1Message extends LDUMessage implements IFrequencyBandReceiver
 {
     private final static Logger mLog = LoggerFactory.getLogger(LDU1Message.class);
 
+    private static final ReedSolomon_63_47_17 REED_SOLOMON_24_12_13 = new ReedSolomon_63_47_17(6);
+
     private static final int[] GOLAY_WORD_STARTS = {288, 298, 308, 318, 472, 482, 492, 502, 656, 666, 676, 686,
         840, 850, 860, 870, 1024, 1034, 1044, 1054, 1208, 1218, 1228, 1238};
     private static final int[] CW_HEX_0 = {288, 289, 290, 291, 292, 293};
@@ -138,7 +140,7 @@ public class LDU1Message extends LDUMessage implements IFrequencyBandReceiver
         for(int index : GOLAY_WORD_STARTS)
         {
             //Attempt to fix any single-bit errors
-            Hamming10.checkAndCorrect(getMessage(), index);
+            Hamming10.correct(getMessage(), index);
         }
 
         //Perform Reed-Solomon( 24,16,9 ) error detection and correction.  Check the Reed-Solomon parity bits. The RS
@@ -175,8 +177,7 @@ public class LDU1Message extends LDUMessage implements IFrequencyBandReceiver
         /* indexes 24 - 62 are defaulted to zero */
 
         //Reed-Solomon(24,12,13) code protects the link control word.  Maximum correctable errors are: 6
-        ReedSolomon_63_47_17 reedSolomon_63_47_17 = new ReedSolomon_63_47_17(6);
-        boolean irrecoverableErrors = reedSolomon_63_47_17.decode(input, output);
+        boolean irrecoverableErrors = REED_SOLOMON_24_12_13.decode(input, output);
 
         //Transfer error corrected output to a new binary message
         BinaryMessage binaryMessage = new BinaryMessage(72);
@@ -36,6 +36,8 @@ public class LDU2Message extends LDUMessage
 {
     private final static Logger mLog = LoggerFactory.getLogger(LDU2Message.class);
 
+    private static final ReedSolomon_63_47_17 REED_SOLOMON_24_16_9 = new ReedSolomon_63_47_17(4);
+
     private static final int[] GOLAY_WORD_STARTS = {288, 298, 308, 318, 472, 482, 492, 502, 656, 666, 676, 686,
         840, 850, 860, 870, 1024, 1034, 1044, 1054, 1208, 1218, 1228, 1238};
     private static final int[] CW_HEX_0 = {288, 289, 290, 291, 292, 293};
@@ -99,7 +101,7 @@ public class LDU2Message extends LDUMessage
         /* Hamming( 10,6,3 ) error detection and correction */
         for(int index : GOLAY_WORD_STARTS)
         {
-            int errors = Hamming10.checkAndCorrect(getMessage(), index);
+            int errors = Hamming10.correct(getMessage(), index);
         }
 
         /* Reed-Solomon( 24,16,9 ) error detection and correction
@@ -138,8 +140,7 @@ public class LDU2Message extends LDUMessage
         /* indexes 24 - 62 are defaulted to zero */
 
         //Reed-Solomon(24,16,9) code protects the encryption sync word.  Maximum correctable errors are: 4
-        ReedSolomon_63_47_17 reedSolomon_63_47_17 = new ReedSolomon_63_47_17(4);
-        boolean irrecoverableErrors = reedSolomon_63_47_17.decode(input, output);
+        boolean irrecoverableErrors = REED_SOLOMON_24_16_9.decode(input, output);
 
         BinaryMessage binaryMessage = new BinaryMessage(96);
 
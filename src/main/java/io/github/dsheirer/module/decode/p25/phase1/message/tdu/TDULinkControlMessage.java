@@ -36,6 +36,8 @@ import java.util.List;
 
 public class TDULinkControlMessage extends P25Message implements IFrequencyBandReceiver
 {
+    private static final ReedSolomon_63_47_17 REED_SOLOMON_24_12_13 = new ReedSolomon_63_47_17(6);
+
     public static final int[] LC_HEX_0 = {0, 1, 2, 3, 4, 5};
     public static final int[] LC_HEX_1 = {6, 7, 8, 9, 10, 11};
     public static final int[] LC_HEX_2 = {24, 25, 26, 27, 28, 29};
@@ -107,7 +109,7 @@ public class TDULinkControlMessage extends P25Message implements IFrequencyBandR
 
         while(codewordPointer < getMessage().size())
         {
-            int corrected = Golay24.checkAndCorrect(getMessage(), codewordPointer);
+            Golay24.correct(getMessage(), codewordPointer);
             codewordPointer += 24;
         }
 
@@ -144,9 +146,7 @@ public class TDULinkControlMessage extends P25Message implements IFrequencyBandR
         /* indexes 24 - 62 are defaulted to zero */
 
         //Reed-Solomon(24,12,13) code protects the link control word.  Maximum correctable errors are:  6
-        ReedSolomon_63_47_17 reedSolomon_63_47_17 = new ReedSolomon_63_47_17(6);
-
-        boolean irrecoverableErrors = reedSolomon_63_47_17.decode(input, output);
+        boolean irrecoverableErrors = REED_SOLOMON_24_12_13.decode(input, output);
 
         //Transfer error corrected output to a new binary message
         BinaryMessage binaryMessage = new BinaryMessage(72);
@@ -202,6 +202,32 @@ public enum Opcode
     public static final EnumSet<Opcode> DATA_CHANNEL_GRANT_OPCODES = EnumSet.of(OSP_SNDCP_DATA_CHANNEL_GRANT,
         OSP_INDIVIDUAL_DATA_CHANNEL_GRANT, OSP_GROUP_DATA_CHANNEL_GRANT);
 
+    /**
+     * Standard opcode lookup tables indexed by opcode value
+     */
+    private static final Opcode[] STANDARD_OUTBOUND_LOOKUP = new Opcode[64];
+    private static final Opcode[] STANDARD_INBOUND_LOOKUP = new Opcode[64];
+    private static final Opcode[] VALUES = values();
+
+    static
+    {
+        for(Opcode outboundOpcode : STANDARD_OUTBOUND_OPCODES)
+        {
+            if(STANDARD_OUTBOUND_LOOKUP[outboundOpcode.getCode()] == null)
+            {
+                STANDARD_OUTBOUND_LOOKUP[outboundOpcode.getCode()] = outboundOpcode;
+            }
+        }
+
+        for(Opcode inboundOpcode : STANDARD_INBOUND_OPCODES)
+        {
+            if(STANDARD_INBOUND_LOOKUP[inboundOpcode.getCode()] == null)
+            {
+                STANDARD_INBOUND_LOOKUP[inboundOpcode.getCode()] = inboundOpcode;
+            }
+        }
+    }
+
     Opcode(int code, String label, String description)
     {
         mCode = code;
@@ -252,7 +278,7 @@ public enum Opcode
     {
         if(0 <= value && value <= 63)
         {
-            return values()[value];
+            return VALUES[value];
         }
 
         return OSP_UNKNOWN;
@@ -265,30 +291,18 @@ public enum Opcode
             case STANDARD:
                 if(direction == Direction.OUTBOUND)
                 {
-                    if(0 <= value && value <= 63)
+                    if(0 <= value && value <= 63 && STANDARD_OUTBOUND_LOOKUP[value] != null)
                     {
-                        for(Opcode outboundOpcode : STANDARD_OUTBOUND_OPCODES)
-                        {
-                            if(outboundOpcode.getCode() == value)
-                            {
-                                return outboundOpcode;
-                            }
-                        }
+                        return STANDARD_OUTBOUND_LOOKUP[value];
                     }
 
                     return OSP_UNKNOWN;
                 }
                 else
                 {
-                    if(0 <= value && value <= 63)
+                    if(0 <= value && value <= 63 && STANDARD_INBOUND_LOOKUP[value] != null)
                     {
-                        for(Opcode inboundOpcode : STANDARD_INBOUND_OPCODES)
-                        {
-                            if(inboundOpcode.getCode() == value)
-                            {
-                                return inboundOpcode;
-                            }
-                        }
+                        return STANDARD_INBOUND_LOOKUP[value];
                     }
 
                     return ISP_UNKNOWN;
@@ -144,6 +144,22 @@ public class TSBKMessageFactory
             return null;
         }
 
+        return createTSBK(direction, dataUnitID, message, nac, timestamp);
+    }
+
+    /**
+     * Creates a TSBK message parser from a deinterleaved and trellis decoded TSBK.
+     *
+     * @param direction of the message
+     * @param dataUnitID TSBK1/2/3
+     * @param message decoded 96-bit TSBK (80 bits plus 16-bit CRC)
+     * @param nac decoded from the NID
+     * @param timestamp for the message
+     * @return TSBK message parser
+     */
+    public static TSBKMessage createTSBK(Direction direction, P25P1DataUnitID dataUnitID,
+                                         CorrectedBinaryMessage message, int nac, long timestamp)
+    {
         Vendor vendor = TSBKMessage.getVendor(message);
         Opcode opcode = TSBKMessage.getOpcode(message, direction, vendor);
 
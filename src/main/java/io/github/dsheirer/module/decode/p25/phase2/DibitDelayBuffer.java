@@ -29,27 +29,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Circular buffer for storing and accessing dibits.
+ * Circular buffer for storing and accessing dibits.  Dibits are stored as two-bit values (see Dibit.getValue()).
  */
 public class DibitDelayBuffer
 {
     private final static Logger mLog = LoggerFactory.getLogger(DibitDelayBuffer.class);
 
-    protected Dibit[] mBuffer;
+    protected byte[] mBuffer;
     protected int mPointer;
 
     /**
-     * Constructs a dibit delay buffer of the specified length
+     * Constructs a dibit delay buffer of the specified length, preloaded with D00_PLUS_1 dibits.
      */
     public DibitDelayBuffer(int length)
     {
-        mBuffer = new Dibit[length];
+        mBuffer = new byte[length];
+    }
 
-        //Preload the buffer to avoid null pointers
-        for(int x = 0; x < length; x++)
-        {
-            mBuffer[x] = Dibit.D00_PLUS_1;
-        }
+    /**
+     * Length of this buffer in dibits
+     */
+    public int getLength()
+    {
+        return mBuffer.length;
     }
 
     /**
@@ -57,14 +59,19 @@ public class DibitDelayBuffer
      */
     public Dibit[] getBuffer()
     {
-        Dibit[] transferBuffer = new Dibit[mBuffer.length];
+        return getBuffer(0, mBuffer.length);
+    }
+
+    public Dibit[] getBuffer(int start, int length)
+    {
+        Dibit[] transferBuffer = new Dibit[length];
 
         int transferBufferPointer = 0;
-        int bufferPointer = mPointer;
+        int bufferPointer = (mPointer + start) % mBuffer.length;
 
         while(transferBufferPointer < transferBuffer.length)
         {
-            transferBuffer[transferBufferPointer++] = mBuffer[bufferPointer++];
+            transferBuffer[transferBufferPointer++] = Dibit.fromValue(mBuffer[bufferPointer++]);
 
             if(bufferPointer >= mBuffer.length)
             {
@@ -75,16 +82,22 @@ public class DibitDelayBuffer
         return transferBuffer;
     }
 
-    public Dibit[] getBuffer(int start, int length)
+    /**
+     * Packs a sequence of up to 32 dibits from the buffer into a long value with the oldest dibit in the most
+     * significant position, for comparison against a sync pattern.
+     *
+     * @param start dibit index where 0 is the oldest dibit and the newest dibit is buffer length - 1
+     * @param dibitLength number of dibits to pack (maximum 32)
+     * @return packed dibit value
+     */
+    public long getValue(int start, int dibitLength)
     {
-        Dibit[] transferBuffer = new Dibit[length];
-
-        int transferBufferPointer = 0;
+        long value = 0;
         int bufferPointer = (mPointer + start) % mBuffer.length;
 
-        while(transferBufferPointer < transferBuffer.length)
+        for(int x = 0; x < dibitLength; x++)
         {
-            transferBuffer[transferBufferPointer++] = mBuffer[bufferPointer++];
+            value = (value << 2) | mBuffer[bufferPointer++];
 
             if(bufferPointer >= mBuffer.length)
             {
@@ -92,7 +105,7 @@ public class DibitDelayBuffer
             }
         }
 
-        return transferBuffer;
+        return value;
     }
 
     /**
@@ -113,9 +126,9 @@ public class DibitDelayBuffer
         {
             while(dibitCount < dibitLength)
             {
-                Dibit dibit = mBuffer[bufferPointer++];
-                message.add(dibit.getBit1());
-                message.add(dibit.getBit2());
+                int dibit = mBuffer[bufferPointer++];
+                message.add((dibit & 0x2) == 0x2);
+                message.add((dibit & 0x1) == 0x1);
                 dibitCount++;
 
                 if(bufferPointer >= mBuffer.length)
@@ -156,10 +169,12 @@ public class DibitDelayBuffer
 
     /**
      * Places the dibit into the internal circular buffer, overwriting the oldest dibit.
+     *
+     * @param dibit value 0 - 3
      */
-    public void put(Dibit dibit)
+    public void put(int dibit)
     {
-        mBuffer[mPointer++] = dibit;
+        mBuffer[mPointer++] = (byte)dibit;
 
         if(mPointer >= mBuffer.length)
         {
@@ -170,10 +185,13 @@ public class DibitDelayBuffer
     /**
      * Places the dibit into the internal circular buffer, overwriting and returning the
      * oldest dibit.
+     *
+     * @param dibit value 0 - 3
+     * @return oldest dibit value
      */
-    public Dibit getAndPut(Dibit dibit)
+    public int getAndPut(int dibit)
     {
-        Dibit toReturn = mBuffer[mPointer];
+        int toReturn = mBuffer[mPointer];
         put(dibit);
         return toReturn;
     }
@@ -187,8 +205,8 @@ public class DibitDelayBuffer
 
         while(counter < mBuffer.length)
         {
-            sb.append(mBuffer[pointer].getBit1() ? "1" : "0");
-            sb.append(mBuffer[pointer++].getBit2() ? "1" : "0");
+            sb.append((mBuffer[pointer] & 0x2) == 0x2 ? "1" : "0");
+            sb.append((mBuffer[pointer++] & 0x1) == 0x1 ? "1" : "0");
 
             if(pointer >= mBuffer.length)
             {
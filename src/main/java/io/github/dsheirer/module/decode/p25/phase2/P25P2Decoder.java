@@ -21,7 +21,7 @@
  */
 package io.github.dsheirer.module.decode.p25.phase2;
 
-import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.DibitBlock;
 import io.github.dsheirer.dsp.symbol.DibitToByteBufferAssembler;
 import io.github.dsheirer.module.decode.Decoder;
 import io.github.dsheirer.module.decode.DecoderType;
@@ -42,7 +42,7 @@ public abstract class P25P2Decoder extends Decoder implements ISourceEventListen
     IReusableComplexBufferListener, Listener<ReusableComplexBuffer>, IReusableByteBufferProvider
 {
     private double mSampleRate;
-    private Broadcaster<Dibit> mDibitBroadcaster = new Broadcaster<>();
+    private Broadcaster<DibitBlock> mDibitBroadcaster = new Broadcaster<>();
     private DibitToByteBufferAssembler mByteBufferAssembler = new DibitToByteBufferAssembler(300);
     private P25P2MessageProcessor mMessageProcessor;
     private Listener<SourceEvent> mSourceEventListener;
@@ -53,13 +53,13 @@ public abstract class P25P2Decoder extends Decoder implements ISourceEventListen
         mSymbolRate = symbolRate;
         mMessageProcessor = new P25P2MessageProcessor();
         mMessageProcessor.setMessageListener(getMessageListener());
-        getDibitBroadcaster().addListener(mByteBufferAssembler);
+        getDibitBroadcaster().addListener(mByteBufferAssembler::receive);
     }
 
     /**
      * Assembler for packaging Dibit stream into reusable byte buffers.
      */
-    protected Broadcaster<Dibit> getDibitBroadcaster()
+    protected Broadcaster<DibitBlock> getDibitBroadcaster()
     {
         return mDibitBroadcaster;
     }
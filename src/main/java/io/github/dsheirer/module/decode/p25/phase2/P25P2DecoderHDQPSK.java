@@ -27,6 +27,7 @@ import io.github.dsheirer.dsp.filter.fir.FIRFilterSpecification;
 import io.github.dsheirer.dsp.filter.fir.complex.ComplexFIRFilter2;
 import io.github.dsheirer.dsp.gain.ComplexFeedForwardGainControl;
 import io.github.dsheirer.dsp.psk.DQPSKGardnerDemodulator;
+import io.github.dsheirer.dsp.psk.DQPSKSyncCorrelator;
 import io.github.dsheirer.dsp.psk.InterpolatingSampleBuffer;
 import io.github.dsheirer.dsp.psk.pll.CostasLoop;
 import io.github.dsheirer.dsp.psk.pll.PLLGain;
@@ -47,8 +48,6 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * P25 Phase 2 HDQPSK 2-timeslot Decoder
@@ -63,7 +62,6 @@ public class P25P2DecoderHDQPSK extends P25P2Decoder implements IdentifierUpdate
     protected CostasLoop mCostasLoop;
     protected P25P2MessageFramer mMessageFramer;
     private ComplexFeedForwardGainControl mAGC = new ComplexFeedForwardGainControl(32);
-    private Map<Double,float[]> mBasebandFilters = new HashMap<>();
     private ComplexFIRFilter2 mBasebandFilter;
     private DecodeConfigP25Phase2 mDecodeConfigP25Phase2;
 
@@ -83,19 +81,20 @@ public class P25P2DecoderHDQPSK extends P25P2Decoder implements IdentifierUpdate
         mCostasLoop.setPLLGain(PLLGain.LEVEL_8);
         mInterpolatingSampleBuffer = new InterpolatingSampleBuffer(getSamplesPerSymbol(), SYMBOL_TIMING_GAIN);
         mQPSKDemodulator = new DQPSKGardnerDemodulator(mCostasLoop, mInterpolatingSampleBuffer);
+        mQPSKDemodulator.setSyncCorrelator(DQPSKSyncCorrelator.createP25Phase2());
 
         if(mMessageFramer != null)
         {
             getDibitBroadcaster().removeListener(mMessageFramer);
         }
 
-        //The Costas Loop receives symbol-inversion correction requests when detected.
+        //Symbol-inversion (PLL phase lock) corrections are applied by the demodulator's sync correlator.
         //The PLL gain monitor receives sync detect/loss signals from the message framer
-        mMessageFramer = new P25P2MessageFramer(mCostasLoop, DecoderType.P25_PHASE2.getProtocol().getBitRate());
+        mMessageFramer = new P25P2MessageFramer(null, DecoderType.P25_PHASE2.getProtocol().getBitRate());
         mMessageFramer.setListener(getMessageProcessor());
         mMessageFramer.setSampleRate(sampleRate);
 
-        mQPSKDemodulator.setSymbolListener(getDibitBroadcaster());
+        mQPSKDemodulator.setDibitBlockListener(getDibitBroadcaster());
         getDibitBroadcaster().addListener(mMessageFramer);
     }
 
@@ -134,38 +133,31 @@ public class P25P2DecoderHDQPSK extends P25P2Decoder implements IdentifierUpdate
      */
     private float[] getBasebandFilter()
     {
-        //Attempt to reuse a cached (ie already-designed) filter if available
-        float[] filter = mBasebandFilters.get(getSampleRate());
+        //Designs are cached process-wide by the filter factory
+        FIRFilterSpecification specification = FIRFilterSpecification.lowPassBuilder()
+            .sampleRate(50000.0)
+            .passBandCutoff(6500)
+            .passBandAmplitude(1.0)
+            .passBandRipple(0.005)
+            .stopBandAmplitude(0.0)
+            .stopBandStart(7200)
+            .stopBandRipple(0.01)
+            .build();
+
+        float[] filter = null;
+
+        try
+        {
+            filter = FilterFactory.getTaps(specification);
+        }
+        catch(FilterDesignException fde)
+        {
+            mLog.error("Couldn't design low pass baseband filter for sample rate: " + getSampleRate());
+        }
 
         if(filter == null)
         {
-            FIRFilterSpecification specification = FIRFilterSpecification.lowPassBuilder()
-                .sampleRate(50000.0)
-                .passBandCutoff(6500)
-                .passBandAmplitude(1.0)
-                .passBandRipple(0.005)
-                .stopBandAmplitude(0.0)
-                .stopBandStart(7200)
-                .stopBandRipple(0.01)
-                .build();
-
-            try
-            {
-                filter = FilterFactory.getTaps(specification);
-            }
-            catch(FilterDesignException fde)
-            {
-                mLog.error("Couldn't design low pass baseband filter for sample rate: " + getSampleRate());
-            }
-
-            if(filter != null)
-            {
-                mBasebandFilters.put(getSampleRate(), filter);
-            }
-            else
-            {
-                throw new IllegalStateException("Couldn't design a C4FM baseband filter for sample rate: " + getSampleRate());
-            }
+            throw new IllegalStateException("Couldn't design a C4FM baseband filter for sample rate: " + getSampleRate());
         }
 
         return filter;
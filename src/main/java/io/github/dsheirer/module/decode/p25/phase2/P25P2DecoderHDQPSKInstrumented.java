@@ -22,6 +22,7 @@
 package io.github.dsheirer.module.decode.p25.phase2;
 
 import io.github.dsheirer.dsp.psk.DQPSKGardnerDemodulatorInstrumented;
+import io.github.dsheirer.dsp.psk.DQPSKSyncCorrelator;
 import io.github.dsheirer.dsp.psk.InterpolatingSampleBufferInstrumented;
 import io.github.dsheirer.dsp.psk.SymbolDecisionData;
 import io.github.dsheirer.sample.Listener;
@@ -91,13 +92,14 @@ public class P25P2DecoderHDQPSKInstrumented extends P25P2DecoderHDQPSK
 
         DQPSKGardnerDemodulatorInstrumented instrumented = new DQPSKGardnerDemodulatorInstrumented(mCostasLoop, instrumentedBuffer, getSampleRate());
         mQPSKDemodulator = instrumented;
+        instrumented.setSyncCorrelator(DQPSKSyncCorrelator.createP25Phase2());
 
         instrumented.setComplexSymbolListener(mComplexSymbolListener);
         instrumented.setPLLErrorListener(mPLLPhaseErrorListener);
         instrumented.setPLLFrequencyListener(mPLLFrequencyListener);
         instrumented.setSymbolDecisionDataListener(mSymbolDecisionDataListener);
         instrumented.setSamplesPerSymbolListener(mSamplesPerSymbolListener);
-        instrumented.setSymbolListener(getDibitBroadcaster());
+        instrumented.setDibitBlockListener(getDibitBroadcaster());
         getDibitBroadcaster().addListener(mMessageFramer);
     }
 
@@ -27,7 +27,7 @@ import io.github.dsheirer.audio.playback.AudioPlaybackManager;
 import io.github.dsheirer.bits.CorrectedBinaryMessage;
 import io.github.dsheirer.controller.channel.Channel;
 import io.github.dsheirer.dsp.psk.pll.IPhaseLockedLoop;
-import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.DibitBlock;
 import io.github.dsheirer.dsp.symbol.ISyncDetectListener;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.MessageInjectionModule;
@@ -56,7 +56,7 @@ import java.util.List;
  * P25 Sync Detector and Message Framer.  Includes capability to detect PLL out-of-phase lock errors
  * and issue phase corrections.
  */
-public class P25P2MessageFramer implements Listener<Dibit>
+public class P25P2MessageFramer implements Listener<DibitBlock>
 {
     private final static Logger mLog = LoggerFactory.getLogger(P25P2MessageFramer.class);
 
@@ -72,6 +72,7 @@ public class P25P2MessageFramer implements Listener<Dibit>
     private double mBitRate;
     private long mCurrentTime = System.currentTimeMillis();
     private ISyncDetectListener mSyncDetectListener;
+    private DibitBlock mByteBufferBlock = new DibitBlock(1600);
 
     public P25P2MessageFramer(IPhaseLockedLoop phaseLockedLoop, int bitRate)
     {
@@ -163,14 +164,14 @@ public class P25P2MessageFramer implements Listener<Dibit>
     }
 
     /**
-     * Primary method for streaming decoded symbol dibits for message framing.
+     * Primary method for streaming decoded symbol dibit blocks for message framing.
      *
-     * @param dibit to process
+     * @param block of dibits to process
      */
     @Override
-    public void receive(Dibit dibit)
+    public void receive(DibitBlock block)
     {
-        mSuperFrameDetector.receive(dibit);
+        mSuperFrameDetector.receive(block);
     }
 
     private void reset(int bitsProcessed)
@@ -195,15 +196,9 @@ public class P25P2MessageFramer implements Listener<Dibit>
         //TODO: set timestamp in super frame detector
         setCurrentTime(buffer.getTimestamp());
 
-        for(byte value : buffer.getBytes())
-        {
-            for(int x = 0; x <= 3; x++)
-            {
-                receive(Dibit.parse(value, x));
-            }
-        }
-
+        mByteBufferBlock.load(buffer.getBytes(), buffer.getTimestamp());
         buffer.decrementUserCount();
+        receive(mByteBufferBlock);
     }
 
     public static void main(String[] args)
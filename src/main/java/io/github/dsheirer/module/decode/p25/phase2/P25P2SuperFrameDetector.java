@@ -23,7 +23,7 @@ package io.github.dsheirer.module.decode.p25.phase2;
 
 import io.github.dsheirer.bits.CorrectedBinaryMessage;
 import io.github.dsheirer.dsp.psk.pll.IPhaseLockedLoop;
-import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.DibitBlock;
 import io.github.dsheirer.dsp.symbol.ISyncDetectListener;
 import io.github.dsheirer.message.IMessage;
 import io.github.dsheirer.message.SyncLossMessage;
@@ -48,7 +48,7 @@ import java.util.List;
  * dibit buffer to detect sync patterns and correctly frame a 1440-bit super-frame fragment
  * containing 4 timeslots and surrounding ISCH messaging.
  */
-public class P25P2SuperFrameDetector implements Listener<Dibit>, ISyncDetectListener
+public class P25P2SuperFrameDetector implements Listener<DibitBlock>, ISyncDetectListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(P25P2SuperFrameDetector.class);
 
@@ -67,6 +67,8 @@ public class P25P2SuperFrameDetector implements Listener<Dibit>, ISyncDetectList
     private DibitDelayBuffer mFragmentBuffer = new DibitDelayBuffer(720);
     private int mDibitsProcessed = 0;
     private boolean mSynchronized = false;
+    private int mSoftSyncCountdown;
+    private int mSoftSyncBitErrors;
 
     public P25P2SuperFrameDetector(IPhaseLockedLoop phaseLockedLoop)
     {
@@ -117,8 +119,41 @@ public class P25P2SuperFrameDetector implements Listener<Dibit>, ISyncDetectList
         return System.currentTimeMillis();
     }
 
+    /**
+     * Processes each of the dibits in the block
+     */
     @Override
-    public void receive(Dibit dibit)
+    public void receive(DibitBlock block)
+    {
+        byte[] dibits = block.getDibits();
+
+        //Sync markers identify sync patterns detected by the demodulator's soft sync correlator
+        int syncMarker = 0;
+        int syncCount = block.getSyncCount();
+
+        for(int x = 0; x < block.size(); x++)
+        {
+            receive(dibits[x]);
+
+            if(syncMarker < syncCount && block.getSyncIndex(syncMarker) == x)
+            {
+                if(!mSynchronized)
+                {
+                    //Check the fragment once the marked sync pattern emerges from the sync detection delay buffer
+                    mSoftSyncCountdown = mSyncDetectionDelayBuffer.getLength();
+                    mSoftSyncBitErrors = block.getSyncBitErrors(syncMarker);
+                }
+
+                syncMarker++;
+            }
+        }
+    }
+
+    /**
+     * Processes a single dibit value
+     * @param dibit value 0 - 3
+     */
+    private void receive(int dibit)
     {
         mDibitsProcessed++;
 
@@ -136,8 +171,13 @@ public class P25P2SuperFrameDetector implements Listener<Dibit>, ISyncDetectList
         else
         {
             //Only feed the sync pattern detector if we're not synchronized
-            Dibit delayed = mSyncDetectionDelayBuffer.getAndPut(dibit);
-            mSyncDetector.receive(delayed);
+            mSyncDetector.receive(mSyncDetectionDelayBuffer.getAndPut(dibit));
+
+            //Check a sync marker when the hard-decision sync detector didn't synchronize
+            if(mSoftSyncCountdown > 0 && --mSoftSyncCountdown == 0 && !mSynchronized)
+            {
+                checkFragmentSync(mSoftSyncBitErrors);
+            }
         }
 
         //Broadcast sync loss message once a second (3000 dibits/6000 bits) when we're not synchronized
@@ -221,13 +261,13 @@ public class P25P2SuperFrameDetector implements Listener<Dibit>, ISyncDetectList
             if(mSynchronized)
             {
                 //If we're synchronized, then this is a counter based trigger and we check both sync locations
-                Dibit[] sync1Dibits = mFragmentBuffer.getBuffer(DIBIT_DELAY_BUFFER_INDEX_SYNC_1, 20);
-                int sync1BitErrorCount = P25P2SyncPattern.getBitErrorCount(sync1Dibits);
+                int sync1BitErrorCount = P25P2SyncPattern.getBitErrorCount(
+                    mFragmentBuffer.getValue(DIBIT_DELAY_BUFFER_INDEX_SYNC_1, 20));
 
                 if(sync1BitErrorCount <= SYNCHRONIZED_SYNC_MATCH_THRESHOLD)
                 {
-                    Dibit[] sync2Dibits = mFragmentBuffer.getBuffer(DIBIT_DELAY_BUFFER_INDEX_SYNC_2, 20);
-                    int sync2BitErrorCount = P25P2SyncPattern.getBitErrorCount(sync2Dibits);
+                    int sync2BitErrorCount = P25P2SyncPattern.getBitErrorCount(
+                        mFragmentBuffer.getValue(DIBIT_DELAY_BUFFER_INDEX_SYNC_2, 20));
 
                     if(sync2BitErrorCount <= SYNCHRONIZED_SYNC_MATCH_THRESHOLD)
                     {
@@ -250,8 +290,8 @@ public class P25P2SuperFrameDetector implements Listener<Dibit>, ISyncDetectList
 
             //If we're not synchronized, this is a sync detector trigger and we only have to check sync 1 for error
             // count because the sync detector has already triggered on sync 2
-            Dibit[] sync1Dibits = mFragmentBuffer.getBuffer(DIBIT_DELAY_BUFFER_INDEX_SYNC_1, 20);
-            int sync1BitErrorCount = P25P2SyncPattern.getBitErrorCount(sync1Dibits);
+            int sync1BitErrorCount = P25P2SyncPattern.getBitErrorCount(
+                mFragmentBuffer.getValue(DIBIT_DELAY_BUFFER_INDEX_SYNC_1, 20));
 
             if(sync1BitErrorCount <= UN_SYNCHRONIZED_SYNC_MATCH_THRESHOLD)
             {
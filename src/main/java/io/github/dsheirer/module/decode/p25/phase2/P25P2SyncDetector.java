@@ -21,19 +21,24 @@
  */
 package io.github.dsheirer.module.decode.p25.phase2;
 
-import io.github.dsheirer.bits.MultiSyncPatternMatcher;
-import io.github.dsheirer.bits.SoftSyncDetector;
-import io.github.dsheirer.bits.SyncDetector;
 import io.github.dsheirer.dsp.psk.pll.IPhaseLockedLoop;
-import io.github.dsheirer.dsp.symbol.Dibit;
 import io.github.dsheirer.dsp.symbol.FrameSync;
 import io.github.dsheirer.dsp.symbol.ISyncDetectListener;
-import io.github.dsheirer.sample.Listener;
 
-public class P25P2SyncDetector implements Listener<Dibit>
+/**
+ * P25 Phase 2 sync pattern detector.  Dibit values are shifted into a 40-bit register and compared against the
+ * sync pattern with a single XOR and bit count for each dibit.
+ */
+public class P25P2SyncDetector
 {
     /* Determines the threshold for sync pattern soft matching */
     private static final int SYNC_MATCH_THRESHOLD = 4;
+    private static final int SYNC_LOSS_THRESHOLD = 1440;
+    private static final long SYNC_MASK = 0xFFFFFFFFFFL;
+    private static final long SYNC_NORMAL = FrameSync.P25_PHASE2_NORMAL.getSync();
+    private static final long SYNC_ERROR_90_CW = FrameSync.P25_PHASE1_ERROR_90_CW.getSync();
+    private static final long SYNC_ERROR_90_CCW = FrameSync.P25_PHASE1_ERROR_90_CCW.getSync();
+    private static final long SYNC_ERROR_180 = FrameSync.P25_PHASE1_ERROR_180.getSync();
 
     /* Costas Loop phase lock error correction values.  A phase lock error of
      * 90 degrees requires a correction of 1/4 of the symbol rate (1200Hz).  An
@@ -43,39 +48,19 @@ public class P25P2SyncDetector implements Listener<Dibit>
     public static final double FREQUENCY_PHASE_CORRECTION_90_DEGREES = 1200.0;
     public static final double FREQUENCY_PHASE_CORRECTION_180_DEGREES = 2400.0;
 
-    private MultiSyncPatternMatcher mMatcher;
-    private SoftSyncDetector mPrimarySyncDetector;
-
-    private PLLPhaseInversionDetector mInversionDetector90CW;
-    private PLLPhaseInversionDetector mInversionDetector90CCW;
-    private PLLPhaseInversionDetector mInversionDetector180;
+    private ISyncDetectListener mSyncDetectListener;
+    private IPhaseLockedLoop mPhaseLockedLoop;
+    private int mBitCount;
+    private long mSymbols;
+    private double mPllCorrection90CW;
+    private double mPllCorrection90CCW;
+    private double mPllCorrection180;
 
     public P25P2SyncDetector(ISyncDetectListener syncDetectListener, IPhaseLockedLoop phaseLockedLoop)
     {
-        //TODO: since we're only going to feed dibits to find next frame, it makes sense to
-        //TODO: update the sync lost parameter to 48 bits ....
-
-        //TODO: only enable the phase inversion detectors when we're in a sync-lost state
-        mMatcher = new MultiSyncPatternMatcher(syncDetectListener, 1440, 40);
-        mPrimarySyncDetector = new SoftSyncDetector(FrameSync.P25_PHASE2_NORMAL.getSync(), SYNC_MATCH_THRESHOLD, syncDetectListener);
-        mMatcher.add(mPrimarySyncDetector);
-
-        if(phaseLockedLoop != null)
-        {
-            //Add additional sync pattern detectors to detect when we get 90/180 degree out of phase sync pattern
-            //detections so that we can apply correction to the phase locked loop
-            mInversionDetector90CW = new PLLPhaseInversionDetector(FrameSync.P25_PHASE1_ERROR_90_CW,
-                phaseLockedLoop, DEFAULT_SAMPLE_RATE, FREQUENCY_PHASE_CORRECTION_90_DEGREES);
-            mMatcher.add(mInversionDetector90CW);
-
-            mInversionDetector90CCW = new PLLPhaseInversionDetector(FrameSync.P25_PHASE1_ERROR_90_CCW,
-                phaseLockedLoop, DEFAULT_SAMPLE_RATE, -FREQUENCY_PHASE_CORRECTION_90_DEGREES);
-            mMatcher.add(mInversionDetector90CCW);
-
-            mInversionDetector180 = new PLLPhaseInversionDetector(FrameSync.P25_PHASE1_ERROR_180,
-                phaseLockedLoop, DEFAULT_SAMPLE_RATE, FREQUENCY_PHASE_CORRECTION_180_DEGREES);
-            mMatcher.add(mInversionDetector180);
-        }
+        mSyncDetectListener = syncDetectListener;
+        mPhaseLockedLoop = phaseLockedLoop;
+        setSampleRate(DEFAULT_SAMPLE_RATE);
     }
 
     /**
@@ -84,85 +69,76 @@ public class P25P2SyncDetector implements Listener<Dibit>
      */
     public int getPrimarySyncMatchErrorCount()
     {
-        return Long.bitCount(mMatcher.getCurrentValue() ^ FrameSync.P25_PHASE1_NORMAL.getSync());
+        return Long.bitCount(mSymbols ^ FrameSync.P25_PHASE1_NORMAL.getSync());
     }
 
-    @Override
-    public void receive(Dibit dibit)
+    /**
+     * Shifts the dibit into the sync register and checks for a sync pattern match.
+     *
+     * @param dibit value 0 - 3
+     */
+    public void receive(int dibit)
     {
-        mMatcher.receive(dibit.getBit1(), dibit.getBit2());
+        mSymbols = ((mSymbols << 2) | dibit) & SYNC_MASK;
+        mBitCount += 2;
+
+        int bitErrors = Long.bitCount(mSymbols ^ SYNC_NORMAL);
+
+        if(bitErrors <= SYNC_MATCH_THRESHOLD)
+        {
+            mBitCount = 0;
+            mSyncDetectListener.syncDetected(bitErrors);
+        }
+        else if(mPhaseLockedLoop != null)
+        {
+            //Detect 90/180 degree out of phase sync patterns and apply correction to the phase locked loop
+            if(mSymbols == SYNC_ERROR_90_CW)
+            {
+                mBitCount = 0;
+                mPhaseLockedLoop.correctInversion(mPllCorrection90CW);
+            }
+            else if(mSymbols == SYNC_ERROR_90_CCW)
+            {
+                mBitCount = 0;
+                mPhaseLockedLoop.correctInversion(mPllCorrection90CCW);
+            }
+            else if(mSymbols == SYNC_ERROR_180)
+            {
+                mBitCount = 0;
+                mPhaseLockedLoop.correctInversion(mPllCorrection180);
+            }
+        }
+
+        if(mBitCount > SYNC_LOSS_THRESHOLD)
+        {
+            mBitCount = 0;
+            mSyncDetectListener.syncLost();
+        }
     }
 
     /**
-     * Updates the incoming sample stream sample rate to allow the PLL phase inversion detectors to
-     * recalculate their internal phase correction values.
+     * Updates the incoming sample stream sample rate to allow the PLL phase inversion corrections to be
+     * recalculated.
+     *
+     * When the costas loop locks with a +/- 90 degree or 180 degree phase error, the slicer will incorrectly apply
+     * the symbol pattern rotated left or right by the phase error.  However, we can detect these rotated sync patterns
+     * and apply immediate phase correction so that message processing can continue.  QPSK +/-90 degree correction is
+     * +/-SYMBOL RATE / 4.0 and 180 degree correction is SYMBOL RATE / 2.0
      *
      * @param sampleRate of the incoming sample stream
      */
     public void setSampleRate(double sampleRate)
     {
-        mInversionDetector180.setSampleRate(sampleRate);
-        mInversionDetector90CW.setSampleRate(sampleRate);
-        mInversionDetector90CCW.setSampleRate(sampleRate);
+        mPllCorrection90CW = getPllCorrection(FREQUENCY_PHASE_CORRECTION_90_DEGREES, sampleRate);
+        mPllCorrection90CCW = getPllCorrection(-FREQUENCY_PHASE_CORRECTION_90_DEGREES, sampleRate);
+        mPllCorrection180 = getPllCorrection(FREQUENCY_PHASE_CORRECTION_180_DEGREES, sampleRate);
     }
 
     /**
-     * Sync pattern detector to listen for costas loop phase lock errors and apply a phase correction to the costas
-     * loop so that we don't miss any messages.
-     *
-     * When the costas loop locks with a +/- 90 degree or 180 degree phase error, the slicer will incorrectly apply
-     * the symbol pattern rotated left or right by the phase error.  However, we can detect these rotated sync patterns
-     * and apply immediate phase correction so that message processing can continue.
+     * Phase locked loop correction value for the frequency correction at the sample rate
      */
-    public class PLLPhaseInversionDetector extends SyncDetector
+    private static double getPllCorrection(double frequencyCorrection, double sampleRate)
     {
-        private IPhaseLockedLoop mPhaseLockedLoop;
-        private double mSampleRate;
-        private double mFrequencyCorrection;
-        private double mPllCorrection;
-
-        /**
-         * Constructs the PLL phase inversion detector.
-         *
-         * @param frameSync pattern to monitor for detecting phase inversion errors
-         * @param phaseLockedLoop to receive phase correction values
-         * @param sampleRate of the incoming sample stream
-         * @param frequencyCorrection to apply to the PLL.  Examples:
-         *      QPSK +/-90 degree correction: +/-SYMBOL RATE / 4.0
-         *      QPSK 180 degree correction: SYMBOL RATE / 2.0
-         */
-        public PLLPhaseInversionDetector(FrameSync frameSync, IPhaseLockedLoop phaseLockedLoop, double sampleRate,
-                                         double frequencyCorrection)
-        {
-            super(frameSync.getSync());
-            mPhaseLockedLoop = phaseLockedLoop;
-            mFrequencyCorrection = frequencyCorrection;
-            setSampleRate(sampleRate);
-
-            setListener(new ISyncDetectListener()
-            {
-                @Override
-                public void syncDetected(int bitErrors)
-                {
-                    mPhaseLockedLoop.correctInversion(mPllCorrection);
-                }
-
-                @Override
-                public void syncLost()
-                {
-                    //no-op
-                }
-            });
-        }
-
-        /**
-         * Sets or adjusts the sample rate so that the phase inversion correction value can be recalculated.
-         * @param sampleRate
-         */
-        public void setSampleRate(double sampleRate)
-        {
-            mSampleRate = sampleRate;
-            mPllCorrection = 2.0 * Math.PI * mFrequencyCorrection / mSampleRate;
-        }
+        return 2.0 * Math.PI * frequencyCorrection / sampleRate;
     }
 }
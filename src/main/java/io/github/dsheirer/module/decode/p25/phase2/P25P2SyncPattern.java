@@ -23,6 +23,7 @@
 package io.github.dsheirer.module.decode.p25.phase2;
 
 import io.github.dsheirer.dsp.symbol.Dibit;
+import io.github.dsheirer.dsp.symbol.FrameSync;
 
 public class P25P2SyncPattern
 {
@@ -61,4 +62,15 @@ public class P25P2SyncPattern
 
         return bitErrorCount;
     }
+
+    /**
+     * Calculates the number of bit errors between the packed 20-dibit (40-bit) value and the sync pattern.
+     *
+     * @param value containing 20 packed dibits with the first dibit in the most significant position
+     * @return bit error count
+     */
+    public static int getBitErrorCount(long value)
+    {
+        return Long.bitCount(value ^ FrameSync.P25_PHASE2_NORMAL.getSync());
+    }
 }
@@ -44,6 +44,8 @@ public enum BER
     B14(">12.5%"),
     UNUSED("UNUSED");
 
+    private static final BER[] VALUES = values();
+
     private String mLabel;
 
     BER(String label)
@@ -61,7 +63,7 @@ public enum BER
     {
         if(0 <= value && value <= 15)
         {
-            return BER.values()[value];
+            return VALUES[value];
         }
 
         return UNUSED;
@@ -44,6 +44,8 @@ public enum RFLevel
     PLUS_24("+24 dBm"),
     PLUS_27("+27 dBm");
 
+    private static final RFLevel[] VALUES = values();
+
     private String mLabel;
 
     RFLevel(String label)
@@ -61,7 +63,7 @@ public enum RFLevel
     {
         if(0 <= value && value <= 15)
         {
-            return RFLevel.values()[value];
+            return VALUES[value];
         }
 
         return UNKNOWN;
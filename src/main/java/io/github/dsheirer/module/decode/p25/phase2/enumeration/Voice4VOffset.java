@@ -37,6 +37,8 @@ public enum Voice4VOffset
     NO_VOICE("NO VOICE FRAMING"),
     UNKNOWN("UNKNOWN");
 
+    private static final Voice4VOffset[] VALUES = values();
+
     private String mLabel;
 
     Voice4VOffset(String label)
@@ -54,7 +56,7 @@ public enum Voice4VOffset
     {
         if(0 <= value && value <= 7)
         {
-            return Voice4VOffset.values()[value];
+            return VALUES[value];
         }
 
         return UNKNOWN;
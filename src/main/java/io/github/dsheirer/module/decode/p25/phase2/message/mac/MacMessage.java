@@ -43,6 +43,7 @@ public class MacMessage extends P25P2Message
     private DataUnitID mDataUnitID;
     private CorrectedBinaryMessage mMessage;
     private MacStructure mMacStructure;
+    private MacPduType mMacPduType;
 
     /**
      * Constructs the message
@@ -99,7 +100,12 @@ public class MacMessage extends P25P2Message
      */
     public MacPduType getMacPduType()
     {
-        return getMacPduTypeFromMessage(getMessage());
+        if(mMacPduType == null)
+        {
+            mMacPduType = getMacPduTypeFromMessage(getMessage());
+        }
+
+        return mMacPduType;
     }
 
     /**
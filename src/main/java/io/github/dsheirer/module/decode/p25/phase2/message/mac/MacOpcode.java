@@ -22,9 +22,6 @@
 
 package io.github.dsheirer.module.decode.p25.phase2.message.mac;
 
-import java.util.Map;
-import java.util.TreeMap;
-
 /**
  * MAC opcode is used with MAC_IDLE, MAC_ACTIVE and MAC_HANGTIME PDU format messages
  */
@@ -103,7 +100,7 @@ public enum MacOpcode
 
     UNKNOWN(-1, "UNKNOWN", -1);
 
-    private static final Map<Integer,MacOpcode> LOOKUP_MAP = new TreeMap<>();
+    private static final MacOpcode[] LOOKUP_TABLE = new MacOpcode[256];
 
     static
     {
@@ -111,7 +108,7 @@ public enum MacOpcode
         {
             if(macOpcode.getValue() != -1)
             {
-                LOOKUP_MAP.put(macOpcode.getValue(), macOpcode);
+                LOOKUP_TABLE[macOpcode.getValue()] = macOpcode;
             }
         }
     }
@@ -159,9 +156,9 @@ public enum MacOpcode
      */
     public static MacOpcode fromValue(int value)
     {
-        if(LOOKUP_MAP.containsKey(value))
+        if(0 <= value && value <= 255 && LOOKUP_TABLE[value] != null)
         {
-            return LOOKUP_MAP.get(value);
+            return LOOKUP_TABLE[value];
         }
 
         if(0 <= value && value <= 63)
@@ -37,6 +37,8 @@ public enum MacPduType
     MAC_7_RESERVED("RESERVED-7"),
     MAC_UNKNOWN("UNKNOWN");
 
+    private static final MacPduType[] VALUES = values();
+
     private String mLabel;
 
     MacPduType(String label)
@@ -54,7 +56,7 @@ public enum MacPduType
     {
         if(0 <= value && value <= 7)
         {
-            return MacPduType.values()[value];
+            return VALUES[value];
         }
 
         return MAC_UNKNOWN;
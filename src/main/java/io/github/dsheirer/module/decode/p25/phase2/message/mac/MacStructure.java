@@ -36,6 +36,7 @@ public abstract class MacStructure
 
     private CorrectedBinaryMessage mMessage;
     private int mOffset;
+    private MacOpcode mMacOpcode;
 
     /**
      * Constructs a MAC structure parser
@@ -101,7 +102,12 @@ public abstract class MacStructure
      */
     public MacOpcode getOpcode()
     {
-        return getOpcode(getMessage(), getOffset());
+        if(mMacOpcode == null)
+        {
+            mMacOpcode = getOpcode(getMessage(), getOffset());
+        }
+
+        return mMacOpcode;
     }
 
     /**
@@ -41,6 +41,8 @@ public class FacchTimeslot extends AbstractSignalingTimeslot
 {
     private final static Logger mLog = LoggerFactory.getLogger(FacchTimeslot.class);
 
+    private static final ReedSolomon_63_35_29 REED_SOLOMON_63_35_29 = new ReedSolomon_63_35_29(13);
+
     private static final int[] INFO_1 = {2,3,4,5,6,7};
     private static final int[] INFO_2 = {8,9,10,11,12,13};
     private static final int[] INFO_3 = {14,15,16,17,18,19};
@@ -205,13 +207,11 @@ public class FacchTimeslot extends AbstractSignalingTimeslot
 //            input[62] = 0; //Shortened
 
             //Reed-Solomon(45,26,20) code protects the SOEMI word.  Maximum correctable errors are: 13 (53 - 26 / 2)
-            ReedSolomon_63_35_29 reedSolomon_63_35_29 = new ReedSolomon_63_35_29(13);
-
             boolean irrecoverableErrors;
 
             try
             {
-                irrecoverableErrors = reedSolomon_63_35_29.decode(input, output);
+                irrecoverableErrors = REED_SOLOMON_63_35_29.decode(input, output);
             }
             catch(Exception e)
             {
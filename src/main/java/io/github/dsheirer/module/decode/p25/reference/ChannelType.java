@@ -33,6 +33,8 @@ public enum ChannelType
     TYPE_5(AccessType.TDMA, 12500, 2, Vocoder.HALF_RATE), //HD8PSK simulcast
     UNKNOWN(AccessType.UNKNOWN, 0, 1, Vocoder.HALF_RATE);
 
+    private static final ChannelType[] VALUES = values();
+
     private AccessType mAccessType;
     private int mBandwidth;
     private int mSlotsPerCarrier;
@@ -82,7 +84,7 @@ public enum ChannelType
     {
         if(0 <= value && value <= 5)
         {
-            return ChannelType.values()[value];
+            return VALUES[value];
         }
 
         mLog.warn("Unrecognized Channel Type Value [" + value + "]");
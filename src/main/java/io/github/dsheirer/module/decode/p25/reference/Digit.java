@@ -21,6 +21,8 @@ public enum Digit
     D14( "PAUSE", "-" ),
     D15( "ESC", "NULL" ),
     UNKNOWN( "?", "?" );
+
+    private static final Digit[] VALUES = values();
     
     private String mValue;
     private String mEscapedValue;
@@ -45,7 +47,7 @@ public enum Digit
     {
         if( 0 <= value && value <= 15 )
         {
-            return values()[ value ];
+            return VALUES[ value ];
         }
         
         return UNKNOWN;
@@ -26,6 +26,8 @@ public enum IPHeaderCompression
 	RFC1144_COMPRESSED( 1, "RFC-1144 COMPRESSED" ),
 	RFC1144_UNCOMPRESSED( 2, "RFC-1144 UNCOMPRESSED" ),
 	UNKNOWN( -1, "UNKNOWN" );
+
+	private static final IPHeaderCompression[] VALUES = values();
 	
 	private int mValue;
 	private String mLabel;
@@ -50,7 +52,7 @@ public enum IPHeaderCompression
 	{
 		if( 0 <= value && value <= 2 )
 		{
-			return values()[ value ];
+			return VALUES[ value ];
 		}
 		
 		return IPHeaderCompression.UNKNOWN;
@@ -6,6 +6,8 @@ public enum MDPConfigurationOption
 	MDP_SLIP( "MDP SLIP", 1 ),
 	MDP_PPP( "MDP PPP", 2 ),
 	UNKNOWN( "UNKNOWN", -1 );
+
+	private static final MDPConfigurationOption[] VALUES = values();
 	
 	private String mLabel;
 	private int mValue;
@@ -30,7 +32,7 @@ public enum MDPConfigurationOption
 	{
 		if( 0 <= value && value <= 2 )
 		{
-			return values()[ value ];
+			return VALUES[ value ];
 		}
 		
 		return UNKNOWN;
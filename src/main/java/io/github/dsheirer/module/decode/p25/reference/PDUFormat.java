@@ -36,6 +36,8 @@ public enum PDUFormat
     F31("F31", 31),
     UNKNOWN("UNKN", -1);
 
+    private static final PDUFormat[] VALUES = values();
+
     private String mLabel;
     private int mValue;
 
@@ -59,7 +61,7 @@ public enum PDUFormat
     {
         if(0 <= value && value <= 31)
         {
-            return values()[value];
+            return VALUES[value];
         }
 
         return UNKNOWN;
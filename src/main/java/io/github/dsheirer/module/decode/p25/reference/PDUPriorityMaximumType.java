@@ -40,6 +40,8 @@ public enum PDUPriorityMaximumType
     PRI_15("EMERGENCY-15"),
     UNKNOWN("UNKNOWN");
 
+    private static final PDUPriorityMaximumType[] VALUES = values();
+
     private String mLabel;
 
     PDUPriorityMaximumType(String label)
@@ -57,7 +59,7 @@ public enum PDUPriorityMaximumType
     {
         if(0 <= value && value <= 15)
         {
-            return PDUPriorityMaximumType.values()[value];
+            return VALUES[value];
         }
 
         return UNKNOWN;
@@ -40,6 +40,8 @@ public enum ReadyTimer
     SECONDS_ALWAYS(86400), //Infinity
     UNKNOWN(0);
 
+    private static final ReadyTimer[] VALUES = values();
+
     private int mSeconds;
 
     ReadyTimer(int seconds)
@@ -56,7 +58,7 @@ public enum ReadyTimer
     {
         if(0 <= value && value <= 15)
         {
-            return ReadyTimer.values()[value];
+            return VALUES[value];
         }
 
         return UNKNOWN;
@@ -16,6 +16,8 @@ public enum RejectReason
 	R11( 11, "IPV4 DYNAMIC ADDRESS POOL EMPTY" ),
 	R12( 12, "IPV4 DYNAMIC ADDRESS NOT SUPPORTED" ),
     UNKNOWN( -1, "UNKNOWN" );
+
+    private static final RejectReason[] VALUES = values();
     
     private int mValue;
     public String mLabel;
@@ -45,7 +47,7 @@ public enum RejectReason
     {
     	if( 0 <= value && value <= 12 )
     	{
-    		return values()[ value ];
+    		return VALUES[ value ];
     	}
     	
         return UNKNOWN;
@@ -7,12 +7,14 @@ public enum Response
 	DENY, 
 	REFUSED,
 	UNKNOWN;
+
+	private static final Response[] VALUES = values();
 	
 	public static Response fromValue( int value )
 	{
 		if( 0 <= value && value <= 4 )
 		{
-			return values()[ value ];
+			return VALUES[ value ];
 		}
 		
 		return UNKNOWN;
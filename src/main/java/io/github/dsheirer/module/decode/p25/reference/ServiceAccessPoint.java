@@ -88,6 +88,8 @@ public enum ServiceAccessPoint
     ENCRYPTED_TRUNKING_CONTROL("ENCRYPTED TRUNKING CONTROL", 63),
     UNKNOWN("UNKN", -1);
 
+    private static final ServiceAccessPoint[] VALUES = values();
+
     private String mLabel;
     private int mValue;
 
@@ -111,7 +113,7 @@ public enum ServiceAccessPoint
     {
         if(0 <= value && value <= 63)
         {
-            return values()[value];
+            return VALUES[value];
         }
 
         return UNKNOWN;
@@ -7,12 +7,14 @@ public enum StackOperation
 	DELETE,
 	READ,
 	UNKNOWN;
+
+	private static final StackOperation[] VALUES = values();
 	
 	public static StackOperation fromValue( int value )
 	{
 		if( 0 <= value && value <= 3 )
 		{
-			return values()[ value ];
+			return VALUES[ value ];
 		}
 		
 		return UNKNOWN;
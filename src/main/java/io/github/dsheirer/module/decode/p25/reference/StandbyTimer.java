@@ -40,6 +40,8 @@ public enum StandbyTimer
     ALWAYS(1000000), //Infinity
     UNKNOWN(0);
 
+    private static final StandbyTimer[] VALUES = values();
+
     private int mSeconds;
 
     StandbyTimer(int seconds)
@@ -56,7 +58,7 @@ public enum StandbyTimer
     {
         if(0 <= value && value <= 15)
         {
-            return StandbyTimer.values()[value];
+            return VALUES[value];
         }
 
         return UNKNOWN;
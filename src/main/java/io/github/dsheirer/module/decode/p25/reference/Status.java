@@ -14,11 +14,13 @@ public enum Status
     //Outbound repeater, inbound channel is idle
     REPEATER_IDLE;
 
+    private static final Status[] VALUES = values();
+
     public Status fromValue(int value)
     {
         if(0 <= value && value <= 3)
         {
-            return values()[value];
+            return VALUES[value];
         }
 
         return UNKNOWN;
@@ -259,6 +259,8 @@ public enum Vendor
 	V254( "VENDORFE", "V_FE", 254),
 	V255( "VENDORFF", "V_FF", 255),
 	VUNK( "UNKNOWN ", "UNKN", -1 );
+
+	private static final Vendor[] VALUES = values();
 	
 	private String mLabel;
 	private String mDescription;
@@ -290,7 +292,7 @@ public enum Vendor
 	{
 		if( 0 <= value && value <= 255 )
 		{
-			return values()[ value ];
+			return VALUES[ value ];
 		}
 		
 		return VUNK;
@@ -68,6 +68,8 @@ public enum VendorLinkControlOpcode
 	RESERVED_3F( "OPCODE_3F", "RESERVED", 63 ),
 	UNKNOWN( "UNKNOWN OPCODE", "UNKNOWN", -1 );
 
+	private static final VendorLinkControlOpcode[] VALUES = values();
+
 	private String mLabel;
 	private String mDescription;
 	private int mCode;
@@ -98,7 +100,7 @@ public enum VendorLinkControlOpcode
 	{
 		if( 0 <= value && value <= 63 )
 		{
-			return values()[ value ];
+			return VALUES[ value ];
 		}
 		
 		return UNKNOWN;
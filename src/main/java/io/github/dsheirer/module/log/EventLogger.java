@@ -19,6 +19,7 @@
 package io.github.dsheirer.module.log;
 
 import io.github.dsheirer.module.Module;
+import io.github.dsheirer.sample.INonCriticalListener;
 import io.github.dsheirer.util.TimeStamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +31,7 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.file.Path;
 
-public abstract class EventLogger extends Module
+public abstract class EventLogger extends Module implements INonCriticalListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(EventLogger.class);
 
@@ -62,7 +63,7 @@ public abstract class EventLogger extends Module
     public abstract String getHeader();
 
     @Override
-    public void start()
+    public synchronized void start()
     {
         if(mLogFile == null)
         {
@@ -92,7 +93,7 @@ public abstract class EventLogger extends Module
         }
     }
 
-    public void stop()
+    public synchronized void stop()
     {
         if(mLogFile != null)
         {
@@ -109,7 +110,7 @@ public abstract class EventLogger extends Module
         }
     }
 
-    protected void write(String eventLogEntry)
+    protected synchronized void write(String eventLogEntry)
     {
         try
         {
@@ -0,0 +1,609 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.playlist;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.xml.JacksonXmlAnnotationIntrospector;
+import io.github.dsheirer.alias.Alias;
+import io.github.dsheirer.audio.broadcast.BroadcastConfiguration;
+import io.github.dsheirer.controller.channel.Channel;
+import io.github.dsheirer.controller.channel.map.ChannelMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary change journal for playlist entities (aliases, channels, channel maps and broadcast
+ * configurations).
+ *
+ * Each entity is assigned a journal key when it is first written and every subsequent change appends a single
+ * record for that entity, so that saving a change to one alias costs one small write instead of re-serializing
+ * the entire playlist.  Deleted and superseded records are discarded when the journal is compacted into a fresh
+ * snapshot.
+ *
+ * File layout:
+ *   header: int magic, short format version, int playlist version
+ *   record: int body length, int CRC-32 of body, body
+ *   body:   byte operation, byte entity type, int key, payload (entity as JSON, or export timestamp)
+ *
+ * Entities are serialized as JSON using the same Jackson XML annotations (property names, polymorphic type ids) as
+ * the XML playlist, which parses several times faster than per-entity XML documents and also supports the
+ * polymorphic broadcast configurations that can't be written as standalone XML root elements.
+ *
+ * Loading is a two pass process: the journal is first replayed as an index of the latest record offset for each live
+ * key, skipping superseded and deleted records without deserializing them, and then the latest record of every live
+ * key is eagerly deserialized (in parallel) to build the complete playlist.  A torn record at the end of the file
+ * (e.g. power loss during a write) ends the replay and is truncated on the next append.
+ */
+public class PlaylistJournal
+{
+    private final static Logger mLog = LoggerFactory.getLogger(PlaylistJournal.class);
+
+    private static final int MAGIC = 0x53444A4C;
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 10;
+    private static final int RECORD_PREFIX_LENGTH = 8;
+    private static final int BODY_PREFIX_LENGTH = 6;
+
+    private static final byte OPERATION_PUT = 1;
+    private static final byte OPERATION_DELETE = 2;
+    private static final byte OPERATION_EXPORT = 3;
+
+    //Compaction is requested once superseded/deleted records outnumber live records by this factor
+    private static final int COMPACTION_RATIO = 2;
+    private static final int COMPACTION_MINIMUM_RECORDS = 1024;
+
+    private Path mPath;
+    private FileChannel mFileChannel;
+    private ObjectMapper mObjectMapper;
+    private Map<Object,Integer> mKeys = new IdentityHashMap<>();
+    private int mNextKey = 1;
+    private int mRecordCount;
+    private long mValidLength;
+    private long mExportTimestamp;
+
+    /**
+     * Constructs a journal backed by the file at the specified path.  The file is not accessed until the journal
+     * is loaded or written.
+     */
+    public PlaylistJournal(Path path)
+    {
+        mPath = path;
+
+        mObjectMapper = new ObjectMapper();
+        mObjectMapper.setAnnotationIntrospector(new JacksonXmlAnnotationIntrospector(false));
+    }
+
+    /**
+     * Journal file path
+     */
+    public Path getPath()
+    {
+        return mPath;
+    }
+
+    /**
+     * Indicates if the journal file exists
+     */
+    public boolean exists()
+    {
+        return Files.exists(mPath);
+    }
+
+    /**
+     * Last modified timestamp (milliseconds) of the XML playlist export that corresponds to the contents of this
+     * journal, or 0 if the journal has not been exported.  Used to detect when the XML playlist has been replaced
+     * or edited outside of the application and should be imported.
+     */
+    public synchronized long getExportTimestamp()
+    {
+        return mExportTimestamp;
+    }
+
+    /**
+     * Number of live entities tracked by this journal
+     */
+    public synchronized int getEntityCount()
+    {
+        return mKeys.size();
+    }
+
+    /**
+     * Indicates if the journal holds enough superseded or deleted records that it should be compacted.
+     */
+    public synchronized boolean isCompactionRequired()
+    {
+        return mRecordCount > COMPACTION_MINIMUM_RECORDS && mRecordCount > (mKeys.size() * COMPACTION_RATIO);
+    }
+
+    /**
+     * Loads the journal contents into a playlist.
+     *
+     * @return playlist or null if the journal file does not exist or is not a valid journal
+     * @throws IOException if there is an error reading the journal
+     */
+    public synchronized PlaylistV2 load() throws IOException
+    {
+        close();
+        mKeys.clear();
+        mNextKey = 1;
+        mRecordCount = 0;
+        mExportTimestamp = 0;
+
+        if(!exists())
+        {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(mPath));
+
+        if(buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC)
+        {
+            mLog.warn("Ignoring playlist journal with invalid header [" + mPath.toString() + "]");
+            return null;
+        }
+
+        short formatVersion = buffer.getShort();
+
+        if(formatVersion != FORMAT_VERSION)
+        {
+            mLog.warn("Ignoring playlist journal with unsupported format version [" + formatVersion + "]");
+            return null;
+        }
+
+        int playlistVersion = buffer.getInt();
+
+        //Replay the journal as an index of the latest record offset for each live key
+        Map<Integer,Integer> latest = new TreeMap<>();
+        CRC32 crc = new CRC32();
+
+        while(buffer.remaining() >= RECORD_PREFIX_LENGTH)
+        {
+            int recordOffset = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+
+            if(length < BODY_PREFIX_LENGTH || length > buffer.remaining())
+            {
+                buffer.position(recordOffset);
+                break;
+            }
+
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+
+            if((int)crc.getValue() != checksum)
+            {
+                buffer.position(recordOffset);
+                break;
+            }
+
+            int bodyOffset = buffer.position();
+            byte operation = buffer.get();
+            buffer.get();
+            int key = buffer.getInt();
+
+            switch(operation)
+            {
+                case OPERATION_PUT:
+                    latest.put(key, recordOffset);
+                    break;
+                case OPERATION_DELETE:
+                    latest.remove(key);
+                    break;
+                case OPERATION_EXPORT:
+                    mExportTimestamp = buffer.getLong();
+                    break;
+                default:
+                    mLog.warn("Ignoring unrecognized playlist journal operation [" + operation + "]");
+            }
+
+            mNextKey = Math.max(mNextKey, key + 1);
+            mRecordCount++;
+            buffer.position(bodyOffset + length);
+        }
+
+        mValidLength = buffer.position();
+
+        if(mValidLength < buffer.limit())
+        {
+            mLog.warn("Playlist journal has an incomplete record at offset [" + mValidLength + "] - discarding [" +
+                (buffer.limit() - mValidLength) + "] trailing bytes");
+        }
+
+        //Deserialize only the latest record for each live key, in key (ie creation) order
+        byte[] bytes = buffer.array();
+        List<Integer> offsets = new ArrayList<>(latest.values());
+        List<Object> entities;
+
+        try
+        {
+            entities = offsets.parallelStream().map(offset -> decode(bytes, offset)).collect(Collectors.toList());
+        }
+        catch(UncheckedIOException uioe)
+        {
+            throw uioe.getCause();
+        }
+
+        PlaylistV2 playlist = new PlaylistV2();
+        playlist.setVersion(playlistVersion);
+
+        int index = 0;
+
+        for(Integer key : latest.keySet())
+        {
+            Object entity = entities.get(index++);
+            mKeys.put(entity, key);
+
+            if(entity instanceof Alias)
+            {
+                playlist.getAliases().add((Alias)entity);
+            }
+            else if(entity instanceof Channel)
+            {
+                playlist.getChannels().add((Channel)entity);
+            }
+            else if(entity instanceof ChannelMap)
+            {
+                playlist.getChannelMaps().add((ChannelMap)entity);
+            }
+            else if(entity instanceof BroadcastConfiguration)
+            {
+                playlist.getBroadcastConfigurations().add((BroadcastConfiguration)entity);
+            }
+        }
+
+        return playlist;
+    }
+
+    /**
+     * Deserializes the PUT record at the specified offset
+     */
+    private Object decode(byte[] bytes, int recordOffset)
+    {
+        int length = ByteBuffer.wrap(bytes, recordOffset, RECORD_PREFIX_LENGTH).getInt();
+        int bodyOffset = recordOffset + RECORD_PREFIX_LENGTH;
+        EntityType type = EntityType.fromValue(bytes[bodyOffset + 1]);
+
+        try
+        {
+            return getReader(type).readValue(bytes, bodyOffset + BODY_PREFIX_LENGTH, length - BODY_PREFIX_LENGTH);
+        }
+        catch(IOException ioe)
+        {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Appends a record for each of the changed entities.
+     *
+     * @param changes map of entity to a boolean flag that is true if the entity was added or changed, or false if
+     * the entity was deleted
+     * @throws IOException if there is an error writing to the journal
+     */
+    public synchronized void append(Map<Object,Boolean> changes) throws IOException
+    {
+        List<ByteBuffer> records = new ArrayList<>();
+
+        for(Map.Entry<Object,Boolean> entry : changes.entrySet())
+        {
+            Object entity = entry.getKey();
+            EntityType type = EntityType.fromEntity(entity);
+
+            if(type == null)
+            {
+                continue;
+            }
+
+            if(entry.getValue())
+            {
+                Integer key = mKeys.get(entity);
+
+                if(key == null)
+                {
+                    key = mNextKey++;
+                    mKeys.put(entity, key);
+                }
+
+                records.add(createRecord(OPERATION_PUT, type, key, getWriter(type).writeValueAsBytes(entity)));
+            }
+            else
+            {
+                Integer key = mKeys.remove(entity);
+
+                if(key != null)
+                {
+                    records.add(createRecord(OPERATION_DELETE, type, key, new byte[0]));
+                }
+            }
+        }
+
+        if(!records.isEmpty())
+        {
+            FileChannel channel = getFileChannel();
+            channel.position(mValidLength);
+            write(channel, records);
+            channel.force(false);
+            mValidLength = channel.position();
+            mRecordCount += records.size();
+        }
+    }
+
+    /**
+     * Rewrites the journal as a snapshot containing only the entities in the playlist.  The snapshot is written
+     * to a temporary file and moved over the existing journal so that an interrupted compaction leaves the
+     * previous journal intact.
+     *
+     * @param playlist containing the current set of entities
+     * @param exportTimestamp of the XML playlist file that corresponds to this playlist, or 0
+     * @throws IOException if there is an error writing the journal
+     */
+    public synchronized void compact(PlaylistV2 playlist, long exportTimestamp) throws IOException
+    {
+        close();
+
+        Map<Object,Integer> keys = new IdentityHashMap<>();
+        List<Object> entities = new ArrayList<>();
+        entities.addAll(playlist.getAliases());
+        entities.addAll(playlist.getBroadcastConfigurations());
+        entities.addAll(playlist.getChannelMaps());
+        entities.addAll(playlist.getChannels());
+
+        List<ByteBuffer> records = new ArrayList<>();
+        int nextKey = 1;
+
+        for(Object entity : entities)
+        {
+            EntityType type = EntityType.fromEntity(entity);
+
+            if(type != null && !keys.containsKey(entity))
+            {
+                int key = nextKey++;
+                keys.put(entity, key);
+                records.add(createRecord(OPERATION_PUT, type, key, getWriter(type).writeValueAsBytes(entity)));
+            }
+        }
+
+        if(exportTimestamp > 0)
+        {
+            records.add(createExportRecord(exportTimestamp));
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC).putShort(FORMAT_VERSION).putInt(playlist.getVersion()).flip();
+        records.add(0, header);
+
+        Path temp = Paths.get(mPath.toString() + ".tmp");
+
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            write(channel, records);
+            channel.force(true);
+        }
+
+        try
+        {
+            Files.move(temp, mPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch(AtomicMoveNotSupportedException amnse)
+        {
+            Files.move(temp, mPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        mKeys = keys;
+        mNextKey = nextKey;
+        mRecordCount = records.size() - 1;
+        mValidLength = Files.size(mPath);
+        mExportTimestamp = exportTimestamp;
+    }
+
+    /**
+     * Records the last modified timestamp of an XML export of the playlist that matches the journal contents.
+     */
+    public synchronized void recordExport(long exportTimestamp) throws IOException
+    {
+        List<ByteBuffer> records = new ArrayList<>();
+        records.add(createExportRecord(exportTimestamp));
+
+        FileChannel channel = getFileChannel();
+        channel.position(mValidLength);
+        write(channel, records);
+        channel.force(false);
+        mValidLength = channel.position();
+        mRecordCount++;
+        mExportTimestamp = exportTimestamp;
+    }
+
+    /**
+     * Closes the journal file.  The journal is reopened automatically on the next write.
+     */
+    public synchronized void close()
+    {
+        if(mFileChannel != null)
+        {
+            try
+            {
+                mFileChannel.close();
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error closing playlist journal [" + mPath.toString() + "]", ioe);
+            }
+
+            mFileChannel = null;
+        }
+    }
+
+    /**
+     * Opens the journal for appending, truncating any incomplete record left at the end of the file.
+     */
+    private FileChannel getFileChannel() throws IOException
+    {
+        if(mFileChannel == null)
+        {
+            if(!exists())
+            {
+                throw new IOException("Playlist journal does not exist - compaction is required before appending");
+            }
+
+            mFileChannel = FileChannel.open(mPath, StandardOpenOption.WRITE);
+
+            if(mFileChannel.size() > mValidLength)
+            {
+                mFileChannel.truncate(mValidLength);
+            }
+        }
+
+        return mFileChannel;
+    }
+
+    private static void write(FileChannel channel, List<ByteBuffer> buffers) throws IOException
+    {
+        for(ByteBuffer buffer : buffers)
+        {
+            while(buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static ByteBuffer createRecord(byte operation, EntityType type, int key, byte[] payload)
+    {
+        int length = BODY_PREFIX_LENGTH + payload.length;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_PREFIX_LENGTH + length);
+        buffer.putInt(length);
+        buffer.putInt(0);
+        buffer.put(operation);
+        buffer.put(type != null ? type.getValue() : 0);
+        buffer.putInt(key);
+        buffer.put(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_PREFIX_LENGTH, length);
+        buffer.putInt(4, (int)crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer createExportRecord(long exportTimestamp)
+    {
+        ByteBuffer payload = ByteBuffer.allocate(8);
+        payload.putLong(exportTimestamp);
+        return createRecord(OPERATION_EXPORT, null, 0, payload.array());
+    }
+
+    private ObjectWriter getWriter(EntityType type)
+    {
+        return mObjectMapper.writerFor(type.getEntityClass());
+    }
+
+    private ObjectReader getReader(EntityType type)
+    {
+        return mObjectMapper.readerFor(type.getEntityClass());
+    }
+
+    /**
+     * Playlist entity types stored in the journal
+     */
+    public enum EntityType
+    {
+        ALIAS((byte)1, Alias.class),
+        BROADCAST_CONFIGURATION((byte)2, BroadcastConfiguration.class),
+        CHANNEL_MAP((byte)3, ChannelMap.class),
+        CHANNEL((byte)4, Channel.class);
+
+        private byte mValue;
+        private Class<?> mEntityClass;
+
+        EntityType(byte value, Class<?> entityClass)
+        {
+            mValue = value;
+            mEntityClass = entityClass;
+        }
+
+        public byte getValue()
+        {
+            return mValue;
+        }
+
+        public Class<?> getEntityClass()
+        {
+            return mEntityClass;
+        }
+
+        /**
+         * Lookup the entity type from the journal value
+         * @throws IllegalArgumentException for an unrecognized value
+         */
+        public static EntityType fromValue(byte value)
+        {
+            for(EntityType type : values())
+            {
+                if(type.getValue() == value)
+                {
+                    return type;
+                }
+            }
+
+            throw new IllegalArgumentException("Unrecognized playlist journal entity type [" + value + "]");
+        }
+
+        /**
+         * Lookup the entity type for the playlist entity
+         * @return type or null if the object is not a playlist entity
+         */
+        public static EntityType fromEntity(Object entity)
+        {
+            for(EntityType type : values())
+            {
+                if(type.getEntityClass().isInstance(entity))
+                {
+                    return type;
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import io.github.dsheirer.alias.Alias;
 import io.github.dsheirer.alias.AliasEvent;
 import io.github.dsheirer.alias.AliasModel;
 import io.github.dsheirer.audio.broadcast.BroadcastEvent;
@@ -36,6 +37,7 @@ import io.github.dsheirer.controller.channel.map.ChannelMapEvent;
 import io.github.dsheirer.controller.channel.map.ChannelMapModel;
 import io.github.dsheirer.preference.UserPreferences;
 import io.github.dsheirer.preference.playlist.PlaylistPreference;
+import io.github.dsheirer.properties.SystemProperties;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
@@ -45,7 +47,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -55,6 +60,12 @@ public class PlaylistManager implements Listener<ChannelEvent>
 
     public static final int PLAYLIST_CURRENT_VERSION = 4;
 
+    /**
+     * System property to enable (default) or disable the binary playlist change journal.  When disabled, the
+     * complete XML playlist is rewritten after each change.
+     */
+    public static final String PROPERTY_PLAYLIST_JOURNAL_ENABLED = "playlist.journal.enabled";
+
     private AliasModel mAliasModel;
     private BroadcastModel mBroadcastModel;
     private ChannelModel mChannelModel;
@@ -62,13 +73,21 @@ public class PlaylistManager implements Listener<ChannelEvent>
     private UserPreferences mUserPreferences;
     private AtomicBoolean mPlaylistSavePending = new AtomicBoolean();
     private boolean mPlaylistLoading = false;
+    private PlaylistJournal mPlaylistJournal;
+    private Map<Object,Boolean> mPendingChanges = new IdentityHashMap<>();
+    private boolean mCompactionRequested = false;
+    private boolean mExportRequired = false;
+    private boolean mShutdown = false;
 
     /**
      * Playlist manager - manages all channel configurations, channel maps, and
      * alias lists and handles loading or persisting to a playlist.xml file
      *
      * Monitors playlist changes to automatically save configuration changes
-     * after they occur.
+     * after they occur.  By default, changes are appended to a binary playlist journal
+     * (see PlaylistJournal) and the XML playlist file is only rewritten on shutdown.
+     * An XML playlist that was replaced or edited while the application was not running
+     * is detected and imported on startup.
      *
      * @param channelModel
      */
@@ -81,6 +100,11 @@ public class PlaylistManager implements Listener<ChannelEvent>
         mChannelMapModel = channelMapModel;
         mUserPreferences = userPreferences;
 
+        if(SystemProperties.getInstance().get(PROPERTY_PLAYLIST_JOURNAL_ENABLED, true))
+        {
+            mPlaylistJournal = new PlaylistJournal(mUserPreferences.getPlaylistPreference().getPlaylistJournal());
+        }
+
         //Register for alias, channel and channel map events so that we can
         //save the playlist when there are any changes
         mChannelModel.addListener(this);
@@ -91,7 +115,10 @@ public class PlaylistManager implements Listener<ChannelEvent>
             public void receive(AliasEvent t)
             {
                 //Save the playlist for all alias events
-                schedulePlaylistSave();
+                for(Alias alias : t.getAliases())
+                {
+                    schedulePlaylistSave(alias, t.getEvent() != AliasEvent.Event.DELETE);
+                }
             }
         });
 
@@ -101,7 +128,7 @@ public class PlaylistManager implements Listener<ChannelEvent>
             public void receive(ChannelMapEvent t)
             {
                 //Save the playlist for all channel map events
-                schedulePlaylistSave();
+                schedulePlaylistSave(t.getChannelMap(), t.getEvent() != ChannelMapEvent.Event.DELETE);
             }
         });
 
@@ -114,8 +141,10 @@ public class PlaylistManager implements Listener<ChannelEvent>
                 {
                     case CONFIGURATION_ADD:
                     case CONFIGURATION_CHANGE:
+                        schedulePlaylistSave(broadcastEvent.getBroadcastConfiguration(), true);
+                        break;
                     case CONFIGURATION_DELETE:
-                        schedulePlaylistSave();
+                        schedulePlaylistSave(broadcastEvent.getBroadcastConfiguration(), false);
                         break;
                     case BROADCASTER_ADD:
                     case BROADCASTER_QUEUE_CHANGE:
@@ -141,6 +170,27 @@ public class PlaylistManager implements Listener<ChannelEvent>
         transferPlaylistToModels(playlist);
     }
 
+    /**
+     * Saves any pending playlist changes and updates the XML playlist file if it is out of date with respect to
+     * the playlist journal.  Invoke on application shutdown.
+     */
+    public synchronized void shutdown()
+    {
+        if(mPlaylistJournal != null && !mShutdown)
+        {
+            saveJournal();
+
+            if(mExportRequired)
+            {
+                saveXml(getPlaylist());
+            }
+
+            mPlaylistJournal.close();
+        }
+
+        mShutdown = true;
+    }
+
     /**
      * Transfers data from persisted playlist into system models
      */
@@ -176,20 +226,20 @@ public class PlaylistManager implements Listener<ChannelEvent>
             {
                 case NOTIFICATION_ADD:
                 case NOTIFICATION_CONFIGURATION_CHANGE:
+                    schedulePlaylistSave(event.getChannel(), true);
+                    break;
                 case NOTIFICATION_DELETE:
-                    schedulePlaylistSave();
+                    schedulePlaylistSave(event.getChannel(), false);
                     break;
             }
         }
     }
 
     /**
-     * Saves the current playlist
+     * Creates a playlist from the current contents of the alias, broadcast, channel and channel map models.
      */
-    private void save()
+    private PlaylistV2 getPlaylist()
     {
-        PlaylistPreference files = mUserPreferences.getPlaylistPreference();
-
         PlaylistV2 playlist = new PlaylistV2();
 
         playlist.setAliases(mAliasModel.getAliases());
@@ -198,6 +248,107 @@ public class PlaylistManager implements Listener<ChannelEvent>
         playlist.setChannelMaps(mChannelMapModel.getChannelMaps());
         playlist.setVersion(PLAYLIST_CURRENT_VERSION);
 
+        return playlist;
+    }
+
+    /**
+     * Saves the current playlist
+     */
+    private synchronized void save()
+    {
+        if(mShutdown)
+        {
+            return;
+        }
+
+        if(mPlaylistJournal != null)
+        {
+            saveJournal();
+        }
+        else
+        {
+            saveXml(getPlaylist());
+        }
+    }
+
+    /**
+     * Appends pending changes to the playlist journal, or compacts the journal when requested or when the journal
+     * has accumulated enough superseded records.
+     */
+    private void saveJournal()
+    {
+        Map<Object,Boolean> changes;
+        boolean compact;
+
+        synchronized(mPendingChanges)
+        {
+            changes = new IdentityHashMap<>(mPendingChanges);
+            mPendingChanges.clear();
+            compact = mCompactionRequested;
+            mCompactionRequested = false;
+        }
+
+        try
+        {
+            if(!changes.isEmpty())
+            {
+                mExportRequired = true;
+            }
+
+            if(compact || !mPlaylistJournal.exists())
+            {
+                compactJournal(getPlaylist(), mPlaylistJournal.getExportTimestamp());
+            }
+            else if(!changes.isEmpty())
+            {
+                long start = System.nanoTime();
+                mPlaylistJournal.append(changes);
+                mLog.info("Playlist journal saved [" + changes.size() + "] changes in [" + elapsedMillis(start) +
+                    " ms]");
+
+                if(mPlaylistJournal.isCompactionRequired())
+                {
+                    compactJournal(getPlaylist(), mPlaylistJournal.getExportTimestamp());
+                }
+            }
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("IO error while saving the playlist journal [" + mPlaylistJournal.getPath().toString() +
+                "] - journal will be compacted on next save", ioe);
+
+            synchronized(mPendingChanges)
+            {
+                mCompactionRequested = true;
+            }
+
+            schedulePlaylistSave();
+        }
+    }
+
+    /**
+     * Rewrites the playlist journal as a snapshot of the playlist
+     *
+     * @param playlist to write
+     * @param exportTimestamp of the XML playlist file that matches the playlist, or 0
+     */
+    private void compactJournal(PlaylistV2 playlist, long exportTimestamp) throws IOException
+    {
+        long start = System.nanoTime();
+        mPlaylistJournal.compact(playlist, exportTimestamp);
+        mLog.info("Playlist journal compacted to [" + mPlaylistJournal.getEntityCount() + "] entries in [" +
+            elapsedMillis(start) + " ms]");
+    }
+
+    /**
+     * Writes the playlist to the current XML playlist file
+     */
+    private void saveXml(PlaylistV2 playlist)
+    {
+        PlaylistPreference files = mUserPreferences.getPlaylistPreference();
+
+        long start = System.nanoTime();
+
         //Create a backup copy of the current playlist
         if(Files.exists(files.getPlaylist()))
         {
@@ -242,14 +393,32 @@ public class PlaylistManager implements Listener<ChannelEvent>
             }
 
             mUserPreferences.getPlaylistPreference().setPlaylistLastAccessedPath(files.getPlaylist());
+
+            mLog.info("Playlist saved [" + files.getPlaylist().toString() + "] in [" + elapsedMillis(start) + " ms]");
         }
         catch(IOException ioe)
         {
             mLog.error("IO error while writing the playlist to a file [" + files.getPlaylist().toString() + "]", ioe);
+            return;
         }
         catch(Exception e)
         {
             mLog.error("Error while saving playlist [" + files.getPlaylist().toString() + "]", e);
+            return;
+        }
+
+        //Record the export so that the XML playlist isn't re-imported on the next startup
+        if(mPlaylistJournal != null)
+        {
+            try
+            {
+                mPlaylistJournal.recordExport(Files.getLastModifiedTime(files.getPlaylist()).toMillis());
+                mExportRequired = false;
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error recording playlist export in the playlist journal", ioe);
+            }
         }
     }
 
@@ -288,6 +457,20 @@ public class PlaylistManager implements Listener<ChannelEvent>
             }
         }
 
+        if(mPlaylistJournal != null)
+        {
+            playlist = loadJournal(files.getPlaylist());
+
+            if(playlist != null)
+            {
+                return playlist;
+            }
+        }
+
+        long start = System.nanoTime();
+        Path loaded = null;
+        boolean updated = false;
+
         if(Files.exists(files.getPlaylist()))
         {
             mLog.info("Loading playlist file [" + files.getPlaylist().toString() + "]");
@@ -299,8 +482,10 @@ public class PlaylistManager implements Listener<ChannelEvent>
             try(InputStream in = Files.newInputStream(files.getPlaylist()))
             {
                 playlist = objectMapper.readValue(in, PlaylistV2.class);
+                loaded = files.getPlaylist();
+                updated = PlaylistUpdater.update(playlist);
 
-                if(PlaylistUpdater.update(playlist))
+                if(updated)
                 {
                     schedulePlaylistSave();
                 }
@@ -323,7 +508,9 @@ public class PlaylistManager implements Listener<ChannelEvent>
                 playlist = objectMapper.readValue(in, PlaylistV2.class);
 
                 //Perform any updates that may be needed for the playist.
-                if(PlaylistUpdater.update(playlist))
+                updated = PlaylistUpdater.update(playlist);
+
+                if(updated)
                 {
                     mLog.info("Legacy playlist was updated to version [" + PLAYLIST_CURRENT_VERSION + "] - saving");
                     schedulePlaylistSave();
@@ -339,15 +526,126 @@ public class PlaylistManager implements Listener<ChannelEvent>
             mLog.info("PlaylistManager - playlist not found at [" + files.getPlaylist().toString() + "] - creating new (empty) playlist");
         }
 
-        if(playlist == null)
+        if(playlist != null)
+        {
+            mLog.info("Playlist loaded in [" + elapsedMillis(start) + " ms]");
+        }
+        else
         {
             playlist = new PlaylistV2();
             schedulePlaylistSave();
         }
 
+        //Import the XML playlist into a new journal snapshot.  The journal keys the playlist entities by instance,
+        //so the snapshot is written from the same instances that are transferred to the models.
+        if(mPlaylistJournal != null)
+        {
+            try
+            {
+                long exportTimestamp = 0;
+
+                //Only link the journal to the current playlist file, not the legacy file, and only when the
+                //playlist was not updated by the playlist updater
+                if(loaded != null && !updated)
+                {
+                    exportTimestamp = Files.getLastModifiedTime(loaded).toMillis();
+                }
+                else
+                {
+                    mExportRequired = true;
+                }
+
+                //Any updates have been applied above, so the snapshot is written at the current version
+                playlist.setVersion(PLAYLIST_CURRENT_VERSION);
+                compactJournal(playlist, exportTimestamp);
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("IO error while importing playlist into the playlist journal [" +
+                    mPlaylistJournal.getPath().toString() + "]", ioe);
+            }
+        }
+
         return playlist;
     }
 
+    /**
+     * Loads the playlist from the playlist journal
+     *
+     * @param xmlPlaylist path to the XML playlist file that the journal was exported to
+     * @return playlist or null if the journal doesn't exist, can't be read, or the XML playlist file was modified
+     * after the journal was last exported and should be imported instead.
+     */
+    private PlaylistV2 loadJournal(Path xmlPlaylist)
+    {
+        if(!mPlaylistJournal.exists())
+        {
+            return null;
+        }
+
+        long start = System.nanoTime();
+
+        try
+        {
+            PlaylistV2 playlist = mPlaylistJournal.load();
+
+            if(playlist == null)
+            {
+                return null;
+            }
+
+            if(Files.exists(xmlPlaylist) &&
+                Files.getLastModifiedTime(xmlPlaylist).toMillis() != mPlaylistJournal.getExportTimestamp())
+            {
+                mLog.info("Playlist file [" + xmlPlaylist.toString() + "] was modified outside of the playlist " +
+                    "journal - importing playlist file");
+                return null;
+            }
+
+            mLog.info("Loaded playlist journal [" + mPlaylistJournal.getPath().toString() + "] with [" +
+                mPlaylistJournal.getEntityCount() + "] entries in [" + elapsedMillis(start) + " ms]");
+
+            if(PlaylistUpdater.update(playlist))
+            {
+                synchronized(mPendingChanges)
+                {
+                    mCompactionRequested = true;
+                }
+
+                mExportRequired = true;
+                schedulePlaylistSave();
+            }
+
+            return playlist;
+        }
+        catch(Exception e)
+        {
+            mLog.error("Error while reading playlist journal [" + mPlaylistJournal.getPath().toString() +
+                "] - loading playlist file", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Records a change to a playlist entity and schedules a playlist save task.
+     *
+     * @param entity that was added, changed or deleted
+     * @param update true if the entity was added or changed, or false if it was deleted
+     */
+    private void schedulePlaylistSave(Object entity, boolean update)
+    {
+        if(!mPlaylistLoading && entity != null)
+        {
+            synchronized(mPendingChanges)
+            {
+                mPendingChanges.put(entity, update);
+            }
+
+            schedulePlaylistSave();
+        }
+    }
+
     /**
      * Schedules a playlist save task.  Subsequent calls to this method will be ignored until the save event occurs,
      * thus limiting repetitive playlist saving to a minimum.
@@ -363,6 +661,14 @@ public class PlaylistManager implements Listener<ChannelEvent>
         }
     }
 
+    /**
+     * Elapsed milliseconds since the start nanosecond timestamp
+     */
+    private static long elapsedMillis(long start)
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
     /**
      * Resets the playlist save pending flag to false and proceeds to save the playlist.
      */
@@ -371,9 +677,9 @@ public class PlaylistManager implements Listener<ChannelEvent>
         @Override
         public void run()
         {
-            save();
-
             mPlaylistSavePending.set(false);
+
+            save();
         }
     }
 }
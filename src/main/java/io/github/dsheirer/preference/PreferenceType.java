@@ -31,6 +31,7 @@ public enum PreferenceType
     DIRECTORY,
     IDENTIFIER,
     JMBE_LIBRARY,
+    MAP,
     MULTI_FREQUENCY,
     RADIO_REFERENCE,
     TUNER;
@@ -27,6 +27,7 @@ import io.github.dsheirer.preference.decoder.JmbeLibraryPreference;
 import io.github.dsheirer.preference.directory.DirectoryPreference;
 import io.github.dsheirer.preference.event.DecodeEventPreference;
 import io.github.dsheirer.preference.identifier.TalkgroupFormatPreference;
+import io.github.dsheirer.preference.map.MapPreference;
 import io.github.dsheirer.preference.playlist.PlaylistPreference;
 import io.github.dsheirer.preference.radioreference.RadioReferencePreference;
 import io.github.dsheirer.preference.source.ChannelMultiFrequencyPreference;
@@ -56,6 +57,7 @@ public class UserPreferences implements Listener<PreferenceType>
     private DecodeEventPreference mDecodeEventPreference;
     private DirectoryPreference mDirectoryPreference;
     private ChannelMultiFrequencyPreference mChannelMultiFrequencyPreference;
+    private MapPreference mMapPreference;
     private PlaylistPreference mPlaylistPreference;
     private RadioReferencePreference mRadioReferencePreference;
     private TalkgroupFormatPreference mTalkgroupFormatPreference;
@@ -102,6 +104,14 @@ public class UserPreferences implements Listener<PreferenceType>
         return mChannelMultiFrequencyPreference;
     }
 
+    /**
+     * Map preferences
+     */
+    public MapPreference getMapPreference()
+    {
+        return mMapPreference;
+    }
+
     /**
      * Playlist preferences
      */
@@ -152,6 +162,7 @@ public class UserPreferences implements Listener<PreferenceType>
         mJmbeLibraryPreference = new JmbeLibraryPreference(this::receive);
         mDirectoryPreference = new DirectoryPreference(this::receive);
         mChannelMultiFrequencyPreference = new ChannelMultiFrequencyPreference(this::receive);
+        mMapPreference = new MapPreference(this::receive);
         mPlaylistPreference = new PlaylistPreference(this::receive, mDirectoryPreference);
         mRadioReferencePreference = new RadioReferencePreference(this::receive);
         mTalkgroupFormatPreference = new TalkgroupFormatPreference(this::receive);
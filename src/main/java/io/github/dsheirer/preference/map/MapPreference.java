@@ -0,0 +1,133 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+
+package io.github.dsheirer.preference.map;
+
+import io.github.dsheirer.preference.Preference;
+import io.github.dsheirer.preference.PreferenceType;
+import io.github.dsheirer.sample.Listener;
+
+import java.util.prefs.Preferences;
+
+/**
+ * Preferences for the map display, including the limits for map tiles fetched from the tile server and stored on
+ * disk.  The limits only apply to fetched tiles; tiles that the user copies into the map tile directory are never
+ * removed.
+ */
+public class MapPreference extends Preference
+{
+    private Preferences mPreferences = Preferences.userNodeForPackage(MapPreference.class);
+    private static final String PREFERENCE_KEY_TILE_STORE_MAXIMUM_SIZE = "tile.store.maximum.size";
+    private static final String PREFERENCE_KEY_TILE_STORE_MAXIMUM_AGE = "tile.store.maximum.age";
+    public static final int DEFAULT_TILE_STORE_MAXIMUM_SIZE_MB = 512;
+    public static final int DEFAULT_TILE_STORE_MAXIMUM_AGE_DAYS = 0;
+    public static final int MAXIMUM_TILE_STORE_SIZE_MB = 65536;
+    public static final int MAXIMUM_TILE_STORE_AGE_DAYS = 3650;
+    private Integer mTileStoreMaximumSize;
+    private Integer mTileStoreMaximumAge;
+
+    /**
+     * Constructs a map preference with the update listener
+     *
+     * @param updateListener
+     */
+    public MapPreference(Listener<PreferenceType> updateListener)
+    {
+        super(updateListener);
+    }
+
+    @Override
+    public PreferenceType getPreferenceType()
+    {
+        return PreferenceType.MAP;
+    }
+
+    /**
+     * Maximum total size in megabytes of the fetched map tiles stored on disk, or 0 for no size limit.
+     */
+    public int getTileStoreMaximumSize()
+    {
+        if(mTileStoreMaximumSize == null)
+        {
+            mTileStoreMaximumSize = mPreferences.getInt(PREFERENCE_KEY_TILE_STORE_MAXIMUM_SIZE,
+                DEFAULT_TILE_STORE_MAXIMUM_SIZE_MB);
+        }
+
+        return mTileStoreMaximumSize;
+    }
+
+    /**
+     * Sets the maximum total size of the fetched map tiles stored on disk.
+     * @param megabytes (0 - 65,536) where 0 is no size limit
+     */
+    public void setTileStoreMaximumSize(int megabytes)
+    {
+        if(0 <= megabytes && megabytes <= MAXIMUM_TILE_STORE_SIZE_MB)
+        {
+            mTileStoreMaximumSize = megabytes;
+            mPreferences.putInt(PREFERENCE_KEY_TILE_STORE_MAXIMUM_SIZE, megabytes);
+            notifyPreferenceUpdated();
+        }
+    }
+
+    /**
+     * Maximum number of days since a fetched map tile was last used before it is removed from disk, or 0 for no age
+     * limit.
+     */
+    public int getTileStoreMaximumAge()
+    {
+        if(mTileStoreMaximumAge == null)
+        {
+            mTileStoreMaximumAge = mPreferences.getInt(PREFERENCE_KEY_TILE_STORE_MAXIMUM_AGE,
+                DEFAULT_TILE_STORE_MAXIMUM_AGE_DAYS);
+        }
+
+        return mTileStoreMaximumAge;
+    }
+
+    /**
+     * Sets the maximum number of days since a fetched map tile was last used before it is removed from disk.
+     * @param days (0 - 3,650) where 0 is no age limit
+     */
+    public void setTileStoreMaximumAge(int days)
+    {
+        if(0 <= days && days <= MAXIMUM_TILE_STORE_AGE_DAYS)
+        {
+            mTileStoreMaximumAge = days;
+            mPreferences.putInt(PREFERENCE_KEY_TILE_STORE_MAXIMUM_AGE, days);
+            notifyPreferenceUpdated();
+        }
+    }
+
+    /**
+     * Resets the fetched map tile limits and removes them from the preferences store, so that they can be recreated
+     * with the default values.
+     */
+    public void resetTileStoreLimits()
+    {
+        mPreferences.remove(PREFERENCE_KEY_TILE_STORE_MAXIMUM_SIZE);
+        mPreferences.remove(PREFERENCE_KEY_TILE_STORE_MAXIMUM_AGE);
+        mTileStoreMaximumSize = null;
+        mTileStoreMaximumAge = null;
+        notifyPreferenceUpdated();
+    }
+}
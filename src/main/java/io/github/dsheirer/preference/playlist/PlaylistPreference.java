@@ -101,6 +101,15 @@ public class PlaylistPreference extends Preference
         return Paths.get(playlist + ".lck");
     }
 
+    /**
+     * Binary change journal for the playlist.
+     */
+    public Path getPlaylistJournal()
+    {
+        String playlist = getPlaylist().toString();
+        return Paths.get(playlist + ".journal");
+    }
+
     /**
      * Lock file for the playlist when updating the file.
      */
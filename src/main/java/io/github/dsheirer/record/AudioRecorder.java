@@ -21,16 +21,19 @@ package io.github.dsheirer.record;
 import io.github.dsheirer.audio.IAudioPacketListener;
 import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.module.Module;
+import io.github.dsheirer.record.io.RecordingCategory;
+import io.github.dsheirer.record.io.RecordingFile;
+import io.github.dsheirer.record.io.RecordingIOService;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
 import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -45,7 +48,7 @@ public abstract class AudioRecorder extends Module implements Listener<ReusableA
     private LinkedBlockingQueue<ReusableAudioPacket> mAudioPacketQueue = new LinkedBlockingQueue<>(500);
     private List<ReusableAudioPacket> mPacketsToProcess = new ArrayList<>();
 
-    private FileOutputStream mFileOutputStream;
+    private RecordingFile mRecordingFile;
     private AtomicBoolean mRunning = new AtomicBoolean();
 
     protected Path mPath;
@@ -154,7 +157,7 @@ public abstract class AudioRecorder extends Module implements Listener<ReusableA
      */
     protected OutputStream getOutputStream()
     {
-        return mFileOutputStream;
+        return mRecordingFile != null ? mRecordingFile.getOutputStream() : null;
     }
 
     /**
@@ -196,6 +199,11 @@ public abstract class AudioRecorder extends Module implements Listener<ReusableA
      */
     protected abstract void record(List<ReusableAudioPacket> audioPackets) throws IOException;
 
+    /**
+     * Recording category for recording I/O statistics
+     */
+    protected abstract RecordingCategory getRecordingCategory();
+
     /**
      * Starts this recorder as a scheduled thread running under the executor argument
      */
@@ -212,7 +220,8 @@ public abstract class AudioRecorder extends Module implements Listener<ReusableA
 
             try
             {
-                mFileOutputStream = new FileOutputStream(mPath.toFile());
+                mRecordingFile = RecordingIOService.getInstance().open(mPath, getRecordingCategory(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
 
                 /* Schedule the handler to run every half second */
                 mProcessorHandle = ThreadPool.SCHEDULED.scheduleAtFixedRate(mBufferProcessor, 0, 500, TimeUnit.MILLISECONDS);
@@ -284,6 +293,21 @@ public abstract class AudioRecorder extends Module implements Listener<ReusableA
     {
     }
 
+    /**
+     * Notifies the recording closed listener, if one is registered, that the recording is closed
+     */
+    private void notifyRecordingClosed()
+    {
+        synchronized(this)
+        {
+            if(mRecordingClosedListener != null)
+            {
+                mRecordingClosedListener.receive(AudioRecorder.this);
+                mRecordingClosedListener = null;
+            }
+        }
+    }
+
     /**
      * Drains the audio packet queue and records the audio packets to file
      */
@@ -304,26 +328,14 @@ public abstract class AudioRecorder extends Module implements Listener<ReusableA
                     //Allow sub-classes to flush remaining audio frame data to disk.
                     flush();
 
-                    if(mFileOutputStream != null)
+                    //Notify the listener once the recording I/O service has closed the file
+                    if(mRecordingFile != null)
                     {
-                        try
-                        {
-                            mFileOutputStream.flush();
-                            mFileOutputStream.close();
-                        }
-                        catch(IOException e)
-                        {
-                            mLog.error("Error closing output stream", e);
-                        }
+                        mRecordingFile.close().whenComplete((path, throwable) -> notifyRecordingClosed());
                     }
-
-                    synchronized(mRecordingClosedListener)
+                    else
                     {
-                        if(mRecordingClosedListener != null)
-                        {
-                            mRecordingClosedListener.receive(AudioRecorder.this);
-                            mRecordingClosedListener = null;
-                        }
+                        notifyRecordingClosed();
                     }
 
                     if(mProcessorHandle != null)
@@ -41,6 +41,7 @@ public class RecordConfigurationEditor extends Editor<Channel>
     private JCheckBox mTrafficBitstreamRecorder;
     private JCheckBox mMBERecorder;
     private JCheckBox mTrafficMBERecorder;
+    private JCheckBox mBasebandRingRecorder;
 
     public RecordConfigurationEditor()
     {
@@ -122,6 +123,18 @@ public class RecordConfigurationEditor extends Editor<Channel>
             }
         });
         add(mTrafficMBERecorder);
+
+        mBasebandRingRecorder = new JCheckBox(RecorderType.BASEBAND_RING.getDisplayString());
+        mBasebandRingRecorder.setEnabled(false);
+        mBasebandRingRecorder.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                setModified(true);
+            }
+        });
+        add(mBasebandRingRecorder);
     }
 
     private void setControlsEnabled(boolean enabled)
@@ -155,6 +168,11 @@ public class RecordConfigurationEditor extends Editor<Channel>
         {
             mTrafficMBERecorder.setEnabled(enabled);
         }
+
+        if(mBasebandRingRecorder.isEnabled() != enabled)
+        {
+            mBasebandRingRecorder.setEnabled(enabled);
+        }
     }
 
     @Override
@@ -176,6 +194,11 @@ public class RecordConfigurationEditor extends Editor<Channel>
                 config.addRecorder(RecorderType.TRAFFIC_BASEBAND);
             }
 
+            if(mBasebandRingRecorder.isSelected())
+            {
+                config.addRecorder(RecorderType.BASEBAND_RING);
+            }
+
             boolean providesBitstream = getItem().getDecodeConfiguration().getDecoderType().providesBitstream();
 
             if(providesBitstream && mBitstreamRecorder.isSelected())
@@ -216,6 +239,7 @@ public class RecordConfigurationEditor extends Editor<Channel>
             List<RecorderType> recorders = getItem().getRecordConfiguration().getRecorders();
             mBasebandRecorder.setSelected(recorders.contains(RecorderType.BASEBAND));
             mTrafficBasebandRecorder.setSelected(recorders.contains(RecorderType.TRAFFIC_BASEBAND));
+            mBasebandRingRecorder.setSelected(recorders.contains(RecorderType.BASEBAND_RING));
 
             boolean providesBitstream = channel.getDecodeConfiguration().getDecoderType().providesBitstream();
 
@@ -256,6 +280,7 @@ public class RecordConfigurationEditor extends Editor<Channel>
             mTrafficMBERecorder.setSelected(false);
             mTrafficBitstreamRecorder.setSelected(false);
             mTrafficBasebandRecorder.setSelected(false);
+            mBasebandRingRecorder.setSelected(false);
         }
     }
 }
@@ -57,6 +57,9 @@ public class RecorderFactory
                         recorderModules.add(recorderManager.getBasebandRecorder(channel.toString()));
                     }
                     break;
+                case BASEBAND_RING:
+                    recorderModules.add(recorderManager.getBasebandRingRecorder(channel.toString()));
+                    break;
                 case DEMODULATED_BIT_STREAM:
                     if(channel.isStandardChannel() && channel.getDecodeConfiguration().getDecoderType().providesBitstream())
                     {
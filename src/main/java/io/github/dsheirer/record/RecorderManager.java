@@ -23,6 +23,11 @@ package io.github.dsheirer.record;
 
 import io.github.dsheirer.alias.AliasList;
 import io.github.dsheirer.alias.AliasModel;
+import io.github.dsheirer.audio.AudioFormats;
+import io.github.dsheirer.audio.segment.AudioSegment;
+import io.github.dsheirer.audio.segment.AudioSegmentStream;
+import io.github.dsheirer.audio.segment.IAudioSegmentListener;
+import io.github.dsheirer.audio.segment.SegmentFormat;
 import io.github.dsheirer.identifier.Form;
 import io.github.dsheirer.identifier.Identifier;
 import io.github.dsheirer.identifier.IdentifierClass;
@@ -31,40 +36,30 @@ import io.github.dsheirer.identifier.Role;
 import io.github.dsheirer.identifier.integer.IntegerIdentifier;
 import io.github.dsheirer.identifier.string.StringIdentifier;
 import io.github.dsheirer.preference.UserPreferences;
-import io.github.dsheirer.record.wave.AudioPacketWaveRecorder;
+import io.github.dsheirer.record.wave.BasebandRingRecorder;
 import io.github.dsheirer.record.wave.ComplexBufferWaveRecorder;
 import io.github.dsheirer.record.wave.WaveMetadata;
-import io.github.dsheirer.sample.IOverflowListener;
-import io.github.dsheirer.sample.Listener;
-import io.github.dsheirer.sample.OverflowableTransferQueue;
-import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
+import io.github.dsheirer.record.wave.WaveWriter;
 import io.github.dsheirer.util.StringUtils;
-import io.github.dsheirer.util.ThreadPool;
 import io.github.dsheirer.util.TimeStamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
-public class RecorderManager implements Listener<ReusableAudioPacket>
+public class RecorderManager implements IAudioSegmentListener
 {
     private static final Logger mLog = LoggerFactory.getLogger(RecorderManager.class);
 
     public static final float BASEBAND_SAMPLE_RATE = 25000.0f; //Default sample rate - source can override
-    public static final long IDLE_RECORDER_REMOVAL_THRESHOLD = 6000; //6 seconds
 
-    private Map<Integer,AudioPacketWaveRecorder> mRecorders = new HashMap<>();
-    private OverflowableTransferQueue<ReusableAudioPacket> mAudioPacketQueue = new OverflowableTransferQueue<>(1000, 100);
-    private List<ReusableAudioPacket> mAudioPackets = new ArrayList<>();
-    private ScheduledFuture<?> mBufferProcessorFuture;
+    private Map<AudioSegment,SegmentRecorder> mRecorders = new HashMap<>();
     private AliasModel mAliasModel;
     private UserPreferences mUserPreferences;
     private int mUnknownAudioRecordingIndex = 1;
@@ -72,34 +67,15 @@ public class RecorderManager implements Listener<ReusableAudioPacket>
     private boolean mCanStartNewRecorders = true;
 
     /**
-     * Audio recording manager.  Monitors stream of audio packets produced by decoding channels and automatically starts
-     * audio recorders when the channel's metadata designates a call as recordable.  Routes call audio to each recorder
-     * based on audio packet metadata.  Recorders are shutdown when the channel sends an end-call audio packet
-     * indicating that the call is complete.  A separate recording monitor periodically checks for idled recorders to
-     * be stopped for cases when the channel fails to send an end-call audio packet.
+     * Audio recording manager.  Monitors the call audio segments produced by the audio segment manager and
+     * automatically starts audio recorders when the call's metadata designates a call as recordable.  Each recorder
+     * reads the shared PCM audio from the segment and the recording is closed when the segment is completed.
      */
     public RecorderManager(AliasModel aliasModel, UserPreferences userPreferences)
     {
         mAliasModel = aliasModel;
         mUserPreferences = userPreferences;
-        mAudioPacketQueue.setOverflowListener(new IOverflowListener()
-        {
-            @Override
-            public void sourceOverflow(boolean overflow)
-            {
-                if(overflow)
-                {
-                    mLog.warn("overflow - audio packets will be dropped until recording catches up");
-                }
-                else
-                {
-                    mLog.info("audio recorder packet processing has returned to normal");
-                }
-            }
-        });
-
-        mBufferProcessorFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(new BufferProcessor(), 0,
-            500, TimeUnit.MILLISECONDS);
+        BasebandRingRecorder.deleteStaleRingFiles(getRecordingBasePath());
     }
 
     /**
@@ -107,137 +83,97 @@ public class RecorderManager implements Listener<ReusableAudioPacket>
      */
     public void dispose()
     {
-        if(mBufferProcessorFuture != null)
+        for(SegmentRecorder recorder : new ArrayList<>(mRecorders.values()))
         {
-            mBufferProcessorFuture.cancel(true);
+            recorder.abort();
         }
+
+        mRecorders.clear();
     }
 
-    /**
-     * Primary ingest point for audio packets from all decoding channels
-     *
-     * @param audioPacket to process
-     */
     @Override
-    public void receive(ReusableAudioPacket audioPacket)
+    public void segmentStarted(AudioSegment segment)
     {
-        if(audioPacket.hasIdentifierCollection() && audioPacket.isRecordable())
+        startRecorder(segment);
+    }
+
+    @Override
+    public void segmentUpdated(AudioSegment segment)
+    {
+        SegmentRecorder recorder = mRecorders.get(segment);
+
+        //Calls can be flagged as recordable after the start of the call
+        if(recorder == null)
         {
-            mAudioPacketQueue.offer(audioPacket);
+            recorder = startRecorder(segment);
         }
-        else
+
+        if(recorder != null && !recorder.write())
         {
-            audioPacket.decrementUserCount();
+            mRecorders.remove(segment);
+        }
+    }
+
+    @Override
+    public void segmentCompleted(AudioSegment segment)
+    {
+        SegmentRecorder recorder = mRecorders.remove(segment);
+
+        if(recorder != null && recorder.write())
+        {
+            stopRecorder(recorder);
         }
     }
 
     /**
-     * Process any queued audio buffers and dispatch them to the audio recorders
+     * Starts a recorder for the segment if the call is recordable.
+     * @return started recorder or null
      */
-    private void processBuffers()
+    private SegmentRecorder startRecorder(AudioSegment segment)
     {
-        mAudioPacketQueue.drainTo(mAudioPackets, 50);
-
-        while(!mAudioPackets.isEmpty())
+        if(mCanStartNewRecorders && segment.isRecordable() && segment.getIdentifierCollection() != null)
         {
-            for(ReusableAudioPacket audioPacket : mAudioPackets)
+            try
             {
-                int audioChannelId = audioPacket.getAudioChannelId();
-
-                if(mRecorders.containsKey(audioChannelId))
-                {
-                    AudioPacketWaveRecorder recorder = mRecorders.get(audioChannelId);
-
-                    if(audioPacket.getType() == ReusableAudioPacket.Type.AUDIO)
-                    {
-                        audioPacket.incrementUserCount();
-                        recorder.receive(audioPacket);
-                    }
-                    else if(audioPacket.getType() == ReusableAudioPacket.Type.END)
-                    {
-                        AudioPacketWaveRecorder finished = mRecorders.remove(audioChannelId);
-                        stopRecorder(finished);
-                    }
-                }
-                else if(audioPacket.getType() == ReusableAudioPacket.Type.AUDIO)
-                {
-                    if(mCanStartNewRecorders)
-                    {
-                        AudioPacketWaveRecorder recorder = null;
-
-                        try
-                        {
-                            recorder = new AudioPacketWaveRecorder(getTemporaryFilePath(audioPacket));
-
-                            recorder.start();
-
-                            audioPacket.incrementUserCount();
-                            recorder.receive(audioPacket);
-                            mRecorders.put(audioPacket.getAudioChannelId(), recorder);
-                        }
-                        catch(Exception ioe)
-                        {
-                            mCanStartNewRecorders = false;
-
-                            mLog.error("Error attempting to start new audio wave recorder. All (future) audio recording " +
-                                "is disabled", ioe);
-
-                            if(recorder != null)
-                            {
-                                stopRecorder(recorder);
-                            }
-                        }
-                    }
-                }
-
-                audioPacket.decrementUserCount();
+                SegmentRecorder recorder = new SegmentRecorder(segment, getTemporaryFilePath(segment.getAudioChannelId()));
+                mRecorders.put(segment, recorder);
+                return recorder;
             }
+            catch(Exception ioe)
+            {
+                mCanStartNewRecorders = false;
 
-            mAudioPackets.clear();
-            mAudioPacketQueue.drainTo(mAudioPackets, 50);
+                mLog.error("Error attempting to start new audio wave recorder. All (future) audio recording " +
+                    "is disabled", ioe);
+            }
         }
+
+        return null;
     }
 
-    private void stopRecorder(AudioPacketWaveRecorder recorder)
+    private void stopRecorder(SegmentRecorder recorder)
     {
-        Path rename = getFinalFileName(recorder.getIdentifierCollection());
+        IdentifierCollection identifierCollection = recorder.getSegment().getIdentifierCollection();
+
+        Path rename = getFinalFileName(identifierCollection);
 
         AliasList aliasList = null;
 
-        if(recorder.getIdentifierCollection() != null)
+        if(identifierCollection != null)
         {
-            aliasList = mAliasModel.getAliasList(recorder.getIdentifierCollection());
+            aliasList = mAliasModel.getAliasList(identifierCollection);
         }
 
-        WaveMetadata waveMetadata = WaveMetadata.createFrom(recorder.getIdentifierCollection(), aliasList);
+        WaveMetadata waveMetadata = WaveMetadata.createFrom(identifierCollection, aliasList);
         recorder.stop(rename, waveMetadata);
     }
 
-    /**
-     * Removes recorders that have not received any new audio buffers in the last 6 seconds.
-     */
-    private void removeIdleRecorders()
-    {
-        Iterator<Map.Entry<Integer,AudioPacketWaveRecorder>> it = mRecorders.entrySet().iterator();
-
-        while(it.hasNext())
-        {
-            Map.Entry<Integer,AudioPacketWaveRecorder> entry = it.next();
-
-            if(entry.getValue().getLastBufferReceived() + IDLE_RECORDER_REMOVAL_THRESHOLD < System.currentTimeMillis())
-            {
-                it.remove();
-                stopRecorder(entry.getValue());
-            }
-        }
-    }
-
-    private Path getTemporaryFilePath(ReusableAudioPacket packet)
+    private Path getTemporaryFilePath(int audioChannelId)
     {
         StringBuilder sb = new StringBuilder();
         sb.append(TimeStamp.getTimeStamp("-"));
         sb.append("_audio_channel_");
-        sb.append(packet.getAudioChannelId());
+        sb.append(audioChannelId);
         sb.append(".tmp");
         return getRecordingBasePath().resolve(sb.toString());
     }
@@ -349,22 +285,94 @@ public class RecorderManager implements Listener<ReusableAudioPacket>
     }
 
     /**
-     * Processes queued audio packets and distributes to each of the audio recorders.  Removes any idle recorders
-     * that have not been updated according to an idle threshold period
+     * Constructs a baseband ring recorder for use in a processing chain.
      */
-    public class BufferProcessor implements Runnable
+    public BasebandRingRecorder getBasebandRingRecorder(String channelName)
     {
-        @Override
-        public void run()
+        StringBuilder sb = new StringBuilder();
+        sb.append(getRecordingBasePath());
+        sb.append(File.separator).append(StringUtils.replaceIllegalCharacters(channelName));
+
+        return new BasebandRingRecorder(BASEBAND_SAMPLE_RATE, sb.toString());
+    }
+
+    /**
+     * Writes the PCM audio from a call audio segment to a wave file
+     */
+    private class SegmentRecorder
+    {
+        private AudioSegment mSegment;
+        private AudioSegmentStream.Reader mReader;
+        private WaveWriter mWriter;
+
+        public SegmentRecorder(AudioSegment segment, Path path) throws IOException
+        {
+            mSegment = segment;
+            mWriter = new WaveWriter(AudioFormats.PCM_SIGNED_8KHZ_16BITS_MONO, path);
+            mReader = segment.openReader(SegmentFormat.PCM);
+        }
+
+        public AudioSegment getSegment()
+        {
+            return mSegment;
+        }
+
+        /**
+         * Writes the available audio to the recording.
+         * @return true if successful or false if the recording was aborted due to an error
+         */
+        public boolean write()
         {
             try
             {
-                processBuffers();
-                removeIdleRecorders();
+                mReader.read(mWriter::writeData);
+                return true;
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("IO Exception while trying to write to the wave writer", ioe);
+                abort();
+                return false;
+            }
+        }
+
+        /**
+         * Closes the recording and optionally renames the file and appends the wave metadata.
+         */
+        public void stop(Path path, WaveMetadata waveMetadata)
+        {
+            mReader.close();
+
+            try
+            {
+                //Append the LIST and ID3 metadata to the end
+                if(waveMetadata != null)
+                {
+                    mWriter.writeMetadata(waveMetadata);
+                }
+
+                mWriter.close(path);
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error writing final audio buffers to recording during shutdown", ioe);
+            }
+        }
+
+        /**
+         * Closes the recording without renaming
+         */
+        public void abort()
+        {
+            mReader.close();
+
+            try
+            {
+                mWriter.close();
             }
-            catch(Throwable t)
+            catch(IOException ioe)
             {
-                mLog.error("Error while processing audio buffers", t);
+                mLog.error("Error closing audio recording", ioe);
             }
         }
     }
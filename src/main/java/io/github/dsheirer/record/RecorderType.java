@@ -61,14 +61,20 @@ public enum RecorderType
     /**
      * Traffic channel MBE Audio Codec frames
      */
-    TRAFFIC_MBE_CALL_SEQUENCE("Traffic Channel MBE Audio CODEC Frames (.mbe)");
+    TRAFFIC_MBE_CALL_SEQUENCE("Traffic Channel MBE Audio CODEC Frames (.mbe)"),
+
+    /**
+     * Baseband ring, 16-bit complex inphase/quadrature samples at the channel sample rate retained in a time-indexed
+     * ring with snapshots written to a wave file for triggering decode events.
+     */
+    BASEBAND_RING("Baseband I/Q Ring - Event Snapshots (.wav)");
 
     private String mDisplayString;
 
     /**
      * Recorders available to all decoders
      */
-    public static final EnumSet<RecorderType> DEFAULT_RECORDER_TYPES = EnumSet.of(BASEBAND, TRAFFIC_BASEBAND);
+    public static final EnumSet<RecorderType> DEFAULT_RECORDER_TYPES = EnumSet.of(BASEBAND, TRAFFIC_BASEBAND, BASEBAND_RING);
 
     RecorderType( String displayString )
     {
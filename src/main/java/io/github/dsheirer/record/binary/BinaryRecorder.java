@@ -22,6 +22,10 @@ package io.github.dsheirer.record.binary;
 import io.github.dsheirer.dsp.filter.channelizer.ContinuousReusableBufferProcessor;
 import io.github.dsheirer.module.Module;
 import io.github.dsheirer.protocol.Protocol;
+import io.github.dsheirer.record.io.RecordingCategory;
+import io.github.dsheirer.record.io.RecordingFile;
+import io.github.dsheirer.record.io.RecordingIOService;
+import io.github.dsheirer.sample.INonCriticalListener;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.IReusableByteBufferListener;
 import io.github.dsheirer.sample.buffer.ReusableByteBuffer;
@@ -31,12 +35,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.WritableByteChannel;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.util.EnumSet;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -48,7 +48,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * The contents of the file are the raw bytes as demodulated by the decoder with
  * no header or timestamps, other than the timestamp included in the filename.
  */
-public class BinaryRecorder extends Module implements IReusableByteBufferListener
+public class BinaryRecorder extends Module implements IReusableByteBufferListener, INonCriticalListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(BinaryRecorder.class);
     private static final int MAX_RECORDING_BYTE_SIZE = 524288;  //500 kB
@@ -157,15 +157,15 @@ public class BinaryRecorder extends Module implements IReusableByteBufferListene
     public class BinaryWriter implements Listener<List<ReusableByteBuffer>>
     {
         private Path mCurrentPath;
-        private WritableByteChannel mWritableByteChannel;
+        private RecordingFile mRecordingFile;
 
         public void start(Path path) throws IOException
         {
             synchronized(this)
             {
                 mCurrentPath = path;
-                mWritableByteChannel = Files.newByteChannel(path,
-                    EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+                mRecordingFile = RecordingIOService.getInstance().open(path, RecordingCategory.BITSTREAM,
+                    StandardOpenOption.CREATE);
 //                mLog.info("Binary (bitstream) recording started: " + mCurrentPath.toString());
             }
         }
@@ -174,12 +174,12 @@ public class BinaryRecorder extends Module implements IReusableByteBufferListene
         {
             synchronized(this)
             {
-                if(mWritableByteChannel != null)
+                if(mRecordingFile != null)
                 {
-                    mWritableByteChannel.close();
+                    mRecordingFile.close();
                 }
 
-                mWritableByteChannel = null;
+                mRecordingFile = null;
                 mCurrentPath = null;
             }
         }
@@ -194,14 +194,15 @@ public class BinaryRecorder extends Module implements IReusableByteBufferListene
             {
                 try
                 {
-                    if(mWritableByteChannel != null)
+                    if(mRecordingFile != null)
                     {
-                        mWritableByteChannel.close();
+                        mRecordingFile.close();
+                        mRecordingFile = null;
                     }
 
                     mCurrentPath = getRecordingPath();
-                    mWritableByteChannel = Files.newByteChannel(mCurrentPath,
-                        EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+                    mRecordingFile = RecordingIOService.getInstance().open(mCurrentPath, RecordingCategory.BITSTREAM,
+                        StandardOpenOption.CREATE);
                     mLog.info("Binary (bitstream) recording started: " + mCurrentPath.toString());
                 }
                 catch(IOException ioe)
@@ -222,12 +223,13 @@ public class BinaryRecorder extends Module implements IReusableByteBufferListene
         {
             for(ReusableByteBuffer buffer: reusableComplexBuffers)
             {
-                if(mWritableByteChannel != null)
+                if(mRecordingFile != null)
                 {
                     try
                     {
-                        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer.getSamplesCopy());
-                        mBytesRecordedCounter += mWritableByteChannel.write(byteBuffer);
+                        byte[] bytes = buffer.getBytes();
+                        mRecordingFile.write(bytes, 0, bytes.length);
+                        mBytesRecordedCounter += bytes.length;
 
                         if(mBytesRecordedCounter > MAX_RECORDING_BYTE_SIZE)
                         {
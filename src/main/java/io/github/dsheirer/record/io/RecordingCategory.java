@@ -0,0 +1,48 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.record.io;
+
+/**
+ * Recording categories for recording I/O statistics
+ */
+public enum RecordingCategory
+{
+    AUDIO_WAVE("Audio WAV"),
+    AUDIO_MP3("Audio MP3"),
+    STREAMING("Streaming"),
+    BASEBAND("Baseband"),
+    BITSTREAM("Bitstream"),
+    MBE_CALL_SEQUENCE("MBE Call Sequence");
+
+    private String mLabel;
+
+    RecordingCategory(String label)
+    {
+        mLabel = label;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mLabel;
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.record.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Recording file that is written asynchronously by the recording I/O service.
+ *
+ * Writes are coalesced into pooled direct buffers that are handed to the I/O thread for the device that hosts the
+ * file once they are full, or once the oldest buffered byte exceeds the maximum pending age (checked on each write and
+ * periodically by the service).  Errors from the I/O
+ * thread are reported to the recorder on the next write.  Recorders can check isBackpressured() to shed load when the
+ * device is not keeping up, and writes fail with an IOException when the device queue limit is exceeded or the disk
+ * is full.
+ *
+ * Methods are synchronized and a recording file can be written by any recorder thread.
+ */
+public class RecordingFile
+{
+    private static final long MAXIMUM_PENDING_AGE_MILLISECONDS = 1000;
+
+    private RecordingIOService mService;
+    private RecordingIOService.Device mDevice;
+    private RecordingCategory mCategory;
+    private Path mPath;
+    private FileChannel mChannel;
+    private ByteBuffer mPending;
+    private long mPendingTimestamp;
+    private long mSubmittedSize;
+    private long mSize;
+    private volatile IOException mError;
+    private boolean mClosed;
+    private OutputStream mOutputStream;
+
+    /**
+     * Constructs an instance.  Use RecordingIOService.open() to create a recording file.
+     */
+    RecordingFile(RecordingIOService service, RecordingIOService.Device device, RecordingCategory category, Path path,
+                  FileChannel channel)
+    {
+        mService = service;
+        mDevice = device;
+        mCategory = category;
+        mPath = path;
+        mChannel = channel;
+    }
+
+    /**
+     * Path for this file
+     */
+    public Path getPath()
+    {
+        return mPath;
+    }
+
+    /**
+     * Recording category for statistics
+     */
+    public RecordingCategory getCategory()
+    {
+        return mCategory;
+    }
+
+    /**
+     * Number of bytes written to this file, including bytes that are pending or queued for writing.
+     */
+    public synchronized long getSize()
+    {
+        return mSize;
+    }
+
+    /**
+     * Indicates if the device that hosts this file has a write backlog.  Recorders that can tolerate gaps should
+     * discard data while backpressured and report the discarded bytes via discarded().
+     */
+    public boolean isBackpressured()
+    {
+        return mDevice.isBackpressured();
+    }
+
+    /**
+     * Records that the recorder discarded the specified number of bytes due to backpressure.
+     */
+    public void discarded(long bytes)
+    {
+        mService.getStatistics(mCategory).discarded(bytes);
+    }
+
+    /**
+     * Appends the bytes to the file
+     */
+    public void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        write(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * Appends the buffer contents, from position to limit, to the file.  The buffer's position is advanced to the
+     * limit.
+     */
+    public synchronized void write(ByteBuffer buffer) throws IOException
+    {
+        checkWritable();
+
+        int count = buffer.remaining();
+
+        while(buffer.hasRemaining())
+        {
+            if(mPending == null)
+            {
+                mPending = mService.getBuffer();
+                mPendingTimestamp = System.currentTimeMillis();
+            }
+
+            int length = Math.min(buffer.remaining(), mPending.remaining());
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(slice.position() + length);
+            mPending.put(slice);
+            buffer.position(buffer.position() + length);
+
+            if(!mPending.hasRemaining())
+            {
+                submit();
+            }
+        }
+
+        mSize += count;
+
+        if(mPending != null && mPendingTimestamp + MAXIMUM_PENDING_AGE_MILLISECONDS < System.currentTimeMillis())
+        {
+            submit();
+        }
+    }
+
+    /**
+     * Overwrites previously written bytes at the file position with the buffer contents, from position to limit.
+     * Bytes that have not yet been handed to the I/O thread are updated in place.
+     *
+     * @param position in the file
+     * @param buffer containing the replacement bytes
+     */
+    public synchronized void patch(long position, ByteBuffer buffer) throws IOException
+    {
+        //Patches don't add to the device queue limit, so that headers are always completed when closing a file
+        checkOpen();
+
+        if(position < 0 || position + buffer.remaining() > mSize)
+        {
+            throw new IOException("Can't patch outside of the written file region [" + mPath + "]");
+        }
+
+        ByteBuffer submitted = null;
+
+        for(int x = buffer.position(); x < buffer.limit(); x++)
+        {
+            long filePosition = position + x - buffer.position();
+
+            if(filePosition >= mSubmittedSize)
+            {
+                mPending.put((int)(filePosition - mSubmittedSize), buffer.get(x));
+            }
+            else
+            {
+                if(submitted == null)
+                {
+                    submitted = ByteBuffer.allocate(buffer.remaining());
+                }
+
+                submitted.put(buffer.get(x));
+            }
+        }
+
+        if(submitted != null)
+        {
+            submitted.flip();
+            mDevice.submit(RecordingIOService.Operation.writeAt(this, position, submitted));
+        }
+
+        buffer.position(buffer.limit());
+    }
+
+    /**
+     * Hands any pending bytes to the I/O thread
+     */
+    public synchronized void flush() throws IOException
+    {
+        checkOpen();
+        submit();
+    }
+
+    /**
+     * Hands any pending bytes to the I/O thread once the oldest pending byte exceeds the maximum pending age.  Invoked
+     * periodically by the recording I/O service so that the tail of a file that is no longer being written reaches
+     * the disk.
+     *
+     * @param timestamp current time in milliseconds
+     */
+    synchronized void flushIfAged(long timestamp)
+    {
+        if(!mClosed && mError == null && mPending != null &&
+            mPendingTimestamp + MAXIMUM_PENDING_AGE_MILLISECONDS < timestamp)
+        {
+            submit();
+        }
+    }
+
+    /**
+     * Closes the file without forcing it to disk
+     *
+     * @return future that completes once the file is closed
+     */
+    public CompletableFuture<Path> close()
+    {
+        return close(false, null);
+    }
+
+    /**
+     * Closes the file on the I/O thread after all pending writes complete, optionally forcing the contents to disk
+     * and renaming the file.  If the rename path already exists, the file is deleted as a duplicate.
+     *
+     * @param force true to force the file contents to disk before closing
+     * @param rename optional path to rename the file after closing, or null
+     * @return future that completes with the final file path once the file is closed, or completes exceptionally if
+     * there was an error writing or closing the file
+     */
+    public synchronized CompletableFuture<Path> close(boolean force, Path rename)
+    {
+        CompletableFuture<Path> future = new CompletableFuture<>();
+
+        if(mClosed)
+        {
+            future.completeExceptionally(new IOException("Recording file is already closed [" + mPath + "]"));
+            return future;
+        }
+
+        mClosed = true;
+        mService.closed(this);
+
+        if(mError == null)
+        {
+            submit();
+        }
+        else if(mPending != null)
+        {
+            mService.recycle(mPending);
+            mPending = null;
+        }
+
+        mDevice.submit(RecordingIOService.Operation.close(this, force, rename, future));
+        return future;
+    }
+
+    /**
+     * Output stream adapter for this file.  Closing the stream closes the file without forcing or renaming.
+     */
+    public synchronized OutputStream getOutputStream()
+    {
+        if(mOutputStream == null)
+        {
+            mOutputStream = new OutputStream()
+            {
+                @Override
+                public void write(int b) throws IOException
+                {
+                    RecordingFile.this.write(new byte[]{(byte)b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException
+                {
+                    RecordingFile.this.write(bytes, offset, length);
+                }
+
+                @Override
+                public void close()
+                {
+                    RecordingFile.this.close();
+                }
+            };
+        }
+
+        return mOutputStream;
+    }
+
+    /**
+     * Hands the pending buffer to the I/O thread
+     */
+    private void submit()
+    {
+        if(mPending != null)
+        {
+            mPending.flip();
+
+            if(mPending.hasRemaining())
+            {
+                mSubmittedSize += mPending.remaining();
+                mDevice.submit(RecordingIOService.Operation.append(this, mPending));
+            }
+            else
+            {
+                mService.recycle(mPending);
+            }
+
+            mPending = null;
+        }
+    }
+
+    /**
+     * Verifies that the file can be written
+     * @throws IOException if the file is closed, has a prior error, or the device can't accept more data
+     */
+    private void checkWritable() throws IOException
+    {
+        checkOpen();
+        mDevice.checkWritable();
+    }
+
+    /**
+     * Verifies that the file is open and has not encountered an error
+     * @throws IOException if the file is closed or has a prior error
+     */
+    private void checkOpen() throws IOException
+    {
+        if(mClosed)
+        {
+            throw new IOException("Recording file is closed [" + mPath + "]");
+        }
+
+        if(mError != null)
+        {
+            throw new IOException("Error writing recording file [" + mPath + "]", mError);
+        }
+    }
+
+    /**
+     * File channel for use by the I/O thread
+     */
+    FileChannel getChannel()
+    {
+        return mChannel;
+    }
+
+    /**
+     * Sets the error that was encountered by the I/O thread
+     */
+    void setError(IOException error)
+    {
+        if(mError == null)
+        {
+            mError = error;
+        }
+    }
+
+    /**
+     * Error encountered by the I/O thread, or null
+     */
+    IOException getError()
+    {
+        return mError;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mCategory + " recording file [" + mPath + "]";
+    }
+}
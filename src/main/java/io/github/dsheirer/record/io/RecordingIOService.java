@@ -0,0 +1,856 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.record.io;
+
+import io.github.dsheirer.controller.NamingThreadFactory;
+import io.github.dsheirer.util.LatencyHistogram;
+import io.github.dsheirer.util.ThreadPool;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous file I/O service for recorders.
+ *
+ * Each storage device (file store) is serviced by a dedicated I/O thread with its own write queue so that recorder,
+ * DSP and scheduler threads never block on disk I/O and a slow device can't stall recordings on another device.
+ * The I/O thread coalesces consecutive buffers for the same file into a single gathering write and forces files
+ * that are closed within the same batch together.
+ *
+ * Each device monitors its queue for backpressure (soft limit) and overload (hard limit, writes are refused), checks
+ * the usable space on the device (writes are refused when the disk is full) and flags slow writes.  Queue depth and
+ * throughput per recording category are logged periodically while recordings are active.
+ */
+public class RecordingIOService
+{
+    private final static Logger mLog = LoggerFactory.getLogger(RecordingIOService.class);
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final long QUEUE_SOFT_LIMIT_BYTES = 4 * 1024 * 1024;
+    private static final long QUEUE_HARD_LIMIT_BYTES = 32 * 1024 * 1024;
+    private static final long MINIMUM_USABLE_SPACE_BYTES = 50 * 1024 * 1024;
+    private static final long SPACE_CHECK_INTERVAL_MILLISECONDS = 10000;
+    private static final long SLOW_OPERATION_THRESHOLD_MILLISECONDS = 1000;
+    private static final long SLOW_WARNING_INTERVAL_MILLISECONDS = 60000;
+    private static final long STATISTICS_INTERVAL_SECONDS = 60;
+    private static final long PENDING_FLUSH_INTERVAL_MILLISECONDS = 250;
+    private static final int MAXIMUM_GATHER_COUNT = 16;
+
+    private static RecordingIOService sInstance;
+
+    private Map<Object,Device> mDevices = new ConcurrentHashMap<>();
+    private Set<RecordingFile> mOpenFiles = ConcurrentHashMap.newKeySet();
+    private Map<RecordingCategory,CategoryStatistics> mCategoryStatistics = new EnumMap<>(RecordingCategory.class);
+    private ConcurrentLinkedQueue<ByteBuffer> mBufferPool = new ConcurrentLinkedQueue<>();
+    private NamingThreadFactory mThreadFactory = new NamingThreadFactory("sdrtrunk recording io");
+    private long mLastStatisticsTimestamp = System.currentTimeMillis();
+
+    /**
+     * Singleton.  Use getInstance().
+     */
+    private RecordingIOService()
+    {
+        for(RecordingCategory category : RecordingCategory.values())
+        {
+            mCategoryStatistics.put(category, new CategoryStatistics());
+        }
+
+        ThreadPool.SCHEDULED.scheduleAtFixedRate(this::logPeriodicStatistics, STATISTICS_INTERVAL_SECONDS,
+            STATISTICS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        ThreadPool.SCHEDULED.scheduleAtFixedRate(this::flushAgedFiles, PENDING_FLUSH_INTERVAL_MILLISECONDS,
+            PENDING_FLUSH_INTERVAL_MILLISECONDS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Recording I/O service instance
+     */
+    public static synchronized RecordingIOService getInstance()
+    {
+        if(sInstance == null)
+        {
+            sInstance = new RecordingIOService();
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Opens the file for asynchronous writing.  The file is opened on the calling thread so that errors such as an
+     * existing file or a missing directory are reported immediately.
+     *
+     * @param path of the file
+     * @param category for statistics
+     * @param options for opening the file (ie CREATE_NEW or CREATE, TRUNCATE_EXISTING).  WRITE is implied.
+     * @return recording file
+     * @throws IOException if the file can't be opened or the device is full
+     */
+    public RecordingFile open(Path path, RecordingCategory category, OpenOption... options) throws IOException
+    {
+        Device device = getDevice(path);
+        device.checkWritable();
+
+        OpenOption[] openOptions = new OpenOption[options.length + 1];
+        System.arraycopy(options, 0, openOptions, 0, options.length);
+        openOptions[options.length] = StandardOpenOption.WRITE;
+
+        FileChannel channel = FileChannel.open(path, openOptions);
+        getStatistics(category).mFilesOpened.incrementAndGet();
+        RecordingFile file = new RecordingFile(this, device, category, path, channel);
+        mOpenFiles.add(file);
+        return file;
+    }
+
+    /**
+     * Removes the file from the set of open files that are checked for aged pending bytes
+     */
+    void closed(RecordingFile file)
+    {
+        mOpenFiles.remove(file);
+    }
+
+    /**
+     * Hands aged pending bytes to the I/O thread for files that haven't been written recently
+     */
+    private void flushAgedFiles()
+    {
+        long timestamp = System.currentTimeMillis();
+
+        for(RecordingFile file : mOpenFiles)
+        {
+            file.flushIfAged(timestamp);
+        }
+    }
+
+    /**
+     * Waits until all operations queued on all devices prior to this call are complete.  Invoke at shutdown to
+     * ensure that all recordings are closed.
+     */
+    public void flush()
+    {
+        List<CompletableFuture<Path>> barriers = new ArrayList<>();
+
+        for(Device device : mDevices.values())
+        {
+            CompletableFuture<Path> barrier = new CompletableFuture<>();
+            device.submit(Operation.barrier(barrier));
+            barriers.add(barrier);
+        }
+
+        for(CompletableFuture<Path> barrier : barriers)
+        {
+            try
+            {
+                barrier.get(30, TimeUnit.SECONDS);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Error while waiting for recording I/O to complete", e);
+            }
+        }
+    }
+
+    /**
+     * Device for the path, keyed by file store
+     */
+    private Device getDevice(Path path)
+    {
+        FileStore fileStore = null;
+
+        try
+        {
+            Path directory = path.toAbsolutePath().getParent();
+            fileStore = directory != null ? Files.getFileStore(directory) : null;
+        }
+        catch(IOException ioe)
+        {
+            mLog.debug("Unable to determine file store for recording path [" + path + "]", ioe);
+        }
+
+        Object key = fileStore != null ? fileStore : "default";
+        FileStore store = fileStore;
+        return mDevices.computeIfAbsent(key, k -> new Device(store));
+    }
+
+    /**
+     * Statistics for the category
+     */
+    CategoryStatistics getStatistics(RecordingCategory category)
+    {
+        return mCategoryStatistics.get(category);
+    }
+
+    /**
+     * Pooled direct buffer
+     */
+    ByteBuffer getBuffer()
+    {
+        ByteBuffer buffer = mBufferPool.poll();
+
+        if(buffer == null)
+        {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool
+     */
+    void recycle(ByteBuffer buffer)
+    {
+        if(buffer.isDirect() && buffer.capacity() == BUFFER_SIZE)
+        {
+            buffer.clear();
+            mBufferPool.offer(buffer);
+        }
+    }
+
+    /**
+     * Summary of queue depth per device and throughput per recording category
+     */
+    public String getStatistics()
+    {
+        return getStatistics(System.currentTimeMillis() - mLastStatisticsTimestamp, false);
+    }
+
+    /**
+     * Logs the recording I/O statistics
+     */
+    public void logStatistics()
+    {
+        mLog.info(getStatistics());
+    }
+
+    /**
+     * Creates the statistics summary
+     * @param elapsed milliseconds for calculating rates since the last interval
+     * @param resetInterval to start a new rate interval
+     */
+    private synchronized String getStatistics(long elapsed, boolean resetInterval)
+    {
+        double seconds = Math.max(elapsed, 1) / 1000.0;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Recording I/O");
+
+        for(Device device : mDevices.values())
+        {
+            sb.append("\n\tDevice [").append(device.mName).append("]");
+            sb.append(" Queue [").append(device.mQueue.size()).append(" ops/");
+            sb.append(FileUtils.byteCountToDisplaySize(device.mQueuedBytes.get())).append("]");
+            sb.append(" Peak Queue [").append(FileUtils.byteCountToDisplaySize(device.mPeakQueuedBytes.get())).append("]");
+            sb.append(device.mDiskFull ? " DISK FULL" : "");
+            sb.append(" Slow Operations [").append(device.mSlowOperationCount.get()).append("]");
+            sb.append(" Write [").append(device.mWriteLatency).append("]");
+            sb.append(" Sync [").append(device.mSyncLatency).append("]");
+        }
+
+        for(Map.Entry<RecordingCategory,CategoryStatistics> entry : mCategoryStatistics.entrySet())
+        {
+            CategoryStatistics statistics = entry.getValue();
+
+            if(statistics.mFilesOpened.get() > 0)
+            {
+                long interval = statistics.mBytesWritten.get() - statistics.mIntervalBytesWritten;
+
+                sb.append("\n\t").append(entry.getKey());
+                sb.append(" Files [").append(statistics.mFilesOpened.get()).append(" opened/");
+                sb.append(statistics.mFilesClosed.get()).append(" closed]");
+                sb.append(" Written [").append(FileUtils.byteCountToDisplaySize(statistics.mBytesWritten.get())).append("]");
+                sb.append(" Rate [").append(String.format("%.1f", interval / seconds / 1024.0)).append(" KB/s]");
+                sb.append(" Discarded [").append(FileUtils.byteCountToDisplaySize(statistics.mBytesDiscarded.get())).append("]");
+                sb.append(" Errors [").append(statistics.mErrors.get()).append("]");
+
+                if(resetInterval)
+                {
+                    statistics.mIntervalBytesWritten = statistics.mBytesWritten.get();
+                }
+            }
+        }
+
+        if(resetInterval)
+        {
+            mLastStatisticsTimestamp = System.currentTimeMillis();
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Logs the statistics when there has been recording activity since the last interval
+     */
+    private void logPeriodicStatistics()
+    {
+        boolean active = false;
+
+        for(CategoryStatistics statistics : mCategoryStatistics.values())
+        {
+            active |= statistics.mBytesWritten.get() != statistics.mIntervalBytesWritten;
+        }
+
+        long now = System.currentTimeMillis();
+
+        if(active)
+        {
+            mLog.info(getStatistics(now - mLastStatisticsTimestamp, true));
+        }
+        else
+        {
+            mLastStatisticsTimestamp = now;
+        }
+    }
+
+    /**
+     * Write statistics for a recording category
+     */
+    static class CategoryStatistics
+    {
+        private AtomicLong mFilesOpened = new AtomicLong();
+        private AtomicLong mFilesClosed = new AtomicLong();
+        private AtomicLong mBytesWritten = new AtomicLong();
+        private AtomicLong mBytesDiscarded = new AtomicLong();
+        private AtomicLong mErrors = new AtomicLong();
+        private volatile long mIntervalBytesWritten;
+
+        void discarded(long bytes)
+        {
+            mBytesDiscarded.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Queued file operation
+     */
+    static class Operation
+    {
+        enum Type {APPEND, WRITE_AT, CLOSE, BARRIER}
+
+        private Type mType;
+        private RecordingFile mFile;
+        private ByteBuffer mBuffer;
+        private long mPosition;
+        private boolean mForce;
+        private Path mRename;
+        private CompletableFuture<Path> mFuture;
+        private long mTimestamp = System.currentTimeMillis();
+
+        private Operation(Type type, RecordingFile file)
+        {
+            mType = type;
+            mFile = file;
+        }
+
+        static Operation append(RecordingFile file, ByteBuffer buffer)
+        {
+            Operation operation = new Operation(Type.APPEND, file);
+            operation.mBuffer = buffer;
+            return operation;
+        }
+
+        static Operation writeAt(RecordingFile file, long position, ByteBuffer buffer)
+        {
+            Operation operation = new Operation(Type.WRITE_AT, file);
+            operation.mBuffer = buffer;
+            operation.mPosition = position;
+            return operation;
+        }
+
+        static Operation close(RecordingFile file, boolean force, Path rename, CompletableFuture<Path> future)
+        {
+            Operation operation = new Operation(Type.CLOSE, file);
+            operation.mForce = force;
+            operation.mRename = rename;
+            operation.mFuture = future;
+            return operation;
+        }
+
+        static Operation barrier(CompletableFuture<Path> future)
+        {
+            Operation operation = new Operation(Type.BARRIER, null);
+            operation.mFuture = future;
+            return operation;
+        }
+
+        int size()
+        {
+            return mBuffer != null ? mBuffer.remaining() : 0;
+        }
+    }
+
+    /**
+     * Storage device with a dedicated I/O thread and write queue
+     */
+    class Device implements Runnable
+    {
+        private String mName;
+        private FileStore mFileStore;
+        private LinkedBlockingQueue<Operation> mQueue = new LinkedBlockingQueue<>();
+        private AtomicLong mQueuedBytes = new AtomicLong();
+        private AtomicLong mPeakQueuedBytes = new AtomicLong();
+        private AtomicInteger mSlowOperationCount = new AtomicInteger();
+        private LatencyHistogram mWriteLatency = new LatencyHistogram();
+        private LatencyHistogram mSyncLatency = new LatencyHistogram();
+        private volatile boolean mDiskFull;
+        private boolean mOverflowWarned;
+        private long mLastSpaceCheck;
+        private long mLastSlowWarning;
+        private List<Operation> mBatch = new ArrayList<>();
+        private List<Operation> mDeferred = new ArrayList<>();
+        private ByteBuffer[] mGather = new ByteBuffer[MAXIMUM_GATHER_COUNT];
+
+        Device(FileStore fileStore)
+        {
+            mFileStore = fileStore;
+            mName = fileStore != null ? fileStore.name() : "default";
+            Thread thread = mThreadFactory.newThread(this);
+            thread.start();
+        }
+
+        /**
+         * Enqueues the operation
+         */
+        void submit(Operation operation)
+        {
+            long queued = mQueuedBytes.addAndGet(operation.size());
+
+            if(queued > mPeakQueuedBytes.get())
+            {
+                mPeakQueuedBytes.set(queued);
+            }
+
+            mQueue.offer(operation);
+        }
+
+        /**
+         * Indicates if the write queue exceeds the soft limit
+         */
+        boolean isBackpressured()
+        {
+            return mQueuedBytes.get() > QUEUE_SOFT_LIMIT_BYTES;
+        }
+
+        /**
+         * Verifies that the device can accept more data
+         * @throws IOException if the disk is full or the queue exceeds the hard limit
+         */
+        void checkWritable() throws IOException
+        {
+            if(mDiskFull)
+            {
+                throw new IOException("Insufficient disk space for recordings on device [" + mName + "]");
+            }
+
+            if(mQueuedBytes.get() > QUEUE_HARD_LIMIT_BYTES)
+            {
+                if(!mOverflowWarned)
+                {
+                    mOverflowWarned = true;
+                    mLog.warn("Recording I/O queue limit exceeded on device [" + mName + "] - disk is not keeping up");
+                }
+
+                throw new IOException("Recording I/O queue limit exceeded on device [" + mName + "]");
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            while(true)
+            {
+                try
+                {
+                    Operation operation = mQueue.poll(1, TimeUnit.SECONDS);
+
+                    if(operation != null)
+                    {
+                        mBatch.add(operation);
+                        mQueue.drainTo(mBatch);
+                        process(mBatch);
+                        mBatch.clear();
+                    }
+
+                    checkSpace();
+                }
+                catch(InterruptedException ie)
+                {
+                    return;
+                }
+                catch(Throwable t)
+                {
+                    mLog.error("Error while processing recording I/O on device [" + mName + "]", t);
+                    mBatch.clear();
+                }
+            }
+        }
+
+        /**
+         * Processes a batch of queued operations in order.  Consecutive appends to the same file are gathered into a
+         * single write.  Closes and barriers are deferred to the end of the batch so that the files closed in this
+         * batch are forced together after all writes have been issued.
+         */
+        private void process(List<Operation> batch)
+        {
+            int index = 0;
+
+            while(index < batch.size())
+            {
+                Operation operation = batch.get(index);
+                checkSlow(operation);
+
+                switch(operation.mType)
+                {
+                    case APPEND:
+                        index += append(batch, index);
+                        break;
+                    case WRITE_AT:
+                        writeAt(operation);
+                        index++;
+                        break;
+                    case CLOSE:
+                    case BARRIER:
+                    default:
+                        mDeferred.add(operation);
+                        index++;
+                        break;
+                }
+            }
+
+            for(Operation operation : mDeferred)
+            {
+                if(operation.mType == Operation.Type.CLOSE && operation.mForce && operation.mFile.getError() == null)
+                {
+                    force(operation.mFile);
+                }
+            }
+
+            for(Operation operation : mDeferred)
+            {
+                if(operation.mType == Operation.Type.CLOSE)
+                {
+                    close(operation);
+                }
+                else
+                {
+                    operation.mFuture.complete(null);
+                }
+            }
+
+            mDeferred.clear();
+
+            if(mOverflowWarned && mQueuedBytes.get() < QUEUE_SOFT_LIMIT_BYTES)
+            {
+                mOverflowWarned = false;
+                mLog.info("Recording I/O queue on device [" + mName + "] has returned to normal");
+            }
+        }
+
+        /**
+         * Gathers consecutive appends for the same file starting at the index into a single write
+         * @return number of operations processed
+         */
+        private int append(List<Operation> batch, int index)
+        {
+            RecordingFile file = batch.get(index).mFile;
+            int count = 0;
+            long bytes = 0;
+
+            while(index + count < batch.size() && count < MAXIMUM_GATHER_COUNT)
+            {
+                Operation operation = batch.get(index + count);
+
+                if(operation.mType != Operation.Type.APPEND || operation.mFile != file)
+                {
+                    break;
+                }
+
+                mGather[count++] = operation.mBuffer;
+                bytes += operation.mBuffer.remaining();
+            }
+
+            if(file.getError() == null)
+            {
+                long start = System.nanoTime();
+
+                try
+                {
+                    long remaining = bytes;
+
+                    while(remaining > 0)
+                    {
+                        remaining -= file.getChannel().write(mGather, 0, count);
+                    }
+
+                    getStatistics(file.getCategory()).mBytesWritten.addAndGet(bytes);
+                }
+                catch(IOException ioe)
+                {
+                    error(file, ioe);
+                }
+
+                recordWrite(System.nanoTime() - start);
+            }
+
+            for(int x = 0; x < count; x++)
+            {
+                recycle(mGather[x]);
+                mGather[x] = null;
+            }
+
+            mQueuedBytes.addAndGet(-bytes);
+            return count;
+        }
+
+        /**
+         * Writes the operation buffer at the file position
+         */
+        private void writeAt(Operation operation)
+        {
+            RecordingFile file = operation.mFile;
+            int bytes = operation.mBuffer.remaining();
+
+            if(file.getError() == null)
+            {
+                long start = System.nanoTime();
+
+                try
+                {
+                    while(operation.mBuffer.hasRemaining())
+                    {
+                        file.getChannel().write(operation.mBuffer,
+                            operation.mPosition + bytes - operation.mBuffer.remaining());
+                    }
+                }
+                catch(IOException ioe)
+                {
+                    error(file, ioe);
+                }
+
+                recordWrite(System.nanoTime() - start);
+            }
+
+            mQueuedBytes.addAndGet(-bytes);
+        }
+
+        /**
+         * Forces the file contents to disk
+         */
+        private void force(RecordingFile file)
+        {
+            long start = System.nanoTime();
+
+            try
+            {
+                file.getChannel().force(true);
+            }
+            catch(IOException ioe)
+            {
+                error(file, ioe);
+            }
+
+            long elapsed = System.nanoTime() - start;
+            mSyncLatency.record(elapsed);
+
+            if(TimeUnit.NANOSECONDS.toMillis(elapsed) > SLOW_OPERATION_THRESHOLD_MILLISECONDS)
+            {
+                slow("sync took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+            }
+        }
+
+        /**
+         * Closes and optionally renames the file and completes the close future
+         */
+        private void close(Operation operation)
+        {
+            RecordingFile file = operation.mFile;
+
+            try
+            {
+                file.getChannel().close();
+            }
+            catch(IOException ioe)
+            {
+                error(file, ioe);
+            }
+
+            getStatistics(file.getCategory()).mFilesClosed.incrementAndGet();
+
+            if(file.getError() != null)
+            {
+                operation.mFuture.completeExceptionally(file.getError());
+                return;
+            }
+
+            Path path = file.getPath();
+
+            try
+            {
+                if(operation.mRename != null && Files.exists(path))
+                {
+                    if(Files.exists(operation.mRename))
+                    {
+                        mLog.warn("Duplicate recording file detected - ignoring [" + operation.mRename + "]");
+                        Files.delete(path);
+                    }
+                    else
+                    {
+                        Files.move(path, operation.mRename);
+                        path = operation.mRename;
+                    }
+                }
+
+                operation.mFuture.complete(path);
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error renaming recording file [" + path + "] to [" + operation.mRename + "]", ioe);
+                operation.mFuture.completeExceptionally(ioe);
+            }
+        }
+
+        /**
+         * Records the error against the file and flags the device as full when the error indicates no space.
+         */
+        private void error(RecordingFile file, IOException ioe)
+        {
+            if(file.getError() == null)
+            {
+                mLog.error("Error writing " + file + " on device [" + mName + "]", ioe);
+            }
+
+            file.setError(ioe);
+            getStatistics(file.getCategory()).mErrors.incrementAndGet();
+
+            if(ioe.getMessage() != null && ioe.getMessage().toLowerCase().contains("no space"))
+            {
+                setDiskFull(true);
+            }
+        }
+
+        /**
+         * Records the write latency and flags slow writes
+         */
+        private void recordWrite(long elapsed)
+        {
+            mWriteLatency.record(elapsed);
+
+            if(TimeUnit.NANOSECONDS.toMillis(elapsed) > SLOW_OPERATION_THRESHOLD_MILLISECONDS)
+            {
+                slow("write took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+            }
+        }
+
+        /**
+         * Flags operations that waited in the queue longer than the slow threshold
+         */
+        private void checkSlow(Operation operation)
+        {
+            long age = System.currentTimeMillis() - operation.mTimestamp;
+
+            if(age > SLOW_OPERATION_THRESHOLD_MILLISECONDS)
+            {
+                slow("queued operation waited " + age + " ms");
+            }
+        }
+
+        /**
+         * Counts a slow operation and logs a rate-limited warning
+         */
+        private void slow(String detail)
+        {
+            mSlowOperationCount.incrementAndGet();
+
+            long now = System.currentTimeMillis();
+
+            if(mLastSlowWarning + SLOW_WARNING_INTERVAL_MILLISECONDS < now)
+            {
+                mLastSlowWarning = now;
+                mLog.warn("Slow recording disk detected on device [" + mName + "] - " + detail + " - queue [" +
+                    FileUtils.byteCountToDisplaySize(mQueuedBytes.get()) + "]");
+            }
+        }
+
+        /**
+         * Periodically checks the usable space on the device
+         */
+        private void checkSpace()
+        {
+            long now = System.currentTimeMillis();
+
+            if(mFileStore != null && mLastSpaceCheck + SPACE_CHECK_INTERVAL_MILLISECONDS < now)
+            {
+                mLastSpaceCheck = now;
+
+                try
+                {
+                    setDiskFull(mFileStore.getUsableSpace() < MINIMUM_USABLE_SPACE_BYTES);
+                }
+                catch(IOException ioe)
+                {
+                    mLog.debug("Unable to check usable space on device [" + mName + "]", ioe);
+                }
+            }
+        }
+
+        /**
+         * Updates the disk full state
+         */
+        private void setDiskFull(boolean diskFull)
+        {
+            if(diskFull != mDiskFull)
+            {
+                mDiskFull = diskFull;
+
+                if(diskFull)
+                {
+                    mLog.error("Recording device [" + mName + "] is full - recordings on this device are suspended");
+                }
+                else
+                {
+                    mLog.info("Recording device [" + mName + "] has space available - recordings are resumed");
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ package io.github.dsheirer.record.mp3;
 
 import io.github.dsheirer.audio.convert.MP3AudioConverter;
 import io.github.dsheirer.record.AudioRecorder;
+import io.github.dsheirer.record.io.RecordingCategory;
 import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +70,12 @@ public class MP3Recorder extends AudioRecorder
         }
     }
 
+    @Override
+    protected RecordingCategory getRecordingCategory()
+    {
+        return RecordingCategory.AUDIO_MP3;
+    }
+
     @Override
     protected void flush()
     {
@@ -19,7 +19,6 @@ package io.github.dsheirer.record.wave;
 import io.github.dsheirer.audio.AudioFormats;
 import io.github.dsheirer.identifier.IdentifierCollection;
 import io.github.dsheirer.module.Module;
-import io.github.dsheirer.sample.ConversionUtils;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.OverflowableReusableBufferTransferQueue;
 import io.github.dsheirer.sample.buffer.ReusableAudioPacket;
@@ -53,6 +52,7 @@ public class AudioPacketWaveRecorder extends Module implements Listener<Reusable
     private ScheduledFuture<?> mProcessorHandle;
     private long mLastBufferReceived;
     private List<ReusableAudioPacket> mAudioPacketsToProcess = new ArrayList<>();
+    private byte[] mPCMBuffer = new byte[0];
     private IdentifierCollection mIdentifierCollection;
     private AtomicBoolean mRunning = new AtomicBoolean();
 
@@ -217,7 +217,7 @@ public class AudioPacketWaveRecorder extends Module implements Listener<Reusable
                     mIdentifierCollection = audioPacket.getIdentifierCollection();
                 }
 
-                mWriter.writeData(ConversionUtils.convertToSigned16BitSamples(audioPacket.getAudioSamples()));
+                writeSamples(audioPacket.getAudioSamples());
             }
 
             try
@@ -233,6 +233,30 @@ public class AudioPacketWaveRecorder extends Module implements Listener<Reusable
         mAudioPacketsToProcess.clear();
     }
 
+    /**
+     * Converts the samples to 16-bit little endian PCM in a reusable buffer and writes them to the file.
+     */
+    private void writeSamples(float[] samples) throws IOException
+    {
+        int length = samples.length * 2;
+
+        if(mPCMBuffer.length < length)
+        {
+            mPCMBuffer = new byte[length];
+        }
+
+        int offset = 0;
+
+        for(float sample : samples)
+        {
+            short value = (short)(sample * Short.MAX_VALUE);
+            mPCMBuffer[offset++] = (byte)value;
+            mPCMBuffer[offset++] = (byte)(value >> 8);
+        }
+
+        mWriter.writeData(mPCMBuffer, 0, length);
+    }
+
     /**
      * Scheduled runnable to periodically write the enqueued audio packets to the file
      */
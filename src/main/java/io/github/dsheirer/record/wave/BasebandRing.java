@@ -0,0 +1,445 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+
+package io.github.dsheirer.record.wave;
+
+import io.github.dsheirer.record.io.RecordingCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time-indexed circular store of 16-bit complex (I&Q) baseband samples backed by a memory-mapped file.
+ *
+ * The ring is sized by duration at the configured sample rate and holds the most recent samples written to it.  Each
+ * written buffer is indexed by its sample timestamp so that a time window can later be copied out of the ring and
+ * written to a wave file (snapshot) while the ring continues to accept samples.
+ *
+ * Threading: a single writer thread invokes write().  Snapshots may be taken concurrently from any thread.  The data
+ * copy does not block the writer.  The writer publishes the end of the region it is about to overwrite (write limit)
+ * before storing samples and publishes the write position afterwards.  After copying, the snapshot re-checks the write
+ * limit and trims any leading samples that the writer overwrote, or was overwriting, during the copy.  Only the small
+ * timestamp index is guarded by a lock.
+ */
+public class BasebandRing implements AutoCloseable
+{
+    private final static Logger mLog = LoggerFactory.getLogger(BasebandRing.class);
+
+    public static final int DEFAULT_INDEX_SIZE = 4096;
+
+    private final AudioFormat mAudioFormat;
+    private final Path mFile;
+    private final FileChannel mFileChannel;
+    private final MappedByteBuffer mMappedBuffer;
+    private final ShortBuffer mWriteBuffer;
+    private final int mCapacity;
+    private final int mFrameSize;
+    private final double mFramesPerMillisecond;
+    private short[] mConversionBuffer = new short[0];
+
+    //Timestamp index: buffer start timestamp and absolute (unwrapped) byte position of the buffer in the ring
+    private final long[] mIndexTimestamps;
+    private final long[] mIndexPositions;
+    private long mIndexCount;
+
+    //Absolute (unwrapped) count of bytes written to the ring, published after each buffer is copied into the ring
+    private volatile long mWritePosition;
+
+    //Absolute (unwrapped) end position of the buffer that is being copied into the ring, published before the copy
+    private volatile long mWriteLimit;
+    private volatile boolean mClosed;
+
+    private final LongAdder mBytesWritten = new LongAdder();
+    private final LongAdder mWriteNanos = new LongAdder();
+    private final LongAdder mSnapshotCount = new LongAdder();
+    private final LongAdder mSnapshotNanos = new LongAdder();
+    private final LongAdder mSnapshotBytes = new LongAdder();
+    private final LongAdder mSnapshotTrimmedBytes = new LongAdder();
+    private volatile long mSnapshotMaxNanos;
+
+    /**
+     * Constructs a ring that holds the specified duration of samples in the audio format, backed by the file.  Any
+     * existing file is truncated.
+     *
+     * @param format of the samples (16-bit, 2 channel, little endian)
+     * @param file to memory-map for the ring contents
+     * @param durationSeconds of samples to retain in the ring
+     * @param indexSize number of buffer timestamps to retain in the index
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public BasebandRing(AudioFormat format, Path file, int durationSeconds, int indexSize) throws IOException
+    {
+        if(format.getSampleSizeInBits() != 16 || format.getChannels() != 2 || format.isBigEndian())
+        {
+            throw new IllegalArgumentException("Baseband ring requires 16-bit 2-channel little endian samples");
+        }
+
+        if(durationSeconds < 1 || indexSize < 1)
+        {
+            throw new IllegalArgumentException("Baseband ring duration and index size must be positive");
+        }
+
+        mAudioFormat = format;
+        mFile = file;
+        mFrameSize = format.getFrameSize();
+        mFramesPerMillisecond = format.getSampleRate() / 1000.0d;
+
+        long frames = (long)Math.ceil(format.getSampleRate() * durationSeconds);
+        long capacity = Math.min(frames * mFrameSize, Integer.MAX_VALUE - (Integer.MAX_VALUE % mFrameSize));
+        mCapacity = (int)capacity;
+
+        mIndexTimestamps = new long[indexSize];
+        mIndexPositions = new long[indexSize];
+
+        mFileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        try
+        {
+            mMappedBuffer = mFileChannel.map(FileChannel.MapMode.READ_WRITE, 0, mCapacity);
+        }
+        catch(IOException ioe)
+        {
+            mFileChannel.close();
+            throw ioe;
+        }
+
+        mMappedBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        mWriteBuffer = mMappedBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    }
+
+    /**
+     * Constructs a ring with the default index size.
+     */
+    public BasebandRing(AudioFormat format, Path file, int durationSeconds) throws IOException
+    {
+        this(format, file, durationSeconds, DEFAULT_INDEX_SIZE);
+    }
+
+    /**
+     * Audio format of the samples held in this ring
+     */
+    public AudioFormat getAudioFormat()
+    {
+        return mAudioFormat;
+    }
+
+    /**
+     * Backing file for this ring
+     */
+    public Path getFile()
+    {
+        return mFile;
+    }
+
+    /**
+     * Capacity of the ring in bytes
+     */
+    public int getCapacity()
+    {
+        return mCapacity;
+    }
+
+    /**
+     * Absolute (unwrapped) count of bytes written to this ring
+     */
+    public long getWritePosition()
+    {
+        return mWritePosition;
+    }
+
+    /**
+     * Writes the interleaved complex float samples to the ring, converted to signed 16-bit samples.  This method must
+     * only be invoked by a single writer thread.
+     *
+     * @param samples interleaved inphase and quadrature samples in the range -1.0 to 1.0
+     * @param timestamp of the first sample in milliseconds since epoch
+     */
+    public void write(float[] samples, long timestamp)
+    {
+        if(mClosed)
+        {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        //Whole frames only, and never more than the ring can hold (keep the most recent samples)
+        int length = samples.length - (samples.length % 2);
+        int offset = 0;
+
+        if(length * 2 > mCapacity)
+        {
+            offset = length - (mCapacity / 2);
+            timestamp += (long)((offset / 2) / mFramesPerMillisecond);
+            length = mCapacity / 2;
+        }
+
+        if(length == 0)
+        {
+            return;
+        }
+
+        if(mConversionBuffer.length < length)
+        {
+            mConversionBuffer = new short[length];
+        }
+
+        for(int x = 0; x < length; x++)
+        {
+            mConversionBuffer[x] = (short)(samples[offset + x] * Short.MAX_VALUE);
+        }
+
+        long position = mWritePosition;
+
+        synchronized(mIndexTimestamps)
+        {
+            int slot = (int)(mIndexCount % mIndexTimestamps.length);
+            mIndexTimestamps[slot] = timestamp;
+            mIndexPositions[slot] = position;
+            mIndexCount++;
+        }
+
+        //Reserve the region before storing samples so that a concurrent snapshot can detect an overwrite in progress
+        mWriteLimit = position + (length * 2);
+        VarHandle.releaseFence();
+
+        int shortCapacity = mCapacity / 2;
+        int shortOffset = (int)((position / 2) % shortCapacity);
+        int firstPart = Math.min(length, shortCapacity - shortOffset);
+
+        mWriteBuffer.position(shortOffset);
+        mWriteBuffer.put(mConversionBuffer, 0, firstPart);
+
+        if(firstPart < length)
+        {
+            mWriteBuffer.position(0);
+            mWriteBuffer.put(mConversionBuffer, firstPart, length - firstPart);
+        }
+
+        mWritePosition = position + (length * 2);
+
+        mBytesWritten.add(length * 2);
+        mWriteNanos.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Resolves the absolute byte position in the ring of the sample at the timestamp, using the closest indexed
+     * buffer that starts at or before the timestamp.  Timestamps before the oldest indexed buffer resolve to the
+     * oldest indexed buffer.
+     *
+     * @return frame-aligned absolute byte position or -1 if the index is empty
+     */
+    private long getPosition(long timestamp)
+    {
+        synchronized(mIndexTimestamps)
+        {
+            if(mIndexCount == 0)
+            {
+                return -1;
+            }
+
+            int size = (int)Math.min(mIndexCount, mIndexTimestamps.length);
+            long oldestSlot = mIndexCount - size;
+
+            //Walk backwards from the newest entry to find the first buffer that starts at or before the timestamp
+            for(long x = mIndexCount - 1; x >= oldestSlot; x--)
+            {
+                int slot = (int)(x % mIndexTimestamps.length);
+
+                if(mIndexTimestamps[slot] <= timestamp)
+                {
+                    long frames = (long)((timestamp - mIndexTimestamps[slot]) * mFramesPerMillisecond);
+                    return mIndexPositions[slot] + (frames * mFrameSize);
+                }
+            }
+
+            return mIndexPositions[(int)(oldestSlot % mIndexTimestamps.length)];
+        }
+    }
+
+    /**
+     * Copies the samples between the start and end timestamps out of the ring and writes them to a baseband wave
+     * file.  The window is clipped to the samples currently held in the ring.  The ring continues to accept samples
+     * from the writer thread while the snapshot is taken.
+     *
+     * @param startTimestamp of the window in milliseconds since epoch
+     * @param endTimestamp of the window in milliseconds since epoch
+     * @param file to write the wave recording to
+     * @return number of sample bytes written to the wave file, or zero if the window is not held in the ring
+     * @throws IOException if there is an error writing the wave file
+     */
+    public long snapshot(long startTimestamp, long endTimestamp, Path file) throws IOException
+    {
+        long start = System.nanoTime();
+
+        ByteBuffer samples = copy(startTimestamp, endTimestamp);
+
+        if(samples == null)
+        {
+            return 0;
+        }
+
+        try(WaveWriter writer = new WaveWriter(mAudioFormat, file, RecordingCategory.BASEBAND))
+        {
+            writer.writeData(samples);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        mSnapshotCount.increment();
+        mSnapshotNanos.add(elapsed);
+        mSnapshotBytes.add(samples.capacity());
+
+        if(elapsed > mSnapshotMaxNanos)
+        {
+            mSnapshotMaxNanos = elapsed;
+        }
+
+        return samples.capacity();
+    }
+
+    /**
+     * Copies the samples between the start and end timestamps out of the ring.
+     *
+     * @return buffer of samples positioned at zero or null if the window is not held in the ring
+     */
+    ByteBuffer copy(long startTimestamp, long endTimestamp)
+    {
+        if(mClosed || endTimestamp <= startTimestamp)
+        {
+            return null;
+        }
+
+        long written = mWritePosition;
+        long startPosition = getPosition(startTimestamp);
+        long endPosition = getPosition(endTimestamp);
+
+        if(startPosition < 0)
+        {
+            return null;
+        }
+
+        //Clip the window to the samples currently held in the ring
+        startPosition = Math.max(startPosition, written - mCapacity);
+        startPosition = Math.max(startPosition, 0);
+        endPosition = Math.min(endPosition, written);
+
+        if(endPosition <= startPosition)
+        {
+            return null;
+        }
+
+        int length = (int)(endPosition - startPosition);
+        byte[] bytes = new byte[length];
+        ByteBuffer reader = mMappedBuffer.duplicate();
+        int offset = (int)(startPosition % mCapacity);
+        int firstPart = Math.min(length, mCapacity - offset);
+
+        reader.position(offset);
+        reader.get(bytes, 0, firstPart);
+
+        if(firstPart < length)
+        {
+            reader.position(0);
+            reader.get(bytes, firstPart, length - firstPart);
+        }
+
+        //Trim any leading samples that the writer overwrote, or is in the process of overwriting, while we were
+        //copying.  The write limit is reserved before the writer stores samples into the ring.
+        VarHandle.acquireFence();
+        long overwritten = mWriteLimit - mCapacity - startPosition;
+
+        if(overwritten > 0)
+        {
+            overwritten += (mFrameSize - (overwritten % mFrameSize)) % mFrameSize;
+            mSnapshotTrimmedBytes.add(Math.min(overwritten, length));
+
+            if(overwritten >= length)
+            {
+                return null;
+            }
+
+            return ByteBuffer.wrap(bytes, (int)overwritten, (int)(length - overwritten)).slice();
+        }
+
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Closes the ring and deletes the backing file.  Any subsequent writes or snapshots are ignored.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if(!mClosed)
+        {
+            mClosed = true;
+            mFileChannel.close();
+
+            try
+            {
+                Files.deleteIfExists(mFile);
+            }
+            catch(IOException ioe)
+            {
+                //Some platforms won't delete a file while it remains memory-mapped
+                mLog.debug("Unable to delete baseband ring file [" + mFile + "]");
+            }
+        }
+    }
+
+    /**
+     * Write throughput and snapshot latency statistics for this ring
+     */
+    public String getStatistics()
+    {
+        long bytes = mBytesWritten.sum();
+        long writeNanos = mWriteNanos.sum();
+        long snapshots = mSnapshotCount.sum();
+        long snapshotNanos = mSnapshotNanos.sum();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Baseband Ring [").append(mFile.getFileName()).append("]");
+        sb.append(" Capacity:").append(mCapacity / 1024).append("KB");
+        sb.append(" Written:").append(bytes / 1024).append("KB");
+        sb.append(String.format(" Write Throughput:%.1fMB/s",
+            writeNanos > 0 ? (bytes / 1048576.0d) / (writeNanos / 1E9d) : 0.0d));
+        sb.append(" Snapshots:").append(snapshots);
+        sb.append(" Snapshot Bytes:").append(mSnapshotBytes.sum() / 1024).append("KB");
+        sb.append(" Trimmed:").append(mSnapshotTrimmedBytes.sum()).append("B");
+        sb.append(String.format(" Snapshot Latency Avg:%.2fms Max:%.2fms",
+            snapshots > 0 ? (snapshotNanos / (double)snapshots) / 1E6d : 0.0d, mSnapshotMaxNanos / 1E6d));
+        return sb.toString();
+    }
+}
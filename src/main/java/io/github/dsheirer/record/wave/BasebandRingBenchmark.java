@@ -0,0 +1,214 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.record.wave;
+
+import io.github.dsheirer.record.io.RecordingIOService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures the write throughput of the memory-mapped baseband ring and the latency of taking snapshots from the ring
+ * while a writer thread continuously fills it, at a channel sample rate and at a tuner sample rate.
+ *
+ * Each sample carries a sequence value so that every copied window can be checked for contiguity, which verifies
+ * that snapshots never return samples the writer overwrote during the copy.
+ */
+public class BasebandRingBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(BasebandRingBenchmark.class);
+
+    private static final int BUFFER_SAMPLES = 2048;
+    private static final int SEQUENCE_MODULUS = 30000;
+    private static final int SNAPSHOTS = 50;
+    private static final long SNAPSHOT_WINDOW_MILLISECONDS = 5000;
+
+    /**
+     * Creates an interleaved complex buffer where the inphase sample carries the frame sequence value
+     */
+    private static float[] createBuffer(long frame)
+    {
+        float[] samples = new float[BUFFER_SAMPLES * 2];
+
+        for(int x = 0; x < BUFFER_SAMPLES; x++)
+        {
+            samples[x * 2] = (((frame + x) % SEQUENCE_MODULUS) + 0.5f) / Short.MAX_VALUE;
+            samples[x * 2 + 1] = -0.25f;
+        }
+
+        return samples;
+    }
+
+    /**
+     * Verifies that the inphase sequence values in the copied window are contiguous
+     */
+    private static boolean isContiguous(ByteBuffer copy)
+    {
+        ByteBuffer buffer = copy.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int previous = buffer.getShort(0);
+
+        for(int x = 4; x + 4 <= buffer.limit(); x += 4)
+        {
+            int current = buffer.getShort(x);
+
+            if(current != (previous + 1) % SEQUENCE_MODULUS)
+            {
+                return false;
+            }
+
+            previous = current;
+        }
+
+        return true;
+    }
+
+    private static void run(String label, float sampleRate, int ringSeconds, Path directory) throws Exception
+    {
+        AudioFormat format = new AudioFormat(sampleRate, 16, 2, true, false);
+        BasebandRing ring = new BasebandRing(format, directory.resolve(label + "_baseband.ring"), ringSeconds);
+
+        //Pre-built buffers so that the measurement covers the ring write only
+        float[][] buffers = new float[SEQUENCE_MODULUS][];
+        int distinct = 0;
+
+        for(long frame = 0; distinct < buffers.length; frame += BUFFER_SAMPLES)
+        {
+            int key = (int)(frame % SEQUENCE_MODULUS);
+
+            if(buffers[key] == null)
+            {
+                buffers[key] = createBuffer(frame);
+            }
+
+            distinct++;
+
+            if(frame > (long)SEQUENCE_MODULUS * BUFFER_SAMPLES)
+            {
+                break;
+            }
+        }
+
+        long baseTimestamp = 1_600_000_000_000L;
+        double framesPerMillisecond = sampleRate / 1000.0d;
+
+        //Phase 1: single thread write throughput over four ring capacities
+        long totalFrames = (long)ring.getCapacity() / format.getFrameSize() * 4;
+        long start = System.nanoTime();
+        long frame = 0;
+
+        while(frame < totalFrames)
+        {
+            ring.write(buffers[(int)(frame % SEQUENCE_MODULUS)], baseTimestamp + (long)(frame / framesPerMillisecond));
+            frame += BUFFER_SAMPLES;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1E9d;
+        double megabytes = (frame * format.getFrameSize()) / 1048576.0d;
+        mLog.info(String.format("%s %.0f Hz ring %ds (%dKB) - write throughput %.1f MB/s, %.1f Msps, %.0fx real time",
+            label, sampleRate, ringSeconds, ring.getCapacity() / 1024, megabytes / seconds,
+            (frame / seconds) / 1E6d, (frame / seconds) / sampleRate));
+
+        //Phase 2: snapshots while a writer thread fills the ring at the real time sample rate
+        AtomicBoolean running = new AtomicBoolean(true);
+        long firstWriterFrame = frame;
+
+        Thread writer = new Thread(() ->
+        {
+            long f = firstWriterFrame;
+            long writerStart = System.nanoTime();
+
+            while(running.get())
+            {
+                ring.write(buffers[(int)(f % SEQUENCE_MODULUS)], baseTimestamp + (long)(f / framesPerMillisecond));
+                f += BUFFER_SAMPLES;
+
+                long due = writerStart + (long)(((f - firstWriterFrame) / (double)sampleRate) * 1E9d);
+
+                while(System.nanoTime() < due && running.get())
+                {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        writer.start();
+
+        long copyNanos = 0;
+        long copyMax = 0;
+        int contiguous = 0;
+        int copies = 0;
+
+        for(int x = 0; x < SNAPSHOTS; x++)
+        {
+            long now = baseTimestamp + (long)((ring.getWritePosition() / format.getFrameSize()) / framesPerMillisecond);
+            long copyStart = System.nanoTime();
+            ByteBuffer copy = ring.copy(now - SNAPSHOT_WINDOW_MILLISECONDS, now);
+            long elapsed = System.nanoTime() - copyStart;
+
+            if(copy != null)
+            {
+                copies++;
+                copyNanos += elapsed;
+                copyMax = Math.max(copyMax, elapsed);
+
+                if(isContiguous(copy))
+                {
+                    contiguous++;
+                }
+            }
+
+            Path snapshot = directory.resolve(label + "_snapshot_" + x + ".wav");
+            ring.snapshot(now - SNAPSHOT_WINDOW_MILLISECONDS, now, snapshot);
+            Thread.sleep(20);
+        }
+
+        running.set(false);
+        writer.join();
+
+        mLog.info(String.format("%s %ds window copy latency avg %.2f ms max %.2f ms - %d/%d copies contiguous",
+            label, SNAPSHOT_WINDOW_MILLISECONDS / 1000, (copyNanos / (double)Math.max(copies, 1)) / 1E6d,
+            copyMax / 1E6d, contiguous, copies));
+        mLog.info(ring.getStatistics());
+
+        ring.close();
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Path directory = Files.createTempDirectory("baseband_ring");
+
+        run("channel", 25000.0f, 30, directory);
+        run("tuner", 2400000.0f, 10, directory);
+
+        RecordingIOService.getInstance().flush();
+        RecordingIOService.getInstance().logStatistics();
+
+        Files.list(directory).forEach(path -> path.toFile().delete());
+        Files.deleteIfExists(directory);
+        System.exit(0);
+    }
+}
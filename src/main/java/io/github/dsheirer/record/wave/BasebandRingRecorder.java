@@ -0,0 +1,415 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+
+package io.github.dsheirer.record.wave;
+
+import io.github.dsheirer.dsp.filter.channelizer.ContinuousReusableBufferProcessor;
+import io.github.dsheirer.module.Module;
+import io.github.dsheirer.module.decode.event.IDecodeEvent;
+import io.github.dsheirer.module.decode.event.IDecodeEventListener;
+import io.github.dsheirer.sample.INonCriticalListener;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.buffer.IReusableComplexBufferListener;
+import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
+import io.github.dsheirer.source.ISourceEventListener;
+import io.github.dsheirer.source.SourceEvent;
+import io.github.dsheirer.util.StringUtils;
+import io.github.dsheirer.util.ThreadPool;
+import io.github.dsheirer.util.TimeStamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Baseband I&Q ring recorder module.  Continuously records channel samples into a time-indexed memory-mapped ring
+ * (see BasebandRing) and writes a wave file snapshot of a time window around any decode event that matches the
+ * trigger, without interrupting the live recording.  Snapshots can also be requested directly via the snapshot()
+ * methods, for example from an alias action.
+ */
+public class BasebandRingRecorder extends Module implements IReusableComplexBufferListener,
+    Listener<ReusableComplexBuffer>, ISourceEventListener, IDecodeEventListener, INonCriticalListener
+{
+    private final static Logger mLog = LoggerFactory.getLogger(BasebandRingRecorder.class);
+
+    public static final int DEFAULT_RING_SECONDS = 30;
+    public static final long DEFAULT_PRE_TRIGGER_MILLISECONDS = 20000;
+    public static final long DEFAULT_POST_TRIGGER_MILLISECONDS = 5000;
+    public static final String RING_FILE_INFIX = "_baseband_";
+    public static final String RING_FILE_SUFFIX = ".ring";
+
+    /**
+     * Default trigger: any emergency decode event
+     */
+    public static final Predicate<IDecodeEvent> EMERGENCY_TRIGGER = event ->
+        (event.getEventDescription() != null && event.getEventDescription().toUpperCase().contains("EMERGENCY")) ||
+        (event.getDetails() != null && event.getDetails().toUpperCase().contains("EMERGENCY"));
+
+    private ContinuousReusableBufferProcessor<ReusableComplexBuffer> mBufferProcessor =
+        new ContinuousReusableBufferProcessor<>(500, 50);
+
+    private AtomicBoolean mRunning = new AtomicBoolean();
+    private volatile BasebandRing mRing;
+    private String mFilePrefix;
+    private int mRingSeconds;
+    private AudioFormat mAudioFormat;
+    private Predicate<IDecodeEvent> mTrigger = EMERGENCY_TRIGGER;
+    private long mPreTriggerMilliseconds = DEFAULT_PRE_TRIGGER_MILLISECONDS;
+    private long mPostTriggerMilliseconds = DEFAULT_POST_TRIGGER_MILLISECONDS;
+    private long mPendingSnapshotEnd;
+    private DecodeEventTrigger mDecodeEventTrigger = new DecodeEventTrigger();
+
+    /**
+     * Constructs a ring recorder
+     *
+     * @param sampleRate of the channel samples
+     * @param filePrefix (path and channel name) for the ring file and snapshot recordings
+     * @param ringSeconds duration of samples to retain in the ring
+     */
+    public BasebandRingRecorder(float sampleRate, String filePrefix, int ringSeconds)
+    {
+        mFilePrefix = filePrefix;
+        mRingSeconds = ringSeconds;
+        setSampleRate(sampleRate);
+    }
+
+    public BasebandRingRecorder(float sampleRate, String filePrefix)
+    {
+        this(sampleRate, filePrefix, DEFAULT_RING_SECONDS);
+    }
+
+    public void setSampleRate(float sampleRate)
+    {
+        if(mAudioFormat == null || mAudioFormat.getSampleRate() != sampleRate)
+        {
+            mAudioFormat = new AudioFormat(sampleRate, 16, 2, true, false);
+
+            if(mRunning.get())
+            {
+                stop();
+                start();
+            }
+        }
+    }
+
+    /**
+     * Sets the predicate that selects the decode events that trigger a snapshot
+     */
+    public void setTrigger(Predicate<IDecodeEvent> trigger)
+    {
+        mTrigger = trigger;
+    }
+
+    /**
+     * Sets the duration of the snapshot window before and after a triggering decode event
+     */
+    public void setTriggerWindow(long preTriggerMilliseconds, long postTriggerMilliseconds)
+    {
+        mPreTriggerMilliseconds = preTriggerMilliseconds;
+        mPostTriggerMilliseconds = postTriggerMilliseconds;
+    }
+
+    /**
+     * Current ring or null if the recorder is not running
+     */
+    public BasebandRing getRing()
+    {
+        return mRing;
+    }
+
+    public void start()
+    {
+        if(mRunning.compareAndSet(false, true))
+        {
+            Path ringFile = null;
+
+            try
+            {
+                ringFile = createRingFile();
+                mRing = new BasebandRing(mAudioFormat, ringFile, mRingSeconds);
+                mBufferProcessor.setListener(new RingWriter(mRing));
+                mBufferProcessor.start();
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error starting baseband ring recorder", ioe);
+                mRing = null;
+                mRunning.set(false);
+
+                if(ringFile != null)
+                {
+                    try
+                    {
+                        Files.deleteIfExists(ringFile);
+                    }
+                    catch(IOException ioe2)
+                    {
+                        mLog.debug("Unable to delete baseband ring file [" + ringFile + "]");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a uniquely named ring file in the recordings directory.  Each start uses a new file so that a ring file
+     * that some platforms still hold memory-mapped after a stop is never reopened and truncated.
+     */
+    private Path createRingFile() throws IOException
+    {
+        Path prefix = Paths.get(mFilePrefix + RING_FILE_INFIX).toAbsolutePath();
+        return Files.createTempFile(prefix.getParent(), prefix.getFileName().toString(), RING_FILE_SUFFIX);
+    }
+
+    /**
+     * Deletes ring files left in the directory by a previous run, for example when the platform wouldn't delete a
+     * ring file that was still memory-mapped when it was closed.  Invoke at startup, before any ring recorder starts.
+     *
+     * @param directory containing the ring files
+     */
+    public static void deleteStaleRingFiles(Path directory)
+    {
+        if(directory == null || !Files.isDirectory(directory))
+        {
+            return;
+        }
+
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*_baseband*" + RING_FILE_SUFFIX))
+        {
+            for(Path path: stream)
+            {
+                try
+                {
+                    Files.deleteIfExists(path);
+                    mLog.info("Deleted stale baseband ring file [" + path + "]");
+                }
+                catch(IOException ioe)
+                {
+                    mLog.warn("Unable to delete stale baseband ring file [" + path + "]");
+                }
+            }
+        }
+        catch(IOException ioe)
+        {
+            mLog.error("Error deleting stale baseband ring files from [" + directory + "]", ioe);
+        }
+    }
+
+    public void stop()
+    {
+        if(mRunning.compareAndSet(true, false))
+        {
+            mBufferProcessor.stop();
+            mBufferProcessor.setListener(null);
+
+            BasebandRing ring = mRing;
+            mRing = null;
+
+            if(ring != null)
+            {
+                mLog.info(ring.getStatistics());
+
+                try
+                {
+                    ring.close();
+                }
+                catch(IOException ioe)
+                {
+                    mLog.error("Error closing baseband ring", ioe);
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules a snapshot of the ring covering the time window around the trigger timestamp.  The snapshot is taken
+     * once the post-trigger portion of the window has been recorded.
+     *
+     * @param triggerTimestamp in milliseconds since epoch
+     * @param label to include in the recording file name
+     * @return future for the snapshot recording path, or null if the recorder is not running
+     */
+    public ScheduledFuture<Path> snapshot(long triggerTimestamp, String label)
+    {
+        return snapshot(triggerTimestamp - mPreTriggerMilliseconds, triggerTimestamp + mPostTriggerMilliseconds, label);
+    }
+
+    /**
+     * Schedules a snapshot of the ring covering the time window.  The snapshot is taken once the end of the window
+     * has been recorded, or immediately if the window is in the past.
+     *
+     * @param startTimestamp of the window in milliseconds since epoch
+     * @param endTimestamp of the window in milliseconds since epoch
+     * @param label to include in the recording file name
+     * @return future for the snapshot recording path (null path if the window wasn't available), or null if the
+     * recorder is not running
+     */
+    public ScheduledFuture<Path> snapshot(long startTimestamp, long endTimestamp, String label)
+    {
+        if(!mRunning.get())
+        {
+            return null;
+        }
+
+        long delay = Math.max(endTimestamp - System.currentTimeMillis(), 0);
+
+        return ThreadPool.SCHEDULED.schedule(() ->
+        {
+            BasebandRing ring = mRing;
+
+            if(ring == null)
+            {
+                return null;
+            }
+
+            StringBuilder sb = new StringBuilder();
+            sb.append(mFilePrefix).append("_snapshot_");
+            sb.append(TimeStamp.getTimeStamp(startTimestamp, "_"));
+
+            if(label != null && !label.isEmpty())
+            {
+                sb.append("_").append(StringUtils.replaceIllegalCharacters(label));
+            }
+
+            sb.append(".wav");
+            Path path = Paths.get(sb.toString());
+
+            try
+            {
+                if(ring.snapshot(startTimestamp, endTimestamp, path) > 0)
+                {
+                    return path;
+                }
+
+                mLog.debug("Baseband ring snapshot window is no longer available [" + path + "]");
+            }
+            catch(IOException ioe)
+            {
+                mLog.error("Error writing baseband ring snapshot [" + path + "]", ioe);
+            }
+
+            return null;
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void receive(ReusableComplexBuffer buffer)
+    {
+        //Queue the buffer with the buffer processor so that ring writes occur on the buffer processor thread
+        mBufferProcessor.receive(buffer);
+    }
+
+    @Override
+    public Listener<ReusableComplexBuffer> getReusableComplexBufferListener()
+    {
+        return this;
+    }
+
+    @Override
+    public Listener<IDecodeEvent> getDecodeEventListener()
+    {
+        return mDecodeEventTrigger;
+    }
+
+    @Override
+    public void dispose()
+    {
+        stop();
+    }
+
+    @Override
+    public void reset()
+    {
+    }
+
+    @Override
+    public Listener<SourceEvent> getSourceEventListener()
+    {
+        return new Listener<SourceEvent>()
+        {
+            @Override
+            public void receive(SourceEvent sourceEvent)
+            {
+                switch(sourceEvent.getEvent())
+                {
+                    case NOTIFICATION_SAMPLE_RATE_CHANGE:
+                        setSampleRate(sourceEvent.getValue().floatValue());
+                        break;
+                }
+            }
+        };
+    }
+
+    /**
+     * Snapshots the ring for decode events that match the trigger.  Events that fall within the window of a pending
+     * snapshot, including producer updates to the triggering event, don't schedule another snapshot.
+     */
+    private class DecodeEventTrigger implements Listener<IDecodeEvent>
+    {
+        @Override
+        public void receive(IDecodeEvent event)
+        {
+            Predicate<IDecodeEvent> trigger = mTrigger;
+
+            if(trigger != null && trigger.test(event) && event.getTimeStart() > mPendingSnapshotEnd)
+            {
+                if(snapshot(event.getTimeStart(), event.getEventDescription()) != null)
+                {
+                    mPendingSnapshotEnd = event.getTimeStart() + mPostTriggerMilliseconds;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes reusable complex buffers delivered from the buffer processor into the ring
+     */
+    private class RingWriter implements Listener<List<ReusableComplexBuffer>>
+    {
+        private final BasebandRing mTargetRing;
+
+        public RingWriter(BasebandRing ring)
+        {
+            mTargetRing = ring;
+        }
+
+        @Override
+        public void receive(List<ReusableComplexBuffer> reusableComplexBuffers)
+        {
+            for(ReusableComplexBuffer reusableComplexBuffer: reusableComplexBuffers)
+            {
+                mTargetRing.write(reusableComplexBuffer.getSamples(), reusableComplexBuffer.getTimestamp());
+                reusableComplexBuffer.decrementUserCount();
+            }
+        }
+    }
+}
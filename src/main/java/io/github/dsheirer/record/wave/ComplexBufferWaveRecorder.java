@@ -17,7 +17,9 @@ package io.github.dsheirer.record.wave;
 
 import io.github.dsheirer.dsp.filter.channelizer.ContinuousReusableBufferProcessor;
 import io.github.dsheirer.module.Module;
+import io.github.dsheirer.record.io.RecordingCategory;
 import io.github.dsheirer.sample.ConversionUtils;
+import io.github.dsheirer.sample.INonCriticalListener;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.IReusableComplexBufferListener;
 import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
@@ -40,7 +42,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * WAVE audio recorder module for recording complex (I&Q) samples to a wave file
  */
 public class ComplexBufferWaveRecorder extends Module implements IReusableComplexBufferListener,
-    Listener<ReusableComplexBuffer>, ISourceEventListener
+    Listener<ReusableComplexBuffer>, ISourceEventListener, INonCriticalListener
 {
     private final static Logger mLog = LoggerFactory.getLogger(ComplexBufferWaveRecorder.class);
 
@@ -183,9 +185,11 @@ public class ComplexBufferWaveRecorder extends Module implements IReusableComple
      */
     public class ReusableBufferWaveWriter extends WaveWriter implements Listener<List<ReusableComplexBuffer>>
     {
+        private boolean mDiscarding;
+
         public ReusableBufferWaveWriter(AudioFormat format, Path file) throws IOException
         {
-            super(format, file);
+            super(format, file, RecordingCategory.BASEBAND);
         }
 
         @Override
@@ -195,8 +199,21 @@ public class ComplexBufferWaveRecorder extends Module implements IReusableComple
 
             for(ReusableComplexBuffer reusableComplexBuffer: reusableComplexBuffers)
             {
-                if(!error)
+                if(!error && isBackpressured())
                 {
+                    //Shed load while the recording device has a write backlog, rather than failing the recording
+                    if(!mDiscarding)
+                    {
+                        mDiscarding = true;
+                        mLog.warn("Recording device write backlog - discarding baseband samples [" + mFile + "]");
+                    }
+
+                    discarded(reusableComplexBuffer.getSamples().length * 2);
+                }
+                else if(!error)
+                {
+                    mDiscarding = false;
+
                     try
                     {
                         mWriter.writeData(ConversionUtils.convertToSigned16BitSamples(reusableComplexBuffer));
@@ -19,6 +19,10 @@
  */
 package io.github.dsheirer.record.wave;
 
+import io.github.dsheirer.properties.SystemProperties;
+import io.github.dsheirer.record.io.RecordingCategory;
+import io.github.dsheirer.record.io.RecordingFile;
+import io.github.dsheirer.record.io.RecordingIOService;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,19 +31,34 @@ import javax.sound.sampled.AudioFormat;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Wave file writer.
+ *
+ * Data is written asynchronously through the recording I/O service.  The file size is tracked in memory and the RIFF
+ * and data chunk size fields are patched once when the file is closed (or rolled over), so a file that is not closed
+ * normally will have a valid header with zero length size fields.
+ *
+ * Durability of closed files is configurable via the wave.writer.durability system property:
+ * <ul>
+ *     <li>SYNC - the file is forced to disk, closed and renamed before close() returns</li>
+ *     <li>DEFERRED - (default) the file is forced to disk, closed and renamed on the recording I/O thread</li>
+ *     <li>NONE - the file is closed and renamed on the recording I/O thread without forcing it to disk</li>
+ * </ul>
+ */
 public class WaveWriter implements AutoCloseable
 {
     private final static Logger mLog = LoggerFactory.getLogger(WaveWriter.class);
 
+    public static final String PROPERTY_DURABILITY = "wave.writer.durability";
+
     public static final String RIFF_ID = "RIFF";
     public static final int INITIAL_TOTAL_LENGTH = 4;
     public static final String WAVE_ID = "WAVE";
@@ -53,14 +72,46 @@ public class WaveWriter implements AutoCloseable
     private static final Pattern FILENAME_PATTERN = Pattern.compile("(.*_)(\\d+)(\\.tmp)");
     public static final long MAX_WAVE_SIZE = 2l * (long)Integer.MAX_VALUE;
 
+    private static final int RIFF_SIZE_OFFSET = 4;
+
     private AudioFormat mAudioFormat;
+    private Durability mDurability;
+    private RecordingCategory mCategory;
     private int mFileRolloverCounter = 1;
     private long mMaxSize;
     private Path mFile;
-    private FileChannel mFileChannel;
+    private RecordingFile mRecordingFile;
+    private ByteBuffer mPatchBuffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    private long mFileSize;
     private boolean mDataChunkOpen = false;
-    private long mDataChunkSizeOffset = 0;
-    private int mDataChunkSize = 0;
+    private long mDataChunkSizeOffset = -1;
+    private long mDataChunkSize = 0;
+
+    /**
+     * Durability options for closed files
+     */
+    public enum Durability
+    {
+        SYNC, DEFERRED, NONE;
+
+        /**
+         * Configured durability from the system properties
+         */
+        public static Durability fromSystemProperties()
+        {
+            String value = SystemProperties.getInstance().get(PROPERTY_DURABILITY, DEFERRED.name());
+
+            try
+            {
+                return Durability.valueOf(value.trim().toUpperCase());
+            }
+            catch(Exception e)
+            {
+                mLog.warn("Unrecognized wave writer durability [" + value + "] - using " + DEFERRED);
+                return DEFERRED;
+            }
+        }
+    }
 
     /**
      * Constructs a new wave writer that is open with a complete header, ready
@@ -72,15 +123,22 @@ public class WaveWriter implements AutoCloseable
      * @param format - audio format (channels, sample size, sample rate)
      * @param file - wave file to write
      * @param maxSize - maximum file size ( range: 1 - 4,294,967,294 bytes )
+     * @param durability for closed files
+     * @param category of recording for I/O statistics
      * @throws IOException - if there are any IO issues
      */
-    public WaveWriter(AudioFormat format, Path file, long maxSize) throws IOException
+    public WaveWriter(AudioFormat format, Path file, long maxSize, Durability durability, RecordingCategory category)
+        throws IOException
     {
         Validate.isTrue(format != null);
         Validate.isTrue(file != null);
+        Validate.isTrue(durability != null);
+        Validate.isTrue(category != null);
 
         mAudioFormat = format;
         mFile = file;
+        mDurability = durability;
+        mCategory = category;
 
         if(0 < maxSize && maxSize <= MAX_WAVE_SIZE)
         {
@@ -94,6 +152,33 @@ public class WaveWriter implements AutoCloseable
         open();
     }
 
+    /**
+     * Constructs a new wave writer for audio recordings using the durability configured in the system properties.
+     *
+     * @param format - audio format (channels, sample size, sample rate)
+     * @param file - wave file to write
+     * @param maxSize - maximum file size ( range: 1 - 4,294,967,294 bytes )
+     * @throws IOException - if there are any IO issues
+     */
+    public WaveWriter(AudioFormat format, Path file, long maxSize) throws IOException
+    {
+        this(format, file, maxSize, Durability.fromSystemProperties(), RecordingCategory.AUDIO_WAVE);
+    }
+
+    /**
+     * Constructs a new wave writer that is open with a complete header, ready for writing buffers of PCM sample data.
+     * The maximum file size is limited to the max size specified in the wave file format: max unsigned integer
+     *
+     * @param format - audio format (channels, sample size, sample rate)
+     * @param file - wave file to write
+     * @param category of recording for I/O statistics
+     * @throws IOException - if there are any IO issues
+     */
+    public WaveWriter(AudioFormat format, Path file, RecordingCategory category) throws IOException
+    {
+        this(format, file, MAX_WAVE_SIZE, Durability.fromSystemProperties(), category);
+    }
+
     /**
      * Constructs a new wave writer that is open with a complete header, ready
      * for writing buffers of PCM sample data.  The maximum file size is limited
@@ -105,7 +190,7 @@ public class WaveWriter implements AutoCloseable
      */
     public WaveWriter(AudioFormat format, Path file) throws IOException
     {
-        this(format, file, Integer.MAX_VALUE * 2);
+        this(format, file, RecordingCategory.AUDIO_WAVE);
     }
 
     /**
@@ -121,14 +206,13 @@ public class WaveWriter implements AutoCloseable
             version++;
         }
 
-        mFileChannel = (FileChannel.open(mFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW));
-
-        ByteBuffer header = getWaveHeader(mAudioFormat);
+        mRecordingFile = RecordingIOService.getInstance().open(mFile, mCategory, StandardOpenOption.CREATE_NEW);
+        mFileSize = 0;
+        mDataChunkOpen = false;
+        mDataChunkSizeOffset = -1;
+        mDataChunkSize = 0;
 
-        while(header.hasRemaining())
-        {
-            mFileChannel.write(header);
-        }
+        write(getWaveHeader(mAudioFormat));
     }
 
     /**
@@ -145,31 +229,68 @@ public class WaveWriter implements AutoCloseable
      */
     public void close(Path path) throws IOException
     {
-        mFileChannel.force(true);
-        mFileChannel.close();
+        if(mRecordingFile == null)
+        {
+            return;
+        }
+
+        RecordingFile recordingFile = mRecordingFile;
+        mRecordingFile = null;
+        IOException patchError = null;
+
+        //Header patches are accepted even when the device is over its queue limit, so that an overloaded device still
+        //completes the headers and rename.  If a patch fails, the file is still closed before the error is reported.
+        try
+        {
+            closeDataChunk(recordingFile);
+            patch(recordingFile, RIFF_SIZE_OFFSET, mFileSize - 8);
+        }
+        catch(IOException ioe)
+        {
+            patchError = ioe;
+        }
+
+        switch(mDurability)
+        {
+            case SYNC:
+                try
+                {
+                    recordingFile.close(true, path).get();
+                }
+                catch(InterruptedException ie)
+                {
+                    throw new IOException("Interrupted while closing wave file [" + mFile + "]", ie);
+                }
+                catch(ExecutionException ee)
+                {
+                    throw new IOException("Error closing wave file [" + mFile + "]", ee.getCause());
+                }
+                break;
+            case DEFERRED:
+                recordingFile.close(true, path);
+                break;
+            case NONE:
+            default:
+                recordingFile.close(false, path);
+                break;
+        }
 
-        rename(path);
+        if(patchError != null)
+        {
+            throw patchError;
+        }
     }
 
     /**
-     * Renames the file to the specified filename moving it to the from *.tmp to *.wav after file has been closed.
+     * Writes a slice of the byte array to the file.
      *
-     * @throws IOException
+     * @param bytes containing the data
+     * @param offset to the first byte to write
+     * @param length of data to write
      */
-    private void rename(Path path) throws IOException
+    public void writeData(byte[] bytes, int offset, int length) throws IOException
     {
-        if(mFile != null && Files.exists(mFile) && path != null)
-        {
-            if(Files.exists(path))
-            {
-                mLog.warn("Duplicate recording file detected - ignoring [" + path + "]");
-                Files.delete(mFile);
-            }
-            else
-            {
-                Files.move(mFile, path);
-            }
-        }
+        writeData(ByteBuffer.wrap(bytes, offset, length).slice());
     }
 
     /**
@@ -183,59 +304,88 @@ public class WaveWriter implements AutoCloseable
         openDataChunk();
 
         /* Write the full buffer if there is room, respecting the max file size */
-        if(mFileChannel.size() + buffer.capacity() < mMaxSize)
+        if(mFileSize + buffer.remaining() < mMaxSize)
         {
-            while(buffer.hasRemaining())
-            {
-                mDataChunkSize += mFileChannel.write(buffer);
-            }
-
-            updateTotalSize();
-            updateDataChunkSize();
+            mDataChunkSize += write(buffer);
         }
         else
         {
             /* Split the buffer to finish filling the current file and then put
              * the leftover into a new file */
-            int remaining = (int)(mMaxSize - mFileChannel.size());
+            int remaining = (int)(mMaxSize - mFileSize);
 
             /* Ensure we write full frames to fill up the remaining size */
             remaining -= (int)(remaining % mAudioFormat.getFrameSize());
 
-            byte[] bytes = buffer.array();
-
-            ByteBuffer current = ByteBuffer.wrap(Arrays.copyOf(bytes, remaining));
+            ByteBuffer current = buffer.duplicate();
+            current.limit(remaining);
 
-            ByteBuffer next = ByteBuffer.wrap(Arrays.copyOfRange(bytes,
-                remaining, bytes.length));
-
-            while(current.hasRemaining())
-            {
-                mDataChunkSize += mFileChannel.write(current);
-            }
+            ByteBuffer next = buffer.duplicate();
+            next.position(remaining);
 
-            updateTotalSize();
-            updateDataChunkSize();
+            mDataChunkSize += write(current);
 
             rollover();
 
             openDataChunk();
 
-            while(next.hasRemaining())
-            {
-                mDataChunkSize += mFileChannel.write(next);
-            }
+            mDataChunkSize += write(next);
+        }
+    }
+
+    /**
+     * Indicates if the recording I/O service has a write backlog for the device that hosts this file.
+     */
+    public boolean isBackpressured()
+    {
+        return mRecordingFile != null && mRecordingFile.isBackpressured();
+    }
 
-            updateTotalSize();
-            updateDataChunkSize();
+    /**
+     * Records bytes that were discarded by the caller due to backpressure.
+     */
+    public void discarded(long bytes)
+    {
+        if(mRecordingFile != null)
+        {
+            mRecordingFile.discarded(bytes);
         }
     }
 
     /**
-     * Closes the current data chunk
+     * Writes the buffer contents to the recording file
+     *
+     * @return number of bytes written
+     */
+    private int write(ByteBuffer buffer) throws IOException
+    {
+        int count = buffer.remaining();
+        mRecordingFile.write(buffer);
+        mFileSize += count;
+        return count;
+    }
+
+    /**
+     * Writes the 32-bit little endian unsigned value at the file offset.
      */
-    private void closeDataChunk()
+    private void patch(RecordingFile recordingFile, long offset, long value) throws IOException
     {
+        mPatchBuffer.clear();
+        mPatchBuffer.putInt((int)value);
+        mPatchBuffer.flip();
+        recordingFile.patch(offset, mPatchBuffer);
+    }
+
+    /**
+     * Closes the current data chunk and patches the data chunk size
+     */
+    private void closeDataChunk(RecordingFile recordingFile) throws IOException
+    {
+        if(mDataChunkOpen)
+        {
+            patch(recordingFile, mDataChunkSizeOffset, mDataChunkSize);
+        }
+
         mDataChunkOpen = false;
     }
 
@@ -249,32 +399,17 @@ public class WaveWriter implements AutoCloseable
     {
         if(!mDataChunkOpen)
         {
-            if(mFileChannel.size() + 32 >= mMaxSize)
+            if(mFileSize + 32 >= mMaxSize)
             {
                 rollover();
             }
 
-            ByteBuffer formatChunk = getFormatChunk(mAudioFormat);
-            formatChunk.position(0);
+            write(getFormatChunk(mAudioFormat));
+            write(getDataHeader());
 
-            while(formatChunk.hasRemaining())
-            {
-                mFileChannel.write(formatChunk);
-            }
-
-            ByteBuffer dataHeader = getDataHeader();
-            dataHeader.position(0);
-
-            while(dataHeader.hasRemaining())
-            {
-                mFileChannel.write(dataHeader);
-            }
-
-            mDataChunkSizeOffset = mFileChannel.size() - 4;
+            mDataChunkSizeOffset = mFileSize - 4;
             mDataChunkSize = 0;
             mDataChunkOpen = true;
-
-            updateTotalSize();
         }
     }
 
@@ -286,37 +421,25 @@ public class WaveWriter implements AutoCloseable
     {
         ByteBuffer listChunk = metadata.getLISTChunk();
 
-        if(mFileChannel.size() + listChunk.capacity() >= mMaxSize)
+        if(mFileSize + listChunk.capacity() >= mMaxSize)
         {
             throw new IOException("Cannot write LIST metadata chunk - insufficient file space remaining");
         }
 
-        closeDataChunk();
+        closeDataChunk(mRecordingFile);
 
         listChunk.position(0);
-
-        while(listChunk.hasRemaining())
-        {
-            mFileChannel.write(listChunk);
-        }
-
-        updateTotalSize();
+        write(listChunk);
 
         ByteBuffer id3Chunk = metadata.getID3Chunk();
 
-        if(mFileChannel.size() + id3Chunk.capacity() >= mMaxSize)
+        if(mFileSize + id3Chunk.capacity() >= mMaxSize)
         {
             throw new IOException("Cannot write ID3 metadata chunk - insufficient file space remaining");
         }
 
         id3Chunk.position(0);
-
-        while(id3Chunk.hasRemaining())
-        {
-            mFileChannel.write(id3Chunk);
-        }
-
-        updateTotalSize();
+        write(id3Chunk);
     }
 
     /**
@@ -325,8 +448,7 @@ public class WaveWriter implements AutoCloseable
      */
     private void rollover() throws IOException
     {
-        closeDataChunk();
-        close();
+        close(null);
 
         mFileRolloverCounter++;
 
@@ -335,31 +457,6 @@ public class WaveWriter implements AutoCloseable
         open();
     }
 
-    /**
-     * Updates the overall and the chunk2 sizes
-     */
-    private void updateTotalSize() throws IOException
-    {
-        /* Update overall wave size (total size - 8 bytes) */
-        ByteBuffer buffer = getUnsignedIntegerBuffer(mFileChannel.size() - 8);
-        mFileChannel.write(buffer, 4);
-    }
-
-    /**
-     * Updates the data chunk size
-     */
-    private void updateDataChunkSize() throws IOException
-    {
-        if(!mDataChunkOpen)
-        {
-            throw new IOException("Can't update data chunk size - data chunk is not currently open");
-        }
-
-        /* Update overall wave size (total size - 8 bytes) */
-        ByteBuffer size = getUnsignedIntegerBuffer(mDataChunkSize);
-        mFileChannel.write(size, mDataChunkSizeOffset);
-    }
-
     /**
      * Creates a little-endian 4-byte buffer containing an unsigned 32-bit
      * integer value derived from the 4 least significant bytes of the argument.
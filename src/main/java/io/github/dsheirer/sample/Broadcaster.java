@@ -19,26 +19,85 @@
  */
 package io.github.dsheirer.sample;
 
+import io.github.dsheirer.controller.NamingThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Broadcasts an item to multiple listeners
+ *
+ * Listeners registered with a name are instrumented: listener execution time is sampled into a histogram that is
+ * shared by all registrations with the same channel, stream and listener name (see ListenerStatistics).  Statistics
+ * are retained while at least one registration uses them.  Non-critical
+ * listeners are delivered in batches through a bounded queue that is drained on a dedicated executor, so
+ * that a slow listener can't stall the producer thread.  Items are discarded when the queue is full.
  */
 public class Broadcaster<T> implements Listener<T>
 {
     private final static Logger mLog = LoggerFactory.getLogger(Broadcaster.class);
+    private static final Map<String,ListenerStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+    /**
+     * Listener execution time is measured once every SAMPLE_INTERVAL deliveries (power of 2)
+     */
+    public static final int SAMPLE_INTERVAL = 8;
+    public static final int ASYNCHRONOUS_QUEUE_SIZE = 500;
+
+    /**
+     * Delay between the first queued item and delivery to a non-critical listener, so that items arriving within the
+     * delay are delivered as a batch by a single task execution
+     */
+    public static final long ASYNCHRONOUS_DELAY_MILLISECONDS = 5;
+    public static final int ASYNCHRONOUS_THREAD_COUNT = 2;
+
+    /**
+     * Drains the non-critical listener queues, separate from the application thread pool so that slow non-critical
+     * listeners can't delay housekeeping and I/O tasks.  Each listener has at most one drain task scheduled at a
+     * time, so the pending task count is bounded by the number of registered non-critical listeners.
+     */
+    private static final ScheduledExecutorService ASYNCHRONOUS_EXECUTOR =
+        Executors.newScheduledThreadPool(ASYNCHRONOUS_THREAD_COUNT, new NamingThreadFactory("sdrtrunk broadcaster"));
+
     private boolean mDebug;
+    private String mChannel = "";
+    private String mStream = "";
 
+    /**
+     * Listeners in delivery order.  Listeners that are registered with a name are wrapped in a monitored listener.
+     */
     protected List<Listener<T>> mListeners = new CopyOnWriteArrayList<>();
 
+    //Map of each registered listener to the listener that is placed in the delivery list
+    private Map<Listener<T>,Listener<T>> mRegistrations = new ConcurrentHashMap<>();
+
     public Broadcaster()
     {
     }
 
+    /**
+     * Identifies this broadcaster in the statistics for listeners that are registered with a name.
+     *
+     * @param channel name of the owning channel/processing chain
+     * @param stream name of the broadcast stream (e.g. Decode Events)
+     */
+    public void setStatisticsName(String channel, String stream)
+    {
+        mChannel = channel != null ? channel : "";
+        mStream = stream != null ? stream : "";
+    }
+
     /**
      * Turns on/off debugging to troubleshoot and log which listeners are receiving an item.
      */
@@ -64,7 +123,7 @@ public class Broadcaster<T> implements Listener<T>
      */
     public void dispose()
     {
-        mListeners.clear();
+        clear();
     }
 
     /**
@@ -80,7 +139,7 @@ public class Broadcaster<T> implements Listener<T>
      */
     public boolean hasListener(Listener<T> listener)
     {
-        return listener != null && mListeners.contains(listener);
+        return listener != null && mRegistrations.containsKey(listener);
     }
 
     /**
@@ -92,7 +151,8 @@ public class Broadcaster<T> implements Listener<T>
     }
 
     /**
-     * The list of listeners currently registered with this broadcaster
+     * The list of listeners currently registered with this broadcaster, in delivery order.  Listeners that were
+     * registered with a name are wrapped by a monitored listener.
      */
     public List<Listener<T>> getListeners()
     {
@@ -106,31 +166,93 @@ public class Broadcaster<T> implements Listener<T>
      */
     public void addListener(Listener<T> listener)
     {
-        if(listener != null && !mListeners.contains(listener))
+        if(listener != null && mRegistrations.putIfAbsent(listener, listener) == null)
         {
             mListeners.add(listener);
         }
     }
 
     /**
-     * Deregisters the listener from receiving elements from this broadcaster
+     * Registers the listener to receive elements from this broadcaster with instrumentation.
+     *
+     * @param listener to register
+     * @param name of the listener for statistics (e.g. simple class name of the owning module)
+     * @param critical true to deliver on the producer thread, or false to deliver through a bounded asynchronous
+     * hand-off that discards items when full
+     */
+    public void addListener(Listener<T> listener, String name, boolean critical)
+    {
+        if(listener != null && !mRegistrations.containsKey(listener))
+        {
+            MonitoredListener monitored = new MonitoredListener(listener, name, critical);
+
+            if(mRegistrations.putIfAbsent(listener, monitored) == null)
+            {
+                mListeners.add(monitored);
+            }
+        }
+    }
+
+    /**
+     * Deregisters the listener from receiving elements from this broadcaster.  Items that are queued for a
+     * non-critical listener are delivered on the calling thread before the listener is removed.
      */
     public void removeListener(Listener<T> listener)
     {
-        if(listener != null && mListeners.contains(listener))
+        removeListener(listener, true);
+    }
+
+    /**
+     * Deregisters the listener and either delivers or discards any items that are queued for the listener
+     */
+    private void removeListener(Listener<T> listener, boolean deliverQueued)
+    {
+        if(listener != null)
         {
-            mListeners.remove(listener);
+            Listener<T> registered = mRegistrations.remove(listener);
+
+            if(registered != null)
+            {
+                mListeners.remove(registered);
+
+                if(registered instanceof Broadcaster.MonitoredListener)
+                {
+                    ((MonitoredListener)registered).dispose(deliverQueued);
+                }
+            }
         }
     }
 
     /**
-     * Deregisters all listeners from this broadcaster
+     * Deregisters all listeners from this broadcaster.  Items that are queued for non-critical listeners are
+     * discarded.  Invoke flush() beforehand to deliver them.
      */
     public void clear()
     {
+        for(Listener<T> listener: new ArrayList<>(mRegistrations.keySet()))
+        {
+            removeListener(listener, false);
+        }
+
         mListeners.clear();
     }
 
+    /**
+     * Delivers all items that are queued for non-critical listeners on the calling thread and waits for any delivery
+     * that is in progress on the asynchronous executor to complete.  Invoke after the producer has stopped and
+     * before stopping the listeners so that the tail of the stream is delivered.
+     */
+    public void flush()
+    {
+        for(Listener<T> listener : mListeners)
+        {
+            if(listener instanceof Broadcaster.MonitoredListener)
+            {
+                ((MonitoredListener)listener).flush();
+            }
+        }
+    }
+
     /**
      * Broadcasts the element to all registered listeners
      */
@@ -153,4 +275,261 @@ public class Broadcaster<T> implements Listener<T>
             }
         }
     }
+
+    /**
+     * Invoked for each item that is discarded by an asynchronous listener hand-off without being delivered.
+     * Subclasses can override this method to release resources held by the item.
+     */
+    protected void discard(T t)
+    {
+    }
+
+    /**
+     * Name for the listener or owner object to use in listener statistics.  Lambda and anonymous classes are named
+     * after the enclosing class.
+     */
+    public static String getListenerName(Object object)
+    {
+        String name = object.getClass().getName();
+        int lambda = name.indexOf("$$Lambda");
+
+        if(lambda > 0)
+        {
+            name = name.substring(0, lambda);
+        }
+
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Statistics for all instrumented listeners, sorted by channel, stream and listener
+     */
+    public static List<ListenerStatistics> getStatistics()
+    {
+        List<ListenerStatistics> statistics = new ArrayList<>(STATISTICS.values());
+        statistics.sort((o1, o2) ->
+        {
+            int comparison = o1.getChannel().compareTo(o2.getChannel());
+
+            if(comparison == 0)
+            {
+                comparison = o1.getStream().compareTo(o2.getStream());
+            }
+
+            if(comparison == 0)
+            {
+                comparison = o1.getListener().compareTo(o2.getListener());
+            }
+
+            return comparison;
+        });
+        return statistics;
+    }
+
+    /**
+     * Statistics for the instrumented listeners of the channel
+     */
+    public static List<ListenerStatistics> getStatistics(String channel)
+    {
+        List<ListenerStatistics> statistics = getStatistics();
+        statistics.removeIf(listenerStatistics -> !listenerStatistics.getChannel().equals(channel));
+        return statistics;
+    }
+
+    /**
+     * Logs the statistics for all instrumented listeners
+     */
+    public static void logStatistics()
+    {
+        for(ListenerStatistics statistics: getStatistics())
+        {
+            mLog.info("Listener " + statistics);
+        }
+    }
+
+    /**
+     * Instrumented wrapper for a registered listener.  Samples the execution time of the listener and, for
+     * non-critical listeners, hands each item off to a bounded queue that is drained on the asynchronous executor.
+     * Queued items are delivered under a delivery lock, by the drain task or by flush(), so items are delivered in
+     * order and never concurrently.
+     */
+    private class MonitoredListener implements Listener<T>
+    {
+        private final Listener<T> mListener;
+        private final String mKey;
+        private final ListenerStatistics mStatistics;
+        private final BlockingQueue<T> mQueue;
+        private final Object mDeliveryLock = new Object();
+        private final AtomicBoolean mScheduled = new AtomicBoolean();
+        private volatile boolean mDisposed;
+        private boolean mDiscarding;
+        private int mDeliveryCount;
+
+        public MonitoredListener(Listener<T> listener, String name, boolean critical)
+        {
+            mListener = listener;
+            mKey = mChannel + "|" + mStream + "|" + name + "|" + critical;
+            mStatistics = STATISTICS.compute(mKey, (key, existing) ->
+            {
+                ListenerStatistics statistics = existing != null ? existing :
+                    new ListenerStatistics(mChannel, mStream, name, !critical);
+                statistics.register();
+                return statistics;
+            });
+            mQueue = critical ? null : new ArrayBlockingQueue<>(ASYNCHRONOUS_QUEUE_SIZE);
+        }
+
+        @Override
+        public void receive(T t)
+        {
+            if(mQueue == null)
+            {
+                deliver(t);
+            }
+            else if(mDisposed)
+            {
+                discard(t);
+            }
+            else if(mQueue.offer(t))
+            {
+                mDiscarding = false;
+                mStatistics.queueDepth(mQueue.size());
+
+                //Disposed while we were queueing the item
+                if(mDisposed)
+                {
+                    T queued;
+
+                    while((queued = mQueue.poll()) != null)
+                    {
+                        discard(queued);
+                    }
+
+                    return;
+                }
+
+                if(mScheduled.compareAndSet(false, true))
+                {
+                    ASYNCHRONOUS_EXECUTOR.schedule(this::drain, ASYNCHRONOUS_DELAY_MILLISECONDS, TimeUnit.MILLISECONDS);
+                }
+            }
+            else
+            {
+                if(!mDiscarding)
+                {
+                    mDiscarding = true;
+                    mLog.warn("Listener [" + mStatistics.getChannel() + " / " + mStatistics.getStream() + " / " +
+                        mStatistics.getListener() + "] is not keeping up - discarding items");
+                }
+
+                mStatistics.dropped();
+                discard(t);
+            }
+        }
+
+        /**
+         * Delivers the item to the listener, measuring the execution time once per sample interval
+         */
+        private void deliver(T t)
+        {
+            mStatistics.delivered();
+
+            if((mDeliveryCount++ & (SAMPLE_INTERVAL - 1)) == 0)
+            {
+                long start = System.nanoTime();
+                mListener.receive(t);
+                mStatistics.getExecutionTime().record(System.nanoTime() - start);
+            }
+            else
+            {
+                mListener.receive(t);
+            }
+        }
+
+        /**
+         * Delivers the queued items and then reschedules if items arrived while delivering
+         */
+        private void drain()
+        {
+            synchronized(mDeliveryLock)
+            {
+                T t;
+                int count = mQueue.size();
+
+                while(count-- > 0 && !mDisposed && (t = mQueue.poll()) != null)
+                {
+                    deliverQueued(t);
+                }
+            }
+
+            mScheduled.set(false);
+
+            if(!mDisposed && !mQueue.isEmpty() && mScheduled.compareAndSet(false, true))
+            {
+                ASYNCHRONOUS_EXECUTOR.schedule(this::drain, ASYNCHRONOUS_DELAY_MILLISECONDS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Delivers a queued item, logging any error from the listener since there is no producer to report it to
+         */
+        private void deliverQueued(T t)
+        {
+            try
+            {
+                deliver(t);
+            }
+            catch(Throwable throwable)
+            {
+                mLog.error("Error while delivering item to listener [" + mStatistics.getChannel() + " / " +
+                    mStatistics.getStream() + " / " + mStatistics.getListener() + "]", throwable);
+            }
+        }
+
+        /**
+         * Delivers all queued items on the calling thread
+         */
+        public void flush()
+        {
+            if(mQueue != null)
+            {
+                synchronized(mDeliveryLock)
+                {
+                    T t;
+
+                    while(!mDisposed && (t = mQueue.poll()) != null)
+                    {
+                        deliverQueued(t);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Stops delivery, releases the shared statistics and either delivers or discards any queued items
+         *
+         * @param deliverQueued true to deliver queued items on the calling thread before stopping delivery
+         */
+        public void dispose(boolean deliverQueued)
+        {
+            if(deliverQueued)
+            {
+                flush();
+            }
+
+            mDisposed = true;
+
+            if(mQueue != null)
+            {
+                T t;
+
+                while((t = mQueue.poll()) != null)
+                {
+                    discard(t);
+                }
+            }
+
+            STATISTICS.computeIfPresent(mKey, (key, statistics) -> statistics.unregister() > 0 ? statistics : null);
+        }
+    }
 }
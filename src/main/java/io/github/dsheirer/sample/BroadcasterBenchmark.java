@@ -0,0 +1,210 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.sample;
+
+import io.github.dsheirer.util.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the cost that listeners impose on the producer thread of a broadcaster:
+ *
+ * 1) Instrumentation overhead - a trivial listener registered plainly versus registered with instrumentation.
+ * 2) Slow listener isolation - a decoder-like critical listener plus a slow logger-like listener that occasionally
+ * blocks, with the slow listener delivered synchronously versus through the non-critical asynchronous hand-off.
+ */
+public class BroadcasterBenchmark
+{
+    private final static Logger mLog = LoggerFactory.getLogger(BroadcasterBenchmark.class);
+
+    private static final int OVERHEAD_ITEMS = 20_000_000;
+    private static final int ISOLATION_ITEMS = 20_000;
+    private static final long ISOLATION_PERIOD_NANOS = 100_000; //10,000 items per second
+    private static long mSink;
+
+    /**
+     * Trivial listener that accumulates the items
+     */
+    private static class SumListener implements Listener<Long>
+    {
+        private long mSum;
+
+        @Override
+        public void receive(Long value)
+        {
+            mSum += value;
+        }
+    }
+
+    /**
+     * Listener that simulates a logger or recorder: a few microseconds of work per item and a 5 millisecond stall
+     * (e.g. a file system flush) every 500 items.
+     */
+    private static class SlowListener implements Listener<Long>
+    {
+        private long mCount;
+
+        @Override
+        public void receive(Long value)
+        {
+            spin(3_000);
+
+            if(++mCount % 500 == 0)
+            {
+                try
+                {
+                    Thread.sleep(5);
+                }
+                catch(InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static void spin(long nanos)
+    {
+        long end = System.nanoTime() + nanos;
+
+        while(System.nanoTime() < end)
+        {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static double overhead(boolean instrumented)
+    {
+        Broadcaster<Long> broadcaster = new Broadcaster<>();
+        broadcaster.setStatisticsName("Benchmark", "Overhead");
+        SumListener listener = new SumListener();
+
+        if(instrumented)
+        {
+            broadcaster.addListener(listener, "SumListener", true);
+        }
+        else
+        {
+            broadcaster.addListener(listener);
+        }
+
+        Long[] values = new Long[1024];
+
+        for(int x = 0; x < values.length; x++)
+        {
+            values[x] = (long)x;
+        }
+
+        long start = System.nanoTime();
+
+        for(int x = 0; x < OVERHEAD_ITEMS; x++)
+        {
+            broadcaster.broadcast(values[x & 1023]);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        mSink += listener.mSum;
+        return elapsed / (double)OVERHEAD_ITEMS;
+    }
+
+    private static void isolation(boolean critical, boolean report) throws InterruptedException
+    {
+        Broadcaster<Long> broadcaster = new Broadcaster<>();
+        String stream = (critical ? "Isolation Sync" : "Isolation Async") + (report ? "" : " Warm Up");
+        broadcaster.setStatisticsName("Benchmark", stream);
+        SumListener decoder = new SumListener();
+        broadcaster.addListener(decoder, "Decoder", true);
+        broadcaster.addListener(new SlowListener(), "SlowLogger", critical);
+
+        LatencyHistogram producer = new LatencyHistogram();
+        long late = 0;
+        long start = System.nanoTime();
+
+        for(int x = 0; x < ISOLATION_ITEMS; x++)
+        {
+            long due = start + (x * ISOLATION_PERIOD_NANOS);
+
+            long wait = due - System.nanoTime();
+
+            if(wait > 0)
+            {
+                LockSupport.parkNanos(wait);
+            }
+
+            long broadcastStart = System.nanoTime();
+            broadcaster.broadcast((long)x);
+            long finished = System.nanoTime();
+            producer.record(finished - broadcastStart);
+
+            if(finished > due + ISOLATION_PERIOD_NANOS)
+            {
+                late++;
+            }
+        }
+
+        mSink += decoder.mSum;
+
+        //Allow the asynchronous hand-off to deliver the remaining items
+        Thread.sleep(50);
+        broadcaster.dispose();
+
+        if(!report)
+        {
+            return;
+        }
+
+        mLog.info(String.format("Slow listener %s - producer broadcast [%s] items behind schedule [%d/%d]",
+            critical ? "synchronous " : "asynchronous", producer, late, ISOLATION_ITEMS));
+
+        for(ListenerStatistics statistics: Broadcaster.getStatistics("Benchmark"))
+        {
+            if(statistics.getStream().equals(stream))
+            {
+                mLog.info("  " + statistics);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        //Warm up
+        overhead(false);
+        overhead(true);
+
+        double plain = overhead(false);
+        double instrumented = overhead(true);
+
+        mLog.info(String.format("Broadcast to a trivial listener - plain: %.2f ns/item  instrumented: %.2f ns/item " +
+            "(sample interval %d)", plain, instrumented, Broadcaster.SAMPLE_INTERVAL));
+
+        //Warm up, including the application thread pool
+        isolation(false, false);
+
+        isolation(true, true);
+        isolation(false, true);
+
+        mLog.info("Checksum: " + mSink);
+        System.exit(0);
+    }
+}
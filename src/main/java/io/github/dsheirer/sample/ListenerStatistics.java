@@ -0,0 +1,172 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.sample;
+
+import io.github.dsheirer.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivery statistics for a listener registered with a broadcaster, identified by channel, stream and listener name.
+ * Statistics are shared by all registrations with the same identity and are released by the broadcaster once the last
+ * of those registrations is removed.
+ */
+public class ListenerStatistics
+{
+    private final String mChannel;
+    private final String mStream;
+    private final String mListener;
+    private final boolean mAsynchronous;
+    private final LatencyHistogram mExecutionTime = new LatencyHistogram();
+    private final LongAdder mDelivered = new LongAdder();
+    private final LongAdder mDropped = new LongAdder();
+    private final AtomicInteger mPeakQueueDepth = new AtomicInteger();
+    private int mRegistrations;
+
+    public ListenerStatistics(String channel, String stream, String listener, boolean asynchronous)
+    {
+        mChannel = channel;
+        mStream = stream;
+        mListener = listener;
+        mAsynchronous = asynchronous;
+    }
+
+    /**
+     * Name of the channel (processing chain) that owns the broadcaster
+     */
+    public String getChannel()
+    {
+        return mChannel;
+    }
+
+    /**
+     * Name of the broadcast stream (e.g. Decode Events)
+     */
+    public String getStream()
+    {
+        return mStream;
+    }
+
+    /**
+     * Name of the listener (e.g. module class)
+     */
+    public String getListener()
+    {
+        return mListener;
+    }
+
+    /**
+     * Indicates if the listener receives items through an asynchronous hand-off
+     */
+    public boolean isAsynchronous()
+    {
+        return mAsynchronous;
+    }
+
+    /**
+     * Histogram of sampled listener execution durations
+     */
+    public LatencyHistogram getExecutionTime()
+    {
+        return mExecutionTime;
+    }
+
+    /**
+     * Count of items delivered to the listener
+     */
+    public long getDelivered()
+    {
+        return mDelivered.sum();
+    }
+
+    /**
+     * Count of items discarded because the asynchronous hand-off was full
+     */
+    public long getDropped()
+    {
+        return mDropped.sum();
+    }
+
+    /**
+     * Largest observed asynchronous hand-off queue depth
+     */
+    public int getPeakQueueDepth()
+    {
+        return mPeakQueueDepth.get();
+    }
+
+    /**
+     * Adds a registration.  Invoked atomically from the broadcaster's statistics map.
+     */
+    void register()
+    {
+        mRegistrations++;
+    }
+
+    /**
+     * Removes a registration.  Invoked atomically from the broadcaster's statistics map.
+     * @return count of remaining registrations
+     */
+    int unregister()
+    {
+        return --mRegistrations;
+    }
+
+    void delivered()
+    {
+        mDelivered.increment();
+    }
+
+    void dropped()
+    {
+        mDropped.increment();
+    }
+
+    void queueDepth(int depth)
+    {
+        int peak = mPeakQueueDepth.get();
+
+        while(depth > peak && !mPeakQueueDepth.compareAndSet(peak, depth))
+        {
+            peak = mPeakQueueDepth.get();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(mChannel).append(" / ").append(mStream).append(" / ").append(mListener);
+        sb.append(mAsynchronous ? " [async]" : " [sync]");
+        sb.append(" delivered [").append(getDelivered()).append("]");
+
+        if(mAsynchronous)
+        {
+            sb.append(" dropped [").append(getDropped()).append("]");
+            sb.append(" peak queue [").append(getPeakQueueDepth()).append("]");
+        }
+
+        sb.append(" execution [").append(mExecutionTime).append("]");
+        return sb.toString();
+    }
+}
@@ -40,6 +40,7 @@ public class ReusableAudioPacket extends AbstractReusableBuffer
     private int mChannelId = 0;
     private int mMonitoringPriority = Priority.DEFAULT_PRIORITY;
     private boolean mRecordable = false;
+    private boolean mChannelStopped = false;
     private List<BroadcastChannel> mBroadcastChannels = new ArrayList<>();
 
     /**
@@ -63,6 +64,7 @@ public class ReusableAudioPacket extends AbstractReusableBuffer
         mChannelId = 0;
         mMonitoringPriority = Priority.DEFAULT_PRIORITY;
         mRecordable = false;
+        mChannelStopped = false;
         mBroadcastChannels.clear();
     }
 
@@ -119,6 +121,23 @@ public class ReusableAudioPacket extends AbstractReusableBuffer
         return mMonitoringPriority == Priority.DO_NOT_MONITOR;
     }
 
+    /**
+     * Indicates if this end-audio packet was issued because the channel stopped.  No further audio packets are
+     * produced with this packet's audio channel ID unless the channel is restarted.
+     */
+    public boolean isChannelStopped()
+    {
+        return mChannelStopped;
+    }
+
+    /**
+     * Marks this end-audio packet as issued because the channel stopped.
+     */
+    public void setChannelStopped(boolean channelStopped)
+    {
+        mChannelStopped = channelStopped;
+    }
+
     /**
      * Indicates if this audio packet should be recorded.
      */
@@ -45,4 +45,14 @@ public class ReusableBufferBroadcaster<T extends AbstractReusableBuffer> extends
         //Decrement user counter for this broadcaster
         reusableBuffer.decrementUserCount();
     }
+
+    /**
+     * Releases the user count that was applied for the listener when a buffer is discarded by an asynchronous
+     * listener hand-off.
+     */
+    @Override
+    protected void discard(T reusableBuffer)
+    {
+        reusableBuffer.decrementUserCount();
+    }
 }
@@ -235,6 +235,8 @@ public class TunerManager
 
     private void updateUSBBusTunerMap(int bus, Tuner tuner)
     {
+        mTunerModel.getTunerPlacementEngine().setUSBBus(tuner, bus);
+
         if(mUSBBusTunerMap.containsKey(bus))
         {
             mUSBBusTunerMap.get(bus).add(tuner);
@@ -40,7 +40,6 @@ import org.slf4j.LoggerFactory;
 import javax.swing.table.AbstractTableModel;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -70,12 +69,21 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
     private DecimalFormat mFrequencyErrorPPMFormat = new DecimalFormat("0.0");
 
     private TunerConfigurationModel mTunerConfigurationModel;
+    private TunerPlacementEngine mTunerPlacementEngine = new TunerPlacementEngine(this);
 
     public TunerModel(TunerConfigurationModel tunerConfigurationModel)
     {
         mTunerConfigurationModel = tunerConfigurationModel;
     }
 
+    /**
+     * Load-aware tuner placement engine for ranking tuners when sourcing tuner channels
+     */
+    public TunerPlacementEngine getTunerPlacementEngine()
+    {
+        return mTunerPlacementEngine;
+    }
+
     public TunerConfigurationModel getTunerConfigurationModel()
     {
         return mTunerConfigurationModel;
@@ -175,6 +183,7 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
             int index = mTuners.indexOf(tuner);
 
             mTuners.remove(tuner);
+            mTunerPlacementEngine.remove(tuner);
 
             fireTableRowsDeleted(index, index);
         }
@@ -395,7 +404,8 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
     }
 
     /**
-     * Iterates current tuners to get a tuner channel source for the specified frequency and bandwidth
+     * Gets a tuner channel source for the specified frequency and bandwidth from the preferred tuner, or otherwise
+     * from the first tuner that can source the channel, in the load-aware order ranked by the tuner placement engine.
      *
      * Returns null if no tuner can source the channel
      */
@@ -432,23 +442,21 @@ public class TunerModel extends AbstractTableModel implements Listener<TunerEven
                     preferredTuner + "] - searching for another tuner");
             }
 
-            Iterator<Tuner> it = mTuners.iterator();
-
-            while(it.hasNext() && source == null)
+            for(Tuner candidate: mTunerPlacementEngine.getCandidates(tunerChannel))
             {
-                tuner = it.next();
-
-                if(!tuner.hasError())
+                try
                 {
-                    try
-                    {
-                        source = tuner.getChannelSourceManager().getSource(tunerChannel, channelSpecification);
-                    }
-                    catch(Exception e)
+                    source = candidate.getChannelSourceManager().getSource(tunerChannel, channelSpecification);
+
+                    if(source != null)
                     {
-                        mLog.error("Error obtaining channel from tuner [" + tuner.getName() + "]", e);
+                        return source;
                     }
                 }
+                catch(Exception e)
+                {
+                    mLog.error("Error obtaining channel from tuner [" + candidate.getName() + "]", e);
+                }
             }
         }
 
@@ -0,0 +1,391 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.source.tuner;
+
+import io.github.dsheirer.source.tuner.channel.MultiFrequencyTunerChannelSource;
+import io.github.dsheirer.source.tuner.channel.TunerChannel;
+import io.github.dsheirer.source.tuner.manager.ChannelSourceManager;
+import io.github.dsheirer.util.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load-aware tuner placement for tuner channels.
+ *
+ * Ranks candidate tuners for a tuner channel using a weighted cost score (lower is better) that combines:
+ *
+ * - Number of channels already sourced by the tuner
+ * - Measured channelizer processing load (fraction of one CPU core)
+ * - Projected utilization of the USB bus that the tuner is attached to, including the tuner's own sample stream
+ *   when placing the channel would activate an idle tuner
+ * - Center frequency headroom: channels near the edge of a tuner's usable bandwidth, or that require the tuner to
+ *   retune, are penalized so that channels cluster where they leave the most room for future channels
+ *
+ * Relocatable (multi-frequency) channel sources register with the engine while they are running.  A periodic
+ * rebalance evaluates each registered source against the other tuners and moves at most one source per cycle when
+ * another tuner scores better than the current tuner by a hysteresis margin, so that channels migrate to a better fit
+ * when load frees up on another tuner without oscillating between tuners.
+ */
+public class TunerPlacementEngine
+{
+    private final static Logger mLog = LoggerFactory.getLogger(TunerPlacementEngine.class);
+
+    public static final double USB_2_BITS_PER_SECOND = 480_000_000.0;
+    private static final double WEIGHT_CHANNEL_COUNT = 1.0;
+    private static final double WEIGHT_PROCESSING_LOAD = 8.0;
+    private static final double WEIGHT_USB_UTILIZATION = 6.0;
+    private static final double WEIGHT_HEADROOM = 2.0;
+    private static final double RELOCATION_HYSTERESIS = 1.5;
+    private static final long REBALANCE_INTERVAL_SECONDS = 15;
+
+    private Map<Tuner,Integer> mUSBBusMap = new ConcurrentHashMap<>();
+    private Map<Tuner,ProcessingLoad> mProcessingLoadMap = new ConcurrentHashMap<>();
+    private List<MultiFrequencyTunerChannelSource> mRelocatableSources = new CopyOnWriteArrayList<>();
+    private ScheduledFuture<?> mRebalanceFuture;
+    private TunerModel mTunerModel;
+
+    /**
+     * Constructs an instance
+     * @param tunerModel providing access to the current set of tuners
+     */
+    public TunerPlacementEngine(TunerModel tunerModel)
+    {
+        mTunerModel = tunerModel;
+    }
+
+    /**
+     * Registers the USB bus number that the tuner is attached to.
+     */
+    public void setUSBBus(Tuner tuner, int bus)
+    {
+        mUSBBusMap.put(tuner, bus);
+    }
+
+    /**
+     * Removes any state held for the tuner
+     */
+    public void remove(Tuner tuner)
+    {
+        mUSBBusMap.remove(tuner);
+        mProcessingLoadMap.remove(tuner);
+    }
+
+    /**
+     * Ranked list of non-errored candidate tuners for the tuner channel, ordered best (lowest score) first.
+     */
+    public List<Tuner> getCandidates(TunerChannel tunerChannel)
+    {
+        List<Tuner> candidates = new ArrayList<>();
+
+        for(Tuner tuner: new ArrayList<>(mTunerModel.getTuners()))
+        {
+            if(!tuner.hasError())
+            {
+                candidates.add(tuner);
+            }
+        }
+
+        if(candidates.size() > 1)
+        {
+            Map<Tuner,Double> scores = new HashMap<>();
+
+            for(Tuner tuner: candidates)
+            {
+                scores.put(tuner, getScore(tuner, tunerChannel, false));
+            }
+
+            //Stable sort preserves tuner model ordering for equally scored tuners
+            candidates.sort(Comparator.comparingDouble(scores::get));
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Calculates the placement cost score for sourcing the tuner channel from the tuner.
+     *
+     * @param tuner to evaluate
+     * @param tunerChannel to place
+     * @param sourcedByTuner true if the channel is currently sourced by the tuner, so that the score reflects the
+     * tuner's load without the channel, for comparison against other candidate tuners
+     * @return cost score where lower is better
+     */
+    public double getScore(Tuner tuner, TunerChannel tunerChannel, boolean sourcedByTuner)
+    {
+        ChannelSourceManager manager = tuner.getChannelSourceManager();
+        int channelCount = manager.getTunerChannelCount();
+        double processingLoad = getProcessingLoad(tuner);
+
+        if(sourcedByTuner && channelCount > 0)
+        {
+            processingLoad -= processingLoad / channelCount;
+            channelCount--;
+        }
+
+        return (channelCount * WEIGHT_CHANNEL_COUNT) +
+            (processingLoad * WEIGHT_PROCESSING_LOAD) +
+            (getUSBBusUtilization(tuner, sourcedByTuner) * WEIGHT_USB_UTILIZATION) +
+            (getHeadroomPenalty(tuner, tunerChannel, channelCount) * WEIGHT_HEADROOM);
+    }
+
+    /**
+     * Channelizer processing load for the tuner as a fraction of one CPU core, measured across the most recent
+     * rebalance interval.
+     */
+    public double getProcessingLoad(Tuner tuner)
+    {
+        ProcessingLoad load = mProcessingLoadMap.get(tuner);
+        return load != null ? load.getLoad() : 0.0;
+    }
+
+    /**
+     * Projected utilization of the USB bus that the tuner is attached to, after placing a channel on the tuner.
+     * Tuners stream samples only while sourcing channels, so only active tuners count toward bus utilization, plus
+     * the candidate tuner since placing a channel would activate it.
+     *
+     * @param candidate tuner
+     * @param sourcedByTuner true if the channel under evaluation is already sourced by the candidate tuner
+     * @return utilization as a fraction of the USB 2.0 maximum data rate, or zero for tuners without a known bus
+     */
+    public double getUSBBusUtilization(Tuner candidate, boolean sourcedByTuner)
+    {
+        Integer bus = mUSBBusMap.get(candidate);
+
+        if(bus == null)
+        {
+            return 0.0;
+        }
+
+        double bitsPerSecond = 0.0;
+
+        for(Map.Entry<Tuner,Integer> entry: mUSBBusMap.entrySet())
+        {
+            Tuner tuner = entry.getKey();
+
+            if(entry.getValue().equals(bus))
+            {
+                int channelCount = tuner.getChannelSourceManager().getTunerChannelCount();
+
+                if(tuner == candidate)
+                {
+                    //Candidate is counted active unless it would go idle without the channel under evaluation
+                    if(!sourcedByTuner || channelCount > 1)
+                    {
+                        bitsPerSecond += tuner.getMaximumUSBBitsPerSecond();
+                    }
+                }
+                else if(channelCount > 0)
+                {
+                    bitsPerSecond += tuner.getMaximumUSBBitsPerSecond();
+                }
+            }
+        }
+
+        return bitsPerSecond / USB_2_BITS_PER_SECOND;
+    }
+
+    /**
+     * Center frequency headroom penalty for placing the channel on the tuner.  Idle tuners can tune to center the
+     * channel and incur no penalty.  Active tuners that must retune to source the channel incur the maximum penalty.
+     * Otherwise, the penalty increases as the channel approaches the edge of the tuner's usable bandwidth.
+     *
+     * @return penalty in the range 0.0 to 1.0
+     */
+    public double getHeadroomPenalty(Tuner tuner, TunerChannel tunerChannel, int channelCount)
+    {
+        if(channelCount <= 0 || tunerChannel == null)
+        {
+            return 0.0;
+        }
+
+        TunerController controller = tuner.getTunerController();
+        long center = controller.getFrequency();
+        int usableHalfBandwidth = controller.getUsableHalfBandwidth();
+
+        if(usableHalfBandwidth <= 0)
+        {
+            return 1.0;
+        }
+
+        long distance = Math.min(tunerChannel.getMinFrequency() - (center - usableHalfBandwidth),
+            (center + usableHalfBandwidth) - tunerChannel.getMaxFrequency());
+
+        if(distance < 0)
+        {
+            return 1.0;
+        }
+
+        return Math.max(0.0, 1.0 - ((double)distance / usableHalfBandwidth));
+    }
+
+    /**
+     * Registers a running relocatable channel source for periodic rebalancing.
+     */
+    public synchronized void register(MultiFrequencyTunerChannelSource source)
+    {
+        if(!mRelocatableSources.contains(source))
+        {
+            mRelocatableSources.add(source);
+        }
+
+        if(mRebalanceFuture == null)
+        {
+            mRebalanceFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(this::rebalance,
+                REBALANCE_INTERVAL_SECONDS, REBALANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Removes a relocatable channel source from periodic rebalancing.
+     */
+    public synchronized void unregister(MultiFrequencyTunerChannelSource source)
+    {
+        mRelocatableSources.remove(source);
+
+        if(mRelocatableSources.isEmpty() && mRebalanceFuture != null)
+        {
+            mRebalanceFuture.cancel(true);
+            mRebalanceFuture = null;
+        }
+    }
+
+    /**
+     * Updates processing load measurements and relocates at most one registered channel source to a better scoring
+     * tuner.
+     */
+    private void rebalance()
+    {
+        try
+        {
+            List<Tuner> tuners = new ArrayList<>(mTunerModel.getTuners());
+
+            for(Tuner tuner: tuners)
+            {
+                mProcessingLoadMap.computeIfAbsent(tuner, t -> new ProcessingLoad())
+                    .update(tuner.getChannelSourceManager().getProcessingNanoseconds());
+            }
+
+            if(tuners.size() < 2)
+            {
+                return;
+            }
+
+            for(MultiFrequencyTunerChannelSource source: mRelocatableSources)
+            {
+                TunerChannel tunerChannel = source.getCurrentTunerChannel();
+
+                if(tunerChannel == null)
+                {
+                    continue;
+                }
+
+                Tuner current = getSourcingTuner(tunerChannel, tuners);
+
+                if(current == null)
+                {
+                    continue;
+                }
+
+                double currentScore = getScore(current, tunerChannel, true);
+
+                for(Tuner candidate: getCandidates(tunerChannel))
+                {
+                    if(candidate == current)
+                    {
+                        //Candidates are ranked, so no remaining candidate can score better than the current tuner
+                        break;
+                    }
+
+                    if(getScore(candidate, tunerChannel, false) + RELOCATION_HYSTERESIS < currentScore &&
+                        source.relocate(candidate))
+                    {
+                        mLog.info("Relocated channel [" + tunerChannel.getFrequency() + "] from tuner [" +
+                            current.getName() + "] to tuner [" + candidate.getName() + "]");
+                        return;
+                    }
+                }
+            }
+        }
+        catch(Throwable t)
+        {
+            mLog.error("Error while rebalancing tuner channel placement", t);
+        }
+    }
+
+    /**
+     * Identifies the tuner that is currently sourcing the tuner channel instance.  Channel source managers provide
+     * concurrent (or snapshot) tuner channel sets, so they can be iterated here while channels are added and removed.
+     */
+    private static Tuner getSourcingTuner(TunerChannel tunerChannel, List<Tuner> tuners)
+    {
+        for(Tuner tuner: tuners)
+        {
+            for(TunerChannel sourced: tuner.getChannelSourceManager().getTunerChannels())
+            {
+                if(sourced == tunerChannel)
+                {
+                    return tuner;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Tracks channel processing load from cumulative processing time samples
+     */
+    private static class ProcessingLoad
+    {
+        private long mLastProcessingNanoseconds = -1;
+        private long mLastTimestamp;
+        private volatile double mLoad;
+
+        public void update(long processingNanoseconds)
+        {
+            long now = System.nanoTime();
+
+            if(mLastProcessingNanoseconds >= 0 && now > mLastTimestamp)
+            {
+                mLoad = (double)(processingNanoseconds - mLastProcessingNanoseconds) / (double)(now - mLastTimestamp);
+            }
+
+            mLastProcessingNanoseconds = processingNanoseconds;
+            mLastTimestamp = now;
+        }
+
+        public double getLoad()
+        {
+            return mLoad;
+        }
+    }
+}
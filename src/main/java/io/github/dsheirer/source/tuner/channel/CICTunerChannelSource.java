@@ -16,24 +16,26 @@
 package io.github.dsheirer.source.tuner.channel;
 
 import io.github.dsheirer.dsp.filter.cic.ComplexPrimeCICDecimate;
+import io.github.dsheirer.dsp.filter.cic.FusedMixerCICDecimator;
 import io.github.dsheirer.dsp.filter.design.FilterDesignException;
-import io.github.dsheirer.dsp.mixer.IOscillator;
-import io.github.dsheirer.dsp.mixer.LowPhaseNoiseOscillator;
+import io.github.dsheirer.dsp.filter.fir.complex.ComplexFIRFilter2;
 import io.github.dsheirer.sample.IOverflowListener;
 import io.github.dsheirer.sample.Listener;
 import io.github.dsheirer.sample.buffer.OverflowableReusableBufferTransferQueue;
 import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
-import io.github.dsheirer.sample.buffer.ReusableComplexBufferQueue;
-import io.github.dsheirer.sample.complex.Complex;
 import io.github.dsheirer.source.SourceEvent;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Complex sample source that provides a frequency-translated and decimated sample buffer stream.  Uses a
- * CIC decimation filter that requires the decimation rate to be an integer multiple.  Sample buffer processing
- * occurs on a scheduled runnable thread.
+ * Complex sample source that provides a frequency-translated and decimated sample buffer stream.  Uses a fused
+ * mixer and CIC decimation filter that requires the decimation rate to be an integer multiple, followed by a low-pass
+ * cleanup filter at the channel rate.  Sample buffer processing occurs on a DSP task.
+ *
+ * The incoming sample stream can either be the full rate tuner sample stream, or a partially decimated sample stream
+ * from a shared decimation stage that is centered on a nearby frequency.  In the latter case, the frequency set via
+ * setFrequency() is the center frequency of the shared decimation stage instead of the tuner center frequency.
  */
 public class CICTunerChannelSource extends TunerChannelSource implements Listener<ReusableComplexBuffer>
 {
@@ -46,9 +48,9 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
     private static final int BUFFER_OVERFLOW_RESET_THRESHOLD = 100;
 
     private OverflowableReusableBufferTransferQueue<ReusableComplexBuffer> mBuffer;
-    private ReusableComplexBufferQueue mReusableComplexBufferQueue = new ReusableComplexBufferQueue("CICTunerChannelSource");
-    private IOscillator mFrequencyCorrectionMixer;
-    private ComplexPrimeCICDecimate mDecimationFilter;
+    private FusedMixerCICDecimator mDecimator;
+    private ComplexFIRFilter2 mCleanupFilter;
+    private Listener<ReusableComplexBuffer> mComplexBufferListener;
     private List<ReusableComplexBuffer> mSampleBuffers = new ArrayList<>();
     private double mChannelSampleRate;
     private long mChannelFrequencyCorrection = 0;
@@ -66,22 +68,49 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
      */
     public CICTunerChannelSource(Listener<SourceEvent> producerSourceEventListener, TunerChannel tunerChannel,
                  double sampleRate, ChannelSpecification channelSpecification) throws FilterDesignException
+    {
+        this(producerSourceEventListener, tunerChannel, sampleRate,
+            getDecimation(sampleRate, channelSpecification), channelSpecification);
+    }
+
+    /**
+     * Constructs a frequency translating and CIC decimating channel source with an explicit decimation rate.
+     *
+     * @param producerSourceEventListener to receive sample stream start/stop requests
+     * @param tunerChannel that details the desired channel frequency and bandwidth
+     * @param sampleRate of the incoming sample stream
+     * @param decimation rate to apply to the incoming sample stream
+     * @param channelSpecification for the requested channel.
+     * @throws FilterDesignException if a final cleanup filter cannot be designed using the remez filter
+     *                               designer and the filter parameters.
+     */
+    public CICTunerChannelSource(Listener<SourceEvent> producerSourceEventListener, TunerChannel tunerChannel,
+                 double sampleRate, int decimation, ChannelSpecification channelSpecification)
+        throws FilterDesignException
     {
         super(producerSourceEventListener, tunerChannel);
 
-        int decimation = (int)(sampleRate / channelSpecification.getMinimumSampleRate());
+        mChannelSampleRate = sampleRate / (double)decimation;
 
-        mDecimationFilter = new ComplexPrimeCICDecimate(sampleRate, decimation, channelSpecification.getPassFrequency(),
-            channelSpecification.getStopFrequency());
+        //This may throw an exception if we can't design a filter for the sample rate and pass/stop frequencies
+        mCleanupFilter = new ComplexFIRFilter2(ComplexPrimeCICDecimate.getLowPassFilter(mChannelSampleRate,
+            channelSpecification.getPassFrequency(), channelSpecification.getStopFrequency()), 1.0f);
 
         mBuffer = new OverflowableReusableBufferTransferQueue<>(BUFFER_MAX_CAPACITY, BUFFER_OVERFLOW_RESET_THRESHOLD);
 
         //Setup the frequency mixer to the current source frequency
-        mChannelSampleRate = sampleRate / (double)decimation;
         mTunerFrequency = tunerChannel.getFrequency();
         long frequencyOffset = mTunerFrequency - getTunerChannel().getFrequency();
 
-        mFrequencyCorrectionMixer = new LowPhaseNoiseOscillator(frequencyOffset, sampleRate);
+        mDecimator = new FusedMixerCICDecimator(sampleRate, decimation, frequencyOffset, "CICTunerChannelSource");
+    }
+
+    /**
+     * Overall decimation rate from the tuner sample rate to the channel sample rate for the channel specification
+     */
+    public static int getDecimation(double sampleRate, ChannelSpecification channelSpecification)
+    {
+        return (int)(sampleRate / channelSpecification.getMinimumSampleRate());
     }
 
     /**
@@ -99,7 +128,8 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
     @Override
     public void dispose()
     {
-        //
+        mDecimator.dispose();
+        mCleanupFilter.dispose();
     }
 
     /**
@@ -109,6 +139,7 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
     public void receive(ReusableComplexBuffer buffer)
     {
         mBuffer.offer(buffer);
+        signalSamplesAvailable();
     }
 
     /**
@@ -152,7 +183,7 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
     private void updateMixerFrequencyOffset()
     {
         long offset = mTunerFrequency - getTunerChannel().getFrequency() - mChannelFrequencyCorrection;
-        mFrequencyCorrectionMixer.setFrequency(offset);
+        mDecimator.setMixerFrequency(offset);
     }
 
     /**
@@ -196,13 +227,13 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
     @Override
     public void setListener(Listener<ReusableComplexBuffer> complexBufferListener)
     {
-        mDecimationFilter.setListener(complexBufferListener);
+        mComplexBufferListener = complexBufferListener;
     }
 
     @Override
     public void removeListener(Listener<ReusableComplexBuffer> listener)
     {
-        mDecimationFilter.removeListener();
+        mComplexBufferListener = null;
     }
 
 
@@ -215,7 +246,7 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
     /**
      * Primary processing method that is invoked on a recurring basis to process any queued complex buffers.
      *
-     * Mixes the target frequency to baseband and then passes the buffer to the CIC decimation filter
+     * Mixes the target frequency to baseband and CIC decimates in a single pass and then applies the cleanup filter
      */
     protected void processSamples()
     {
@@ -223,25 +254,19 @@ public class CICTunerChannelSource extends TunerChannelSource implements Listene
 
         for(ReusableComplexBuffer complexBuffer : mSampleBuffers)
         {
-            float[] samples = complexBuffer.getSamples();
+            ReusableComplexBuffer decimatedBuffer = mDecimator.decimate(complexBuffer);
+            complexBuffer.decrementUserCount();
 
-            ReusableComplexBuffer translatedComplexBuffer = mReusableComplexBufferQueue.getBuffer(samples.length);
-            float[] translatedSamples = translatedComplexBuffer.getSamples();
+            Listener<ReusableComplexBuffer> listener = mComplexBufferListener;
 
-            /* Perform frequency translation */
-            for(int x = 0; x < samples.length; x += 2)
+            if(listener != null && decimatedBuffer.getSampleCount() > 0)
             {
-                mFrequencyCorrectionMixer.rotate();
-
-                translatedSamples[x] = Complex.multiplyInphase(samples[x], samples[x + 1],
-                    mFrequencyCorrectionMixer.inphase(), mFrequencyCorrectionMixer.quadrature());
-
-                translatedSamples[x + 1] = Complex.multiplyQuadrature(samples[x], samples[x + 1],
-                    mFrequencyCorrectionMixer.inphase(), mFrequencyCorrectionMixer.quadrature());
+                listener.receive(mCleanupFilter.filter(decimatedBuffer));
+            }
+            else
+            {
+                decimatedBuffer.decrementUserCount();
             }
-
-            mDecimationFilter.receive(translatedComplexBuffer);
-            complexBuffer.decrementUserCount();
         }
 
         mSampleBuffers.clear();
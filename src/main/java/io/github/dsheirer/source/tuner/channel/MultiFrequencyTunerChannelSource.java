@@ -26,6 +26,7 @@ import io.github.dsheirer.source.Source;
 import io.github.dsheirer.source.SourceEvent;
 import io.github.dsheirer.source.SourceException;
 import io.github.dsheirer.source.heartbeat.Heartbeat;
+import io.github.dsheirer.source.tuner.Tuner;
 import io.github.dsheirer.source.tuner.TunerModel;
 import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
@@ -39,6 +40,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Multiple-frequency tuner channel source.  Provides a wrapper around a tuner channel source and listens for external
  * source events requests to change frequency.  Maintains an ordered list of frequencies and automatically tears down
  * an existing tuner channel source and obtains a new one with the next frequency from the list, on request.
+ *
+ * While running, this source registers with the tuner placement engine so that the current frequency can be
+ * relocated to a less loaded tuner when one becomes available.  Sources with a preferred tuner are not relocated.
  */
 public class MultiFrequencyTunerChannelSource extends TunerChannelSource
 {
@@ -53,7 +57,9 @@ public class MultiFrequencyTunerChannelSource extends TunerChannelSource
     private Listener<Heartbeat> mHeartbeatListener;
     private String mPreferredTuner;
     private AtomicBoolean mChangingChannels = new AtomicBoolean();
-    private boolean mStarted;
+    //Serializes stop() with the hand-over of the channel to a relocated source
+    private final Object mStateLock = new Object();
+    private volatile boolean mStarted;
     private ConsumerSourceEventAdapter mConsumerSourceEventAdapter = new ConsumerSourceEventAdapter();
 
     public MultiFrequencyTunerChannelSource(TunerModel tunerModel, TunerChannelSource tunerChannelSource,
@@ -96,6 +102,120 @@ public class MultiFrequencyTunerChannelSource extends TunerChannelSource
         }
     }
 
+    /**
+     * Tuner channel for the currently sourced frequency
+     *
+     * @return tuner channel or null if there is currently no source
+     */
+    public TunerChannel getCurrentTunerChannel()
+    {
+        TunerChannelSource source = mTunerChannelSource;
+        return source != null ? source.getTunerChannel() : null;
+    }
+
+    /**
+     * Relocates the current frequency to be sourced by the specified tuner.  The replacement tuner channel source is
+     * obtained and started before the existing source is stopped and released (make before break), so the channel
+     * stays on the current tuner if the replacement cannot be obtained or started.  The replacement starts with the
+     * current channel frequency correction.  If this source is stopped while the replacement is starting, the
+     * replacement is released instead of taking over the channel.
+     *
+     * @param tuner to source the current frequency
+     * @return true if the channel was relocated
+     */
+    public boolean relocate(Tuner tuner)
+    {
+        if(mStarted && mPreferredTuner == null && mChangingChannels.compareAndSet(false, true))
+        {
+            try
+            {
+                TunerChannelSource current = mTunerChannelSource;
+
+                if(current == null)
+                {
+                    return false;
+                }
+
+                TunerChannel tunerChannel = new TunerChannel(current.getTunerChannel().getFrequency(),
+                    mChannelSpecification.getBandwidth());
+                TunerChannelSource replacement = tuner.getChannelSourceManager().getSource(tunerChannel,
+                    mChannelSpecification);
+
+                if(replacement == null)
+                {
+                    return false;
+                }
+
+                //Make before break: start the replacement before releasing the current source so that a failure
+                //to start leaves the current source in place
+                try
+                {
+                    replacement.setChannelFrequencyCorrection(current.getChannelFrequencyCorrection());
+                    replacement.setSourceEventListener(mConsumerSourceEventAdapter);
+                    replacement.addHeartbeatListener(mHeartbeatListener);
+                    replacement.start();
+                }
+                catch(Exception e)
+                {
+                    mLog.error("Error starting replacement channel source on tuner [" + tuner.getName() +
+                        "] - channel remains on the current tuner", e);
+                    release(replacement);
+                    return false;
+                }
+
+                //Hand the sample stream over to the replacement, then release the current source
+                synchronized(mStateLock)
+                {
+                    //The source was stopped while the replacement was starting
+                    if(!mStarted)
+                    {
+                        release(replacement);
+                        return false;
+                    }
+
+                    current.removeListener(mReusableComplexBufferListener);
+                    replacement.setListener(mReusableComplexBufferListener);
+                    mTunerChannelSource = replacement;
+                }
+
+                current.stop();
+                current.removeSourceEventListener();
+                current.removeHeartbeatListener(mHeartbeatListener);
+                current.dispose();
+                return true;
+            }
+            catch(Exception e)
+            {
+                mLog.error("Error relocating channel to tuner [" + tuner.getName() + "]", e);
+            }
+            finally
+            {
+                mChangingChannels.set(false);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Stops and releases a replacement source that did not take over the channel
+     */
+    private void release(TunerChannelSource source)
+    {
+        try
+        {
+            source.stop();
+        }
+        catch(Exception e)
+        {
+            mLog.error("Error stopping replacement channel source", e);
+        }
+
+        source.removeSourceEventListener();
+        source.removeHeartbeatListener(mHeartbeatListener);
+        source.dispose();
+    }
+
     /**
      * Persistently attempts to get the next tuner channel source using the next frequency in the list.  This method
      * should only be invoked by the nextFrequency() method that protects access via the mChangingChannels flag.
@@ -139,18 +259,28 @@ public class MultiFrequencyTunerChannelSource extends TunerChannelSource
         {
             mTunerChannelSource.start();
             mStarted = true;
+
+            if(mPreferredTuner == null)
+            {
+                mTunerModel.getTunerPlacementEngine().register(this);
+            }
         }
     }
 
     @Override
     public void stop()
     {
-        mStarted = false;
+        mTunerModel.getTunerPlacementEngine().unregister(this);
 
-        if(mTunerChannelSource != null)
+        synchronized(mStateLock)
         {
-            mTunerChannelSource.stop();
-            mTunerChannelSource.removeSourceEventListener();
+            mStarted = false;
+
+            if(mTunerChannelSource != null)
+            {
+                mTunerChannelSource.stop();
+                mTunerChannelSource.removeSourceEventListener();
+            }
         }
     }
 
@@ -122,5 +122,6 @@ public class PassThroughChannelSource extends TunerChannelSource implements ISou
     public void receive(ReusableComplexBuffer reusableComplexBuffer)
     {
         mBufferQueue.offer(reusableComplexBuffer);
+        signalSamplesAvailable();
     }
 }
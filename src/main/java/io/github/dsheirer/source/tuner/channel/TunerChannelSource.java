@@ -28,6 +28,7 @@ import io.github.dsheirer.source.ISourceEventProcessor;
 import io.github.dsheirer.source.SourceEvent;
 import io.github.dsheirer.source.SourceEventListenerToProcessorAdapter;
 import io.github.dsheirer.source.SourceException;
+import io.github.dsheirer.util.DSPTask;
 import io.github.dsheirer.util.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -109,6 +110,16 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
      */
     protected abstract void processSamples();
 
+    /**
+     * Signals that new samples are queued so that the sub-class processSamples() method is invoked on the DSP thread
+     * pool without waiting for the next processing interval.  Signals received before this source is started or
+     * after it is stopped are ignored.
+     */
+    protected void signalSamplesAvailable()
+    {
+        mScheduledIntervalProcessor.signal();
+    }
+
     /**
      * Tuner channel for this tuner channel source
      */
@@ -264,14 +275,22 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
     }
 
     /**
-     * Processor to periodically invoke buffer sample processing on an interval timer.  At each interval this processor
-     * sends a heartbeat to the registered consumer and then commands the sub-class implementation to process any
-     * queued buffers and distribute complex buffer sample(s) to the registered consumer.
+     * Processor to invoke buffer sample processing when samples are available and on an interval timer.  At each
+     * interval this processor sends a heartbeat to the registered consumer.  Each time samples are signalled as
+     * available and at each interval, this processor commands the sub-class implementation to process any queued
+     * buffers and distribute complex buffer sample(s) to the registered consumer.
+     *
+     * The interval timer runs on the shared scheduled thread pool and only signals the processing task, which runs on
+     * the dedicated DSP thread pool.
      */
     public class ScheduledIntervalProcessor implements Runnable
     {
         private ScheduledFuture<?> mScheduledFuture;
-        private boolean mStopped = false;
+        private DSPTask mDSPTask = new DSPTask(TunerChannelSource.this.getClass().getSimpleName(), this::process);
+        private volatile boolean mStarted = false;
+        private volatile boolean mStopped = false;
+        private volatile boolean mHeartbeatDue = false;
+        private boolean mDisposed = false;
 
         /**
          * Commands this processor to do a shutdown at the end of this or the next iteration.  Once successfully
@@ -280,30 +299,54 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
         public void stop()
         {
             mStopped = true;
+            mDSPTask.signal();
         }
 
         /**
-         * Starts buffer processing on a fixed interval using a scheduled thread pool
+         * Starts buffer processing and the heartbeat interval timer using a scheduled thread pool
          */
         public void start()
         {
             if(mScheduledFuture == null)
             {
+                mStarted = true;
                 mScheduledFuture = ThreadPool.SCHEDULED.scheduleAtFixedRate(this, 0,
                     BUFFER_PROCESSOR_RUN_INTERVAL_MILLISECONDS, TimeUnit.MILLISECONDS);
             }
         }
 
         /**
-         * Implementation of the Runnable interface to periodically send a heartbeat and then process buffer samples.
+         * Signals that samples are available for processing
+         */
+        public void signal()
+        {
+            if(mStarted && !mStopped)
+            {
+                mDSPTask.signal();
+            }
+        }
+
+        /**
+         * Implementation of the Runnable interface for the interval timer to signal a heartbeat and processing.
          */
         @Override
         public void run()
+        {
+            mHeartbeatDue = true;
+            mDSPTask.signal();
+        }
+
+        /**
+         * Sends a heartbeat when due and then processes buffer samples.  Invoked by the DSP task.
+         */
+        private void process()
         {
             try
             {
-                if(!mStopped)
+                if(!mStopped && mHeartbeatDue)
                 {
+                    mHeartbeatDue = false;
+
                     try
                     {
                         getHeartbeatManager().broadcast();
@@ -326,8 +369,10 @@ public abstract class TunerChannelSource extends ComplexSource implements ISourc
                     }
                 }
 
-                if(mStopped)
+                if(mStopped && !mDisposed)
                 {
+                    mDisposed = true;
+
                     if(mScheduledFuture != null)
                     {
                         //Set may-interrupt to false so that we can complete this iteration
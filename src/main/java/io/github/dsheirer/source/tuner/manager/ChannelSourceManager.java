@@ -41,6 +41,7 @@ public abstract class ChannelSourceManager implements ISourceEventProcessor
 
     /**
      * Sorted set of tuner channels being sourced by this source manager.  Set is ordered by frequency lowest to highest
+     * and can be safely iterated from any thread (e.g. the tuner placement engine) while channels are added or removed.
      */
     public abstract SortedSet<TunerChannel> getTunerChannels();
 
@@ -62,6 +63,17 @@ public abstract class ChannelSourceManager implements ISourceEventProcessor
      */
     public abstract TunerChannelSource getSource(TunerChannel tunerChannel, ChannelSpecification channelSpecification);
 
+    /**
+     * Cumulative processing time spent by this source manager on shared channel processing (e.g. channelization)
+     * for all sourced channels.  Source managers that don't perform shared channel processing return zero.
+     *
+     * @return processing time in nanoseconds since this source manager was created
+     */
+    public long getProcessingNanoseconds()
+    {
+        return 0;
+    }
+
     /**
      * Signals that the complex buffer provider has an error and can no long provider buffers.  The subclass should
      * implement procedures to gracefully shutdown any tuner channel sources that have been provisioned.
@@ -36,11 +36,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Channel provider for heterodyne and decimate method of channel provisioning.
+ *
+ * Channels that are close together in frequency share the full rate mixing and first decimation step through the
+ * shared decimation engine.  Channels that can't use a shared stage are processed from the full rate sample stream.
  */
 public class HeterodyneChannelSourceManager extends ChannelSourceManager
 {
@@ -49,10 +52,11 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
     private final static int DELAY_BUFFER_DURATION_MILLISECONDS = 2000;
 
     private List<CICTunerChannelSource> mChannelSources = new CopyOnWriteArrayList<>();
-    private SortedSet<TunerChannel> mTunerChannels = new TreeSet<>();
+    private SortedSet<TunerChannel> mTunerChannels = new ConcurrentSkipListSet<>();
     private TunerController mTunerController;
     private ChannelSourceEventProcessor mChannelSourceEventProcessor = new ChannelSourceEventProcessor();
     private ReusableComplexDelayBuffer mSampleDelayBuffer;
+    private SharedDecimationEngine mSharedDecimationEngine = new SharedDecimationEngine();
 
     public HeterodyneChannelSourceManager(TunerController tunerController)
     {
@@ -77,22 +81,48 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
     {
         if(CenterFrequencyCalculator.canTune(tunerChannel, mTunerController, mTunerChannels))
         {
+            SharedDecimationEngine.Stage stage = null;
+
             try
             {
+                double sampleRate = mTunerController.getSampleRate();
+                int decimation = CICTunerChannelSource.getDecimation(sampleRate, channelSpecification);
+                stage = mSharedDecimationEngine.getStage(tunerChannel, sampleRate, decimation,
+                    mTunerController.getBufferDuration(), getDelayBufferSize());
+
                 //Attempt to create the channel source first, in case we get a filter design exception
-                CICTunerChannelSource tunerChannelSource = new CICTunerChannelSource(mChannelSourceEventProcessor,
-                    tunerChannel, mTunerController.getSampleRate(), channelSpecification);
+                CICTunerChannelSource tunerChannelSource;
+
+                if(stage != null)
+                {
+                    tunerChannelSource = new CICTunerChannelSource(mChannelSourceEventProcessor, tunerChannel,
+                        stage.getOutputSampleRate(), decimation / stage.getDecimation(), channelSpecification);
+                }
+                else
+                {
+                    tunerChannelSource = new CICTunerChannelSource(mChannelSourceEventProcessor, tunerChannel,
+                        sampleRate, decimation, channelSpecification);
+                }
 
                 //Add to the list of channel sources so that it will receive the tuner frequency change
                 mChannelSources.add(tunerChannelSource);
 
-                //Set the current tuner frequency
-                tunerChannelSource.setFrequency(mTunerController.getFrequency());
-
                 //Add to the channel list and update the tuner center frequency as needed
                 mTunerChannels.add(tunerChannel);
                 updateTunerFrequency();
 
+                //Set the current tuner frequency, or the stage center frequency for shared stage channels, and
+                //register the channel with the shared stage once the channel source is fully set up
+                if(stage != null)
+                {
+                    tunerChannelSource.setFrequency(stage.getCenterFrequency());
+                    mSharedDecimationEngine.register(tunerChannelSource, stage, mTunerController.getFrequency());
+                }
+                else
+                {
+                    tunerChannelSource.setFrequency(mTunerController.getFrequency());
+                }
+
                 //Lock the tuner controller frequency and sample rate
                 mTunerController.setLocked(true);
 
@@ -103,6 +133,12 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
             catch(FilterDesignException fde)
             {
                 mLog.error("Error creating CIC tuner channel source - couldn't design cleanup filter", fde);
+
+                //Release a newly created stage that was never registered
+                if(stage != null)
+                {
+                    mSharedDecimationEngine.discard(stage);
+                }
             }
         }
 
@@ -201,12 +237,26 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
      */
     private void updateTunerFrequency(long tunerFrequency)
     {
+        mSharedDecimationEngine.setTunerFrequency(tunerFrequency);
+
         for(CICTunerChannelSource channelSource : mChannelSources)
         {
-            channelSource.setFrequency(tunerFrequency);
+            //Shared stage channels are centered on the stage frequency and are unaffected by tuner frequency changes
+            if(mSharedDecimationEngine.getStage(channelSource) == null)
+            {
+                channelSource.setFrequency(tunerFrequency);
+            }
         }
     }
 
+    /**
+     * Number of sample buffers to delay to cover the delay buffer duration
+     */
+    private int getDelayBufferSize()
+    {
+        return (int)(DELAY_BUFFER_DURATION_MILLISECONDS / mTunerController.getBufferDuration());
+    }
+
     /**
      * Creates a complex sample delay buffer and registers it with the tuner controller to start the flow
      * of complex sample buffers from the tuner.
@@ -215,7 +265,7 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
     {
         if(mSampleDelayBuffer == null)
         {
-            int delayBufferSize = (int)(DELAY_BUFFER_DURATION_MILLISECONDS / mTunerController.getBufferDuration());
+            int delayBufferSize = getDelayBufferSize();
             mSampleDelayBuffer = new ReusableComplexDelayBuffer(delayBufferSize, mTunerController.getBufferDuration());
 
             mLog.debug("Created/registered complex sample delay buffer of size [" + delayBufferSize +
@@ -255,17 +305,44 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
                     {
                         startDelayBuffer();
 
+                        CICTunerChannelSource channelSource = (CICTunerChannelSource)sourceEvent.getSource();
+                        long timestamp = sourceEvent.getValue().longValue();
+                        SharedDecimationEngine.Stage stage = mSharedDecimationEngine.getStage(channelSource);
+
                         //The start sample stream request contains a start timestamp and the delay buffer
                         //will preload the channel with delayed sample buffers that either contain the
                         //timestamp or occur later/newer than the timestamp.
-                        mSampleDelayBuffer.addListener((CICTunerChannelSource)sourceEvent.getSource(),
-                            sourceEvent.getValue().longValue());
+                        if(stage != null)
+                        {
+                            if(stage.start(channelSource, timestamp))
+                            {
+                                mSampleDelayBuffer.addListener(stage, timestamp);
+                            }
+                        }
+                        else
+                        {
+                            mSampleDelayBuffer.addListener(channelSource, timestamp);
+                        }
                     }
                     break;
                 case REQUEST_STOP_SAMPLE_STREAM:
                     if(sourceEvent.getSource() instanceof CICTunerChannelSource)
                     {
-                        mSampleDelayBuffer.removeListener((CICTunerChannelSource)sourceEvent.getSource());
+                        CICTunerChannelSource channelSource = (CICTunerChannelSource)sourceEvent.getSource();
+                        SharedDecimationEngine.Stage stage = mSharedDecimationEngine.getStage(channelSource);
+
+                        if(stage != null)
+                        {
+                            if(stage.stop(channelSource))
+                            {
+                                mSampleDelayBuffer.removeListener(stage);
+                            }
+                        }
+                        else
+                        {
+                            mSampleDelayBuffer.removeListener(channelSource);
+                        }
+
                         stopDelayBuffer();
                     }
                     break;
@@ -275,6 +352,7 @@ public class HeterodyneChannelSourceManager extends ChannelSourceManager
                         CICTunerChannelSource channelSource = (CICTunerChannelSource)sourceEvent.getSource();
                         mChannelSources.remove(channelSource);
                         mTunerChannels.remove(channelSource.getTunerChannel());
+                        mSharedDecimationEngine.unregister(channelSource);
                         channelSource.dispose();
 
                         //Unlock the tuner controller if there are no more channels
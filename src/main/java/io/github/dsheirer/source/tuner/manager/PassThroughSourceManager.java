@@ -35,7 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -46,7 +46,7 @@ public class PassThroughSourceManager extends ChannelSourceManager
 {
     private final static Logger mLog = LoggerFactory.getLogger(PassThroughSourceManager.class);
     private TunerController mTunerController;
-    private SortedSet<TunerChannel> mTunerChannels = new TreeSet<>();
+    private SortedSet<TunerChannel> mTunerChannels = new ConcurrentSkipListSet<>();
     private List<TunerChannelSource> mTunerChannelSources = new CopyOnWriteArrayList<>();
 
     public PassThroughSourceManager(TunerController tunerController)
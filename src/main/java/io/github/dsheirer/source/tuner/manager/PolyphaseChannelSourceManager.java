@@ -391,6 +391,15 @@ public class PolyphaseChannelSourceManager extends ChannelSourceManager
         return mPolyphaseChannelManager.getTunerChannels();
     }
 
+    /**
+     * Cumulative polyphase channelizer processing time
+     */
+    @Override
+    public long getProcessingNanoseconds()
+    {
+        return mPolyphaseChannelManager.getProcessingNanoseconds();
+    }
+
     /**
      * Count of tuner channels currently being sourced by this source manager
      */
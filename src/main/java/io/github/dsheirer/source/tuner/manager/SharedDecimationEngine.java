@@ -0,0 +1,368 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.source.tuner.manager;
+
+import io.github.dsheirer.dsp.filter.cic.FusedMixerCICDecimator;
+import io.github.dsheirer.sample.Listener;
+import io.github.dsheirer.sample.buffer.OverflowableReusableBufferTransferQueue;
+import io.github.dsheirer.sample.buffer.ReusableComplexBuffer;
+import io.github.dsheirer.sample.buffer.ReusableComplexDelayBuffer;
+import io.github.dsheirer.source.tuner.channel.TunerChannel;
+import io.github.dsheirer.util.DSPTask;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Shared decimation engine for heterodyne channel sources.
+ *
+ * Channels that are close together in frequency share a decimation stage that mixes the full rate tuner sample stream
+ * to the center of the channel cluster and performs the first integrate-and-dump decimation step in one fused pass.
+ * Each channel then mixes and decimates the reduced rate stage output to the channel rate, so the full rate work is
+ * performed once per cluster instead of once per channel.
+ *
+ * The stage decimation is the largest divisor of the channel decimation that leaves each channel with a minimum
+ * amount of decimation and keeps the cluster span within a small fraction of the stage output sample rate, where the
+ * first-order CIC response has negligible droop and good alias rejection.  Channels that cannot share a stage with
+ * these constraints are processed at the full tuner sample rate.
+ *
+ * Each stage has its own delay buffer of decimated samples so that channels starting with a timestamp in the recent
+ * past are preloaded with delayed samples, the same as channels that are processed directly from the tuner.
+ */
+public class SharedDecimationEngine
+{
+    //Maximum cluster half-span (plus channel half-bandwidth) as a fraction of the stage output sample rate
+    private static final double STAGE_BANDWIDTH_FRACTION = 1.0 / 16.0;
+    //Minimum frequency span on either side of the first channel that a new stage can accommodate
+    private static final double MINIMUM_CLUSTER_HALF_SPAN = 25_000.0;
+    //Minimum decimation remaining for each channel after the shared stage
+    private static final int MINIMUM_CHANNEL_DECIMATION = 4;
+    private static final int BUFFER_MAX_CAPACITY = 300;
+    private static final int BUFFER_OVERFLOW_RESET_THRESHOLD = 100;
+
+    private List<Stage> mStages = new CopyOnWriteArrayList<>();
+    private Map<Object,Stage> mChannelStageMap = new ConcurrentHashMap<>();
+    private long mTunerFrequency;
+
+    /**
+     * Constructs an instance
+     */
+    public SharedDecimationEngine()
+    {
+    }
+
+    /**
+     * Calculates the shared stage decimation for a channel, or returns 1 if the channel can't use a shared stage.
+     *
+     * @param sampleRate of the tuner
+     * @param decimation overall decimation for the channel
+     * @param channelBandwidth of the channel
+     * @return stage decimation
+     */
+    public static int getStageDecimation(double sampleRate, int decimation, int channelBandwidth)
+    {
+        for(int stageDecimation = decimation / MINIMUM_CHANNEL_DECIMATION; stageDecimation > 1; stageDecimation--)
+        {
+            if(decimation % stageDecimation == 0 && (sampleRate / stageDecimation * STAGE_BANDWIDTH_FRACTION) >=
+                (channelBandwidth / 2.0 + MINIMUM_CLUSTER_HALF_SPAN))
+            {
+                return stageDecimation;
+            }
+        }
+
+        return 1;
+    }
+
+    /**
+     * Finds an existing stage that can source the tuner channel, or creates a new stage centered on the tuner
+     * channel.  The stage is registered to the channel identifier (ie channel source) once the channel source is
+     * successfully created and set up.  A new stage that is not registered must be released with discard().
+     *
+     * @param tunerChannel to source
+     * @param sampleRate of the tuner
+     * @param decimation overall decimation for the channel
+     * @param bufferDuration of tuner sample buffers in milliseconds
+     * @param delayBufferSize number of buffers to delay
+     * @return stage or null if the channel can't use a shared stage
+     */
+    public Stage getStage(TunerChannel tunerChannel, double sampleRate, int decimation, long bufferDuration,
+                          int delayBufferSize)
+    {
+        for(Stage stage: mStages)
+        {
+            if(stage.canSource(tunerChannel, sampleRate, decimation))
+            {
+                return stage;
+            }
+        }
+
+        int stageDecimation = getStageDecimation(sampleRate, decimation, tunerChannel.getBandwidth());
+
+        if(stageDecimation > 1)
+        {
+            return new Stage(tunerChannel.getFrequency(), sampleRate, stageDecimation, bufferDuration,
+                delayBufferSize);
+        }
+
+        return null;
+    }
+
+    /**
+     * Registers the channel with the stage
+     *
+     * @param channel identifier (ie channel source)
+     * @param stage for the channel
+     * @param tunerFrequency current tuner center frequency
+     */
+    public void register(Object channel, Stage stage, long tunerFrequency)
+    {
+        if(!mStages.contains(stage))
+        {
+            mTunerFrequency = tunerFrequency;
+            stage.setTunerFrequency(tunerFrequency);
+            mStages.add(stage);
+        }
+
+        mChannelStageMap.put(channel, stage);
+    }
+
+    /**
+     * Disposes a stage obtained from getStage() when the channel source for it could not be created.  Stages that
+     * are registered to other channels are left untouched.
+     */
+    public void discard(Stage stage)
+    {
+        if(!mStages.contains(stage))
+        {
+            stage.dispose();
+        }
+    }
+
+    /**
+     * Stage for the registered channel
+     * @return stage or null if the channel is not registered to a shared stage
+     */
+    public Stage getStage(Object channel)
+    {
+        return mChannelStageMap.get(channel);
+    }
+
+    /**
+     * Unregisters the channel and removes the stage once it has no registered channels
+     */
+    public void unregister(Object channel)
+    {
+        Stage stage = mChannelStageMap.remove(channel);
+
+        if(stage != null && !mChannelStageMap.containsValue(stage))
+        {
+            mStages.remove(stage);
+            stage.dispose();
+        }
+    }
+
+    /**
+     * Updates each stage for a change in the tuner center frequency and clears the delayed samples that were
+     * centered on the previous frequency.
+     */
+    public void setTunerFrequency(long tunerFrequency)
+    {
+        mTunerFrequency = tunerFrequency;
+
+        for(Stage stage: mStages)
+        {
+            stage.setTunerFrequency(tunerFrequency);
+            stage.clear();
+        }
+    }
+
+    /**
+     * Number of shared stages
+     */
+    public int getStageCount()
+    {
+        return mStages.size();
+    }
+
+    /**
+     * Shared decimation stage.  Receives full rate sample buffers from the tuner, mixes the cluster center frequency
+     * to baseband and decimates on a DSP task, and distributes the decimated buffers to the started channels.
+     */
+    public static class Stage implements Listener<ReusableComplexBuffer>
+    {
+        private OverflowableReusableBufferTransferQueue<ReusableComplexBuffer> mBuffer =
+            new OverflowableReusableBufferTransferQueue<>(BUFFER_MAX_CAPACITY, BUFFER_OVERFLOW_RESET_THRESHOLD);
+        private List<ReusableComplexBuffer> mSampleBuffers = new ArrayList<>();
+        private DSPTask mDSPTask = new DSPTask("SharedDecimationStage", this::process);
+        private FusedMixerCICDecimator mDecimator;
+        private ReusableComplexDelayBuffer mDelayBuffer;
+        private Set<Listener<ReusableComplexBuffer>> mStartedListeners = new HashSet<>();
+        private long mCenterFrequency;
+        private double mSampleRate;
+        private int mDecimation;
+
+        /**
+         * Constructs an instance
+         *
+         * @param centerFrequency for the stage
+         * @param sampleRate of the tuner
+         * @param decimation for the stage
+         * @param bufferDuration of each tuner sample buffer in milliseconds
+         * @param delayBufferSize number of decimated buffers to delay
+         */
+        public Stage(long centerFrequency, double sampleRate, int decimation, long bufferDuration, int delayBufferSize)
+        {
+            mCenterFrequency = centerFrequency;
+            mSampleRate = sampleRate;
+            mDecimation = decimation;
+            mDecimator = new FusedMixerCICDecimator(sampleRate, decimation, 0, "SharedDecimationStage");
+            mDelayBuffer = new ReusableComplexDelayBuffer(delayBufferSize, bufferDuration);
+        }
+
+        /**
+         * Indicates if this stage can source the tuner channel with the specified overall decimation
+         */
+        public boolean canSource(TunerChannel tunerChannel, double sampleRate, int decimation)
+        {
+            return sampleRate == mSampleRate && decimation % mDecimation == 0 &&
+                decimation / mDecimation >= MINIMUM_CHANNEL_DECIMATION &&
+                (Math.abs(tunerChannel.getFrequency() - mCenterFrequency) + (tunerChannel.getBandwidth() / 2.0)) <=
+                    (getOutputSampleRate() * STAGE_BANDWIDTH_FRACTION);
+        }
+
+        /**
+         * Center frequency of this stage.  Channels sourced from this stage use this frequency as the center
+         * frequency of the incoming sample stream.
+         */
+        public long getCenterFrequency()
+        {
+            return mCenterFrequency;
+        }
+
+        /**
+         * Decimation applied by this stage
+         */
+        public int getDecimation()
+        {
+            return mDecimation;
+        }
+
+        /**
+         * Sample rate of the decimated sample stream
+         */
+        public double getOutputSampleRate()
+        {
+            return mSampleRate / mDecimation;
+        }
+
+        /**
+         * Updates the stage mixer for the tuner center frequency
+         */
+        public void setTunerFrequency(long tunerFrequency)
+        {
+            mDecimator.setMixerFrequency(tunerFrequency - mCenterFrequency);
+        }
+
+        /**
+         * Clears delayed decimated samples
+         */
+        public void clear()
+        {
+            mDelayBuffer.clear();
+        }
+
+        /**
+         * Adds the channel to receive decimated sample buffers, preloaded with delayed buffers at or after the
+         * timestamp.
+         *
+         * @return true if this is the first started channel and the stage should be registered to receive full rate
+         * sample buffers from the tuner
+         */
+        public synchronized boolean start(Listener<ReusableComplexBuffer> listener, long timestamp)
+        {
+            mDelayBuffer.addListener(listener, timestamp);
+            return mStartedListeners.add(listener) && mStartedListeners.size() == 1;
+        }
+
+        /**
+         * Removes the channel from receiving decimated sample buffers
+         *
+         * @return true if there are no remaining started channels and the stage should be deregistered from receiving
+         * full rate sample buffers from the tuner
+         */
+        public synchronized boolean stop(Listener<ReusableComplexBuffer> listener)
+        {
+            mDelayBuffer.removeListener(listener);
+            return mStartedListeners.remove(listener) && mStartedListeners.isEmpty();
+        }
+
+        /**
+         * Receives full rate sample buffers from the tuner
+         */
+        @Override
+        public void receive(ReusableComplexBuffer buffer)
+        {
+            mBuffer.offer(buffer);
+            mDSPTask.signal();
+        }
+
+        /**
+         * Decimates queued sample buffers and sends them to the delay buffer for distribution to the channels
+         */
+        private void process()
+        {
+            mBuffer.drainTo(mSampleBuffers);
+
+            for(ReusableComplexBuffer buffer: mSampleBuffers)
+            {
+                ReusableComplexBuffer decimatedBuffer = mDecimator.decimate(buffer);
+                buffer.decrementUserCount();
+
+                if(decimatedBuffer.getSampleCount() > 0)
+                {
+                    mDelayBuffer.receive(decimatedBuffer);
+                }
+                else
+                {
+                    decimatedBuffer.decrementUserCount();
+                }
+            }
+
+            mSampleBuffers.clear();
+        }
+
+        /**
+         * Releases queued and delayed sample buffers
+         */
+        public void dispose()
+        {
+            mBuffer.clear();
+            mDelayBuffer.dispose();
+            mDecimator.dispose();
+        }
+    }
+}
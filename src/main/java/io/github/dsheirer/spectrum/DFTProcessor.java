@@ -36,6 +36,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -44,6 +46,13 @@ import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * Processes both complex samples or float samples and dispatches a float array of DFT results, using configurable fft
  * size and output dispatch timelines.
+ *
+ * All converters registered with a processor share each calculated DFT result, so consumers of the same sample source
+ * (e.g. the spectrum and waterfall displays) should register with a single processor.  Window coefficients are cached
+ * across processors and results are dispatched from a small pool of reused arrays that converters must treat as
+ * read-only and must not retain beyond the receive() call.
+ *
+ * Note: JTransforms automatically splits large (8192+ point) transforms across its shared thread pool.
  */
 public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEventProcessor, IDFTWidthChangeProcessor
 {
@@ -51,13 +60,12 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
     private static final int BUFFER_QUEUE_MAX_SIZE = 20;
     private static final int BUFFER_QUEUE_OVERFLOW_RESET_THRESHOLD = 6;
     private static final String FRAME_RATE_PROPERTY = "spectral.display.frame.rate";
+    private static final Map<String,double[]> WINDOW_CACHE = new ConcurrentHashMap<>();
 
     //The Cosine and Hann windows seem to offer the best spectral display with minimal bin leakage/smearing
-    private WindowType mWindowType = WindowType.HANN;
-    private double[] mWindow;
+    private volatile WindowType mWindowType = WindowType.HANN;
     private DFTSize mDFTSize = DFTSize.FFT04096;
     private DFTSize mNewDFTSize = DFTSize.FFT04096;
-    private FloatFFT_1D mFFT = new FloatFFT_1D(mDFTSize.getSize());
     private int mFrameRate;
     private int mSampleRate = 2400000; //Initial high value until we receive update from tuner
     private int mFrameSize;
@@ -67,9 +75,10 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
     private AtomicBoolean mRunning = new AtomicBoolean();
     private ScheduledFuture<?> mProcessorTaskHandle;
     private CopyOnWriteArrayList<DFTResultsConverter> mListeners = new CopyOnWriteArrayList<DFTResultsConverter>();
+    private DFTResolution mResolution;
     private OverflowableBufferStream mOverflowableBufferStream = new OverflowableBufferStream(BUFFER_QUEUE_MAX_SIZE,
         BUFFER_QUEUE_OVERFLOW_RESET_THRESHOLD, mDFTSize.getSize());
-    private float[] mPreviousSamples;
+    private float[] mFrameSamples;
 
     public DFTProcessor(SampleType sampleType)
     {
@@ -85,7 +94,6 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
 
         mListeners.clear();
         mOverflowableBufferStream.clear();
-        mWindow = null;
     }
 
     /**
@@ -102,18 +110,22 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
         return mWindowType;
     }
 
+    /**
+     * Sets the window type.  The calculation task applies the change on the next frame.
+     */
     public void setWindowType(WindowType windowType)
     {
         mWindowType = windowType;
+    }
 
-        if(mSampleType == SampleType.COMPLEX)
-        {
-            mWindow = Window.getWindow(mWindowType, mDFTSize.getSize() * 2);
-        }
-        else
-        {
-            mWindow = Window.getWindow(mWindowType, mDFTSize.getSize());
-        }
+    /**
+     * Provides a (shared) cached copy of the window coefficients for the window type and length.  The returned array
+     * must not be modified.
+     */
+    private static double[] getWindow(WindowType windowType, int length)
+    {
+        return WINDOW_CACHE.computeIfAbsent(windowType.name() + ":" + length,
+            key -> Window.getWindow(windowType, length));
     }
 
     /**
@@ -123,7 +135,6 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
     public void setSampleType(SampleType type)
     {
         mSampleType = type;
-        setWindowType(mWindowType);
     }
 
     public SampleType getSampleType()
@@ -212,33 +223,36 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
 
     private void calculate()
     {
+        DFTResolution resolution = getResolution();
+
         //We always send the previous calculated samples - this should improve the screen rendering since the frame
         //rate will always occur on an even rhythm.  Any delays caused by processing will be absorbed and not impact
         //the screen rendering.
-        dispatch(mPreviousSamples);
+        dispatch(resolution.getResults());
 
         try
         {
-            if(mFrameFlushCount > 0)
-            {
-                mOverflowableBufferStream.flush(mFrameFlushCount);
-            }
+            //Consistent view of the frame parameters, which sample rate and frame rate changes can update at any time
+            float[] frameSamples;
+            int frameFlushCount;
+            int frameOverlapCount;
 
-            //If this throws an IO exception, the buffer queue is (temporarily) empty and we return from the method
-            float[] samples = mOverflowableBufferStream.get(mFrameSize, mFrameOverlapCount);
-
-            Window.apply(mWindow, samples);
-
-            if(mSampleType == SampleType.REAL)
+            synchronized(this)
             {
-                mFFT.realForward(samples);
+                frameSamples = mFrameSamples;
+                frameFlushCount = mFrameFlushCount;
+                frameOverlapCount = mFrameOverlapCount;
             }
-            else
+
+            if(frameFlushCount > 0)
             {
-                mFFT.complexForward(samples);
+                mOverflowableBufferStream.flush(frameFlushCount);
             }
 
-            mPreviousSamples = samples;
+            //If this throws an IO exception, the buffer queue is (temporarily) empty and we return from the method
+            mOverflowableBufferStream.get(frameSamples, frameOverlapCount);
+
+            resolution.calculate(frameSamples);
         }
         catch(IOException ioe)
         {
@@ -272,11 +286,115 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
         }
     }
 
+    /**
+     * Accesses the calculation state for the current DFT size, creating it as needed.  Only accessed by the
+     * calculation task.
+     */
+    private DFTResolution getResolution()
+    {
+        if(mResolution == null || mResolution.getDFTSize() != mDFTSize)
+        {
+            mResolution = new DFTResolution(mDFTSize);
+        }
+
+        return mResolution;
+    }
+
     public void addConverter(DFTResultsConverter listener)
     {
         mListeners.add(listener);
     }
 
+    /**
+     * DFT calculation state for a single DFT size.  Results are calculated into a small pool of reused arrays so that
+     * the most recent results remain available for dispatch while the next results are calculated.
+     */
+    private class DFTResolution
+    {
+        private static final int POOL_SIZE = 2;
+
+        private DFTSize mResolutionSize;
+        private FloatFFT_1D mFFT;
+        private WindowType mResolutionWindowType;
+        private SampleType mResolutionSampleType;
+        private double[] mWindow;
+        private float[][] mResultsPool;
+        private int mResultsPointer;
+        private float[] mResults;
+
+        public DFTResolution(DFTSize dftSize)
+        {
+            mResolutionSize = dftSize;
+            mFFT = new FloatFFT_1D(dftSize.getSize());
+        }
+
+        public DFTSize getDFTSize()
+        {
+            return mResolutionSize;
+        }
+
+        /**
+         * Most recently calculated results or an empty (zero-valued) array when no results have been calculated
+         */
+        public float[] getResults()
+        {
+            checkConfiguration();
+            return mResults;
+        }
+
+        /**
+         * Calculates the DFT from the most recent (tail) samples of the frame
+         * @param frameSamples containing at least as many samples as this DFT size
+         */
+        public void calculate(float[] frameSamples)
+        {
+            checkConfiguration();
+
+            mResultsPointer = (mResultsPointer + 1) % POOL_SIZE;
+            float[] samples = mResultsPool[mResultsPointer];
+
+            System.arraycopy(frameSamples, frameSamples.length - samples.length, samples, 0, samples.length);
+
+            Window.apply(mWindow, samples);
+
+            if(mResolutionSampleType == SampleType.REAL)
+            {
+                mFFT.realForward(samples);
+            }
+            else
+            {
+                mFFT.complexForward(samples);
+            }
+
+            mResults = samples;
+        }
+
+        /**
+         * Updates the window and the results pool when the window type or sample type changes
+         */
+        private void checkConfiguration()
+        {
+            if(mResolutionSampleType != mSampleType)
+            {
+                mResolutionSampleType = mSampleType;
+
+                int floatsPerSample = mResolutionSampleType == SampleType.COMPLEX ? 2 : 1;
+                int length = mResolutionSize.getSize() * floatsPerSample;
+
+                mResultsPool = new float[POOL_SIZE][length];
+                mResults = mResultsPool[mResultsPointer];
+                mWindow = getWindow(mWindowType, length);
+                mResolutionWindowType = mWindowType;
+            }
+
+            if(mResolutionWindowType != mWindowType)
+            {
+                mResolutionWindowType = mWindowType;
+                mWindow = getWindow(mResolutionWindowType, mResults.length);
+            }
+        }
+    }
+
     private class DFTCalculationTask implements Runnable
     {
         @Override
@@ -313,10 +431,6 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
             mDFTSize = mNewDFTSize;
 
             calculateConsumptionRate();
-
-            setWindowType(mWindowType);
-
-            mFFT = new FloatFFT_1D(mDFTSize.getSize());
         }
     }
 
@@ -340,14 +454,19 @@ public class DFTProcessor implements Listener<ReusableComplexBuffer>, ISourceEve
     }
 
     /**
-     * Calculates the frame size, flush count and overlap count to use for each calculation cycle.
+     * Calculates the frame size, flush count and overlap count to use for each calculation cycle.  Synchronized since
+     * frame rate changes, sample rate changes and the calculation task invoke this from different threads.
      */
-    private void calculateConsumptionRate()
+    private synchronized void calculateConsumptionRate()
     {
         int floatsPerSample = mSampleType == SampleType.COMPLEX ? 2 : 1;
 
         mFrameSize = mDFTSize.getSize() * floatsPerSample;
-        mPreviousSamples = new float[mFrameSize];
+
+        if(mFrameSamples == null || mFrameSamples.length != mFrameSize)
+        {
+            mFrameSamples = new float[mFrameSize];
+        }
 
         int productionRate = mSampleRate * floatsPerSample;
         int consumptionRate = mFrameRate * mFrameSize;
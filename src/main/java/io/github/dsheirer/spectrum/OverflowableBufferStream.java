@@ -71,6 +71,24 @@ public class OverflowableBufferStream extends OverflowableTransferQueue<Reusable
      */
     public float[] get(int sampleCount, int overlap) throws IOException
     {
+        return get(new float[sampleCount], overlap);
+    }
+
+    /**
+     * Fills the samples array with float samples from the stream, avoiding a new array allocation for each fetch.
+     * When a non-zero overlap is specified, a quantity of samples from the previous fetch are preloaded in the buffer
+     * and new samples are added to make a full array count.
+     *
+     * @param samples array to fill - the array length defines the sample count
+     * @param overlap to reuse part of the previous buffer's samples in this fetch - must be less than sample count
+     * @return the samples array filled from the stream
+     * @throws IOException if the buffer queue is/becomes empty and the samples cannot be provided
+     * @throws IllegalArgumentException if the overlap argument is not less than the sample count argument
+     */
+    public float[] get(float[] samples, int overlap) throws IOException
+    {
+        int sampleCount = samples.length;
+
         if(overlap >= sampleCount)
         {
             throw new IllegalArgumentException("Overlap must be less than the requested sample count");
@@ -116,7 +134,6 @@ public class OverflowableBufferStream extends OverflowableTransferQueue<Reusable
 
         //If we get to here, the float buffer is full.  Get the samples and then refill with overlap if non-zero
         mFloatBuffer.rewind();
-        float[] samples = new float[sampleCount];
         mFloatBuffer.get(samples);
         mFloatBuffer.clear();
 
@@ -628,6 +628,19 @@ public class SpectralDisplayPanel extends JPanel implements Listener<ReusableCom
                 if(event.getComponent() == mWaterfallPanel)
                 {
                     contextMenu.add(new PauseItem(mWaterfallPanel, "Pause"));
+
+                    final JCheckBoxMenuItem frameStatisticsItem = new JCheckBoxMenuItem("Show Frame Statistics");
+                    frameStatisticsItem.setSelected(mWaterfallPanel.isFrameStatisticsVisible());
+                    frameStatisticsItem.addActionListener(new ActionListener()
+                    {
+                        @Override
+                        public void actionPerformed(ActionEvent e)
+                        {
+                            mWaterfallPanel.setFrameStatisticsVisible(frameStatisticsItem.isSelected());
+                        }
+                    });
+                    contextMenu.add(frameStatisticsItem);
+
                     contextMenu.add(new JSeparator());
                 }
 
@@ -67,9 +67,22 @@ public class SpectrumPanel extends JPanel implements DFTResultsListener, Setting
     //Defines the panel inset along the bottom for frequency display
     private float mSpectrumInset = 20.0f;
 
-    //Current DFT output bins in dB
+    //Current DFT output bins in dB (front buffer), swapped with the averaged bins (back buffer) under the display lock
+    private final Object mDisplayLock = new Object();
     private float[] mDisplayFFTBins = new float[1];
 
+    //Averaging output buffer that is only accessed by the DFT results thread until it is swapped for display
+    private float[] mAveragedFFTBins = new float[1];
+
+    //Reusable copy of the displayed bins for rendering on the Swing event thread
+    private float[] mPaintFFTBins = new float[1];
+
+    //Reusable smoothing filter output buffer
+    private float[] mSmoothedFFTBins = new float[1];
+
+    //Reusable spectrum outline
+    private GeneralPath mSpectrumShape = new GeneralPath();
+
     //Averaging across multiple DFT result sets
     private int mAveraging = 4;
 
@@ -119,37 +132,58 @@ public class SpectrumPanel extends JPanel implements DFTResultsListener, Setting
      */
     public void receive(float[] currentFFTBins)
     {
+        //Construct and/or resize our DFT results variables.  Incoming arrays are reused by the DFT results
+        //converters, so we copy the results into our own buffers instead of retaining a reference
+        if(mAveragedFFTBins.length != currentFFTBins.length)
+        {
+            mAveragedFFTBins = new float[currentFFTBins.length];
+            mSmoothedFFTBins = new float[currentFFTBins.length];
+        }
+
+        float[] smoothedBins = mSmoothedFFTBins;
+
         //Prevent arrays of NaN values from being rendered.  The first few
         //DFT result sets on startup will contain NaN values
         if(Float.isInfinite(currentFFTBins[0]) || Float.isNaN(currentFFTBins[0]))
         {
-            currentFFTBins = new float[currentFFTBins.length];
+            Arrays.fill(smoothedBins, 0.0f);
         }
+        else
+        {
+            //Apply smoothing across the bins of the DFT results
+            mSmoothingFilter.filter(currentFFTBins, smoothedBins);
+        }
+
+        float[] previousBins;
 
-        //Construct and/or resize our DFT results variables
-        if(mDisplayFFTBins == null ||
-            mDisplayFFTBins.length != currentFFTBins.length)
+        synchronized(mDisplayLock)
         {
-            mDisplayFFTBins = currentFFTBins;
+            previousBins = mDisplayFFTBins;
         }
 
-        //Apply smoothing across the bins of the DFT results
-        float[] smoothedBins = mSmoothingFilter.filter(currentFFTBins);
+        //The displayed bins are only read here, so the averaged results are calculated into the back buffer while
+        //the event thread renders the front buffer
+        float[] averagedBins = mAveragedFFTBins;
 
         //Apply averaging over multiple DFT output frames
-        if(mAveraging > 1)
+        if(mAveraging > 1 && previousBins.length == averagedBins.length)
         {
             float gain = 1.0f / (float)mAveraging;
 
-            for(int x = 0; x < mDisplayFFTBins.length; x++)
+            for(int x = 0; x < averagedBins.length; x++)
             {
-                mDisplayFFTBins[x] +=
-                    (smoothedBins[x] - mDisplayFFTBins[x]) * gain;
+                averagedBins[x] = previousBins[x] + (smoothedBins[x] - previousBins[x]) * gain;
             }
         }
         else
         {
-            mDisplayFFTBins = smoothedBins;
+            System.arraycopy(smoothedBins, 0, averagedBins, 0, averagedBins.length);
+        }
+
+        synchronized(mDisplayLock)
+        {
+            mAveragedFFTBins = mDisplayFFTBins;
+            mDisplayFFTBins = averagedBins;
         }
 
         repaint();
@@ -192,7 +226,8 @@ public class SpectrumPanel extends JPanel implements DFTResultsListener, Setting
 
         graphics.setBackground(mColorSpectrumBackground);
 
-        GeneralPath spectrumShape = new GeneralPath();
+        GeneralPath spectrumShape = mSpectrumShape;
+        spectrumShape.reset();
 
         //Start at the lower right inset point
         spectrumShape.moveTo(size.getWidth(),
@@ -327,7 +362,11 @@ public class SpectrumPanel extends JPanel implements DFTResultsListener, Setting
      */
     public void clearSpectrum()
     {
-        Arrays.fill(mDisplayFFTBins, 0.0f);
+        synchronized(mDisplayLock)
+        {
+            mDisplayFFTBins = new float[mDisplayFFTBins.length];
+        }
+
         repaint();
     }
 
@@ -391,33 +430,42 @@ public class SpectrumPanel extends JPanel implements DFTResultsListener, Setting
     }
 
     /**
-     * Returns the DFT result bins, or a zoomed and offset version of the bins
-     * when the display is zoomed.
+     * Returns a copy of the DFT result bins, or a zoomed and offset copy of the bins when the display is zoomed.  The
+     * copy is made under the display lock so that the DFT results thread can't swap buffers while it is being read.
      */
     private float[] getBins()
     {
-        if(mZoom == 0)
-        {
-            return mDisplayFFTBins;
-        }
-        else
+        synchronized(mDisplayLock)
         {
-            int length = mDisplayFFTBins.length / getZoomMultiplier();
+            int offset = 0;
+            int length = mDisplayFFTBins.length;
 
-            int offset = mZoomWindowOffset;
-
-            if((offset + length) >= mDisplayFFTBins.length)
+            if(mZoom != 0)
             {
-                offset = mDisplayFFTBins.length - length;
+                length = mDisplayFFTBins.length / getZoomMultiplier();
+
+                offset = mZoomWindowOffset;
+
+                if((offset + length) >= mDisplayFFTBins.length)
+                {
+                    offset = mDisplayFFTBins.length - length;
+                }
+
+                if(offset < 0)
+                {
+                    offset = 0;
+                }
             }
 
-            if(offset < 0)
+            if(mPaintFFTBins.length != length)
             {
-                offset = 0;
+                mPaintFFTBins = new float[length];
             }
 
-            return Arrays.copyOfRange(mDisplayFFTBins, offset, offset + length);
+            System.arraycopy(mDisplayFFTBins, offset, mPaintFFTBins, 0, length);
         }
+
+        return mPaintFFTBins;
     }
 
     @Override
@@ -27,16 +27,17 @@ import org.slf4j.LoggerFactory;
 
 import javax.swing.JPanel;
 import java.awt.Color;
-import java.awt.EventQueue;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Image;
 import java.awt.Point;
 import java.awt.geom.Line2D;
-import java.awt.image.ColorModel;
-import java.awt.image.MemoryImageSource;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.VolatileImage;
 import java.text.DecimalFormat;
-import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class WaterfallPanel extends JPanel implements DFTResultsListener,
     Pausable,
@@ -50,15 +51,22 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
     private static DecimalFormat CURSOR_FORMAT = new DecimalFormat("0.00000");
     private static final String PAUSED = "PAUSED - Right Click to Unpause";
     private static final String DISABLED = "DISABLED - Right Click to Select a Tuner";
+    private static final DecimalFormat FRAME_TIME_FORMAT = new DecimalFormat("0.00");
 
-    private byte[] mPixels;
-    private byte[] mPausedPixels;
+    //Smoothing factor for the exponential moving averages of the frame statistics
+    private static final double FRAME_TIME_ALPHA = 0.05;
+
+    private volatile RingBuffer mRingBuffer;
+    private RingBuffer mPausedRingBuffer;
     private int mDFTSize = 4096;
     private int mImageHeight = 700;
-    private MemoryImageSource mMemoryImageSource;
-    private ColorModel mColorModel = WaterfallColorModel.getDefaultColorModel();
+    private IndexColorModel mColorModel = WaterfallColorModel.getDefaultColorModel();
     private Color mColorSpectrumCursor;
-    private Image mWaterfallImage;
+
+    //Hardware accelerated copy of the ring buffer image, updated incrementally on the swing event thread
+    private VolatileImage mVolatileImage;
+    private RingBuffer mRenderedRingBuffer;
+    private long mRenderedRowCount;
 
     private Point mCursorLocation = new Point(0, 0);
     private boolean mCursorVisible = false;
@@ -68,6 +76,11 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
     private int mZoom = 0;
     private int mDFTZoomWindowOffset = 0;
 
+    private boolean mFrameStatisticsVisible = false;
+    private volatile double mRowRenderTime;
+    private double mPaintTime;
+    private long mDroppedFrameCount;
+
     private SettingsManager mSettingsManager;
 
     /**
@@ -75,6 +88,10 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
      * time.  Maps DFT frequency bin decibel values into a 256 bucket color map
      * for display.
      *
+     * DFT results are colorized on the calling (DFT processing) thread directly into the newest row of a ring
+     * buffer, so that the image never has to be shifted.  The swing event thread copies only the new rows into a
+     * hardware accelerated volatile image and renders the ring buffer in two slices using the current row offset.
+     *
      * @param settingsManager
      */
     public WaterfallPanel(SettingsManager settingsManager)
@@ -101,27 +118,20 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
         }
 
         mSettingsManager = null;
-        mMemoryImageSource = null;
+
+        if(mVolatileImage != null)
+        {
+            mVolatileImage.flush();
+            mVolatileImage = null;
+        }
     }
 
     /**
-     * Resets the memory image source and byte backing array when the DFT point
-     * size has changed
+     * Resets the ring buffer when the DFT point size has changed
      */
     private void reset()
     {
-        mPixels = new byte[mDFTSize * mImageHeight];
-
-        mMemoryImageSource = new MemoryImageSource(mDFTSize,
-            mImageHeight,
-            mColorModel,
-            mPixels,
-            0,
-            mDFTSize);
-
-        mMemoryImageSource.setAnimated(true);
-
-        mWaterfallImage = createImage(mMemoryImageSource);
+        mRingBuffer = new RingBuffer(mDFTSize, mImageHeight, mColorModel);
 
         repaint();
     }
@@ -133,7 +143,7 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
     {
         if(paused)
         {
-            mPausedPixels = mPixels.clone();
+            mPausedRingBuffer = mRingBuffer.copy();
         }
 
         mPaused = paused;
@@ -141,6 +151,26 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
         repaint();
     }
 
+    /**
+     * Indicates if the frame statistics overlay is visible
+     */
+    public boolean isFrameStatisticsVisible()
+    {
+        return mFrameStatisticsVisible;
+    }
+
+    /**
+     * Shows or hides the frame statistics overlay that displays the DFT row render time, the paint time and the
+     * number of DFT frames that were coalesced into a single repaint (dropped frames).
+     */
+    public void setFrameStatisticsVisible(boolean visible)
+    {
+        mFrameStatisticsVisible = visible;
+        mDroppedFrameCount = 0;
+
+        repaint();
+    }
+
     /**
      * Returns current pause state
      *
@@ -297,6 +327,8 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
      */
     public void paintComponent(Graphics g)
     {
+        long start = System.nanoTime();
+
         super.paintComponent(g);
 
         int multiplier = getZoomMultiplier();
@@ -305,15 +337,12 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
 
         int offset = (int)(getPixelOffset(multiplier) - binPixelWidth);
 
-        g.drawImage(mWaterfallImage,
-            offset,
-            0,
-            (getWidth() * multiplier) + (int)binPixelWidth,
-            mImageHeight,
-            this);
+        int width = (getWidth() * multiplier) + (int)binPixelWidth;
 
         Graphics2D graphics = (Graphics2D)g;
 
+        paintWaterfall(graphics, offset, width);
+
         graphics.setColor(mColorSpectrumCursor);
 
         if(mCursorVisible)
@@ -334,9 +363,153 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
 
         paintZoomIndicator(graphics);
 
+        double paintTime = (double)(System.nanoTime() - start) / TimeUnit.MILLISECONDS.toNanos(1);
+        mPaintTime += (paintTime - mPaintTime) * FRAME_TIME_ALPHA;
+
+        if(mFrameStatisticsVisible)
+        {
+            paintFrameStatistics(graphics);
+        }
+
         graphics.dispose();
     }
 
+    /**
+     * Renders the ring buffer (or the paused ring buffer) to the graphics context via the volatile image.  Only the
+     * rows that were added since the last paint are copied into the volatile image, unless the volatile image
+     * contents were lost or the ring buffer was replaced.
+     *
+     * @param graphics to paint
+     * @param offset x-axis pixel offset for zoomed display
+     * @param width scaled image width
+     */
+    private void paintWaterfall(Graphics2D graphics, int offset, int width)
+    {
+        RingBuffer ringBuffer = mPaused && mPausedRingBuffer != null ? mPausedRingBuffer : mRingBuffer;
+
+        //Snapshot the row counter so that rows written during this paint are rendered on the next paint
+        long rowCount = ringBuffer.getRowCount();
+        int newestRow = ringBuffer.getRow(rowCount);
+
+        do
+        {
+            boolean fullRefresh = ringBuffer != mRenderedRingBuffer || rowCount - mRenderedRowCount >= ringBuffer.mHeight;
+
+            int validation = VolatileImage.IMAGE_INCOMPATIBLE;
+
+            if(mVolatileImage != null && mVolatileImage.getWidth() == ringBuffer.mWidth &&
+                mVolatileImage.getHeight() == ringBuffer.mHeight)
+            {
+                validation = mVolatileImage.validate(getGraphicsConfiguration());
+            }
+
+            switch(validation)
+            {
+                case VolatileImage.IMAGE_INCOMPATIBLE:
+                    if(mVolatileImage != null)
+                    {
+                        mVolatileImage.flush();
+                    }
+
+                    mVolatileImage = createVolatileImage(ringBuffer.mWidth, ringBuffer.mHeight);
+                    fullRefresh = true;
+                    break;
+                case VolatileImage.IMAGE_RESTORED:
+                    fullRefresh = true;
+                    break;
+                default:
+                    break;
+            }
+
+            //Component is not displayable - render directly from the ring buffer image
+            if(mVolatileImage == null)
+            {
+                drawRingBuffer(graphics, ringBuffer.mImage, ringBuffer.mHeight, newestRow, offset, width);
+                return;
+            }
+
+            Graphics2D volatileGraphics = mVolatileImage.createGraphics();
+
+            if(fullRefresh)
+            {
+                volatileGraphics.drawImage(ringBuffer.mImage, 0, 0, null);
+            }
+            else if(rowCount > mRenderedRowCount)
+            {
+                int newRows = (int)(rowCount - mRenderedRowCount);
+
+                //Each DFT frame beyond the first that arrives between paints is coalesced (dropped) from display
+                mDroppedFrameCount += newRows - 1;
+
+                int firstRow = newestRow;
+                int rows = Math.min(newRows, ringBuffer.mHeight - firstRow);
+
+                copyRows(volatileGraphics, ringBuffer, firstRow, rows);
+
+                if(rows < newRows)
+                {
+                    copyRows(volatileGraphics, ringBuffer, 0, newRows - rows);
+                }
+            }
+
+            volatileGraphics.dispose();
+
+            mRenderedRingBuffer = ringBuffer;
+            mRenderedRowCount = rowCount;
+
+            drawRingBuffer(graphics, mVolatileImage, ringBuffer.mHeight, newestRow, offset, width);
+        }
+        while(mVolatileImage != null && mVolatileImage.contentsLost());
+    }
+
+    /**
+     * Copies a contiguous range of rows from the ring buffer image to the volatile image
+     */
+    private void copyRows(Graphics2D volatileGraphics, RingBuffer ringBuffer, int firstRow, int rows)
+    {
+        int lastRow = firstRow + rows;
+
+        volatileGraphics.drawImage(ringBuffer.mImage, 0, firstRow, ringBuffer.mWidth, lastRow, 0, firstRow,
+            ringBuffer.mWidth, lastRow, null);
+    }
+
+    /**
+     * Draws the ring buffer image in two slices so that the newest row is at the top of the display.
+     *
+     * @param graphics to draw
+     * @param image containing the ring buffer rows
+     * @param height of the image in rows
+     * @param newestRow index of the newest row in the image
+     * @param offset x-axis pixel offset
+     * @param width scaled image width
+     */
+    private void drawRingBuffer(Graphics2D graphics, java.awt.Image image, int height, int newestRow, int offset,
+                                int width)
+    {
+        int imageWidth = image.getWidth(null);
+        int topRows = height - newestRow;
+
+        //Newest row through the end of the ring buffer
+        graphics.drawImage(image, offset, 0, offset + width, topRows, 0, newestRow, imageWidth, height, null);
+
+        //Start of the ring buffer through the row before the newest row
+        if(newestRow > 0)
+        {
+            graphics.drawImage(image, offset, topRows, offset + width, height, 0, 0, imageWidth, newestRow, null);
+        }
+    }
+
+    /**
+     * Paints the frame statistics overlay
+     */
+    private void paintFrameStatistics(Graphics2D graphics)
+    {
+        String statistics = "Row: " + FRAME_TIME_FORMAT.format(mRowRenderTime) + " ms  Paint: " +
+            FRAME_TIME_FORMAT.format(mPaintTime) + " ms  Dropped: " + mDroppedFrameCount;
+
+        graphics.drawString(statistics, getWidth() - graphics.getFontMetrics().stringWidth(statistics) - 20, 20);
+    }
+
     /**
      * When zoom level is greater than zero, paints a small indicator at the
      * bottom center of the screen showing the location of the zoom window
@@ -375,13 +548,17 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
     /**
      * Implements the DFT results listener interface method.  This is the
      * primary method for receiving new frequency bin results.
+     *
+     * Colorizes the results into the newest row of the ring buffer on the calling thread and requests a repaint.
      */
     @Override
     public void receive(float[] update)
     {
+        long start = System.nanoTime();
+
         mDisabled = false;
 
-        //If our FFT size changes, reset our pixel map and image source
+        //If our FFT size changes, reset our ring buffer
         if(mDFTSize != update.length)
         {
             mDFTSize = update.length;
@@ -389,8 +566,9 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
             reset();
         }
 
-        //Move the pixels down a row to make room for the new results
-        System.arraycopy(mPixels, 0, mPixels, mDFTSize, mPixels.length - mDFTSize);
+        RingBuffer ringBuffer = mRingBuffer;
+        byte[] pixels = ringBuffer.mPixels;
+        int rowOffset = ringBuffer.getRow(ringBuffer.getRowCount() + 1) * ringBuffer.mWidth;
 
         /**
          * Find the average value and scale the display to it
@@ -412,54 +590,95 @@ public class WaterfallPanel extends JPanel implements DFTResultsListener,
 
             if(value < 0)
             {
-                mPixels[x] = 0;
+                pixels[rowOffset + x] = 0;
             }
             else if(value > 255)
             {
-                mPixels[x] = (byte)255;
+                pixels[rowOffset + x] = (byte)255;
             }
             else
             {
-                mPixels[x] = (byte)value;
+                pixels[rowOffset + x] = (byte)value;
             }
         }
 
-        //Task the swing event thread to update the display
-        EventQueue.invokeLater(new Runnable()
+        //Publish the new row
+        ringBuffer.incrementRowCount();
+
+        double rowRenderTime = (double)(System.nanoTime() - start) / TimeUnit.MILLISECONDS.toNanos(1);
+        mRowRenderTime += (rowRenderTime - mRowRenderTime) * FRAME_TIME_ALPHA;
+
+        if(!mPaused)
         {
-            @Override
-            public void run()
-            {
-                if(mMemoryImageSource != null)
-                {
-                    if(mPaused)
-                    {
-                        mMemoryImageSource.newPixels(mPausedPixels, mColorModel, 0, mDFTSize);
-                    }
-                    else
-                    {
-                        mMemoryImageSource.newPixels(mPixels, mColorModel, 0, mDFTSize);
-                    }
-                }
-            }
-        });
+            repaint();
+        }
     }
 
     public void clearWaterfall()
     {
-        Arrays.fill(mPixels, (byte)0);
         mDisabled = true;
 
-        EventQueue.invokeLater(new Runnable()
+        //Replace the ring buffer so that the display is fully refreshed
+        mRingBuffer = new RingBuffer(mDFTSize, mImageHeight, mColorModel);
+
+        repaint();
+    }
+
+    /**
+     * Circular buffer of waterfall rows backed by an indexed color image.  Rows are written in descending index
+     * order so that the rows following the newest row (with wrap-around) are progressively older.  The buffer is
+     * written by the DFT processing thread and read by the swing event thread.
+     */
+    private static class RingBuffer
+    {
+        private final int mWidth;
+        private final int mHeight;
+        private final BufferedImage mImage;
+        private final byte[] mPixels;
+        private final AtomicLong mRowCount = new AtomicLong();
+
+        RingBuffer(int width, int height, IndexColorModel colorModel)
         {
-            @Override
-            public void run()
-            {
-                if(mMemoryImageSource != null)
-                {
-                    mMemoryImageSource.newPixels(mPixels, mColorModel, 0, mDFTSize);
-                }
-            }
-        });
+            mWidth = width;
+            mHeight = height;
+            mImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+            mPixels = ((DataBufferByte)mImage.getRaster().getDataBuffer()).getData();
+        }
+
+        /**
+         * Number of rows written to this buffer
+         */
+        long getRowCount()
+        {
+            return mRowCount.get();
+        }
+
+        /**
+         * Publishes a row after it is written
+         */
+        void incrementRowCount()
+        {
+            mRowCount.incrementAndGet();
+        }
+
+        /**
+         * Ring buffer row index for the specified row count.  Row count 1 is stored in the last row and each
+         * subsequent row is stored in the preceding row index.
+         */
+        int getRow(long rowCount)
+        {
+            return (int)(mHeight - 1 - ((rowCount - 1) % mHeight + mHeight) % mHeight);
+        }
+
+        /**
+         * Creates a copy of this ring buffer
+         */
+        RingBuffer copy()
+        {
+            RingBuffer copy = new RingBuffer(mWidth, mHeight, (IndexColorModel)mImage.getColorModel());
+            System.arraycopy(mPixels, 0, copy.mPixels, 0, mPixels.length);
+            copy.mRowCount.set(mRowCount.get());
+            return copy;
+        }
     }
 }
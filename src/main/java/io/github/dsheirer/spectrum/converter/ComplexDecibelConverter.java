@@ -59,6 +59,9 @@ package io.github.dsheirer.spectrum.converter;
  */
 public class ComplexDecibelConverter extends DFTResultsConverter
 {
+	//Reused across DFT frames - listeners must consume the results before returning
+	private float[] mProcessed = new float[ 0 ];
+
 	/**
 	 * Converts the output of the JTransforms FloatFFT_1D.complexForward()
 	 * calculation into the power spectrum in decibels, normalized to the
@@ -76,7 +79,12 @@ public class ComplexDecibelConverter extends DFTResultsConverter
 //		float dftBinSizeScalor = 1.0f / (float)Math.pow( halfResults, 2.0 );
 		float dftBinSizeScalor = 1.0f / (float)halfResults;
 		
-		float[] processed = new float[ halfResults ];
+		if( mProcessed.length != halfResults )
+		{
+			mProcessed = new float[ halfResults ];
+		}
+
+		float[] processed = mProcessed;
 
 		int middle = processed.length / 2;
 		
@@ -7,6 +7,9 @@ public class RealDecibelConverter extends DFTResultsConverter
 {
 	private static final Logger mLog = LoggerFactory.getLogger( RealDecibelConverter.class );
 
+	//Reused across DFT frames - listeners must consume the results before returning
+	private float[] mProcessed = new float[ 0 ];
+
 	public RealDecibelConverter()
 	{
 	}
@@ -23,7 +26,12 @@ public class RealDecibelConverter extends DFTResultsConverter
     {
 		float dftBinSizeScalor = 1.0f / (float)results.length;
 		
-		float[] processed = new float[ results.length / 4 ];
+		if( mProcessed.length != results.length / 4 )
+		{
+			mProcessed = new float[ results.length / 4 ];
+		}
+
+		float[] processed = mProcessed;
 
 		int index = 0;
 		
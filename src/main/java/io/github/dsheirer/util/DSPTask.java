@@ -0,0 +1,154 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Event-driven task that executes on the DSP thread pool each time it is signalled, instead of polling on a fixed
+ * interval.  Signals that arrive while the task is queued are coalesced into a single execution and a signal that
+ * arrives while the task is running causes the task to be queued again once the current execution completes, so the
+ * task never runs concurrently with itself and never misses a signal.
+ *
+ * Run time and scheduling delay (signal to start of execution) are recorded in task statistics that are shared by
+ * all tasks with the same name.
+ */
+public class DSPTask implements Runnable
+{
+    private final static Logger mLog = LoggerFactory.getLogger(DSPTask.class);
+    private static final Map<String,TaskStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+    private static final int IDLE = 0;
+    private static final int QUEUED = 1;
+    private static final int RUNNING = 2;
+    private static final int RUNNING_SIGNALLED = 3;
+
+    private final Runnable mWork;
+    private final TaskStatistics mStatistics;
+    private final AtomicInteger mState = new AtomicInteger(IDLE);
+    private volatile long mSignalTimestamp;
+
+    /**
+     * Constructs an instance
+     * @param name for the task statistics (e.g. the simple class name of the task owner)
+     * @param work to execute each time this task is signalled
+     */
+    public DSPTask(String name, Runnable work)
+    {
+        mWork = work;
+        mStatistics = STATISTICS.computeIfAbsent(name, TaskStatistics::new);
+    }
+
+    /**
+     * Signals that work is available and queues this task for execution on the DSP thread pool, if not already
+     * queued.
+     */
+    public void signal()
+    {
+        while(true)
+        {
+            int state = mState.get();
+
+            if(state == IDLE)
+            {
+                if(mState.compareAndSet(IDLE, QUEUED))
+                {
+                    submit();
+                    return;
+                }
+            }
+            else if(state == RUNNING)
+            {
+                if(mState.compareAndSet(RUNNING, RUNNING_SIGNALLED))
+                {
+                    return;
+                }
+            }
+            else
+            {
+                //Already queued or already signalled while running
+                return;
+            }
+        }
+    }
+
+    private void submit()
+    {
+        mSignalTimestamp = System.nanoTime();
+        ThreadPool.DSP.execute(this);
+    }
+
+    @Override
+    public void run()
+    {
+        long start = System.nanoTime();
+        mStatistics.getSchedulingDelay().record(start - mSignalTimestamp);
+        mState.set(RUNNING);
+
+        try
+        {
+            mWork.run();
+        }
+        catch(Throwable t)
+        {
+            mLog.error("Error while executing DSP task [" + mStatistics.getName() + "]", t);
+        }
+
+        mStatistics.getRunTime().record(System.nanoTime() - start);
+
+        //If we were signalled while running, queue this task again so that other tasks get a fair share of the pool
+        if(!mState.compareAndSet(RUNNING, IDLE))
+        {
+            mState.set(QUEUED);
+            submit();
+        }
+    }
+
+    /**
+     * Statistics for all named DSP tasks
+     */
+    public static Collection<TaskStatistics> getStatistics()
+    {
+        List<TaskStatistics> statistics = new ArrayList<>(STATISTICS.values());
+        statistics.sort((o1, o2) -> o1.getName().compareTo(o2.getName()));
+        return statistics;
+    }
+
+    /**
+     * Logs the statistics for all named DSP tasks
+     */
+    public static void logStatistics()
+    {
+        for(TaskStatistics statistics: getStatistics())
+        {
+            mLog.info("DSP Task " + statistics);
+        }
+    }
+}
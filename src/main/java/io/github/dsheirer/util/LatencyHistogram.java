@@ -0,0 +1,159 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, fixed-size histogram of durations using power-of-two microsecond buckets.  Bucket 0 counts durations
+ * less than 1 microsecond and bucket N counts durations in the range [2^(N-1), 2^N) microseconds.
+ */
+public class LatencyHistogram
+{
+    private static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotalNanoseconds = new AtomicLong();
+    private final AtomicLong mMaxNanoseconds = new AtomicLong();
+
+    /**
+     * Records the duration
+     * @param nanoseconds duration
+     */
+    public void record(long nanoseconds)
+    {
+        if(nanoseconds < 0)
+        {
+            nanoseconds = 0;
+        }
+
+        long microseconds = TimeUnit.NANOSECONDS.toMicros(nanoseconds);
+        int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(microseconds));
+
+        mBuckets.incrementAndGet(bucket);
+        mCount.incrementAndGet();
+        mTotalNanoseconds.addAndGet(nanoseconds);
+
+        long max = mMaxNanoseconds.get();
+
+        while(nanoseconds > max && !mMaxNanoseconds.compareAndSet(max, nanoseconds))
+        {
+            max = mMaxNanoseconds.get();
+        }
+    }
+
+    /**
+     * Number of recorded durations
+     */
+    public long getCount()
+    {
+        return mCount.get();
+    }
+
+    /**
+     * Mean recorded duration in microseconds
+     */
+    public double getMeanMicroseconds()
+    {
+        long count = mCount.get();
+        return count > 0 ? mTotalNanoseconds.get() / 1000.0 / count : 0.0;
+    }
+
+    /**
+     * Largest recorded duration in microseconds
+     */
+    public double getMaxMicroseconds()
+    {
+        return mMaxNanoseconds.get() / 1000.0;
+    }
+
+    /**
+     * Upper bound in microseconds of the bucket that contains the specified percentile of recorded durations.
+     *
+     * @param percentile in the range 0.0 - 1.0
+     * @return bucket upper bound in microseconds or 0 if no durations have been recorded
+     */
+    public long getPercentileMicroseconds(double percentile)
+    {
+        long count = mCount.get();
+
+        if(count == 0)
+        {
+            return 0;
+        }
+
+        long threshold = (long)Math.ceil(count * percentile);
+        long accumulated = 0;
+
+        for(int x = 0; x < BUCKET_COUNT; x++)
+        {
+            accumulated += mBuckets.get(x);
+
+            if(accumulated >= threshold)
+            {
+                return 1L << x;
+            }
+        }
+
+        return 1L << (BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Counts per bucket, where the bucket index is log2 of the bucket upper bound in microseconds.
+     */
+    public long[] getBuckets()
+    {
+        long[] buckets = new long[BUCKET_COUNT];
+
+        for(int x = 0; x < BUCKET_COUNT; x++)
+        {
+            buckets[x] = mBuckets.get(x);
+        }
+
+        return buckets;
+    }
+
+    /**
+     * Clears all recorded durations
+     */
+    public void reset()
+    {
+        for(int x = 0; x < BUCKET_COUNT; x++)
+        {
+            mBuckets.set(x, 0);
+        }
+
+        mCount.set(0);
+        mTotalNanoseconds.set(0);
+        mMaxNanoseconds.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("count:%d mean:%.1fus p50:<%dus p99:<%dus max:%.1fus", getCount(), getMeanMicroseconds(),
+            getPercentileMicroseconds(0.5), getPercentileMicroseconds(0.99), getMaxMicroseconds());
+    }
+}
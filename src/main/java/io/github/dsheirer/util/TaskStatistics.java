@@ -0,0 +1,68 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package io.github.dsheirer.util;
+
+/**
+ * Run-time and scheduling-delay statistics for a named task.  Statistics are shared by all task instances that use
+ * the same name.
+ */
+public class TaskStatistics
+{
+    private final String mName;
+    private final LatencyHistogram mRunTime = new LatencyHistogram();
+    private final LatencyHistogram mSchedulingDelay = new LatencyHistogram();
+
+    public TaskStatistics(String name)
+    {
+        mName = name;
+    }
+
+    /**
+     * Task name
+     */
+    public String getName()
+    {
+        return mName;
+    }
+
+    /**
+     * Histogram of task execution durations
+     */
+    public LatencyHistogram getRunTime()
+    {
+        return mRunTime;
+    }
+
+    /**
+     * Histogram of the delay between signalling/scheduling the task and the start of task execution
+     */
+    public LatencyHistogram getSchedulingDelay()
+    {
+        return mSchedulingDelay;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mName + " run [" + mRunTime + "] delay [" + mSchedulingDelay + "]";
+    }
+}
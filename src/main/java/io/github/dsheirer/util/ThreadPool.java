@@ -23,6 +23,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ScheduledExecutorService;
 
 public class ThreadPool
@@ -32,12 +34,26 @@ public class ThreadPool
     private static int CORES = Runtime.getRuntime().availableProcessors();
     public static ScheduledExecutorService SCHEDULED;
 
+    /**
+     * Work-stealing pool dedicated to channel sample processing and decoding, separate from the scheduled pool that
+     * services housekeeping, user interface and I/O tasks.  Use a DSPTask to run event-driven work on this pool.
+     */
+    public static ForkJoinPool DSP;
+
     static
     {
         //Create a scheduled thread pool sized according to the available processors/cores, minimum 2
         CORES = (CORES < 2 ? 2 : CORES);
 
         SCHEDULED = Executors.newScheduledThreadPool(CORES, new NamingThreadFactory("sdrtrunk"));
+
+        //Async mode provides FIFO ordering for tasks that are submitted and never joined
+        DSP = new ForkJoinPool(CORES, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("sdrtrunk dsp-worker-" + thread.getPoolIndex());
+            return thread;
+        }, (thread, throwable) -> mLog.error("Error while executing task in DSP thread pool [" +
+            thread.getName() + "]", throwable), true);
     }
 
     /**
@@ -50,5 +66,6 @@ public class ThreadPool
     public static void logSettings()
     {
         mLog.info("Application thread pool created with [" + CORES + "] threads");
+        mLog.info("DSP thread pool created with [" + DSP.getParallelism() + "] threads");
     }
 }
@@ -51,6 +51,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The <code>AbstractTileFactory</code> provides 
@@ -81,6 +82,12 @@ public abstract class AbstractTileFactory extends TileFactory
 
 	private TileCache cache = new TileCache();
 
+	private boolean mPrefetchNeighbouringZoomLevels = false;
+	private AtomicLong mNetworkFetchCount = new AtomicLong();
+	private AtomicLong mNetworkFetchBytes = new AtomicLong();
+	private AtomicLong mNetworkErrorCount = new AtomicLong();
+	private long mPrefetchCount;
+
 	/**
 	 * Returns the tile that is located at the given tilePoint 
 	 * for this zoom. For example, if getMapSize() returns 10x20
@@ -129,6 +136,11 @@ public abstract class AbstractTileFactory extends TileFactory
 				startLoading(tile);
 			}
 			tileMap.put(url, tile);
+
+			if(eagerLoad && mPrefetchNeighbouringZoomLevels)
+			{
+				prefetchNeighbouringZoomLevels(tileX, tileY, zoom);
+			}
 		}
 		else
 		{
@@ -163,6 +175,60 @@ public abstract class AbstractTileFactory extends TileFactory
 	// return tileMap.containsKey(url);
 	// }
 
+	/**
+	 * Queues low priority loads for the tiles that cover the same area in the neighbouring zoom levels: the parent
+	 * tile in the next zoomed-out level and the four child tiles in the next zoomed-in level.  The parent tile is
+	 * shared by four tiles, so prefetching typically loads one parent for every four visible tiles.
+	 */
+	private void prefetchNeighbouringZoomLevels(int tileX, int tileY, int zoom)
+	{
+		//Zoom levels are numbered with the most zoomed-in (detailed) level as the minimum zoom level
+		if(zoom < getInfo().getMaximumZoomLevel())
+		{
+			prefetch(tileX / 2, tileY / 2, zoom + 1);
+		}
+
+		if(zoom > getInfo().getMinimumZoomLevel())
+		{
+			for(int x = 0; x < 2; x++)
+			{
+				for(int y = 0; y < 2; y++)
+				{
+					prefetch(tileX * 2 + x, tileY * 2 + y, zoom - 1);
+				}
+			}
+		}
+	}
+
+	private void prefetch(int tileX, int tileY, int zoom)
+	{
+		if(GeoUtil.isValidTile(tileX, tileY, zoom, getInfo()) &&
+			!tileMap.containsKey(getInfo().getTileUrl(tileX, tileY, zoom)))
+		{
+			mPrefetchCount++;
+			getTile(tileX, tileY, zoom, false);
+		}
+	}
+
+	/**
+	 * Enables or disables low priority prefetching of the tiles in the neighbouring zoom levels for each visible tile
+	 * so that the map can be zoomed in or out without waiting for tiles to load.  Disabled by default.
+	 */
+	public void setPrefetchNeighbouringZoomLevels(boolean prefetch)
+	{
+		mPrefetchNeighbouringZoomLevels = prefetch;
+	}
+
+	/**
+	 * Summary statistics for tile loading and the tile cache
+	 */
+	public String getStatistics()
+	{
+		return cache.getStatistics() + " Network - fetches [" + mNetworkFetchCount.get() + "] fetched [" +
+			(mNetworkFetchBytes.get() / 1024) + " KB] errors [" + mNetworkErrorCount.get() + "] prefetch requests [" +
+			mPrefetchCount + "]";
+	}
+
 	/**
 	 * @return the tile cache
 	 */
@@ -350,6 +416,8 @@ public abstract class AbstractTileFactory extends TileFactory
 					if (img == null)
 					{
 						byte[] bimg = cacheInputStream(uri.toURL());
+						mNetworkFetchCount.incrementAndGet();
+						mNetworkFetchBytes.addAndGet(bimg.length);
 						// img = PaintUtils.loadCompatibleImage(new ByteArrayInputStream(bimg));
 						img = ImageIO.read(new ByteArrayInputStream(bimg));
 						cache.put(uri, bimg, img);
@@ -380,6 +448,8 @@ public abstract class AbstractTileFactory extends TileFactory
 				}
 				catch(SSLException ssle)
 				{
+					mNetworkErrorCount.incrementAndGet();
+
 					if(ssle.getMessage() != null && ssle.getMessage().startsWith("No PSK available"))
 					{
 						//JDK 11 bug: https://bugs.openjdk.java.net/browse/JDK-8213202
@@ -391,6 +461,8 @@ public abstract class AbstractTileFactory extends TileFactory
 				}
 				catch (Throwable e)
 				{
+					mNetworkErrorCount.incrementAndGet();
+
 					if (trys == 0)
 					{
 						mLog.error("Failed to load a tile at url: " + tile.getURL() + ", stopping", e );
@@ -9,132 +9,221 @@
 
 package org.jdesktop.swingx.mapviewer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
- * An implementation only class for now. For internal use only.
+ * Two-tier map tile cache.
+ *
+ * The memory tier is a least recently used (LRU) cache of decoded tile images that is bounded by the total size of
+ * the image rasters in bytes.  The optional disk tier is a persistent TileStore of the compressed tile images that
+ * survives application restarts and serves tiles when the tile server is unreachable.  Decoded images evicted from
+ * the memory tier are reloaded and decoded from the disk tier.
  * @author joshua.marinacci@sun.com
  */
 public class TileCache
 {
-	private Map<URI, BufferedImage> imgmap = new HashMap<URI, BufferedImage>();
-	private LinkedList<URI> imgmapAccessQueue = new LinkedList<URI>();
-	private int imagesize = 0;
-	private Map<URI, byte[]> bytemap = new HashMap<URI, byte[]>();
-	private LinkedList<URI> bytemapAccessQueue = new LinkedList<URI>();
-	private int bytesize = 0;
+	private final static Logger mLog = LoggerFactory.getLogger(TileCache.class);
+	public static final long DEFAULT_MAXIMUM_IMAGE_BYTES = 1000 * 1000 * 50;
+
+	private Map<URI, BufferedImage> mImageMap = new LinkedHashMap<>(64, 0.75f, true);
+	private long mImageBytes = 0;
+	private long mMaximumImageBytes;
+	private TileStore mTileStore;
+
+	private long mMemoryHitCount;
+	private long mDiskHitCount;
+	private long mMissCount;
+	private long mEvictionCount;
 
 	/**
-	 * Default constructor - Empty
+	 * Constructs a memory-only cache with the default maximum decoded image size
 	 */
 	public TileCache()
 	{
+		this(DEFAULT_MAXIMUM_IMAGE_BYTES, null);
+	}
+
+	/**
+	 * Constructs an instance
+	 * @param maximumImageBytes maximum total size of the decoded images in the memory tier
+	 * @param tileStore for the persistent disk tier, or null for a memory-only cache
+	 */
+	public TileCache(long maximumImageBytes, TileStore tileStore)
+	{
+		mMaximumImageBytes = maximumImageBytes;
+		mTileStore = tileStore;
+	}
+
+	/**
+	 * Persistent disk tier, or null if this is a memory-only cache
+	 */
+	public TileStore getTileStore()
+	{
+		return mTileStore;
 	}
 
 	/**
-	 * Put a tile image into the cache. This puts both a buffered image and array of bytes that make up the compressed
-	 * image.
+	 * Put a tile image into the cache. The decoded image is added to the memory tier and the compressed image is
+	 * written to the disk tier.
 	 * @param uri URI of image that is being stored in the cache
 	 * @param bimg bytes of the compressed image, ie: the image file that was loaded over the network
 	 * @param img image to store in the cache
 	 */
 	public void put(URI uri, byte[] bimg, BufferedImage img)
 	{
-		synchronized (bytemap)
+		if(mTileStore != null)
 		{
-			while (bytesize > 1000 * 1000 * 50)
-			{
-				URI olduri = bytemapAccessQueue.removeFirst();
-				byte[] oldbimg = bytemap.remove(olduri);
-				bytesize -= oldbimg.length;
-				log("removed 1 img from byte cache");
-			}
-
-			bytemap.put(uri, bimg);
-			bytesize += bimg.length;
-			bytemapAccessQueue.addLast(uri);
+			mTileStore.put(uri, bimg);
 		}
+
 		addToImageCache(uri, img);
 	}
 
 	/**
 	 * Returns a buffered image for the requested URI from the cache. This method must return null if the image is not
-	 * in the cache. If the image is unavailable but it's compressed version *is* available, then the compressed version
-	 * will be expanded and returned.
+	 * in the cache. If the decoded image is unavailable but the compressed version is available from the disk tier,
+	 * the compressed version will be decoded, added to the memory tier and returned.
 	 * @param uri URI of the image previously put in the cache
 	 * @return the image matching the requested URI, or null if not available
 	 * @throws IOException if retrieval fails 
 	 */
 	public BufferedImage get(URI uri) throws IOException
 	{
-		synchronized (imgmap)
+		synchronized(mImageMap)
 		{
-			if (imgmap.containsKey(uri))
+			BufferedImage image = mImageMap.get(uri);
+
+			if(image != null)
 			{
-				imgmapAccessQueue.remove(uri);
-				imgmapAccessQueue.addLast(uri);
-				return imgmap.get(uri);
+				mMemoryHitCount++;
+				return image;
 			}
 		}
-		synchronized (bytemap)
+
+		if(mTileStore != null)
 		{
-			if (bytemap.containsKey(uri))
+			byte[] bytes = mTileStore.get(uri);
+
+			if(bytes != null)
 			{
-				log("retrieving from bytes");
-				bytemapAccessQueue.remove(uri);
-				bytemapAccessQueue.addLast(uri);
-				BufferedImage img = ImageIO.read(new ByteArrayInputStream(bytemap.get(uri)));
-				addToImageCache(uri, img);
-				return img;
+				BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+
+				if(image != null)
+				{
+					addToImageCache(uri, image);
+
+					synchronized(mImageMap)
+					{
+						mDiskHitCount++;
+					}
+
+					return image;
+				}
 			}
 		}
+
+		synchronized(mImageMap)
+		{
+			mMissCount++;
+		}
+
 		return null;
 	}
 
 	/**
-	 * Request that the cache free up some memory. How this happens or how much memory is freed is up to the TileCache
-	 * implementation. Subclasses can implement their own strategy. The default strategy is to clear out all buffered
-	 * images but retain the compressed versions.
+	 * Request that the cache free up some memory. Clears the decoded images from the memory tier.  The compressed
+	 * images remain available from the disk tier.
 	 */
 	public void needMoreMemory()
 	{
-		imgmap.clear();
-		log("HACK! need more memory: freeing up memory");
+		synchronized(mImageMap)
+		{
+			mEvictionCount += mImageMap.size();
+			mImageMap.clear();
+			mImageBytes = 0;
+		}
+
+		mLog.warn("Map tile cache - low memory - cleared decoded tile images");
 	}
 
 	private void addToImageCache(final URI uri, final BufferedImage img)
 	{
-		synchronized (imgmap)
+		if(img == null)
 		{
-			try {
-                            while (imagesize > 1000 * 1000 * 50)
-                            {
-                                    URI olduri = imgmapAccessQueue.removeFirst();
-                                    BufferedImage oldimg = imgmap.remove(olduri);
-                                    imagesize -= oldimg.getWidth() * oldimg.getHeight() * 4;
-                                    log("removed 1 img from image cache");
-                            }
-                            imgmap.put(uri, img);
-                            imagesize += img.getWidth() * img.getHeight() * 4;
-                            imgmapAccessQueue.addLast(uri);
-                        } catch (Exception ex) {
-                            log("Failed to load tile at URL. Tile is null");
-                        }
+			return;
+		}
+
+		synchronized(mImageMap)
+		{
+			BufferedImage previous = mImageMap.put(uri, img);
+
+			if(previous != null)
+			{
+				mImageBytes -= getSize(previous);
+			}
+
+			mImageBytes += getSize(img);
+
+			//Evict least recently used images, but always retain the image that was just added
+			Iterator<Map.Entry<URI, BufferedImage>> it = mImageMap.entrySet().iterator();
+
+			while(mImageBytes > mMaximumImageBytes && mImageMap.size() > 1 && it.hasNext())
+			{
+				Map.Entry<URI, BufferedImage> entry = it.next();
+
+				if(!entry.getKey().equals(uri))
+				{
+					mImageBytes -= getSize(entry.getValue());
+					mEvictionCount++;
+					it.remove();
+				}
+			}
 		}
-//		log("added to cache: " + " uncompressed = " + imgmap.keySet().size() + " / " + imagesize / 1000 + "k"
-//				+ " compressed = " + bytemap.keySet().size() + " / " + bytesize / 1000 + "k");
 	}
 
-	private void log(String string)
+	/**
+	 * Size of the image raster in bytes
+	 */
+	private static long getSize(BufferedImage image)
 	{
-//		Log.debug( string );
+		DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+		return (long)dataBuffer.getSize() * (DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8);
 	}
 
+	/**
+	 * Summary statistics for this cache
+	 */
+	public String getStatistics()
+	{
+		StringBuilder sb = new StringBuilder();
+
+		synchronized(mImageMap)
+		{
+			long requests = mMemoryHitCount + mDiskHitCount + mMissCount;
+			sb.append("Map Tile Cache - images [").append(mImageMap.size()).append("] size [")
+				.append(mImageBytes / 1024).append("/").append(mMaximumImageBytes / 1024).append(" KB] memory hits [")
+				.append(mMemoryHitCount).append("] disk hits [").append(mDiskHitCount).append("] misses [")
+				.append(mMissCount).append("] hit rate [")
+				.append(requests > 0 ? (100 * (mMemoryHitCount + mDiskHitCount) / requests) : 0)
+				.append("%] evictions [").append(mEvictionCount).append("]");
+		}
+
+		if(mTileStore != null)
+		{
+			sb.append(" Store - ").append(mTileStore.getStatistics());
+		}
+
+		return sb.toString();
+	}
 }
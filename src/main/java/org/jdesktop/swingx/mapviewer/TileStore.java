@@ -0,0 +1,617 @@
+/*
+ *
+ *  * ******************************************************************************
+ *  * Copyright (C) 2014-2020 Dennis Sheirer
+ *  *
+ *  * This program is free software: you can redistribute it and/or modify
+ *  * it under the terms of the GNU General Public License as published by
+ *  * the Free Software Foundation, either version 3 of the License, or
+ *  * (at your option) any later version.
+ *  *
+ *  * This program is distributed in the hope that it will be useful,
+ *  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  * GNU General Public License for more details.
+ *  *
+ *  * You should have received a copy of the GNU General Public License
+ *  * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ *  * *****************************************************************************
+ *
+ *
+ */
+package org.jdesktop.swingx.mapviewer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Persistent on-disk store for compressed map tile images.
+ *
+ * Tiles are stored in a host/path directory tree that mirrors the tile server URL, which for slippy map tile servers
+ * is the standard zoom/x/y.png layout (e.g. map_tiles/tile.openstreetmap.org/12/1178/1504.png).  The store can be
+ * prepopulated offline by copying a tile tree for the server host into the store directory.  Prepopulated tiles are
+ * only read: the store never modifies or removes them.
+ *
+ * Tiles fetched from the tile server are written to a separate tree in the fetched subdirectory of the store
+ * (e.g. map_tiles/fetched/tile.openstreetmap.org/12/1178/1504.png).  Tiles are written to a uniquely named temporary
+ * file in the tile's directory and atomically moved into place so that a partially written tile is never served and
+ * concurrent writers of the same tile can't collide.
+ *
+ * The fetched tiles are bounded by a maximum total size and an optional maximum age.  Fetched tiles are evicted least
+ * recently used first when they exceed the maximum size, and fetched tiles that have not been used (read or written)
+ * within the maximum age are removed.  The last use of each fetched tile is persisted as the file's last modified
+ * time, so the eviction order survives restarts.  The fetched directory is scanned once, on first use, to build the
+ * index of fetched tiles.
+ */
+public class TileStore
+{
+	private final static Logger mLog = LoggerFactory.getLogger(TileStore.class);
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final int MAXIMUM_NAME_LENGTH = 250;
+	public static final String FETCHED_DIRECTORY = "fetched";
+	public static final long DEFAULT_MAXIMUM_BYTES = 512L * 1024 * 1024;
+
+	//Evict down to this fraction of the maximum size so that eviction isn't triggered by every write
+	private static final double EVICTION_TARGET_RATIO = 0.9;
+	//Interval for removing expired tiles and for persisting the last use of a tile that is read
+	private static final long MAINTENANCE_INTERVAL_MILLISECONDS = TimeUnit.HOURS.toMillis(1);
+
+	private Path mDirectory;
+	private Path mFetchedDirectory;
+	private volatile long mMaximumBytes;
+	private volatile long mMaximumAge;
+	private Map<Path,StoredTile> mTiles = new ConcurrentHashMap<>();
+	private AtomicLong mStoredBytes = new AtomicLong();
+	private volatile boolean mIndexed;
+	private AtomicBoolean mPruning = new AtomicBoolean();
+	private volatile boolean mPruneRequested;
+	private volatile long mLastPruneTimestamp;
+	private AtomicLong mHitCount = new AtomicLong();
+	private AtomicLong mMissCount = new AtomicLong();
+	private AtomicLong mWriteCount = new AtomicLong();
+	private AtomicLong mErrorCount = new AtomicLong();
+	private AtomicLong mEvictionCount = new AtomicLong();
+	private AtomicLong mExpiredCount = new AtomicLong();
+	private AtomicLong mBytesRead = new AtomicLong();
+	private AtomicLong mBytesWritten = new AtomicLong();
+
+	/**
+	 * Constructs an instance with the default maximum size and no maximum age
+	 * @param directory for storing tiles.  The directory is created if it doesn't exist.
+	 */
+	public TileStore(Path directory)
+	{
+		this(directory, DEFAULT_MAXIMUM_BYTES, 0);
+	}
+
+	/**
+	 * Constructs an instance
+	 * @param directory for storing tiles.  The directory is created if it doesn't exist.
+	 * @param maximumBytes total size of the fetched tiles, or 0 for no size limit
+	 * @param maximumAgeMilliseconds since a fetched tile was last used before it is removed, or 0 for no age limit
+	 */
+	public TileStore(Path directory, long maximumBytes, long maximumAgeMilliseconds)
+	{
+		mDirectory = directory.toAbsolutePath().normalize();
+		mFetchedDirectory = mDirectory.resolve(FETCHED_DIRECTORY);
+		mMaximumBytes = maximumBytes;
+		mMaximumAge = maximumAgeMilliseconds;
+
+		try
+		{
+			Files.createDirectories(mFetchedDirectory);
+		}
+		catch(IOException ioe)
+		{
+			mLog.error("Unable to create map tile store directory [" + mDirectory + "]", ioe);
+		}
+	}
+
+	/**
+	 * Directory for this store
+	 */
+	public Path getDirectory()
+	{
+		return mDirectory;
+	}
+
+	/**
+	 * Sets the maximum total size of the fetched tiles.  The new limit is applied by the next tile read or write.
+	 * @param maximumBytes or 0 for no size limit
+	 */
+	public void setMaximumBytes(long maximumBytes)
+	{
+		mMaximumBytes = maximumBytes;
+		mPruneRequested = true;
+	}
+
+	/**
+	 * Sets the maximum time since a fetched tile was last used before it is removed.  The new limit is applied by the
+	 * next tile read or write.
+	 * @param maximumAgeMilliseconds or 0 for no age limit
+	 */
+	public void setMaximumAge(long maximumAgeMilliseconds)
+	{
+		mMaximumAge = maximumAgeMilliseconds;
+		mPruneRequested = true;
+	}
+
+	/**
+	 * Local file path for a prepopulated tile for the URI, or null if the URI can't be mapped into the store
+	 * directory
+	 */
+	public Path getPath(URI uri)
+	{
+		return getPath(mDirectory, uri);
+	}
+
+	/**
+	 * Local file path for a fetched tile for the URI, or null if the URI can't be mapped into the fetched directory
+	 */
+	public Path getFetchedPath(URI uri)
+	{
+		return getPath(mFetchedDirectory, uri);
+	}
+
+	/**
+	 * Local file path for the tile URI in the directory, or null if the URI can't be mapped into the directory
+	 */
+	private static Path getPath(Path directory, URI uri)
+	{
+		if(uri == null || uri.getHost() == null || uri.getPath() == null)
+		{
+			return null;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(uri.getHost()).append(uri.getPath());
+
+		if(uri.getQuery() != null)
+		{
+			sb.append('$').append(uri.getQuery());
+		}
+
+		String name = sb.length() > MAXIMUM_NAME_LENGTH ? sb.substring(0, MAXIMUM_NAME_LENGTH) : sb.toString();
+		name = name.replaceAll("[?*:<>\"|\\\\]", "\\$");
+
+		Path path = directory.resolve(name).normalize();
+
+		//Don't allow a crafted URL path (e.g. ../) to escape the directory
+		if(!path.startsWith(directory) || path.equals(directory))
+		{
+			return null;
+		}
+
+		return path;
+	}
+
+	/**
+	 * Retrieves the compressed tile image for the URI
+	 * @param uri of the tile
+	 * @return tile image bytes or null if the tile is not in the store
+	 */
+	public byte[] get(URI uri)
+	{
+		Path prepopulated = getPath(uri);
+
+		//A host named like the fetched directory would map prepopulated lookups into the fetched tree
+		if(prepopulated != null && !prepopulated.startsWith(mFetchedDirectory) && Files.isRegularFile(prepopulated))
+		{
+			try
+			{
+				byte[] bytes = Files.readAllBytes(prepopulated);
+
+				if(bytes.length > 0)
+				{
+					mHitCount.incrementAndGet();
+					mBytesRead.addAndGet(bytes.length);
+					return bytes;
+				}
+			}
+			catch(IOException ioe)
+			{
+				mErrorCount.incrementAndGet();
+				mLog.error("Error reading map tile [" + prepopulated + "]", ioe);
+			}
+		}
+
+		Path path = getFetchedPath(uri);
+
+		if(path != null)
+		{
+			checkIndex();
+		}
+
+		if(path != null && Files.isRegularFile(path))
+		{
+			try
+			{
+				byte[] bytes = Files.readAllBytes(path);
+
+				if(bytes.length > 0)
+				{
+					mHitCount.incrementAndGet();
+					mBytesRead.addAndGet(bytes.length);
+					used(path, bytes.length);
+					return bytes;
+				}
+			}
+			catch(NoSuchFileException nsfe)
+			{
+				//Not stored, or removed by eviction
+				remove(path);
+			}
+			catch(IOException ioe)
+			{
+				mErrorCount.incrementAndGet();
+				mLog.error("Error reading map tile [" + path + "]", ioe);
+			}
+		}
+
+		mMissCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Stores the compressed tile image for the URI
+	 * @param uri of the tile
+	 * @param bytes of the compressed tile image
+	 */
+	public void put(URI uri, byte[] bytes)
+	{
+		Path path = getFetchedPath(uri);
+
+		if(path == null || bytes == null || bytes.length == 0)
+		{
+			return;
+		}
+
+		checkIndex();
+
+		Path temp = null;
+
+		try
+		{
+			Files.createDirectories(path.getParent());
+			temp = Files.createTempFile(path.getParent(), path.getFileName().toString() + ".", TEMPORARY_SUFFIX);
+			Files.write(temp, bytes);
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			mWriteCount.incrementAndGet();
+			mBytesWritten.addAndGet(bytes.length);
+			index(path, new StoredTile(bytes.length, System.currentTimeMillis()), true);
+		}
+		catch(IOException ioe)
+		{
+			mErrorCount.incrementAndGet();
+			mLog.error("Error writing map tile [" + path + "]", ioe);
+
+			if(temp != null)
+			{
+				try
+				{
+					Files.deleteIfExists(temp);
+				}
+				catch(IOException ioe2)
+				{
+					//Ignore
+				}
+			}
+		}
+
+		if(mMaximumBytes > 0 && mStoredBytes.get() > mMaximumBytes)
+		{
+			prune();
+		}
+	}
+
+	/**
+	 * Records a read of the stored tile.  The last used time is persisted to the file at most once per maintenance
+	 * interval to avoid a metadata write for every read.
+	 */
+	private void used(Path path, long size)
+	{
+		long now = System.currentTimeMillis();
+		StoredTile tile = mTiles.get(path);
+
+		if(tile == null)
+		{
+			//Tile was removed from the index by a concurrent eviction
+			index(path, new StoredTile(size, now), true);
+		}
+		else if(now - tile.mLastUsed > MAINTENANCE_INTERVAL_MILLISECONDS)
+		{
+			tile.mLastUsed = now;
+
+			try
+			{
+				Files.setLastModifiedTime(path, FileTime.fromMillis(now));
+			}
+			catch(IOException ioe)
+			{
+				//Not critical - the last use is tracked in memory for this session
+			}
+		}
+		else
+		{
+			tile.mLastUsed = now;
+		}
+	}
+
+	/**
+	 * Adds or replaces the tile in the index and updates the stored size
+	 * @param replace true to replace an existing entry, false to only add the tile if it is not already indexed
+	 */
+	private void index(Path path, StoredTile tile, boolean replace)
+	{
+		StoredTile previous = replace ? mTiles.put(path, tile) : mTiles.putIfAbsent(path, tile);
+
+		if(replace || previous == null)
+		{
+			mStoredBytes.addAndGet(tile.mSize - (previous != null ? previous.mSize : 0));
+		}
+	}
+
+	/**
+	 * Removes the tile from the index
+	 */
+	private void remove(Path path)
+	{
+		StoredTile tile = mTiles.remove(path);
+
+		if(tile != null)
+		{
+			mStoredBytes.addAndGet(-tile.mSize);
+		}
+	}
+
+	/**
+	 * Indexes the fetched directory on first use, and periodically, or after a limit change, prunes the fetched
+	 * tiles.  Indexing blocks other tile
+	 * reads and writes until complete so that the scan doesn't remove a temporary file that is being written.
+	 */
+	private void checkIndex()
+	{
+		if(!mIndexed)
+		{
+			synchronized(this)
+			{
+				if(!mIndexed)
+				{
+					scan();
+					mIndexed = true;
+				}
+			}
+
+			prune();
+		}
+		else if(mPruneRequested ||
+			(mMaximumAge > 0 && System.currentTimeMillis() - mLastPruneTimestamp > MAINTENANCE_INTERVAL_MILLISECONDS))
+		{
+			mPruneRequested = false;
+			prune();
+		}
+	}
+
+	/**
+	 * Scans the fetched directory to index the fetched tiles and removes temporary files left by an interrupted write.
+	 */
+	private void scan()
+	{
+		long start = System.currentTimeMillis();
+
+		try(Stream<Path> paths = Files.walk(mFetchedDirectory))
+		{
+			paths.forEach(path -> {
+				try
+				{
+					BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+					if(attributes.isRegularFile())
+					{
+						if(path.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+						{
+							Files.deleteIfExists(path);
+						}
+						else
+						{
+							index(path, new StoredTile(attributes.size(), attributes.lastModifiedTime().toMillis()),
+								false);
+						}
+					}
+				}
+				catch(IOException ioe)
+				{
+					//Skip files that can't be accessed
+				}
+			});
+		}
+		catch(IOException | RuntimeException e)
+		{
+			mLog.error("Error indexing map tile store directory [" + mFetchedDirectory + "]", e);
+		}
+
+		mLog.info("Indexed fetched map tiles - tiles [" + mTiles.size() + "] size [" + (mStoredBytes.get() / 1024) +
+			" KB] in [" + (System.currentTimeMillis() - start) + " ms]");
+	}
+
+	/**
+	 * Removes fetched tiles that have not been used within the maximum age and, when the fetched tiles exceed the
+	 * maximum size, evicts the least recently used tiles until they are reduced to the eviction target size.  Only one thread
+	 * prunes at a time; other threads continue without waiting and the pruning thread repeats while writes made during
+	 * the prune leave the store over the maximum size.
+	 */
+	private void prune()
+	{
+		while(mPruning.compareAndSet(false, true))
+		{
+			int removed;
+
+			try
+			{
+				removed = pruneTiles();
+			}
+			finally
+			{
+				mPruning.set(false);
+			}
+
+			if(removed == 0 || mMaximumBytes <= 0 || mStoredBytes.get() <= mMaximumBytes)
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Performs a single pruning pass over a snapshot of the index, ordered least recently used first.
+	 * @return number of tiles removed
+	 */
+	private int pruneTiles()
+	{
+		long now = System.currentTimeMillis();
+		mLastPruneTimestamp = now;
+
+		long maximumBytes = mMaximumBytes;
+		long maximumAge = mMaximumAge;
+		long targetBytes = mStoredBytes.get() > maximumBytes ? (long)(maximumBytes * EVICTION_TARGET_RATIO) :
+			maximumBytes;
+
+		//Snapshot the last used times so that concurrent reads can't change the ordering while sorting
+		List<EvictionCandidate> candidates = new ArrayList<>(mTiles.size());
+
+		for(Map.Entry<Path,StoredTile> entry : mTiles.entrySet())
+		{
+			candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue()));
+		}
+
+		candidates.sort(Comparator.comparingLong(candidate -> candidate.mLastUsed));
+
+		int removed = 0;
+
+		for(EvictionCandidate candidate : candidates)
+		{
+			boolean expired = maximumAge > 0 && now - candidate.mLastUsed > maximumAge;
+			boolean oversize = maximumBytes > 0 && mStoredBytes.get() > targetBytes;
+
+			//Candidates are ordered least recently used first, so none of the remaining tiles are eligible either
+			if(!expired && !oversize)
+			{
+				break;
+			}
+
+			//Skip tiles that were used or replaced since the snapshot
+			if(candidate.mTile.mLastUsed == candidate.mLastUsed && mTiles.remove(candidate.mPath, candidate.mTile))
+			{
+				mStoredBytes.addAndGet(-candidate.mTile.mSize);
+				removed++;
+
+				try
+				{
+					Files.deleteIfExists(candidate.mPath);
+				}
+				catch(IOException ioe)
+				{
+					mErrorCount.incrementAndGet();
+					mLog.error("Error removing map tile [" + candidate.mPath + "]", ioe);
+				}
+
+				if(expired)
+				{
+					mExpiredCount.incrementAndGet();
+				}
+				else
+				{
+					mEvictionCount.incrementAndGet();
+				}
+			}
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Number of tiles served from the store
+	 */
+	public long getHitCount()
+	{
+		return mHitCount.get();
+	}
+
+	/**
+	 * Number of requested tiles that were not in the store
+	 */
+	public long getMissCount()
+	{
+		return mMissCount.get();
+	}
+
+	/**
+	 * Total size in bytes of the fetched tiles currently in the store
+	 */
+	public long getStoredBytes()
+	{
+		return mStoredBytes.get();
+	}
+
+	/**
+	 * Summary statistics for this store
+	 */
+	public String getStatistics()
+	{
+		return "disk hits [" + mHitCount.get() + "] misses [" + mMissCount.get() + "] read [" +
+			(mBytesRead.get() / 1024) + " KB] writes [" + mWriteCount.get() + "] written [" +
+			(mBytesWritten.get() / 1024) + " KB] stored [" + mTiles.size() + " tiles " + (mStoredBytes.get() / 1024) +
+			" KB fetched] evicted [" + mEvictionCount.get() + "] expired [" + mExpiredCount.get() + "] errors [" +
+			mErrorCount.get() + "] directory [" + mDirectory + "]";
+	}
+
+	/**
+	 * Stored tile and its last use at the time of an eviction snapshot
+	 */
+	private static class EvictionCandidate
+	{
+		private Path mPath;
+		private StoredTile mTile;
+		private long mLastUsed;
+
+		public EvictionCandidate(Path path, StoredTile tile)
+		{
+			mPath = path;
+			mTile = tile;
+			mLastUsed = tile.mLastUsed;
+		}
+	}
+
+	/**
+	 * Size and last use of a stored tile
+	 */
+	private static class StoredTile
+	{
+		private long mSize;
+		private volatile long mLastUsed;
+
+		public StoredTile(long size, long lastUsed)
+		{
+			mSize = size;
+			mLastUsed = lastUsed;
+		}
+	}
+}